@@ -0,0 +1,326 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.interestrate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.financial.model.interestrate.curve.YieldCurve;
+import com.opengamma.math.curve.Curve;
+import com.opengamma.math.function.Function1D;
+import com.opengamma.math.interpolation.Interpolator1D;
+import com.opengamma.math.interpolation.data.Interpolator1DDataBundle;
+import com.opengamma.math.interpolation.sensitivity.Interpolator1DNodeSensitivityCalculator;
+import com.opengamma.math.matrix.DoubleMatrix1D;
+import com.opengamma.math.matrix.DoubleMatrix2D;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Evaluates the residuals and the Jacobian of a multi-curve fit, as {@link MultipleYieldCurveFinderFunction} and
+ * {@link MultipleYieldCurveFinderJacobian} do, without rebuilding the curves on every call. The interpolator data
+ * bundle of each curve is created once and its node values are overwritten in place at each iteration, so the
+ * curves in the bundle passed to the calculators are the same objects throughout a fit. Only the non-zero node
+ * sensitivities of an instrument are added into its row of the Jacobian; for the usual interpolators an instrument
+ * only depends on the few nodes around its cash flows, so most of the matrix is never touched and it suits a sparse
+ * decomposition such as {@link com.opengamma.math.linearalgebra.SparseLUDecomposition}.
+ * <p>
+ * Instruments can be evaluated on the threads of an executor service. Any state an interpolator computes lazily
+ * from the node values is computed on the calling thread before the instruments are handed out, so the threads only
+ * read the data bundles.
+ * <p>
+ * The function and the Jacobian share the data bundles, so an engine must not be used for more than one fit at a
+ * time.
+ */
+public class MultipleYieldCurveFinderEngine {
+  private final MultipleYieldCurveFinderDataBundle _data;
+  private final InterestRateDerivativeVisitor<YieldCurveBundle, Double> _valueCalculator;
+  private final InterestRateDerivativeVisitor<YieldCurveBundle, Map<String, List<DoublesPair>>> _sensitivityCalculator;
+  private final ExecutorService _executor;
+  private final int _parallelism;
+  private final List<String> _curveNames;
+  private final YieldCurveBundle _curves;
+  private final NodeCurve[] _nodeCurves;
+  private final int[] _offsets;
+  private final Function1D<DoubleMatrix1D, DoubleMatrix1D> _function;
+  private final Function1D<DoubleMatrix1D, DoubleMatrix2D> _jacobian;
+
+  /**
+   * Creates an engine that evaluates the instruments on the calling thread.
+   *
+   * @param data  the instruments and curve definitions, not null
+   * @param valueCalculator  the calculator of the values matched to the market values, not null
+   * @param sensitivityCalculator  the calculator of the sensitivities of those values to the curves, not null
+   */
+  public MultipleYieldCurveFinderEngine(final MultipleYieldCurveFinderDataBundle data, final InterestRateDerivativeVisitor<YieldCurveBundle, Double> valueCalculator,
+      final InterestRateDerivativeVisitor<YieldCurveBundle, Map<String, List<DoublesPair>>> sensitivityCalculator) {
+    this(data, valueCalculator, sensitivityCalculator, null, 1);
+  }
+
+  /**
+   * Creates an engine.
+   *
+   * @param data  the instruments and curve definitions, not null
+   * @param valueCalculator  the calculator of the values matched to the market values, not null
+   * @param sensitivityCalculator  the calculator of the sensitivities of those values to the curves, not null
+   * @param executor  the executor to evaluate instruments on, null to evaluate on the calling thread
+   * @param parallelism  the number of tasks to split the instruments between, typically the number of threads of the
+   *  executor, greater than zero
+   */
+  public MultipleYieldCurveFinderEngine(final MultipleYieldCurveFinderDataBundle data, final InterestRateDerivativeVisitor<YieldCurveBundle, Double> valueCalculator,
+      final InterestRateDerivativeVisitor<YieldCurveBundle, Map<String, List<DoublesPair>>> sensitivityCalculator, final ExecutorService executor, final int parallelism) {
+    Validate.notNull(data, "data");
+    Validate.notNull(valueCalculator, "value calculator");
+    Validate.notNull(sensitivityCalculator, "sensitivity calculator");
+    ArgumentChecker.notNegativeOrZero(parallelism, "parallelism");
+    _data = data;
+    _valueCalculator = valueCalculator;
+    _sensitivityCalculator = sensitivityCalculator;
+    _executor = executor;
+    _parallelism = parallelism;
+    _curveNames = data.getCurveNames();
+    _curves = new YieldCurveBundle();
+    _nodeCurves = new NodeCurve[_curveNames.size()];
+    _offsets = new int[_curveNames.size()];
+    int offset = 0;
+    for (int i = 0; i < _nodeCurves.length; i++) {
+      final String name = _curveNames.get(i);
+      _nodeCurves[i] = new NodeCurve(name, data.getCurveNodePointsForCurve(name), data.getInterpolatorForCurve(name), data.getSensitivityCalculatorForName(name));
+      _offsets[i] = offset;
+      offset += _nodeCurves[i].size();
+      _curves.setCurve(name, new YieldCurve(_nodeCurves[i]));
+    }
+    if (data.getKnownCurves() != null) {
+      _curves.addAll(data.getKnownCurves());
+    }
+    _function = new Function1D<DoubleMatrix1D, DoubleMatrix1D>() {
+
+      @Override
+      public DoubleMatrix1D evaluate(final DoubleMatrix1D x) {
+        setNodeValues(x, false);
+        final double[] res = new double[_data.getNumInstruments()];
+        evaluateInstruments(new RowCalculator() {
+
+          @Override
+          public void calculate(final int i) {
+            res[i] = _valueCalculator.visit(_data.getDerivative(i), _curves) - _data.getMarketValue(i);
+          }
+        });
+        return new DoubleMatrix1D(res);
+      }
+    };
+    _jacobian = new Function1D<DoubleMatrix1D, DoubleMatrix2D>() {
+
+      @Override
+      public DoubleMatrix2D evaluate(final DoubleMatrix1D x) {
+        setNodeValues(x, true);
+        final double[][] res = new double[_data.getNumInstruments()][_data.getTotalNodes()];
+        evaluateInstruments(new RowCalculator() {
+
+          @Override
+          public void calculate(final int i) {
+            final Map<String, List<DoublesPair>> senseMap = _sensitivityCalculator.visit(_data.getDerivative(i), _curves);
+            for (int c = 0; c < _nodeCurves.length; c++) {
+              final List<DoublesPair> senseList = senseMap.get(_curveNames.get(c));
+              if (senseList != null) {
+                _nodeCurves[c].addSensitivities(senseList, res[i], _offsets[c]);
+              }
+            }
+          }
+        });
+        return new DoubleMatrix2D(res);
+      }
+    };
+  }
+
+  /**
+   * Gets the function that returns the difference between the value of each instrument and its market value for a
+   * vector of node values.
+   *
+   * @return the function, not null
+   */
+  public Function1D<DoubleMatrix1D, DoubleMatrix1D> getFunction() {
+    return _function;
+  }
+
+  /**
+   * Gets the function that returns the sensitivity of the value of each instrument to each node value.
+   *
+   * @return the Jacobian, not null
+   */
+  public Function1D<DoubleMatrix1D, DoubleMatrix2D> getJacobian() {
+    return _jacobian;
+  }
+
+  private void setNodeValues(final DoubleMatrix1D x, final boolean sensitivities) {
+    Validate.notNull(x);
+    if (x.getNumberOfElements() != _data.getTotalNodes()) {
+      throw new IllegalArgumentException("vector is wrong length");
+    }
+    final double[] values = x.getData();
+    for (int c = 0; c < _nodeCurves.length; c++) {
+      _nodeCurves[c].setValues(values, _offsets[c], sensitivities);
+    }
+  }
+
+  private void evaluateInstruments(final RowCalculator calculator) {
+    final int n = _data.getNumInstruments();
+    final int tasks = Math.min(n, (_executor != null) ? _parallelism : 1);
+    if (tasks <= 1) {
+      for (int i = 0; i < n; i++) {
+        calculator.calculate(i);
+      }
+      return;
+    }
+    final List<Callable<Void>> jobs = new ArrayList<Callable<Void>>(tasks);
+    for (int t = 0; t < tasks; t++) {
+      final int start = (int) ((long) n * t / tasks);
+      final int end = (int) ((long) n * (t + 1) / tasks);
+      jobs.add(new Callable<Void>() {
+
+        @Override
+        public Void call() {
+          for (int i = start; i < end; i++) {
+            calculator.calculate(i);
+          }
+          return null;
+        }
+      });
+    }
+    try {
+      for (Future<Void> future : _executor.invokeAll(jobs)) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted while evaluating instruments", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new OpenGammaRuntimeException("Instrument evaluation failed", e.getCause());
+    }
+  }
+
+  /**
+   * Fills in the row of a result for one instrument.
+   */
+  private interface RowCalculator {
+
+    void calculate(int i);
+
+  }
+
+  /**
+   * A curve over a data bundle whose node values are updated in place. The nodes are held in increasing order in the
+   * bundle; {@code _order} maps each of them back to its position in the vector of node values.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes" })
+  private static final class NodeCurve extends Curve<Double, Double> {
+    private final Interpolator1D _interpolator;
+    private final Interpolator1DNodeSensitivityCalculator _sensitivityCalculator;
+    private final Interpolator1DDataBundle _dataBundle;
+    private final int[] _order;
+
+    private NodeCurve(final String name, final double[] nodes, final Interpolator1D<? extends Interpolator1DDataBundle> interpolator,
+        final Interpolator1DNodeSensitivityCalculator<? extends Interpolator1DDataBundle> sensitivityCalculator) {
+      super(name);
+      _interpolator = interpolator;
+      _sensitivityCalculator = sensitivityCalculator;
+      final int n = nodes.length;
+      final double[] sorted = nodes.clone();
+      Arrays.sort(sorted);
+      _order = new int[n];
+      final boolean[] used = new boolean[n];
+      for (int i = 0; i < n; i++) {
+        for (int j = 0; j < n; j++) {
+          if (!used[j] && nodes[j] == sorted[i]) {
+            _order[i] = j;
+            used[j] = true;
+            break;
+          }
+        }
+      }
+      _dataBundle = interpolator.getDataBundleFromSortedArrays(sorted, new double[n]);
+    }
+
+    private void setValues(final double[] values, final int offset, final boolean sensitivities) {
+      for (int i = 0; i < _order.length; i++) {
+        _dataBundle.setYValueAtIndex(i, values[offset + _order[i]]);
+      }
+      // Computes any lazy state now, before other threads read the bundle
+      final double x = _dataBundle.firstKey();
+      _interpolator.interpolate(_dataBundle, x);
+      if (sensitivities) {
+        _sensitivityCalculator.calculate(_dataBundle, x);
+      }
+    }
+
+    private void addSensitivities(final List<DoublesPair> senseList, final double[] row, final int offset) {
+      final double[] times = new double[senseList.size()];
+      final double[] weights = new double[times.length];
+      int k = 0;
+      for (final DoublesPair timeAndSensitivity : senseList) {
+        times[k] = timeAndSensitivity.getFirst();
+        weights[k++] = timeAndSensitivity.getSecond();
+      }
+      final double[][] nodeSensitivities = _sensitivityCalculator.calculateAll(_dataBundle, times);
+      for (k = 0; k < times.length; k++) {
+        final double weight = weights[k];
+        if (weight == 0) {
+          continue;
+        }
+        for (int j = 0; j < nodeSensitivities[k].length; j++) {
+          if (nodeSensitivities[k][j] != 0) {
+            row[offset + _order[j]] += weight * nodeSensitivities[k][j];
+          }
+        }
+      }
+    }
+
+    @Override
+    public Double[] getXData() {
+      final double[] keys = _dataBundle.getKeys();
+      final Double[] result = new Double[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        result[i] = keys[i];
+      }
+      return result;
+    }
+
+    @Override
+    public Double[] getYData() {
+      final double[] values = _dataBundle.getValues();
+      final Double[] result = new Double[values.length];
+      for (int i = 0; i < values.length; i++) {
+        result[i] = values[i];
+      }
+      return result;
+    }
+
+    @Override
+    public int size() {
+      return _order.length;
+    }
+
+    @Override
+    public Double getYValue(final Double x) {
+      Validate.notNull(x, "x");
+      return (Double) _interpolator.interpolate(_dataBundle, x);
+    }
+
+  }
+
+}
@@ -26,4 +26,18 @@ public class DiscountCurve extends YieldAndDiscountCurve {
     return getCurve().getYValue(t);
   }
 
+  @Override
+  public double[] getInterestRates(final double[] t) {
+    final double[] result = getCurveValues(t);
+    for (int i = 0; i < t.length; i++) {
+      result[i] = -Math.log(result[i]) / t[i];
+    }
+    return result;
+  }
+
+  @Override
+  public double[] getDiscountFactors(final double[] t) {
+    return getCurveValues(t);
+  }
+
 }
@@ -11,6 +11,7 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.financial.model.interestrate.InterestRateModel;
 import com.opengamma.math.curve.Curve;
 import com.opengamma.math.curve.CurveShiftFunctionFactory;
+import com.opengamma.math.curve.DoublesCurve;
 
 /**
  * A DiscountCurve contains discount factors <i>e<sup>-r(t)t</sup></i> (where
@@ -44,10 +45,53 @@ public abstract class YieldAndDiscountCurve implements InterestRateModel<Double>
    */
   public abstract double getDiscountFactor(final Double t);
 
+  /**
+   * @param t An array of times, not null
+   * @return The interest rate for each time to maturity
+   */
+  public double[] getInterestRates(final double[] t) {
+    Validate.notNull(t, "t");
+    final double[] result = new double[t.length];
+    for (int i = 0; i < t.length; i++) {
+      result[i] = getInterestRate(t[i]);
+    }
+    return result;
+  }
+
+  /**
+   * @param t An array of times, not null
+   * @return The discount factor for each time to maturity
+   */
+  public double[] getDiscountFactors(final double[] t) {
+    Validate.notNull(t, "t");
+    final double[] result = new double[t.length];
+    for (int i = 0; i < t.length; i++) {
+      result[i] = getDiscountFactor(t[i]);
+    }
+    return result;
+  }
+
   public Curve<Double, Double> getCurve() {
     return _curve;
   }
 
+  /**
+   * Evaluates the underlying curve at each of an array of points, in one call if it is a {@link DoublesCurve}.
+   * @param x An array of points, not null
+   * @return The values of the curve
+   */
+  protected double[] getCurveValues(final double[] x) {
+    Validate.notNull(x, "x");
+    if (_curve instanceof DoublesCurve) {
+      return ((DoublesCurve) _curve).getYValues(x);
+    }
+    final double[] result = new double[x.length];
+    for (int i = 0; i < x.length; i++) {
+      result[i] = _curve.getYValue(x[i]);
+    }
+    return result;
+  }
+
   public YieldAndDiscountCurve withParallelShift(final double shift) {
     return new YieldCurve(CurveShiftFunctionFactory.getShiftedCurve(_curve, shift));
   }
@@ -25,4 +25,18 @@ public class YieldCurve extends YieldAndDiscountCurve {
   public double getDiscountFactor(final Double t) {
     return Math.exp(-t * getInterestRate(t));
   }
+
+  @Override
+  public double[] getInterestRates(final double[] t) {
+    return getCurveValues(t);
+  }
+
+  @Override
+  public double[] getDiscountFactors(final double[] t) {
+    final double[] result = getCurveValues(t);
+    for (int i = 0; i < t.length; i++) {
+      result[i] = Math.exp(-t[i] * result[i]);
+    }
+    return result;
+  }
 }
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+import java.util.Set;
+
+import org.apache.commons.lang.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.financial.greeks.Greek;
+import com.opengamma.financial.greeks.GreekResultCollection;
+import com.opengamma.financial.model.option.definition.EuropeanVanillaOptionDefinition;
+import com.opengamma.financial.model.option.definition.OptionDefinition;
+import com.opengamma.financial.model.option.definition.OptionPayoffFunction;
+import com.opengamma.financial.model.option.definition.StandardOptionDataBundle;
+import com.opengamma.financial.model.option.pricing.OptionModel;
+import com.opengamma.financial.model.stochastic.StochasticProcess;
+import com.opengamma.math.function.Function1D;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Prices European options by simulation with a {@link BlockMonteCarloEngine}. Vanilla payoffs are evaluated on
+ * primitives; other payoffs fall back to the payoff function of the definition, which creates a data bundle for
+ * each path.
+ * <p>
+ * The optional control variate is the discounted underlying, whose expectation is the discounted forward
+ * {@code S exp(bT)}; it should only be used with processes, such as the Black-Scholes processes, under which the
+ * underlying grows at the cost of carry.
+ */
+public class BlockEuropeanMonteCarloOptionModel implements OptionModel<OptionDefinition, StandardOptionDataBundle> {
+  private static final Logger s_logger = LoggerFactory.getLogger(BlockEuropeanMonteCarloOptionModel.class);
+  private final int _n;
+  private final int _steps;
+  private final StochasticProcess<OptionDefinition, StandardOptionDataBundle> _process;
+  private final BlockMonteCarloEngine _engine;
+  private final boolean _useControlVariate;
+
+  public BlockEuropeanMonteCarloOptionModel(final int n, final int steps, final StochasticProcess<OptionDefinition, StandardOptionDataBundle> process, final BlockMonteCarloEngine engine,
+      final boolean useControlVariate) {
+    ArgumentChecker.isTrue(n >= 2, "Need at least two samples");
+    ArgumentChecker.notNegativeOrZero(steps, "steps");
+    Validate.notNull(process, "process");
+    Validate.notNull(engine, "engine");
+    _n = n;
+    _steps = steps;
+    _process = process;
+    _engine = engine;
+    _useControlVariate = useControlVariate;
+  }
+
+  @Override
+  public GreekResultCollection getGreeks(final OptionDefinition definition, final StandardOptionDataBundle data, final Set<Greek> requiredGreeks) {
+    Validate.notNull(definition, "definition");
+    Validate.notNull(data, "data");
+    Validate.notNull(requiredGreeks, "required greeks");
+    Validate.notEmpty(requiredGreeks, "required greeks");
+    if (requiredGreeks.contains(Greek.FAIR_PRICE)) {
+      if (requiredGreeks.size() > 1) {
+        s_logger.warn("Can only produce fair price");
+      }
+    } else {
+      throw new IllegalArgumentException("Can only produce fair price");
+    }
+    final GreekResultCollection greeks = new GreekResultCollection();
+    greeks.put(Greek.FAIR_PRICE, getPricingFunction(definition).evaluate(data));
+    return greeks;
+  }
+
+  public Function1D<StandardOptionDataBundle, Double> getPricingFunction(final OptionDefinition definition) {
+    Validate.notNull(definition, "definition");
+    return new Function1D<StandardOptionDataBundle, Double>() {
+
+      @Override
+      public Double evaluate(final StandardOptionDataBundle data) {
+        return simulate(definition, data).getValue();
+      }
+    };
+  }
+
+  /**
+   * Prices an option, returning the standard error of the price as well as the price.
+   *
+   * @param definition  the option definition, not null
+   * @param data  the market data, not null
+   * @return the simulated price, not null
+   */
+  public MonteCarloResult simulate(final OptionDefinition definition, final StandardOptionDataBundle data) {
+    Validate.notNull(definition, "definition");
+    Validate.notNull(data, "data");
+    final double t = definition.getTimeToExpiry(data.getDate());
+    final double df = Math.exp(-data.getInterestRate(t) * t);
+    final TerminalPayoffFunction payoff = getDiscountedPayoff(definition, data, df);
+    ControlVariate control = null;
+    if (_useControlVariate) {
+      control = new ControlVariate(new TerminalPayoffFunction() {
+
+        @Override
+        public double getPayoff(final double terminalValue) {
+          return df * terminalValue;
+        }
+      }, df * data.getSpot() * Math.exp(data.getCostOfCarry() * t));
+    }
+    return _engine.simulate(_process.getPathDynamics(definition, data, _steps), _steps, payoff, control, _n);
+  }
+
+  private static TerminalPayoffFunction getDiscountedPayoff(final OptionDefinition definition, final StandardOptionDataBundle data, final double df) {
+    if (definition instanceof EuropeanVanillaOptionDefinition) {
+      final double k = definition.getStrike();
+      if (definition.isCall()) {
+        return new TerminalPayoffFunction() {
+
+          @Override
+          public double getPayoff(final double terminalValue) {
+            return (terminalValue > k) ? df * (terminalValue - k) : 0;
+          }
+        };
+      }
+      return new TerminalPayoffFunction() {
+
+        @Override
+        public double getPayoff(final double terminalValue) {
+          return (terminalValue < k) ? df * (k - terminalValue) : 0;
+        }
+      };
+    }
+    final OptionPayoffFunction<StandardOptionDataBundle> payoffFunction = definition.getPayoffFunction();
+    return new TerminalPayoffFunction() {
+
+      @Override
+      public double getPayoff(final double terminalValue) {
+        return df * payoffFunction.getPayoff(data.withSpot(terminalValue), 0.);
+      }
+    };
+  }
+
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.financial.model.stochastic.PathDynamics;
+import com.opengamma.math.random.NormalVariateStream;
+import com.opengamma.math.random.NormalVariateStreamFactory;
+import com.opengamma.math.random.SobolNormalVariateStreamFactory;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Simulates paths in fixed-size blocks. Each block draws all of its normal variates from its own stream into a
+ * primitive array and evaluates the paths, payoffs and controls on primitives, so nothing is allocated per path.
+ * Blocks are spread over the threads of an executor service; the sums from each block are combined in block order,
+ * so, as the stream of a block depends only on its index, the result is the same for any number of threads.
+ * <p>
+ * Antithetic variates average each path with its reflection, driven by the negated variates. A control variate, if
+ * given, is applied with the regression coefficient estimated from the same paths.
+ */
+public class BlockMonteCarloEngine {
+
+  /**
+   * The default number of samples in a block.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+  // Sums kept for each block: payoff, payoff squared, control, control squared, payoff times control
+  private static final int SUMS = 5;
+
+  private final NormalVariateStreamFactory _streams;
+  private final int _blockSize;
+  private final boolean _antithetic;
+  private final ExecutorService _executor;
+  private final int _parallelism;
+
+  /**
+   * Creates an engine that simulates on the calling thread. The block size is the number of points in each stream
+   * of a {@link SobolNormalVariateStreamFactory}, or the default for other streams.
+   *
+   * @param streams  the source of normal variates, not null
+   * @param antithetic  true to use antithetic variates
+   */
+  public BlockMonteCarloEngine(final NormalVariateStreamFactory streams, final boolean antithetic) {
+    this(streams, getDefaultBlockSize(streams), antithetic, null, 1);
+  }
+
+  /**
+   * Creates an engine.
+   *
+   * @param streams  the source of normal variates, not null
+   * @param blockSize  the number of samples in a block, greater than zero; the number of points in each stream of a
+   *  {@link SobolNormalVariateStreamFactory}
+   * @param antithetic  true to use antithetic variates
+   * @param executor  the executor to simulate blocks on, null to simulate on the calling thread
+   * @param parallelism  the number of tasks to split the blocks between, typically the number of threads of the
+   *  executor, greater than zero
+   */
+  public BlockMonteCarloEngine(final NormalVariateStreamFactory streams, final int blockSize, final boolean antithetic, final ExecutorService executor, final int parallelism) {
+    Validate.notNull(streams, "streams");
+    ArgumentChecker.notNegativeOrZero(blockSize, "block size");
+    ArgumentChecker.notNegativeOrZero(parallelism, "parallelism");
+    if (streams instanceof SobolNormalVariateStreamFactory) {
+      // Otherwise the blocks would share points of the sequence, or leave gaps in it
+      ArgumentChecker.isTrue(((SobolNormalVariateStreamFactory) streams).getPointsPerStream() == blockSize,
+          "Sobol points per stream must equal the block size");
+    }
+    _streams = streams;
+    _blockSize = blockSize;
+    _antithetic = antithetic;
+    _executor = executor;
+    _parallelism = parallelism;
+  }
+
+  private static int getDefaultBlockSize(final NormalVariateStreamFactory streams) {
+    if (streams instanceof SobolNormalVariateStreamFactory) {
+      return ((SobolNormalVariateStreamFactory) streams).getPointsPerStream();
+    }
+    return DEFAULT_BLOCK_SIZE;
+  }
+
+  public NormalVariateStreamFactory getStreams() {
+    return _streams;
+  }
+
+  public int getBlockSize() {
+    return _blockSize;
+  }
+
+  public boolean isAntithetic() {
+    return _antithetic;
+  }
+
+  /**
+   * Estimates the expected payoff.
+   *
+   * @param dynamics  the path dynamics, not null
+   * @param steps  the number of time steps in a path, greater than zero
+   * @param payoff  the payoff, not null
+   * @param control  the control variate, null for none
+   * @param n  the number of samples, at least two; with antithetic variates each sample is the average over a pair
+   *  of paths
+   * @return the estimate, not null
+   */
+  public MonteCarloResult simulate(final PathDynamics dynamics, final int steps, final TerminalPayoffFunction payoff, final ControlVariate control, final int n) {
+    Validate.notNull(dynamics, "dynamics");
+    ArgumentChecker.notNegativeOrZero(steps, "steps");
+    Validate.notNull(payoff, "payoff");
+    ArgumentChecker.isTrue(n >= 2, "Need at least two samples");
+    final int blocks = (n + _blockSize - 1) / _blockSize;
+    final double[] sums = new double[blocks * SUMS];
+    final int tasks = Math.min(blocks, (_executor != null) ? _parallelism : 1);
+    if (tasks == 1) {
+      new BlockTask(dynamics, steps, payoff, control, n, 0, 1, sums).call();
+    } else {
+      final List<Callable<Void>> jobs = new ArrayList<Callable<Void>>(tasks);
+      for (int i = 0; i < tasks; i++) {
+        jobs.add(new BlockTask(dynamics, steps, payoff, control, n, i, tasks, sums));
+      }
+      try {
+        for (Future<Void> future : _executor.invokeAll(jobs)) {
+          future.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OpenGammaRuntimeException("Interrupted during simulation", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new OpenGammaRuntimeException("Simulation failed", e.getCause());
+      }
+    }
+    double sumY = 0;
+    double sumYY = 0;
+    double sumC = 0;
+    double sumCC = 0;
+    double sumYC = 0;
+    for (int i = 0; i < sums.length; i += SUMS) {
+      sumY += sums[i];
+      sumYY += sums[i + 1];
+      sumC += sums[i + 2];
+      sumCC += sums[i + 3];
+      sumYC += sums[i + 4];
+    }
+    final double meanY = sumY / n;
+    final double syy = Math.max(0, sumYY - n * meanY * meanY);
+    if (control == null) {
+      return new MonteCarloResult(meanY, Math.sqrt(syy / (n - 1) / n), n);
+    }
+    final double meanC = sumC / n;
+    final double scc = sumCC - n * meanC * meanC;
+    final double syc = sumYC - n * meanY * meanC;
+    final double beta = (scc > 0) ? syc / scc : 0;
+    final double residual = Math.max(0, syy - beta * syc);
+    return new MonteCarloResult(meanY - beta * (meanC - control.getExpectedValue()), Math.sqrt(residual / (n - 2) / n), n);
+  }
+
+  /**
+   * Simulates every {@code stride}th block, starting from {@code first}, writing the sums of each into its own
+   * slot of the shared array. The variate and sum arrays are allocated once per task.
+   */
+  private final class BlockTask implements Callable<Void> {
+
+    private final PathDynamics _dynamics;
+    private final int _steps;
+    private final TerminalPayoffFunction _payoff;
+    private final TerminalPayoffFunction _control;
+    private final int _n;
+    private final int _first;
+    private final int _stride;
+    private final double[] _sums;
+
+    private BlockTask(final PathDynamics dynamics, final int steps, final TerminalPayoffFunction payoff, final ControlVariate control, final int n, final int first, final int stride,
+        final double[] sums) {
+      _dynamics = dynamics;
+      _steps = steps;
+      _payoff = payoff;
+      _control = (control != null) ? control.getFunction() : null;
+      _n = n;
+      _first = first;
+      _stride = stride;
+      _sums = sums;
+    }
+
+    @Override
+    public Void call() {
+      final double[] e = new double[_blockSize * _steps];
+      final double x0 = _dynamics.getInitialValue();
+      final int blocks = _sums.length / SUMS;
+      for (int block = _first; block < blocks; block += _stride) {
+        final int size = Math.min(_blockSize, _n - block * _blockSize);
+        final NormalVariateStream stream = _streams.getStream(block);
+        stream.nextVectors(e, size, _steps);
+        double sumY = 0;
+        double sumYY = 0;
+        double sumC = 0;
+        double sumCC = 0;
+        double sumYC = 0;
+        for (int path = 0, j = 0; path < size; path++) {
+          double x = x0;
+          double y;
+          double c = 0;
+          if (_antithetic) {
+            double xa = x0;
+            for (int end = j + _steps; j < end; j++) {
+              x = _dynamics.step(x, e[j]);
+              xa = _dynamics.step(xa, -e[j]);
+            }
+            final double s = _dynamics.getFinalValue(x);
+            final double sa = _dynamics.getFinalValue(xa);
+            y = 0.5 * (_payoff.getPayoff(s) + _payoff.getPayoff(sa));
+            if (_control != null) {
+              c = 0.5 * (_control.getPayoff(s) + _control.getPayoff(sa));
+            }
+          } else {
+            for (int end = j + _steps; j < end; j++) {
+              x = _dynamics.step(x, e[j]);
+            }
+            final double s = _dynamics.getFinalValue(x);
+            y = _payoff.getPayoff(s);
+            if (_control != null) {
+              c = _control.getPayoff(s);
+            }
+          }
+          sumY += y;
+          sumYY += y * y;
+          sumC += c;
+          sumCC += c * c;
+          sumYC += y * c;
+        }
+        final int offset = block * SUMS;
+        _sums[offset] = sumY;
+        _sums[offset + 1] = sumYY;
+        _sums[offset + 2] = sumC;
+        _sums[offset + 3] = sumCC;
+        _sums[offset + 4] = sumYC;
+      }
+      return null;
+    }
+
+  }
+
+}
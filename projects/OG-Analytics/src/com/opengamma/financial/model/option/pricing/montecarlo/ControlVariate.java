@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+import org.apache.commons.lang.Validate;
+
+/**
+ * A control variate: a function of the terminal value whose expectation is known exactly. The simulated error in
+ * the control, scaled by its estimated regression coefficient against the payoff, is subtracted from the estimate of
+ * the payoff. A typical control is the discounted underlying, whose expectation is the discounted forward.
+ */
+public class ControlVariate {
+
+  private final TerminalPayoffFunction _function;
+  private final double _expectedValue;
+
+  public ControlVariate(final TerminalPayoffFunction function, final double expectedValue) {
+    Validate.notNull(function, "function");
+    _function = function;
+    _expectedValue = expectedValue;
+  }
+
+  public TerminalPayoffFunction getFunction() {
+    return _function;
+  }
+
+  public double getExpectedValue() {
+    return _expectedValue;
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+/**
+ * The estimate produced by a Monte Carlo simulation together with its standard error.
+ */
+public class MonteCarloResult {
+
+  private final double _value;
+  private final double _standardError;
+  private final int _samples;
+
+  public MonteCarloResult(final double value, final double standardError, final int samples) {
+    _value = value;
+    _standardError = standardError;
+    _samples = samples;
+  }
+
+  public double getValue() {
+    return _value;
+  }
+
+  public double getStandardError() {
+    return _standardError;
+  }
+
+  public int getSamples() {
+    return _samples;
+  }
+
+  @Override
+  public String toString() {
+    return "MonteCarloResult[value=" + _value + ", standardError=" + _standardError + ", samples=" + _samples + "]";
+  }
+
+}
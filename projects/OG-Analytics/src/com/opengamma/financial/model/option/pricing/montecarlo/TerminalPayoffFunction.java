@@ -0,0 +1,22 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+/**
+ * A payoff that depends only on the value of the underlying at the end of a path, on primitives. Implementations
+ * must be thread-safe as a single instance is evaluated on many threads.
+ */
+public interface TerminalPayoffFunction {
+
+  /**
+   * Gets the payoff.
+   *
+   * @param terminalValue  the value of the underlying at the end of the path
+   * @return the payoff
+   */
+  double getPayoff(double terminalValue);
+
+}
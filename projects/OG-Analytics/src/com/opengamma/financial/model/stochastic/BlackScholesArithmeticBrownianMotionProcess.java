@@ -43,6 +43,41 @@ public class BlackScholesArithmeticBrownianMotionProcess<T extends OptionDefinit
     };
   }
 
+  @Override
+  public PathDynamics getPathDynamics(final T t, final U u, final int steps) {
+    Validate.notNull(t);
+    Validate.notNull(u);
+    if (steps < 1) {
+      throw new IllegalArgumentException("Number of steps must be greater than zero");
+    }
+    final double k = t.getStrike();
+    final double m = t.getTimeToExpiry(u.getDate());
+    final double sigma = u.getVolatility(m, k);
+    final double b = u.getCostOfCarry();
+    final double dt = m / steps;
+    final double nu = dt * (b - 0.5 * sigma * sigma);
+    final double sigmaDt = sigma * Math.sqrt(dt);
+    final double initial = u.getSpot();
+    return new PathDynamics() {
+
+      @Override
+      public double getInitialValue() {
+        return initial;
+      }
+
+      @Override
+      public double step(final double x, final double e) {
+        return x * Math.exp(nu + sigmaDt * e);
+      }
+
+      @Override
+      public double getFinalValue(final double x) {
+        return x;
+      }
+
+    };
+  }
+
   @Override
   public Double getInitialValue(final T t, final U u) {
     return u.getSpot();
@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.stochastic;
+
+/**
+ * The dynamics of a {@link StochasticProcess} for a particular option and market data, on primitives so that paths
+ * can be generated without boxing. A path starts at the initial value and is advanced one time step for each
+ * normal variate; the final value maps the state at the end of the path back to the underlying.
+ * <p>
+ * Implementations must be thread-safe as a single instance is used to generate paths on many threads.
+ */
+public interface PathDynamics {
+
+  /**
+   * Gets the state at the start of each path.
+   *
+   * @return the initial state
+   */
+  double getInitialValue();
+
+  /**
+   * Advances a path by one time step.
+   *
+   * @param x  the state at the start of the step
+   * @param e  a standard normal variate
+   * @return the state at the end of the step
+   */
+  double step(double x, double e);
+
+  /**
+   * Maps a state to the value of the underlying.
+   *
+   * @param x  the state
+   * @return the value of the underlying
+   */
+  double getFinalValue(double x);
+
+}
@@ -39,6 +39,39 @@ public abstract class StochasticProcess<T, U> {
     return paths;
   }
 
+  /**
+   * Gets the dynamics of the process on primitives. The default implementation wraps the path generating and
+   * accumulation functions; processes should override it to avoid boxing each step.
+   *
+   * @param t  the option definition
+   * @param u  the market data
+   * @param steps  the number of time steps in a path
+   * @return the dynamics, not null
+   */
+  public PathDynamics getPathDynamics(final T t, final U u, final int steps) {
+    final Function1D<Double, Double> f1 = getPathGeneratingFunction(t, u, steps);
+    final Function2D<Double, Double> f2 = getPathAccumulationFunction();
+    final double initial = getInitialValue(t, u);
+    return new PathDynamics() {
+
+      @Override
+      public double getInitialValue() {
+        return initial;
+      }
+
+      @Override
+      public double step(final double x, final double e) {
+        return f2.evaluate(x, f1.evaluate(e));
+      }
+
+      @Override
+      public double getFinalValue(final double x) {
+        return StochasticProcess.this.getFinalValue(x);
+      }
+
+    };
+  }
+
   public abstract Double getFinalValue(Double x);
 
   public abstract Double getInitialValue(T t, U u);
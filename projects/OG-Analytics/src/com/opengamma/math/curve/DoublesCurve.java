@@ -394,6 +394,21 @@ public abstract class DoublesCurve extends Curve<Double, Double> {
     return _n;
   }
 
+  /**
+   * Returns the <i>y</i> value for each of an array of <i>x</i> values. This implementation calls {@link #getYValue} for each one;
+   * subclasses can evaluate the whole array on primitives.
+   * @param x An array of <i>x</i> values, not null
+   * @return The <i>y</i> values
+   */
+  public double[] getYValues(final double[] x) {
+    Validate.notNull(x, "x");
+    final double[] result = new double[x.length];
+    for (int i = 0; i < x.length; i++) {
+      result[i] = getYValue(x[i]);
+    }
+    return result;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
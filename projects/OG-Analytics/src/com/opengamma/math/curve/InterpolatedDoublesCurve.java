@@ -514,6 +514,19 @@ public class InterpolatedDoublesCurve extends DoublesCurve {
     return _interpolator.interpolate(_dataBundle, x);
   }
 
+  /**
+   * Interpolates all of the values with one call to the interpolator, which finds the intervals of <i>x</i> values in ascending order
+   * in a single pass.
+   * @param x An array of <i>x</i> values, not null
+   * @return The <i>y</i> values
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public double[] getYValues(final double[] x) {
+    Validate.notNull(x, "x");
+    return _interpolator.interpolateAll(_dataBundle, x);
+  }
+
   @SuppressWarnings("unchecked")
   public Interpolator1D<? extends Interpolator1DDataBundle> getInterpolator() {
     return _interpolator;
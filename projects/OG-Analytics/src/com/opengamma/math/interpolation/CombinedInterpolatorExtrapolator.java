@@ -84,4 +84,54 @@ public class CombinedInterpolatorExtrapolator<T extends Interpolator1DDataBundle
     return _interpolator.interpolate(data, value);
   }
 
+  /**
+   * Interpolates the values within the data with the bulk method of the interpolator and extrapolates the others with
+   * the bulk methods of the extrapolators.
+   */
+  @Override
+  public double[] interpolateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double firstKey = data.firstKey();
+    final double lastKey = data.lastKey();
+    int left = 0;
+    int right = 0;
+    for (final double value : values) {
+      if (value < firstKey && _leftExtrapolator != null) {
+        left++;
+      } else if (value > lastKey && _rightExtrapolator != null) {
+        right++;
+      }
+    }
+    if (left == 0 && right == 0) {
+      return _interpolator.interpolateAll(data, values);
+    }
+    final int[] segment = new int[values.length];
+    final double[][] segmentValues = new double[][] {new double[left], new double[values.length - left - right], new double[right]};
+    final int[] count = new int[3];
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < firstKey && _leftExtrapolator != null) {
+        segment[i] = 0;
+      } else if (value > lastKey && _rightExtrapolator != null) {
+        segment[i] = 2;
+      } else {
+        segment[i] = 1;
+      }
+      segmentValues[segment[i]][count[segment[i]]++] = value;
+    }
+    final double[][] segmentResults = new double[][] {
+      (left > 0) ? _leftExtrapolator.interpolateAll(data, segmentValues[0]) : segmentValues[0],
+      _interpolator.interpolateAll(data, segmentValues[1]),
+      (right > 0) ? _rightExtrapolator.interpolateAll(data, segmentValues[2]) : segmentValues[2]};
+    final double[] result = new double[values.length];
+    count[0] = 0;
+    count[1] = 0;
+    count[2] = 0;
+    for (int i = 0; i < values.length; i++) {
+      result[i] = segmentResults[segment[i]][count[segment[i]]++];
+    }
+    return result;
+  }
+
 }
@@ -21,7 +21,22 @@ public class DoubleQuadraticInterpolator1D extends Interpolator1D<Interpolator1D
   public Double interpolate(final Interpolator1DDoubleQuadraticDataBundle data, final Double value) {
     Validate.notNull(value, "value");
     Validate.notNull(data, "data bundle");
-    final int low = data.getLowerBoundIndex(value);
+    return interpolate(data, value, data.getLowerBoundIndex(value));
+  }
+
+  @Override
+  public double[] interpolateAll(final Interpolator1DDoubleQuadraticDataBundle data, final double[] values) {
+    Validate.notNull(values, "values");
+    Validate.notNull(data, "data bundle");
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = interpolate(data, values[i], indices[i]);
+    }
+    return result;
+  }
+
+  private static double interpolate(final Interpolator1DDoubleQuadraticDataBundle data, final double value, final int low) {
     final int high = low + 1;
     final int n = data.size() - 1;
     final double[] xData = data.getKeys();
@@ -32,6 +32,30 @@ public class ExponentialInterpolator1D extends Interpolator1D<Interpolator1DData
     return Math.pow(y1, value * (x2 - value) / xDiff / x1) * Math.pow(y2, value * (value - x1) / xDiff / x2);
   }
 
+  @Override
+  public double[] interpolateAll(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(values, "values");
+    Validate.notNull(data, "data bundle");
+    final double[] keys = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = keys.length - 1;
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final int low = indices[i];
+      if (low == n) {
+        result[i] = y[n];
+      } else {
+        final double value = values[i];
+        final double x1 = keys[low];
+        final double x2 = keys[low + 1];
+        final double xDiff = x2 - x1;
+        result[i] = Math.pow(y[low], value * (x2 - value) / xDiff / x1) * Math.pow(y[low + 1], value * (value - x1) / xDiff / x2);
+      }
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new ArrayInterpolator1DDataBundle(x, y);
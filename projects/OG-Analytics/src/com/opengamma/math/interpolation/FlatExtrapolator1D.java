@@ -38,4 +38,26 @@ public class FlatExtrapolator1D<T extends Interpolator1DDataBundle> extends Inte
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
 
+  @Override
+  public double[] interpolateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double firstKey = data.firstKey();
+    final double lastKey = data.lastKey();
+    final double firstValue = data.firstValue();
+    final double lastValue = data.lastValue();
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < firstKey) {
+        result[i] = firstValue;
+      } else if (value > lastKey) {
+        result[i] = lastValue;
+      } else {
+        throw new IllegalArgumentException("Value " + value + " was within data range");
+      }
+    }
+    return result;
+  }
+
 }
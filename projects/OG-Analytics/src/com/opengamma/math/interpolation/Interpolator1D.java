@@ -86,6 +86,23 @@ public abstract class Interpolator1D<T extends Interpolator1DDataBundle> impleme
   @Override
   public abstract Double interpolate(T data, Double value);
 
+  /**
+   * Interpolates at each of an array of values. This implementation interpolates each value in turn; subclasses
+   * override it to work on primitives, finding the intervals of values in increasing order in a single pass.
+   * @param data The data bundle, not null
+   * @param values The values to interpolate at, not null
+   * @return The interpolated values
+   */
+  public double[] interpolateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = interpolate(data, values[i]);
+    }
+    return result;
+  }
+
   protected boolean classEquals(final Object o) {
     if (o == null) {
       return false;
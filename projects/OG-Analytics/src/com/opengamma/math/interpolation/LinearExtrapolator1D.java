@@ -45,6 +45,40 @@ public class LinearExtrapolator1D<T extends Interpolator1DDataBundle> extends In
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
 
+  /**
+   * Extrapolates each value, computing the gradient at each end of the data at most once.
+   */
+  @Override
+  public double[] interpolateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double firstKey = data.firstKey();
+    final double lastKey = data.lastKey();
+    final double firstValue = data.firstValue();
+    final double lastValue = data.lastValue();
+    final double eps = EPS * (lastKey - firstKey);
+    double leftGradient = Double.NaN;
+    double rightGradient = Double.NaN;
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < firstKey) {
+        if (Double.isNaN(leftGradient)) {
+          leftGradient = (_interpolator.interpolate(data, firstKey + eps) - firstValue) / eps;
+        }
+        result[i] = firstValue + (value - firstKey) * leftGradient;
+      } else if (value > lastKey) {
+        if (Double.isNaN(rightGradient)) {
+          rightGradient = (lastValue - _interpolator.interpolate(data, lastKey - eps)) / eps;
+        }
+        result[i] = lastValue + (value - lastKey) * rightGradient;
+      } else {
+        throw new IllegalArgumentException("Value " + value + " was within data range");
+      }
+    }
+    return result;
+  }
+
   private Double leftExtrapolate(final T data, final Double value) {
     Validate.notNull(data, "data");
     Validate.notNull(value, "value");
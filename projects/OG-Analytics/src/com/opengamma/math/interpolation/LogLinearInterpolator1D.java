@@ -40,6 +40,26 @@ public class LogLinearInterpolator1D extends Interpolator1D<Interpolator1DDataBu
     return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1;
   }
 
+  @Override
+  public double[] interpolateAll(final Interpolator1DDataBundle model, final double[] values) {
+    Validate.notNull(values, "values");
+    Validate.notNull(model, "data bundle");
+    final double[] keys = model.getKeys();
+    final double[] y = model.getValues();
+    final int n = keys.length - 1;
+    final int[] indices = model.getLowerBoundIndices(values);
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final int low = indices[i];
+      if (low == n) {
+        result[i] = y[n];
+      } else {
+        result[i] = Math.pow(y[low + 1] / y[low], (values[i] - keys[low]) / (keys[low + 1] - keys[low])) * y[low];
+      }
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new ArrayInterpolator1DDataBundle(x, y);
@@ -39,6 +39,34 @@ public class NaturalCubicSplineInterpolator1D extends Interpolator1D<Interpolato
     return a * yData[low] + b * yData[high] + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[high]) * delta * delta / 6.;
   }
 
+  @Override
+  public double[] interpolateAll(final Interpolator1DCubicSplineDataBundle data, final double[] values) {
+    Validate.notNull(values, "values");
+    Validate.notNull(data, "data bundle");
+    final double[] xData = data.getKeys();
+    final double[] yData = data.getValues();
+    final double[] y2 = data.getSecondDerivatives();
+    final int n = xData.length - 1;
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      final int low = indices[i];
+      if (low == n) {
+        result[i] = yData[n];
+        continue;
+      }
+      final int high = low + 1;
+      final double delta = xData[high] - xData[low];
+      if (Math.abs(delta) < getEPS()) {
+        throw new MathException("x data points were not distinct");
+      }
+      final double a = (xData[high] - values[i]) / delta;
+      final double b = (values[i] - xData[low]) / delta;
+      result[i] = a * yData[low] + b * yData[high] + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[high]) * delta * delta / 6.;
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DCubicSplineDataBundle getDataBundle(final double[] x, final double[] y) {
     return new Interpolator1DCubicSplineDataBundle(new ArrayInterpolator1DDataBundle(x, y));
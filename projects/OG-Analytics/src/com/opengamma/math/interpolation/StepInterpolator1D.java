@@ -23,6 +23,19 @@ public class StepInterpolator1D extends Interpolator1D<Interpolator1DDataBundle>
     return data.get(data.getLowerBoundKey(value));
   }
 
+  @Override
+  public double[] interpolateAll(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(values, "values");
+    Validate.notNull(data, "data bundle");
+    final double[] y = data.getValues();
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[] result = new double[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = y[indices[i]];
+    }
+    return result;
+  }
+
   @Override
   public Interpolator1DDataBundle getDataBundle(final double[] x, final double[] y) {
     return new ArrayInterpolator1DDataBundle(x, y);
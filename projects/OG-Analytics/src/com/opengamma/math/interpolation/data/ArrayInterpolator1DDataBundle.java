@@ -142,6 +142,29 @@ public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle {
     return index;
   }
 
+  @Override
+  public int[] getLowerBoundIndices(final double[] values) {
+    Validate.notNull(values, "values");
+    final int[] result = new int[values.length];
+    int index = 0;
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < _keys[index]) {
+        // Out of order, so start again
+        index = getLowerBoundIndex(value);
+      } else if (value > _keys[_n - 1]) {
+        throw new IllegalArgumentException("Could not get lower bound index for " + value + ": highest x-value is "
+            + _keys[_n - 1]);
+      } else {
+        while (index < _n - 1 && _keys[index + 1] <= value) {
+          index++;
+        }
+      }
+      result[i] = index;
+    }
+    return result;
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     final int index = getLowerBoundIndex(value);
@@ -86,6 +86,11 @@ public class Interpolator1DCubicSplineDataBundle implements Interpolator1DDataBu
     return _underlyingData.getLowerBoundIndex(value);
   }
 
+  @Override
+  public int[] getLowerBoundIndices(final double[] values) {
+    return _underlyingData.getLowerBoundIndices(values);
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     return _underlyingData.getLowerBoundKey(value);
@@ -18,6 +18,14 @@ public interface Interpolator1DDataBundle {
 
   int getLowerBoundIndex(Double value);
 
+  /**
+   * Gets the lower bound index of each of an array of values, as {@link #getLowerBoundIndex} does. Values in
+   * increasing order are found in a single pass over the keys.
+   * @param values The values, not null
+   * @return The indices
+   */
+  int[] getLowerBoundIndices(double[] values);
+
   Double get(Double key);
 
   Double firstKey();
@@ -87,6 +87,11 @@ public class Interpolator1DDoubleQuadraticDataBundle implements Interpolator1DDa
     return _underlyingData.getLowerBoundIndex(value);
   }
 
+  @Override
+  public int[] getLowerBoundIndices(final double[] values) {
+    return _underlyingData.getLowerBoundIndices(values);
+  }
+
   @Override
   public Double getLowerBoundKey(final Double value) {
     return _underlyingData.getLowerBoundKey(value);
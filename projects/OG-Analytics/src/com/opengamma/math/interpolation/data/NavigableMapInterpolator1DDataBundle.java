@@ -52,6 +52,16 @@ public class NavigableMapInterpolator1DDataBundle implements Interpolator1DDataB
     return i;
   }
 
+  @Override
+  public int[] getLowerBoundIndices(final double[] values) {
+    Validate.notNull(values, "values");
+    final int[] result = new int[values.length];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = getLowerBoundIndex(values[i]);
+    }
+    return result;
+  }
+
   @Override
   public Double get(final Double key) {
     return _backingMap.get(key);
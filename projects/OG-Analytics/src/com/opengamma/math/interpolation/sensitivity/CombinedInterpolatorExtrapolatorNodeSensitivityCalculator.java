@@ -60,6 +60,52 @@ public class CombinedInterpolatorExtrapolatorNodeSensitivityCalculator<T extends
     return _sensitivityCalculator.calculate(data, value);
   }
 
+  @Override
+  public double[][] calculateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double firstKey = data.firstKey();
+    final double lastKey = data.lastKey();
+    int left = 0;
+    int right = 0;
+    for (final double value : values) {
+      if (value < firstKey && _leftSensitivityCalculator != null) {
+        left++;
+      } else if (value > lastKey && _rightSensitivityCalculator != null) {
+        right++;
+      }
+    }
+    if (left == 0 && right == 0) {
+      return _sensitivityCalculator.calculateAll(data, values);
+    }
+    final int[] segment = new int[values.length];
+    final double[][] segmentValues = new double[][] {new double[left], new double[values.length - left - right], new double[right]};
+    final int[] count = new int[3];
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < firstKey && _leftSensitivityCalculator != null) {
+        segment[i] = 0;
+      } else if (value > lastKey && _rightSensitivityCalculator != null) {
+        segment[i] = 2;
+      } else {
+        segment[i] = 1;
+      }
+      segmentValues[segment[i]][count[segment[i]]++] = value;
+    }
+    final double[][][] segmentResults = new double[][][] {
+      (left > 0) ? _leftSensitivityCalculator.calculateAll(data, segmentValues[0]) : null,
+      _sensitivityCalculator.calculateAll(data, segmentValues[1]),
+      (right > 0) ? _rightSensitivityCalculator.calculateAll(data, segmentValues[2]) : null};
+    final double[][] result = new double[values.length][];
+    count[0] = 0;
+    count[1] = 0;
+    count[2] = 0;
+    for (int i = 0; i < values.length; i++) {
+      result[i] = segmentResults[segment[i]][count[segment[i]]++];
+    }
+    return result;
+  }
+
   public Interpolator1DNodeSensitivityCalculator<T> getSensitivityCalculator() {
     return _sensitivityCalculator;
   }
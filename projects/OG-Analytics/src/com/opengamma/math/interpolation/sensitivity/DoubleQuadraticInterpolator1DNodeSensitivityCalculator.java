@@ -17,10 +17,25 @@ public class DoubleQuadraticInterpolator1DNodeSensitivityCalculator implements I
   @Override
   public double[] calculate(final Interpolator1DDoubleQuadraticDataBundle data, final double value) {
     Validate.notNull(data, "data");
-    final int low = data.getLowerBoundIndex(value);
-    final int high = low + 1;
-    final int n = data.size();
+    return calculate(data.getKeys(), value, data.getLowerBoundIndex(value));
+  }
+
+  @Override
+  public double[][] calculateAll(final Interpolator1DDoubleQuadraticDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
     final double[] xData = data.getKeys();
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[][] result = new double[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = calculate(xData, values[i], indices[i]);
+    }
+    return result;
+  }
+
+  private double[] calculate(final double[] xData, final double value, final int low) {
+    final int high = low + 1;
+    final int n = xData.length;
     final double[] result = new double[n];
     if (low == 0) {
       final double[] temp = getQuadraticSensitivities(xData, value, 1);
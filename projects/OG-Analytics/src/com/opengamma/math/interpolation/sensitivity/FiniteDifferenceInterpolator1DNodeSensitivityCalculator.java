@@ -47,4 +47,33 @@ public class FiniteDifferenceInterpolator1DNodeSensitivityCalculator<T extends I
     return result;
   }
 
+  /**
+   * Bumps each node once and interpolates all of the values with the bumped data.
+   */
+  @Override
+  public double[][] calculateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    final double[][] result = new double[values.length][n];
+    final T dataUp = _interpolator.getDataBundleFromSortedArrays(x, y);
+    final T dataDown = _interpolator.getDataBundleFromSortedArrays(x, y);
+    for (int i = 0; i < n; i++) {
+      if (i != 0) {
+        dataUp.setYValueAtIndex(i - 1, y[i - 1]);
+        dataDown.setYValueAtIndex(i - 1, y[i - 1]);
+      }
+      dataUp.setYValueAtIndex(i, y[i] + EPS);
+      dataDown.setYValueAtIndex(i, y[i] - EPS);
+      final double[] up = _interpolator.interpolateAll(dataUp, values);
+      final double[] down = _interpolator.interpolateAll(dataDown, values);
+      for (int j = 0; j < values.length; j++) {
+        result[j][i] = (up[j] - down[j]) / TWO_EPS;
+      }
+    }
+    return result;
+  }
+
 }
@@ -30,4 +30,15 @@ public class FlatExtrapolator1DNodeSensitivityCalculator<T extends Interpolator1
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
 
+  @Override
+  public double[][] calculateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[][] result = new double[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      result[i] = calculate(data, values[i]);
+    }
+    return result;
+  }
+
 }
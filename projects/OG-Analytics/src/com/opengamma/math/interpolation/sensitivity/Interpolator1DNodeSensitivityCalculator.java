@@ -15,4 +15,13 @@ public interface Interpolator1DNodeSensitivityCalculator<T extends Interpolator1
 
   double[] calculate(T data, double value);
 
+  /**
+   * Calculates the sensitivities to the nodes of the interpolated value at each of an array of values. Values in
+   * increasing order are located in a single pass over the nodes.
+   * @param data The data bundle, not null
+   * @param values The values, not null
+   * @return The sensitivities to the nodes, one row for each value
+   */
+  double[][] calculateAll(T data, double[] values);
+
 }
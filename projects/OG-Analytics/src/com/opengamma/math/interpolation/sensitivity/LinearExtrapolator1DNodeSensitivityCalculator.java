@@ -33,10 +33,45 @@ public class LinearExtrapolator1DNodeSensitivityCalculator<T extends Interpolato
     throw new IllegalArgumentException("Value " + value + " was within data range");
   }
 
+  /**
+   * Extrapolates from the sensitivities just inside each end of the data, which are calculated at most once.
+   */
+  @Override
+  public double[][] calculateAll(final T data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double firstKey = data.firstKey();
+    final double lastKey = data.lastKey();
+    final double eps = EPS * (lastKey - firstKey);
+    double[] left = null;
+    double[] right = null;
+    final double[][] result = new double[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      final double value = values[i];
+      if (value < firstKey) {
+        if (left == null) {
+          left = _calculator.calculate(data, firstKey + eps);
+        }
+        result[i] = getLeftSensitivities(left.clone(), firstKey, eps, value);
+      } else if (value > lastKey) {
+        if (right == null) {
+          right = _calculator.calculate(data, lastKey - eps);
+        }
+        result[i] = getRightSensitivities(right.clone(), lastKey, eps, value);
+      } else {
+        throw new IllegalArgumentException("Value " + value + " was within data range");
+      }
+    }
+    return result;
+  }
+
   private double[] getLeftSensitivities(final T data, final double value) {
     final double eps = EPS * (data.lastKey() - data.firstKey());
     final double x = data.firstKey();
-    final double[] result = _calculator.calculate(data, x + eps);
+    return getLeftSensitivities(_calculator.calculate(data, x + eps), x, eps, value);
+  }
+
+  private static double[] getLeftSensitivities(final double[] result, final double x, final double eps, final double value) {
     final int n = result.length;
     for (int i = 1; i < n; i++) {
       result[i] = result[i] * (value - x) / eps;
@@ -48,7 +83,10 @@ public class LinearExtrapolator1DNodeSensitivityCalculator<T extends Interpolato
   private double[] getRightSensitivities(final T data, final Double value) {
     final double eps = EPS * (data.lastKey() - data.firstKey());
     final double x = data.lastKey();
-    final double[] result = _calculator.calculate(data, x - eps);
+    return getRightSensitivities(_calculator.calculate(data, x - eps), x, eps, value);
+  }
+
+  private static double[] getRightSensitivities(final double[] result, final double x, final double eps, final double value) {
     final int n = result.length;
     for (int i = 0; i < n - 1; i++) {
       result[i] = -result[i] * (value - x) / eps;
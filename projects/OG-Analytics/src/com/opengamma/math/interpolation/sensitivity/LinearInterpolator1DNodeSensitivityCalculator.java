@@ -36,4 +36,25 @@ public class LinearInterpolator1DNodeSensitivityCalculator implements Interpolat
     return result;
   }
 
+  @Override
+  public double[][] calculateAll(final Interpolator1DDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final double[] keys = data.getKeys();
+    final int n = keys.length;
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[][] result = new double[values.length][n];
+    for (int i = 0; i < values.length; i++) {
+      final int index = indices[i];
+      if (index == n - 1) {
+        result[i][n - 1] = 1.0;
+      } else {
+        final double a = (keys[index + 1] - values[i]) / (keys[index + 1] - keys[index]);
+        result[i][index] = a;
+        result[i][index + 1] = 1 - a;
+      }
+    }
+    return result;
+  }
+
 }
@@ -18,20 +18,47 @@ public class NaturalCubicSplineInterpolator1DNodeSensitivityCalculator implement
   public double[] calculate(final Interpolator1DCubicSplineDataBundle data, final double value) {
     Validate.notNull(data, "data");
     final int n = data.size();
-    final double[] result = new double[n];
-    if (data.getLowerBoundIndex(value) == n - 1) {
+    final int low = data.getLowerBoundIndex(value);
+    if (low == n - 1) {
+      final double[] result = new double[n];
       result[n - 1] = 1.0;
       return result;
     }
+    return calculate(data.getKeys(), data.getSecondDerivativesSensitivities(), value, low);
+  }
+
+  @Override
+  public double[][] calculateAll(final Interpolator1DCubicSplineDataBundle data, final double[] values) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    final int n = data.size();
     final double[] xData = data.getKeys();
-    final int low = data.getLowerBoundIndex(value);
+    final int[] indices = data.getLowerBoundIndices(values);
+    final double[][] result = new double[values.length][];
+    double[][] y2Sensitivities = null;
+    for (int i = 0; i < values.length; i++) {
+      if (indices[i] == n - 1) {
+        result[i] = new double[n];
+        result[i][n - 1] = 1.0;
+      } else {
+        if (y2Sensitivities == null) {
+          y2Sensitivities = data.getSecondDerivativesSensitivities();
+        }
+        result[i] = calculate(xData, y2Sensitivities, values[i], indices[i]);
+      }
+    }
+    return result;
+  }
+
+  private static double[] calculate(final double[] xData, final double[][] y2Sensitivities, final double value, final int low) {
+    final int n = xData.length;
+    final double[] result = new double[n];
     final int high = low + 1;
     final double delta = xData[high] - xData[low];
     final double a = (xData[high] - value) / delta;
     final double b = (value - xData[low]) / delta;
     final double c = a * (a * a - 1) * delta * delta / 6.;
     final double d = b * (b * b - 1) * delta * delta / 6.;
-    final double[][] y2Sensitivities = data.getSecondDerivativesSensitivities();
     for (int i = 0; i < n; i++) {
       result[i] = c * y2Sensitivities[low][i] + d * y2Sensitivities[high][i];
     }
@@ -20,6 +20,8 @@ public final class DecompositionFactory {
   public static final String SV_COLT_NAME = "SV_COLT";
   /** Commons SV decomposition */
   public static final String SV_COMMONS_NAME = "SV_COMMONS";
+  /** OpenGamma sparse LU decomposition */
+  public static final String SPARSE_LU_NAME = "SPARSE_LU";
   /** {@link LUDecompositionCommons} */
   public static final Decomposition<?> LU_COMMONS = new LUDecompositionCommons();
   /** {@link QRDecompositionCommons} */
@@ -28,6 +30,8 @@ public final class DecompositionFactory {
   public static final Decomposition<?> SV_COLT = new SVDecompositionColt();
   /** {@link SVDecompositionCommons} */
   public static final Decomposition<?> SV_COMMONS = new SVDecompositionCommons();
+  /** {@link SparseLUDecomposition} */
+  public static final Decomposition<?> SPARSE_LU = new SparseLUDecomposition();
   private static final Map<String, Decomposition<?>> s_staticInstances;
   private static final Map<Class<?>, String> s_instanceNames;
 
@@ -37,11 +41,13 @@ public final class DecompositionFactory {
     s_staticInstances.put(QR_COMMONS_NAME, QR_COMMONS);
     s_staticInstances.put(SV_COLT_NAME, SV_COLT);
     s_staticInstances.put(SV_COMMONS_NAME, SV_COMMONS);
+    s_staticInstances.put(SPARSE_LU_NAME, SPARSE_LU);
     s_instanceNames = new HashMap<Class<?>, String>();
     s_instanceNames.put(LU_COMMONS.getClass(), LU_COMMONS_NAME);
     s_instanceNames.put(QR_COMMONS.getClass(), QR_COMMONS_NAME);
     s_instanceNames.put(SV_COLT.getClass(), SV_COLT_NAME);
     s_instanceNames.put(SV_COMMONS.getClass(), SV_COMMONS_NAME);
+    s_instanceNames.put(SPARSE_LU.getClass(), SPARSE_LU_NAME);
   }
 
   private DecompositionFactory() {
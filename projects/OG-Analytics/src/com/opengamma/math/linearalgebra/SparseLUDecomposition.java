@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.math.matrix.DoubleMatrix2D;
+
+/**
+ * LU decomposition with partial pivoting that skips the structural zeros of a sparse matrix. An elimination step
+ * only updates the rows with a non-zero entry in the pivot column, and only in the columns where the pivot row is
+ * non-zero, and the triangular solves skip zero entries in the same way. A dense matrix costs the same as an
+ * ordinary LU decomposition, but a matrix with a narrow profile, such as a yield curve Jacobian in which each
+ * instrument depends on the nodes up to its maturity, costs close to O(n<sup>2</sup>) rather than
+ * O(n<sup>3</sup>).
+ */
+public class SparseLUDecomposition extends Decomposition<SparseLUDecompositionResult> {
+
+  /**
+   * Pivots smaller than this are taken to mean that the matrix is singular, as in the Commons implementation.
+   */
+  private static final double SINGULARITY_THRESHOLD = 1e-11;
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SparseLUDecompositionResult evaluate(final DoubleMatrix2D x) {
+    Validate.notNull(x);
+    final int n = x.getNumberOfRows();
+    Validate.isTrue(n == x.getNumberOfColumns(), "Matrix must be square");
+    final double[][] lu = x.toArray();
+    final int[] pivot = new int[n];
+    for (int i = 0; i < n; i++) {
+      pivot[i] = i;
+    }
+    final int[] columns = new int[n];
+    boolean even = true;
+    for (int k = 0; k < n; k++) {
+      int p = k;
+      double max = Math.abs(lu[k][k]);
+      for (int i = k + 1; i < n; i++) {
+        final double value = Math.abs(lu[i][k]);
+        if (value > max) {
+          max = value;
+          p = i;
+        }
+      }
+      Validate.isTrue(max >= SINGULARITY_THRESHOLD, "Matrix is singular; could not perform LU decomposition");
+      if (p != k) {
+        final double[] row = lu[p];
+        lu[p] = lu[k];
+        lu[k] = row;
+        final int index = pivot[p];
+        pivot[p] = pivot[k];
+        pivot[k] = index;
+        even = !even;
+      }
+      final double[] pivotRow = lu[k];
+      int count = 0;
+      for (int j = k + 1; j < n; j++) {
+        if (pivotRow[j] != 0) {
+          columns[count++] = j;
+        }
+      }
+      final double diagonal = pivotRow[k];
+      for (int i = k + 1; i < n; i++) {
+        final double[] row = lu[i];
+        if (row[k] != 0) {
+          final double multiplier = row[k] / diagonal;
+          row[k] = multiplier;
+          for (int c = 0; c < count; c++) {
+            final int j = columns[c];
+            row[j] -= multiplier * pivotRow[j];
+          }
+        }
+      }
+    }
+    return new SparseLUDecompositionResult(lu, pivot, even);
+  }
+
+}
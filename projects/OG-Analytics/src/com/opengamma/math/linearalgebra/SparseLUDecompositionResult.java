@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.math.matrix.DoubleMatrix1D;
+import com.opengamma.math.matrix.DoubleMatrix2D;
+
+/**
+ * The result of a {@link SparseLUDecomposition}. {@latex.inline $\\mathbf{L}$} and {@latex.inline $\\mathbf{U}$}
+ * are held together in one array, the unit diagonal of {@latex.inline $\\mathbf{L}$} being implicit.
+ */
+public class SparseLUDecompositionResult implements LUDecompositionResult {
+  private final double[][] _lu;
+  private final int[] _pivot;
+  private final boolean _evenPermutation;
+
+  /**
+   * @param lu The combined factors, row i being row pivot[i] of the original matrix, not null
+   * @param pivot The row permutation, not null
+   * @param evenPermutation True if the permutation has an even number of row exchanges
+   */
+  public SparseLUDecompositionResult(final double[][] lu, final int[] pivot, final boolean evenPermutation) {
+    Validate.notNull(lu, "LU");
+    Validate.notNull(pivot, "pivot");
+    Validate.isTrue(lu.length == pivot.length, "pivot must have one entry per row");
+    _lu = lu;
+    _pivot = pivot;
+    _evenPermutation = evenPermutation;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double getDeterminant() {
+    double determinant = _evenPermutation ? 1 : -1;
+    for (int i = 0; i < _lu.length; i++) {
+      determinant *= _lu[i][i];
+    }
+    return determinant;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getL() {
+    final int n = _lu.length;
+    final double[][] l = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(_lu[i], 0, l[i], 0, i);
+      l[i][i] = 1;
+    }
+    return new DoubleMatrix2D(l);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getU() {
+    final int n = _lu.length;
+    final double[][] u = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      System.arraycopy(_lu[i], i, u[i], i, n - i);
+    }
+    return new DoubleMatrix2D(u);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D getP() {
+    final int n = _lu.length;
+    final double[][] p = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      p[i][_pivot[i]] = 1;
+    }
+    return new DoubleMatrix2D(p);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] getPivot() {
+    return _pivot.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix1D solve(final DoubleMatrix1D b) {
+    Validate.notNull(b);
+    return new DoubleMatrix1D(solve(b.getData()));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public double[] solve(final double[] b) {
+    Validate.notNull(b);
+    final int n = _lu.length;
+    Validate.isTrue(b.length == n, "b has the wrong length");
+    final double[] x = new double[n];
+    for (int i = 0; i < n; i++) {
+      x[i] = b[_pivot[i]];
+    }
+    // Forward substitution with L, by columns so that zero entries of x can be skipped
+    for (int k = 0; k < n; k++) {
+      final double xk = x[k];
+      if (xk != 0) {
+        for (int i = k + 1; i < n; i++) {
+          x[i] -= _lu[i][k] * xk;
+        }
+      }
+    }
+    // Back substitution with U, by rows
+    for (int i = n - 1; i >= 0; i--) {
+      final double[] row = _lu[i];
+      double sum = x[i];
+      for (int j = i + 1; j < n; j++) {
+        if (row[j] != 0) {
+          sum -= row[j] * x[j];
+        }
+      }
+      x[i] = sum / row[i];
+    }
+    return x;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DoubleMatrix2D solve(final DoubleMatrix2D b) {
+    Validate.notNull(b);
+    final int n = _lu.length;
+    Validate.isTrue(b.getNumberOfRows() == n, "b has the wrong number of rows");
+    final int m = b.getNumberOfColumns();
+    final double[][] x = new double[n][m];
+    final double[] column = new double[n];
+    for (int j = 0; j < m; j++) {
+      for (int i = 0; i < n; i++) {
+        column[i] = b.getData()[i][j];
+      }
+      final double[] solution = solve(column);
+      for (int i = 0; i < n; i++) {
+        x[i][j] = solution[i];
+      }
+    }
+    return new DoubleMatrix2D(x);
+  }
+
+}
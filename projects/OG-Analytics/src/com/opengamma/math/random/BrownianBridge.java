@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Maps a vector of independent standard normals to the standardised increments of a Brownian motion over equal time
+ * steps, constructing the path by bisection: the first variate fixes the end point, the second the middle point,
+ * and so on. The increments are themselves independent standard normals, but most of the variance of the path is
+ * carried by the first few variates, which is where a low-discrepancy sequence such as {@link SobolSequence} is
+ * most uniform.
+ * <p>
+ * The weights are computed once at construction; an instance is immutable and thread-safe.
+ */
+public class BrownianBridge {
+
+  private final int _steps;
+  private final int[] _bridgeIndex;
+  private final int[] _leftIndex;
+  private final int[] _rightIndex;
+  private final double[] _leftWeight;
+  private final double[] _rightWeight;
+  private final double[] _stdDev;
+
+  /**
+   * Creates a bridge.
+   *
+   * @param steps  the number of time steps, greater than zero
+   */
+  public BrownianBridge(final int steps) {
+    ArgumentChecker.notNegativeOrZero(steps, "steps");
+    _steps = steps;
+    _bridgeIndex = new int[steps];
+    _leftIndex = new int[steps];
+    _rightIndex = new int[steps];
+    _leftWeight = new double[steps];
+    _rightWeight = new double[steps];
+    _stdDev = new double[steps];
+    // The path at time i + 1 is point i; populated[i] is set once point i has been constructed
+    final boolean[] populated = new boolean[steps];
+    populated[steps - 1] = true;
+    _bridgeIndex[0] = steps - 1;
+    _stdDev[0] = Math.sqrt(steps);
+    int j = 0;
+    for (int i = 1; i < steps; i++) {
+      while (populated[j]) {
+        j++;
+      }
+      int k = j;
+      while (!populated[k]) {
+        k++;
+      }
+      // Construct the middle of the gap from point j - 1 (or the origin) to point k
+      final int l = j + ((k - 1 - j) >> 1);
+      populated[l] = true;
+      _bridgeIndex[i] = l;
+      _leftIndex[i] = j;
+      _rightIndex[i] = k;
+      final double left = j;
+      final double right = k + 1;
+      final double middle = l + 1;
+      _leftWeight[i] = (right - middle) / (right - left);
+      _rightWeight[i] = (middle - left) / (right - left);
+      _stdDev[i] = Math.sqrt((middle - left) * (right - middle) / (right - left));
+      j = k + 1;
+      if (j >= steps) {
+        j = 0;
+      }
+    }
+  }
+
+  public int getSteps() {
+    return _steps;
+  }
+
+  /**
+   * Maps normals to increments.
+   *
+   * @param normals  the independent standard normals, not null
+   * @param normalsOffset  the index of the first normal
+   * @param increments  the array to write the standardised increments to, not null, not the same region as the normals
+   * @param incrementsOffset  the index of the first increment
+   */
+  public void transform(final double[] normals, final int normalsOffset, final double[] increments, final int incrementsOffset) {
+    final double[] w = increments;
+    final int o = incrementsOffset;
+    w[o + _steps - 1] = _stdDev[0] * normals[normalsOffset];
+    for (int i = 1; i < _steps; i++) {
+      final int j = _leftIndex[i];
+      final double leftValue = (j != 0) ? w[o + j - 1] : 0;
+      w[o + _bridgeIndex[i]] = _leftWeight[i] * leftValue + _rightWeight[i] * w[o + _rightIndex[i]] + _stdDev[i] * normals[normalsOffset + i];
+    }
+    // Unit time steps, so the differences are already standardised
+    for (int i = _steps - 1; i > 0; i--) {
+      w[o + i] -= w[o + i - 1];
+    }
+  }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A generator of standard normal vectors that can fill caller supplied arrays and matrices in bulk, so that a
+ * simulation can reuse its buffers rather than allocating an array for every vector. The
+ * {@link RandomNumberGenerator} methods are implemented in terms of {@link #nextVectors}.
+ * <p>
+ * Implementations are not thread-safe.
+ */
+public abstract class BulkNormalRandomNumberGenerator implements RandomNumberGenerator, NormalVariateStream {
+
+  @Override
+  public double[] getVector(final int dimension) {
+    ArgumentChecker.notNegative(dimension, "dimension");
+    final double[] result = new double[dimension];
+    nextVectors(result, 1, dimension);
+    return result;
+  }
+
+  @Override
+  public List<double[]> getVectors(final int dimension, final int n) {
+    ArgumentChecker.notNegative(dimension, "dimension");
+    ArgumentChecker.notNegative(n, "n");
+    final List<double[]> result = new ArrayList<double[]>(n);
+    for (int i = 0; i < n; i++) {
+      final double[] x = new double[dimension];
+      nextVectors(x, 1, dimension);
+      result.add(x);
+    }
+    return result;
+  }
+
+  /**
+   * Fills each row of a matrix with the next vector.
+   *
+   * @param vectors  the matrix to fill, rows of equal length, not null
+   */
+  public void fill(final double[][] vectors) {
+    Validate.notNull(vectors, "vectors");
+    for (final double[] x : vectors) {
+      Validate.notNull(x, "vector");
+      nextVectors(x, 1, x.length);
+    }
+  }
+
+}
@@ -0,0 +1,24 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+/**
+ * A stream of standard normal variates drawn in blocks of vectors into a caller supplied array, so that no
+ * objects are allocated per variate. A stream is not thread-safe.
+ */
+public interface NormalVariateStream {
+
+  /**
+   * Draws the next vectors from the stream. Vector {@code i} is written to
+   * {@code values[i * dimension]} to {@code values[(i + 1) * dimension - 1]}.
+   *
+   * @param values  the array to fill, at least {@code count * dimension} long, not null
+   * @param count  the number of vectors, not negative
+   * @param dimension  the dimension of each vector, not negative
+   */
+  void nextVectors(double[] values, int count, int dimension);
+
+}
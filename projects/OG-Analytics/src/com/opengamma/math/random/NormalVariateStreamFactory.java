@@ -0,0 +1,23 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+/**
+ * Creates reproducible, independent streams of normal variates so that a simulation can be split into blocks,
+ * each with its own stream, and give the same result however the blocks are scheduled across threads.
+ */
+public interface NormalVariateStreamFactory {
+
+  /**
+   * Creates a stream. The same index always gives a stream of the same variates, and different indices give
+   * independent streams. The factory is thread-safe; the stream returned is not.
+   *
+   * @param index  the index of the stream, not negative
+   * @return the stream, not null
+   */
+  NormalVariateStream getStream(long index);
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates streams of normal variates using Marsaglia's polar method on uniforms from {@link SplitMix64RandomEngine}
+ * streams split from a single seed.
+ */
+public class PolarNormalVariateStreamFactory implements NormalVariateStreamFactory {
+
+  private final SplitMix64RandomEngine _engine;
+
+  public PolarNormalVariateStreamFactory(final long seed) {
+    _engine = new SplitMix64RandomEngine(seed);
+  }
+
+  public long getSeed() {
+    return _engine.getSeed();
+  }
+
+  @Override
+  public NormalVariateStream getStream(final long index) {
+    ArgumentChecker.notNegative(index, "index");
+    return new Stream(_engine.split(index));
+  }
+
+  private static final class Stream implements NormalVariateStream {
+
+    private final SplitMix64RandomEngine _uniform;
+
+    private Stream(final SplitMix64RandomEngine uniform) {
+      _uniform = uniform;
+    }
+
+    @Override
+    public void nextVectors(final double[] values, final int count, final int dimension) {
+      Validate.notNull(values, "values");
+      ArgumentChecker.notNegative(count, "count");
+      ArgumentChecker.notNegative(dimension, "dimension");
+      final int n = count * dimension;
+      ArgumentChecker.isTrue(values.length >= n, "values array too short");
+      // Each accepted pair gives two variates; when an odd number is needed the last one is discarded
+      int i = 0;
+      while (i < n) {
+        double u;
+        double v;
+        double s;
+        do {
+          u = 2 * _uniform.raw() - 1;
+          v = 2 * _uniform.raw() - 1;
+          s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        final double m = Math.sqrt(-2 * Math.log(s) / s);
+        values[i++] = u * m;
+        if (i < n) {
+          values[i++] = v * m;
+        }
+      }
+    }
+
+  }
+
+}
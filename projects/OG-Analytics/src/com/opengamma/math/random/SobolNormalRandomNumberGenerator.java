@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import org.apache.commons.lang.Validate;
+
+import cern.jet.stat.Probability;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Generates quasi-random standard normal vectors by mapping the points of a {@link SobolSequence} through the
+ * inverse normal distribution, optionally ordering them along a {@link BrownianBridge} so that the leading
+ * dimensions of the sequence drive the largest scale movements of a path. Every vector has the dimension of the
+ * sequence.
+ * <p>
+ * Successive vectors are not independent, so the error of a simulation cannot be estimated from the sample variance
+ * of its paths; it converges at close to 1/n rather than 1/&radic;n.
+ */
+public class SobolNormalRandomNumberGenerator extends BulkNormalRandomNumberGenerator {
+
+  private final SobolSequence _sequence;
+  private final BrownianBridge _bridge;
+  private final double[] _buffer;
+
+  /**
+   * Creates a generator starting from the second point of the sequence.
+   *
+   * @param dimension  the dimension of the vectors, from 1 to {@link SobolSequence#MAX_DIMENSION}
+   * @param brownianBridge  true to map each vector to path increments along a Brownian bridge
+   */
+  public SobolNormalRandomNumberGenerator(final int dimension, final boolean brownianBridge) {
+    this(dimension, brownianBridge, 1);
+  }
+
+  /**
+   * Creates a generator.
+   *
+   * @param dimension  the dimension of the vectors, from 1 to {@link SobolSequence#MAX_DIMENSION}
+   * @param brownianBridge  true to map each vector to path increments along a Brownian bridge
+   * @param index  the index of the first point of the sequence to use, greater than zero as the first point of
+   *  the sequence is zero in every dimension
+   */
+  public SobolNormalRandomNumberGenerator(final int dimension, final boolean brownianBridge, final long index) {
+    ArgumentChecker.isTrue(index > 0, "index must be greater than zero");
+    _sequence = new SobolSequence(dimension, index);
+    _bridge = brownianBridge ? new BrownianBridge(dimension) : null;
+    _buffer = new double[dimension];
+  }
+
+  public int getDimension() {
+    return _sequence.getDimension();
+  }
+
+  @Override
+  public void nextVectors(final double[] values, final int count, final int dimension) {
+    Validate.notNull(values, "values");
+    ArgumentChecker.notNegative(count, "count");
+    ArgumentChecker.isTrue(dimension == _buffer.length, "dimension must be " + _buffer.length);
+    ArgumentChecker.isTrue(values.length >= count * dimension, "values array too short");
+    for (int i = 0, offset = 0; i < count; i++, offset += dimension) {
+      if (_bridge == null) {
+        _sequence.nextPoint(values, offset);
+        for (int d = offset; d < offset + dimension; d++) {
+          values[d] = Probability.normalInverse(values[d]);
+        }
+      } else {
+        _sequence.nextPoint(_buffer, 0);
+        for (int d = 0; d < dimension; d++) {
+          _buffer[d] = Probability.normalInverse(_buffer[d]);
+        }
+        _bridge.transform(_buffer, 0, values, offset);
+      }
+    }
+  }
+
+}
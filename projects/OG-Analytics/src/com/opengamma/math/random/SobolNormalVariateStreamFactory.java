@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Divides a Sobol sequence into consecutive streams of a fixed number of points, so that a simulation split into
+ * blocks of that many paths uses the leading points of a single sequence however the blocks are scheduled. The
+ * dimension of a stream is that of the first vectors drawn from it.
+ *
+ * @see SobolNormalRandomNumberGenerator
+ */
+public class SobolNormalVariateStreamFactory implements NormalVariateStreamFactory {
+
+  private final int _pointsPerStream;
+  private final boolean _brownianBridge;
+
+  /**
+   * Creates a factory.
+   *
+   * @param pointsPerStream  the number of points in each stream, the block size of the simulation, greater than zero
+   * @param brownianBridge  true to map each vector to path increments along a Brownian bridge
+   */
+  public SobolNormalVariateStreamFactory(final int pointsPerStream, final boolean brownianBridge) {
+    ArgumentChecker.notNegativeOrZero(pointsPerStream, "points per stream");
+    _pointsPerStream = pointsPerStream;
+    _brownianBridge = brownianBridge;
+  }
+
+  public int getPointsPerStream() {
+    return _pointsPerStream;
+  }
+
+  public boolean isBrownianBridge() {
+    return _brownianBridge;
+  }
+
+  @Override
+  public NormalVariateStream getStream(final long index) {
+    ArgumentChecker.notNegative(index, "index");
+    final long first = 1 + index * _pointsPerStream;
+    return new NormalVariateStream() {
+      private SobolNormalRandomNumberGenerator _generator;
+
+      @Override
+      public void nextVectors(final double[] values, final int count, final int dimension) {
+        if (_generator == null) {
+          _generator = new SobolNormalRandomNumberGenerator(dimension, _brownianBridge, first);
+        }
+        _generator.nextVectors(values, count, dimension);
+      }
+    };
+  }
+
+}
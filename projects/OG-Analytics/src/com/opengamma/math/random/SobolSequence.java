@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A Sobol low-discrepancy sequence of points in the unit hypercube, generated in Gray code order (Antonov and
+ * Saleev) so that each point is one exclusive-or per dimension away from the previous one. Any point can be skipped
+ * to directly, so a sequence can be divided into blocks that are generated independently.
+ * <p>
+ * Each dimension after the first is defined by a primitive polynomial over GF(2), taken in order of degree, and a
+ * set of initial direction numbers. The first 16 dimensions use the initial direction numbers of Joe and Kuo (2008);
+ * later dimensions use initial direction numbers from a fixed pseudo-random sequence, as suggested by Bratley and
+ * Fox, which keeps the low-discrepancy property with weaker projections onto pairs of those dimensions. The
+ * leading dimensions matter most, so a simulation should put its most important variates first, for example with a
+ * {@link BrownianBridge}.
+ * <p>
+ * An instance is not thread-safe.
+ */
+public class SobolSequence {
+
+  /**
+   * The maximum dimension supported.
+   */
+  public static final int MAX_DIMENSION = 1000;
+  /**
+   * The number of bits of each coordinate; the sequence has 2<sup>BITS</sup> points.
+   */
+  public static final int BITS = 31;
+
+  private static final double SCALE = 1.0 / (1L << BITS);
+  private static final long RANDOM_DIRECTIONS_SEED = 0x50b01L;
+  private static final int[][] INITIAL_DIRECTIONS = new int[][] {
+    {1}, {1, 3}, {1, 3, 1}, {1, 1, 1}, {1, 1, 3, 3}, {1, 3, 5, 13}, {1, 1, 5, 5, 17}, {1, 1, 5, 5, 5}, {1, 1, 7, 11, 19}, {1, 1, 5, 1, 1}, {1, 1, 1, 3, 11},
+    {1, 3, 5, 5, 31}, {1, 3, 3, 9, 7, 49}, {1, 1, 1, 15, 21, 21}, {1, 3, 1, 13, 27, 49}};
+
+  // Direction numbers of each dimension computed so far, shared by all sequences
+  private static final List<int[]> s_directions = new ArrayList<int[]>();
+  private static final SplitMix64RandomEngine s_randomDirections = new SplitMix64RandomEngine(RANDOM_DIRECTIONS_SEED);
+  private static int s_degree;
+  private static int s_coefficients;
+
+  private final int[][] _directions;
+  private final int[] _x;
+  private long _index;
+
+  /**
+   * Creates a sequence positioned at its second point, skipping the first, which is zero in every dimension.
+   *
+   * @param dimension  the dimension of the points, from 1 to {@link #MAX_DIMENSION}
+   */
+  public SobolSequence(final int dimension) {
+    this(dimension, 1);
+  }
+
+  /**
+   * Creates a sequence positioned at a point.
+   *
+   * @param dimension  the dimension of the points, from 1 to {@link #MAX_DIMENSION}
+   * @param index  the index of the next point, from 0 to 2<sup>BITS</sup> - 1
+   */
+  public SobolSequence(final int dimension, final long index) {
+    ArgumentChecker.isTrue(dimension >= 1 && dimension <= MAX_DIMENSION, "dimension must be from 1 to " + MAX_DIMENSION);
+    _directions = getDirections(dimension);
+    _x = new int[dimension];
+    skipTo(index);
+  }
+
+  public int getDimension() {
+    return _x.length;
+  }
+
+  /**
+   * Gets the index of the next point.
+   *
+   * @return the index
+   */
+  public long getIndex() {
+    return _index;
+  }
+
+  /**
+   * Positions the sequence at a point.
+   *
+   * @param index  the index of the next point, from 0 to 2<sup>BITS</sup> - 1
+   */
+  public void skipTo(final long index) {
+    ArgumentChecker.isTrue(index >= 0 && index < (1L << BITS), "index out of range");
+    final long gray = index ^ (index >>> 1);
+    for (int d = 0; d < _x.length; d++) {
+      int x = 0;
+      for (int b = 0; (gray >>> b) != 0; b++) {
+        if (((gray >>> b) & 1) != 0) {
+          x ^= _directions[d][b];
+        }
+      }
+      _x[d] = x;
+    }
+    _index = index;
+  }
+
+  /**
+   * Writes the next point, each coordinate in [0, 1), and advances the sequence.
+   *
+   * @param point  the array to write to, not null
+   * @param offset  the index of the first coordinate in the array
+   */
+  public void nextPoint(final double[] point, final int offset) {
+    if (_index >= (1L << BITS)) {
+      throw new OpenGammaRuntimeException("Sobol sequence exhausted");
+    }
+    for (int d = 0; d < _x.length; d++) {
+      point[offset + d] = _x[d] * SCALE;
+    }
+    _index++;
+    if (_index < (1L << BITS)) {
+      final int c = Long.numberOfTrailingZeros(_index);
+      for (int d = 0; d < _x.length; d++) {
+        _x[d] ^= _directions[d][c];
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  private static synchronized int[][] getDirections(final int dimension) {
+    while (s_directions.size() < dimension) {
+      s_directions.add(createDirections(s_directions.size()));
+    }
+    return s_directions.subList(0, dimension).toArray(new int[dimension][]);
+  }
+
+  private static int[] createDirections(final int dimension) {
+    final int[] v = new int[BITS];
+    if (dimension == 0) {
+      for (int k = 0; k < BITS; k++) {
+        v[k] = 1 << (BITS - 1 - k);
+      }
+      return v;
+    }
+    nextPrimitivePolynomial();
+    final int s = s_degree;
+    final int a = s_coefficients;
+    for (int k = 0; k < BITS; k++) {
+      if (k < s) {
+        final int m;
+        if (dimension <= INITIAL_DIRECTIONS.length) {
+          m = INITIAL_DIRECTIONS[dimension - 1][k];
+        } else {
+          // Odd and less than 2^(k + 1)
+          m = (int) (s_randomDirections.nextLong() >>> (63 - k)) | 1;
+        }
+        v[k] = m << (BITS - 1 - k);
+      } else {
+        int x = v[k - s] ^ (v[k - s] >>> s);
+        for (int i = 1; i < s; i++) {
+          if (((a >>> (s - 1 - i)) & 1) != 0) {
+            x ^= v[k - i];
+          }
+        }
+        v[k] = x;
+      }
+    }
+    return v;
+  }
+
+  /**
+   * Advances to the next primitive polynomial, in order of degree and then of the coefficients of the terms between
+   * the first and last, which are always one.
+   */
+  private static void nextPrimitivePolynomial() {
+    do {
+      s_coefficients++;
+      if (s_degree == 0 || s_coefficients >= (1 << (s_degree - 1))) {
+        s_degree++;
+        s_coefficients = 0;
+      }
+    } while (!isPrimitive(s_degree, s_coefficients));
+  }
+
+  /**
+   * Tests whether x has order 2<sup>degree</sup> - 1 modulo the polynomial.
+   */
+  private static boolean isPrimitive(final int degree, final int coefficients) {
+    final int polynomial = (1 << degree) | (coefficients << 1) | 1;
+    final int period = (1 << degree) - 1;
+    int r = 1;
+    for (int k = 1; k <= period; k++) {
+      r <<= 1;
+      if ((r & (1 << degree)) != 0) {
+        r ^= polynomial;
+      }
+      if (r == 1) {
+        return k == period;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * A fast 64-bit random engine that can be split into independent streams. The state is a counter incremented by
+ * a fixed odd constant and each output is a bijective mix of the counter (the SplitMix64 generator of Steele, Lea
+ * and Flood). Splitting derives the seed of a child stream from the seed of the parent and the index of the child
+ * alone, so the same index always gives the same stream however many streams are created, in whatever order, on
+ * whatever threads.
+ * <p>
+ * An instance is not thread-safe; each thread should use its own stream.
+ */
+public class SplitMix64RandomEngine extends RandomEngine {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The odd constant the state is incremented by, 2<sup>64</sup> divided by the golden ratio.
+   */
+  private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+  /**
+   * 2<sup>-53</sup>, converts 53 random bits to a double in [0, 1).
+   */
+  private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+  private final long _seed;
+  private long _state;
+
+  public SplitMix64RandomEngine(final long seed) {
+    _seed = seed;
+    _state = seed;
+  }
+
+  public long getSeed() {
+    return _seed;
+  }
+
+  /**
+   * Creates an independent stream. The stream depends only on the seed of this engine and the index, not on how
+   * many values have been drawn from this engine.
+   *
+   * @param index  the index of the stream
+   * @return the stream, not null
+   */
+  public SplitMix64RandomEngine split(final long index) {
+    return new SplitMix64RandomEngine(mix64(mix64(_seed) + GOLDEN_GAMMA * (index + 1)));
+  }
+
+  private static long mix64(final long x) {
+    long z = x;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  @Override
+  public long nextLong() {
+    _state += GOLDEN_GAMMA;
+    return mix64(_state);
+  }
+
+  @Override
+  public int nextInt() {
+    return (int) (nextLong() >>> 32);
+  }
+
+  /**
+   * Returns a uniformly distributed double in the open interval (0, 1) with 53 random bits.
+   *
+   * @return the value
+   */
+  @Override
+  public double raw() {
+    return ((nextLong() >>> 11) + 0.5) * DOUBLE_UNIT;
+  }
+
+  @Override
+  public double nextDouble() {
+    return raw();
+  }
+
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates streams of normal variates using {@link ZigguratNormalRandomNumberGenerator} on {@link SplitMix64RandomEngine}
+ * streams split from a single seed.
+ */
+public class ZigguratNormalVariateStreamFactory implements NormalVariateStreamFactory {
+
+  private final SplitMix64RandomEngine _engine;
+
+  public ZigguratNormalVariateStreamFactory(final long seed) {
+    _engine = new SplitMix64RandomEngine(seed);
+  }
+
+  public long getSeed() {
+    return _engine.getSeed();
+  }
+
+  @Override
+  public NormalVariateStream getStream(final long index) {
+    ArgumentChecker.notNegative(index, "index");
+    return new ZigguratNormalRandomNumberGenerator(_engine.split(index));
+  }
+
+}
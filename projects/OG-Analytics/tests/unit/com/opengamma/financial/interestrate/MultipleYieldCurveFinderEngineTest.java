@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.interestrate;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.financial.interestrate.cash.definition.Cash;
+import com.opengamma.financial.interestrate.fra.definition.ForwardRateAgreement;
+import com.opengamma.math.interpolation.CombinedInterpolatorExtrapolatorFactory;
+import com.opengamma.math.interpolation.Interpolator1D;
+import com.opengamma.math.interpolation.Interpolator1DFactory;
+import com.opengamma.math.interpolation.data.Interpolator1DDataBundle;
+import com.opengamma.math.interpolation.sensitivity.CombinedInterpolatorExtrapolatorNodeSensitivityCalculatorFactory;
+import com.opengamma.math.interpolation.sensitivity.Interpolator1DNodeSensitivityCalculator;
+import com.opengamma.math.linearalgebra.DecompositionFactory;
+import com.opengamma.math.matrix.DoubleMatrix1D;
+import com.opengamma.math.matrix.DoubleMatrix2D;
+import com.opengamma.math.rootfinding.newton.NewtonDefaultVectorRootFinder;
+
+/**
+ * Tests the {@link MultipleYieldCurveFinderEngine} class.
+ */
+public class MultipleYieldCurveFinderEngineTest {
+
+  private static final String FUNDING_CURVE_NAME = "Some funding curve";
+  private static final String FORWARD_CURVE_NAME = "Some forward curve";
+  private static final int N = 10;
+  private static final int M = 5;
+  private static final double EPS = 1e-12;
+
+  private static MultipleYieldCurveFinderDataBundle getData(final String interpolatorName) {
+    final List<InterestRateDerivative> instruments = new ArrayList<InterestRateDerivative>();
+    final double[] forwardNodes = new double[N];
+    final double[] fundingNodes = new double[M];
+    final double[] marketValues = new double[N + M];
+    for (int i = 0; i < N; i++) {
+      instruments.add(new ForwardRateAgreement(i, i + 0.5, 0.0, FUNDING_CURVE_NAME, FORWARD_CURVE_NAME));
+      forwardNodes[i] = i + 1;
+      marketValues[i] = 0.03 + 0.002 * i;
+    }
+    for (int i = 0; i < M; i++) {
+      instruments.add(new Cash(i + 0.25, 0.0, FUNDING_CURVE_NAME));
+      // Out of order, as the nodes of a curve need not be given sorted
+      fundingNodes[i] = (i + 3) % M + 0.25;
+      marketValues[N + i] = 0.02 + 0.003 * i;
+    }
+    final Interpolator1D<? extends Interpolator1DDataBundle> interpolator = CombinedInterpolatorExtrapolatorFactory.getInterpolator(interpolatorName, Interpolator1DFactory.FLAT_EXTRAPOLATOR);
+    final Interpolator1DNodeSensitivityCalculator<? extends Interpolator1DDataBundle> sensitivityCalculator = CombinedInterpolatorExtrapolatorNodeSensitivityCalculatorFactory
+        .getSensitivityCalculator(interpolatorName, Interpolator1DFactory.FLAT_EXTRAPOLATOR, false);
+    final LinkedHashMap<String, double[]> nodes = new LinkedHashMap<String, double[]>();
+    nodes.put(FORWARD_CURVE_NAME, forwardNodes);
+    nodes.put(FUNDING_CURVE_NAME, fundingNodes);
+    final LinkedHashMap<String, Interpolator1D<? extends Interpolator1DDataBundle>> interpolators = new LinkedHashMap<String, Interpolator1D<? extends Interpolator1DDataBundle>>();
+    interpolators.put(FORWARD_CURVE_NAME, interpolator);
+    interpolators.put(FUNDING_CURVE_NAME, interpolator);
+    final LinkedHashMap<String, Interpolator1DNodeSensitivityCalculator<? extends Interpolator1DDataBundle>> sensitivityCalculators =
+        new LinkedHashMap<String, Interpolator1DNodeSensitivityCalculator<? extends Interpolator1DDataBundle>>();
+    sensitivityCalculators.put(FORWARD_CURVE_NAME, sensitivityCalculator);
+    sensitivityCalculators.put(FUNDING_CURVE_NAME, sensitivityCalculator);
+    return new MultipleYieldCurveFinderDataBundle(instruments, marketValues, null, nodes, interpolators, sensitivityCalculators);
+  }
+
+  private static DoubleMatrix1D getNodeValues(final double shift) {
+    final double[] x = new double[N + M];
+    for (int i = 0; i < x.length; i++) {
+      x[i] = 0.02 + shift + 0.001 * ((7 * i) % 11);
+    }
+    return new DoubleMatrix1D(x);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullData() {
+    new MultipleYieldCurveFinderEngine(null, ParRateCalculator.getInstance(), ParRateCurveSensitivityCalculator.getInstance());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullValueCalculator() {
+    new MultipleYieldCurveFinderEngine(getData(Interpolator1DFactory.LINEAR), null, ParRateCurveSensitivityCalculator.getInstance());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullSensitivityCalculator() {
+    new MultipleYieldCurveFinderEngine(getData(Interpolator1DFactory.LINEAR), ParRateCalculator.getInstance(), null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongNumberOfElements() {
+    new MultipleYieldCurveFinderEngine(getData(Interpolator1DFactory.LINEAR), ParRateCalculator.getInstance(), ParRateCurveSensitivityCalculator.getInstance()).getFunction().evaluate(
+        new DoubleMatrix1D(new double[N]));
+  }
+
+  @Test
+  public void testSameAsRebuiltCurves() {
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      for (final String interpolatorName : new String[] {Interpolator1DFactory.LINEAR, Interpolator1DFactory.NATURAL_CUBIC_SPLINE}) {
+        final MultipleYieldCurveFinderDataBundle data = getData(interpolatorName);
+        final MultipleYieldCurveFinderFunction function = new MultipleYieldCurveFinderFunction(data, ParRateCalculator.getInstance());
+        final MultipleYieldCurveFinderJacobian jacobian = new MultipleYieldCurveFinderJacobian(data, ParRateCurveSensitivityCalculator.getInstance());
+        final MultipleYieldCurveFinderEngine serial = new MultipleYieldCurveFinderEngine(data, ParRateCalculator.getInstance(), ParRateCurveSensitivityCalculator.getInstance());
+        final MultipleYieldCurveFinderEngine parallel = new MultipleYieldCurveFinderEngine(data, ParRateCalculator.getInstance(), ParRateCurveSensitivityCalculator.getInstance(), executor, 3);
+        // Repeated evaluations must not see the node values of earlier ones
+        for (int k = 0; k < 3; k++) {
+          final DoubleMatrix1D x = getNodeValues(0.005 * k);
+          final DoubleMatrix1D expectedValues = function.evaluate(x);
+          final DoubleMatrix2D expectedJacobian = jacobian.evaluate(x);
+          for (final MultipleYieldCurveFinderEngine engine : new MultipleYieldCurveFinderEngine[] {serial, parallel}) {
+            assertVectorEquals(expectedValues, engine.getFunction().evaluate(x));
+            assertMatrixEquals(sortedColumns(expectedJacobian, data), engine.getJacobian().evaluate(x));
+          }
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRoot() {
+    final MultipleYieldCurveFinderDataBundle data = getData(Interpolator1DFactory.NATURAL_CUBIC_SPLINE);
+    final MultipleYieldCurveFinderEngine engine = new MultipleYieldCurveFinderEngine(data, ParRateCalculator.getInstance(), ParRateCurveSensitivityCalculator.getInstance());
+    final NewtonDefaultVectorRootFinder rootFinder = new NewtonDefaultVectorRootFinder(1e-10, 1e-10, 50, DecompositionFactory.SPARSE_LU);
+    final DoubleMatrix1D root = rootFinder.getRoot(engine.getFunction(), engine.getJacobian(), getNodeValues(0));
+    final DoubleMatrix1D residuals = new MultipleYieldCurveFinderFunction(data, ParRateCalculator.getInstance()).evaluate(root);
+    for (int i = 0; i < residuals.getNumberOfElements(); i++) {
+      assertEquals(0, residuals.getEntry(i), 1e-9);
+    }
+  }
+
+  /**
+   * The existing Jacobian puts the sensitivity to the j<sup>th</sup> smallest node of a curve in the j<sup>th</sup>
+   * column of that curve, whatever the order the nodes are given in; the engine follows the order of the nodes.
+   */
+  private static DoubleMatrix2D sortedColumns(final DoubleMatrix2D jacobian, final MultipleYieldCurveFinderDataBundle data) {
+    final double[][] result = new double[jacobian.getNumberOfRows()][jacobian.getNumberOfColumns()];
+    int offset = 0;
+    for (final String name : data.getCurveNames()) {
+      final double[] nodes = data.getCurveNodePointsForCurve(name);
+      for (int j = 0; j < nodes.length; j++) {
+        int rank = 0;
+        for (final double node : nodes) {
+          if (node < nodes[j]) {
+            rank++;
+          }
+        }
+        for (int i = 0; i < result.length; i++) {
+          result[i][offset + j] = jacobian.getEntry(i, offset + rank);
+        }
+      }
+      offset += nodes.length;
+    }
+    return new DoubleMatrix2D(result);
+  }
+
+  private static void assertVectorEquals(final DoubleMatrix1D expected, final DoubleMatrix1D actual) {
+    assertEquals(expected.getNumberOfElements(), actual.getNumberOfElements());
+    for (int i = 0; i < expected.getNumberOfElements(); i++) {
+      assertEquals(expected.getEntry(i), actual.getEntry(i), EPS);
+    }
+  }
+
+  private static void assertMatrixEquals(final DoubleMatrix2D expected, final DoubleMatrix2D actual) {
+    assertEquals(expected.getNumberOfRows(), actual.getNumberOfRows());
+    assertEquals(expected.getNumberOfColumns(), actual.getNumberOfColumns());
+    for (int i = 0; i < expected.getNumberOfRows(); i++) {
+      for (int j = 0; j < expected.getNumberOfColumns(); j++) {
+        assertEquals(expected.getEntry(i, j), actual.getEntry(i, j), EPS);
+      }
+    }
+  }
+
+}
@@ -51,6 +51,21 @@ public class YieldAndDiscountCurveTest {
     assertEquals(DISCOUNT.getDiscountFactor(1.5), DF.getYValue(1.5), 1e-15);
   }
 
+  @Test
+  public void testArrayGetters() {
+    final double[] t = new double[] {1, 1.4, 2.5, 3, 1.5};
+    final double[] yieldRates = YIELD.getInterestRates(t);
+    final double[] yieldDiscountFactors = YIELD.getDiscountFactors(t);
+    final double[] discountRates = DISCOUNT.getInterestRates(t);
+    final double[] discountDiscountFactors = DISCOUNT.getDiscountFactors(t);
+    for (int i = 0; i < t.length; i++) {
+      assertEquals(YIELD.getInterestRate(t[i]), yieldRates[i], 1e-15);
+      assertEquals(YIELD.getDiscountFactor(t[i]), yieldDiscountFactors[i], 1e-15);
+      assertEquals(DISCOUNT.getInterestRate(t[i]), discountRates[i], 1e-15);
+      assertEquals(DISCOUNT.getDiscountFactor(t[i]), discountDiscountFactors[i], 1e-15);
+    }
+  }
+
   @Test
   public void testShift() {
     final InterpolatedCurveShiftFunction f = new InterpolatedCurveShiftFunction();
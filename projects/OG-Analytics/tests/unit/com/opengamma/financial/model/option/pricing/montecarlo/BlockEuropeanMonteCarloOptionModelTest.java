@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Collections;
+
+import javax.time.calendar.ZonedDateTime;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.financial.greeks.Greek;
+import com.opengamma.financial.model.interestrate.curve.YieldCurve;
+import com.opengamma.financial.model.option.definition.EuropeanVanillaOptionDefinition;
+import com.opengamma.financial.model.option.definition.OptionDefinition;
+import com.opengamma.financial.model.option.definition.StandardOptionDataBundle;
+import com.opengamma.financial.model.option.pricing.analytic.BlackScholesMertonModel;
+import com.opengamma.financial.model.stochastic.BlackScholesArithmeticBrownianMotionProcess;
+import com.opengamma.financial.model.stochastic.BlackScholesGeometricBrownianMotionProcess;
+import com.opengamma.financial.model.volatility.surface.VolatilitySurface;
+import com.opengamma.math.curve.ConstantDoublesCurve;
+import com.opengamma.math.random.PolarNormalVariateStreamFactory;
+import com.opengamma.math.surface.ConstantDoublesSurface;
+import com.opengamma.util.time.DateUtil;
+import com.opengamma.util.time.Expiry;
+
+/**
+ * 
+ */
+public class BlockEuropeanMonteCarloOptionModelTest {
+  private static final ZonedDateTime DATE = DateUtil.getUTCDate(2009, 1, 1);
+  private static final Expiry EXPIRY = new Expiry(DateUtil.getDateOffsetWithYearFraction(DATE, 1));
+  private static final StandardOptionDataBundle DATA = new StandardOptionDataBundle(new YieldCurve(ConstantDoublesCurve.from(0.06)), 0.02, new VolatilitySurface(ConstantDoublesSurface.from(0.2)),
+      100., DATE);
+  private static final OptionDefinition[] OPTIONS = new OptionDefinition[] {new EuropeanVanillaOptionDefinition(110, EXPIRY, true), new EuropeanVanillaOptionDefinition(110, EXPIRY, false),
+      new EuropeanVanillaOptionDefinition(90, EXPIRY, true), new EuropeanVanillaOptionDefinition(90, EXPIRY, false)};
+  private static final int N = 10000;
+  private static final BlockMonteCarloEngine ENGINE = new BlockMonteCarloEngine(new PolarNormalVariateStreamFactory(0), true);
+  private static final BlockEuropeanMonteCarloOptionModel MODEL = new BlockEuropeanMonteCarloOptionModel(N, 1,
+      new BlackScholesGeometricBrownianMotionProcess<OptionDefinition, StandardOptionDataBundle>(), ENGINE, true);
+  private static final BlackScholesMertonModel BSM = new BlackScholesMertonModel();
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTooFewSamples() {
+    new BlockEuropeanMonteCarloOptionModel(1, 1, new BlackScholesGeometricBrownianMotionProcess<OptionDefinition, StandardOptionDataBundle>(), ENGINE, true);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullEngine() {
+    new BlockEuropeanMonteCarloOptionModel(N, 1, new BlackScholesGeometricBrownianMotionProcess<OptionDefinition, StandardOptionDataBundle>(), null, true);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullDefinition() {
+    MODEL.getPricingFunction(null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullData() {
+    MODEL.getPricingFunction(OPTIONS[0]).evaluate((StandardOptionDataBundle) null);
+  }
+
+  @Test
+  public void test() {
+    final BlockEuropeanMonteCarloOptionModel arithmetic = new BlockEuropeanMonteCarloOptionModel(N, 4,
+        new BlackScholesArithmeticBrownianMotionProcess<OptionDefinition, StandardOptionDataBundle>(), ENGINE, false);
+    for (final OptionDefinition option : OPTIONS) {
+      final double expected = BSM.getPricingFunction(option).evaluate(DATA);
+      MonteCarloResult result = MODEL.simulate(option, DATA);
+      assertEquals(expected, result.getValue(), 4 * result.getStandardError());
+      result = arithmetic.simulate(option, DATA);
+      assertEquals(expected, result.getValue(), 4 * result.getStandardError());
+    }
+  }
+
+  @Test
+  public void testGreeks() {
+    final double price = MODEL.getGreeks(OPTIONS[0], DATA, Collections.singleton(Greek.FAIR_PRICE)).get(Greek.FAIR_PRICE);
+    assertEquals(MODEL.getPricingFunction(OPTIONS[0]).evaluate(DATA), price, 0);
+  }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.financial.model.stochastic.PathDynamics;
+import com.opengamma.math.random.PolarNormalVariateStreamFactory;
+import com.opengamma.math.random.SobolNormalVariateStreamFactory;
+import com.opengamma.math.random.ZigguratNormalVariateStreamFactory;
+import com.opengamma.math.statistics.distribution.NormalDistribution;
+
+/**
+ * 
+ */
+public class BlockMonteCarloEngineTest {
+  private static final double SPOT = 100;
+  private static final double STRIKE = 110;
+  private static final double R = 0.06;
+  private static final double B = 0.02;
+  private static final double SIGMA = 0.2;
+  private static final double T = 1;
+  private static final double DF = Math.exp(-R * T);
+  private static final int STEPS = 4;
+  private static final int N = 20000;
+  private static final PathDynamics DYNAMICS = new PathDynamics() {
+    private final double _dt = T / STEPS;
+    private final double _nu = _dt * (B - 0.5 * SIGMA * SIGMA);
+    private final double _sigmaDt = SIGMA * Math.sqrt(_dt);
+
+    @Override
+    public double getInitialValue() {
+      return Math.log(SPOT);
+    }
+
+    @Override
+    public double step(final double x, final double e) {
+      return x + _nu + _sigmaDt * e;
+    }
+
+    @Override
+    public double getFinalValue(final double x) {
+      return Math.exp(x);
+    }
+  };
+  private static final TerminalPayoffFunction CALL = new TerminalPayoffFunction() {
+
+    @Override
+    public double getPayoff(final double terminalValue) {
+      return DF * Math.max(terminalValue - STRIKE, 0);
+    }
+  };
+  private static final ControlVariate CONTROL = new ControlVariate(new TerminalPayoffFunction() {
+
+    @Override
+    public double getPayoff(final double terminalValue) {
+      return DF * terminalValue;
+    }
+  }, DF * SPOT * Math.exp(B * T));
+  private static final PolarNormalVariateStreamFactory STREAMS = new PolarNormalVariateStreamFactory(0);
+
+  private static double blackScholesCall() {
+    final NormalDistribution normal = new NormalDistribution(0, 1);
+    final double forward = SPOT * Math.exp(B * T);
+    final double d1 = (Math.log(forward / STRIKE) + 0.5 * SIGMA * SIGMA * T) / (SIGMA * Math.sqrt(T));
+    final double d2 = d1 - SIGMA * Math.sqrt(T);
+    return DF * (forward * normal.getCDF(d1) - STRIKE * normal.getCDF(d2));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullStreams() {
+    new BlockMonteCarloEngine(null, false);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadBlockSize() {
+    new BlockMonteCarloEngine(STREAMS, 0, false, null, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSobolStreamSizeMismatch() {
+    new BlockMonteCarloEngine(new SobolNormalVariateStreamFactory(100, true), 200, false, null, 1);
+  }
+
+  @Test
+  public void testSobolBlockSize() {
+    assertEquals(100, new BlockMonteCarloEngine(new SobolNormalVariateStreamFactory(100, true), false).getBlockSize());
+    assertEquals(BlockMonteCarloEngine.DEFAULT_BLOCK_SIZE, new BlockMonteCarloEngine(STREAMS, false).getBlockSize());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullDynamics() {
+    new BlockMonteCarloEngine(STREAMS, false).simulate(null, STEPS, CALL, null, N);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullPayoff() {
+    new BlockMonteCarloEngine(STREAMS, false).simulate(DYNAMICS, STEPS, null, null, N);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTooFewSamples() {
+    new BlockMonteCarloEngine(STREAMS, false).simulate(DYNAMICS, STEPS, CALL, null, 1);
+  }
+
+  @Test
+  public void testPrice() {
+    final double expected = blackScholesCall();
+    for (final boolean antithetic : new boolean[] {false, true}) {
+      final BlockMonteCarloEngine engine = new BlockMonteCarloEngine(STREAMS, antithetic);
+      MonteCarloResult result = engine.simulate(DYNAMICS, STEPS, CALL, null, N);
+      assertEquals(N, result.getSamples());
+      assertEquals(expected, result.getValue(), 4 * result.getStandardError());
+      result = engine.simulate(DYNAMICS, STEPS, CALL, CONTROL, N);
+      assertEquals(expected, result.getValue(), 4 * result.getStandardError());
+    }
+  }
+
+  @Test
+  public void testVarianceReduction() {
+    final MonteCarloResult plain = new BlockMonteCarloEngine(STREAMS, false).simulate(DYNAMICS, STEPS, CALL, null, N);
+    final MonteCarloResult antithetic = new BlockMonteCarloEngine(STREAMS, true).simulate(DYNAMICS, STEPS, CALL, null, N);
+    final MonteCarloResult control = new BlockMonteCarloEngine(STREAMS, false).simulate(DYNAMICS, STEPS, CALL, CONTROL, N);
+    assertTrue(antithetic.getStandardError() < plain.getStandardError());
+    assertTrue(control.getStandardError() < 0.7 * plain.getStandardError());
+  }
+
+  @Test
+  public void testThreadsDoNotChangeResult() {
+    final MonteCarloResult sequential = new BlockMonteCarloEngine(STREAMS, 100, true, null, 1).simulate(DYNAMICS, STEPS, CALL, CONTROL, N + 17);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int parallelism = 2; parallelism <= 8; parallelism *= 2) {
+        final MonteCarloResult parallel = new BlockMonteCarloEngine(STREAMS, 100, true, executor, parallelism).simulate(DYNAMICS, STEPS, CALL, CONTROL, N + 17);
+        assertEquals(sequential.getValue(), parallel.getValue(), 0);
+        assertEquals(sequential.getStandardError(), parallel.getStandardError(), 0);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testOtherStreams() {
+    final double expected = blackScholesCall();
+    MonteCarloResult result = new BlockMonteCarloEngine(new ZigguratNormalVariateStreamFactory(0), false).simulate(DYNAMICS, STEPS, CALL, null, N);
+    assertEquals(expected, result.getValue(), 4 * result.getStandardError());
+    // The error of a quasi-random simulation is much smaller than the standard error suggests
+    final int blockSize = BlockMonteCarloEngine.DEFAULT_BLOCK_SIZE;
+    result = new BlockMonteCarloEngine(new SobolNormalVariateStreamFactory(blockSize, true), false).simulate(DYNAMICS, STEPS, CALL, null, N);
+    assertEquals(expected, result.getValue(), 0.25 * result.getStandardError());
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.model.option.pricing.montecarlo;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.time.calendar.ZonedDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister64;
+
+import com.opengamma.financial.model.interestrate.curve.YieldCurve;
+import com.opengamma.financial.model.option.definition.EuropeanVanillaOptionDefinition;
+import com.opengamma.financial.model.option.definition.OptionDefinition;
+import com.opengamma.financial.model.option.definition.StandardOptionDataBundle;
+import com.opengamma.financial.model.stochastic.BlackScholesGeometricBrownianMotionProcess;
+import com.opengamma.financial.model.stochastic.StochasticProcess;
+import com.opengamma.financial.model.volatility.surface.VolatilitySurface;
+import com.opengamma.math.curve.ConstantDoublesCurve;
+import com.opengamma.math.random.NormalRandomNumberGenerator;
+import com.opengamma.math.random.PolarNormalVariateStreamFactory;
+import com.opengamma.math.surface.ConstantDoublesSurface;
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.time.DateUtil;
+import com.opengamma.util.time.Expiry;
+
+/**
+ * Compares the block engine, on one thread and on all processors, with {@link EuropeanMonteCarloOptionModel}.
+ */
+public class BlockMonteCarloSpeedTest {
+  private static Logger s_logger = LoggerFactory.getLogger(BlockMonteCarloSpeedTest.class);
+  private static int WARMUP_CYCLES = 0;
+  private static int BENCHMARK_CYCLES = 1;
+
+  private static final ZonedDateTime DATE = DateUtil.getUTCDate(2009, 1, 1);
+  private static final Expiry EXPIRY = new Expiry(DateUtil.getDateOffsetWithYearFraction(DATE, 1));
+  private static final StandardOptionDataBundle DATA = new StandardOptionDataBundle(new YieldCurve(ConstantDoublesCurve.from(0.06)), 0.02, new VolatilitySurface(ConstantDoublesSurface.from(0.2)),
+      100., DATE);
+  private static final OptionDefinition CALL = new EuropeanVanillaOptionDefinition(110, EXPIRY, true);
+  private static final int N = 20000;
+  private static final int STEPS = 50;
+  private static final StochasticProcess<OptionDefinition, StandardOptionDataBundle> PROCESS = new BlackScholesGeometricBrownianMotionProcess<OptionDefinition, StandardOptionDataBundle>();
+
+  @Test
+  public void testExistingModel() {
+    final EuropeanMonteCarloOptionModel model = new EuropeanMonteCarloOptionModel(N, STEPS, PROCESS, new NormalRandomNumberGenerator(0, 1, new MersenneTwister64(MersenneTwister64.DEFAULT_SEED)));
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      model.getPricingFunction(CALL).evaluate(DATA);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      final OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles on existing model", BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        model.getPricingFunction(CALL).evaluate(DATA);
+      }
+      timer.finished();
+    }
+  }
+
+  @Test
+  public void testBlockEngine() {
+    benchmark("block engine", new BlockMonteCarloEngine(new PolarNormalVariateStreamFactory(0), false));
+  }
+
+  @Test
+  public void testParallelBlockEngine() {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    final ExecutorService executor = Executors.newFixedThreadPool(processors);
+    try {
+      benchmark("parallel block engine", new BlockMonteCarloEngine(new PolarNormalVariateStreamFactory(0), BlockMonteCarloEngine.DEFAULT_BLOCK_SIZE, false, executor, processors));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private void benchmark(final String name, final BlockMonteCarloEngine engine) {
+    final BlockEuropeanMonteCarloOptionModel model = new BlockEuropeanMonteCarloOptionModel(N, STEPS, PROCESS, engine, false);
+    for (int i = 0; i < WARMUP_CYCLES; i++) {
+      model.simulate(CALL, DATA);
+    }
+    if (BENCHMARK_CYCLES > 0) {
+      final OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles on " + name, BENCHMARK_CYCLES);
+      for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+        model.simulate(CALL, DATA);
+      }
+      timer.finished();
+    }
+  }
+
+}
@@ -241,4 +241,20 @@ public class InterpolatedDoublesCurveTest extends DoublesCurveTestCase {
     }
   }
 
+  @Test
+  public void testGetYValues() {
+    final InterpolatedDoublesCurve curve = InterpolatedDoublesCurve.from(MAP, LINEAR, NAME1);
+    final double[] x = new double[] {0, 0.5, 2, 2, 4.7, 8, 3.3, 1};
+    final double[] y = curve.getYValues(x);
+    assertEquals(x.length, y.length);
+    for (int i = 0; i < x.length; i++) {
+      assertEquals(curve.getYValue(x[i]), y[i], EPS);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testGetYValuesOutsideData() {
+    InterpolatedDoublesCurve.from(MAP, LINEAR, NAME1).getYValues(new double[] {1, 120});
+  }
+
 }
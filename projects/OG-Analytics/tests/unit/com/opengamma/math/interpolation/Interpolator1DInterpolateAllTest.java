@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.interpolation;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.math.interpolation.data.Interpolator1DDataBundle;
+
+/**
+ * Tests that {@link Interpolator1D#interpolateAll} gives the same values as interpolating one value at a time.
+ */
+public class Interpolator1DInterpolateAllTest {
+  private static final double[] X = new double[] {1, 2, 3.5, 4, 6, 7.5, 9, 10};
+  private static final double[] Y = new double[] {0.03, 0.032, 0.031, 0.036, 0.04, 0.038, 0.042, 0.041};
+  private static final String[] INTERPOLATORS = new String[] {Interpolator1DFactory.LINEAR, Interpolator1DFactory.LOG_LINEAR, Interpolator1DFactory.EXPONENTIAL,
+    Interpolator1DFactory.NATURAL_CUBIC_SPLINE, Interpolator1DFactory.STEP, Interpolator1DFactory.DOUBLE_QUADRATIC};
+  // Increasing with repeated values and nodes, then out of order
+  private static final double[] INSIDE = new double[] {1, 1.3, 1.3, 2, 2.7, 3.5, 3.9, 5, 6, 8, 9.99, 10, 4.2, 1.1, 9.5, 2};
+  private static final double[] OUTSIDE = new double[] {-1, 0.5, 1, 3, 10, 12, 15, 0, 5, 11};
+  private static final double EPS = 1e-15;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullData() {
+    Interpolator1DFactory.LINEAR_INSTANCE.interpolateAll(null, INSIDE);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullValues() {
+    Interpolator1DFactory.LINEAR_INSTANCE.interpolateAll(Interpolator1DFactory.LINEAR_INSTANCE.getDataBundle(X, Y), null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testOutsideData() {
+    Interpolator1DFactory.LINEAR_INSTANCE.interpolateAll(Interpolator1DFactory.LINEAR_INSTANCE.getDataBundle(X, Y), OUTSIDE);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testExtrapolatorInsideData() {
+    final Interpolator1D<Interpolator1DDataBundle> extrapolator = new FlatExtrapolator1D<Interpolator1DDataBundle>();
+    extrapolator.interpolateAll(Interpolator1DFactory.LINEAR_INSTANCE.getDataBundle(X, Y), INSIDE);
+  }
+
+  @Test
+  public void testInterpolators() {
+    for (final String name : INTERPOLATORS) {
+      final Interpolator1D<Interpolator1DDataBundle> interpolator = Interpolator1DFactory.getInterpolator(name);
+      assertSame(interpolator, interpolator.getDataBundle(X, Y), INSIDE);
+    }
+  }
+
+  @Test
+  public void testExtrapolators() {
+    for (final String name : INTERPOLATORS) {
+      for (final String[] extrapolators : new String[][] {{Interpolator1DFactory.FLAT_EXTRAPOLATOR, Interpolator1DFactory.FLAT_EXTRAPOLATOR},
+        {Interpolator1DFactory.FLAT_EXTRAPOLATOR, Interpolator1DFactory.LINEAR_EXTRAPOLATOR}, {Interpolator1DFactory.LINEAR_EXTRAPOLATOR, Interpolator1DFactory.LINEAR_EXTRAPOLATOR}}) {
+        final Interpolator1D<Interpolator1DDataBundle> interpolator = CombinedInterpolatorExtrapolatorFactory.getInterpolator(name, extrapolators[0], extrapolators[1]);
+        final Interpolator1DDataBundle data = interpolator.getDataBundle(X, Y);
+        assertSame(interpolator, data, INSIDE);
+        assertSame(interpolator, data, OUTSIDE);
+      }
+    }
+  }
+
+  private static void assertSame(final Interpolator1D<Interpolator1DDataBundle> interpolator, final Interpolator1DDataBundle data, final double[] values) {
+    final double[] result = interpolator.interpolateAll(data, values);
+    assertEquals(values.length, result.length);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(interpolator.interpolate(data, values[i]), result[i], EPS);
+    }
+  }
+
+}
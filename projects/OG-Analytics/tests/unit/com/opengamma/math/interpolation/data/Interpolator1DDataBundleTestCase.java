@@ -84,6 +84,27 @@ public abstract class Interpolator1DDataBundleTestCase {
     assertEquals(4, DATA.getLowerBoundIndex(5.));
   }
 
+  @Test
+  public void lowerBoundIndicesOfArray() {
+    // Increasing, then out of order
+    final double[] values = new double[] {1., 1.5, 1.5, 3.9, 4., 5., 2.5, 1.};
+    final int[] indices = DATA.getLowerBoundIndices(values);
+    assertEquals(values.length, indices.length);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(DATA.getLowerBoundIndex(values[i]), indices[i]);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testHighLowerBoundIndices() {
+    DATA.getLowerBoundIndices(new double[] {1.5, 10.});
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testLowLowerBoundIndices() {
+    DATA.getLowerBoundIndices(new double[] {1.5, 0.5});
+  }
+
   @Test
   public void lowerBoundValues() {
     assertEquals(10, DATA.get(DATA.getLowerBoundKey(1.5)), EPS);
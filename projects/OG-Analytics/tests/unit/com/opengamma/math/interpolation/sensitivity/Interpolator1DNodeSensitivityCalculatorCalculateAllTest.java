@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.interpolation.sensitivity;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.math.interpolation.CombinedInterpolatorExtrapolatorFactory;
+import com.opengamma.math.interpolation.Interpolator1D;
+import com.opengamma.math.interpolation.Interpolator1DFactory;
+import com.opengamma.math.interpolation.data.Interpolator1DDataBundle;
+
+/**
+ * Tests that {@link Interpolator1DNodeSensitivityCalculator#calculateAll} gives the same sensitivities as calculating them one value
+ * at a time.
+ */
+public class Interpolator1DNodeSensitivityCalculatorCalculateAllTest {
+  private static final double[] X = new double[] {1, 2, 3.5, 4, 6, 7.5, 9, 10};
+  private static final double[] Y = new double[] {0.03, 0.032, 0.031, 0.036, 0.04, 0.038, 0.042, 0.041};
+  private static final String[] INTERPOLATORS = new String[] {Interpolator1DFactory.LINEAR, Interpolator1DFactory.NATURAL_CUBIC_SPLINE, Interpolator1DFactory.DOUBLE_QUADRATIC,
+    Interpolator1DFactory.LOG_LINEAR};
+  private static final String[] EXTRAPOLATORS = new String[] {Interpolator1DFactory.FLAT_EXTRAPOLATOR, Interpolator1DFactory.LINEAR_EXTRAPOLATOR};
+  private static final double[] VALUES = new double[] {-1, 0.5, 1, 1.3, 1.3, 2, 3.9, 6, 9.99, 10, 12, 4.2, 0, 9.5, 15, 2};
+  private static final double EPS = 1e-15;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullValues() {
+    Interpolator1DNodeSensitivityCalculatorFactory.LINEAR_NODE_SENSITIVITY_CALCULATOR.calculateAll(Interpolator1DFactory.LINEAR_INSTANCE.getDataBundle(X, Y), null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testOutsideData() {
+    Interpolator1DNodeSensitivityCalculatorFactory.LINEAR_NODE_SENSITIVITY_CALCULATOR.calculateAll(Interpolator1DFactory.LINEAR_INSTANCE.getDataBundle(X, Y), VALUES);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void test() {
+    for (final String name : INTERPOLATORS) {
+      for (final String extrapolator : EXTRAPOLATORS) {
+        for (final boolean useFiniteDifference : new boolean[] {false, true}) {
+          final Interpolator1D<Interpolator1DDataBundle> interpolator = (Interpolator1D<Interpolator1DDataBundle>) CombinedInterpolatorExtrapolatorFactory.getInterpolator(name,
+              extrapolator);
+          final Interpolator1DNodeSensitivityCalculator<Interpolator1DDataBundle> calculator = (Interpolator1DNodeSensitivityCalculator<Interpolator1DDataBundle>)
+              CombinedInterpolatorExtrapolatorNodeSensitivityCalculatorFactory.getSensitivityCalculator(name, extrapolator, useFiniteDifference);
+          final Interpolator1DDataBundle data = interpolator.getDataBundle(X, Y);
+          final double[][] result = calculator.calculateAll(data, VALUES);
+          assertEquals(VALUES.length, result.length);
+          for (int i = 0; i < VALUES.length; i++) {
+            final double[] expected = calculator.calculate(data, VALUES[i]);
+            assertEquals(expected.length, result[i].length);
+            for (int j = 0; j < expected.length; j++) {
+              assertEquals(expected[j], result[i][j], EPS);
+            }
+          }
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.MersenneTwister64;
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.math.matrix.CommonsMatrixAlgebra;
+import com.opengamma.math.matrix.DoubleMatrix2D;
+import com.opengamma.math.matrix.MatrixAlgebra;
+
+/**
+ * 
+ */
+public class SparseLUDecompositionTest {
+  private static final MatrixAlgebra ALGEBRA = new CommonsMatrixAlgebra();
+  private static final SparseLUDecomposition LU = new SparseLUDecomposition();
+  private static final LUDecompositionCommons COMMONS = new LUDecompositionCommons();
+  private static final DoubleMatrix2D A = new DoubleMatrix2D(new double[][] {new double[] {1, 2, -1}, new double[] {4, 3, 1}, new double[] {2, 2, 3}});
+  private static final double EPS = 1e-9;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullMatrix() {
+    LU.evaluate((DoubleMatrix2D) null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNotSquare() {
+    LU.evaluate(new DoubleMatrix2D(new double[][] {new double[] {1, 2}}));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testSingular() {
+    LU.evaluate(new DoubleMatrix2D(new double[][] {new double[] {1, 2}, new double[] {2, 4}}));
+  }
+
+  @Test
+  public void testRecoverOriginal() {
+    final LUDecompositionResult lu = LU.evaluate(A);
+    checkEquals((DoubleMatrix2D) ALGEBRA.multiply(lu.getP(), A), (DoubleMatrix2D) ALGEBRA.multiply(lu.getL(), lu.getU()));
+    assertEquals(COMMONS.evaluate(A).getDeterminant(), lu.getDeterminant(), EPS);
+  }
+
+  @Test
+  public void testSolve() {
+    // A curve-like profile: each row depends on the columns up to one past the diagonal
+    final RandomEngine random = new MersenneTwister64(0);
+    final int n = 30;
+    final double[][] sparse = new double[n][n];
+    final double[][] dense = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        dense[i][j] = random.nextDouble() - 0.5;
+        if (j <= i + 1) {
+          sparse[i][j] = (i == j) ? 2 + random.nextDouble() : random.nextDouble() - 0.5;
+        }
+      }
+    }
+    final double[] b = new double[n];
+    for (int i = 0; i < n; i++) {
+      b[i] = random.nextDouble();
+    }
+    for (final double[][] a : new double[][][] {sparse, dense}) {
+      final DoubleMatrix2D m = new DoubleMatrix2D(a);
+      final SparseLUDecompositionResult result = LU.evaluate(m);
+      final DecompositionResult expected = COMMONS.evaluate(m);
+      final double[] x = result.solve(b);
+      final double[] y = expected.solve(b);
+      for (int i = 0; i < n; i++) {
+        assertEquals(y[i], x[i], EPS);
+      }
+      checkEquals(expected.solve(m), result.solve(m));
+      for (int i = 0; i < n; i++) {
+        double sum = 0;
+        for (int j = 0; j < n; j++) {
+          sum += a[i][j] * x[j];
+        }
+        assertEquals(b[i], sum, EPS);
+      }
+    }
+  }
+
+  private void checkEquals(final DoubleMatrix2D x, final DoubleMatrix2D y) {
+    final int n = x.getNumberOfRows();
+    final int m = x.getNumberOfColumns();
+    assertEquals(n, y.getNumberOfRows());
+    assertEquals(m, y.getNumberOfColumns());
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < m; j++) {
+        assertEquals(x.getEntry(i, j), y.getEntry(i, j), EPS);
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class BrownianBridgeTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroSteps() {
+    new BrownianBridge(0);
+  }
+
+  @Test
+  public void testOrthonormal() {
+    // Independent standard normal increments need the map to be orthonormal
+    for (int steps = 1; steps <= 17; steps++) {
+      final BrownianBridge bridge = new BrownianBridge(steps);
+      final double[][] columns = new double[steps][steps];
+      final double[] unit = new double[steps];
+      for (int i = 0; i < steps; i++) {
+        unit[i] = 1;
+        bridge.transform(unit, 0, columns[i], 0);
+        unit[i] = 0;
+      }
+      for (int i = 0; i < steps; i++) {
+        for (int j = 0; j < steps; j++) {
+          double dot = 0;
+          for (int k = 0; k < steps; k++) {
+            dot += columns[i][k] * columns[j][k];
+          }
+          assertEquals((i == j) ? 1 : 0, dot, 1e-12);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTerminalValue() {
+    final BrownianBridge bridge = new BrownianBridge(8);
+    final double[] z = new double[] {0, 0.3, -1.2, 0.5, 2.0, -0.7, 0.1, 1.1, 0.9};
+    final double[] increments = new double[10];
+    bridge.transform(z, 1, increments, 2);
+    double sum = 0;
+    for (int i = 2; i < 10; i++) {
+      sum += increments[i];
+    }
+    assertEquals(Math.sqrt(8) * 0.3, sum, 1e-12);
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class PolarNormalVariateStreamFactoryTest {
+  private static final PolarNormalVariateStreamFactory FACTORY = new PolarNormalVariateStreamFactory(1234L);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeIndex() {
+    FACTORY.getStream(-1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullArray() {
+    FACTORY.getStream(0).nextVectors(null, 1, 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testShortArray() {
+    FACTORY.getStream(0).nextVectors(new double[5], 2, 3);
+  }
+
+  @Test
+  public void testReproducible() {
+    final double[] x1 = new double[99];
+    final double[] x2 = new double[99];
+    FACTORY.getStream(3).nextVectors(x1, 33, 3);
+    // Creating other streams first doesn't change a stream
+    FACTORY.getStream(4).nextVectors(x2, 33, 3);
+    new PolarNormalVariateStreamFactory(1234L).getStream(3).nextVectors(x2, 33, 3);
+    assertTrue(Arrays.equals(x1, x2));
+    FACTORY.getStream(4).nextVectors(x2, 33, 3);
+    assertFalse(Arrays.equals(x1, x2));
+    new PolarNormalVariateStreamFactory(4321L).getStream(3).nextVectors(x2, 33, 3);
+    assertFalse(Arrays.equals(x1, x2));
+  }
+
+  @Test
+  public void testMoments() {
+    final int n = 200000;
+    final double[] x = new double[n];
+    FACTORY.getStream(0).nextVectors(x, n / 10, 10);
+    double sum = 0;
+    double sumSq = 0;
+    for (final double e : x) {
+      sum += e;
+      sumSq += e * e;
+    }
+    assertEquals(0, sum / n, 0.01);
+    assertEquals(1, sumSq / n, 0.01);
+  }
+
+  @Test
+  public void testSplitEngine() {
+    final SplitMix64RandomEngine engine = new SplitMix64RandomEngine(1);
+    engine.nextLong();
+    assertEquals(new SplitMix64RandomEngine(1).split(7).nextLong(), engine.split(7).nextLong());
+    for (int i = 0; i < 1000; i++) {
+      final double u = engine.raw();
+      assertTrue(u > 0 && u < 1);
+    }
+  }
+}
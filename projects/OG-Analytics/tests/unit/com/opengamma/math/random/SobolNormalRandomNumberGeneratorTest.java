@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class SobolNormalRandomNumberGeneratorTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroIndex() {
+    new SobolNormalRandomNumberGenerator(2, false, 0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongDimension() {
+    new SobolNormalRandomNumberGenerator(2, false).getVector(3);
+  }
+
+  @Test
+  public void testMoments() {
+    // Much closer than pseudo-random numbers would be with the same number of points
+    final int dimension = 8;
+    final int n = 4095;
+    final double[] x = new double[n * dimension];
+    new SobolNormalRandomNumberGenerator(dimension, false).nextVectors(x, n, dimension);
+    for (int d = 0; d < dimension; d++) {
+      double sum = 0;
+      double sumSq = 0;
+      for (int i = 0; i < n; i++) {
+        sum += x[i * dimension + d];
+        sumSq += x[i * dimension + d] * x[i * dimension + d];
+      }
+      assertEquals(0, sum / n, 1e-3);
+      assertEquals(1, sumSq / n, 1e-2);
+    }
+  }
+
+  @Test
+  public void testBrownianBridge() {
+    final SobolNormalRandomNumberGenerator plain = new SobolNormalRandomNumberGenerator(16, false, 100);
+    final SobolNormalRandomNumberGenerator bridged = new SobolNormalRandomNumberGenerator(16, true, 100);
+    for (int i = 0; i < 10; i++) {
+      final double[] z = plain.getVector(16);
+      final double[] increments = bridged.getVector(16);
+      double sum = 0;
+      for (final double e : increments) {
+        sum += e;
+      }
+      // The first dimension of the sequence determines the end of the path
+      assertEquals(4 * z[0], sum, 1e-12);
+    }
+  }
+
+  @Test
+  public void testStreams() {
+    final SobolNormalVariateStreamFactory factory = new SobolNormalVariateStreamFactory(10, true);
+    final double[] x = new double[30 * 4];
+    new SobolNormalRandomNumberGenerator(4, true).nextVectors(x, 30, 4);
+    final double[] y = new double[10 * 4];
+    factory.getStream(2).nextVectors(y, 10, 4);
+    assertTrue(Arrays.equals(Arrays.copyOfRange(x, 20 * 4, 30 * 4), y));
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+/**
+ * 
+ */
+public class SobolSequenceTest {
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZeroDimension() {
+    new SobolSequence(0);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDimensionTooLarge() {
+    new SobolSequence(SobolSequence.MAX_DIMENSION + 1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeIndex() {
+    new SobolSequence(2, -1);
+  }
+
+  @Test
+  public void testFirstPoints() {
+    final SobolSequence sequence = new SobolSequence(2, 0);
+    final double[] x = new double[8];
+    for (int i = 0; i < 4; i++) {
+      sequence.nextPoint(x, 2 * i);
+    }
+    assertTrue(Arrays.equals(new double[] {0, 0, 0.5, 0.5, 0.75, 0.25, 0.25, 0.75}, x));
+    assertEquals(4, sequence.getIndex());
+  }
+
+  @Test
+  public void testStratified() {
+    // Every 2^k consecutive points, from a multiple of 2^k, fall one in each interval of width 2^-k in each dimension
+    final int dimension = 60;
+    final int k = 10;
+    final int n = 1 << k;
+    final SobolSequence sequence = new SobolSequence(dimension, 3 * n);
+    final double[] x = new double[n * dimension];
+    for (int i = 0; i < n; i++) {
+      sequence.nextPoint(x, i * dimension);
+    }
+    for (int d = 0; d < dimension; d++) {
+      final boolean[] seen = new boolean[n];
+      for (int i = 0; i < n; i++) {
+        final double value = x[i * dimension + d];
+        assertTrue(value >= 0 && value < 1);
+        final int interval = (int) (value * n);
+        assertTrue("dimension " + d, !seen[interval]);
+        seen[interval] = true;
+      }
+    }
+  }
+
+  @Test
+  public void testSkip() {
+    final SobolSequence sequence = new SobolSequence(20);
+    final double[] x = new double[20];
+    for (int i = 1; i < 1000; i++) {
+      sequence.nextPoint(x, 0);
+    }
+    final double[] y = new double[20];
+    new SobolSequence(20, 999).nextPoint(y, 0);
+    assertTrue(Arrays.equals(x, y));
+  }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.math.random;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import cern.jet.random.engine.RandomEngine;
+
+import com.opengamma.math.statistics.distribution.NormalDistribution;
+
+/**
+ * 
+ */
+public class ZigguratNormalRandomNumberGeneratorTest {
+  private static final ZigguratNormalRandomNumberGenerator GENERATOR = new ZigguratNormalRandomNumberGenerator(0);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullEngine() {
+    new ZigguratNormalRandomNumberGenerator((RandomEngine) null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadDimension() {
+    GENERATOR.getVectors(-1, 4);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testShortArray() {
+    GENERATOR.nextVectors(new double[3], 2, 2);
+  }
+
+  @Test
+  public void testVectors() {
+    final List<double[]> vectors = GENERATOR.getVectors(10, 50);
+    assertEquals(50, vectors.size());
+    assertEquals(10, vectors.get(0).length);
+    final double[][] matrix = new double[3][4];
+    new ZigguratNormalRandomNumberGenerator(7).fill(matrix);
+    final double[] flat = new double[12];
+    new ZigguratNormalRandomNumberGenerator(7).nextVectors(flat, 3, 4);
+    assertTrue(Arrays.equals(Arrays.copyOfRange(flat, 4, 8), matrix[1]));
+  }
+
+  @Test
+  public void testDistribution() {
+    final int n = 1000000;
+    final double[] x = new double[n];
+    new ZigguratNormalRandomNumberGenerator(12345).nextVectors(x, n, 1);
+    final NormalDistribution normal = new NormalDistribution(0, 1);
+    final double[] bounds = new double[] {-3.5, -3, -2, -1, -0.5, 0, 0.5, 1, 2, 3, 3.5};
+    final int[] below = new int[bounds.length];
+    double sum = 0;
+    double sumSq = 0;
+    for (final double e : x) {
+      sum += e;
+      sumSq += e * e;
+      for (int i = 0; i < bounds.length; i++) {
+        if (e < bounds[i]) {
+          below[i]++;
+        }
+      }
+    }
+    assertEquals(0, sum / n, 0.005);
+    assertEquals(1, sumSq / n, 0.005);
+    for (int i = 0; i < bounds.length; i++) {
+      final double p = normal.getCDF(bounds[i]);
+      // Four standard deviations of the binomial count
+      assertEquals(p, (double) below[i] / n, 4 * Math.sqrt(p * (1 - p) / n));
+    }
+  }
+}
@@ -163,6 +163,9 @@ public interface HistoricalDataSource {
   /**
    * Finds multiple time-series for the same source, provider and field, with all data points between start and end
    * date. 
+   * <p>
+   * Implementations should load the time-series together, rather than one at a time, where the underlying
+   * storage allows it.
    * 
    * @param identifierSet  a set containing an identifier bundle for each time-series required, not null
    * @param dataSource  the data source, not null
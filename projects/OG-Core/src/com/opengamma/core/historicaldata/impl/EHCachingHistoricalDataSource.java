@@ -242,13 +242,21 @@ public class EHCachingHistoricalDataSource implements HistoricalDataSource {
       }
     }
     if (!remainingIdentifiers.isEmpty()) {
+      // Load the whole of each missing series, as for a single miss, so the results can be cached
       Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> remainingTsResults =
-        _underlying.getHistoricalData(remainingIdentifiers, dataSource, dataProvider, dataField, start, inclusiveStart, end, exclusiveEnd);
-      for (Map.Entry<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> tsResult : remainingTsResults.entrySet()) {
-        IdentifierBundle identifiers = tsResult.getKey();
-        Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> tsPair = tsResult.getValue();
-        tsPair = getSubseries(start, inclusiveStart, end, exclusiveEnd, tsPair);
-        tsPairs.put(identifiers, tsPair);
+        _underlying.getHistoricalData(remainingIdentifiers, dataSource, dataProvider, dataField, null, true, null, false);
+      for (IdentifierBundle identifiers : remainingIdentifiers) {
+        Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> tsPair = remainingTsResults.get(identifiers);
+        MetaDataKey key = new MetaDataKey(null, null, identifiers, dataSource, dataProvider, dataField);
+        if (tsPair != null && tsPair.getFirst() != null) {
+          s_logger.debug("Retrieved {} for {}", tsPair.getFirst(), identifiers);
+          _cache.put(new Element(key, tsPair.getFirst()));
+          _cache.put(new Element(tsPair.getFirst(), tsPair.getSecond()));
+        } else {
+          s_logger.debug("No data returned from underlying for {}", identifiers);
+          _cache.put(new Element(key, null));
+        }
+        tsPairs.put(identifiers, getSubseries(start, inclusiveStart, end, exclusiveEnd, tsPair));
       }
     }
     return tsPairs;
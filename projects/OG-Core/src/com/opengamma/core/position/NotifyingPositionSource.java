@@ -0,0 +1,31 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.position;
+
+import com.opengamma.util.PublicSPI;
+
+/**
+ * Trait added to those position sources that can send events whenever the portfolios, positions or trades they
+ * provide are changed.
+ */
+@PublicSPI
+public interface NotifyingPositionSource extends PositionSource {
+
+  /**
+   * Adds a listener to the source.
+   * 
+   * @param listener  the listener to add, not null
+   */
+  void addChangeListener(PositionChangeListener listener);
+
+  /**
+   * Removes a listener from the source.
+   * 
+   * @param listener  the listener to remove, not null
+   */
+  void removeChangeListener(PositionChangeListener listener);
+
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.core.position;
+
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.PublicSPI;
+
+/**
+ * Listener for changes to the portfolios, positions and trades available from a {@link NotifyingPositionSource}.
+ */
+@PublicSPI
+public interface PositionChangeListener {
+
+  /**
+   * Called when a portfolio, or the structure of its nodes, is added, updated, removed or corrected.
+   * 
+   * @param beforeId  the unique identifier of the portfolio before the change, null if it was added
+   * @param afterId  the unique identifier of the portfolio after the change, null if it was removed
+   */
+  void portfolioChanged(UniqueIdentifier beforeId, UniqueIdentifier afterId);
+
+  /**
+   * Called when a position, or one of its trades, is added, updated, removed or corrected. The identifiers are those
+   * of the underlying store, which need not be those of the positions returned by the source.
+   * 
+   * @param beforeId  the unique identifier of the position before the change, null if it was added
+   * @param afterId  the unique identifier of the position after the change, null if it was removed
+   */
+  void positionChanged(UniqueIdentifier beforeId, UniqueIdentifier afterId);
+
+}
@@ -5,11 +5,16 @@
  */
 package com.opengamma.core.position.impl;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 
+import com.opengamma.core.position.NotifyingPositionSource;
 import com.opengamma.core.position.Portfolio;
 import com.opengamma.core.position.PortfolioNode;
 import com.opengamma.core.position.Position;
+import com.opengamma.core.position.PositionChangeListener;
 import com.opengamma.core.position.Trade;
 import com.opengamma.core.position.PositionSource;
 import com.opengamma.id.UniqueIdentifier;
@@ -22,7 +27,7 @@ import com.opengamma.util.ArgumentChecker;
  * <p>
  * If no scheme-specific handler has been registered, a default is used.
  */
-public class DelegatingPositionSource extends UniqueIdentifierSchemeDelegator<PositionSource> implements PositionSource {
+public class DelegatingPositionSource extends UniqueIdentifierSchemeDelegator<PositionSource> implements NotifyingPositionSource {
 
   /**
    * Creates an instance specifying the default delegate.
@@ -68,4 +73,37 @@ public class DelegatingPositionSource extends UniqueIdentifierSchemeDelegator<Po
     return chooseDelegate(uid).getTrade(uid);
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Adds a listener to each of the underlying sources that can send events.
+   * 
+   * @param listener  the listener to add, not null
+   */
+  @Override
+  public void addChangeListener(PositionChangeListener listener) {
+    ArgumentChecker.notNull(listener, "listener");
+    for (PositionSource delegate : getAllDelegates()) {
+      if (delegate instanceof NotifyingPositionSource) {
+        ((NotifyingPositionSource) delegate).addChangeListener(listener);
+      }
+    }
+  }
+
+  @Override
+  public void removeChangeListener(PositionChangeListener listener) {
+    for (PositionSource delegate : getAllDelegates()) {
+      if (delegate instanceof NotifyingPositionSource) {
+        ((NotifyingPositionSource) delegate).removeChangeListener(listener);
+      }
+    }
+  }
+
+  private Set<PositionSource> getAllDelegates() {
+    // The same source may be registered for several schemes
+    final Set<PositionSource> delegates = Collections.newSetFromMap(new IdentityHashMap<PositionSource, Boolean>());
+    delegates.add(getDefaultDelegate());
+    delegates.addAll(getDelegates().values());
+    return delegates;
+  }
+
 }
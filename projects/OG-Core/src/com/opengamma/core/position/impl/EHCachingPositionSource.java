@@ -9,9 +9,11 @@ import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
 
+import com.opengamma.core.position.NotifyingPositionSource;
 import com.opengamma.core.position.Portfolio;
 import com.opengamma.core.position.PortfolioNode;
 import com.opengamma.core.position.Position;
+import com.opengamma.core.position.PositionChangeListener;
 import com.opengamma.core.position.Trade;
 import com.opengamma.core.position.PositionSource;
 import com.opengamma.id.UniqueIdentifier;
@@ -23,7 +25,7 @@ import com.opengamma.util.ehcache.EHCacheUtils;
  * <p>
  * The cache is implemented using {@code EHCache}.
  */
-public class EHCachingPositionSource implements PositionSource {
+public class EHCachingPositionSource implements NotifyingPositionSource {
 
   /**
    * Cache key for portfolios.
@@ -176,6 +178,29 @@ public class EHCachingPositionSource implements PositionSource {
     }
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Adds a listener to the underlying source, if it can send events. Only specific versions are cached so the cache
+   * does not need to be invalidated by changes.
+   * 
+   * @param listener  the listener to add, not null
+   */
+  @Override
+  public void addChangeListener(PositionChangeListener listener) {
+    ArgumentChecker.notNull(listener, "listener");
+    if (getUnderlying() instanceof NotifyingPositionSource) {
+      ((NotifyingPositionSource) getUnderlying()).addChangeListener(listener);
+    }
+  }
+
+  @Override
+  public void removeChangeListener(PositionChangeListener listener) {
+    if (getUnderlying() instanceof NotifyingPositionSource) {
+      ((NotifyingPositionSource) getUnderlying()).removeChangeListener(listener);
+    }
+  }
+
+  //-------------------------------------------------------------------------
   /**
    * Call this at the end of a unit test run to clear the state of EHCache.
    * It should not be part of a generic lifecycle method.
@@ -10,6 +10,8 @@ import java.io.Serializable;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.text.StrBuilder;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.security.Security;
 import com.opengamma.core.security.SecuritySource;
@@ -29,6 +31,11 @@ import com.opengamma.util.PublicAPI;
 @PublicAPI
 public final class ComputationTargetSpecification implements Serializable {
 
+  /**
+   * The canonical instances.
+   */
+  private static final Interner<ComputationTargetSpecification> s_interner = Interners.newWeakInterner();
+
   /**
    * The type of the target.
    */
@@ -37,6 +44,10 @@ public final class ComputationTargetSpecification implements Serializable {
    * The identifier of the target.
    */
   private final UniqueIdentifier _uniqueId;
+  /**
+   * The hash code, calculated on first use.
+   */
+  private transient volatile int _hashCode;
 
   /**
    * Construct a specification that refers to the specified object.
@@ -151,22 +162,36 @@ public final class ComputationTargetSpecification implements Serializable {
     }
     if (obj instanceof ComputationTargetSpecification) {
       ComputationTargetSpecification other = (ComputationTargetSpecification) obj;
-      return _type == other._type && ObjectUtils.equals(_uniqueId, other._uniqueId);
+      return _type == other._type && hashCode() == other.hashCode() && ObjectUtils.equals(_uniqueId, other._uniqueId);
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    final int prime = 31;
-    int result = 1;
-    result = prime * result + _type.hashCode();
-    if (_uniqueId != null) {
-      result = prime * result + _uniqueId.hashCode();
+    int result = _hashCode;
+    if (result == 0) {
+      final int prime = 31;
+      result = 1;
+      result = prime * result + _type.hashCode();
+      if (_uniqueId != null) {
+        result = prime * result + _uniqueId.hashCode();
+      }
+      _hashCode = result;
     }
     return result;
   }
 
+  /**
+   * Returns the canonical instance of this specification. Equal specifications interned by
+   * this method share one instance, which can then be compared by reference.
+   * 
+   * @return the canonical instance, not null
+   */
+  public ComputationTargetSpecification intern() {
+    return s_interner.intern(this);
+  }
+
   @Override
   public String toString() {
     return new StrBuilder()
@@ -17,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.lang.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -302,24 +303,7 @@ public class DependencyGraph {
       _allRequiredLiveData.add(liveData);
     }
     _allComputationTargets.add(node.getComputationTarget());
-
-    for (ValueSpecification output : node.getOutputValues()) {
-      final DependencyNode previous = _specification2DependencyNode.put(output, node);
-      if (previous != null) {
-        throw new IllegalStateException("Node producing " + output + " already in the graph (" + previous + ")");
-      }
-      Map<ComputationTargetSpecification, List<Pair<DependencyNode, ValueSpecification>>> targets = _valueRequirement2Specifications.get(output.getValueName());
-      if (targets == null) {
-        targets = new HashMap<ComputationTargetSpecification, List<Pair<DependencyNode, ValueSpecification>>>();
-        _valueRequirement2Specifications.put(output.getValueName(), targets);
-      }
-      List<Pair<DependencyNode, ValueSpecification>> values = targets.get(output.getTargetSpecification());
-      if (values == null) {
-        values = new LinkedList<Pair<DependencyNode, ValueSpecification>>();
-        targets.put(output.getTargetSpecification(), values);
-      }
-      values.add(Pair.of(node, output));
-    }
+    indexOutputValues(node);
 
     Set<DependencyNode> nodesByType = _computationTargetType2DependencyNode.get(node.getComputationTarget().getType());
     if (nodesByType == null) {
@@ -347,6 +331,48 @@ public class DependencyGraph {
     }
   }
 
+  private void indexOutputValues(final DependencyNode node) {
+    for (ValueSpecification output : node.getOutputValues()) {
+      indexOutputValue(node, output);
+    }
+  }
+
+  private void indexOutputValue(final DependencyNode node, final ValueSpecification output) {
+    final DependencyNode previous = _specification2DependencyNode.put(output, node);
+    if (previous != null) {
+      throw new IllegalStateException("Node producing " + output + " already in the graph (" + previous + ")");
+    }
+    Map<ComputationTargetSpecification, List<Pair<DependencyNode, ValueSpecification>>> targets = _valueRequirement2Specifications.get(output.getValueName());
+    if (targets == null) {
+      targets = new HashMap<ComputationTargetSpecification, List<Pair<DependencyNode, ValueSpecification>>>();
+      _valueRequirement2Specifications.put(output.getValueName(), targets);
+    }
+    List<Pair<DependencyNode, ValueSpecification>> values = targets.get(output.getTargetSpecification());
+    if (values == null) {
+      values = new LinkedList<Pair<DependencyNode, ValueSpecification>>();
+      targets.put(output.getTargetSpecification(), values);
+    }
+    values.add(Pair.of(node, output));
+  }
+
+  /**
+   * Replaces the value specifications held by the graph and its nodes with their canonical instances so that each
+   * value is held once. Call this when the graph is complete; graph construction does not intern the values it
+   * adds.
+   */
+  public void internValueSpecifications() {
+    _outputSpecifications.clear();
+    _terminalOutputValues.clear();
+    _specification2DependencyNode.clear();
+    _valueRequirement2Specifications.clear();
+    for (DependencyNode node : _dependencyNodes) {
+      node.internValueSpecifications();
+      _outputSpecifications.addAll(node.getOutputValues());
+      _terminalOutputValues.addAll(node.getTerminalOutputValues());
+      indexOutputValues(node);
+    }
+  }
+
   /**
    * Removes a node from the graph.
    * 
@@ -408,6 +434,96 @@ public class DependencyGraph {
     _terminalOutputValues.add(terminalOutput);
   }
 
+  /**
+   * Moves the nodes of another graph, built independently for the same configuration, into this one. A node
+   * whose outputs are all produced by nodes already in this graph is discarded; any that are only partly
+   * produced keep their other outputs, and are folded into the existing node if it executes the same function
+   * on the same target. Nodes that consumed the discarded outputs are rewired to the existing
+   * producers. Nodes left with no dependents will be removed by {@link #removeUnnecessaryValues}.
+   * <p>
+   * The nodes are taken rather than copied so the other graph must not be used afterwards.
+   *
+   * @param graph the graph to merge into this one, not {@code null}
+   */
+  public void mergeDependencyGraph(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    final List<DependencyNode> inputNodes = new ArrayList<DependencyNode>();
+    final List<ValueSpecification> inputValues = new ArrayList<ValueSpecification>();
+    final List<ValueSpecification> duplicateOutputs = new ArrayList<ValueSpecification>();
+    for (DependencyNode node : graph.getExecutionOrder()) {
+      // Input nodes come earlier in the execution order so their outputs will already be in this graph
+      inputNodes.clear();
+      inputValues.clear();
+      for (ValueSpecification inputValue : node.getInputValues()) {
+        final DependencyNode inputNode = _specification2DependencyNode.get(inputValue);
+        if (inputNode == null) {
+          throw new IllegalStateException("No node producing " + inputValue + " for " + node);
+        }
+        inputNodes.add(inputNode);
+        inputValues.add(inputValue);
+      }
+      node.clearInputs();
+      duplicateOutputs.clear();
+      for (ValueSpecification outputValue : node.getOutputValues()) {
+        if (_specification2DependencyNode.containsKey(outputValue)) {
+          duplicateOutputs.add(outputValue);
+        }
+      }
+      if (duplicateOutputs.size() == node.getOutputValues().size()) {
+        s_logger.debug("Discarding {} - outputs already in graph", node);
+        continue;
+      }
+      for (ValueSpecification duplicateOutput : duplicateOutputs) {
+        node.removeOutputValue(duplicateOutput);
+      }
+      final DependencyNode existingNode = findSameFunction(node, duplicateOutputs);
+      if (existingNode != null) {
+        // Don't execute the same function on the same target twice; the existing node produces the other outputs too
+        s_logger.debug("Merging {} into {}", node, existingNode);
+        for (int i = 0; i < inputNodes.size(); i++) {
+          if (!existingNode.hasInputValue(inputValues.get(i))) {
+            existingNode.addInputNode(inputNodes.get(i));
+            existingNode.addInputValue(inputValues.get(i));
+            _rootNodes.remove(inputNodes.get(i));
+          }
+        }
+        for (ValueSpecification outputValue : node.getOutputValues()) {
+          existingNode.addOutputValue(outputValue);
+          _outputSpecifications.add(outputValue);
+          indexOutputValue(existingNode, outputValue);
+        }
+        continue;
+      }
+      for (int i = 0; i < inputNodes.size(); i++) {
+        node.addInputNode(inputNodes.get(i));
+        node.addInputValue(inputValues.get(i));
+      }
+      addDependencyNode(node);
+    }
+    for (ValueSpecification terminalOutput : graph.getTerminalOutputSpecifications()) {
+      addTerminalOutputValue(terminalOutput);
+    }
+  }
+
+  /**
+   * Finds a node already in this graph that executes the same function on the same target as a node being merged.
+   *
+   * @param node the node being merged
+   * @param duplicateOutputs the outputs of the node already produced by this graph
+   * @return the existing node, null if none
+   */
+  private DependencyNode findSameFunction(final DependencyNode node, final Collection<ValueSpecification> duplicateOutputs) {
+    for (ValueSpecification duplicateOutput : duplicateOutputs) {
+      final DependencyNode existingNode = _specification2DependencyNode.get(duplicateOutput);
+      if (existingNode.getComputationTarget().equals(node.getComputationTarget())
+          && existingNode.getFunction().getFunction().getFunctionDefinition().getUniqueId().equals(node.getFunction().getFunction().getFunctionDefinition().getUniqueId())
+          && ObjectUtils.equals(existingNode.getFunction().getParameters(), node.getFunction().getParameters())) {
+        return existingNode;
+      }
+    }
+    return null;
+  }
+
   /**
    * Go through the entire graph and remove any output values that
    * aren't actually consumed.
@@ -516,6 +632,49 @@ public class DependencyGraph {
     return subGraph;
   }
 
+  /**
+   * Creates a copy of part of the graph using new node instances, so that the copy can be modified without affecting
+   * this graph. A node is only copied if the filter accepts it and all of its input nodes are also copied.
+   *
+   * @param filter tells whether to include a node or not
+   * @return the copy
+   */
+  public DependencyGraph copy(DependencyNodeFilter filter) {
+    final DependencyGraph copy = new DependencyGraph(getCalculationConfigurationName());
+    final Map<DependencyNode, DependencyNode> copies = new HashMap<DependencyNode, DependencyNode>();
+    for (DependencyNode node : getExecutionOrder()) {
+      if (!filter.accept(node)) {
+        continue;
+      }
+      // Input nodes come earlier in the execution order so will already have been copied if they are included
+      boolean inputsCopied = true;
+      for (DependencyNode inputNode : node.getInputNodes()) {
+        if (!copies.containsKey(inputNode)) {
+          inputsCopied = false;
+          break;
+        }
+      }
+      if (!inputsCopied) {
+        continue;
+      }
+      final DependencyNode nodeCopy = new DependencyNode(node.getComputationTarget());
+      nodeCopy.setFunction(node.getFunction());
+      nodeCopy.addOutputValues(node.getOutputValues());
+      for (ValueSpecification terminalOutput : node.getTerminalOutputValues()) {
+        nodeCopy.addTerminalOutputValue(terminalOutput);
+      }
+      for (DependencyNode inputNode : node.getInputNodes()) {
+        nodeCopy.addInputNode(copies.get(inputNode));
+      }
+      for (ValueSpecification inputValue : node.getInputValues()) {
+        nodeCopy.addInputValue(inputValue);
+      }
+      copy.addDependencyNode(nodeCopy);
+      copies.put(node, nodeCopy);
+    }
+    return copy;
+  }
+
   @Override
   public String toString() {
     return "DependencyGraph[calcConf=" + getCalculationConfigurationName() + ",size=" + getSize() + "]";
@@ -45,6 +45,7 @@ public class DependencyGraphBuilder {
   private FunctionCompilationContext _compilationContext;
   // State:
   private DependencyGraph _graph;
+  private final Set<ValueRequirement> _missingLiveData = new HashSet<ValueRequirement>();
 
   /**
    * @return the calculationConfigurationName
@@ -61,6 +62,18 @@ public class DependencyGraphBuilder {
     _graph = new DependencyGraph(_calculationConfigurationName);
   }
 
+  /**
+   * Replaces the graph being built, for example to add targets to a partial copy of a previously built graph. This
+   * must be called after setting the calculation configuration name.
+   *
+   * @param graph the graph to add targets to, not {@code null}
+   */
+  public void setDependencyGraph(DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    ArgumentChecker.isTrue(graph.getCalculationConfigurationName().equals(getCalculationConfigurationName()), "graph is for a different calculation configuration");
+    _graph = graph;
+  }
+
   /**
    * @return the liveDataAvailabilityProvider
    */
@@ -117,6 +130,47 @@ public class DependencyGraphBuilder {
     _compilationContext = compilationContext;
   }
 
+  /**
+   * Creates a builder with the same inputs as this one but its own, initially empty, graph. Targets can be added to
+   * separate partitions from different threads at the same time and the partial graphs combined afterwards with
+   * {@link #addPartition}. Each partition has its own copy of the function compilation context.
+   *
+   * @return the new builder
+   */
+  public DependencyGraphBuilder createPartition() {
+    final DependencyGraphBuilder partition = new DependencyGraphBuilder();
+    partition.setCalculationConfigurationName(getCalculationConfigurationName());
+    partition.setLiveDataAvailabilityProvider(getLiveDataAvailabilityProvider());
+    partition.setTargetResolver(getTargetResolver());
+    partition.setFunctionResolver(getFunctionResolver());
+    if (getCompilationContext() != null) {
+      partition.setCompilationContext(getCompilationContext().clone());
+    }
+    return partition;
+  }
+
+  /**
+   * Merges the graph from a builder returned by {@link #createPartition} into this one. The partition must not be
+   * used afterwards.
+   *
+   * @param partition the partition to merge, not {@code null}
+   */
+  public void addPartition(final DependencyGraphBuilder partition) {
+    ArgumentChecker.notNull(partition, "partition");
+    _graph.mergeDependencyGraph(partition._graph);
+    _missingLiveData.addAll(partition._missingLiveData);
+  }
+
+  /**
+   * Returns the requirements met by neither live data nor any function while building the graph. If live data for
+   * one of these becomes available then rebuilding the graph may satisfy targets that failed.
+   *
+   * @return the requirements, not {@code null}
+   */
+  public Set<ValueRequirement> getMissingLiveDataRequirements() {
+    return Collections.unmodifiableSet(_missingLiveData);
+  }
+
   protected void checkInjectedInputs() {
     ArgumentChecker.notNullInjected(getLiveDataAvailabilityProvider(), "liveDataAvailabilityProvider");
     ArgumentChecker.notNullInjected(getFunctionResolver(), "functionResolver");
@@ -193,6 +247,10 @@ public class DependencyGraphBuilder {
     // Find functions that can do this
     final DependencyNode node = createDependencyNode(target, dependent);
     final Iterator<Pair<ParameterizedFunction, ValueSpecification>> itr = getFunctionResolver().resolveFunction(requirement, node);
+    if ((existingNodes == null) && !itr.hasNext()) {
+      s_logger.debug("Live data {} not available", requirement);
+      _missingLiveData.add(requirement);
+    }
     resolutionState.setLazyPopulator(new ResolutionState.LazyPopulator() {
 
       private DependencyNode _node = node;
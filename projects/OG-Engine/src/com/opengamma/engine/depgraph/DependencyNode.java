@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.depgraph;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -162,6 +163,11 @@ public class DependencyNode {
     _outputValues.clear();
   }
 
+  /* package */void removeOutputValue(final ValueSpecification outputValue) {
+    _outputValues.remove(outputValue);
+    _terminalOutputValues.remove(outputValue);
+  }
+
   /* package */void clearInputs() {
     for (DependencyNode inputNode : _inputNodes) {
       inputNode._dependentNodes.remove(this);
@@ -175,6 +181,28 @@ public class DependencyNode {
     _inputValues.add(inputValue);
   }
 
+  /**
+   * Replaces the input and output values with their canonical instances. This is done once the graph is complete
+   * rather than as values are added, to keep the interning locks out of concurrent graph construction.
+   */
+  /* package */void internValueSpecifications() {
+    internValueSpecifications(_inputValues);
+    internValueSpecifications(_outputValues);
+    internValueSpecifications(_terminalOutputValues);
+  }
+
+  private static void internValueSpecifications(final Set<ValueSpecification> values) {
+    if (values.isEmpty()) {
+      return;
+    }
+    final ValueSpecification[] interned = values.toArray(new ValueSpecification[values.size()]);
+    for (int i = 0; i < interned.length; i++) {
+      interned[i] = interned[i].intern();
+    }
+    values.clear();
+    values.addAll(Arrays.asList(interned));
+  }
+
   /**
    * Returns the set of output values produced by this node.
    * 
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+
+import javax.time.Instant;
+
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeBuilder;
+import org.fudgemsg.mapping.FudgeBuilderFor;
+import org.fudgemsg.mapping.FudgeDeserializationContext;
+import org.fudgemsg.mapping.FudgeSerializationContext;
+import org.fudgemsg.types.IndicatorType;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.id.UniqueIdentifier;
+
+/**
+ * Fudge message builder for {@link ColumnarViewComputationResultModel}. The dictionaries are written once and the
+ * row columns as primitive arrays; only the non-scalar values are written as individual fields. The message always
+ * carries its class header so that it is decoded by this builder when read as a {@link ViewComputationResultModel}.
+ */
+@FudgeBuilderFor(ColumnarViewComputationResultModel.class)
+public class ColumnarViewComputationResultModelBuilder implements FudgeBuilder<ColumnarViewComputationResultModel> {
+
+  private static final String FIELD_VIEWPROCESSID = "viewProcessId";
+  private static final String FIELD_VIEWCYCLEID = "viewCycleId";
+  private static final String FIELD_VALUATIONTS = "valuationTS";
+  private static final String FIELD_RESULTTS = "resultTS";
+  private static final String FIELD_CONFIGURATION = "configuration";
+  private static final String FIELD_TARGET = "target";
+  private static final String FIELD_PORTFOLIOTARGETS = "portfolioTargets";
+  private static final String FIELD_VALUENAME = "valueName";
+  private static final String FIELD_PROPERTIES = "properties";
+  private static final String FIELD_CONFIGURATIONINDEX = "configurationIndex";
+  private static final String FIELD_TARGETINDEX = "targetIndex";
+  private static final String FIELD_VALUENAMEINDEX = "valueNameIndex";
+  private static final String FIELD_PROPERTIESINDEX = "propertiesIndex";
+  private static final String FIELD_DOUBLEVALUES = "doubleValues";
+  private static final String FIELD_OBJECTROWS = "objectRows";
+  private static final String FIELD_OBJECTVALUE = "objectValue";
+  private static final String FIELD_LIVEDATA = "liveData";
+
+  @Override
+  public MutableFudgeMsg buildMessage(final FudgeSerializationContext context, final ColumnarViewComputationResultModel resultModel) {
+    final MutableFudgeMsg message = context.newMessage();
+    // Readers ask for a ViewComputationResultModel, e.g. the REST client, so must be told which form this is
+    FudgeSerializationContext.addClassHeader(message, ColumnarViewComputationResultModel.class);
+    message.add(FIELD_VIEWPROCESSID, resultModel.getViewProcessId());
+    message.add(FIELD_VIEWCYCLEID, resultModel.getViewCycleId());
+    message.add(FIELD_VALUATIONTS, resultModel.getValuationTime());
+    message.add(FIELD_RESULTTS, resultModel.getResultTimestamp());
+    for (String configuration : resultModel.getCalculationConfigurationNames()) {
+      message.add(FIELD_CONFIGURATION, configuration);
+    }
+    final Collection<ComputationTargetSpecification> targets = resultModel.getAllTargets();
+    final int[] portfolioTargets = new int[targets.size()];
+    int portfolioTargetCount = 0;
+    int targetIndex = 0;
+    for (ComputationTargetSpecification target : targets) {
+      context.addToMessage(message, FIELD_TARGET, null, target);
+      if (resultModel.isPortfolioTarget(targetIndex)) {
+        portfolioTargets[portfolioTargetCount++] = targetIndex;
+      }
+      targetIndex++;
+    }
+    message.add(FIELD_PORTFOLIOTARGETS, Arrays.copyOf(portfolioTargets, portfolioTargetCount));
+    for (int i = 0; i < resultModel.getValueNameCount(); i++) {
+      message.add(FIELD_VALUENAME, resultModel.getValueName(i));
+    }
+    for (int i = 0; i < resultModel.getValuePropertiesCount(); i++) {
+      context.addToMessage(message, FIELD_PROPERTIES, null, resultModel.getValueProperties(i));
+    }
+    final int rowCount = resultModel.getRowCount();
+    final int[] configurationIndex = new int[rowCount];
+    final int[] targetIndices = new int[rowCount];
+    final int[] valueNameIndex = new int[rowCount];
+    final int[] propertiesIndex = new int[rowCount];
+    int scalarCount = 0;
+    for (int row = 0; row < rowCount; row++) {
+      configurationIndex[row] = resultModel.getConfigurationIndex(row);
+      targetIndices[row] = resultModel.getTargetIndex(row);
+      valueNameIndex[row] = resultModel.getValueNameIndex(row);
+      propertiesIndex[row] = resultModel.getValuePropertiesIndex(row);
+      if (resultModel.isScalar(row)) {
+        scalarCount++;
+      }
+    }
+    final double[] doubleValues = new double[scalarCount];
+    final int[] objectRows = new int[rowCount - scalarCount];
+    for (int row = 0, scalar = 0, object = 0; row < rowCount; row++) {
+      if (resultModel.isScalar(row)) {
+        doubleValues[scalar++] = resultModel.getDoubleValue(row);
+      } else {
+        objectRows[object++] = row;
+        final Object value = resultModel.getValue(row);
+        if (value != null) {
+          context.addToMessageWithClassHeaders(message, FIELD_OBJECTVALUE, null, value);
+        } else {
+          message.add(FIELD_OBJECTVALUE, IndicatorType.INSTANCE);
+        }
+      }
+    }
+    message.add(FIELD_CONFIGURATIONINDEX, configurationIndex);
+    message.add(FIELD_TARGETINDEX, targetIndices);
+    message.add(FIELD_VALUENAMEINDEX, valueNameIndex);
+    message.add(FIELD_PROPERTIESINDEX, propertiesIndex);
+    message.add(FIELD_DOUBLEVALUES, doubleValues);
+    message.add(FIELD_OBJECTROWS, objectRows);
+    final MutableFudgeMsg liveDataMsg = context.newMessage();
+    for (ComputedValue value : resultModel.getAllLiveData()) {
+      context.addToMessage(liveDataMsg, null, 1, value);
+    }
+    message.add(FIELD_LIVEDATA, liveDataMsg);
+    return message;
+  }
+
+  @Override
+  public ColumnarViewComputationResultModel buildObject(final FudgeDeserializationContext context, final FudgeMsg message) {
+    final ColumnarViewComputationResultModel resultModel = new ColumnarViewComputationResultModel();
+    resultModel.setViewProcessId(message.getValue(UniqueIdentifier.class, FIELD_VIEWPROCESSID));
+    resultModel.setViewCycleId(message.getValue(UniqueIdentifier.class, FIELD_VIEWCYCLEID));
+    resultModel.setValuationTime(message.getFieldValue(Instant.class, message.getByName(FIELD_VALUATIONTS)));
+    resultModel.setResultTimestamp(message.getFieldValue(Instant.class, message.getByName(FIELD_RESULTTS)));
+    // The dictionaries are written without duplicates so are numbered the same on reading
+    for (FudgeField field : message.getAllByName(FIELD_CONFIGURATION)) {
+      resultModel.addCalculationConfiguration(message.getFieldValue(String.class, field));
+    }
+    for (FudgeField field : message.getAllByName(FIELD_TARGET)) {
+      resultModel.addTarget(context.fieldValueToObject(ComputationTargetSpecification.class, field));
+    }
+    for (int target : context.fieldValueToObject(int[].class, message.getByName(FIELD_PORTFOLIOTARGETS))) {
+      resultModel.addPortfolioTarget(target);
+    }
+    for (FudgeField field : message.getAllByName(FIELD_VALUENAME)) {
+      resultModel.addValueName(message.getFieldValue(String.class, field));
+    }
+    for (FudgeField field : message.getAllByName(FIELD_PROPERTIES)) {
+      resultModel.addValueProperties(context.fieldValueToObject(ValueProperties.class, field));
+    }
+    final int[] configurationIndex = context.fieldValueToObject(int[].class, message.getByName(FIELD_CONFIGURATIONINDEX));
+    final int[] targetIndex = context.fieldValueToObject(int[].class, message.getByName(FIELD_TARGETINDEX));
+    final int[] valueNameIndex = context.fieldValueToObject(int[].class, message.getByName(FIELD_VALUENAMEINDEX));
+    final int[] propertiesIndex = context.fieldValueToObject(int[].class, message.getByName(FIELD_PROPERTIESINDEX));
+    final double[] doubleValues = context.fieldValueToObject(double[].class, message.getByName(FIELD_DOUBLEVALUES));
+    final int[] objectRows = context.fieldValueToObject(int[].class, message.getByName(FIELD_OBJECTROWS));
+    final Iterator<FudgeField> objectValue = message.getAllByName(FIELD_OBJECTVALUE).iterator();
+    for (int row = 0, scalar = 0, object = 0; row < configurationIndex.length; row++) {
+      if ((object < objectRows.length) && (objectRows[object] == row)) {
+        final FudgeField field = objectValue.next();
+        final Object value = (field.getValue() instanceof IndicatorType) ? null : context.fieldValueToObject(field);
+        resultModel.addValue(configurationIndex[row], targetIndex[row], valueNameIndex[row], propertiesIndex[row], value);
+        object++;
+      } else {
+        resultModel.addValue(configurationIndex[row], targetIndex[row], valueNameIndex[row], propertiesIndex[row], doubleValues[scalar++]);
+      }
+    }
+    for (FudgeField field : message.getFieldValue(FudgeMsg.class, message.getByName(FIELD_LIVEDATA))) {
+      resultModel.addLiveData(context.fieldValueToObject(ComputedValue.class, field));
+    }
+    return resultModel;
+  }
+
+}
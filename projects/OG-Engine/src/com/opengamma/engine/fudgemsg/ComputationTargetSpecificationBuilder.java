@@ -53,7 +53,7 @@ public class ComputationTargetSpecificationBuilder implements FudgeBuilder<Compu
       FudgeField fudgeField = message.getByName(IDENTIFIER_FIELD_NAME);
       uid = context.fieldValueToObject(UniqueIdentifier.class, fudgeField);
     }
-    return new ComputationTargetSpecification(type, uid);
+    return new ComputationTargetSpecification(type, uid).intern();
   }
 
   @Override
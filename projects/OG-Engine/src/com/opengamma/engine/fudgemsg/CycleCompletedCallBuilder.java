@@ -35,7 +35,10 @@ public class CycleCompletedCallBuilder implements FudgeBuilder<CycleCompletedCal
     if (fullResult == null && deltaResult == null) {
       throw new OpenGammaRuntimeException("Unexpectedly useless CycleCompletedCall");
     }
-    context.addToMessage(msg, FULL_RESULT_FIELD, null, fullResult);
+    if (fullResult != null) {
+      // Class headers let an implementation with its own builder, such as the columnar model, be read back
+      context.addToMessageWithClassHeaders(msg, FULL_RESULT_FIELD, null, fullResult, ViewComputationResultModel.class);
+    }
     context.addToMessage(msg, DELTA_RESULT_FIELD, null, deltaResult);
     return msg;
   }
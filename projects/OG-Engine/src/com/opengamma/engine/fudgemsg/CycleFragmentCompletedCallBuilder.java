@@ -0,0 +1,39 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.mapping.FudgeBuilder;
+import org.fudgemsg.mapping.FudgeBuilderFor;
+import org.fudgemsg.mapping.FudgeDeserializationContext;
+import org.fudgemsg.mapping.FudgeSerializationContext;
+
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.listener.CycleFragmentCompletedCall;
+
+/**
+ * Fudge message builder for {@link CycleFragmentCompletedCall}
+ */
+@FudgeBuilderFor(CycleFragmentCompletedCall.class)
+public class CycleFragmentCompletedCallBuilder implements FudgeBuilder<CycleFragmentCompletedCall> {
+
+  private static final String FRAGMENT_RESULT_FIELD = "fragmentResult";
+
+  @Override
+  public MutableFudgeMsg buildMessage(FudgeSerializationContext context, CycleFragmentCompletedCall object) {
+    MutableFudgeMsg msg = context.newMessage();
+    context.addToMessageWithClassHeaders(msg, FRAGMENT_RESULT_FIELD, null, object.getFragmentResult(), ViewComputationResultModel.class);
+    return msg;
+  }
+
+  @Override
+  public CycleFragmentCompletedCall buildObject(FudgeDeserializationContext context, FudgeMsg msg) {
+    ViewComputationResultModel fragmentResult = context.fieldValueToObject(ViewComputationResultModel.class, msg.getByName(FRAGMENT_RESULT_FIELD));
+    return new CycleFragmentCompletedCall(fragmentResult);
+  }
+
+}
@@ -101,7 +101,7 @@ public class ValuePropertiesBuilder implements FudgeBuilder<ValueProperties> {
       for (FudgeField fudgeField : withoutMessage) {
         ret = ret.withoutAny((String) fudgeField.getValue());
       }
-      return ret;
+      return ret.intern();
     }
 
     FudgeMsg withMessage = message.getMessage(WITH_FIELD);
@@ -136,7 +136,7 @@ public class ValuePropertiesBuilder implements FudgeBuilder<ValueProperties> {
         }
       }
     }
-    return builder.get();
+    return builder.get().intern();
   }
 
 }
@@ -53,7 +53,7 @@ public class ValueSpecificationBuilder implements FudgeBuilder<ValueSpecificatio
     fudgeField = message.getByName(PROPERTIES_KEY);
     Validate.notNull(fudgeField, "Fudge message is not a ValueSpecification - field '" + PROPERTIES_KEY + "' is not present");
     final ValueProperties properties = context.fieldValueToObject(ValueProperties.class, fudgeField);
-    return new ValueSpecification(valueName, targetSpecification, properties);
+    return new ValueSpecification(valueName, targetSpecification, properties).intern();
   }
 
 }
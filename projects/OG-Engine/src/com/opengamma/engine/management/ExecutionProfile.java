@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.management;
+
+import java.util.Set;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.view.calc.stats.CriticalPath;
+import com.opengamma.engine.view.calc.stats.ExecutionProfiler;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.LatencyHistogram;
+
+/**
+ * An MBean implementation for those attributes and operations we wish to expose on an {@link ExecutionProfiler}.
+ */
+public class ExecutionProfile implements ExecutionProfileMBean {
+
+  private final ExecutionProfiler _profiler;
+
+  private final ObjectName _objectName;
+
+  /**
+   * Create a management ExecutionProfile
+   * 
+   * @param profiler  the profiler
+   * @param viewProcessorId  the view processor identifier
+   */
+  public ExecutionProfile(ExecutionProfiler profiler, UniqueIdentifier viewProcessorId) {
+    ArgumentChecker.notNull(profiler, "profiler");
+    ArgumentChecker.notNull(viewProcessorId, "viewProcessorId");
+    _profiler = profiler;
+    _objectName = createObjectName(viewProcessorId);
+  }
+
+  /**
+   * Creates an object name using the scheme "com.opengamma:type=ExecutionProfile,ViewProcessor=<viewProcessorName>"
+   */
+  static ObjectName createObjectName(UniqueIdentifier viewProcessorId) {
+    ObjectName objectName;
+    try {
+      objectName = new ObjectName("com.opengamma:type=ExecutionProfile,ViewProcessor=ViewProcessor " + viewProcessorId.getValue());
+    } catch (MalformedObjectNameException e) {
+      throw new OpenGammaRuntimeException("", e);
+    }
+    return objectName;
+  }
+
+  @Override
+  public Set<String> getFunctionIds() {
+    return _profiler.getFunctionIds();
+  }
+
+  @Override
+  public Set<String> getComputeNodeIds() {
+    return _profiler.getComputeNodeIds();
+  }
+
+  @Override
+  public Long getFunctionLatency(String functionId, double percentile) {
+    final LatencyHistogram histogram = _profiler.getFunctionLatency(functionId);
+    return histogram != null ? histogram.getValueAtPercentile(percentile) : null;
+  }
+
+  @Override
+  public Long getComputeNodeLatency(String computeNodeId, double percentile) {
+    final LatencyHistogram histogram = _profiler.getComputeNodeLatency(computeNodeId);
+    return histogram != null ? histogram.getValueAtPercentile(percentile) : null;
+  }
+
+  @Override
+  public Long getCriticalPathCount(String functionId) {
+    final LatencyHistogram histogram = _profiler.getCriticalFunctionLatency(functionId);
+    return histogram != null ? histogram.getCount() : 0;
+  }
+
+  @Override
+  public String getCriticalPath(String viewProcessId, String calcConfigName) {
+    final CriticalPath criticalPath = _profiler.getCriticalPath(UniqueIdentifier.parse(viewProcessId), calcConfigName);
+    return criticalPath != null ? criticalPath.toString() : null;
+  }
+
+  @Override
+  public String dump() {
+    return _profiler.dump();
+  }
+
+  @Override
+  public void reset() {
+    _profiler.reset();
+  }
+
+  /**
+   * Gets the objectName field.
+   * 
+   * @return the object name for this MBean
+   */
+  public ObjectName getObjectName() {
+    return _objectName;
+  }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.management;
+
+import java.util.Set;
+
+/**
+ * A management bean for an ExecutionProfiler
+ *
+ */
+public interface ExecutionProfileMBean {
+
+  /**
+   * Gets the identifiers of the functions that have been invoked.
+   * 
+   * @return the function identifiers, not null
+   */
+  Set<String> getFunctionIds();
+
+  /**
+   * Gets the identifiers of the calculation nodes that have executed jobs.
+   * 
+   * @return the node identifiers, not null
+   */
+  Set<String> getComputeNodeIds();
+
+  /**
+   * Gets a percentile of the invocation latencies of a function.
+   * 
+   * @param functionId the function identifier
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency in nanoseconds, null if the function has not been invoked
+   */
+  Long getFunctionLatency(String functionId, double percentile);
+
+  /**
+   * Gets a percentile of the execution latencies of jobs on a calculation node.
+   * 
+   * @param computeNodeId the node identifier
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency in nanoseconds, null if the node has not executed any jobs
+   */
+  Long getComputeNodeLatency(String computeNodeId, double percentile);
+
+  /**
+   * Gets the number of graph executions a function has been on the critical path of.
+   * 
+   * @param functionId the function identifier
+   * @return the count
+   */
+  Long getCriticalPathCount(String functionId);
+
+  /**
+   * Describes the critical path of the most recent execution of a dependency graph.
+   * 
+   * @param viewProcessId the view process identifier
+   * @param calcConfigName the calculation configuration name
+   * @return the critical path, null if none has been recorded
+   */
+  String getCriticalPath(String viewProcessId, String calcConfigName);
+
+  /**
+   * Writes the whole profile in a form that can be compared between runs.
+   * 
+   * @return the profile
+   */
+  String dump();
+
+  /**
+   * Discards all recorded latencies and critical paths.
+   */
+  void reset();
+
+}
@@ -22,6 +22,7 @@ import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.view.ViewProcess;
 import com.opengamma.engine.view.ViewProcessInternal;
 import com.opengamma.engine.view.ViewProcessorImpl;
+import com.opengamma.engine.view.calc.stats.ExecutionProfiler;
 import com.opengamma.engine.view.calc.stats.TotallingGraphStatisticsGathererProvider;
 import com.opengamma.engine.view.client.ViewClient;
 import com.opengamma.engine.view.event.ViewProcessorEventListener;
@@ -38,21 +39,24 @@ public final class ManagementService implements ViewProcessorEventListener {
   private final ViewProcessorImpl _viewProcessor;
   private final MBeanServer _mBeanServer;
   private final TotallingGraphStatisticsGathererProvider _statisticsProvider;
+  private final ExecutionProfiler _profiler;
   private final ConcurrentHashMap<UniqueIdentifier, Set<String>> _calcConfigByViewProcessId = new ConcurrentHashMap<UniqueIdentifier, Set<String>>();
 
   /**
    * A constructor for a management service for a range of possible MBeans.
    * 
    * @param viewProcessor the view processor
+   * @param profiler the execution profiler, null if there is none
    * @param mBeanServer the MBeanServer to register MBeans to
    */
-  private ManagementService(ViewProcessorImpl viewProcessor, TotallingGraphStatisticsGathererProvider statisticsProvider, MBeanServer mBeanServer) {
+  private ManagementService(ViewProcessorImpl viewProcessor, TotallingGraphStatisticsGathererProvider statisticsProvider, ExecutionProfiler profiler, MBeanServer mBeanServer) {
     ArgumentChecker.notNull(viewProcessor, "View Processor");
     ArgumentChecker.notNull(mBeanServer, "MBeanServer");
     ArgumentChecker.notNull(statisticsProvider, "TotallingGraphStatisticsGathererProvider");
     _viewProcessor = viewProcessor;
     _mBeanServer = mBeanServer;
     _statisticsProvider = statisticsProvider;
+    _profiler = profiler;
   }
 
   /**
@@ -64,7 +68,20 @@ public final class ManagementService implements ViewProcessorEventListener {
    * @param mBeanServer           the MBeanServer to register MBeans to
    */
   public static void registerMBeans(ViewProcessorImpl viewProcessor, TotallingGraphStatisticsGathererProvider statisticsProvider, MBeanServer mBeanServer) {
-    ManagementService registry = new ManagementService(viewProcessor, statisticsProvider, mBeanServer);
+    registerMBeans(viewProcessor, statisticsProvider, null, mBeanServer);
+  }
+
+  /**
+   * A convenience static method which creates a ManagementService, including an MBean for the execution
+   * profiler, and initialises it with the supplied parameters.
+   *
+   * @param viewProcessor         the ViewProcessor to listen to
+   * @param statisticsProvider    the statistics provider
+   * @param profiler              the execution profiler, null if there is none
+   * @param mBeanServer           the MBeanServer to register MBeans to
+   */
+  public static void registerMBeans(ViewProcessorImpl viewProcessor, TotallingGraphStatisticsGathererProvider statisticsProvider, ExecutionProfiler profiler, MBeanServer mBeanServer) {
+    ManagementService registry = new ManagementService(viewProcessor, statisticsProvider, profiler, mBeanServer);
     registry.init();
   }
 
@@ -93,6 +110,19 @@ public final class ManagementService implements ViewProcessorEventListener {
     initializeViewProcesses();
     initializeViewClients();
     initializeGraphExecutionStatistics();
+    initializeExecutionProfile();
+  }
+
+  private void initializeExecutionProfile() throws Exception {
+    if (_profiler != null) {
+      ExecutionProfile executionProfile = new ExecutionProfile(_profiler, _viewProcessor.getUniqueId());
+      try {
+        _mBeanServer.registerMBean(executionProfile, executionProfile.getObjectName());
+      } catch (InstanceAlreadyExistsException e) {
+        _mBeanServer.unregisterMBean(executionProfile.getObjectName());
+        _mBeanServer.registerMBean(executionProfile, executionProfile.getObjectName());
+      }
+    }
   }
 
   private void initializeGraphExecutionStatistics() throws Exception {
@@ -211,6 +241,9 @@ public final class ManagementService implements ViewProcessorEventListener {
       }
     }
     _calcConfigByViewProcessId.remove(viewProcessId);
+    if (_profiler != null) {
+      _profiler.removeViewProcess(viewProcessId);
+    }
   }
   
   @Override
@@ -20,6 +20,7 @@ import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.listener.CycleCompletedCall;
+import com.opengamma.engine.view.listener.CycleFragmentCompletedCall;
 import com.opengamma.engine.view.listener.CycleExecutionFailedCall;
 import com.opengamma.engine.view.listener.ProcessCompletedCall;
 import com.opengamma.engine.view.listener.ProcessTerminatedCall;
@@ -58,6 +59,10 @@ public class TestViewResultListener implements ViewResultListener {
     return expectNextCall(CycleCompletedCall.class, timeoutMillis);
   }
   
+  public CycleFragmentCompletedCall getCycleFragmentCompleted(long timeoutMillis) throws InterruptedException {
+    return expectNextCall(CycleFragmentCompletedCall.class, timeoutMillis);
+  }
+  
   public ProcessCompletedCall getProcessCompleted(long timeoutMillis) throws InterruptedException {
     return expectNextCall(ProcessCompletedCall.class, timeoutMillis);
   }
@@ -189,6 +194,11 @@ public class TestViewResultListener implements ViewResultListener {
     callReceived(new ViewDefinitionCompilationFailedCall(valuationTime, exception));
   }
 
+  @Override
+  public void cycleFragmentCompleted(ViewComputationResultModel fragmentResult) {
+    callReceived(new CycleFragmentCompletedCall(fragmentResult));
+  }
+
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
     callReceived(new CycleCompletedCall(fullResult, deltaResult));
@@ -6,20 +6,25 @@
 package com.opengamma.engine.value;
 
 import java.io.Serializable;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.regex.Pattern;
 
-import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Sets;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.PublicAPI;
@@ -34,6 +39,11 @@ import com.opengamma.util.PublicAPI;
 @PublicAPI
 public abstract class ValueProperties implements Serializable, Comparable<ValueProperties> {
 
+  /**
+   * The canonical instances.
+   */
+  private static final Interner<ValueProperties> s_interner = Interners.newWeakInterner();
+
   // -------------------------------------------------------------------------
   /**
    * Builder pattern for constructing {@link ValueProperties} objects.
@@ -55,17 +65,6 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
       _properties = new HashMap<String, Set<String>>();
     }
 
-    /**
-     * Creates an instance.
-     * 
-     * @param properties  the required properties, not null
-     * @param optional  the optional properties, not null
-     */
-    private Builder(final Map<String, Set<String>> properties, final Set<String> optional) {
-      _properties = new HashMap<String, Set<String>>(properties);
-      _optional = (optional != null) ? new HashSet<String>(optional) : null;
-    }
-
     /**
      * Adds a property value to the builder.
      * <p>
@@ -203,29 +202,137 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
             _properties.put(optionalProperty, Collections.<String>emptySet());
           }
         }
-        return new ValuePropertiesImpl(Collections.unmodifiableMap(_properties), Collections.unmodifiableSet(_optional));
+        return new ValuePropertiesImpl(_properties, _optional);
       } else {
         if (_properties.isEmpty()) {
           return EMPTY;
         }
-        return new ValuePropertiesImpl(Collections.unmodifiableMap(_properties), Collections.<String>emptySet());
+        return new ValuePropertiesImpl(_properties, Collections.<String>emptySet());
       }
     }
   }
 
   // -------------------------------------------------------------------------
+  /**
+   * An immutable set of strings held in a sorted array.
+   */
+  private static final class SortedArraySet extends AbstractSet<String> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Class<?> SINGLETON_CLASS = Collections.singleton("").getClass();
+
+    private final String[] _values;
+
+    private SortedArraySet(final String[] values) {
+      _values = values;
+    }
+
+    /**
+     * Creates a set of sorted names.
+     * 
+     * @param values  the names, sorted with no duplicates, not null
+     * @return the set, not null
+     */
+    public static SortedArraySet ofSorted(final String[] values) {
+      return new SortedArraySet(values);
+    }
+
+    /**
+     * Creates a compact copy of a set. The empty set and singleton sets are held as the standard
+     * immutable forms, anything larger as a sorted array.
+     * 
+     * @param values  the values, not null
+     * @return the immutable set, not null
+     */
+    public static Set<String> of(final Set<String> values) {
+      switch (values.size()) {
+        case 0:
+          return Collections.emptySet();
+        case 1:
+          if ((values.getClass() == SINGLETON_CLASS) || (values instanceof SortedArraySet)) {
+            return values;
+          }
+          return Collections.singleton(values.iterator().next());
+        default:
+          if (values instanceof SortedArraySet) {
+            return values;
+          }
+          final String[] array = values.toArray(new String[values.size()]);
+          Arrays.sort(array);
+          return new SortedArraySet(array);
+      }
+    }
+
+    public int indexOf(final Object value) {
+      if (!(value instanceof String)) {
+        return -1;
+      }
+      return Arrays.binarySearch(_values, (String) value);
+    }
+
+    @Override
+    public boolean contains(final Object value) {
+      return indexOf(value) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return new Iterator<String>() {
+
+        private int _index;
+
+        @Override
+        public boolean hasNext() {
+          return _index < _values.length;
+        }
+
+        @Override
+        public String next() {
+          if (_index >= _values.length) {
+            throw new NoSuchElementException();
+          }
+          return _values[_index++];
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+
+      };
+    }
+
+    @Override
+    public int size() {
+      return _values.length;
+    }
+
+  }
+
   /**
    * A value properties implementation holding a set of properties.
+   * <p>
+   * The property names are held in a sorted array, with the values for each name at the same position
+   * in a second array.
    */
   public static final class ValuePropertiesImpl extends ValueProperties {
     /**
-     * The properties.
+     * The property names.
      */
-    private final Map<String, Set<String>> _properties;
+    private final SortedArraySet _properties;
+    /**
+     * The property values, in the same order as the names.
+     */
+    private final Set<String>[] _values;
     /**
      * The optional properties.
      */
     private final Set<String> _optional;
+    /**
+     * The hash code, calculated on first use.
+     */
+    private transient volatile int _hashCode;
 
     /**
      * Creates an instance.
@@ -233,24 +340,43 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
      * @param properties  the required properties, not null
      * @param optional  the optional properties, not null
      */
+    @SuppressWarnings("unchecked")
     private ValuePropertiesImpl(final Map<String, Set<String>> properties, final Set<String> optional) {
-      _properties = properties;
-      _optional = optional;
+      final String[] names = properties.keySet().toArray(new String[properties.size()]);
+      Arrays.sort(names);
+      _properties = SortedArraySet.ofSorted(names);
+      _values = new Set[names.length];
+      for (int i = 0; i < names.length; i++) {
+        _values[i] = SortedArraySet.of(properties.get(names[i]));
+      }
+      _optional = SortedArraySet.of(optional);
+    }
+
+    private String getName(final int index) {
+      return _properties._values[index];
     }
 
     @Override
     public Builder copy() {
-      return new Builder(_properties, _optional);
+      final Builder builder = new Builder();
+      for (int i = 0; i < _values.length; i++) {
+        builder._properties.put(getName(i), _values[i]);
+      }
+      if (!_optional.isEmpty()) {
+        builder._optional = new HashSet<String>(_optional);
+      }
+      return builder;
     }
 
     @Override
     public Set<String> getProperties() {
-      return _properties.keySet();
+      return _properties;
     }
 
     @Override
     public Set<String> getValues(final String propertyName) {
-      return _properties.get(propertyName);
+      final int index = _properties.indexOf(propertyName);
+      return (index >= 0) ? _values[index] : null;
     }
 
     @Override
@@ -261,27 +387,31 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
     @Override
     public boolean isSatisfiedBy(final ValueProperties properties) {
       assert properties != null;
-      nextProperty: for (Map.Entry<String, Set<String>> property : _properties.entrySet()) {
-        final Set<String> available = properties.getValues(property.getKey());
+      if (properties == this) {
+        return true;
+      }
+      nextProperty: for (int i = 0; i < _values.length; i++) {
+        final String propertyName = getName(i);
+        final Set<String> available = properties.getValues(propertyName);
         if (available == null) {
-          if (!isOptional(property.getKey())) {
+          if (!isOptional(propertyName)) {
             // Can't be satisfied - required property never defined
             return false;
           }
           continue;
         }
-        if (!isOptional(property.getKey())) {
-          if (properties.isOptional(property.getKey())) {
+        if (!isOptional(propertyName)) {
+          if (properties.isOptional(propertyName)) {
             // Can't be satisfied - required property might not be defined
             return false;
           }
         }
-        if (available.isEmpty() || property.getValue().isEmpty()) {
+        if (available.isEmpty() || _values[i].isEmpty()) {
           // Other properties can supply anything - satisfying this requirement
           // or this requirement is for anything and so satisfied.
           continue;
         }
-        for (String value : property.getValue()) {
+        for (String value : _values[i]) {
           if (available.contains(value)) {
             // There is at least one value that can satisfy this requirement
             continue nextProperty;
@@ -297,31 +427,32 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
     @Override
     public ValueProperties compose(final ValueProperties properties) {
       assert properties != null;
-      if ((properties == EMPTY) || (properties == INFINITE)) {
+      if ((properties == EMPTY) || (properties == INFINITE) || (properties == this)) {
         return this;
       }
-      for (Map.Entry<String, Set<String>> property : _properties.entrySet()) {
-        final Set<String> available = properties.getValues(property.getKey());
+      for (int i = 0; i < _values.length; i++) {
+        final String propertyName = getName(i);
+        final Set<String> available = properties.getValues(propertyName);
         if (available == null) {
           // This property unchanged in output
           continue;
         }
         if (available.isEmpty()) {
           // This property different in output if optional here, and composed against a required
-          if (isOptional(property.getKey()) && !properties.isOptional(property.getKey())) {
+          if (isOptional(propertyName) && !properties.isOptional(propertyName)) {
             return composeImpl(properties);
           }
           continue;
         }
-        if (property.getValue().isEmpty()) {
+        if (_values[i].isEmpty()) {
           // Requires a subset in the output
           return composeImpl(properties);
         }
-        if (property.getValue().size() != available.size()) {
+        if (_values[i].size() != available.size()) {
           // Requires an intersection in the output
           return composeImpl(properties);
         }
-        for (String value : property.getValue()) {
+        for (String value : _values[i]) {
           if (!available.contains(value)) {
             // Requires an intersection in the output
             return composeImpl(properties);
@@ -335,73 +466,75 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
       final Map<String, Set<String>> composed = new HashMap<String, Set<String>>();
       Set<String> optional = null;
       int otherAvailable = 0;
-      nextProperty: for (Map.Entry<String, Set<String>> property : _properties.entrySet()) {
-        final Set<String> available = properties.getValues(property.getKey());
+      nextProperty: for (int i = 0; i < _values.length; i++) {
+        final String propertyName = getName(i);
+        final Set<String> values = _values[i];
+        final Set<String> available = properties.getValues(propertyName);
         if (available == null) {
           // Other is not defined, so use current value
-          composed.put(property.getKey(), property.getValue());
+          composed.put(propertyName, values);
           // Preserve optionality from this property set
-          if (isOptional(property.getKey())) {
+          if (isOptional(propertyName)) {
             if (optional == null) {
               optional = new HashSet<String>();
             }
-            optional.add(property.getKey());
+            optional.add(propertyName);
           }
           continue;
         }
         // Preserve least optionality from property sets
-        if (properties.isOptional(property.getKey()) && isOptional(property.getKey())) {
+        if (properties.isOptional(propertyName) && isOptional(propertyName)) {
           if (optional == null) {
             optional = new HashSet<String>();
           }
-          optional.add(property.getKey());
+          optional.add(propertyName);
         }
-        if (property.getValue().isEmpty()) {
+        if (values.isEmpty()) {
           // This is a wild-card so use other values
-          composed.put(property.getKey(), available);
+          composed.put(propertyName, available);
           otherAvailable++;
           continue;
         }
         if (available.isEmpty()) {
           // Other is wild-card so use current value
-          composed.put(property.getKey(), property.getValue());
+          composed.put(propertyName, values);
           continue;
         }
-        if (property.getValue().size() != available.size()) {
-          final Set<String> intersection = Sets.intersection(property.getValue(), available);
+        if (values.size() != available.size()) {
+          final Set<String> intersection = Sets.intersection(values, available);
           // An empty intersection means no resulting property
           if (!intersection.isEmpty()) {
-            composed.put(property.getKey(), intersection);
+            composed.put(propertyName, intersection);
           }
           continue;
         }
-        for (String value : property.getValue()) {
+        for (String value : values) {
           if (!available.contains(value)) {
-            final Set<String> intersection = Sets.intersection(property.getValue(), available);
+            final Set<String> intersection = Sets.intersection(values, available);
             // An empty intersection means no resulting property
             if (!intersection.isEmpty()) {
-              composed.put(property.getKey(), intersection);
+              composed.put(propertyName, intersection);
             }
             continue nextProperty;
           }
         }
         // Property is identical in both
-        composed.put(property.getKey(), property.getValue());
+        composed.put(propertyName, values);
       }
-      if ((composed.size() == otherAvailable) && (otherAvailable == _properties.size())) {
+      if ((composed.size() == otherAvailable) && (otherAvailable == _values.length)) {
         // We've just built a map containing only the other property values, so possibly return that original
         if (properties instanceof ValuePropertiesImpl) {
-          if (otherAvailable == ((ValuePropertiesImpl) properties)._properties.size()) {
+          if (otherAvailable == ((ValuePropertiesImpl) properties)._values.length) {
             return properties;
           }
         }
       }
-      return new ValuePropertiesImpl(Collections.unmodifiableMap(composed), (optional != null) ? Collections.unmodifiableSet(optional) : Collections.<String>emptySet());
+      return new ValuePropertiesImpl(composed, (optional != null) ? optional : Collections.<String>emptySet());
     }
 
     @Override
     public boolean isStrict() {
-      for (Set<String> property : _properties.values()) {
+      for (Set<String> property : _values) {
         if (property.size() != 1) {
           return false;
         }
@@ -418,17 +551,28 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
         return false;
       }
       final ValuePropertiesImpl other = (ValuePropertiesImpl) o;
-      return _properties.equals(other._properties) && ObjectUtils.equals(_optional, other._optional);
+      if (hashCode() != other.hashCode()) {
+        return false;
+      }
+      return Arrays.equals(_properties._values, other._properties._values) && Arrays.equals(_values, other._values) && _optional.equals(other._optional);
     }
 
     @Override
     public int hashCode() {
-      return _properties.hashCode();
+      int result = _hashCode;
+      if (result == 0) {
+        // Same as the hash code of a map from names to values
+        for (int i = 0; i < _values.length; i++) {
+          result += getName(i).hashCode() ^ _values[i].hashCode();
+        }
+        _hashCode = result;
+      }
+      return result;
     }
 
     @Override
     public boolean isEmpty() {
-      return _properties.isEmpty();
+      return _values.length == 0;
     }
 
     public static String toString(final Map<String, Set<String>> properties, final Set<String> optional) {
@@ -463,7 +607,11 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
 
     @Override
     public String toString() {
-      return toString(_properties, _optional);
+      final Map<String, Set<String>> properties = new LinkedHashMap<String, Set<String>>();
+      for (int i = 0; i < _values.length; i++) {
+        properties.put(getName(i), _values[i]);
+      }
+      return toString(properties, _optional);
     }
   }
   
@@ -816,6 +964,11 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
       return false;
     }
 
+    @Override
+    public ValueProperties intern() {
+      return this;
+    }
+
     @Override
     public String toString() {
       return "INFINITE";
@@ -894,6 +1047,11 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
       return true;
     }
 
+    @Override
+    public ValueProperties intern() {
+      return this;
+    }
+
     @Override
     public String toString() {
       return "EMPTY";
@@ -1076,6 +1234,16 @@ public abstract class ValueProperties implements Serializable, Comparable<ValueP
     return copy().withoutAny(propertyName).get();
   }
 
+  /**
+   * Returns the canonical instance of this property set. Equal property sets interned by this
+   * method share one instance, which can then be compared by reference.
+   * 
+   * @return the canonical instance, not null
+   */
+  public ValueProperties intern() {
+    return s_interner.intern(this);
+  }
+
   // -------------------------------------------------------------------------
   /**
    * Compares two sets.
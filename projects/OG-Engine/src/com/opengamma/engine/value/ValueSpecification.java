@@ -12,6 +12,8 @@ import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.ComputationTargetType;
 import com.opengamma.id.UniqueIdentifier;
@@ -35,6 +37,11 @@ import com.opengamma.util.PublicAPI;
 @PublicAPI
 public class ValueSpecification implements Serializable {
 
+  /**
+   * The canonical instances.
+   */
+  private static final Interner<ValueSpecification> s_interner = Interners.newWeakInterner();
+
   /**
    * The name of the value being requested.
    * This matches that of a {@link ValueRequirement} satisfied by this specification.
@@ -50,6 +57,10 @@ public class ValueSpecification implements Serializable {
    * This property set will satisfy the constraints of all {@link ValueRequirement}s satisfied by this specification.
    */
   private final ValueProperties _properties;
+  /**
+   * The hash code, calculated on first use.
+   */
+  private transient volatile int _hashCode;
 
   /**
    * Obtains a {@code ValueSpecification} from a target, building the target specification
@@ -304,6 +315,22 @@ public class ValueSpecification implements Serializable {
     }
   }
 
+  /**
+   * Returns the canonical instance of this specification. The target specification and properties of the
+   * canonical instance are also canonical. Equal specifications interned by this method share one instance,
+   * which can then be compared by reference.
+   * 
+   * @return the canonical instance, not null
+   */
+  public ValueSpecification intern() {
+    final ComputationTargetSpecification targetSpecification = _targetSpecification.intern();
+    final ValueProperties properties = _properties.intern();
+    if ((targetSpecification == _targetSpecification) && (properties == _properties)) {
+      return s_interner.intern(this);
+    }
+    return s_interner.intern(new ValueSpecification(_valueName, targetSpecification, properties));
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public boolean equals(Object obj) {
@@ -313,7 +340,7 @@ public class ValueSpecification implements Serializable {
     if (obj instanceof ValueSpecification) {
       final ValueSpecification other = (ValueSpecification) obj;
       // valueName is interned
-      return (_valueName == other._valueName) &&
+      return (_valueName == other._valueName) && (hashCode() == other.hashCode()) &&
         ObjectUtils.equals(_targetSpecification, other._targetSpecification) &&
         ObjectUtils.equals(_properties, other._properties);
     }
@@ -322,11 +349,15 @@ public class ValueSpecification implements Serializable {
 
   @Override
   public int hashCode() {
-    final int prime = 37;
-    int result = 1;
-    result = (result * prime) + _valueName.hashCode();
-    result = (result * prime) + _targetSpecification.hashCode();
-    result = (result * prime) + _properties.hashCode();
+    int result = _hashCode;
+    if (result == 0) {
+      final int prime = 37;
+      result = 1;
+      result = (result * prime) + _valueName.hashCode();
+      result = (result * prime) + _targetSpecification.hashCode();
+      result = (result * prime) + _properties.hashCode();
+      _hashCode = result;
+    }
     return result;
   }
 
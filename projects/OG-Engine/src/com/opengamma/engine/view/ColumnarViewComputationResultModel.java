@@ -0,0 +1,681 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.Instant;
+
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A compact implementation of {@link ViewComputationResultModel} holding the results as columns.
+ * <p>
+ * Each result is a row. The calculation configuration, target, value name and value properties of a row are held
+ * as indices into dictionaries of the distinct values, and the value itself in a primitive {@code double} column
+ * when it is a {@link Double}. Only the other, non-scalar, values are held as objects. The maps and sets of the
+ * {@link ViewResultModel} interface are created on demand from the columns.
+ * <p>
+ * The {@link ComputedValue} and {@link ValueSpecification} of a row are not held either; each call to
+ * {@link #getComputedValue}, {@link #getValueSpecification} or a method of the {@code ViewResultModel} interface
+ * creates new instances for the rows it returns. Holding them would cost more memory than the rows themselves, so
+ * callers that visit every row, such as the Fudge builder and {@code ViewDeltaResultCalculator}, should use the
+ * row and dictionary accessors instead.
+ * <p>
+ * The model is not thread-safe while it is being populated. Once complete it may be read concurrently.
+ */
+public class ColumnarViewComputationResultModel implements ViewComputationResultModel, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * The distinct values of a column, numbered in the order first seen.
+   */
+  private static final class Dictionary<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<T> _values = new ArrayList<T>();
+    private final Map<T, Integer> _indices = new LinkedHashMap<T, Integer>();
+
+    public int add(final T value) {
+      final Integer index = _indices.get(value);
+      if (index != null) {
+        return index;
+      }
+      _indices.put(value, _values.size());
+      _values.add(value);
+      return _values.size() - 1;
+    }
+
+    public int indexOf(final Object value) {
+      final Integer index = _indices.get(value);
+      return (index != null) ? index : -1;
+    }
+
+    public T get(final int index) {
+      return _values.get(index);
+    }
+
+    public int size() {
+      return _values.size();
+    }
+
+    /**
+     * Returns the distinct values, iterating in index order.
+     */
+    public Set<T> values() {
+      return Collections.unmodifiableSet(_indices.keySet());
+    }
+
+  }
+
+  /**
+   * The row numbers grouped by target, built on first use.
+   */
+  private static final class TargetIndex {
+
+    private final int[] _start;
+    private final int[] _rows;
+
+    public TargetIndex(final int targets, final int[] targetIndex, final int rowCount) {
+      _start = new int[targets + 1];
+      for (int row = 0; row < rowCount; row++) {
+        _start[targetIndex[row] + 1]++;
+      }
+      for (int i = 0; i < targets; i++) {
+        _start[i + 1] += _start[i];
+      }
+      final int[] next = Arrays.copyOf(_start, targets);
+      _rows = new int[rowCount];
+      for (int row = 0; row < rowCount; row++) {
+        _rows[next[targetIndex[row]]++] = row;
+      }
+    }
+
+  }
+
+  private UniqueIdentifier _viewProcessId;
+  private UniqueIdentifier _viewCycleId;
+  private Instant _valuationTime;
+  private Instant _resultTimestamp;
+
+  private final Dictionary<String> _configurations = new Dictionary<String>();
+  private final Dictionary<ComputationTargetSpecification> _targets = new Dictionary<ComputationTargetSpecification>();
+  private final Dictionary<String> _valueNames = new Dictionary<String>();
+  private final Dictionary<ValueProperties> _properties = new Dictionary<ValueProperties>();
+  private final BitSet _portfolioTargets = new BitSet();
+
+  private int _rowCount;
+  private int[] _configurationIndex = new int[INITIAL_CAPACITY];
+  private int[] _targetIndex = new int[INITIAL_CAPACITY];
+  private int[] _valueNameIndex = new int[INITIAL_CAPACITY];
+  private int[] _propertiesIndex = new int[INITIAL_CAPACITY];
+  private double[] _doubleValues = new double[INITIAL_CAPACITY];
+  /**
+   * The index into {@link #_objectValues} for each row, or -1 if the value is held in {@link #_doubleValues}.
+   */
+  private int[] _objectIndex = new int[INITIAL_CAPACITY];
+  private final List<Object> _objectValues = new ArrayList<Object>();
+
+  private final Set<ComputedValue> _allLiveData = new HashSet<ComputedValue>();
+
+  private transient volatile TargetIndex _index;
+
+  //-------------------------------------------------------------------------
+  @Override
+  public UniqueIdentifier getViewProcessId() {
+    return _viewProcessId;
+  }
+
+  public void setViewProcessId(UniqueIdentifier viewProcessId) {
+    _viewProcessId = viewProcessId;
+  }
+
+  @Override
+  public UniqueIdentifier getViewCycleId() {
+    return _viewCycleId;
+  }
+
+  public void setViewCycleId(UniqueIdentifier viewCycleId) {
+    _viewCycleId = viewCycleId;
+  }
+
+  @Override
+  public Instant getValuationTime() {
+    return _valuationTime;
+  }
+
+  public void setValuationTime(Instant valuationTime) {
+    _valuationTime = valuationTime;
+  }
+
+  @Override
+  public synchronized Instant getResultTimestamp() {
+    return _resultTimestamp;
+  }
+
+  public synchronized void setResultTimestamp(Instant resultTimestamp) {
+    _resultTimestamp = resultTimestamp;
+  }
+
+  //-------------------------------------------------------------------------
+  public void setCalculationConfigurationNames(final Collection<String> calcConfigurationNames) {
+    for (String calcConfigurationName : calcConfigurationNames) {
+      addCalculationConfiguration(calcConfigurationName);
+    }
+  }
+
+  /**
+   * Adds every position and node of a portfolio as a target, so that each is reported by the model even if no
+   * values are calculated for it.
+   *
+   * @param portfolio the portfolio, not null
+   */
+  public void setPortfolio(final Portfolio portfolio) {
+    ArgumentChecker.notNull(portfolio, "portfolio");
+    recursePortfolio(portfolio.getRootNode());
+  }
+
+  private void recursePortfolio(final PortfolioNode node) {
+    for (Position position : node.getPositions()) {
+      addPortfolioTarget(addTarget(new ComputationTargetSpecification(position)));
+    }
+    addPortfolioTarget(addTarget(new ComputationTargetSpecification(node)));
+    for (PortfolioNode child : node.getChildNodes()) {
+      recursePortfolio(child);
+    }
+  }
+
+  /**
+   * Marks a target as part of the portfolio, so that it is reported for every calculation configuration.
+   *
+   * @param targetIndex the index of the target, from {@link #addTarget}
+   */
+  public void addPortfolioTarget(final int targetIndex) {
+    _portfolioTargets.set(targetIndex);
+  }
+
+  /**
+   * Adds a calculation configuration to the dictionary if it is not already present.
+   *
+   * @param calcConfigurationName the configuration name, not null
+   * @return the index of the configuration
+   */
+  public int addCalculationConfiguration(final String calcConfigurationName) {
+    ArgumentChecker.notNull(calcConfigurationName, "calcConfigurationName");
+    return _configurations.add(calcConfigurationName);
+  }
+
+  /**
+   * Adds a target to the dictionary if it is not already present.
+   *
+   * @param target the target, not null
+   * @return the index of the target
+   */
+  public int addTarget(final ComputationTargetSpecification target) {
+    ArgumentChecker.notNull(target, "target");
+    final int index = _targets.indexOf(target);
+    if (index >= 0) {
+      return index;
+    }
+    _index = null;
+    return _targets.add(target.intern());
+  }
+
+  /**
+   * Adds a value name to the dictionary if it is not already present.
+   *
+   * @param valueName the value name, not null
+   * @return the index of the value name
+   */
+  public int addValueName(final String valueName) {
+    ArgumentChecker.notNull(valueName, "valueName");
+    return _valueNames.add(valueName);
+  }
+
+  /**
+   * Adds value properties to the dictionary if not already present.
+   *
+   * @param properties the properties, not null
+   * @return the index of the properties
+   */
+  public int addValueProperties(final ValueProperties properties) {
+    ArgumentChecker.notNull(properties, "properties");
+    final int index = _properties.indexOf(properties);
+    if (index >= 0) {
+      return index;
+    }
+    return _properties.add(properties.intern());
+  }
+
+  public void addValue(final String calcConfigurationName, final ComputedValue value) {
+    ArgumentChecker.notNull(value, "value");
+    final ValueSpecification specification = value.getSpecification();
+    addValue(addCalculationConfiguration(calcConfigurationName), addTarget(specification.getTargetSpecification()), addValueName(specification.getValueName()),
+        addValueProperties(specification.getProperties()), value.getValue());
+  }
+
+  /**
+   * Adds a row using dictionary indices. A {@link Double} value is held in the primitive column.
+   *
+   * @param configuration the index of the calculation configuration
+   * @param target the index of the target
+   * @param valueName the index of the value name
+   * @param properties the index of the value properties
+   * @param value the value
+   */
+  public void addValue(final int configuration, final int target, final int valueName, final int properties, final Object value) {
+    if (value instanceof Double) {
+      addRow(configuration, target, valueName, properties, (Double) value, -1);
+    } else {
+      _objectValues.add(value);
+      addRow(configuration, target, valueName, properties, 0, _objectValues.size() - 1);
+    }
+  }
+
+  /**
+   * Adds a row with a scalar value using dictionary indices.
+   *
+   * @param configuration the index of the calculation configuration
+   * @param target the index of the target
+   * @param valueName the index of the value name
+   * @param properties the index of the value properties
+   * @param value the value
+   */
+  public void addValue(final int configuration, final int target, final int valueName, final int properties, final double value) {
+    addRow(configuration, target, valueName, properties, value, -1);
+  }
+
+  private void addRow(final int configuration, final int target, final int valueName, final int properties, final double doubleValue, final int objectIndex) {
+    if (_rowCount == _targetIndex.length) {
+      final int capacity = _rowCount * 2;
+      _configurationIndex = Arrays.copyOf(_configurationIndex, capacity);
+      _targetIndex = Arrays.copyOf(_targetIndex, capacity);
+      _valueNameIndex = Arrays.copyOf(_valueNameIndex, capacity);
+      _propertiesIndex = Arrays.copyOf(_propertiesIndex, capacity);
+      _doubleValues = Arrays.copyOf(_doubleValues, capacity);
+      _objectIndex = Arrays.copyOf(_objectIndex, capacity);
+    }
+    _configurationIndex[_rowCount] = configuration;
+    _targetIndex[_rowCount] = target;
+    _valueNameIndex[_rowCount] = valueName;
+    _propertiesIndex[_rowCount] = properties;
+    _doubleValues[_rowCount] = doubleValue;
+    _objectIndex[_rowCount] = objectIndex;
+    _rowCount++;
+    _index = null;
+  }
+
+  public void addLiveData(ComputedValue liveData) {
+    _allLiveData.add(liveData);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of result rows.
+   *
+   * @return the row count
+   */
+  public int getRowCount() {
+    return _rowCount;
+  }
+
+  public int getConfigurationIndex(final int row) {
+    return _configurationIndex[checkRow(row)];
+  }
+
+  public int getTargetIndex(final int row) {
+    return _targetIndex[checkRow(row)];
+  }
+
+  public int getValueNameIndex(final int row) {
+    return _valueNameIndex[checkRow(row)];
+  }
+
+  public int getValuePropertiesIndex(final int row) {
+    return _propertiesIndex[checkRow(row)];
+  }
+
+  /**
+   * Tests whether the value of a row is held in the primitive column.
+   *
+   * @param row the row
+   * @return true if the value is a {@link Double}
+   */
+  public boolean isScalar(final int row) {
+    return _objectIndex[checkRow(row)] < 0;
+  }
+
+  /**
+   * Gets the value of a scalar row without boxing it.
+   *
+   * @param row the row, see {@link #isScalar}
+   * @return the value
+   */
+  public double getDoubleValue(final int row) {
+    if (_objectIndex[checkRow(row)] >= 0) {
+      throw new IllegalArgumentException("Row " + row + " does not hold a scalar value");
+    }
+    return _doubleValues[row];
+  }
+
+  public Object getValue(final int row) {
+    final int objectIndex = _objectIndex[checkRow(row)];
+    return (objectIndex < 0) ? (Object) _doubleValues[row] : _objectValues.get(objectIndex);
+  }
+
+  public ValueSpecification getValueSpecification(final int row) {
+    checkRow(row);
+    return new ValueSpecification(_valueNames.get(_valueNameIndex[row]), _targets.get(_targetIndex[row]), _properties.get(_propertiesIndex[row]));
+  }
+
+  public ComputedValue getComputedValue(final int row) {
+    return new ComputedValue(getValueSpecification(row), getValue(row));
+  }
+
+  private int checkRow(final int row) {
+    if ((row < 0) || (row >= _rowCount)) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + _rowCount);
+    }
+    return row;
+  }
+
+  /**
+   * Gets the index of a calculation configuration.
+   *
+   * @param calcConfigurationName the configuration name
+   * @return the index of the configuration, or -1 if there are none of that name
+   */
+  public int indexOfCalculationConfiguration(final String calcConfigurationName) {
+    return _configurations.indexOf(calcConfigurationName);
+  }
+
+  /**
+   * Gets the index of a target.
+   *
+   * @param target the target
+   * @return the index of the target, or -1 if it is not in the model
+   */
+  public int indexOfTarget(final ComputationTargetSpecification target) {
+    return _targets.indexOf(target);
+  }
+
+  /**
+   * Gets the index of a value name.
+   *
+   * @param valueName the value name
+   * @return the index of the value name, or -1 if there are no values of that name
+   */
+  public int indexOfValueName(final String valueName) {
+    return _valueNames.indexOf(valueName);
+  }
+
+  /**
+   * Finds the row holding a value, by dictionary indices. If there are several, the last is returned, as in the
+   * maps of the {@code ViewResultModel} interface.
+   *
+   * @param configuration the index of the calculation configuration
+   * @param target the index of the target
+   * @param valueName the index of the value name
+   * @return the row, or -1 if there is no such value
+   */
+  public int findRow(final int configuration, final int target, final int valueName) {
+    if ((target < 0) || (target >= _targets.size())) {
+      return -1;
+    }
+    final TargetIndex index = getIndex();
+    for (int i = index._start[target + 1] - 1; i >= index._start[target]; i--) {
+      final int row = index._rows[i];
+      if ((_configurationIndex[row] == configuration) && (_valueNameIndex[row] == valueName)) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  public String getCalculationConfigurationName(final int index) {
+    return _configurations.get(index);
+  }
+
+  public ComputationTargetSpecification getTarget(final int index) {
+    return _targets.get(index);
+  }
+
+  public boolean isPortfolioTarget(final int index) {
+    return _portfolioTargets.get(index);
+  }
+
+  public String getValueName(final int index) {
+    return _valueNames.get(index);
+  }
+
+  public int getValueNameCount() {
+    return _valueNames.size();
+  }
+
+  public ValueProperties getValueProperties(final int index) {
+    return _properties.get(index);
+  }
+
+  public int getValuePropertiesCount() {
+    return _properties.size();
+  }
+
+  //-------------------------------------------------------------------------
+  private TargetIndex getIndex() {
+    TargetIndex index = _index;
+    if (index == null) {
+      index = new TargetIndex(_targets.size(), _targetIndex, _rowCount);
+      _index = index;
+    }
+    return index;
+  }
+
+  private boolean hasValues(final int target, final int configuration) {
+    final TargetIndex index = getIndex();
+    for (int i = index._start[target]; i < index._start[target + 1]; i++) {
+      if (_configurationIndex[index._rows[i]] == configuration) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isReported(final int target, final int configuration) {
+    return _portfolioTargets.get(target) || hasValues(target, configuration);
+  }
+
+  private Map<String, ComputedValue> getValuesByName(final int target, final int configuration) {
+    final TargetIndex index = getIndex();
+    final Map<String, ComputedValue> values = new HashMap<String, ComputedValue>();
+    for (int i = index._start[target]; i < index._start[target + 1]; i++) {
+      final int row = index._rows[i];
+      if (_configurationIndex[row] == configuration) {
+        values.put(_valueNames.get(_valueNameIndex[row]), getComputedValue(row));
+      }
+    }
+    return Collections.unmodifiableMap(values);
+  }
+
+  private Set<ComputedValue> getAllValues(final int target, final int configuration) {
+    final TargetIndex index = getIndex();
+    final Set<ComputedValue> values = new HashSet<ComputedValue>();
+    for (int i = index._start[target]; i < index._start[target + 1]; i++) {
+      final int row = index._rows[i];
+      if (_configurationIndex[row] == configuration) {
+        values.add(getComputedValue(row));
+      }
+    }
+    return Collections.unmodifiableSet(values);
+  }
+
+  /**
+   * The results of one calculation configuration, read from the columns.
+   */
+  private final class CalculationResult implements ViewCalculationResultModel {
+
+    private final int _configuration;
+
+    public CalculationResult(final int configuration) {
+      _configuration = configuration;
+    }
+
+    @Override
+    public Collection<ComputationTargetSpecification> getAllTargets() {
+      final Set<ComputationTargetSpecification> targets = new HashSet<ComputationTargetSpecification>();
+      for (int target = 0; target < _targets.size(); target++) {
+        if (isReported(target, _configuration)) {
+          targets.add(_targets.get(target));
+        }
+      }
+      return Collections.unmodifiableSet(targets);
+    }
+
+    @Override
+    public Map<String, ComputedValue> getValues(final ComputationTargetSpecification targetSpec) {
+      final int target = _targets.indexOf(targetSpec);
+      if ((target < 0) || !isReported(target, _configuration)) {
+        return null;
+      }
+      return getValuesByName(target, _configuration);
+    }
+
+    @Override
+    public Set<ComputedValue> getAllValues(final ComputationTargetSpecification targetSpec) {
+      final int target = _targets.indexOf(targetSpec);
+      if ((target < 0) || !isReported(target, _configuration)) {
+        return null;
+      }
+      return ColumnarViewComputationResultModel.this.getAllValues(target, _configuration);
+    }
+
+  }
+
+  /**
+   * The results for one target, read from the columns.
+   */
+  private final class TargetResult implements ViewTargetResultModel {
+
+    private final int _target;
+
+    public TargetResult(final int target) {
+      _target = target;
+    }
+
+    @Override
+    public Collection<String> getCalculationConfigurationNames() {
+      final Set<String> names = new HashSet<String>();
+      for (int configuration = 0; configuration < _configurations.size(); configuration++) {
+        if (isReported(_target, configuration)) {
+          names.add(_configurations.get(configuration));
+        }
+      }
+      return Collections.unmodifiableSet(names);
+    }
+
+    @Override
+    public Set<ComputedValue> getAllValues(final String calcConfigurationName) {
+      final int configuration = _configurations.indexOf(calcConfigurationName);
+      if (configuration < 0) {
+        return null;
+      }
+      return ColumnarViewComputationResultModel.this.getAllValues(_target, configuration);
+    }
+
+  }
+
+  /**
+   * Returns all targets, iterating in index order.
+   *
+   * @return the targets
+   */
+  @Override
+  public Collection<ComputationTargetSpecification> getAllTargets() {
+    return _targets.values();
+  }
+
+  /**
+   * Returns all calculation configuration names, iterating in index order.
+   *
+   * @return the configuration names
+   */
+  @Override
+  public Collection<String> getCalculationConfigurationNames() {
+    return _configurations.values();
+  }
+
+  @Override
+  public ViewCalculationResultModel getCalculationResult(final String calcConfigurationName) {
+    final int configuration = _configurations.indexOf(calcConfigurationName);
+    return (configuration < 0) ? null : new CalculationResult(configuration);
+  }
+
+  @Override
+  public ViewTargetResultModel getTargetResult(final ComputationTargetSpecification targetSpecification) {
+    final int target = _targets.indexOf(targetSpecification);
+    return (target < 0) ? null : new TargetResult(target);
+  }
+
+  @Override
+  public List<ViewResultEntry> getAllResults() {
+    final int rowCount = _rowCount;
+    return new AbstractList<ViewResultEntry>() {
+
+      @Override
+      public ViewResultEntry get(final int row) {
+        if (row >= rowCount) {
+          throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return new ViewResultEntry(_configurations.get(_configurationIndex[row]), getComputedValue(row));
+      }
+
+      @Override
+      public int size() {
+        return rowCount;
+      }
+
+    };
+  }
+
+  @Override
+  public Set<String> getAllOutputValueNames() {
+    return new HashSet<String>(_valueNames.values());
+  }
+
+  @Override
+  public Set<ComputedValue> getAllLiveData() {
+    return Collections.unmodifiableSet(_allLiveData);
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarViewComputationResultModel[" + _rowCount + " rows, " + (_rowCount - _objectValues.size()) + " scalar]";
+  }
+
+}
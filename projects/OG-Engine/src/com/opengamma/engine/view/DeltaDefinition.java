@@ -48,10 +48,19 @@ public class DeltaDefinition {
       return true;
     }
 
+    return isValueDelta(previousComputed.getValue(), newComputed.getValue());
+  }
+
+  /**
+   * Tests whether two values differ sufficiently for the change to be considered a delta.
+   * 
+   * @param previousValue  the previous value, may be null
+   * @param newValue  the new value, may be null
+   * @return  true if the change is a delta
+   */
+  public boolean isValueDelta(Object previousValue, Object newValue) {
     // REVIEW jonathan 2010-05-10 -- Written with the assumption that we only really want to compare doubles and
     // BigDecimals, hence the specific Number check here rather than anything more generic.
-    Object previousValue = previousComputed.getValue();
-    Object newValue = newComputed.getValue();
     if (getNumberComparer() != null && previousValue instanceof Number && newValue instanceof Number) {
       return getNumberComparer().isDelta((Number) previousValue, (Number) newValue);
     }
@@ -24,6 +24,7 @@ import com.opengamma.engine.view.calc.DependencyGraphExecutorFactory;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGathererProvider;
 import com.opengamma.engine.view.calcnode.JobDispatcher;
 import com.opengamma.engine.view.calcnode.ViewProcessorQueryReceiver;
+import com.opengamma.engine.view.compilation.ViewCompilationCache;
 import com.opengamma.engine.view.compilation.ViewCompilationServices;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
 import com.opengamma.engine.view.permission.ViewPermissionProvider;
@@ -35,6 +36,16 @@ import com.opengamma.util.ArgumentChecker;
  */
 public class ViewProcessContext {
 
+  /**
+   * The default number of values calculated by a cycle after which they are published as a fragment of its result.
+   */
+  public static final int DEFAULT_FRAGMENT_RESULT_BATCH_SIZE = 1000;
+  /**
+   * The default time after which values calculated by a cycle are published as a fragment, even if fewer than the
+   * batch size.
+   */
+  public static final long DEFAULT_FRAGMENT_RESULT_BATCH_PERIOD_MILLIS = 1000;
+
   private final ViewPermissionProvider _viewPermissionProvider;
   private final LiveDataAvailabilityProvider _liveDataAvailabilityProvider;
   private final LiveDataSnapshotProvider _liveDataSnapshotProvider;
@@ -50,6 +61,10 @@ public class ViewProcessContext {
   private final DependencyGraphExecutorFactory<?> _dependencyGraphExecutorFactory;
   private final GraphExecutorStatisticsGathererProvider _graphExecutorStatisticsGathererProvider;
   private final MarketDataSnapshotSource _marketDataSnapshotSource;
+  private final ViewCompilationCache _compilationCache;
+  private volatile int _graphBuildingParallelism = 1;
+  private volatile int _fragmentResultBatchSize = DEFAULT_FRAGMENT_RESULT_BATCH_SIZE;
+  private volatile long _fragmentResultBatchPeriodMillis = DEFAULT_FRAGMENT_RESULT_BATCH_PERIOD_MILLIS;
 
   public ViewProcessContext(ViewPermissionProvider viewPermissionProvider,
       LiveDataAvailabilityProvider liveDataAvailabilityProvider, LiveDataSnapshotProvider liveDataSnapshotProvider,
@@ -60,6 +75,21 @@ public class ViewProcessContext {
       DependencyGraphExecutorFactory<?> dependencyGraphExecutorFactory,
       GraphExecutorStatisticsGathererProvider graphExecutorStatisticsProvider,
       MarketDataSnapshotSource marketDataSnapshotSource) {
+    this(viewPermissionProvider, liveDataAvailabilityProvider, liveDataSnapshotProvider, functionCompilationService, functionResolver, positionSource, securitySource,
+        computationTargetResolver, computationCacheSource, computationJobDispatcher, viewProcessorQueryReceiver, dependencyGraphExecutorFactory, graphExecutorStatisticsProvider,
+        marketDataSnapshotSource, null);
+  }
+
+  public ViewProcessContext(ViewPermissionProvider viewPermissionProvider,
+      LiveDataAvailabilityProvider liveDataAvailabilityProvider, LiveDataSnapshotProvider liveDataSnapshotProvider,
+      CompiledFunctionService functionCompilationService, FunctionResolver functionResolver,
+      PositionSource positionSource, SecuritySource securitySource,
+      CachingComputationTargetResolver computationTargetResolver, ViewComputationCacheSource computationCacheSource,
+      JobDispatcher computationJobDispatcher, ViewProcessorQueryReceiver viewProcessorQueryReceiver,
+      DependencyGraphExecutorFactory<?> dependencyGraphExecutorFactory,
+      GraphExecutorStatisticsGathererProvider graphExecutorStatisticsProvider,
+      MarketDataSnapshotSource marketDataSnapshotSource,
+      ViewCompilationCache compilationCache) {
     _marketDataSnapshotSource = marketDataSnapshotSource;
     ArgumentChecker.notNull(viewPermissionProvider, "viewPermissionProvider");
     ArgumentChecker.notNull(liveDataAvailabilityProvider, "liveDataAvailabilityProvider");
@@ -90,6 +120,7 @@ public class ViewProcessContext {
     _viewProcessorQueryReceiver = viewProcessorQueryReceiver;
     _dependencyGraphExecutorFactory = dependencyGraphExecutorFactory;
     _graphExecutorStatisticsGathererProvider = graphExecutorStatisticsProvider;
+    _compilationCache = compilationCache;
   }
 
   // -------------------------------------------------------------------------
@@ -224,6 +255,75 @@ public class ViewProcessContext {
     return _marketDataSnapshotSource;
   }
 
+  /**
+   * Gets the cache of compilations shared with other view processes.
+   * 
+   * @return the compilation cache, null if compilations are not shared
+   */
+  public ViewCompilationCache getCompilationCache() {
+    return _compilationCache;
+  }
+
+  /**
+   * Gets the maximum number of partitions each dependency graph is built in concurrently.
+   * 
+   * @return the parallelism, at least one
+   */
+  public int getGraphBuildingParallelism() {
+    return _graphBuildingParallelism;
+  }
+
+  /**
+   * Sets the maximum number of partitions each dependency graph is built in concurrently. Defaults to one.
+   * 
+   * @param graphBuildingParallelism  the parallelism, at least one
+   * @see ViewCompilationServices#setGraphBuildingParallelism
+   */
+  public void setGraphBuildingParallelism(int graphBuildingParallelism) {
+    ArgumentChecker.notNegativeOrZero(graphBuildingParallelism, "graphBuildingParallelism");
+    _graphBuildingParallelism = graphBuildingParallelism;
+  }
+
+  /**
+   * Gets the number of values calculated by a cycle after which they are published as a fragment of its result.
+   * 
+   * @return the batch size, greater than zero
+   */
+  public int getFragmentResultBatchSize() {
+    return _fragmentResultBatchSize;
+  }
+
+  /**
+   * Sets the number of values calculated by a cycle after which they are published as a fragment of its result.
+   * 
+   * @param fragmentResultBatchSize  the batch size, greater than zero
+   */
+  public void setFragmentResultBatchSize(int fragmentResultBatchSize) {
+    ArgumentChecker.notNegativeOrZero(fragmentResultBatchSize, "fragmentResultBatchSize");
+    _fragmentResultBatchSize = fragmentResultBatchSize;
+  }
+
+  /**
+   * Gets the time after which values calculated by a cycle are published as a fragment, even if fewer than the batch
+   * size.
+   * 
+   * @return the batch period in milliseconds, greater than zero
+   */
+  public long getFragmentResultBatchPeriodMillis() {
+    return _fragmentResultBatchPeriodMillis;
+  }
+
+  /**
+   * Sets the time after which values calculated by a cycle are published as a fragment, even if fewer than the batch
+   * size.
+   * 
+   * @param fragmentResultBatchPeriodMillis  the batch period in milliseconds, greater than zero
+   */
+  public void setFragmentResultBatchPeriodMillis(long fragmentResultBatchPeriodMillis) {
+    ArgumentChecker.notNegativeOrZero(fragmentResultBatchPeriodMillis, "fragmentResultBatchPeriodMillis");
+    _fragmentResultBatchPeriodMillis = fragmentResultBatchPeriodMillis;
+  }
+
   // -------------------------------------------------------------------------
   /**
    * Converts this context to a {@code ViewCompliationServices}.
@@ -231,8 +331,10 @@ public class ViewProcessContext {
    * @return the services, not null
    */
   public ViewCompilationServices asCompilationServices() {
-    return new ViewCompilationServices(getLiveDataAvailabilityProvider(), getFunctionResolver(), getFunctionCompilationService().getFunctionCompilationContext(), getComputationTargetResolver(),
-        getFunctionCompilationService().getExecutorService(), getSecuritySource(), getPositionSource());
+    final ViewCompilationServices services = new ViewCompilationServices(getLiveDataAvailabilityProvider(), getFunctionResolver(), getFunctionCompilationService().getFunctionCompilationContext(),
+        getComputationTargetResolver(), getFunctionCompilationService().getExecutorService(), getSecuritySource(), getPositionSource());
+    services.setGraphBuildingParallelism(getGraphBuildingParallelism());
+    return services;
   }
 
 }
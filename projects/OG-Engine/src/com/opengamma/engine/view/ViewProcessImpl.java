@@ -5,8 +5,10 @@
  */
 package com.opengamma.engine.view;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -58,6 +60,7 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle {
   private final Semaphore _processLock = new Semaphore(1);
 
   private final Set<ViewResultListener> _listeners = new HashSet<ViewResultListener>();
+  private final Set<ViewResultListener> _fragmentResultListeners = Collections.newSetFromMap(new ConcurrentHashMap<ViewResultListener, Boolean>());
 
   private volatile ViewProcessState _state = ViewProcessState.STOPPED;
   
@@ -220,6 +223,18 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle {
     }   
   }
   
+  public void cycleFragmentCompleted(ViewComputationResultModel fragmentResult) {
+    // Not holding the semaphore; this is called from the executing cycle which the lock holder may be waiting on
+    s_logger.debug("Fragment of view cycle {} completed on view process {}", fragmentResult.getViewCycleId(), getUniqueId());
+    for (ViewResultListener listener : _listeners) {
+      try {
+        listener.cycleFragmentCompleted(fragmentResult);
+      } catch (Exception e) {
+        logListenerError(listener, e);
+      }
+    }
+  }
+
   public void cycleCompleted(ViewCycle cycle) {
     // Caller MUST NOT hold the semaphore
     s_logger.debug("View cycle {} completed on view process {}", cycle.getUniqueId(), getUniqueId());
@@ -411,6 +426,7 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle {
     // Caller MUST NOT hold the semaphore
     lock();
     try {
+      _fragmentResultListeners.remove(listener);
       if (_listeners.remove(listener) && _listeners.size() == 0) {
         stopComputationJob();
       }
@@ -418,6 +434,37 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle {
       unlock();
     }
   }
+
+  /**
+   * Sets whether an attached listener wants the results of each cycle in fragments as they are calculated. Cycles only
+   * publish fragments while at least one listener wants them.
+   * 
+   * @param listener  the attached listener, not null
+   * @param fragmentResultsEnabled  true if the listener wants fragment results, false otherwise
+   */
+  public void setFragmentResultsEnabled(ViewResultListener listener, boolean fragmentResultsEnabled) {
+    ArgumentChecker.notNull(listener, "listener");
+    // Caller MUST NOT hold the semaphore
+    lock();
+    try {
+      if (fragmentResultsEnabled && _listeners.contains(listener)) {
+        _fragmentResultListeners.add(listener);
+      } else {
+        _fragmentResultListeners.remove(listener);
+      }
+    } finally {
+      unlock();
+    }
+  }
+
+  /**
+   * Indicates whether any attached listener wants the results of each cycle in fragments.
+   * 
+   * @return true if fragment results are required, false otherwise
+   */
+  public boolean isFragmentResultsRequired() {
+    return !_fragmentResultListeners.isEmpty();
+  }
   
   public boolean hasExecutionDemand() {
     return !_listeners.isEmpty();
@@ -481,6 +528,7 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle {
       
       listeners = new HashSet<ViewResultListener>(_listeners);
       _listeners.clear();
+      _fragmentResultListeners.clear();
       terminateComputationJob();
     } finally {
       unlock();
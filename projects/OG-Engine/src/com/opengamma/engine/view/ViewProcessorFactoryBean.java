@@ -58,6 +58,9 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
   private GraphExecutorStatisticsGathererProvider _graphExecutionStatistics = new DiscardingGraphStatisticsGathererProvider();
   private ViewPermissionProviderFactory _permissionProviderFactory;
   private MarketDataSnapshotSource _marketDataSnapshotSource;
+  private int _graphBuildingParallelism = 1;
+  private int _fragmentResultBatchSize = ViewProcessContext.DEFAULT_FRAGMENT_RESULT_BATCH_SIZE;
+  private long _fragmentResultBatchPeriodMillis = ViewProcessContext.DEFAULT_FRAGMENT_RESULT_BATCH_PERIOD_MILLIS;
   
   //-------------------------------------------------------------------------
   public Long getId() {
@@ -196,6 +199,46 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
     _marketDataSnapshotSource = marketDataSnapshotSource;
   }
 
+  public int getGraphBuildingParallelism() {
+    return _graphBuildingParallelism;
+  }
+
+  /**
+   * Sets the maximum number of partitions each dependency graph is built in concurrently. Defaults to one.
+   * 
+   * @param graphBuildingParallelism  the parallelism, at least one
+   */
+  public void setGraphBuildingParallelism(int graphBuildingParallelism) {
+    _graphBuildingParallelism = graphBuildingParallelism;
+  }
+
+  public int getFragmentResultBatchSize() {
+    return _fragmentResultBatchSize;
+  }
+
+  /**
+   * Sets the number of values calculated by a cycle after which they are published as a fragment of its result.
+   * 
+   * @param fragmentResultBatchSize  the batch size, greater than zero
+   */
+  public void setFragmentResultBatchSize(int fragmentResultBatchSize) {
+    _fragmentResultBatchSize = fragmentResultBatchSize;
+  }
+
+  public long getFragmentResultBatchPeriodMillis() {
+    return _fragmentResultBatchPeriodMillis;
+  }
+
+  /**
+   * Sets the time after which values calculated by a cycle are published as a fragment, even if fewer than the batch
+   * size.
+   * 
+   * @param fragmentResultBatchPeriodMillis  the batch period in milliseconds, greater than zero
+   */
+  public void setFragmentResultBatchPeriodMillis(long fragmentResultBatchPeriodMillis) {
+    _fragmentResultBatchPeriodMillis = fragmentResultBatchPeriodMillis;
+  }
+
   //-------------------------------------------------------------------------
   protected void checkInjectedInputs() {
     s_logger.debug("Checking injected inputs.");
@@ -222,7 +265,7 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
   @Override
   public ViewProcessor createObject() {
     checkInjectedInputs();
-    return new ViewProcessorImpl(
+    ViewProcessorImpl viewProcessor = new ViewProcessorImpl(
         UniqueIdentifier.of(VIEW_PROCESSOR_ID_SCHEME, getId().toString()),
         getViewDefinitionRepository(),
         getSecuritySource(),
@@ -240,6 +283,10 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
         getGraphExecutionStatistics(),
         getViewPermissionProviderFactory(),
         getMarketDataSnapshotSource());
+    viewProcessor.setGraphBuildingParallelism(getGraphBuildingParallelism());
+    viewProcessor.setFragmentResultBatchSize(getFragmentResultBatchSize());
+    viewProcessor.setFragmentResultBatchPeriodMillis(getFragmentResultBatchPeriodMillis());
+    return viewProcessor;
   }
 
 }
@@ -45,6 +45,7 @@ import com.opengamma.engine.view.calcnode.JobDispatcher;
 import com.opengamma.engine.view.calcnode.ViewProcessorQueryReceiver;
 import com.opengamma.engine.view.client.ViewClient;
 import com.opengamma.engine.view.client.ViewClientImpl;
+import com.opengamma.engine.view.compilation.ViewCompilationCache;
 import com.opengamma.engine.view.event.ViewProcessorEventListenerRegistry;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
 import com.opengamma.engine.view.listener.ViewResultListener;
@@ -117,6 +118,23 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
 
   private final MarketDataSnapshotSource _marketDataSnapshotSource;
   
+  /**
+   * The compilations shared with other view processors, null if not shared.
+   */
+  private volatile ViewCompilationCache _compilationCache;
+  /**
+   * The maximum number of partitions each dependency graph is built in concurrently.
+   */
+  private volatile int _graphBuildingParallelism = 1;
+  /**
+   * The number of values calculated by a cycle after which they are published as a fragment of its result.
+   */
+  private volatile int _fragmentResultBatchSize = ViewProcessContext.DEFAULT_FRAGMENT_RESULT_BATCH_SIZE;
+  /**
+   * The time after which values calculated by a cycle are published as a fragment, even if fewer than the batch size.
+   */
+  private volatile long _fragmentResultBatchPeriodMillis = ViewProcessContext.DEFAULT_FRAGMENT_RESULT_BATCH_PERIOD_MILLIS;
+  
   public ViewProcessorImpl(
       UniqueIdentifier uniqueId,
       ViewDefinitionRepository viewDefinitionRepository,
@@ -386,7 +404,28 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
       _processLock.unlock();
     }
   }
-  
+
+  /**
+   * Sets whether a client wants fragment results from the view process with which it is currently associated. This
+   * has no effect if the client is not associated with a view process.
+   *
+   * @param clientId  the unique identifier of the client, not null
+   * @param fragmentResultsEnabled  true if the client wants fragment results, false otherwise
+   */
+  public void setClientFragmentResultsEnabled(UniqueIdentifier clientId, boolean fragmentResultsEnabled) {
+    checkIdScheme(clientId, CLIENT_SCHEME);
+    _processLock.lock();
+    try {
+      Pair<ViewProcessImpl, ViewResultListener> clientAttachment = _clientToProcess.get(clientId);
+      if (clientAttachment == null) {
+        return;
+      }
+      clientAttachment.getFirst().setFragmentResultsEnabled(clientAttachment.getSecond(), fragmentResultsEnabled);
+    } finally {
+      _processLock.unlock();
+    }
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public ViewClient createViewClient(UserPrincipal clientUser) {
@@ -427,6 +466,87 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
     _viewProcessorEventListenerRegistry.notifyViewClientRemoved(clientId);
   }
   
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the cache from which view processes start their compilations.
+   * 
+   * @return the compilation cache, null if compilations are not shared
+   */
+  public ViewCompilationCache getCompilationCache() {
+    return _compilationCache;
+  }
+
+  /**
+   * Sets a cache from which view processes created afterwards start their compilations, and to which they add them.
+   * View processors sharing a cache compile their views incrementally from each other's work.
+   * 
+   * @param compilationCache  the compilation cache, null to not share compilations
+   */
+  public void setCompilationCache(ViewCompilationCache compilationCache) {
+    _compilationCache = compilationCache;
+  }
+
+  /**
+   * Gets the maximum number of partitions each dependency graph is built in concurrently.
+   * 
+   * @return the parallelism, at least one
+   */
+  public int getGraphBuildingParallelism() {
+    return _graphBuildingParallelism;
+  }
+
+  /**
+   * Sets the maximum number of partitions each dependency graph is built in concurrently by view processes created
+   * afterwards. Defaults to one, building each graph on a single thread so that the same functions are always chosen.
+   * 
+   * @param graphBuildingParallelism  the parallelism, at least one
+   */
+  public void setGraphBuildingParallelism(int graphBuildingParallelism) {
+    ArgumentChecker.notNegativeOrZero(graphBuildingParallelism, "graphBuildingParallelism");
+    _graphBuildingParallelism = graphBuildingParallelism;
+  }
+
+  /**
+   * Gets the number of values calculated by a cycle after which they are published as a fragment of its result.
+   * 
+   * @return the batch size, greater than zero
+   */
+  public int getFragmentResultBatchSize() {
+    return _fragmentResultBatchSize;
+  }
+
+  /**
+   * Sets the number of values calculated by a cycle after which they are published as a fragment of its result, for
+   * view processes created afterwards.
+   * 
+   * @param fragmentResultBatchSize  the batch size, greater than zero
+   */
+  public void setFragmentResultBatchSize(int fragmentResultBatchSize) {
+    ArgumentChecker.notNegativeOrZero(fragmentResultBatchSize, "fragmentResultBatchSize");
+    _fragmentResultBatchSize = fragmentResultBatchSize;
+  }
+
+  /**
+   * Gets the time after which values calculated by a cycle are published as a fragment, even if fewer than the batch
+   * size.
+   * 
+   * @return the batch period in milliseconds, greater than zero
+   */
+  public long getFragmentResultBatchPeriodMillis() {
+    return _fragmentResultBatchPeriodMillis;
+  }
+
+  /**
+   * Sets the time after which values calculated by a cycle are published as a fragment, even if fewer than the batch
+   * size, for view processes created afterwards.
+   * 
+   * @param fragmentResultBatchPeriodMillis  the batch period in milliseconds, greater than zero
+   */
+  public void setFragmentResultBatchPeriodMillis(long fragmentResultBatchPeriodMillis) {
+    ArgumentChecker.notNegativeOrZero(fragmentResultBatchPeriodMillis, "fragmentResultBatchPeriodMillis");
+    _fragmentResultBatchPeriodMillis = fragmentResultBatchPeriodMillis;
+  }
+  
   //-------------------------------------------------------------------------
   @Override
   public CompiledFunctionService getFunctionCompilationService() {
@@ -471,7 +591,7 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
   }
   
   private ViewProcessContext createViewProcessContext() {
-    return new ViewProcessContext(
+    ViewProcessContext context = new ViewProcessContext(
         _permissionProviderFactory.getViewPermissionProvider(_securitySource, _liveDataClient), 
         _liveDataAvailabilityProvider,
         _liveDataSnapshotProvider,
@@ -485,7 +605,12 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
         _viewProcessorQueryReceiver,
         _dependencyGraphExecutorFactory,
         _graphExecutionStatistics,
-        _marketDataSnapshotSource);
+        _marketDataSnapshotSource,
+        _compilationCache);
+    context.setGraphBuildingParallelism(_graphBuildingParallelism);
+    context.setFragmentResultBatchSize(_fragmentResultBatchSize);
+    context.setFragmentResultBatchPeriodMillis(_fragmentResultBatchPeriodMillis);
+    return context;
   }
   
   private String generateIdValue(AtomicLong source) {
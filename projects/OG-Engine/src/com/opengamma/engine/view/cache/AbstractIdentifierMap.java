@@ -7,6 +7,7 @@ package com.opengamma.engine.view.cache;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.opengamma.engine.value.ValueSpecification;
@@ -30,6 +31,19 @@ public abstract class AbstractIdentifierMap implements IdentifierMap {
     return identifiers;
   }
 
+  @Override
+  public void getIdentifiers(final List<ValueSpecification> specifications, final long[] identifiers) {
+    getIdentifiers(this, specifications, identifiers);
+  }
+
+  public static void getIdentifiers(final IdentifierMap map, final List<ValueSpecification> specifications, final long[] identifiers) {
+    final Map<ValueSpecification, Long> identifierMap = map.getIdentifiers(specifications);
+    final int count = specifications.size();
+    for (int i = 0; i < count; i++) {
+      identifiers[i] = identifierMap.get(specifications.get(i));
+    }
+  }
+
   @Override
   public Map<Long, ValueSpecification> getValueSpecifications(final Collection<Long> identifiers) {
     return getValueSpecifications(this, identifiers);
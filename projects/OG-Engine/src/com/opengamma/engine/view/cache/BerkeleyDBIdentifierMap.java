@@ -7,6 +7,7 @@ package com.opengamma.engine.view.cache;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -109,6 +110,11 @@ public class BerkeleyDBIdentifierMap implements IdentifierMap, Lifecycle {
     return result;
   }
 
+  @Override
+  public void getIdentifiers(List<ValueSpecification> specs, long[] identifiers) {
+    AbstractIdentifierMap.getIdentifiers(this, specs, identifiers);
+  }
+
   @Override
   public Map<ValueSpecification, Long> getIdentifiers(Collection<ValueSpecification> specs) {
     ArgumentChecker.notNull(specs, "specs");
@@ -0,0 +1,283 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Client to a {@link BinaryDataStoreServer}. Requests from any number of threads are pipelined over the one
+ * connection; each caller blocks until its own response arrives, but doesn't wait for the responses to other
+ * callers' requests. Values being put are written to the socket from the caller's arrays without copying.
+ */
+public class BinaryDataStoreClient {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(BinaryDataStoreClient.class);
+
+  private static final long DEFAULT_TIMEOUT_IN_MILLISECONDS = 30 * 1000L;
+
+  private static final class PendingRequest {
+
+    private final CountDownLatch _latch = new CountDownLatch(1);
+    private ByteBuffer _response;
+    private String _error;
+
+    public void completed(final ByteBuffer response) {
+      _response = response;
+      _latch.countDown();
+    }
+
+    public void failed(final String error) {
+      _error = error;
+      _latch.countDown();
+    }
+
+  }
+
+  private final SocketChannel _channel;
+  private final Object _writeLock = new Object();
+  private final AtomicLong _nextRequestId = new AtomicLong();
+  private final ConcurrentMap<Long, PendingRequest> _pending = new ConcurrentHashMap<Long, PendingRequest>();
+  private final Thread _receiver;
+  private volatile boolean _closed;
+  private long _timeoutInMilliseconds = DEFAULT_TIMEOUT_IN_MILLISECONDS;
+
+  /**
+   * Creates a client connected to a server.
+   *
+   * @param address the server address
+   */
+  public BinaryDataStoreClient(final InetSocketAddress address) {
+    ArgumentChecker.notNull(address, "address");
+    try {
+      _channel = SocketChannel.open(address);
+      _channel.socket().setTcpNoDelay(true);
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't connect to " + address, e);
+    }
+    _receiver = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        receiveResponses();
+      }
+    }, "BinaryDataStoreClient " + address);
+    _receiver.setDaemon(true);
+    _receiver.start();
+  }
+
+  public long getTimeoutInMilliseconds() {
+    return _timeoutInMilliseconds;
+  }
+
+  public void setTimeoutInMilliseconds(final long timeoutInMilliseconds) {
+    _timeoutInMilliseconds = timeoutInMilliseconds;
+  }
+
+  /**
+   * Closes the connection. Any outstanding requests will fail.
+   */
+  public void close() {
+    _closed = true;
+    try {
+      _channel.close();
+    } catch (IOException e) {
+      s_logger.warn("Couldn't close channel", e);
+    }
+  }
+
+  private void readFully(final ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (_channel.read(buffer) < 0) {
+        throw new EOFException();
+      }
+    }
+    buffer.flip();
+  }
+
+  private void receiveResponses() {
+    final ByteBuffer prefix = ByteBuffer.allocate(BinaryDataStoreProtocol.FRAME_PREFIX);
+    String failure = "Connection closed";
+    try {
+      while (!_closed) {
+        prefix.clear();
+        readFully(prefix);
+        final ByteBuffer frame = ByteBuffer.allocate(prefix.getInt());
+        readFully(frame);
+        final long requestId = frame.getLong();
+        final byte status = frame.get();
+        final PendingRequest request = _pending.remove(requestId);
+        if (request == null) {
+          s_logger.warn("Response to unknown or timed out request {}", requestId);
+          continue;
+        }
+        if (status == BinaryDataStoreProtocol.OK) {
+          request.completed(frame);
+        } else {
+          request.failed(BinaryDataStoreProtocol.getString(frame));
+        }
+      }
+    } catch (IOException e) {
+      if (!_closed) {
+        s_logger.warn("Connection failed", e);
+        failure = "Connection failed - " + e.getMessage();
+      }
+    }
+    _closed = true;
+    final Iterator<PendingRequest> itr = _pending.values().iterator();
+    while (itr.hasNext()) {
+      itr.next().failed(failure);
+      itr.remove();
+    }
+  }
+
+  /**
+   * Sends a request and waits for the response.
+   *
+   * @param requestId the request identifier written into the first buffer
+   * @param buffers the request frame
+   * @return the response body, positioned after the status byte
+   */
+  private ByteBuffer sendRequest(final long requestId, final ByteBuffer[] buffers) {
+    final PendingRequest request = new PendingRequest();
+    _pending.put(requestId, request);
+    try {
+      if (_closed) {
+        throw new OpenGammaRuntimeException("Connection closed");
+      }
+      try {
+        synchronized (_writeLock) {
+          long remaining = 0;
+          for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+          }
+          while (remaining > 0) {
+            remaining -= _channel.write(buffers);
+          }
+        }
+      } catch (IOException e) {
+        throw new OpenGammaRuntimeException("Couldn't send request " + requestId, e);
+      }
+      try {
+        if (!request._latch.await(getTimeoutInMilliseconds(), TimeUnit.MILLISECONDS)) {
+          throw new OpenGammaRuntimeException("Didn't receive a response to " + requestId + " in " + getTimeoutInMilliseconds() + "ms");
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OpenGammaRuntimeException("Interrupted waiting for response to " + requestId, e);
+      }
+      if (request._error != null) {
+        throw new OpenGammaRuntimeException("Request " + requestId + " failed - " + request._error);
+      }
+      return request._response;
+    } finally {
+      _pending.remove(requestId);
+    }
+  }
+
+  private ByteBuffer createHeader(final long requestId, final byte operation, final ByteBuffer key, final int frameLength, final int extra) {
+    final ByteBuffer header = ByteBuffer.allocate(BinaryDataStoreProtocol.FRAME_PREFIX + 9 + key.remaining() + extra);
+    header.putInt(frameLength);
+    header.putLong(requestId);
+    header.put(operation);
+    header.put(key.duplicate());
+    return header;
+  }
+
+  /**
+   * Fetches values from the shared store.
+   *
+   * @param key the cache key, encoded by {@link BinaryDataStoreProtocol#encodeKey}
+   * @param identifiers the value identifiers
+   * @return the values found, missing values are omitted
+   */
+  /* package */Map<Long, byte[]> get(final ByteBuffer key, final Collection<Long> identifiers) {
+    final long requestId = _nextRequestId.incrementAndGet();
+    final int extra = 4 + identifiers.size() * 8;
+    final ByteBuffer request = createHeader(requestId, BinaryDataStoreProtocol.GET, key, 9 + key.remaining() + extra, extra);
+    request.putInt(identifiers.size());
+    for (Long identifier : identifiers) {
+      request.putLong(identifier);
+    }
+    request.flip();
+    final ByteBuffer response = sendRequest(requestId, new ByteBuffer[] {request });
+    final int count = response.getInt();
+    final Map<Long, byte[]> result = new HashMap<Long, byte[]>();
+    for (int i = 0; i < count; i++) {
+      final long identifier = response.getLong();
+      final int length = response.getInt();
+      if (length != BinaryDataStoreProtocol.MISSING) {
+        final byte[] data = new byte[length];
+        response.get(data);
+        result.put(identifier, data);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Writes values to the shared store.
+   *
+   * @param key the cache key, encoded by {@link BinaryDataStoreProtocol#encodeKey}
+   * @param data the values to write
+   */
+  /* package */void put(final ByteBuffer key, final Map<Long, byte[]> data) {
+    final long requestId = _nextRequestId.incrementAndGet();
+    final ByteBuffer[] buffers = new ByteBuffer[data.size() * 2 + 1];
+    final ByteBuffer valueHeaders = ByteBuffer.allocate(data.size() * BinaryDataStoreProtocol.VALUE_HEADER);
+    long length = 9 + key.remaining() + 4;
+    int i = 1;
+    for (Map.Entry<Long, byte[]> value : data.entrySet()) {
+      final int start = valueHeaders.position();
+      valueHeaders.putLong(value.getKey());
+      valueHeaders.putInt(value.getValue().length);
+      final ByteBuffer valueHeader = valueHeaders.duplicate();
+      valueHeader.position(start);
+      valueHeader.limit(start + BinaryDataStoreProtocol.VALUE_HEADER);
+      buffers[i++] = valueHeader;
+      buffers[i++] = ByteBuffer.wrap(value.getValue());
+      length += BinaryDataStoreProtocol.VALUE_HEADER + value.getValue().length;
+    }
+    if (length > Integer.MAX_VALUE) {
+      throw new OpenGammaRuntimeException("Request to put " + data.size() + " values too large at " + length + " bytes");
+    }
+    final ByteBuffer header = createHeader(requestId, BinaryDataStoreProtocol.PUT, key, (int) length, 4);
+    header.putInt(data.size());
+    header.flip();
+    buffers[0] = header;
+    sendRequest(requestId, buffers);
+  }
+
+  /**
+   * Deletes the shared store.
+   *
+   * @param key the cache key, encoded by {@link BinaryDataStoreProtocol#encodeKey}
+   */
+  /* package */void delete(final ByteBuffer key) {
+    final long requestId = _nextRequestId.incrementAndGet();
+    final ByteBuffer request = createHeader(requestId, BinaryDataStoreProtocol.DELETE, key, 9 + key.remaining(), 0);
+    request.flip();
+    sendRequest(requestId, new ByteBuffer[] {request });
+  }
+
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import com.opengamma.id.UniqueIdentifier;
+
+/**
+ * Framing used between a {@link BinaryDataStoreClient} and {@link BinaryDataStoreServer}. Every frame is a 4 byte
+ * length followed by that many bytes.
+ * <p>
+ * A request frame contains the request identifier (8 bytes), the operation (1 byte), the cache key and then:
+ * <ul>
+ * <li>{@link #GET} - a count followed by that many identifiers</li>
+ * <li>{@link #PUT} - a count followed by that many (identifier, length, data) tuples</li>
+ * <li>{@link #DELETE} - nothing</li>
+ * </ul>
+ * A response frame contains the request identifier, a status byte and, for a successful {@link #GET}, a count
+ * followed by (identifier, length, data) tuples with a length of {@link #MISSING} for values not in the store. An
+ * unsuccessful response contains an error message.
+ * <p>
+ * Responses may be returned in a different order to the requests.
+ */
+/* package */final class BinaryDataStoreProtocol {
+
+  public static final byte GET = 1;
+  public static final byte PUT = 2;
+  public static final byte DELETE = 3;
+
+  public static final byte OK = 0;
+  public static final byte ERROR = 1;
+
+  public static final int MISSING = -1;
+
+  /**
+   * Length of the frame length prefix.
+   */
+  public static final int FRAME_PREFIX = 4;
+  /**
+   * Length of the header on each value in a get response or put request - identifier and length.
+   */
+  public static final int VALUE_HEADER = 12;
+  /**
+   * Length of a response frame header after the prefix - request identifier and status.
+   */
+  public static final int RESPONSE_HEADER = 9;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private BinaryDataStoreProtocol() {
+  }
+
+  public static byte[] encodeString(final String str) {
+    return str.getBytes(UTF8);
+  }
+
+  public static void putString(final ByteBuffer buffer, final byte[] str) {
+    buffer.putShort((short) str.length);
+    buffer.put(str);
+  }
+
+  public static String getString(final ByteBuffer buffer) {
+    final byte[] str = new byte[buffer.getShort() & 0xFFFF];
+    buffer.get(str);
+    return new String(str, UTF8);
+  }
+
+  /**
+   * Encodes a cache key. Clients hold the encoded form and reuse it for each request.
+   *
+   * @param key the key
+   * @return the encoded key, flipped ready for reading
+   */
+  public static ByteBuffer encodeKey(final ViewComputationCacheKey key) {
+    final byte[] viewProcessId = encodeString(key.getViewProcessId().toString());
+    final byte[] calcConfig = encodeString(key.getCalculationConfigurationName());
+    final ByteBuffer buffer = ByteBuffer.allocate(2 + viewProcessId.length + 2 + calcConfig.length + 8);
+    putString(buffer, viewProcessId);
+    putString(buffer, calcConfig);
+    buffer.putLong(key.getSnapshotTimestamp());
+    buffer.flip();
+    return buffer;
+  }
+
+  public static ViewComputationCacheKey decodeKey(final ByteBuffer buffer) {
+    final UniqueIdentifier viewProcessId = UniqueIdentifier.parse(getString(buffer));
+    final String calcConfig = getString(buffer);
+    return new ViewComputationCacheKey(viewProcessId, calcConfig, buffer.getLong());
+  }
+
+}
@@ -0,0 +1,542 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.fudgemsg.wire.EncodedFudgeMsg;
+import org.fudgemsg.wire.FudgeDataOutputStreamWriter;
+import org.fudgemsg.wire.FudgeEncoded;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.Lifecycle;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.transport.EndPointDescriptionProvider;
+import com.opengamma.transport.socket.AbstractServerSocketProcess;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.ThreadUtils;
+
+/**
+ * Serves get, put and delete requests from {@link BinaryDataStoreClient} instances against the shared data stores
+ * of a {@link FudgeMessageStoreServer}. This is an alternative to sending the values within Fudge messages; the
+ * stored encodings are written to the socket as they are, directly from the store's buffers if it is backed by a
+ * {@link DirectBinaryDataStore}.
+ * <p>
+ * Connections are multiplexed over a fixed number of event loop threads. Requests are processed on the event loop
+ * as they arrive, so any number of requests from a client may be in flight on one connection. Release and find
+ * messages are still broadcast by the {@link FudgeMessageStoreServer}.
+ * <p>
+ * The end point description has the same form as that of an {@link AbstractServerSocketProcess} so that it can be
+ * published to remote calculation nodes alongside the other view processor services.
+ */
+public class BinaryDataStoreServer implements Lifecycle, EndPointDescriptionProvider {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(BinaryDataStoreServer.class);
+
+  private static final int READ_BUFFER_SIZE = 64 * 1024;
+  private static final int MAX_GATHER = 64;
+
+  private final FudgeMessageStoreServer _messageStoreServer;
+  private int _portNumber;
+  private InetAddress _bindAddress;
+  private int _eventLoops = Runtime.getRuntime().availableProcessors();
+
+  private ServerSocketChannel _serverChannel;
+  private Thread _acceptThread;
+  private EventLoop[] _eventLoop;
+  private volatile boolean _running;
+
+  public BinaryDataStoreServer(final FudgeMessageStoreServer messageStoreServer) {
+    ArgumentChecker.notNull(messageStoreServer, "messageStoreServer");
+    _messageStoreServer = messageStoreServer;
+  }
+
+  protected FudgeMessageStoreServer getMessageStoreServer() {
+    return _messageStoreServer;
+  }
+
+  protected DefaultViewComputationCacheSource getUnderlying() {
+    return getMessageStoreServer().getUnderlying();
+  }
+
+  public int getPortNumber() {
+    return _portNumber;
+  }
+
+  public void setPortNumber(final int portNumber) {
+    _portNumber = portNumber;
+  }
+
+  public InetAddress getBindAddress() {
+    return _bindAddress;
+  }
+
+  public void setBindAddress(final InetAddress bindAddress) {
+    _bindAddress = bindAddress;
+  }
+
+  public int getEventLoops() {
+    return _eventLoops;
+  }
+
+  /**
+   * Sets the number of threads servicing connections. Defaults to the number of processors.
+   *
+   * @param eventLoops the number of threads
+   */
+  public void setEventLoops(final int eventLoops) {
+    ArgumentChecker.notNegativeOrZero(eventLoops, "eventLoops");
+    _eventLoops = eventLoops;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return _running;
+  }
+
+  @Override
+  public synchronized void start() {
+    if (_running) {
+      return;
+    }
+    s_logger.info("Binding to {}:{}", getBindAddress(), getPortNumber());
+    try {
+      _serverChannel = ServerSocketChannel.open();
+      _serverChannel.socket().bind(new InetSocketAddress(getBindAddress(), getPortNumber()), 50);
+      setPortNumber(_serverChannel.socket().getLocalPort());
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Unable to bind to " + getBindAddress() + " port " + getPortNumber(), e);
+    }
+    _running = true;
+    _eventLoop = new EventLoop[getEventLoops()];
+    for (int i = 0; i < _eventLoop.length; i++) {
+      _eventLoop[i] = new EventLoop(i);
+      _eventLoop[i].start();
+    }
+    _acceptThread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        acceptConnections();
+      }
+    }, "BinaryDataStoreServer accept");
+    _acceptThread.setDaemon(true);
+    _acceptThread.start();
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (!_running) {
+      return;
+    }
+    _running = false;
+    try {
+      _serverChannel.close();
+    } catch (IOException e) {
+      s_logger.warn("Unable to close server socket on lifecycle stop", e);
+    }
+    ThreadUtils.safeJoin(_acceptThread, 60 * 1000L);
+    for (EventLoop eventLoop : _eventLoop) {
+      eventLoop.getSelector().wakeup();
+      ThreadUtils.safeJoin(eventLoop, 60 * 1000L);
+    }
+    _eventLoop = null;
+  }
+
+  private void loadInterfaceAddress(final NetworkInterface iface, final MutableFudgeMsg message) {
+    final Enumeration<NetworkInterface> ni = iface.getSubInterfaces();
+    while (ni.hasMoreElements()) {
+      loadInterfaceAddress(ni.nextElement(), message);
+    }
+    final Enumeration<InetAddress> ai = iface.getInetAddresses();
+    while (ai.hasMoreElements()) {
+      final InetAddress a = ai.nextElement();
+      if (a.isLoopbackAddress()) {
+        continue;
+      }
+      message.add(AbstractServerSocketProcess.ADDRESS_KEY, a.getHostAddress());
+    }
+  }
+
+  @Override
+  public synchronized FudgeMsg getEndPointDescription(final FudgeContext fudgeContext) {
+    if (!_running) {
+      throw new IllegalStateException("Server is not running");
+    }
+    final MutableFudgeMsg desc = fudgeContext.newMessage();
+    desc.add(AbstractServerSocketProcess.TYPE_KEY, AbstractServerSocketProcess.TYPE_VALUE);
+    final InetAddress addr = _serverChannel.socket().getInetAddress();
+    if (addr != null) {
+      if (addr.isAnyLocalAddress()) {
+        try {
+          final Enumeration<NetworkInterface> ni = NetworkInterface.getNetworkInterfaces();
+          while (ni.hasMoreElements()) {
+            loadInterfaceAddress(ni.nextElement(), desc);
+          }
+        } catch (IOException e) {
+          s_logger.warn("Error resolving local addresses", e);
+        }
+      } else {
+        desc.add(AbstractServerSocketProcess.ADDRESS_KEY, addr.getHostAddress());
+      }
+    }
+    desc.add(AbstractServerSocketProcess.PORT_KEY, getPortNumber());
+    return desc;
+  }
+
+  private void acceptConnections() {
+    int next = 0;
+    while (_running) {
+      final SocketChannel channel;
+      try {
+        channel = _serverChannel.accept();
+      } catch (ClosedChannelException e) {
+        break;
+      } catch (IOException e) {
+        s_logger.warn("Unable to accept a new connection", e);
+        continue;
+      }
+      s_logger.info("New connection from {}", channel.socket().getRemoteSocketAddress());
+      _eventLoop[next].register(channel);
+      next = (next + 1) % _eventLoop.length;
+    }
+  }
+
+  /**
+   * Returns the encoded form of a value, avoiding a decode and re-encode wherever possible.
+   */
+  private static ByteBuffer getEncoded(final FudgeMessageStore cacheStore, final FudgeContext fudgeContext, final long identifier) {
+    final FudgeMessageStore store = (cacheStore instanceof GenerationalFudgeMessageStore) ? ((GenerationalFudgeMessageStore) cacheStore).getStore(identifier) : cacheStore;
+    if (store instanceof DefaultFudgeMessageStore) {
+      return ((DefaultFudgeMessageStore) store).getEncoded(identifier);
+    }
+    final FudgeMsg message = store.get(identifier);
+    if (message == null) {
+      return null;
+    }
+    if (message instanceof FudgeEncoded) {
+      return ByteBuffer.wrap(((FudgeEncoded) message).getFudgeEncoded());
+    }
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new FudgeDataOutputStreamWriter(fudgeContext, baos).writeFields(message);
+    return ByteBuffer.wrap(baos.toByteArray());
+  }
+
+  /**
+   * A selector thread and the connections registered with it.
+   */
+  private final class EventLoop extends Thread {
+
+    private final Selector _selector;
+    private final Queue<SocketChannel> _registrations = new ConcurrentLinkedQueue<SocketChannel>();
+
+    private EventLoop(final int index) {
+      super("BinaryDataStoreServer-" + index);
+      setDaemon(true);
+      try {
+        _selector = Selector.open();
+      } catch (IOException e) {
+        throw new OpenGammaRuntimeException("Couldn't open selector", e);
+      }
+    }
+
+    public Selector getSelector() {
+      return _selector;
+    }
+
+    public void register(final SocketChannel channel) {
+      _registrations.add(channel);
+      _selector.wakeup();
+    }
+
+    private void processRegistrations() {
+      SocketChannel channel = _registrations.poll();
+      while (channel != null) {
+        try {
+          channel.configureBlocking(false);
+          channel.socket().setTcpNoDelay(true);
+          final Connection connection = new Connection(channel);
+          connection.setKey(channel.register(_selector, SelectionKey.OP_READ, connection));
+        } catch (IOException e) {
+          s_logger.warn("Couldn't register connection {}", channel);
+          closeQuietly(channel);
+        }
+        channel = _registrations.poll();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (_running) {
+          _selector.select();
+          processRegistrations();
+          final Iterator<SelectionKey> keys = _selector.selectedKeys().iterator();
+          while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            final Connection connection = (Connection) key.attachment();
+            try {
+              if (key.isReadable()) {
+                connection.read();
+              }
+              if (key.isValid() && key.isWritable()) {
+                connection.flush();
+              }
+            } catch (IOException e) {
+              s_logger.info("Dropped connection from {} - {}", connection, e.getMessage());
+              connection.close();
+            }
+          }
+        }
+      } catch (IOException e) {
+        s_logger.error("Event loop failed", e);
+      } finally {
+        for (SelectionKey key : _selector.keys()) {
+          ((Connection) key.attachment()).close();
+        }
+        SocketChannel channel = _registrations.poll();
+        while (channel != null) {
+          closeQuietly(channel);
+          channel = _registrations.poll();
+        }
+        try {
+          _selector.close();
+        } catch (IOException e) {
+          s_logger.warn("Couldn't close selector", e);
+        }
+      }
+    }
+
+  }
+
+  private static void closeQuietly(final SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Ignore
+    }
+  }
+
+  /**
+   * State of a single client connection. Only accessed from its event loop thread.
+   */
+  private final class Connection {
+
+    private final SocketChannel _channel;
+    private final LinkedList<ByteBuffer> _writeQueue = new LinkedList<ByteBuffer>();
+    private SelectionKey _key;
+    private ByteBuffer _readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+    private Connection(final SocketChannel channel) {
+      _channel = channel;
+    }
+
+    public void setKey(final SelectionKey key) {
+      _key = key;
+    }
+
+    public void read() throws IOException {
+      if (_channel.read(_readBuffer) < 0) {
+        s_logger.info("Connection from {} closed", this);
+        close();
+        return;
+      }
+      _readBuffer.flip();
+      int required = 0;
+      while (_readBuffer.remaining() >= BinaryDataStoreProtocol.FRAME_PREFIX) {
+        final int length = _readBuffer.getInt(_readBuffer.position());
+        if (_readBuffer.remaining() < BinaryDataStoreProtocol.FRAME_PREFIX + length) {
+          required = BinaryDataStoreProtocol.FRAME_PREFIX + length;
+          break;
+        }
+        _readBuffer.position(_readBuffer.position() + BinaryDataStoreProtocol.FRAME_PREFIX);
+        final ByteBuffer frame = _readBuffer.slice();
+        frame.limit(length);
+        _readBuffer.position(_readBuffer.position() + length);
+        processFrame(frame);
+      }
+      _readBuffer.compact();
+      if (required > _readBuffer.capacity()) {
+        final ByteBuffer larger = ByteBuffer.allocate(required);
+        _readBuffer.flip();
+        larger.put(_readBuffer);
+        _readBuffer = larger;
+      }
+      flush();
+    }
+
+    /**
+     * Writes as much of the pending output as the socket will accept. Reading is suspended until all of it has
+     * been written so a client that doesn't read its responses can't exhaust the server's memory.
+     */
+    public void flush() throws IOException {
+      while (!_writeQueue.isEmpty()) {
+        final int count = Math.min(_writeQueue.size(), MAX_GATHER);
+        final ByteBuffer[] buffers = new ByteBuffer[count];
+        final Iterator<ByteBuffer> itr = _writeQueue.iterator();
+        for (int i = 0; i < count; i++) {
+          buffers[i] = itr.next();
+        }
+        final long written = _channel.write(buffers);
+        while (!_writeQueue.isEmpty() && !_writeQueue.getFirst().hasRemaining()) {
+          _writeQueue.removeFirst();
+        }
+        if (written == 0) {
+          break;
+        }
+      }
+      if (_key.isValid()) {
+        _key.interestOps(_writeQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_WRITE);
+      }
+    }
+
+    public void close() {
+      _key.cancel();
+      _writeQueue.clear();
+      closeQuietly(_channel);
+    }
+
+    private void processFrame(final ByteBuffer frame) {
+      final long requestId = frame.getLong();
+      final byte operation = frame.get();
+      try {
+        final ViewComputationCacheKey key = BinaryDataStoreProtocol.decodeKey(frame);
+        switch (operation) {
+          case BinaryDataStoreProtocol.GET:
+            get(requestId, key, frame);
+            break;
+          case BinaryDataStoreProtocol.PUT:
+            put(requestId, key, frame);
+            break;
+          case BinaryDataStoreProtocol.DELETE:
+            delete(requestId, key);
+            break;
+          default:
+            throw new OpenGammaRuntimeException("Unknown operation " + operation);
+        }
+      } catch (RuntimeException e) {
+        s_logger.warn("Error processing request {} from {}: {}", new Object[] {requestId, this, e.getMessage() });
+        final String message = (e.getMessage() != null) ? e.getMessage() : e.toString();
+        final byte[] encoded = BinaryDataStoreProtocol.encodeString((message.length() > 1024) ? message.substring(0, 1024) : message);
+        final ByteBuffer response = ByteBuffer.allocate(BinaryDataStoreProtocol.FRAME_PREFIX + BinaryDataStoreProtocol.RESPONSE_HEADER + 2 + encoded.length);
+        response.putInt(BinaryDataStoreProtocol.RESPONSE_HEADER + 2 + encoded.length);
+        response.putLong(requestId);
+        response.put(BinaryDataStoreProtocol.ERROR);
+        BinaryDataStoreProtocol.putString(response, encoded);
+        response.flip();
+        _writeQueue.add(response);
+      }
+    }
+
+    private void acknowledge(final long requestId) {
+      final ByteBuffer response = ByteBuffer.allocate(BinaryDataStoreProtocol.FRAME_PREFIX + BinaryDataStoreProtocol.RESPONSE_HEADER);
+      response.putInt(BinaryDataStoreProtocol.RESPONSE_HEADER);
+      response.putLong(requestId);
+      response.put(BinaryDataStoreProtocol.OK);
+      response.flip();
+      _writeQueue.add(response);
+    }
+
+    private void get(final long requestId, final ViewComputationCacheKey key, final ByteBuffer request) {
+      final int count = request.getInt();
+      final DefaultViewComputationCache cache = getUnderlying().findCache(key);
+      if (cache == null) {
+        // Can happen if a node runs slowly, the job is retried elsewhere and the cycle completed while the original node is still generating traffic
+        s_logger.warn("Get request on invalid cache - {}", key);
+      }
+      final ByteBuffer header = ByteBuffer.allocate(BinaryDataStoreProtocol.FRAME_PREFIX + BinaryDataStoreProtocol.RESPONSE_HEADER + 4);
+      final ByteBuffer valueHeaders = ByteBuffer.allocate(count * BinaryDataStoreProtocol.VALUE_HEADER);
+      final List<ByteBuffer> response = new ArrayList<ByteBuffer>(count * 2 + 1);
+      response.add(header);
+      long length = BinaryDataStoreProtocol.RESPONSE_HEADER + 4;
+      for (int i = 0; i < count; i++) {
+        final long identifier = request.getLong();
+        final ByteBuffer value = (cache != null) ? getEncoded(cache.getSharedDataStore(), getUnderlying().getFudgeContext(), identifier) : null;
+        valueHeaders.putLong(identifier);
+        valueHeaders.putInt((value != null) ? value.remaining() : BinaryDataStoreProtocol.MISSING);
+        final ByteBuffer valueHeader = valueHeaders.duplicate();
+        valueHeader.position(i * BinaryDataStoreProtocol.VALUE_HEADER);
+        valueHeader.limit(valueHeader.position() + BinaryDataStoreProtocol.VALUE_HEADER);
+        response.add(valueHeader);
+        length += BinaryDataStoreProtocol.VALUE_HEADER;
+        if (value != null) {
+          response.add(value);
+          length += value.remaining();
+        }
+      }
+      if (length > Integer.MAX_VALUE) {
+        throw new OpenGammaRuntimeException("Response to " + count + " values too large at " + length + " bytes");
+      }
+      header.putInt((int) length);
+      header.putLong(requestId);
+      header.put(BinaryDataStoreProtocol.OK);
+      header.putInt(count);
+      header.flip();
+      _writeQueue.addAll(response);
+    }
+
+    private void put(final long requestId, final ViewComputationCacheKey key, final ByteBuffer request) {
+      final int count = request.getInt();
+      final FudgeContext fudgeContext = getUnderlying().getFudgeContext();
+      final Map<Long, FudgeMsg> data = new HashMap<Long, FudgeMsg>();
+      for (int i = 0; i < count; i++) {
+        final long identifier = request.getLong();
+        final byte[] value = new byte[request.getInt()];
+        request.get(value);
+        data.put(identifier, new EncodedFudgeMsg(value, fudgeContext));
+      }
+      // Review 2010-10-19 Andrew -- This causes cache creation. This is bad if messages were delayed and the cache has already been released.
+      final FudgeMessageStore store = getUnderlying().getCache(key).getSharedDataStore();
+      if (count == 1) {
+        final Map.Entry<Long, FudgeMsg> entry = data.entrySet().iterator().next();
+        store.put(entry.getKey(), entry.getValue());
+      } else {
+        store.put(data);
+      }
+      getMessageStoreServer().valuesPut(key, data.keySet());
+      acknowledge(requestId);
+    }
+
+    private void delete(final long requestId, final ViewComputationCacheKey key) {
+      // [ENG-256] Remove/replace this. Propogate the overall "releaseCache" message only rather than the component "delete" operations.
+      final DefaultViewComputationCache cache = getUnderlying().findCache(key);
+      if (cache != null) {
+        cache.getSharedDataStore().delete();
+      }
+      acknowledge(requestId);
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(_channel.socket().getRemoteSocketAddress());
+    }
+
+  }
+
+}
@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.view.cache;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -92,6 +93,38 @@ public class CachingIdentifierMap implements IdentifierMap {
     return identifiers;
   }
 
+  @Override
+  public void getIdentifiers(final List<ValueSpecification> specs, final long[] identifiers) {
+    final int count = specs.size();
+    List<ValueSpecification> cacheMisses = null;
+    int[] cacheMissIndices = null;
+    int misses = 0;
+    for (int i = 0; i < count; i++) {
+      final ValueSpecification spec = specs.get(i);
+      final Long value = _specificationToIdentifier.get(spec);
+      if (value != null) {
+        identifiers[i] = value;
+      } else {
+        if (cacheMisses == null) {
+          cacheMisses = new ArrayList<ValueSpecification>();
+          cacheMissIndices = new int[count - i];
+        }
+        cacheMisses.add(spec);
+        cacheMissIndices[misses++] = i;
+      }
+    }
+    if (cacheMisses != null) {
+      final long[] values = new long[misses];
+      getUnderlying().getIdentifiers(cacheMisses, values);
+      for (int i = 0; i < misses; i++) {
+        final ValueSpecification spec = cacheMisses.get(i);
+        _specificationToIdentifier.put(spec, values[i]);
+        _identifierToSpecification.put(values[i], spec);
+        identifiers[cacheMissIndices[i]] = values[i];
+      }
+    }
+  }
+
   @Override
   public ValueSpecification getValueSpecification(long identifier) {
     ValueSpecification spec = _identifierToSpecification.get(identifier);
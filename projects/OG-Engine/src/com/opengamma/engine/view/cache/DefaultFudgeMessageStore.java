@@ -6,6 +6,7 @@
 package com.opengamma.engine.view.cache;
 
 import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
@@ -52,6 +53,21 @@ public class DefaultFudgeMessageStore implements FudgeMessageStore {
     return (data != null) ? new EncodedFudgeMsg(data, getFudgeContext()) : null;
   }
 
+  /**
+   * Returns the encoded form of a message without decoding it. If the underlying store is a
+   * {@link DirectBinaryDataStore} the buffer is a view onto its storage rather than a copy.
+   * 
+   * @param identifier the identifier of the message
+   * @return the encoded message, or null if there is none
+   */
+  public ByteBuffer getEncoded(final long identifier) {
+    if (getBinaryData() instanceof DirectBinaryDataStore) {
+      return ((DirectBinaryDataStore) getBinaryData()).getBuffer(identifier);
+    }
+    final byte[] data = getBinaryData().get(identifier);
+    return (data != null) ? ByteBuffer.wrap(data) : null;
+  }
+
   @Override
   public Map<Long, FudgeMsg> get(Collection<Long> identifiers) {
     final Map<Long, byte[]> dataValues = getBinaryData().get(identifiers);
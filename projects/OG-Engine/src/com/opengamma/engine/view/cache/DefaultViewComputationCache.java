@@ -12,6 +12,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
 import java.util.WeakHashMap;
 
 import org.fudgemsg.FudgeContext;
@@ -52,6 +53,7 @@ public class DefaultViewComputationCache implements ViewComputationCache,
   private final FudgeContext _fudgeContext;
 
   private MissingValueLoader _missingValueLoader;
+  private DeserializedValueCache _deserializedValueCache;
 
   /**
    * The size of recent values that have gone into or come out of this cache.
@@ -83,6 +85,20 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     return _missingValueLoader;
   }
 
+  /**
+   * Sets a cache of deserialized shared values. Repeated reads of a shared value will return the
+   * same object instance while it remains in the cache.
+   * 
+   * @param deserializedValueCache the cache, or {@code null} to always deserialize from the data store
+   */
+  public void setDeserializedValueCache(final DeserializedValueCache deserializedValueCache) {
+    _deserializedValueCache = deserializedValueCache;
+  }
+
+  public DeserializedValueCache getDeserializedValueCache() {
+    return _deserializedValueCache;
+  }
+
   /**
    * Gets the identifierSource field.
    * @return the identifierSource
@@ -117,17 +133,26 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     final long identifier = getIdentifierMap().getIdentifier(specification);
     FudgeMsg data = getPrivateDataStore().get(identifier);
     if (data == null) {
-      data = getSharedDataStore().get(identifier);
-    }
-    if (data == null) {
-      final MissingValueLoader loader = getMissingValueLoader();
-      if (loader == null) {
-        return null;
+      final DeserializedValueCache valueCache = getDeserializedValueCache();
+      if (valueCache != null) {
+        final Object value = valueCache.get(identifier);
+        if (value != null) {
+          return value;
+        }
       }
-      data = loader.findMissingValue(identifier);
+      data = getSharedDataStore().get(identifier);
       if (data == null) {
-        return null;
+        final MissingValueLoader loader = getMissingValueLoader();
+        if (loader == null) {
+          return null;
+        }
+        data = loader.findMissingValue(identifier);
+        if (data == null) {
+          return null;
+        }
       }
+      final FudgeDeserializationContext context = new FudgeDeserializationContext(getFudgeContext());
+      return deserializeSharedValue(context, specification, identifier, data);
     }
     final FudgeDeserializationContext context = new FudgeDeserializationContext(getFudgeContext());
     _valueSizeCache.put(specification, FudgeSize.calculateMessageSize(data));
@@ -138,66 +163,152 @@ public class DefaultViewComputationCache implements ViewComputationCache,
   public Object getValue(final ValueSpecification specification, final CacheSelectHint filter) {
     ArgumentChecker.notNull(specification, "Specification");
     final long identifier = getIdentifierMap().getIdentifier(specification);
-    FudgeMsg data = (filter.isPrivateValue(specification) ? getPrivateDataStore() : getSharedDataStore())
-        .get(identifier);
+    if (filter.isPrivateValue(specification)) {
+      final FudgeMsg data = getPrivateDataStore().get(identifier);
+      if (data == null) {
+        return null;
+      }
+      final FudgeDeserializationContext context = new FudgeDeserializationContext(getFudgeContext());
+      _valueSizeCache.put(specification, FudgeSize.calculateMessageSize(data));
+      return deserializeValue(context, data);
+    }
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    if (valueCache != null) {
+      final Object value = valueCache.get(identifier);
+      if (value != null) {
+        return value;
+      }
+    }
+    final FudgeMsg data = getSharedDataStore().get(identifier);
     if (data == null) {
       return null;
     }
     final FudgeDeserializationContext context = new FudgeDeserializationContext(getFudgeContext());
-    _valueSizeCache.put(specification, FudgeSize.calculateMessageSize(data));
-    return deserializeValue(context, data);
+    return deserializeSharedValue(context, specification, identifier, data);
+  }
+
+  /**
+   * Deserializes a value from the shared data store (or missing value loader), storing the result in the
+   * deserialized value cache if there is one.
+   * 
+   * @param context the deserialization context
+   * @param specification the value specification
+   * @param identifier the value identifier
+   * @param data the encoded value
+   * @return the deserialized value
+   */
+  private Object deserializeSharedValue(final FudgeDeserializationContext context, final ValueSpecification specification, final long identifier,
+      final FudgeMsg data) {
+    final int size = FudgeSize.calculateMessageSize(data);
+    _valueSizeCache.put(specification, size);
+    final Object value = deserializeValue(context, data);
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    if ((valueCache != null) && (value != null)) {
+      valueCache.put(identifier, value, size);
+    }
+    return value;
+  }
+
+  /**
+   * Gets a list with random access to the specifications, copying them if necessary.
+   * 
+   * @param specifications the specifications
+   * @return the list
+   */
+  @SuppressWarnings("unchecked")
+  private static List<ValueSpecification> asList(final Collection<ValueSpecification> specifications) {
+    if ((specifications instanceof List<?>) && (specifications instanceof RandomAccess)) {
+      return (List<ValueSpecification>) specifications;
+    }
+    return new ArrayList<ValueSpecification>(specifications);
+  }
+
+  /**
+   * Gets the identifiers that have not been found yet.
+   * 
+   * @param identifiers the identifiers
+   * @param found flags for the identifiers already found
+   * @return the identifiers not yet found
+   */
+  private static List<Long> notFound(final long[] identifiers, final boolean[] found) {
+    final List<Long> result = new ArrayList<Long>(identifiers.length);
+    for (int i = 0; i < identifiers.length; i++) {
+      if (!found[i]) {
+        result.add(identifiers[i]);
+      }
+    }
+    return result;
   }
 
   @Override
   public Collection<Pair<ValueSpecification, Object>> getValues(final Collection<ValueSpecification> specifications) {
     ArgumentChecker.notNull(specifications, "specifications");
-    final Map<ValueSpecification, Long> identifiers = getIdentifierMap().getIdentifiers(specifications);
-    final Collection<Pair<ValueSpecification, Object>> returnValues = new ArrayList<Pair<ValueSpecification, Object>>(specifications.size());
-    final Collection<Long> identifierValues = identifiers.values();
+    final List<ValueSpecification> specificationList = asList(specifications);
+    final int count = specificationList.size();
+    final long[] identifiers = new long[count];
+    getIdentifierMap().getIdentifiers(specificationList, identifiers);
+    final boolean[] found = new boolean[count];
+    int remaining = count;
+    final Collection<Pair<ValueSpecification, Object>> returnValues = new ArrayList<Pair<ValueSpecification, Object>>(count);
     final FudgeDeserializationContext context = new FudgeDeserializationContext(getFudgeContext());
-    Map<Long, FudgeMsg> rawValues = getPrivateDataStore().get(identifierValues);
+    Map<Long, FudgeMsg> rawValues = getPrivateDataStore().get(notFound(identifiers, found));
     if (!rawValues.isEmpty()) {
-      final Iterator<Map.Entry<ValueSpecification, Long>> identifierIterator = identifiers.entrySet().iterator();
-      while (identifierIterator.hasNext()) {
-        final Map.Entry<ValueSpecification, Long> identifier = identifierIterator.next();
-        final FudgeMsg data = rawValues.get(identifier.getValue());
+      for (int i = 0; i < count; i++) {
+        final FudgeMsg data = rawValues.get(identifiers[i]);
         if (data != null) {
-          _valueSizeCache.put(identifier.getKey(), FudgeSize.calculateMessageSize(data));
-          returnValues.add(Pair.of(identifier.getKey(), deserializeValue(context, data)));
-          identifierIterator.remove();
+          final ValueSpecification specification = specificationList.get(i);
+          _valueSizeCache.put(specification, FudgeSize.calculateMessageSize(data));
+          returnValues.add(Pair.of(specification, deserializeValue(context, data)));
+          found[i] = true;
+          remaining--;
         }
       }
-      if (identifiers.isEmpty()) {
+      if (remaining == 0) {
         return returnValues;
       }
     }
-    rawValues = getSharedDataStore().get(identifierValues);
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    if (valueCache != null) {
+      for (int i = 0; i < count; i++) {
+        if (!found[i]) {
+          final Object value = valueCache.get(identifiers[i]);
+          if (value != null) {
+            returnValues.add(Pair.of(specificationList.get(i), value));
+            found[i] = true;
+            remaining--;
+          }
+        }
+      }
+      if (remaining == 0) {
+        return returnValues;
+      }
+    }
+    rawValues = getSharedDataStore().get(notFound(identifiers, found));
     if (!rawValues.isEmpty()) {
-      final Iterator<Map.Entry<ValueSpecification, Long>> identifierIterator = identifiers.entrySet().iterator();
-      while (identifierIterator.hasNext()) {
-        final Map.Entry<ValueSpecification, Long> identifier = identifierIterator.next();
-        final FudgeMsg data = rawValues.get(identifier.getValue());
-        if (data != null) {
-          _valueSizeCache.put(identifier.getKey(), FudgeSize.calculateMessageSize(data));
-          returnValues.add(Pair.of(identifier.getKey(), deserializeValue(context, data)));
-          identifierIterator.remove();
+      for (int i = 0; i < count; i++) {
+        if (!found[i]) {
+          final FudgeMsg data = rawValues.get(identifiers[i]);
+          if (data != null) {
+            returnValues.add(Pair.of(specificationList.get(i), deserializeSharedValue(context, specificationList.get(i), identifiers[i], data)));
+            found[i] = true;
+            remaining--;
+          }
         }
       }
-      if (identifiers.isEmpty()) {
+      if (remaining == 0) {
         return returnValues;
       }
     }
     final MissingValueLoader loader = getMissingValueLoader();
     if (loader != null) {
-      rawValues = loader.findMissingValues(identifierValues);
+      rawValues = loader.findMissingValues(notFound(identifiers, found));
       if (!rawValues.isEmpty()) {
-        final Iterator<Map.Entry<ValueSpecification, Long>> identifierIterator = identifiers.entrySet().iterator();
-        while (identifierIterator.hasNext()) {
-          final Map.Entry<ValueSpecification, Long> identifier = identifierIterator.next();
-          final FudgeMsg data = rawValues.get(identifier.getValue());
-          if (data != null) {
-            _valueSizeCache.put(identifier.getKey(), FudgeSize.calculateMessageSize(data));
-            returnValues.add(Pair.of(identifier.getKey(), deserializeValue(context, data)));
+        for (int i = 0; i < count; i++) {
+          if (!found[i]) {
+            final FudgeMsg data = rawValues.get(identifiers[i]);
+            if (data != null) {
+              returnValues.add(Pair.of(specificationList.get(i), deserializeSharedValue(context, specificationList.get(i), identifiers[i], data)));
+            }
           }
         }
       }
@@ -208,21 +319,38 @@ public class DefaultViewComputationCache implements ViewComputationCache,
   @Override
   public Collection<Pair<ValueSpecification, Object>> getValues(final Collection<ValueSpecification> specifications, final CacheSelectHint filter) {
     ArgumentChecker.notNull(specifications, "specifications");
-    final Map<ValueSpecification, Long> identifiers = getIdentifierMap().getIdentifiers(specifications);
-    final Collection<Pair<ValueSpecification, Object>> returnValues = new ArrayList<Pair<ValueSpecification, Object>>(specifications.size());
+    final List<ValueSpecification> specificationList = asList(specifications);
+    final int count = specificationList.size();
+    final long[] identifiers = new long[count];
+    getIdentifierMap().getIdentifiers(specificationList, identifiers);
+    final Collection<Pair<ValueSpecification, Object>> returnValues = new ArrayList<Pair<ValueSpecification, Object>>(count);
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    final boolean[] privateValue = new boolean[count];
     List<Long> privateIdentifiers = null;
     List<Long> sharedIdentifiers = null;
-    for (ValueSpecification specification : specifications) {
-      if (filter.isPrivateValue(specification)) {
+    Object[] cachedValues = null;
+    for (int i = 0; i < count; i++) {
+      if (filter.isPrivateValue(specificationList.get(i))) {
+        privateValue[i] = true;
         if (privateIdentifiers == null) {
-          privateIdentifiers = new ArrayList<Long>(specifications.size());
+          privateIdentifiers = new ArrayList<Long>(count);
         }
-        privateIdentifiers.add(identifiers.get(specification));
+        privateIdentifiers.add(identifiers[i]);
       } else {
+        if (valueCache != null) {
+          final Object value = valueCache.get(identifiers[i]);
+          if (value != null) {
+            if (cachedValues == null) {
+              cachedValues = new Object[count];
+            }
+            cachedValues[i] = value;
+            continue;
+          }
+        }
         if (sharedIdentifiers == null) {
-          sharedIdentifiers = new ArrayList<Long>(specifications.size());
+          sharedIdentifiers = new ArrayList<Long>(count);
         }
-        sharedIdentifiers.add(identifiers.get(specification));
+        sharedIdentifiers.add(identifiers[i]);
       }
     }
     final Map<Long, FudgeMsg> rawValues = new HashMap<Long, FudgeMsg>();
@@ -244,13 +372,22 @@ public class DefaultViewComputationCache implements ViewComputationCache,
       }
     }
     final FudgeDeserializationContext context = new FudgeDeserializationContext(getFudgeContext());
-    for (Map.Entry<ValueSpecification, Long> identifier : identifiers.entrySet()) {
-      final FudgeMsg data = rawValues.get(identifier.getValue());
+    for (int i = 0; i < count; i++) {
+      final ValueSpecification specification = specificationList.get(i);
+      if ((cachedValues != null) && (cachedValues[i] != null)) {
+        returnValues.add(Pair.of(specification, cachedValues[i]));
+        continue;
+      }
+      final FudgeMsg data = rawValues.get(identifiers[i]);
       if (data != null) {
-        _valueSizeCache.put(identifier.getKey(), FudgeSize.calculateMessageSize(data));
-        returnValues.add(Pair.of(identifier.getKey(), deserializeValue(context, data)));
+        if (privateValue[i]) {
+          _valueSizeCache.put(specification, FudgeSize.calculateMessageSize(data));
+          returnValues.add(Pair.of(specification, deserializeValue(context, data)));
+        } else {
+          returnValues.add(Pair.of(specification, deserializeSharedValue(context, specification, identifiers[i], data)));
+        }
       } else {
-        returnValues.add(Pair.of(identifier.getKey(), null));
+        returnValues.add(Pair.of(specification, (Object) null));
       }
     }
     return returnValues;
@@ -263,6 +400,25 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     final FudgeMsg data = serializeValue(context, value.getValue());
     _valueSizeCache.put(value.getSpecification(), FudgeSize.calculateMessageSize(data));
     dataStore.put(identifier, data);
+    if (dataStore == getSharedDataStore()) {
+      invalidateDeserializedValue(identifier);
+    }
+  }
+
+  private void invalidateDeserializedValue(final long identifier) {
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    if (valueCache != null) {
+      valueCache.remove(identifier);
+    }
+  }
+
+  private void invalidateDeserializedValues(final Collection<Long> identifiers) {
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    if (valueCache != null) {
+      for (Long identifier : identifiers) {
+        valueCache.remove(identifier);
+      }
+    }
   }
 
   @Override
@@ -280,21 +436,71 @@ public class DefaultViewComputationCache implements ViewComputationCache,
     AbstractViewComputationCache.putValue(this, value, filter);
   }
 
-  protected void putValues(final Collection<ComputedValue> values, final FudgeMessageStore dataStore) {
-    ArgumentChecker.notNull(values, "values");
-    final Collection<ValueSpecification> specifications = new ArrayList<ValueSpecification>(values.size());
+  /**
+   * Makes values held by the cache of a previous cycle available from this cache without copying them. This is
+   * only possible if the data stores of both caches are {@link GenerationalFudgeMessageStore}s. Inherited values
+   * replace any already written to this cache.
+   *
+   * @param previous the cache of the previous cycle, not null
+   * @param specifications the values to inherit, not null
+   * @return true if the values were inherited, false if the data stores don't support it
+   */
+  public boolean inheritValues(final DefaultViewComputationCache previous, final Collection<ValueSpecification> specifications) {
+    ArgumentChecker.notNull(previous, "previous");
+    ArgumentChecker.notNull(specifications, "specifications");
+    if (!(getSharedDataStore() instanceof GenerationalFudgeMessageStore) || !(getPrivateDataStore() instanceof GenerationalFudgeMessageStore)
+        || !(previous.getSharedDataStore() instanceof GenerationalFudgeMessageStore) || !(previous.getPrivateDataStore() instanceof GenerationalFudgeMessageStore)) {
+      return false;
+    }
+    if ((getSharedDataStore() == getPrivateDataStore()) != (previous.getSharedDataStore() == previous.getPrivateDataStore())) {
+      return false;
+    }
+    final List<ValueSpecification> specificationList = asList(specifications);
+    final long[] identifierArray = new long[specificationList.size()];
+    getIdentifierMap().getIdentifiers(specificationList, identifierArray);
+    final Collection<Long> identifiers = new ArrayList<Long>(identifierArray.length);
+    for (long identifier : identifierArray) {
+      identifiers.add(identifier);
+    }
+    ((GenerationalFudgeMessageStore) getSharedDataStore()).inherit((GenerationalFudgeMessageStore) previous.getSharedDataStore(), identifiers);
+    if (getPrivateDataStore() != getSharedDataStore()) {
+      ((GenerationalFudgeMessageStore) getPrivateDataStore()).inherit((GenerationalFudgeMessageStore) previous.getPrivateDataStore(), identifiers);
+    }
+    invalidateDeserializedValues(identifiers);
+    return true;
+  }
+
+  /**
+   * Gets the identifiers of the values, in iteration order.
+   * 
+   * @param values the values
+   * @return the identifiers
+   */
+  private long[] getIdentifiers(final Collection<ComputedValue> values) {
+    final List<ValueSpecification> specifications = new ArrayList<ValueSpecification>(values.size());
     for (ComputedValue value : values) {
       specifications.add(value.getSpecification());
     }
-    final Map<ValueSpecification, Long> identifiers = getIdentifierMap().getIdentifiers(specifications);
+    final long[] identifiers = new long[specifications.size()];
+    getIdentifierMap().getIdentifiers(specifications, identifiers);
+    return identifiers;
+  }
+
+  protected void putValues(final Collection<ComputedValue> values, final FudgeMessageStore dataStore) {
+    ArgumentChecker.notNull(values, "values");
+    final long[] identifiers = getIdentifiers(values);
     final Map<Long, FudgeMsg> data = new HashMap<Long, FudgeMsg>();
     final FudgeSerializationContext context = new FudgeSerializationContext(getFudgeContext());
+    int i = 0;
     for (ComputedValue value : values) {
       final FudgeMsg valueData = serializeValue(context, value.getValue());
       _valueSizeCache.put(value.getSpecification(), FudgeSize.calculateMessageSize(valueData));
-      data.put(identifiers.get(value.getSpecification()), valueData);
+      data.put(identifiers[i++], valueData);
     }
     dataStore.put(data);
+    if (dataStore == getSharedDataStore()) {
+      invalidateDeserializedValues(data.keySet());
+    }
   }
 
   @Override
@@ -310,32 +516,31 @@ public class DefaultViewComputationCache implements ViewComputationCache,
   @Override
   public void putValues(final Collection<ComputedValue> values, final CacheSelectHint filter) {
     ArgumentChecker.notNull(values, "values");
-    final Collection<ValueSpecification> specifications = new ArrayList<ValueSpecification>(values.size());
-    for (ComputedValue value : values) {
-      specifications.add(value.getSpecification());
-    }
-    final Map<ValueSpecification, Long> identifiers = getIdentifierMap().getIdentifiers(specifications);
+    final long[] identifiers = getIdentifiers(values);
     final FudgeSerializationContext context = new FudgeSerializationContext(getFudgeContext());
     Map<Long, FudgeMsg> privateData = null;
     Map<Long, FudgeMsg> sharedData = null;
+    int i = 0;
     for (ComputedValue value : values) {
+      final long identifier = identifiers[i++];
       final FudgeMsg valueData = serializeValue(context, value.getValue());
       _valueSizeCache.put(value.getSpecification(), FudgeSize.calculateMessageSize(valueData));
       if (filter.isPrivateValue(value.getSpecification())) {
         if (privateData == null) {
           privateData = new HashMap<Long, FudgeMsg>();
         }
-        privateData.put(identifiers.get(value.getSpecification()), valueData);
+        privateData.put(identifier, valueData);
       } else {
         if (sharedData == null) {
           sharedData = new HashMap<Long, FudgeMsg>();
         }
-        sharedData.put(identifiers.get(value.getSpecification()), valueData);
+        sharedData.put(identifier, valueData);
       }
     }
     // TODO 2010-08-31 Andrew -- can we overlay the shared and private puts ?
     if (sharedData != null) {
       getSharedDataStore().put(sharedData);
+      invalidateDeserializedValues(sharedData.keySet());
     }
     if (privateData != null) {
       getPrivateDataStore().put(privateData);
@@ -383,6 +588,10 @@ public class DefaultViewComputationCache implements ViewComputationCache,
    */
   public void delete() {
     _valueSizeCache.clear();
+    final DeserializedValueCache valueCache = getDeserializedValueCache();
+    if (valueCache != null) {
+      valueCache.clear();
+    }
     getPrivateDataStore().delete();
     if (getSharedDataStore() != getPrivateDataStore()) {
       getSharedDataStore().delete();
@@ -60,6 +60,9 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
 
   private ReleaseCachesCallback _releaseCachesCallback;
   private MissingValueLoader _missingValueLoader;
+  private volatile long _deserializedValueCacheSize;
+  private volatile int _maximumCacheGenerations;
+  private final DeserializedValueCache.Statistics _deserializedValueCacheStatistics = new DeserializedValueCache.Statistics();
 
   protected DefaultViewComputationCacheSource(final IdentifierMap identifierMap, final FudgeContext fudgeContext,
       final FudgeMessageStoreFactory dataStoreFactory) {
@@ -134,10 +137,25 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
       // Have to double-check. Too expensive to construct otherwise.
       cache = findCache(key);
       if (cache == null) {
-        final FudgeMessageStore privateDataStore = _privateDataStoreFactory.createMessageStore(key);
-        final FudgeMessageStore sharedDataStore = (_privateDataStoreFactory == _sharedDataStoreFactory) ? privateDataStore
-            : _sharedDataStoreFactory.createMessageStore(key);
+        FudgeMessageStore privateDataStore = _privateDataStoreFactory.createMessageStore(key);
+        final int maximumCacheGenerations = getMaximumCacheGenerations();
+        if (maximumCacheGenerations > 0) {
+          privateDataStore = new GenerationalFudgeMessageStore(privateDataStore, maximumCacheGenerations);
+        }
+        FudgeMessageStore sharedDataStore;
+        if (_privateDataStoreFactory == _sharedDataStoreFactory) {
+          sharedDataStore = privateDataStore;
+        } else {
+          sharedDataStore = _sharedDataStoreFactory.createMessageStore(key);
+          if (maximumCacheGenerations > 0) {
+            sharedDataStore = new GenerationalFudgeMessageStore(sharedDataStore, maximumCacheGenerations);
+          }
+        }
         cache = createViewComputationCache(getIdentifierMap(), privateDataStore, sharedDataStore, getFudgeContext());
+        final long deserializedValueCacheSize = getDeserializedValueCacheSize();
+        if (deserializedValueCacheSize > 0) {
+          cache.setDeserializedValueCache(new DeserializedValueCache(deserializedValueCacheSize, getDeserializedValueCacheStatistics()));
+        }
         _cachesByKey.put(key, cache);
         final Pair<UniqueIdentifier, Long> releaseKey = Pair.of(key.getViewProcessId(), key.getSnapshotTimestamp());
         List<ViewComputationCacheKey> caches = _activeCaches.get(releaseKey);
@@ -226,4 +244,45 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
     return _missingValueLoader;
   }
 
+  /**
+   * Sets the maximum size of the deserialized value cache attached to each new cache. The size is the
+   * total of the encoded message sizes of the values held. Caches that already exist are not affected.
+   * 
+   * @param deserializedValueCacheSize the maximum size in bytes, or 0 to disable the deserialized value caches
+   */
+  public void setDeserializedValueCacheSize(final long deserializedValueCacheSize) {
+    ArgumentChecker.notNegative(deserializedValueCacheSize, "deserializedValueCacheSize");
+    _deserializedValueCacheSize = deserializedValueCacheSize;
+  }
+
+  public long getDeserializedValueCacheSize() {
+    return _deserializedValueCacheSize;
+  }
+
+  /**
+   * Sets how many cycles back new caches may inherit unchanged values from by reference, instead of them being
+   * copied from the previous cycle's cache. See {@link DefaultViewComputationCache#inheritValues}. Caches that
+   * already exist are not affected.
+   * 
+   * @param maximumCacheGenerations the number of generations, or 0 to always copy values
+   */
+  public void setMaximumCacheGenerations(final int maximumCacheGenerations) {
+    ArgumentChecker.notNegative(maximumCacheGenerations, "maximumCacheGenerations");
+    _maximumCacheGenerations = maximumCacheGenerations;
+  }
+
+  public int getMaximumCacheGenerations() {
+    return _maximumCacheGenerations;
+  }
+
+  /**
+   * Returns the hit, miss and eviction counters shared by the deserialized value caches of all caches from
+   * this source.
+   * 
+   * @return the statistics
+   */
+  public DeserializedValueCache.Statistics getDeserializedValueCacheStatistics() {
+    return _deserializedValueCacheStatistics;
+  }
+
 }
@@ -0,0 +1,172 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Holds deserialized values from a {@link DefaultViewComputationCache} so that repeated reads of the same
+ * shared value return the same object instead of decoding the Fudge message again. Values returned from a
+ * computation cache must already be treated as immutable by the functions that consume them so sharing an
+ * instance between job items is safe.
+ * <p>
+ * The cache is bounded by the total of the encoded message sizes of the values held, evicting the least
+ * recently used values first. It is expected that one of these will be created per iteration per
+ * View/Configuration pair. This class is internally synchronized.
+ */
+public class DeserializedValueCache {
+
+  private static final class Entry {
+
+    private final Object _value;
+    private final int _size;
+
+    private Entry(final Object value, final int size) {
+      _value = value;
+      _size = size;
+    }
+
+  }
+
+  private final long _maximumSize;
+  private final Statistics _statistics;
+  private final LinkedHashMap<Long, Entry> _values = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+  private long _size;
+
+  /**
+   * Hit, miss and eviction counters. One of these is typically shared by all caches created by a
+   * {@link DefaultViewComputationCacheSource}.
+   */
+  public static class Statistics {
+
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+    private final AtomicLong _evictions = new AtomicLong();
+
+    public long getHits() {
+      return _hits.get();
+    }
+
+    public long getMisses() {
+      return _misses.get();
+    }
+
+    public long getEvictions() {
+      return _evictions.get();
+    }
+
+    public void reset() {
+      _hits.set(0);
+      _misses.set(0);
+      _evictions.set(0);
+    }
+
+  }
+
+  /**
+   * @param maximumSize the maximum total encoded size, in bytes, of the values to hold
+   * @param statistics the counters to update, not {@code null}
+   */
+  public DeserializedValueCache(final long maximumSize, final Statistics statistics) {
+    ArgumentChecker.isTrue(maximumSize > 0, "maximumSize must be positive");
+    ArgumentChecker.notNull(statistics, "statistics");
+    _maximumSize = maximumSize;
+    _statistics = statistics;
+  }
+
+  public long getMaximumSize() {
+    return _maximumSize;
+  }
+
+  public Statistics getStatistics() {
+    return _statistics;
+  }
+
+  /**
+   * Returns the total encoded size of the values currently held.
+   *
+   * @return the size in bytes
+   */
+  public synchronized long getSize() {
+    return _size;
+  }
+
+  /**
+   * Returns a previously deserialized value.
+   *
+   * @param identifier the identifier of the value
+   * @return the value, or {@code null} if it is not held
+   */
+  public Object get(final long identifier) {
+    final Entry entry;
+    synchronized (this) {
+      entry = _values.get(identifier);
+    }
+    if (entry != null) {
+      _statistics._hits.incrementAndGet();
+      return entry._value;
+    } else {
+      _statistics._misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /**
+   * Stores a deserialized value, evicting others if this takes the cache over its maximum size.
+   *
+   * @param identifier the identifier of the value
+   * @param value the deserialized value, not {@code null}
+   * @param size the encoded size of the value in bytes, as recorded in the computation cache's size estimates
+   */
+  public void put(final long identifier, final Object value, final int size) {
+    if (size > _maximumSize) {
+      return;
+    }
+    int evictions = 0;
+    synchronized (this) {
+      final Entry previous = _values.put(identifier, new Entry(value, size));
+      if (previous != null) {
+        _size -= previous._size;
+      }
+      _size += size;
+      final Iterator<Map.Entry<Long, Entry>> itr = _values.entrySet().iterator();
+      while (_size > _maximumSize) {
+        _size -= itr.next().getValue()._size;
+        itr.remove();
+        evictions++;
+      }
+    }
+    if (evictions > 0) {
+      _statistics._evictions.addAndGet(evictions);
+    }
+  }
+
+  /**
+   * Discards a value, for example because a new one has been written to the underlying store.
+   *
+   * @param identifier the identifier of the value
+   */
+  public synchronized void remove(final long identifier) {
+    final Entry previous = _values.remove(identifier);
+    if (previous != null) {
+      _size -= previous._size;
+    }
+  }
+
+  /**
+   * Discards all values.
+   */
+  public synchronized void clear() {
+    _values.clear();
+    _size = 0;
+  }
+
+}
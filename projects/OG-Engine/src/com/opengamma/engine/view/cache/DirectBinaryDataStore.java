@@ -0,0 +1,27 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link BinaryDataStore} that can expose its stored values as buffers without copying them, for example so
+ * that they can be written directly to a socket channel.
+ */
+public interface DirectBinaryDataStore extends BinaryDataStore {
+
+  /**
+   * Obtain a read-only view of the current data associated with the identifier.
+   * This method will return {@code null} if there is no data with the specified identifier.
+   * <p>
+   * The buffer remains valid after the value is replaced or the store deleted, but must not be modified.
+   * 
+   * @param identifier The identifier to obtain data for
+   * @return a view of the data stored with that identifier, positioned at its start
+   */
+  ByteBuffer getBuffer(long identifier);
+
+}
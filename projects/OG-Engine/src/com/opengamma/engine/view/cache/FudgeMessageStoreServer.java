@@ -16,7 +16,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.fudgemsg.FudgeContext;
@@ -88,7 +89,7 @@ public class FudgeMessageStoreServer implements FudgeConnectionReceiver, Release
 
   }
 
-  private final ExecutorService _executorService = Executors.newCachedThreadPool();
+  private final ExecutorService _executorService = createExecutorService();
   private final DefaultViewComputationCacheSource _underlying;
   private final Map<FudgeConnection, Object> _connections = new ConcurrentHashMap<FudgeConnection, Object>();
   private final Map<ViewComputationCacheKey, ValueSearch> _searching = new HashMap<ViewComputationCacheKey, ValueSearch>();
@@ -102,6 +103,19 @@ public class FudgeMessageStoreServer implements FudgeConnectionReceiver, Release
     underlying.setMissingValueLoader(this);
   }
 
+  /**
+   * Creates the executor used to broadcast messages. This is bounded so that a burst of find requests against
+   * many connections can't create an unbounded number of threads; messages queue until a thread is free.
+   * 
+   * @return the executor service
+   */
+  private static ExecutorService createExecutorService() {
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   protected DefaultViewComputationCacheSource getUnderlying() {
     return _underlying;
   }
@@ -243,6 +257,21 @@ public class FudgeMessageStoreServer implements FudgeConnectionReceiver, Release
     return _searching.get(key);
   }
 
+  /**
+   * Notifies any threads waiting for values to appear in a shared data store that they have been written.
+   * 
+   * @param key the cache key
+   * @param identifiers the identifiers of the values written
+   */
+  /* package */void valuesPut(final ViewComputationCacheKey key, final Collection<Long> identifiers) {
+    final ValueSearch searching = getValueSearch(key);
+    if (searching != null) {
+      for (Long identifier : identifiers) {
+        searching.found(identifier);
+      }
+    }
+  }
+
   private class MessageHandler extends CacheMessageVisitor implements FudgeMessageReceiver {
 
     private final FudgeConnection _connection;
@@ -321,12 +350,7 @@ public class FudgeMessageStoreServer implements FudgeConnectionReceiver, Release
         }
         store.put(map);
       }
-      final ValueSearch searching = getValueSearch(key);
-      if (searching != null) {
-        for (Long identifier : identifiers) {
-          searching.found(identifier);
-        }
-      }
+      valuesPut(key, identifiers);
       return null;
     }
 
@@ -0,0 +1,214 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fudgemsg.FudgeMsg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A {@link FudgeMessageStore} that can inherit values from the store of a previous cycle by reference instead of
+ * copying them. Writing a value that was inherited replaces it in this store only, leaving the previous generation
+ * unchanged.
+ * <p>
+ * An underlying store stays alive until every generation that inherited a value from it has been deleted. To stop
+ * a long running view pinning an ever growing number of old stores, values held by a generation more than the
+ * maximum number of generations back are copied into this store when inherited.
+ */
+public class GenerationalFudgeMessageStore implements FudgeMessageStore {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(GenerationalFudgeMessageStore.class);
+
+  /**
+   * An underlying store, reference counted by the generations using it.
+   */
+  private static final class Generation {
+
+    private final FudgeMessageStore _store;
+    private final long _number;
+    private final AtomicInteger _references = new AtomicInteger(1);
+
+    public Generation(final FudgeMessageStore store, final long number) {
+      _store = store;
+      _number = number;
+    }
+
+    public void retain() {
+      _references.incrementAndGet();
+    }
+
+    public void release() {
+      if (_references.decrementAndGet() == 0) {
+        s_logger.debug("Deleting generation {} store {}", _number, _store);
+        _store.delete();
+      }
+    }
+
+  }
+
+  private final int _maximumGenerations;
+  private volatile Generation _own;
+  private final ConcurrentMap<Long, Generation> _inherited = new ConcurrentHashMap<Long, Generation>();
+  private final Set<Generation> _retained = new HashSet<Generation>();
+
+  /**
+   * @param underlying the store to write values to, not null
+   * @param maximumGenerations the number of previous generations values may be inherited from by reference
+   */
+  public GenerationalFudgeMessageStore(final FudgeMessageStore underlying, final int maximumGenerations) {
+    ArgumentChecker.notNull(underlying, "underlying");
+    ArgumentChecker.notNegative(maximumGenerations, "maximumGenerations");
+    _own = new Generation(underlying, 0);
+    _maximumGenerations = maximumGenerations;
+  }
+
+  public FudgeMessageStore getUnderlying() {
+    return _own._store;
+  }
+
+  public int getMaximumGenerations() {
+    return _maximumGenerations;
+  }
+
+  /**
+   * Returns the underlying store that holds the value for an identifier, which may belong to a previous generation.
+   *
+   * @param identifier the value identifier
+   * @return the store to read the value from
+   */
+  public FudgeMessageStore getStore(final long identifier) {
+    final Generation generation = _inherited.get(identifier);
+    return (generation != null) ? generation._store : getUnderlying();
+  }
+
+  /**
+   * Returns the number of values currently inherited by reference.
+   *
+   * @return the count
+   */
+  public int getInheritedCount() {
+    return _inherited.size();
+  }
+
+  /**
+   * Inherits values from a previous generation, replacing any already written to this store. This must be called
+   * before a later generation inherits from this store.
+   *
+   * @param previous the store of the previous cycle, not null
+   * @param identifiers the identifiers of the values to inherit
+   */
+  public void inherit(final GenerationalFudgeMessageStore previous, final Collection<Long> identifiers) {
+    ArgumentChecker.notNull(previous, "previous");
+    ArgumentChecker.notNull(identifiers, "identifiers");
+    if (previous == this) {
+      return;
+    }
+    final long number = previous._own._number + 1;
+    if (_own._number < number) {
+      _own = new Generation(getUnderlying(), number);
+    }
+    final Map<Long, FudgeMsg> copy = new HashMap<Long, FudgeMsg>();
+    synchronized (_retained) {
+      for (Long identifier : identifiers) {
+        Generation generation = previous._inherited.get(identifier);
+        if (generation == null) {
+          generation = previous._own;
+        }
+        if (number - generation._number > getMaximumGenerations()) {
+          final FudgeMsg data = generation._store.get(identifier);
+          if (data != null) {
+            copy.put(identifier, data);
+          }
+          continue;
+        }
+        if (_retained.add(generation)) {
+          generation.retain();
+        }
+        _inherited.put(identifier, generation);
+      }
+    }
+    if (!copy.isEmpty()) {
+      s_logger.debug("Copying {} values from generations older than {}", copy.size(), number - getMaximumGenerations());
+      getUnderlying().put(copy);
+    }
+  }
+
+  @Override
+  public FudgeMsg get(final long identifier) {
+    return getStore(identifier).get(identifier);
+  }
+
+  @Override
+  public Map<Long, FudgeMsg> get(final Collection<Long> identifiers) {
+    if (_inherited.isEmpty()) {
+      return getUnderlying().get(identifiers);
+    }
+    final Map<FudgeMessageStore, Collection<Long>> byStore = new HashMap<FudgeMessageStore, Collection<Long>>();
+    for (Long identifier : identifiers) {
+      final FudgeMessageStore store = getStore(identifier);
+      Collection<Long> storeIdentifiers = byStore.get(store);
+      if (storeIdentifiers == null) {
+        storeIdentifiers = new HashSet<Long>();
+        byStore.put(store, storeIdentifiers);
+      }
+      storeIdentifiers.add(identifier);
+    }
+    if (byStore.size() == 1) {
+      final Map.Entry<FudgeMessageStore, Collection<Long>> single = byStore.entrySet().iterator().next();
+      return single.getKey().get(single.getValue());
+    }
+    final Map<Long, FudgeMsg> result = new HashMap<Long, FudgeMsg>();
+    for (Map.Entry<FudgeMessageStore, Collection<Long>> storeIdentifiers : byStore.entrySet()) {
+      result.putAll(storeIdentifiers.getKey().get(storeIdentifiers.getValue()));
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final FudgeMsg data) {
+    getUnderlying().put(identifier, data);
+    _inherited.remove(identifier);
+  }
+
+  @Override
+  public void put(final Map<Long, FudgeMsg> data) {
+    getUnderlying().put(data);
+    if (!_inherited.isEmpty()) {
+      for (Long identifier : data.keySet()) {
+        _inherited.remove(identifier);
+      }
+    }
+  }
+
+  @Override
+  public void delete() {
+    _inherited.clear();
+    synchronized (_retained) {
+      for (Generation generation : _retained) {
+        generation.release();
+      }
+      _retained.clear();
+    }
+    _own.release();
+  }
+
+  @Override
+  public String toString() {
+    return "GenerationalFudgeMessageStore[" + getUnderlying() + ", generation " + _own._number + "]";
+  }
+
+}
@@ -6,6 +6,7 @@
 package com.opengamma.engine.view.cache;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import com.opengamma.engine.value.ValueSpecification;
@@ -42,6 +43,17 @@ public interface IdentifierMap {
    * @return The identifiers, not {@code null}.
    */
   Map<ValueSpecification, Long> getIdentifiers(Collection<ValueSpecification> specs);
+
+  /**
+   * Version of {@link #getIdentifiers(Collection)} that writes the identifiers into
+   * a caller supplied array instead of building a map. This avoids hashing each
+   * specification and boxing each identifier on the hot path of the caches.
+   * 
+   * @param specs The specifications to lookup or allocate identifiers for
+   * @param identifiers Receives the identifiers, in the same order as the specifications;
+   *        at least as long as the list
+   */
+  void getIdentifiers(List<ValueSpecification> specs, long[] identifiers);
   
   /**
    * Inverse of {@link #getIdentifiers}.
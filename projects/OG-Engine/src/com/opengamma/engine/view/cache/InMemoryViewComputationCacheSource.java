@@ -16,7 +16,7 @@ public class InMemoryViewComputationCacheSource extends DefaultViewComputationCa
    * @param fudgeContext Fudge context to use for serialization
    */
   public InMemoryViewComputationCacheSource(final FudgeContext fudgeContext) {
-    super(new InMemoryIdentifierMap(), fudgeContext, new DefaultFudgeMessageStoreFactory(
+    super(new LockFreeIdentifierMap(), fudgeContext, new DefaultFudgeMessageStoreFactory(
         new InMemoryBinaryDataStoreFactory(), fudgeContext), new DefaultFudgeMessageStoreFactory(
         new InMemoryBinaryDataStoreFactory(), fudgeContext));
   }
@@ -0,0 +1,261 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An in-memory implementation of {@link IdentifierMap} backed by an open-addressing hash table
+ * of primitive identifiers.
+ * <p>
+ * Lookups of existing specifications, and of specifications by identifier, never lock or box. Allocating
+ * a new identifier takes a lock but this is only needed the first time a specification is seen; in a
+ * steady state view process all of the specifications will already be known. Identifiers are allocated
+ * densely from 1.
+ * <p>
+ * This class is internally synchronized.
+ */
+public class LockFreeIdentifierMap extends AbstractIdentifierMap {
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+  private static final int PAGE_SHIFT = 12;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /**
+   * Sentinel for "no identifier"; allocated identifiers start at 1.
+   */
+  private static final long NO_IDENTIFIER = 0L;
+
+  /**
+   * The specification to identifier table. An identifier is written before the key that references it is
+   * published, so a reader that sees a key will also see its identifier. The table is replaced, never
+   * modified in place, when it needs to grow.
+   */
+  private static final class Table {
+
+    private final AtomicReferenceArray<ValueSpecification> _keys;
+    private final long[] _identifiers;
+    private final int _mask;
+
+    private Table(final int capacity) {
+      _keys = new AtomicReferenceArray<ValueSpecification>(capacity);
+      _identifiers = new long[capacity];
+      _mask = capacity - 1;
+    }
+
+    private int capacity() {
+      return _identifiers.length;
+    }
+
+    private long find(final ValueSpecification specification, final int hash) {
+      int index = hash & _mask;
+      ValueSpecification key;
+      while ((key = _keys.get(index)) != null) {
+        if ((key == specification) || key.equals(specification)) {
+          return _identifiers[index];
+        }
+        index = (index + 1) & _mask;
+      }
+      return NO_IDENTIFIER;
+    }
+
+    private void insert(final ValueSpecification specification, final int hash, final long identifier) {
+      int index = hash & _mask;
+      while (_keys.get(index) != null) {
+        index = (index + 1) & _mask;
+      }
+      _identifiers[index] = identifier;
+      _keys.set(index, specification);
+    }
+
+  }
+
+  private volatile Table _table;
+  private volatile AtomicReferenceArray<ValueSpecification>[] _pages;
+  private final Object _allocationLock = new Object();
+  private long _nextIdentifier = 1L;
+  private int _size;
+
+  public LockFreeIdentifierMap() {
+    this(DEFAULT_INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param expectedSize the number of specifications expected, to size the initial table
+   */
+  public LockFreeIdentifierMap(final int expectedSize) {
+    ArgumentChecker.notNegativeOrZero(expectedSize, "expectedSize");
+    int capacity = 1;
+    while (capacity * 3 < expectedSize * 4) {
+      capacity <<= 1;
+    }
+    _table = new Table(capacity);
+    _pages = newPages(1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static AtomicReferenceArray<ValueSpecification>[] newPages(final int count) {
+    return new AtomicReferenceArray[count];
+  }
+
+  private static int hash(final ValueSpecification specification) {
+    final int h = specification.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Allocates an identifier, or returns the one allocated by a concurrent caller. Must be called
+   * while holding the allocation lock.
+   *
+   * @param specification the specification
+   * @param hash the hash of the specification
+   * @return the identifier
+   */
+  private long allocate(final ValueSpecification specification, final int hash) {
+    Table table = _table;
+    long identifier = table.find(specification, hash);
+    if (identifier != NO_IDENTIFIER) {
+      return identifier;
+    }
+    identifier = _nextIdentifier++;
+    // Publish the reverse mapping first so anyone given the identifier can resolve it
+    final int page = (int) (identifier >>> PAGE_SHIFT);
+    AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+    if (page >= pages.length) {
+      final AtomicReferenceArray<ValueSpecification>[] newPages = newPages(pages.length * 2);
+      System.arraycopy(pages, 0, newPages, 0, pages.length);
+      _pages = newPages;
+      pages = newPages;
+    }
+    if (pages[page] == null) {
+      pages[page] = new AtomicReferenceArray<ValueSpecification>(PAGE_SIZE);
+      // Volatile write to publish the new page
+      _pages = pages;
+    }
+    pages[page].set((int) (identifier & PAGE_MASK), specification);
+    if ((_size + 1) * 4 > table.capacity() * 3) {
+      table = grow(table);
+    }
+    table.insert(specification, hash, identifier);
+    _size++;
+    return identifier;
+  }
+
+  private Table grow(final Table table) {
+    final Table newTable = new Table(table.capacity() * 2);
+    for (int i = 0; i < table.capacity(); i++) {
+      final ValueSpecification key = table._keys.get(i);
+      if (key != null) {
+        newTable.insert(key, hash(key), table._identifiers[i]);
+      }
+    }
+    _table = newTable;
+    return newTable;
+  }
+
+  @Override
+  public long getIdentifier(final ValueSpecification specification) {
+    ArgumentChecker.notNull(specification, "specification");
+    final int hash = hash(specification);
+    final long identifier = _table.find(specification, hash);
+    if (identifier != NO_IDENTIFIER) {
+      return identifier;
+    }
+    synchronized (_allocationLock) {
+      return allocate(specification, hash);
+    }
+  }
+
+  /**
+   * Bulk form of {@link #getIdentifier} that writes the identifiers into a caller supplied array
+   * instead of building a map. Any new identifiers that are needed are allocated under a single
+   * acquisition of the lock.
+   *
+   * @param specifications the specifications to look up or allocate identifiers for, not {@code null}
+   * @param identifiers the array to receive the identifiers, in the same order as the specifications,
+   *        at least as long as the list
+   */
+  @Override
+  public void getIdentifiers(final List<ValueSpecification> specifications, final long[] identifiers) {
+    ArgumentChecker.notNull(specifications, "specifications");
+    ArgumentChecker.notNull(identifiers, "identifiers");
+    final int count = specifications.size();
+    ArgumentChecker.isTrue(identifiers.length >= count, "identifiers array too short");
+    final Table table = _table;
+    boolean misses = false;
+    for (int i = 0; i < count; i++) {
+      final ValueSpecification specification = specifications.get(i);
+      ArgumentChecker.notNull(specification, "specification");
+      identifiers[i] = table.find(specification, hash(specification));
+      if (identifiers[i] == NO_IDENTIFIER) {
+        misses = true;
+      }
+    }
+    if (misses) {
+      synchronized (_allocationLock) {
+        for (int i = 0; i < count; i++) {
+          if (identifiers[i] == NO_IDENTIFIER) {
+            final ValueSpecification specification = specifications.get(i);
+            identifiers[i] = allocate(specification, hash(specification));
+          }
+        }
+      }
+    }
+  }
+
+  @Override
+  public Map<ValueSpecification, Long> getIdentifiers(final Collection<ValueSpecification> specifications) {
+    ArgumentChecker.notNull(specifications, "specifications");
+    final Map<ValueSpecification, Long> result = new HashMap<ValueSpecification, Long>();
+    final Table table = _table;
+    boolean misses = false;
+    for (ValueSpecification specification : specifications) {
+      ArgumentChecker.notNull(specification, "specification");
+      final long identifier = table.find(specification, hash(specification));
+      if (identifier != NO_IDENTIFIER) {
+        result.put(specification, identifier);
+      } else {
+        misses = true;
+      }
+    }
+    if (misses) {
+      synchronized (_allocationLock) {
+        for (ValueSpecification specification : specifications) {
+          if (!result.containsKey(specification)) {
+            result.put(specification, allocate(specification, hash(specification)));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public ValueSpecification getValueSpecification(final long identifier) {
+    if (identifier < 1L) {
+      return null;
+    }
+    final AtomicReferenceArray<ValueSpecification>[] pages = _pages;
+    final long page = identifier >>> PAGE_SHIFT;
+    if (page >= pages.length) {
+      return null;
+    }
+    final AtomicReferenceArray<ValueSpecification> entries = pages[(int) page];
+    if (entries == null) {
+      return null;
+    }
+    return entries.get((int) (identifier & PAGE_MASK));
+  }
+
+}
@@ -0,0 +1,281 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An implementation of {@link BinaryDataStore} that holds values outside of the Java heap.
+ * <p>
+ * Values are appended to large slabs that are either direct buffers or memory-mapped temporary
+ * files. The only on-heap state is a primitive index from identifier to the slab location of the
+ * value so the garbage collector does not have to trace, or copy, the values themselves. Space is
+ * never reclaimed from a slab; a store is expected to live for a single cycle and be discarded
+ * with {@link #delete}.
+ * <p>
+ * This class is internally synchronized.
+ */
+public class OffHeapBinaryDataStore extends AbstractBinaryDataStore implements DirectBinaryDataStore {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(OffHeapBinaryDataStore.class);
+
+  /**
+   * Default size of each slab, 16Mb.
+   */
+  public static final int DEFAULT_SLAB_SIZE = 16 * 1024 * 1024;
+
+  private static final long NO_ENTRY = -1L;
+  private static final int LENGTH_PREFIX = 4;
+
+  private final int _slabSize;
+  private final File _mappedFileDirectory;
+  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+  /**
+   * Identifier to location. The location is the slab index in the upper 32 bits and
+   * the offset within that slab in the lower 32 bits.
+   */
+  private final Long2LongOpenHashMap _index = new Long2LongOpenHashMap();
+  private final List<ByteBuffer> _slabs = new ArrayList<ByteBuffer>();
+  private final List<File> _slabFiles = new ArrayList<File>();
+  private ByteBuffer _currentSlab;
+  private int _currentSlabOffset;
+
+  /**
+   * Creates a store using direct buffers of the default slab size.
+   */
+  public OffHeapBinaryDataStore() {
+    this(DEFAULT_SLAB_SIZE, null);
+  }
+
+  /**
+   * Creates a store.
+   *
+   * @param slabSize size of each slab in bytes. Values larger than this are given a slab of their own.
+   * @param mappedFileDirectory folder to create memory-mapped slab files in, or {@code null} to use direct buffers
+   */
+  public OffHeapBinaryDataStore(final int slabSize, final File mappedFileDirectory) {
+    ArgumentChecker.isTrue(slabSize > LENGTH_PREFIX, "slabSize");
+    _slabSize = slabSize;
+    _mappedFileDirectory = mappedFileDirectory;
+    _index.defaultReturnValue(NO_ENTRY);
+  }
+
+  public int getSlabSize() {
+    return _slabSize;
+  }
+
+  public File getMappedFileDirectory() {
+    return _mappedFileDirectory;
+  }
+
+  private ByteBuffer allocateSlab(final int size) {
+    if (getMappedFileDirectory() == null) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    try {
+      final File file = File.createTempFile("slab", ".bin", getMappedFileDirectory());
+      file.deleteOnExit();
+      _slabFiles.add(file);
+      final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        // The mapping remains valid after the file is closed
+        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      } finally {
+        raf.close();
+      }
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't create memory-mapped slab in " + getMappedFileDirectory(), e);
+    }
+  }
+
+  /**
+   * Reserves space for a value and its length prefix. Must be called while holding the write lock.
+   *
+   * @param length length of the value
+   * @return the location of the reserved space
+   */
+  private long allocate(final int length) {
+    final int size = length + LENGTH_PREFIX;
+    if ((_currentSlab == null) || (_currentSlab.capacity() - _currentSlabOffset < size)) {
+      _currentSlab = allocateSlab(Math.max(size, getSlabSize()));
+      _currentSlabOffset = 0;
+      _slabs.add(_currentSlab);
+    }
+    final long location = ((long) (_slabs.size() - 1) << 32) | _currentSlabOffset;
+    _currentSlabOffset += size;
+    return location;
+  }
+
+  private ByteBuffer getSlab(final long location) {
+    return _slabs.get((int) (location >>> 32));
+  }
+
+  private static int getOffset(final long location) {
+    return (int) location;
+  }
+
+  /**
+   * Copies a value out of its slab. Must be called while holding the read lock.
+   *
+   * @param location location of the value
+   * @return the value
+   */
+  private byte[] read(final long location) {
+    final ByteBuffer slab = getSlab(location);
+    final int offset = getOffset(location);
+    final byte[] data = new byte[slab.getInt(offset)];
+    // Use a private view of the buffer so that concurrent readers don't disturb each other's position
+    final ByteBuffer view = slab.duplicate();
+    view.position(offset + LENGTH_PREFIX);
+    view.get(data);
+    return data;
+  }
+
+  /**
+   * Copies a value into a slab. Must be called while holding the write lock.
+   *
+   * @param identifier the identifier of the value
+   * @param data the value
+   */
+  private void write(final long identifier, final byte[] data) {
+    ArgumentChecker.notNull(data, "data to store");
+    final long location = allocate(data.length);
+    final ByteBuffer slab = getSlab(location);
+    final int offset = getOffset(location);
+    slab.putInt(offset, data.length);
+    final ByteBuffer view = slab.duplicate();
+    view.position(offset + LENGTH_PREFIX);
+    view.put(data);
+    _index.put(identifier, location);
+  }
+
+  @Override
+  public byte[] get(final long identifier) {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      final long location = _index.get(identifier);
+      if (location == NO_ENTRY) {
+        return null;
+      }
+      return read(location);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns a read-only view of a value within its slab. Slabs are only ever appended to, so the view remains
+   * valid after the lock is released.
+   * 
+   * @param identifier the identifier of the value
+   * @return the view, or null if there is no value
+   */
+  @Override
+  public ByteBuffer getBuffer(final long identifier) {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      final long location = _index.get(identifier);
+      if (location == NO_ENTRY) {
+        return null;
+      }
+      final ByteBuffer slab = getSlab(location);
+      final int offset = getOffset(location);
+      final ByteBuffer view = slab.duplicate();
+      view.position(offset + LENGTH_PREFIX);
+      view.limit(offset + LENGTH_PREFIX + slab.getInt(offset));
+      return view.slice().asReadOnlyBuffer();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Map<Long, byte[]> get(final Collection<Long> identifiers) {
+    final Map<Long, byte[]> result = new HashMap<Long, byte[]>();
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      for (Long identifier : identifiers) {
+        final long location = _index.get(identifier.longValue());
+        if (location != NO_ENTRY) {
+          result.put(identifier, read(location));
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final byte[] data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      write(identifier, data);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(final Map<Long, byte[]> data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      for (Map.Entry<Long, byte[]> entry : data.entrySet()) {
+        write(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void delete() {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      // Direct and mapped buffers are released when the garbage collector finalizes them; dropping the
+      // references is the most we can do here.
+      _index.clear();
+      _slabs.clear();
+      _currentSlab = null;
+      _currentSlabOffset = 0;
+      for (File file : _slabFiles) {
+        if (!file.delete()) {
+          s_logger.debug("Couldn't delete slab file {} - will remove on exit", file);
+        }
+      }
+      _slabFiles.clear();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.File;
+
+/**
+ * Creates {@link OffHeapBinaryDataStore} objects. By default the stores use direct buffers; setting a
+ * mapped file folder will place the slabs in memory-mapped files instead.
+ */
+public class OffHeapBinaryDataStoreFactory implements BinaryDataStoreFactory {
+
+  private int _slabSize = OffHeapBinaryDataStore.DEFAULT_SLAB_SIZE;
+  private File _mappedFileFolder;
+
+  public OffHeapBinaryDataStoreFactory() {
+  }
+
+  public OffHeapBinaryDataStoreFactory(final int slabSize, final File mappedFileFolder) {
+    setSlabSize(slabSize);
+    setMappedFileFolder(mappedFileFolder);
+  }
+
+  public void setSlabSize(final int slabSize) {
+    _slabSize = slabSize;
+  }
+
+  public int getSlabSize() {
+    return _slabSize;
+  }
+
+  public void setMappedFileFolder(final File mappedFileFolder) {
+    if (mappedFileFolder != null) {
+      mappedFileFolder.mkdirs();
+    }
+    _mappedFileFolder = mappedFileFolder;
+  }
+
+  public File getMappedFileFolder() {
+    return _mappedFileFolder;
+  }
+
+  @Override
+  public BinaryDataStore createDataStore(ViewComputationCacheKey cacheKey) {
+    return new OffHeapBinaryDataStore(getSlabSize(), getMappedFileFolder());
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.wire.EncodedFudgeMsg;
+import org.fudgemsg.wire.FudgeDataOutputStreamWriter;
+import org.fudgemsg.wire.FudgeEncoded;
+
+/**
+ * Client to a {@link BinaryDataStoreServer}. These are created by a {@link RemoteBinaryFudgeMessageStoreFactory}.
+ * Messages are held in their encoded form in both directions so are never decoded or re-encoded in transit.
+ */
+public class RemoteBinaryFudgeMessageStore implements FudgeMessageStore {
+
+  private final BinaryDataStoreClient _client;
+  private final FudgeContext _fudgeContext;
+  private final ByteBuffer _encodedKey;
+
+  public RemoteBinaryFudgeMessageStore(final BinaryDataStoreClient client, final FudgeContext fudgeContext, final ViewComputationCacheKey cacheKey) {
+    _client = client;
+    _fudgeContext = fudgeContext;
+    _encodedKey = BinaryDataStoreProtocol.encodeKey(cacheKey);
+  }
+
+  protected BinaryDataStoreClient getClient() {
+    return _client;
+  }
+
+  protected FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  private byte[] encode(final FudgeMsg message) {
+    if (message instanceof FudgeEncoded) {
+      return ((FudgeEncoded) message).getFudgeEncoded();
+    }
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new FudgeDataOutputStreamWriter(getFudgeContext(), baos).writeFields(message);
+    return baos.toByteArray();
+  }
+
+  @Override
+  public void delete() {
+    // [ENG-256] Don't need the delete messages if we propogate at the releaseCaches level
+    getClient().delete(_encodedKey);
+  }
+
+  @Override
+  public FudgeMsg get(final long identifier) {
+    final byte[] data = getClient().get(_encodedKey, Collections.singleton(identifier)).get(identifier);
+    return (data != null) ? new EncodedFudgeMsg(data, getFudgeContext()) : null;
+  }
+
+  @Override
+  public Map<Long, FudgeMsg> get(final Collection<Long> identifiers) {
+    final Map<Long, byte[]> data = getClient().get(_encodedKey, identifiers);
+    final Map<Long, FudgeMsg> result = new HashMap<Long, FudgeMsg>();
+    for (Map.Entry<Long, byte[]> value : data.entrySet()) {
+      result.put(value.getKey(), new EncodedFudgeMsg(value.getValue(), getFudgeContext()));
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final FudgeMsg data) {
+    getClient().put(_encodedKey, Collections.singletonMap(identifier, encode(data)));
+  }
+
+  @Override
+  public void put(final Map<Long, FudgeMsg> data) {
+    final Map<Long, byte[]> encoded = new HashMap<Long, byte[]>();
+    for (Map.Entry<Long, FudgeMsg> value : data.entrySet()) {
+      encoded.put(value.getKey(), encode(value.getValue()));
+    }
+    getClient().put(_encodedKey, encoded);
+  }
+
+}
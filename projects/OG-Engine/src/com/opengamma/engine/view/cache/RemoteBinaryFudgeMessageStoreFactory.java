@@ -0,0 +1,40 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import org.fudgemsg.FudgeContext;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates {@link RemoteBinaryFudgeMessageStore} clients to connect to a {@link BinaryDataStoreServer}.
+ */
+public class RemoteBinaryFudgeMessageStoreFactory implements FudgeMessageStoreFactory {
+
+  private final BinaryDataStoreClient _client;
+  private final FudgeContext _fudgeContext;
+
+  public RemoteBinaryFudgeMessageStoreFactory(final BinaryDataStoreClient client, final FudgeContext fudgeContext) {
+    ArgumentChecker.notNull(client, "client");
+    ArgumentChecker.notNull(fudgeContext, "fudgeContext");
+    _client = client;
+    _fudgeContext = fudgeContext;
+  }
+
+  protected BinaryDataStoreClient getClient() {
+    return _client;
+  }
+
+  protected FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  @Override
+  public FudgeMessageStore createMessageStore(final ViewComputationCacheKey cacheKey) {
+    return new RemoteBinaryFudgeMessageStore(getClient(), getFudgeContext(), cacheKey);
+  }
+
+}
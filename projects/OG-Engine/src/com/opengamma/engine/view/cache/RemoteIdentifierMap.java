@@ -52,6 +52,16 @@ public class RemoteIdentifierMap implements IdentifierMap {
     return identifierMap;
   }
 
+  @Override
+  public void getIdentifiers(final List<ValueSpecification> specs, final long[] identifiers) {
+    final IdentifierLookupRequest request = new IdentifierLookupRequest(specs);
+    final IdentifierLookupResponse response = getRemoteCacheClient().sendGetMessage(request, IdentifierLookupResponse.class);
+    int i = 0;
+    for (Long identifier : response.getIdentifier()) {
+      identifiers[i++] = identifier;
+    }
+  }
+
   @Override
   public ValueSpecification getValueSpecification(long identifier) {
     final SpecificationLookupRequest request = new SpecificationLookupRequest(Collections.singleton(identifier));
@@ -64,13 +64,37 @@ public class RemoteViewComputationCacheSource extends DefaultViewComputationCach
     client.setAsynchronousMessageReceiver(this);
   }
 
+  /**
+   * Creates a cache source that exchanges values with the shared data store over a {@link BinaryDataStoreClient}
+   * connection rather than within Fudge messages. Release and find messages from the server are still received
+   * through the {@link RemoteCacheClient}.
+   * 
+   * @param client the connection to a {@link ViewComputationCacheServer}
+   * @param dataClient the connection to a {@link BinaryDataStoreServer} for the same cache source
+   * @param privateDataStoreFactory the private data store - the shared data store will be the remote one
+   * @param fudgeContext the Fudge context the {@link DefaultViewComputationCache} will use for object encoding
+   * @param cacheManager the EH cache manager to use for the remote binary data store
+   * @param maxLocalCachedElements the maximum number of shared values to hold locally, or -1 for the default
+   */
+  public RemoteViewComputationCacheSource(final RemoteCacheClient client, final BinaryDataStoreClient dataClient,
+      final FudgeMessageStoreFactory privateDataStoreFactory, final FudgeContext fudgeContext,
+      final CacheManager cacheManager, final int maxLocalCachedElements) {
+    super(createIdentifierMap(client), fudgeContext, privateDataStoreFactory, createFudgeMessageStoreFactory(
+        new RemoteBinaryFudgeMessageStoreFactory(dataClient, fudgeContext), cacheManager, maxLocalCachedElements));
+    client.setAsynchronousMessageReceiver(this);
+  }
+
   private static IdentifierMap createIdentifierMap(final RemoteCacheClient client) {
     return new CachingIdentifierMap(new RemoteIdentifierMap(client));
   }
 
   private static FudgeMessageStoreFactory createFudgeMessageStoreFactory(final RemoteCacheClient client,
       final CacheManager cacheManager, final int maxLocalCachedElements) {
-    final RemoteFudgeMessageStoreFactory remote = new RemoteFudgeMessageStoreFactory(client);
+    return createFudgeMessageStoreFactory(new RemoteFudgeMessageStoreFactory(client), cacheManager, maxLocalCachedElements);
+  }
+
+  private static FudgeMessageStoreFactory createFudgeMessageStoreFactory(final FudgeMessageStoreFactory remote,
+      final CacheManager cacheManager, final int maxLocalCachedElements) {
     if (maxLocalCachedElements >= 0) {
       return new CachingFudgeMessageStoreFactory(remote, cacheManager, maxLocalCachedElements);
     } else {
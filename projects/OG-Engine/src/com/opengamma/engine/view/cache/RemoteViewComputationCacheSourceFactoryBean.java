@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.net.InetSocketAddress;
+
+import net.sf.ehcache.CacheManager;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeField;
+import org.fudgemsg.FudgeMsg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.transport.EndPointDescriptionProvider;
+import com.opengamma.transport.socket.AbstractServerSocketProcess;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.SingletonFactoryBean;
+
+/**
+ * Creates a {@link RemoteViewComputationCacheSource}, optionally exchanging shared values with a
+ * {@link BinaryDataStoreServer} rather than within Fudge messages on the {@link RemoteCacheClient} connection.
+ */
+public class RemoteViewComputationCacheSourceFactoryBean extends SingletonFactoryBean<RemoteViewComputationCacheSource> {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(RemoteViewComputationCacheSourceFactoryBean.class);
+
+  private RemoteCacheClient _cacheClient;
+  private FudgeMessageStoreFactory _privateDataStoreFactory;
+  private FudgeContext _fudgeContext;
+  private CacheManager _cacheManager;
+  private int _maxLocalCachedElements = -1;
+  private EndPointDescriptionProvider _binaryDataStoreServer;
+  private boolean _useBinaryDataStore;
+
+  public void setCacheClient(final RemoteCacheClient cacheClient) {
+    _cacheClient = cacheClient;
+  }
+
+  public RemoteCacheClient getCacheClient() {
+    return _cacheClient;
+  }
+
+  public void setPrivateDataStoreFactory(final FudgeMessageStoreFactory privateDataStoreFactory) {
+    _privateDataStoreFactory = privateDataStoreFactory;
+  }
+
+  public FudgeMessageStoreFactory getPrivateDataStoreFactory() {
+    return _privateDataStoreFactory;
+  }
+
+  /**
+   * Sets the Fudge context used for object encoding. Defaults to the context of the cache client.
+   *
+   * @param fudgeContext the Fudge context
+   */
+  public void setFudgeContext(final FudgeContext fudgeContext) {
+    _fudgeContext = fudgeContext;
+  }
+
+  public FudgeContext getFudgeContext() {
+    return _fudgeContext;
+  }
+
+  public void setCacheManager(final CacheManager cacheManager) {
+    _cacheManager = cacheManager;
+  }
+
+  public CacheManager getCacheManager() {
+    return _cacheManager;
+  }
+
+  /**
+   * Sets the maximum number of shared values to hold locally. Defaults to -1 for the default size.
+   *
+   * @param maxLocalCachedElements the maximum number of values, or -1 for the default
+   */
+  public void setMaxLocalCachedElements(final int maxLocalCachedElements) {
+    _maxLocalCachedElements = maxLocalCachedElements;
+  }
+
+  public int getMaxLocalCachedElements() {
+    return _maxLocalCachedElements;
+  }
+
+  public void setBinaryDataStoreServer(final EndPointDescriptionProvider binaryDataStoreServer) {
+    _binaryDataStoreServer = binaryDataStoreServer;
+  }
+
+  public EndPointDescriptionProvider getBinaryDataStoreServer() {
+    return _binaryDataStoreServer;
+  }
+
+  /**
+   * Sets whether to connect to the binary data store server. Defaults to false, exchanging values within Fudge
+   * messages on the cache client connection.
+   *
+   * @param useBinaryDataStore true to use the binary data store server
+   */
+  public void setUseBinaryDataStore(final boolean useBinaryDataStore) {
+    _useBinaryDataStore = useBinaryDataStore;
+  }
+
+  public boolean isUseBinaryDataStore() {
+    return _useBinaryDataStore;
+  }
+
+  private BinaryDataStoreClient createBinaryDataStoreClient(final FudgeMsg endPoint) {
+    if (!AbstractServerSocketProcess.TYPE_VALUE.equals(endPoint.getString(AbstractServerSocketProcess.TYPE_KEY))) {
+      throw new IllegalArgumentException("End point is not a ServerSocket - " + endPoint);
+    }
+    final int port = endPoint.getInt(AbstractServerSocketProcess.PORT_KEY);
+    OpenGammaRuntimeException failure = null;
+    for (FudgeField addr : endPoint.getAllByName(AbstractServerSocketProcess.ADDRESS_KEY)) {
+      final String host = endPoint.getFieldValue(String.class, addr);
+      try {
+        return new BinaryDataStoreClient(new InetSocketAddress(host, port));
+      } catch (OpenGammaRuntimeException e) {
+        s_logger.warn("Couldn't connect to binary data store at {}:{}", host, port);
+        failure = e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    throw new IllegalArgumentException("No addresses in end point " + endPoint);
+  }
+
+  @Override
+  protected RemoteViewComputationCacheSource createObject() {
+    ArgumentChecker.notNullInjected(getCacheClient(), "cacheClient");
+    ArgumentChecker.notNullInjected(getPrivateDataStoreFactory(), "privateDataStoreFactory");
+    ArgumentChecker.notNullInjected(getCacheManager(), "cacheManager");
+    final FudgeContext fudgeContext = (getFudgeContext() != null) ? getFudgeContext() : getCacheClient().getFudgeContext();
+    if (isUseBinaryDataStore()) {
+      ArgumentChecker.notNullInjected(getBinaryDataStoreServer(), "binaryDataStoreServer");
+      final BinaryDataStoreClient dataClient = createBinaryDataStoreClient(getBinaryDataStoreServer().getEndPointDescription(fudgeContext));
+      return new RemoteViewComputationCacheSource(getCacheClient(), dataClient, getPrivateDataStoreFactory(), fudgeContext, getCacheManager(), getMaxLocalCachedElements());
+    } else {
+      return new RemoteViewComputationCacheSource(getCacheClient(), getPrivateDataStoreFactory(), fudgeContext, getCacheManager(), getMaxLocalCachedElements());
+    }
+  }
+
+}
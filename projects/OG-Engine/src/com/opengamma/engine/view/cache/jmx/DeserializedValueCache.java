@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache.jmx;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.view.cache.DefaultViewComputationCacheSource;
+
+/**
+ * DeserializedValueCacheMBean implementation.
+ */
+public final class DeserializedValueCache implements DeserializedValueCacheMBean {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DeserializedValueCache.class);
+
+  private final DefaultViewComputationCacheSource _underlying;
+
+  private DeserializedValueCache(final DefaultViewComputationCacheSource underlying) {
+    _underlying = underlying;
+  }
+
+  private DefaultViewComputationCacheSource getUnderlying() {
+    return _underlying;
+  }
+
+  public static void registerMBeans(final DefaultViewComputationCacheSource cacheSource, final MBeanServer server) throws JMException {
+    final ObjectName name = new ObjectName("com.opengamma:type=DeserializedValueCache,name=" + cacheSource.toString());
+    final DeserializedValueCache instance = new DeserializedValueCache(cacheSource);
+    try {
+      server.registerMBean(instance, name);
+    } catch (InstanceAlreadyExistsException e) {
+      s_logger.warn("JMX MBean {} already exists - replacing", name);
+      server.unregisterMBean(name);
+      server.registerMBean(instance, name);
+    }
+  }
+
+  @Override
+  public void setMaximumSize(long maximumSize) {
+    getUnderlying().setDeserializedValueCacheSize(maximumSize);
+  }
+
+  @Override
+  public long getMaximumSize() {
+    return getUnderlying().getDeserializedValueCacheSize();
+  }
+
+  @Override
+  public long getHits() {
+    return getUnderlying().getDeserializedValueCacheStatistics().getHits();
+  }
+
+  @Override
+  public long getMisses() {
+    return getUnderlying().getDeserializedValueCacheStatistics().getMisses();
+  }
+
+  @Override
+  public long getEvictions() {
+    return getUnderlying().getDeserializedValueCacheStatistics().getEvictions();
+  }
+
+  @Override
+  public double getHitRatio() {
+    final long hits = getHits();
+    final long total = hits + getMisses();
+    return (total > 0) ? (double) hits / (double) total : 0;
+  }
+
+  @Override
+  public void reset() {
+    getUnderlying().getDeserializedValueCacheStatistics().reset();
+  }
+
+}
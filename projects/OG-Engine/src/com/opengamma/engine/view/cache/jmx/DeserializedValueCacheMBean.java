@@ -0,0 +1,21 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache.jmx;
+
+/**
+ * JMX MBean interface for the deserialized value caches of a view computation cache source.
+ */
+public interface DeserializedValueCacheMBean {
+
+  void setMaximumSize(long maximumSize);
+  long getMaximumSize();
+  long getHits();
+  long getMisses();
+  long getEvictions();
+  double getHitRatio();
+  void reset();
+
+}
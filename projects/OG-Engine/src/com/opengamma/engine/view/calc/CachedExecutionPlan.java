@@ -0,0 +1,220 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
+import com.opengamma.engine.view.calcnode.stats.FunctionCostsPerConfiguration;
+
+/**
+ * Serializable form of an execution plan. The fragments are described by the structural hashes of their nodes so
+ * that the plan can be restored against any graph with the same {@link ExecutionPlanKey}, for example after the
+ * view processor has been restarted. The function costs the plan was created with are retained so that it can be
+ * discarded if they drift too far.
+ * <p>
+ * Fragment 0 is always the root fragment.
+ */
+/* package */class CachedExecutionPlan implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long[][] _fragmentNodes;
+  private final int[][] _inputFragments;
+  private final int[][] _tailFragments;
+  private final int[] _executionIds;
+  private final String[] _functionIds;
+  private final int[] _functionNodeCounts;
+  private final double[] _functionCosts;
+  private final int _minJobItems;
+  private final int _maxJobItems;
+  private final long _minJobCost;
+  private final long _maxJobCost;
+  private final int _maxConcurrency;
+
+  /**
+   * The plan this was created from, or the last one restored from it, if in the same process.
+   */
+  private transient volatile RootGraphFragment _plan;
+
+  private CachedExecutionPlan(final RootGraphFragment plan, final GraphFingerprint fingerprint) {
+    final List<GraphFragment> fragments = new ArrayList<GraphFragment>();
+    final Map<GraphFragment, Integer> fragmentIndex = new HashMap<GraphFragment, Integer>();
+    fragments.add(plan);
+    fragmentIndex.put(plan, 0);
+    for (int i = 0; i < fragments.size(); i++) {
+      for (GraphFragment input : fragments.get(i).getInputFragments()) {
+        if (!fragmentIndex.containsKey(input)) {
+          fragmentIndex.put(input, fragments.size());
+          fragments.add(input);
+        }
+      }
+    }
+    final int count = fragments.size();
+    _fragmentNodes = new long[count][];
+    _inputFragments = new int[count][];
+    _tailFragments = new int[count][];
+    _executionIds = new int[count];
+    final Map<String, Integer> functionNodeCounts = new HashMap<String, Integer>();
+    for (int i = 0; i < count; i++) {
+      final GraphFragment fragment = fragments.get(i);
+      final Collection<DependencyNode> nodes = fragment.getNodes();
+      final long[] nodeHashes = new long[nodes.size()];
+      int j = 0;
+      for (DependencyNode node : nodes) {
+        nodeHashes[j++] = fingerprint.getNodeHash(node);
+        final String functionId = node.getFunction().getFunction().getFunctionDefinition().getUniqueId();
+        final Integer functionNodeCount = functionNodeCounts.get(functionId);
+        functionNodeCounts.put(functionId, (functionNodeCount != null) ? functionNodeCount + 1 : 1);
+      }
+      _fragmentNodes[i] = nodeHashes;
+      _inputFragments[i] = indexOf(fragment.getInputFragments(), fragmentIndex);
+      _tailFragments[i] = (fragment.getTail() != null) ? indexOf(fragment.getTail(), fragmentIndex) : null;
+      _executionIds[i] = fragment.getExecutionId();
+    }
+    final Map<String, Double> plannedCosts = plan.getContext().getPlannedCosts();
+    _functionIds = new String[functionNodeCounts.size()];
+    _functionNodeCounts = new int[_functionIds.length];
+    _functionCosts = new double[_functionIds.length];
+    int i = 0;
+    for (Map.Entry<String, Integer> functionNodeCount : functionNodeCounts.entrySet()) {
+      _functionIds[i] = functionNodeCount.getKey();
+      _functionNodeCounts[i] = functionNodeCount.getValue();
+      final Double cost = plannedCosts.get(functionNodeCount.getKey());
+      _functionCosts[i] = (cost != null) ? cost : 0;
+      i++;
+    }
+    final MultipleNodeExecutor executor = plan.getContext().getExecutor();
+    _minJobItems = executor.getMinJobItems();
+    _maxJobItems = executor.getMaxJobItems();
+    _minJobCost = executor.getMinJobCost();
+    _maxJobCost = executor.getMaxJobCost();
+    _maxConcurrency = executor.getMaxConcurrency();
+    _plan = plan;
+  }
+
+  private static int[] indexOf(final Collection<GraphFragment> fragments, final Map<GraphFragment, Integer> fragmentIndex) {
+    final int[] indices = new int[fragments.size()];
+    int i = 0;
+    for (GraphFragment fragment : fragments) {
+      indices[i++] = fragmentIndex.get(fragment);
+    }
+    return indices;
+  }
+
+  /**
+   * Creates the serializable form of an execution plan.
+   *
+   * @param plan the root of the plan
+   * @param fingerprint the fingerprint of the graph the plan is for
+   * @return the cacheable plan
+   */
+  public static CachedExecutionPlan of(final RootGraphFragment plan, final GraphFingerprint fingerprint) {
+    return new CachedExecutionPlan(plan, fingerprint);
+  }
+
+  public RootGraphFragment getPlan() {
+    return _plan;
+  }
+
+  public int getFragmentCount() {
+    return _fragmentNodes.length;
+  }
+
+  /**
+   * Tests whether the plan was created with the same job size and concurrency limits as an executor has.
+   *
+   * @param executor the executor
+   * @return true if the executor would create the same plan, given the same function costs
+   */
+  public boolean isCompatible(final MultipleNodeExecutor executor) {
+    return (_minJobItems == executor.getMinJobItems()) && (_maxJobItems == executor.getMaxJobItems()) && (_minJobCost == executor.getMinJobCost())
+        && (_maxJobCost == executor.getMaxJobCost()) && (_maxConcurrency == executor.getMaxConcurrency());
+  }
+
+  /**
+   * Returns how far the function costs have moved since the plan was created. This is the total change in the
+   * estimated invocation cost of the graph's nodes, relative to the estimate the plan was created with.
+   *
+   * @param functionCosts the current function costs for the graph's calculation configuration
+   * @return the relative cost drift
+   */
+  public double getCostDrift(final FunctionCostsPerConfiguration functionCosts) {
+    double planned = 0;
+    double drift = 0;
+    for (int i = 0; i < _functionIds.length; i++) {
+      final double cost = functionCosts.getStatistics(_functionIds[i]).getInvocationCost();
+      planned += _functionNodeCounts[i] * _functionCosts[i];
+      drift += _functionNodeCounts[i] * Math.abs(cost - _functionCosts[i]);
+    }
+    if (planned > 0) {
+      return drift / planned;
+    } else {
+      return (drift > 0) ? Double.POSITIVE_INFINITY : 0;
+    }
+  }
+
+  /**
+   * Rebuilds the execution plan against a graph. The leaf fragments must then be executed to start the plan.
+   *
+   * @param context the context for the graph the plan is for
+   * @param fingerprint the fingerprint of the graph, which must have the same key as the original graph
+   * @param statistics the statistics gatherer
+   * @return the root of the plan, or null if it does not match the graph
+   */
+  public RootGraphFragment restore(final GraphFragmentContext context, final GraphFingerprint fingerprint, final GraphExecutorStatisticsGatherer statistics) {
+    for (int i = 0; i < _functionIds.length; i++) {
+      context.getPlannedCosts().put(_functionIds[i], _functionCosts[i]);
+    }
+    final int count = _fragmentNodes.length;
+    final GraphFragment[] fragments = new GraphFragment[count];
+    for (int i = 0; i < count; i++) {
+      final List<DependencyNode> nodes = new ArrayList<DependencyNode>(_fragmentNodes[i].length);
+      for (long nodeHash : _fragmentNodes[i]) {
+        final DependencyNode node = fingerprint.getNode(nodeHash);
+        if (node == null) {
+          return null;
+        }
+        nodes.add(node);
+      }
+      if (i == 0) {
+        fragments[i] = nodes.isEmpty() ? new RootGraphFragment(context, statistics) : new RootGraphFragment(context, statistics, nodes);
+      } else {
+        fragments[i] = new GraphFragment(context, nodes);
+      }
+      fragments[i].setExecutionId(_executionIds[i]);
+    }
+    for (int i = 0; i < count; i++) {
+      final GraphFragment fragment = fragments[i];
+      for (int input : _inputFragments[i]) {
+        fragment.getInputFragments().add(fragments[input]);
+        fragments[input].getOutputFragments().add(fragment);
+      }
+      if (_tailFragments[i] != null) {
+        for (int tail : _tailFragments[i]) {
+          fragment.addTail(fragments[tail]);
+        }
+      }
+    }
+    context.allocateFragmentMap(count);
+    for (GraphFragment fragment : fragments) {
+      fragment.restorePrivateValues();
+      if (!fragment.getInputFragments().isEmpty()) {
+        fragment.initBlockCount();
+      }
+    }
+    final RootGraphFragment plan = (RootGraphFragment) fragments[0];
+    _plan = plan;
+    return plan;
+  }
+
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Dense numbering of the nodes in a dependency graph, in topological order so that every node is numbered after
+ * all of its inputs. Numberings are created once per graph and held for as long as the graph is reachable.
+ */
+/* package */final class DependencyGraphNumbering {
+
+  private static final Map<DependencyGraph, DependencyGraphNumbering> s_numberings = Collections
+      .synchronizedMap(new WeakHashMap<DependencyGraph, DependencyGraphNumbering>());
+
+  private static final int[] NO_INPUTS = new int[0];
+
+  private final DependencyNode[] _nodes;
+  private final int[][] _inputs;
+  private final int[] _liveDataNodes;
+  private final ValueSpecification[] _liveData;
+
+  private DependencyGraphNumbering(final DependencyGraph graph) {
+    final int size = graph.getSize();
+    final Map<DependencyNode, Integer> pendingInputs = new HashMap<DependencyNode, Integer>();
+    final List<DependencyNode> ready = new ArrayList<DependencyNode>();
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      int count = 0;
+      for (DependencyNode input : node.getInputNodes()) {
+        if (graph.containsNode(input)) {
+          count++;
+        }
+      }
+      if (count == 0) {
+        ready.add(node);
+      } else {
+        pendingInputs.put(node, count);
+      }
+    }
+    _nodes = new DependencyNode[size];
+    final Map<DependencyNode, Integer> index = new HashMap<DependencyNode, Integer>();
+    int count = 0;
+    while (!ready.isEmpty()) {
+      final DependencyNode node = ready.remove(ready.size() - 1);
+      index.put(node, count);
+      _nodes[count++] = node;
+      for (DependencyNode dependent : node.getDependentNodes()) {
+        final Integer pending = pendingInputs.get(dependent);
+        if (pending != null) {
+          if (pending == 1) {
+            pendingInputs.remove(dependent);
+            ready.add(dependent);
+          } else {
+            pendingInputs.put(dependent, pending - 1);
+          }
+        }
+      }
+    }
+    if (count != size) {
+      throw new IllegalArgumentException("Dependency graph " + graph + " contains a cycle");
+    }
+    _inputs = new int[size][];
+    final List<Integer> liveDataNodes = new ArrayList<Integer>();
+    final List<ValueSpecification> liveData = new ArrayList<ValueSpecification>();
+    for (int i = 0; i < size; i++) {
+      final DependencyNode node = _nodes[i];
+      final int[] inputs = new int[node.getInputNodes().size()];
+      int j = 0;
+      for (DependencyNode input : node.getInputNodes()) {
+        final Integer inputIndex = index.get(input);
+        if (inputIndex != null) {
+          inputs[j++] = inputIndex;
+        }
+      }
+      if (j == 0) {
+        _inputs[i] = NO_INPUTS;
+      } else if (j < inputs.length) {
+        final int[] copy = new int[j];
+        System.arraycopy(inputs, 0, copy, 0, j);
+        _inputs[i] = copy;
+      } else {
+        _inputs[i] = inputs;
+      }
+      final Pair<?, ValueSpecification> requiredLiveData = node.getRequiredLiveData();
+      if (requiredLiveData != null) {
+        liveDataNodes.add(i);
+        liveData.add(requiredLiveData.getSecond());
+      }
+    }
+    _liveDataNodes = new int[liveDataNodes.size()];
+    for (int i = 0; i < _liveDataNodes.length; i++) {
+      _liveDataNodes[i] = liveDataNodes.get(i);
+    }
+    _liveData = liveData.toArray(new ValueSpecification[liveData.size()]);
+  }
+
+  /**
+   * Returns the numbering of a graph, creating it if the graph hasn't been numbered before or has changed size since.
+   *
+   * @param graph the graph, not null
+   * @return the numbering, not null
+   */
+  public static DependencyGraphNumbering of(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    DependencyGraphNumbering numbering = s_numberings.get(graph);
+    if ((numbering == null) || (numbering.getSize() != graph.getSize())) {
+      numbering = new DependencyGraphNumbering(graph);
+      s_numberings.put(graph, numbering);
+    }
+    return numbering;
+  }
+
+  public int getSize() {
+    return _nodes.length;
+  }
+
+  public DependencyNode getNode(final int index) {
+    return _nodes[index];
+  }
+
+  /**
+   * Returns the numbers of the inputs to a node. These are always lower than the number of the node.
+   *
+   * @param index the node number
+   * @return the input node numbers, not to be modified
+   */
+  public int[] getInputs(final int index) {
+    return _inputs[index];
+  }
+
+  /**
+   * Returns the numbers of the nodes that require live data, in ascending order.
+   *
+   * @return the node numbers, not to be modified
+   */
+  public int[] getLiveDataNodes() {
+    return _liveDataNodes;
+  }
+
+  /**
+   * Returns the live data required by the nodes from {@link #getLiveDataNodes}, at the same positions.
+   *
+   * @return the live data specifications, not to be modified
+   */
+  public ValueSpecification[] getLiveData() {
+    return _liveData;
+  }
+
+}
@@ -1,44 +1,127 @@
 /**
  * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
- * 
+ *
  * Please see distribution for license.
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.ehcache.EHCacheUtils;
 
+/**
+ * Caches execution plans, keyed on the structure of the dependency graph they are for.
+ * <p>
+ * If the cache is persistent, plans are also written to the cache manager's disk store so that a restarted view
+ * processor can use them without partitioning the graphs again.
+ */
 /* package */class ExecutionPlanCache {
 
+  private static final Logger s_logger = LoggerFactory.getLogger(ExecutionPlanCache.class);
+
   private static final String CACHE_NAME = "executionPlans";
+  private static final String PERSISTENT_CACHE_NAME = "persistentExecutionPlans";
+
+  /**
+   * Default relative change in the estimated cost of a graph after which its execution plan is recreated.
+   */
+  public static final double DEFAULT_MAXIMUM_COST_DRIFT = 0.25;
 
   private final Cache _cache;
+  private final boolean _persistent;
+  private final Map<DependencyGraph, GraphFingerprint> _fingerprints = Collections.synchronizedMap(new WeakHashMap<DependencyGraph, GraphFingerprint>());
+  private volatile double _maximumCostDrift = DEFAULT_MAXIMUM_COST_DRIFT;
 
   public ExecutionPlanCache(final CacheManager manager, final int cacheSize) {
+    this(manager, cacheSize, false);
+  }
+
+  /**
+   * @param manager the cache manager, not null
+   * @param cacheSize the number of plans to hold in memory, zero to disable caching
+   * @param persistent true to write plans to the cache manager's disk store so they survive a restart
+   */
+  public ExecutionPlanCache(final CacheManager manager, final int cacheSize, final boolean persistent) {
+    ArgumentChecker.notNull(manager, "manager");
     if (cacheSize > 0) {
-      EHCacheUtils.addCache(manager, CACHE_NAME, cacheSize, MemoryStoreEvictionPolicy.LRU, false, null, true, 1800, 300, false, 0, null);
-      _cache = EHCacheUtils.getCacheFromManager(manager, CACHE_NAME);
+      if (persistent) {
+        EHCacheUtils.addCache(manager, new Cache(PERSISTENT_CACHE_NAME, cacheSize, MemoryStoreEvictionPolicy.LRU, true, null, true, 0, 0, true, 120, null));
+        _cache = EHCacheUtils.getCacheFromManager(manager, PERSISTENT_CACHE_NAME);
+      } else {
+        EHCacheUtils.addCache(manager, CACHE_NAME, cacheSize, MemoryStoreEvictionPolicy.LRU, false, null, true, 1800, 300, false, 0, null);
+        _cache = EHCacheUtils.getCacheFromManager(manager, CACHE_NAME);
+      }
+      _persistent = persistent;
     } else {
       _cache = null;
+      _persistent = false;
     }
   }
 
+  public boolean isPersistent() {
+    return _persistent;
+  }
+
+  /**
+   * Sets the relative change in the estimated cost of a graph, from the function costs its plan was created with,
+   * beyond which a cached plan will not be used.
+   *
+   * @param maximumCostDrift the maximum cost drift, for example 0.25 for a 25% change
+   */
+  public void setMaximumCostDrift(final double maximumCostDrift) {
+    ArgumentChecker.notNegative(maximumCostDrift, "maximumCostDrift");
+    _maximumCostDrift = maximumCostDrift;
+  }
+
+  public double getMaximumCostDrift() {
+    return _maximumCostDrift;
+  }
+
   public void clear() {
     if (_cache != null) {
       _cache.removeAll();
     }
   }
 
-  public RootGraphFragment getCachedExecutionPlan(final DependencyGraph graph) {
+  /**
+   * Returns the structural hash of a graph. This is calculated once and held for as long as the graph is referenced.
+   *
+   * @param graph the graph
+   * @return the fingerprint
+   */
+  public GraphFingerprint getFingerprint(final DependencyGraph graph) {
+    GraphFingerprint fingerprint = _fingerprints.get(graph);
+    if (fingerprint == null) {
+      fingerprint = new GraphFingerprint(graph);
+      if (fingerprint.getKey() == null) {
+        s_logger.warn("Can't cache execution plan for {} - node hashes are not unique", graph);
+      }
+      _fingerprints.put(graph, fingerprint);
+    }
+    return fingerprint;
+  }
+
+  public CachedExecutionPlan getCachedExecutionPlan(final DependencyGraph graph) {
     if (_cache != null) {
-      final Element element = _cache.get(graph.getDependencyNodes());
+      final ExecutionPlanKey key = getFingerprint(graph).getKey();
+      if (key == null) {
+        return null;
+      }
+      final Element element = _cache.get(key);
       if (element != null) {
-        return (RootGraphFragment) element.getObjectValue();
+        return (CachedExecutionPlan) element.getObjectValue();
       } else {
         return null;
       }
@@ -49,10 +132,20 @@ import com.opengamma.util.ehcache.EHCacheUtils;
 
   public void cacheExecutionPlan(final DependencyGraph graph, final RootGraphFragment plan) {
     if (_cache != null) {
-      _cache.put(new Element(graph.getDependencyNodes(), plan));
+      final GraphFingerprint fingerprint = getFingerprint(graph);
+      if (fingerprint.getKey() == null) {
+        return;
+      }
+      final Element element = _cache.get(fingerprint.getKey());
+      if ((element != null) && (((CachedExecutionPlan) element.getObjectValue()).getPlan() == plan)) {
+        // Already cached
+        return;
+      }
+      _cache.put(new Element(fingerprint.getKey(), CachedExecutionPlan.of(plan, fingerprint)));
+      if (_persistent) {
+        _cache.flush();
+      }
     }
   }
 
-  // TODO [ENG-269] If the function costs change significantly, invalidate the execution plan cache.
-
 }
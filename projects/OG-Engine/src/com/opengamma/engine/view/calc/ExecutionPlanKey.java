@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.io.Serializable;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Compact key for an execution plan, identifying a dependency graph by its structure rather than by the node
+ * instances. Two graphs with the same key will have the same execution plan, even if built by different processes.
+ */
+/* package */final class ExecutionPlanKey implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String _calculationConfigurationName;
+  private final int _nodeCount;
+  private final long _hash;
+
+  public ExecutionPlanKey(final String calculationConfigurationName, final int nodeCount, final long hash) {
+    ArgumentChecker.notNull(calculationConfigurationName, "calculationConfigurationName");
+    _calculationConfigurationName = calculationConfigurationName;
+    _nodeCount = nodeCount;
+    _hash = hash;
+  }
+
+  public String getCalculationConfigurationName() {
+    return _calculationConfigurationName;
+  }
+
+  public int getNodeCount() {
+    return _nodeCount;
+  }
+
+  public long getHash() {
+    return _hash;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof ExecutionPlanKey)) {
+      return false;
+    }
+    final ExecutionPlanKey other = (ExecutionPlanKey) o;
+    return (_hash == other._hash) && (_nodeCount == other._nodeCount) && _calculationConfigurationName.equals(other._calculationConfigurationName);
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (_hash ^ (_hash >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    return "ExecutionPlanKey[" + _calculationConfigurationName + ", " + _nodeCount + " node(s), " + Long.toHexString(_hash) + "]";
+  }
+
+}
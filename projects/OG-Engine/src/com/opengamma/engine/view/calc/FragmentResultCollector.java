@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.ResultModelDefinition;
+import com.opengamma.engine.view.cache.CacheSelectHint;
+import com.opengamma.engine.view.cache.MissingLiveDataSentinel;
+import com.opengamma.engine.view.cache.ViewComputationCache;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Collects the outputs of nodes as a {@link SingleComputationCycle} executes them and publishes them in batches, by
+ * size or by time, as fragments of the cycle's result. Values published are also added to the cycle's result model
+ * so that they are not read from the computation caches again when the cycle completes.
+ * <p>
+ * A batch is taken by whichever thread fills it, usually the one delivering job results, or by the executing cycle
+ * when it has waited for the batch period. The values are then read from the caches and delivered to the receiver on
+ * a separate executor so that neither the job result threads nor the cycle are held up by the receiver.
+ */
+/* package */class FragmentResultCollector {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(FragmentResultCollector.class);
+
+  private final SingleComputationCycle _cycle;
+  private final FragmentResultReceiver _receiver;
+  private final Executor _executor;
+  private final int _batchSize;
+  private final long _batchPeriodNanos;
+
+  private final Map<String, DependencyGraph> _graphs = new HashMap<String, DependencyGraph>();
+  /**
+   * The calculation configuration of each node that has outputs for the results and has not been executed yet.
+   */
+  private final Map<DependencyNode, String> _nodeConfigurations = new HashMap<DependencyNode, String>();
+  private final Map<String, Collection<ValueSpecification>> _pending = new HashMap<String, Collection<ValueSpecification>>();
+  private final Map<String, Set<ValueSpecification>> _published = new HashMap<String, Set<ValueSpecification>>();
+  private int _pendingCount;
+  private long _lastPublishNanos;
+  private boolean _started;
+  private boolean _closed;
+  /**
+   * The number of fragments being delivered to the receiver.
+   */
+  private int _delivering;
+
+  public FragmentResultCollector(final SingleComputationCycle cycle, final FragmentResultReceiver receiver, final Executor executor, final int batchSize,
+      final long batchPeriodMillis) {
+    ArgumentChecker.notNull(cycle, "cycle");
+    ArgumentChecker.notNull(receiver, "receiver");
+    ArgumentChecker.notNull(executor, "executor");
+    ArgumentChecker.notNegativeOrZero(batchSize, "batchSize");
+    ArgumentChecker.notNegativeOrZero(batchPeriodMillis, "batchPeriodMillis");
+    _cycle = cycle;
+    _receiver = receiver;
+    _executor = executor;
+    _batchSize = batchSize;
+    _batchPeriodNanos = batchPeriodMillis * 1000000L;
+  }
+
+  public long getBatchPeriodMillis() {
+    return _batchPeriodNanos / 1000000L;
+  }
+
+  /**
+   * Starts collecting. Nodes executed before this, for example those unchanged from a previous cycle, are left for the
+   * cycle to add to its result model when it completes.
+   */
+  public synchronized void start() {
+    final ResultModelDefinition resultModelDefinition = _cycle.getViewDefinition().getResultModelDefinition();
+    for (String calcConfigurationName : _cycle.getAllCalculationConfigurationNames()) {
+      final DependencyGraph graph = _cycle.getCompiledViewDefinition().getDependencyGraph(calcConfigurationName);
+      _graphs.put(calcConfigurationName, graph);
+      _published.put(calcConfigurationName, new HashSet<ValueSpecification>());
+      for (DependencyNode node : graph.getDependencyNodes()) {
+        if (resultModelDefinition.shouldOutputFromNode(node)) {
+          _nodeConfigurations.put(node, calcConfigurationName);
+        }
+      }
+    }
+    _lastPublishNanos = System.nanoTime();
+    _started = true;
+  }
+
+  public void nodeExecuted(final DependencyNode node) {
+    final Map<String, Collection<ValueSpecification>> batch;
+    synchronized (this) {
+      if (!_started || _closed) {
+        return;
+      }
+      final String calcConfigurationName = _nodeConfigurations.remove(node);
+      if (calcConfigurationName == null) {
+        return;
+      }
+      Collection<ValueSpecification> pending = _pending.get(calcConfigurationName);
+      if (pending == null) {
+        pending = new ArrayList<ValueSpecification>();
+        _pending.put(calcConfigurationName, pending);
+      }
+      pending.addAll(node.getOutputValues());
+      _pendingCount += node.getOutputValues().size();
+      if ((_pendingCount < _batchSize) && (System.nanoTime() - _lastPublishNanos < _batchPeriodNanos)) {
+        return;
+      }
+      batch = takePending();
+    }
+    submit(batch);
+  }
+
+  /**
+   * Publishes any values that have waited at least the batch period.
+   */
+  public void publishIfDue() {
+    final Map<String, Collection<ValueSpecification>> batch;
+    synchronized (this) {
+      if (!_started || _closed || (_pendingCount == 0) || (System.nanoTime() - _lastPublishNanos < _batchPeriodNanos)) {
+        return;
+      }
+      batch = takePending();
+    }
+    submit(batch);
+  }
+
+  /**
+   * Stops collecting. Values not yet published are discarded; the cycle will read them when it completes. Waits for
+   * any fragment already being delivered so that none arrives after the cycle's complete result.
+   */
+  public synchronized void close() {
+    _closed = true;
+    _nodeConfigurations.clear();
+    _pending.clear();
+    _pendingCount = 0;
+    boolean interrupted = false;
+    while (_delivering > 0) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Returns the values already added to the cycle's result model for a calculation configuration.
+   *
+   * @param calcConfigurationName  the calculation configuration name
+   * @return the value specifications, not null
+   */
+  public synchronized Set<ValueSpecification> getPublished(final String calcConfigurationName) {
+    final Set<ValueSpecification> published = _published.get(calcConfigurationName);
+    return (published != null) ? published : Collections.<ValueSpecification>emptySet();
+  }
+
+  /**
+   * Returns those of a collection of values that have not been added to the cycle's result model, so that the cycle
+   * reads only these when it completes.
+   *
+   * @param calcConfigurationName  the calculation configuration name
+   * @param specifications  the value specifications, not null
+   * @return the value specifications not yet published, not null
+   */
+  public synchronized Collection<ValueSpecification> getUnpublished(final String calcConfigurationName, final Collection<ValueSpecification> specifications) {
+    final Set<ValueSpecification> published = getPublished(calcConfigurationName);
+    if (published.isEmpty()) {
+      return specifications;
+    }
+    final Collection<ValueSpecification> unpublished = new ArrayList<ValueSpecification>(specifications.size());
+    for (ValueSpecification specification : specifications) {
+      if (!published.contains(specification)) {
+        unpublished.add(specification);
+      }
+    }
+    return unpublished;
+  }
+
+  private Map<String, Collection<ValueSpecification>> takePending() {
+    final Map<String, Collection<ValueSpecification>> batch = new HashMap<String, Collection<ValueSpecification>>(_pending);
+    _pending.clear();
+    _pendingCount = 0;
+    _lastPublishNanos = System.nanoTime();
+    return batch;
+  }
+
+  private void submit(final Map<String, Collection<ValueSpecification>> batch) {
+    try {
+      _executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          publish(batch);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // The cycle will read the values when it completes
+      s_logger.debug("Fragment result of cycle {} rejected by executor", _cycle.getUniqueId());
+    }
+  }
+
+  private void publish(final Map<String, Collection<ValueSpecification>> batch) {
+    final ColumnarViewComputationResultModel fragment = new ColumnarViewComputationResultModel();
+    fragment.setViewProcessId(_cycle.getViewProcessId());
+    fragment.setViewCycleId(_cycle.getUniqueId());
+    fragment.setValuationTime(_cycle.getValuationTime());
+    final ResultModelDefinition resultModelDefinition = _cycle.getViewDefinition().getResultModelDefinition();
+    final Map<String, Collection<ComputedValue>> values = new HashMap<String, Collection<ComputedValue>>();
+    for (Map.Entry<String, Collection<ValueSpecification>> pending : batch.entrySet()) {
+      final String calcConfigurationName = pending.getKey();
+      final DependencyGraph graph = _graphs.get(calcConfigurationName);
+      final Collection<ValueSpecification> specifications = new ArrayList<ValueSpecification>(pending.getValue().size());
+      for (ValueSpecification specification : pending.getValue()) {
+        if (resultModelDefinition.shouldOutputResult(specification, graph)) {
+          specifications.add(specification);
+        }
+      }
+      if (specifications.isEmpty()) {
+        continue;
+      }
+      final ViewComputationCache cache = _cycle.getCachesByCalculationConfiguration().get(calcConfigurationName);
+      final Collection<ComputedValue> computedValues = new ArrayList<ComputedValue>(specifications.size());
+      for (Pair<ValueSpecification, Object> value : cache.getValues(specifications, CacheSelectHint.allShared())) {
+        if ((value.getSecond() == null) || (value.getSecond() instanceof MissingLiveDataSentinel)) {
+          continue;
+        }
+        computedValues.add(new ComputedValue(value.getFirst(), value.getSecond()));
+      }
+      if (!computedValues.isEmpty()) {
+        values.put(calcConfigurationName, computedValues);
+      }
+    }
+    if (values.isEmpty()) {
+      return;
+    }
+    synchronized (this) {
+      if (_closed) {
+        // The cycle is reading the values itself
+        return;
+      }
+      final ColumnarViewComputationResultModel resultModel = _cycle.getResultModel();
+      for (Map.Entry<String, Collection<ComputedValue>> calcConfigurationValues : values.entrySet()) {
+        final String calcConfigurationName = calcConfigurationValues.getKey();
+        final Set<ValueSpecification> published = _published.get(calcConfigurationName);
+        for (ComputedValue computedValue : calcConfigurationValues.getValue()) {
+          fragment.addValue(calcConfigurationName, computedValue);
+          resultModel.addValue(calcConfigurationName, computedValue);
+          published.add(computedValue.getSpecification());
+        }
+      }
+      _delivering++;
+    }
+    fragment.setResultTimestamp(Instant.now());
+    s_logger.debug("Publishing fragment of {} values from cycle {}", fragment.getRowCount(), _cycle.getUniqueId());
+    try {
+      _receiver.fragmentResultReceived(fragment);
+    } catch (RuntimeException e) {
+      s_logger.warn("Error publishing fragment result of cycle " + _cycle.getUniqueId(), e);
+    } finally {
+      synchronized (this) {
+        _delivering--;
+        notifyAll();
+      }
+    }
+  }
+
+}
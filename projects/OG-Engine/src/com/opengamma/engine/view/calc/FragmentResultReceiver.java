@@ -0,0 +1,23 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import com.opengamma.engine.view.ViewComputationResultModel;
+
+/**
+ * A call-back interface for the partial results of a {@link SingleComputationCycle} published while it executes.
+ */
+public interface FragmentResultReceiver {
+
+  /**
+   * Called with the values calculated since the previous fragment of the same cycle. Calls for a cycle are made one
+   * at a time, but not necessarily from the same thread.
+   * 
+   * @param fragmentResult  the fragment, not null
+   */
+  void fragmentResultReceived(ViewComputationResultModel fragmentResult);
+
+}
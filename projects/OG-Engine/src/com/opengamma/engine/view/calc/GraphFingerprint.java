@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueIdentifier;
+
+/**
+ * Structural hash of a dependency graph and each of its nodes. The hashes are derived only from string content
+ * and enum names so are stable between processes, allowing a cached execution plan to be matched against a
+ * graph compiled after a restart.
+ */
+/* package */final class GraphFingerprint {
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private final ExecutionPlanKey _key;
+  private final Map<DependencyNode, Long> _nodeHashes;
+  private final Map<Long, DependencyNode> _nodes;
+
+  public GraphFingerprint(final DependencyGraph graph) {
+    final int hashSize = (graph.getSize() * 4) / 3;
+    _nodeHashes = new HashMap<DependencyNode, Long>(hashSize);
+    _nodes = new HashMap<Long, DependencyNode>(hashSize);
+    long graphHash = 0;
+    boolean unique = true;
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      final Long nodeHash = hash(node);
+      _nodeHashes.put(node, nodeHash);
+      if (_nodes.put(nodeHash, node) != null) {
+        unique = false;
+      }
+      graphHash += mix(nodeHash);
+    }
+    long terminalHash = 0;
+    for (ValueSpecification terminalOutput : graph.getTerminalOutputSpecifications()) {
+      terminalHash += mix(hash(terminalOutput));
+    }
+    graphHash = mix(graphHash ^ mix(terminalHash + FNV_PRIME));
+    // A collision between nodes would make the plan ambiguous to restore so the graph is not given a key
+    _key = unique ? new ExecutionPlanKey(graph.getCalculationConfigurationName(), graph.getSize(), graphHash) : null;
+  }
+
+  /**
+   * Returns the key for the graph.
+   *
+   * @return the key, or null if the graph's nodes cannot be uniquely identified by their hashes
+   */
+  public ExecutionPlanKey getKey() {
+    return _key;
+  }
+
+  public long getNodeHash(final DependencyNode node) {
+    return _nodeHashes.get(node);
+  }
+
+  /**
+   * Returns the node from the graph with the given hash.
+   *
+   * @param hash the node hash
+   * @return the node, or null if there is none
+   */
+  public DependencyNode getNode(final long hash) {
+    return _nodes.get(hash);
+  }
+
+  private static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  private static long hash(final long h, final String str) {
+    long result = h;
+    final int length = str.length();
+    for (int i = 0; i < length; i++) {
+      result = (result ^ str.charAt(i)) * FNV_PRIME;
+    }
+    // Separator so that adjacent strings can't be confused
+    return (result ^ 0xFFFF) * FNV_PRIME;
+  }
+
+  private static long hash(final long h, final UniqueIdentifier uid) {
+    if (uid == null) {
+      return h * FNV_PRIME;
+    }
+    long result = hash(h, uid.getScheme());
+    result = hash(result, uid.getValue());
+    if (uid.getVersion() != null) {
+      result = hash(result, uid.getVersion());
+    }
+    return result;
+  }
+
+  private static long hash(final ValueProperties properties) {
+    // Property and value order is not significant
+    long result = 0;
+    for (String property : properties.getProperties()) {
+      long values = 0;
+      for (String value : properties.getValues(property)) {
+        values += mix(hash(FNV_OFFSET, value));
+      }
+      result += mix(hash(FNV_OFFSET, property) + values);
+    }
+    return result;
+  }
+
+  private static long hash(final ValueSpecification specification) {
+    final ComputationTargetSpecification target = specification.getTargetSpecification();
+    long result = hash(FNV_OFFSET, specification.getValueName());
+    result = hash(result, target.getType().name());
+    result = hash(result, target.getUniqueId());
+    return mix(result + hash(specification.getProperties()));
+  }
+
+  private static long hash(final DependencyNode node) {
+    final ComputationTarget target = node.getComputationTarget();
+    long result = hash(FNV_OFFSET, node.getFunction().getFunction().getFunctionDefinition().getUniqueId());
+    result = hash(result, target.getType().name());
+    result = hash(result, target.getUniqueId());
+    long values = 0;
+    for (ValueSpecification input : node.getInputValues()) {
+      values += hash(input);
+    }
+    result = mix(result + values);
+    values = 0;
+    for (ValueSpecification output : node.getOutputValues()) {
+      values += hash(output);
+    }
+    return mix(result ^ mix(values));
+  }
+
+}
@@ -53,6 +53,13 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
   private long _dataInputCost;
   private long _dataOutputCost;
 
+  // Timings of the most recent execution, for profiling
+  private long _jobId;
+  private long _dispatchedNanos;
+  private volatile long _completedNanos;
+  private long _executionNanos;
+  private String _computeNodeId;
+
   public GraphFragment(final GraphFragmentContext context) {
     _context = context;
     _graphFragmentIdentifier = context.nextIdentifier();
@@ -298,6 +305,39 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
     mergeFragmentCost(fragment);
   }
 
+  /**
+   * Removes inputs that are produced within this fragment and notes as private any of those values that are not
+   * needed by other fragments or as terminal outputs. This is equivalent to the adjustments made when fragments
+   * are prepended as the execution plan is created, and is used when restoring a cached plan.
+   */
+  public void restorePrivateValues() {
+    final Map<ValueSpecification, Boolean> sharedCacheValues = getContext().getSharedCacheValues();
+    final Iterator<Map.Entry<ValueSpecification, Integer>> outputIterator = getOutputValues().entrySet().iterator();
+    while (outputIterator.hasNext()) {
+      final Map.Entry<ValueSpecification, Integer> output = outputIterator.next();
+      final Integer required = getInputValues().remove(output.getKey());
+      if (required == null) {
+        continue;
+      }
+      _dataInputCost -= required;
+      if (sharedCacheValues.get(output.getKey()) == Boolean.TRUE) {
+        continue;
+      }
+      boolean isPrivate = true;
+      for (GraphFragment outputFragment : getOutputFragments()) {
+        if (outputFragment.getInputValues().containsKey(output.getKey())) {
+          isPrivate = false;
+          break;
+        }
+      }
+      if (isPrivate) {
+        getPrivateValues().add(output.getKey());
+        _dataOutputCost -= output.getValue();
+        outputIterator.remove();
+      }
+    }
+  }
+
   public void inputCompleted() {
     // If _blockCount is null, we are a tail job that has already been dispatched
     if (_blockCount != null) {
@@ -376,6 +416,8 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
     }
     getContext().getExecutor().addJobToViewProcessorQuery(jobSpec, getContext().getGraph());
     final CalculationJob job = new CalculationJob(jobSpec, getFunctionInitializationTimestamp(), _requiredJobs, items, _cacheSelectHint);
+    _jobId = jobSpec.getJobId();
+    _dispatchedNanos = System.nanoTime();
     if (getTail() != null) {
       for (GraphFragment tail : getTail()) {
         tail._blockCount = null;
@@ -420,6 +462,7 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
       }
     }
     _requiredJobs = null;
+    _completedNanos = 0;
     return true;
   }
 
@@ -429,6 +472,10 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
   }
 
   public void resultReceived(final CalculationJobResult result) {
+    _executionNanos = result.getDuration();
+    _computeNodeId = result.getComputeNodeId();
+    _completedNanos = System.nanoTime();
+    getContext().jobExecuted(result);
     // Release tree fragments up the tree
     getContext().addExecutionTime(result.getDuration());
     for (GraphFragment dependent : getOutputFragments()) {
@@ -436,6 +483,36 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
     }
   }
 
+  public long getJobId() {
+    return _jobId;
+  }
+
+  /**
+   * Returns the time the job for this fragment was created and dispatched, or the time its tail parent was.
+   * 
+   * @return the {@link System#nanoTime} timestamp
+   */
+  public long getDispatchedNanos() {
+    return _dispatchedNanos;
+  }
+
+  /**
+   * Returns the time the result of the job for this fragment was received.
+   * 
+   * @return the {@link System#nanoTime} timestamp, or zero if it has not completed
+   */
+  public long getCompletedNanos() {
+    return _completedNanos;
+  }
+
+  public long getExecutionNanos() {
+    return _executionNanos;
+  }
+
+  public String getComputeNodeId() {
+    return _computeNodeId;
+  }
+
   public long getFunctionInitializationTimestamp() {
     return getContext().getFunctionInitializationTimestamp();
   }
@@ -5,8 +5,14 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -17,6 +23,7 @@ import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.function.CompiledFunctionDefinition;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.calc.stats.ExecutionProfiler;
 import com.opengamma.engine.view.calcnode.CalculationJob;
 import com.opengamma.engine.view.calcnode.CalculationJobItem;
 import com.opengamma.engine.view.calcnode.CalculationJobResult;
@@ -29,6 +36,39 @@ import com.opengamma.util.Cancellable;
 
 /* package */class GraphFragmentContext implements JobResultReceiver {
 
+  /**
+   * Pairs a job with its speculative copy. Whichever result arrives first claims the pair; the other is discarded.
+   */
+  private static final class Speculation {
+
+    private final AtomicBoolean _claimed;
+    private final CalculationJobSpecification _twin;
+    private final boolean _root;
+
+    private Speculation(final AtomicBoolean claimed, final CalculationJobSpecification twin, final boolean root) {
+      _claimed = claimed;
+      _twin = twin;
+      _root = root;
+    }
+
+    public boolean claim() {
+      return _claimed.compareAndSet(false, true);
+    }
+
+    public boolean isClaimed() {
+      return _claimed.get();
+    }
+
+    public CalculationJobSpecification getTwin() {
+      return _twin;
+    }
+
+    public boolean isRoot() {
+      return _root;
+    }
+
+  }
+
   private static final Logger s_logger = LoggerFactory.getLogger(GraphFragmentContext.class);
 
   private final AtomicInteger _graphFragmentIdentifiers = new AtomicInteger();
@@ -39,6 +79,8 @@ import com.opengamma.util.Cancellable;
   private final Map<CalculationJobItem, DependencyNode> _item2node;
   private final FunctionCostsPerConfiguration _functionCost;
   private final Map<CalculationJobSpecification, Cancellable> _cancels = new ConcurrentHashMap<CalculationJobSpecification, Cancellable>();
+  private final Map<String, Double> _plannedCosts = new ConcurrentHashMap<String, Double>();
+  private final Map<CalculationJobSpecification, Speculation> _speculations = new ConcurrentHashMap<CalculationJobSpecification, Speculation>();
   private Map<ValueSpecification, Boolean> _sharedCacheValues;
   private Map<CalculationJobSpecification, GraphFragment> _job2fragment;
   private volatile boolean _cancelled;
@@ -77,6 +119,10 @@ import com.opengamma.util.Cancellable;
       s_logger.warn("{} elements in cancellation set - can't reset for re-execution ({})", _cancels.size(), _cancels);
       return false;
     }
+    if (!_speculations.isEmpty()) {
+      s_logger.warn("{} elements in speculation map - can't reset for re-execution ({})", _speculations.size(), _speculations);
+      return false;
+    }
     _executionTime.set(0);
     _executor = executor;
     return true;
@@ -102,6 +148,18 @@ import com.opengamma.util.Cancellable;
     return _executionTime.get();
   }
 
+  /**
+   * Reports the execution time of a job to the profiler, if there is one.
+   * 
+   * @param result the job result
+   */
+  public void jobExecuted(final CalculationJobResult result) {
+    final ExecutionProfiler profiler = getExecutor().getProfiler();
+    if ((profiler != null) && (result.getComputeNodeId() != null)) {
+      profiler.jobExecuted(result.getComputeNodeId(), result.getDuration());
+    }
+  }
+
   public Map<CalculationJobItem, DependencyNode> getItem2Node() {
     return _item2node;
   }
@@ -123,11 +181,44 @@ import com.opengamma.util.Cancellable;
   }
 
   public FunctionInvocationStatistics getFunctionStatistics(final CompiledFunctionDefinition function) {
-    return _functionCost.getStatistics(function.getFunctionDefinition().getUniqueId());
+    final String functionId = function.getFunctionDefinition().getUniqueId();
+    final FunctionInvocationStatistics statistics = _functionCost.getStatistics(functionId);
+    if (!_plannedCosts.containsKey(functionId)) {
+      _plannedCosts.put(functionId, statistics.getInvocationCost());
+    }
+    return statistics;
+  }
+
+  /**
+   * Returns the invocation costs of each function as they were when the execution plan was created.
+   * 
+   * @return the function costs, keyed by function identifier
+   */
+  public Map<String, Double> getPlannedCosts() {
+    return _plannedCosts;
   }
 
   @Override
   public void resultReceived(final CalculationJobResult result) {
+    final Speculation speculation = _speculations.remove(result.getSpecification());
+    if (speculation != null) {
+      if (!speculation.claim()) {
+        s_logger.debug("Discarding result of {} - already received from its twin", result.getSpecification());
+        _cancels.remove(result.getSpecification());
+        _job2fragment.remove(result.getSpecification());
+        return;
+      }
+      // Won the race; the twin's result will be ignored when (if) it arrives
+      _speculations.remove(speculation.getTwin());
+      _job2fragment.remove(speculation.getTwin());
+      if (speculation.isRoot()) {
+        final Cancellable twin = _cancels.remove(speculation.getTwin());
+        if (twin != null) {
+          twin.cancel(true);
+        }
+      }
+      s_logger.debug("Result of {} received before {}", result.getSpecification(), speculation.getTwin());
+    }
     _cancels.remove(result.getSpecification());
     final GraphFragment fragment = _job2fragment.remove(result.getSpecification());
     if (fragment != null) {
@@ -153,8 +244,123 @@ import com.opengamma.util.Cancellable;
         if (_cancels.remove(job.getSpecification()) != null) {
           s_logger.debug("Removed cancellation handle on fast job execution of {}", job.getSpecification());
         }
+      } else if (getExecutor().isSpeculative()) {
+        scheduleSpeculation(job);
+      }
+    }
+  }
+
+  /**
+   * Returns the predicted execution time of a job and its tail, in nanoseconds, from the costs of the fragments
+   * it was created from.
+   * 
+   * @param job the job
+   * @return the predicted time, or zero if the job is no longer known
+   */
+  private long getPredictedTime(final CalculationJob job) {
+    final GraphFragment fragment = _job2fragment.get(job.getSpecification());
+    if (fragment == null) {
+      return 0;
+    }
+    long cost = fragment.getJobCost();
+    if (job.getTail() != null) {
+      for (CalculationJob tail : job.getTail()) {
+        cost += getPredictedTime(tail);
+      }
+    }
+    return cost;
+  }
+
+  private void scheduleSpeculation(final CalculationJob job) {
+    final long predicted = (long) ((double) getPredictedTime(job) * getExecutor().getSpeculationThreshold() / 1e6);
+    final long delay = Math.max(predicted, getExecutor().getMinimumSpeculationDelay());
+    getExecutor().getSpeculationTimer().schedule(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          speculate(job);
+        } catch (RuntimeException e) {
+          s_logger.warn("Couldn't speculatively dispatch {}: {}", job.getSpecification(), e.getMessage());
+        }
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Dispatches a copy of a job, and its tail, that has not completed within its predicted time. The dispatcher
+   * will normally offer the copy to a different invoker to the one that is running the original, so a
+   * straggling node doesn't hold up the cycle. Only jobs not already claimed by a result are copied.
+   */
+  private void speculate(final CalculationJob job) {
+    if (_cancelled || !_job2fragment.containsKey(job.getSpecification()) || _speculations.containsKey(job.getSpecification())) {
+      return;
+    }
+    final Map<Long, Long> jobIds = new HashMap<Long, Long>();
+    final List<CalculationJob> originals = new ArrayList<CalculationJob>();
+    final List<CalculationJob> copies = new ArrayList<CalculationJob>();
+    final CalculationJob copy = copyJob(job, jobIds, originals, copies);
+    // Register the originals first so that a result arriving now either claims them or is seen to be missing
+    final List<Speculation> twins = new ArrayList<Speculation>(originals.size());
+    for (int i = 0; i < originals.size(); i++) {
+      final CalculationJobSpecification original = originals.get(i).getSpecification();
+      final AtomicBoolean claimed = new AtomicBoolean();
+      _speculations.put(original, new Speculation(claimed, copies.get(i).getSpecification(), i == 0));
+      final GraphFragment fragment = _job2fragment.get(original);
+      if (fragment == null) {
+        // Already completed (or completing) so don't run the copy
+        claimed.set(true);
+        _speculations.remove(original);
+        twins.add(null);
+      } else {
+        twins.add(new Speculation(claimed, original, i == 0));
+        _job2fragment.put(copies.get(i).getSpecification(), fragment);
+        if (claimed.get()) {
+          // Original completed while the copy was being registered
+          _job2fragment.remove(copies.get(i).getSpecification());
+        }
+      }
+    }
+    if (twins.get(0) == null || twins.get(0).isClaimed()) {
+      // Root job finished in the meantime; nothing to dispatch
+      for (int i = 0; i < copies.size(); i++) {
+        _job2fragment.remove(copies.get(i).getSpecification());
+        _speculations.remove(originals.get(i).getSpecification());
+      }
+      return;
+    }
+    for (int i = 0; i < copies.size(); i++) {
+      final Speculation twin = twins.get(i);
+      if ((twin != null) && !twin.isClaimed()) {
+        _speculations.put(copies.get(i).getSpecification(), twin);
+      }
+      // Otherwise the original has completed so the copy's result will be ignored as it has no fragment
+    }
+    s_logger.info("Job {} has overrun its predicted time; dispatching copy {}", job.getSpecification(), copy.getSpecification());
+    _cancels.put(copy.getSpecification(), getExecutor().dispatchJob(copy, this));
+  }
+
+  private CalculationJob copyJob(final CalculationJob job, final Map<Long, Long> jobIds, final List<CalculationJob> originals, final List<CalculationJob> copies) {
+    final CalculationJobSpecification spec = getExecutor().createJobSpecification(getGraph());
+    jobIds.put(job.getSpecification().getJobId(), spec.getJobId());
+    Collection<Long> requiredJobIds = job.getRequiredJobIds();
+    if (requiredJobIds != null) {
+      final Collection<Long> mapped = new ArrayList<Long>(requiredJobIds.size());
+      for (Long requiredJobId : requiredJobIds) {
+        final Long copyId = jobIds.get(requiredJobId);
+        mapped.add((copyId != null) ? copyId : requiredJobId);
+      }
+      requiredJobIds = mapped;
+    }
+    getExecutor().addJobToViewProcessorQuery(spec, getGraph());
+    final CalculationJob copy = new CalculationJob(spec, job.getFunctionInitializationIdentifier(), requiredJobIds, job.getJobItems(), job.getCacheSelectHint());
+    originals.add(job);
+    copies.add(copy);
+    if (job.getTail() != null) {
+      for (CalculationJob tail : job.getTail()) {
+        copy.addTail(copyJob(tail, jobIds, originals, copies));
       }
     }
+    return copy;
   }
 
   public boolean isCancelled() {
@@ -5,16 +5,18 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.lang.ObjectUtils;
-
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
-import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.DeltaDefinition;
 import com.opengamma.engine.view.cache.ViewComputationCache;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.tuple.Pair;
@@ -23,15 +25,23 @@ import com.opengamma.util.tuple.Pair;
  * Determines which nodes in a graph have changed. A node has 'changed' if and only 
  * if its subtree contains a node for which PreviousLiveDataInput != CurrentLiveDataInput.
  * Note that this excludes changes due to passage of the system clock. 
+ * <p>
+ * Live data values are compared using a {@link DeltaDefinition}, so small numeric movements
+ * can be ignored. Changes are propagated in a single pass over the graph's nodes in
+ * topological order, using the numbering held by {@link DependencyGraphNumbering}.
  */
 public class LiveDataDeltaCalculator {
 
   private final DependencyGraph _graph;
   private final ViewComputationCache _cache;
   private final ViewComputationCache _previousCache;
+  private final DeltaDefinition _deltaDefinition;
+
+  private DependencyGraphNumbering _numbering;
+  private final BitSet _changed = new BitSet();
 
-  private final Set<DependencyNode> _changedNodes = new HashSet<DependencyNode>();
-  private final Set<DependencyNode> _unchangedNodes = new HashSet<DependencyNode>();
+  private Set<DependencyNode> _changedNodes;
+  private Set<DependencyNode> _unchangedNodes;
 
   private boolean _done; // = false
 
@@ -46,28 +56,59 @@ public class LiveDataDeltaCalculator {
    * @param previousCache Contains PreviousLiveDataInputs (for the given graph)
    */
   public LiveDataDeltaCalculator(DependencyGraph graph, ViewComputationCache cache, ViewComputationCache previousCache) {
+    this(graph, cache, previousCache, new DeltaDefinition());
+  }
+
+  /**
+   * @param graph Dependency graph
+   * @param cache Contains CurrentLiveDataInputs (for the given graph)
+   * @param previousCache Contains PreviousLiveDataInputs (for the given graph)
+   * @param deltaDefinition Decides whether a LiveData input has changed
+   */
+  public LiveDataDeltaCalculator(DependencyGraph graph, ViewComputationCache cache, ViewComputationCache previousCache, DeltaDefinition deltaDefinition) {
     ArgumentChecker.notNull(graph, "Graph");
     ArgumentChecker.notNull(cache, "Cache");
     ArgumentChecker.notNull(previousCache, "Previous cache");
+    ArgumentChecker.notNull(deltaDefinition, "Delta definition");
     _graph = graph;
     _cache = cache;
     _previousCache = previousCache;
+    _deltaDefinition = deltaDefinition;
   }
 
-  public Set<DependencyNode> getChangedNodes() {
+  private void checkDone() {
     if (!_done) {
       throw new IllegalStateException("Call computeDelta() first");
     }
+  }
 
-    return Collections.unmodifiableSet(_changedNodes);
+  public Set<DependencyNode> getChangedNodes() {
+    checkDone();
+    if (_changedNodes == null) {
+      final Set<DependencyNode> nodes = new HashSet<DependencyNode>();
+      for (int i = _changed.nextSetBit(0); i >= 0; i = _changed.nextSetBit(i + 1)) {
+        nodes.add(_numbering.getNode(i));
+      }
+      _changedNodes = Collections.unmodifiableSet(nodes);
+    }
+    return _changedNodes;
   }
 
   public Set<DependencyNode> getUnchangedNodes() {
-    if (!_done) {
-      throw new IllegalStateException("Call computeDelta() first");
+    checkDone();
+    if (_unchangedNodes == null) {
+      final Set<DependencyNode> nodes = new HashSet<DependencyNode>();
+      for (int i = _changed.nextClearBit(0); i < _numbering.getSize(); i = _changed.nextClearBit(i + 1)) {
+        nodes.add(_numbering.getNode(i));
+      }
+      _unchangedNodes = Collections.unmodifiableSet(nodes);
     }
+    return _unchangedNodes;
+  }
 
-    return Collections.unmodifiableSet(_unchangedNodes);
+  public int getChangedNodeCount() {
+    checkDone();
+    return _changed.cardinality();
   }
 
   public void computeDelta() {
@@ -75,46 +116,42 @@ public class LiveDataDeltaCalculator {
       throw new IllegalStateException("Cannot determine delta twice");
     }
 
-    for (DependencyNode rootNode : _graph.getRootNodes()) {
-      computeDelta(rootNode);
+    _numbering = DependencyGraphNumbering.of(_graph);
+    final int[] liveDataNodes = _numbering.getLiveDataNodes();
+    if (liveDataNodes.length > 0) {
+      final ValueSpecification[] liveData = _numbering.getLiveData();
+      final Map<ValueSpecification, Object> previousValues = getValues(_previousCache, liveData);
+      final Map<ValueSpecification, Object> newValues = getValues(_cache, liveData);
+      for (int i = 0; i < liveDataNodes.length; i++) {
+        if (_deltaDefinition.isValueDelta(previousValues.get(liveData[i]), newValues.get(liveData[i]))) {
+          _changed.set(liveDataNodes[i]);
+        }
+      }
+      // Inputs are always numbered before the nodes that consume them, so one pass sees every input's final state
+      final int size = _numbering.getSize();
+      for (int i = _changed.nextSetBit(0) + 1; (i > 0) && (i < size); i++) {
+        if (_changed.get(i)) {
+          continue;
+        }
+        for (int input : _numbering.getInputs(i)) {
+          if (_changed.get(input)) {
+            // if any children changed, this node automatically requires recomputation.
+            _changed.set(i);
+            break;
+          }
+        }
+      }
     }
 
     _done = true;
   }
 
-  private boolean computeDelta(DependencyNode node) {
-    if (_changedNodes.contains(node)) {
-      return true;
-    }
-    if (_unchangedNodes.contains(node)) {
-      return false;
-    }
-
-    boolean hasChanged = false;
-    for (DependencyNode inputNode : node.getInputNodes()) {
-      // if any children changed, this node automatically requires recomputation.
-      hasChanged |= computeDelta(inputNode);
+  private static Map<ValueSpecification, Object> getValues(final ViewComputationCache cache, final ValueSpecification[] specifications) {
+    final Map<ValueSpecification, Object> values = new HashMap<ValueSpecification, Object>();
+    for (Pair<ValueSpecification, Object> value : cache.getValues(Arrays.asList(specifications))) {
+      values.put(value.getFirst(), value.getSecond());
     }
-
-    if (!hasChanged) {
-      // if no children changed, the node may still require recomputation
-      // due to LiveData changes affecting the function of the node.
-      Pair<ValueRequirement, ValueSpecification> liveData = node.getRequiredLiveData();
-      if (liveData != null) {
-        Object oldValue = _previousCache.getValue(liveData.getSecond());
-        Object newValue = _cache.getValue(liveData.getSecond());
-        if (!ObjectUtils.equals(oldValue, newValue)) {
-          hasChanged = true;
-        }
-      }
-    }
-
-    if (hasChanged) {
-      _changedNodes.add(node);
-    } else {
-      _unchangedNodes.add(node);
-    }
-
-    return hasChanged;
+    return values;
   }
+
 }
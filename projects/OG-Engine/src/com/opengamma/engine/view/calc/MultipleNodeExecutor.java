@@ -18,6 +18,7 @@ import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
@@ -26,6 +27,8 @@ import org.slf4j.LoggerFactory;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyNode;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.calc.stats.CriticalPath;
+import com.opengamma.engine.view.calc.stats.ExecutionProfiler;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
 import com.opengamma.engine.view.calcnode.CalculationJob;
 import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
@@ -51,9 +54,57 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<Object> {
   private final int _maxConcurrency;
   private final FunctionCosts _functionCosts;
   private final ExecutionPlanCache _cache;
+  private final double _speculationThreshold;
+  private final long _minimumSpeculationDelay;
+  private final ScheduledExecutorService _speculationTimer;
+  private final ExecutionProfiler _profiler;
 
   protected MultipleNodeExecutor(final SingleComputationCycle cycle, final int minimumJobItems, final int maximumJobItems, final long minimumJobCost, final long maximumJobCost,
       final int maximumConcurrency, final FunctionCosts functionCosts, final ExecutionPlanCache cache) {
+    this(cycle, minimumJobItems, maximumJobItems, minimumJobCost, maximumJobCost, maximumConcurrency, functionCosts, cache, 0, 0, null);
+  }
+
+  /**
+   * Creates an executor that will speculatively dispatch a second copy of any job that is still running after a
+   * multiple of its predicted time. The first result received for each job is used.
+   * 
+   * @param cycle the computation cycle
+   * @param minimumJobItems the minimum number of items in a job
+   * @param maximumJobItems the maximum number of items in a job
+   * @param minimumJobCost the minimum job cost
+   * @param maximumJobCost the maximum job cost
+   * @param maximumConcurrency the maximum number of job tails expected to execute in parallel
+   * @param functionCosts the function costs used to predict job times
+   * @param cache the execution plan cache
+   * @param speculationThreshold the multiple of its predicted time after which a job is dispatched again, zero to disable
+   * @param minimumSpeculationDelay the minimum time in milliseconds before a job is dispatched again
+   * @param speculationTimer the timer to schedule speculative dispatches with, null to disable
+   */
+  protected MultipleNodeExecutor(final SingleComputationCycle cycle, final int minimumJobItems, final int maximumJobItems, final long minimumJobCost, final long maximumJobCost,
+      final int maximumConcurrency, final FunctionCosts functionCosts, final ExecutionPlanCache cache, final double speculationThreshold, final long minimumSpeculationDelay,
+      final ScheduledExecutorService speculationTimer) {
+    this(cycle, minimumJobItems, maximumJobItems, minimumJobCost, maximumJobCost, maximumConcurrency, functionCosts, cache, speculationThreshold, minimumSpeculationDelay, speculationTimer, null);
+  }
+
+  /**
+   * Creates an executor that reports job timings and the critical path of each graph it executes to a profiler.
+   * 
+   * @param cycle the computation cycle
+   * @param minimumJobItems the minimum number of items in a job
+   * @param maximumJobItems the maximum number of items in a job
+   * @param minimumJobCost the minimum job cost
+   * @param maximumJobCost the maximum job cost
+   * @param maximumConcurrency the maximum number of job tails expected to execute in parallel
+   * @param functionCosts the function costs used to predict job times
+   * @param cache the execution plan cache
+   * @param speculationThreshold the multiple of its predicted time after which a job is dispatched again, zero to disable
+   * @param minimumSpeculationDelay the minimum time in milliseconds before a job is dispatched again
+   * @param speculationTimer the timer to schedule speculative dispatches with, null to disable
+   * @param profiler the profiler to report to, null to disable profiling
+   */
+  protected MultipleNodeExecutor(final SingleComputationCycle cycle, final int minimumJobItems, final int maximumJobItems, final long minimumJobCost, final long maximumJobCost,
+      final int maximumConcurrency, final FunctionCosts functionCosts, final ExecutionPlanCache cache, final double speculationThreshold, final long minimumSpeculationDelay,
+      final ScheduledExecutorService speculationTimer, final ExecutionProfiler profiler) {
     // Don't check for null as the factory does this, plus for testing we don't have a cycle and override the methods that use it
     _cycle = cycle;
     _minJobItems = minimumJobItems;
@@ -63,6 +114,10 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<Object> {
     _maxConcurrency = maximumConcurrency;
     _functionCosts = functionCosts;
     _cache = cache;
+    _speculationThreshold = speculationThreshold;
+    _minimumSpeculationDelay = minimumSpeculationDelay;
+    _speculationTimer = speculationTimer;
+    _profiler = profiler;
   }
 
   protected long getFunctionInitId() {
@@ -180,25 +235,47 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<Object> {
 
   @Override
   public Future<Object> execute(final DependencyGraph graph, final GraphExecutorStatisticsGatherer statistics) {
-    final RootGraphFragment execution = _cache.getCachedExecutionPlan(graph);
-    if (execution != null) {
-      if (execution.getFunctionInitializationTimestamp() != getCycle().getFunctionInitId()) {
-        s_logger.warn("Invalid cached execution plan for {} due to re-initialization", graph);
+    final CachedExecutionPlan cached = _cache.getCachedExecutionPlan(graph);
+    if (cached != null) {
+      final double drift;
+      if (!cached.isCompatible(this)) {
+        s_logger.info("Cached execution plan for {} was created with different job limits", graph);
+      } else if ((drift = cached.getCostDrift(getFunctionCosts().getStatistics(graph.getCalculationConfigurationName()))) > _cache.getMaximumCostDrift()) {
+        s_logger.info("Function costs have drifted by {} since the cached execution plan for {} was created", drift, graph);
       } else {
         final Set<GraphFragment> visited = new HashSet<GraphFragment>();
-        if (execution.reset(this, visited)) {
-          s_logger.info("Using cached execution plan for {}", graph);
+        final RootGraphFragment execution = cached.getPlan();
+        if ((execution != null) && (execution.getContext().getGraph() == graph)) {
+          if (execution.getFunctionInitializationTimestamp() != getFunctionInitId()) {
+            s_logger.info("Restoring cached execution plan for {} due to re-initialization", graph);
+          } else if (execution.reset(this, visited)) {
+            s_logger.info("Using cached execution plan for {}", graph);
+            visited.clear();
+            executeLeafNodes(execution, visited);
+            return execution;
+          } else {
+            s_logger.warn("Can't reset cached execution plan for {}", graph);
+          }
+        }
+        final RootGraphFragment restored = restoreExecutionPlan(graph, cached, statistics);
+        if (restored != null) {
           visited.clear();
-          executeLeafNodes(execution, visited);
-          return execution;
-        } else {
-          s_logger.warn("Invalid cached execution plan for {}", graph);
+          executeLeafNodes(restored, visited);
+          return restored;
         }
+        s_logger.warn("Cached execution plan does not match {}", graph);
       }
     }
     return createExecutionPlan(graph, statistics);
   }
 
+  protected RootGraphFragment restoreExecutionPlan(final DependencyGraph graph, final CachedExecutionPlan cached, final GraphExecutorStatisticsGatherer statistics) {
+    final OperationTimer timer = new OperationTimer(s_logger, "Restoring cached execution plan for {}", graph);
+    final RootGraphFragment fragment = cached.restore(new GraphFragmentContext(this, graph), _cache.getFingerprint(graph), statistics);
+    timer.finished();
+    return fragment;
+  }
+
   public int getMinJobItems() {
     return _minJobItems;
   }
@@ -223,6 +300,47 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<Object> {
     return _functionCosts;
   }
 
+  public double getSpeculationThreshold() {
+    return _speculationThreshold;
+  }
+
+  public long getMinimumSpeculationDelay() {
+    return _minimumSpeculationDelay;
+  }
+
+  protected ScheduledExecutorService getSpeculationTimer() {
+    return _speculationTimer;
+  }
+
+  /**
+   * Returns the profiler that job timings and critical paths are reported to.
+   * 
+   * @return the profiler, null if profiling is disabled
+   */
+  public ExecutionProfiler getProfiler() {
+    return _profiler;
+  }
+
+  /**
+   * Reports the critical path of an executed graph to the profiler.
+   * 
+   * @param graph the executed graph
+   * @param durationNanos the time taken to execute the graph
+   * @param criticalPath the jobs on the critical path, in execution order
+   */
+  protected void graphProfiled(final DependencyGraph graph, final long durationNanos, final List<CriticalPath.Step> criticalPath) {
+    getProfiler().graphExecuted(getCycle().getViewProcessId(), new CriticalPath(getCycle().getUniqueId(), graph.getCalculationConfigurationName(), durationNanos, criticalPath));
+  }
+
+  /**
+   * Tests whether jobs that overrun their predicted time should be dispatched again.
+   * 
+   * @return true if speculative dispatch is enabled
+   */
+  public boolean isSpeculative() {
+    return (_speculationThreshold > 0) && (_speculationTimer != null);
+  }
+
   private Collection<GraphFragment> graphToFragments(final GraphFragmentContext context, final DependencyGraph graph, final Set<GraphFragment> allFragments) {
     final Map<DependencyNode, GraphFragment> node2fragment = new HashMap<DependencyNode, GraphFragment>();
     final Collection<DependencyNode> rootNodes = graph.getRootNodes();
@@ -5,8 +5,13 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+
 import org.springframework.beans.factory.InitializingBean;
 
+import com.opengamma.engine.view.calc.stats.ExecutionProfiler;
 import com.opengamma.engine.view.calcnode.stats.FunctionCosts;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.ehcache.EHCacheUtils;
@@ -17,14 +22,22 @@ import com.opengamma.util.ehcache.EHCacheUtils;
 public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFactory<Object>, InitializingBean {
   
   private static final int DEFAULT_EXECUTION_PLAN_CACHE = 100;
+  private static final long DEFAULT_MINIMUM_SPECULATION_DELAY = 1000;
 
   private ExecutionPlanCache _executionPlanCache;
+  private int _cacheSize = DEFAULT_EXECUTION_PLAN_CACHE;
+  private boolean _persistentCache;
+  private double _maximumCostDrift = ExecutionPlanCache.DEFAULT_MAXIMUM_COST_DRIFT;
   private int _minimumJobItems = 1;
   private int _maximumJobItems = Integer.MAX_VALUE;
   private long _minimumJobCost = 1;
   private long _maximumJobCost = Long.MAX_VALUE;
   private int _maximumConcurrency = Integer.MAX_VALUE;
   private FunctionCosts _functionCosts;
+  private double _speculationThreshold;
+  private long _minimumSpeculationDelay = DEFAULT_MINIMUM_SPECULATION_DELAY;
+  private ScheduledExecutorService _speculationTimer;
+  private ExecutionProfiler _profiler;
 
   public void setMinimumJobItems(final int minimumJobItems) {
     _minimumJobItems = minimumJobItems;
@@ -87,13 +100,118 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
   }
 
   public void setCacheSize(final int size) {
-    _executionPlanCache = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), size);
+    _cacheSize = size;
+    _executionPlanCache = null;
+  }
+
+  public int getCacheSize() {
+    return _cacheSize;
+  }
+
+  /**
+   * Sets whether execution plans are written to the cache manager's disk store, so that they can be reused after
+   * a restart.
+   * 
+   * @param persistentCache true to persist the execution plans
+   */
+  public void setPersistentCache(final boolean persistentCache) {
+    _persistentCache = persistentCache;
+    _executionPlanCache = null;
+  }
+
+  public boolean isPersistentCache() {
+    return _persistentCache;
+  }
+
+  /**
+   * Sets the relative change in function costs after which a cached execution plan is recreated.
+   * 
+   * @param maximumCostDrift the maximum drift in the estimated cost of a graph, for example 0.25 for a 25% change
+   */
+  public void setMaximumCostDrift(final double maximumCostDrift) {
+    ArgumentChecker.notNegative(maximumCostDrift, "maximumCostDrift");
+    _maximumCostDrift = maximumCostDrift;
+    if (_executionPlanCache != null) {
+      _executionPlanCache.setMaximumCostDrift(maximumCostDrift);
+    }
+  }
+
+  public double getMaximumCostDrift() {
+    return _maximumCostDrift;
+  }
+
+  /**
+   * Sets the multiple of its predicted execution time after which a job that has not completed is dispatched again,
+   * so that a slow or stalled node doesn't hold up the cycle. The first result received is used. A value of zero,
+   * the default, disables speculative dispatch.
+   * 
+   * @param speculationThreshold the multiple of the predicted time, for example 3 to re-dispatch after three times the predicted time
+   */
+  public void setSpeculationThreshold(final double speculationThreshold) {
+    ArgumentChecker.notNegative(speculationThreshold, "speculationThreshold");
+    _speculationThreshold = speculationThreshold;
+  }
+
+  public double getSpeculationThreshold() {
+    return _speculationThreshold;
+  }
+
+  /**
+   * Sets the minimum time before a job is dispatched again. Predictions for small jobs are dominated by the dispatch
+   * overhead so are less reliable.
+   * 
+   * @param minimumSpeculationDelay the minimum delay in milliseconds
+   */
+  public void setMinimumSpeculationDelay(final long minimumSpeculationDelay) {
+    ArgumentChecker.notNegative(minimumSpeculationDelay, "minimumSpeculationDelay");
+    _minimumSpeculationDelay = minimumSpeculationDelay;
+  }
+
+  public long getMinimumSpeculationDelay() {
+    return _minimumSpeculationDelay;
+  }
+
+  /**
+   * Sets the profiler that executors report job timings and the critical path of each graph to.
+   * 
+   * @param profiler the profiler, null to disable profiling
+   */
+  public void setProfiler(final ExecutionProfiler profiler) {
+    _profiler = profiler;
+  }
+
+  public ExecutionProfiler getProfiler() {
+    return _profiler;
+  }
+
+  private synchronized ScheduledExecutorService getSpeculationTimer() {
+    if (_speculationTimer == null) {
+      _speculationTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable r) {
+          final Thread thread = new Thread(r, "MultipleNodeExecutor-speculation");
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
+    }
+    return _speculationTimer;
+  }
+
+  private synchronized ExecutionPlanCache getExecutionPlanCache() {
+    if (_executionPlanCache == null) {
+      _executionPlanCache = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), getCacheSize(), isPersistentCache());
+      _executionPlanCache.setMaximumCostDrift(getMaximumCostDrift());
+    }
+    return _executionPlanCache;
   }
 
   @Override
   public MultipleNodeExecutor createExecutor(final SingleComputationCycle cycle) {
     ArgumentChecker.notNull(cycle, "cycle");
-    return new MultipleNodeExecutor(cycle, getMinimumJobItems(), getMaximumJobItems(), getMinimumJobCost(), getMaximumJobCost(), getMaximumConcurrency(), getFunctionCosts(), _executionPlanCache);
+    final double speculationThreshold = getSpeculationThreshold();
+    return new MultipleNodeExecutor(cycle, getMinimumJobItems(), getMaximumJobItems(), getMinimumJobCost(), getMaximumJobCost(), getMaximumConcurrency(), getFunctionCosts(), getExecutionPlanCache(),
+        speculationThreshold, getMinimumSpeculationDelay(), (speculationThreshold > 0) ? getSpeculationTimer() : null, getProfiler());
   }
 
   @Override
@@ -112,9 +230,7 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
     if (getFunctionCosts() == null) {
       setFunctionCosts(new FunctionCosts());
     }
-    if (_executionPlanCache == null) {
-      setCacheSize(DEFAULT_EXECUTION_PLAN_CACHE);
-    }
+    getExecutionPlanCache();
   }
 
 }
@@ -34,7 +34,15 @@ import com.opengamma.util.ArgumentChecker;
  * 
  * <p>Set maximum concurrency to the average node count of the job invokers. Requires a {@link JobDispatcher}.</p>
  * 
- * <p>TODO: [ENG-200] Tuning of job size and cost parameters</p>
+ * <p>Set minimum job cost so that the dispatch overhead observed by the nodes (the time a job spends outside of
+ * function execution) is no more than a fraction of the job's cost. Requires the job dispatch statistics.</p>
+ * 
+ * <p>Set maximum job cost so that the average graph splits into enough jobs to keep each node busy, reduced in
+ * proportion to how much slower the slowest node is than the average so that no single job can hold up the critical
+ * path. Requires the job dispatch and graph execution statistics.</p>
+ * 
+ * <p>The job cost rules are only applied if enabled with {@link #setTuneJobCosts}. The tuned costs are kept within
+ * the minimum and maximum job costs the factory was configured with when the tuner was created.</p>
  */
 public class MultipleNodeExecutorTuner implements Runnable {
   
@@ -51,6 +59,12 @@ public class MultipleNodeExecutorTuner implements Runnable {
   private TotallingNodeStatisticsGatherer _jobDispatchStatistics;
   private double _statisticDecayRate = 0.1; // 10% decay every schedule
   private int _statisticsKeepAlive = 300; // keep for 5 minutes
+  private double _maximumJobOverhead = 0.1; // 10% of a job's time spent outside of execution
+  private int _jobsPerNode = 4;
+  private double _jobCostTolerance = 0.25; // ignore changes of less than 25%
+  private boolean _tuneJobCosts;
+  private final long _configuredMinimumJobCost;
+  private final long _configuredMaximumJobCost;
 
   /**
    * @param factory The factory to tune
@@ -58,6 +72,8 @@ public class MultipleNodeExecutorTuner implements Runnable {
   public MultipleNodeExecutorTuner(final MultipleNodeExecutorFactory factory) {
     ArgumentChecker.notNull(factory, "factory");
     _factory = factory;
+    _configuredMinimumJobCost = factory.getMinimumJobCost();
+    _configuredMaximumJobCost = factory.getMaximumJobCost();
   }
 
   protected MultipleNodeExecutorFactory getFactory() {
@@ -104,11 +120,159 @@ public class MultipleNodeExecutorTuner implements Runnable {
     return _statisticDecayRate;
   }
 
+  /**
+   * Sets the proportion of a job's time that may be spent outside of function execution, for example dispatch and
+   * cache access. This determines the minimum job cost.
+   * 
+   * @param maximumJobOverhead the maximum overhead, for example 0.1 for 10%
+   */
+  public void setMaximumJobOverhead(final double maximumJobOverhead) {
+    ArgumentChecker.notNegativeOrZero(maximumJobOverhead, "maximumJobOverhead");
+    _maximumJobOverhead = maximumJobOverhead;
+  }
+
+  protected double getMaximumJobOverhead() {
+    return _maximumJobOverhead;
+  }
+
+  /**
+   * Sets the number of jobs each node should receive from an average graph. This determines the maximum job cost.
+   * 
+   * @param jobsPerNode the number of jobs per node
+   */
+  public void setJobsPerNode(final int jobsPerNode) {
+    ArgumentChecker.notNegativeOrZero(jobsPerNode, "jobsPerNode");
+    _jobsPerNode = jobsPerNode;
+  }
+
+  protected int getJobsPerNode() {
+    return _jobsPerNode;
+  }
+
+  /**
+   * Sets the relative change in a job cost limit below which the factory is not updated. Each update discards the
+   * cached execution plans, so small fluctuations in the statistics are ignored.
+   * 
+   * @param jobCostTolerance the tolerance, for example 0.25 for 25%
+   */
+  public void setJobCostTolerance(final double jobCostTolerance) {
+    ArgumentChecker.notNegative(jobCostTolerance, "jobCostTolerance");
+    _jobCostTolerance = jobCostTolerance;
+  }
+
+  protected double getJobCostTolerance() {
+    return _jobCostTolerance;
+  }
+
+  /**
+   * Sets whether to adjust the minimum and maximum job costs from the observed performance. This is off by default
+   * so that the costs configured on the factory are left alone.
+   * 
+   * @param tuneJobCosts true to tune the job costs
+   */
+  public void setTuneJobCosts(final boolean tuneJobCosts) {
+    _tuneJobCosts = tuneJobCosts;
+  }
+
+  protected boolean isTuneJobCosts() {
+    return _tuneJobCosts;
+  }
+
+  private long clampJobCost(final long jobCost) {
+    return Math.min(Math.max(jobCost, _configuredMinimumJobCost), _configuredMaximumJobCost);
+  }
+
+  private boolean isSignificantChange(final long oldValue, final long newValue) {
+    if (oldValue == newValue) {
+      return false;
+    }
+    if ((oldValue <= 0) || (oldValue == Long.MAX_VALUE)) {
+      return true;
+    }
+    return Math.abs((double) (newValue - oldValue) / (double) oldValue) > getJobCostTolerance();
+  }
+
+  /**
+   * Returns the average execution time of a graph, in nanoseconds, across all of the views and calculation
+   * configurations that have been executed.
+   * 
+   * @return the average execution time, or zero if no graphs have been executed
+   */
+  private double getAverageGraphExecutionTime() {
+    double executionTime = 0;
+    int count = 0;
+    for (TotallingGraphStatisticsGathererProvider.Statistics gatherer : getGraphExecutionStatistics().getViewStatistics()) {
+      for (GraphExecutionStatistics statistics : gatherer.getExecutionStatistics()) {
+        final GraphExecutionStatistics snapshot = statistics.snapshot();
+        if (snapshot.getExecutedGraphs() > 0) {
+          executionTime += snapshot.getAverageExecutionTime() * 1e9;
+          count++;
+        }
+      }
+    }
+    return (count > 0) ? executionTime / (double) count : 0;
+  }
+
+  /**
+   * Adjusts the minimum and maximum job costs from the observed node performance.
+   * 
+   * @param nodeCount the number of nodes, or zero to use the number reporting statistics
+   */
+  private void tuneJobCosts(int nodeCount) {
+    long jobs = 0;
+    long jobItems = 0;
+    long executionTime = 0;
+    long nonExecutionTime = 0;
+    double slowestItemTime = 0;
+    int activeNodes = 0;
+    for (CalculationNodeStatistics statistics : getJobDispatchStatistics().getNodeStatistics()) {
+      final CalculationNodeStatistics snapshot = statistics.snapshot();
+      if ((snapshot.getSuccessfulJobs() == 0) || (snapshot.getJobItems() == 0)) {
+        continue;
+      }
+      activeNodes++;
+      jobs += snapshot.getSuccessfulJobs();
+      jobItems += snapshot.getJobItems();
+      executionTime += snapshot.getExecutionTime();
+      nonExecutionTime += snapshot.getNonExecutionTime();
+      final double itemTime = (double) snapshot.getExecutionTime() / (double) snapshot.getJobItems();
+      if (itemTime > slowestItemTime) {
+        slowestItemTime = itemTime;
+      }
+    }
+    if ((jobs == 0) || (executionTime <= 0)) {
+      return;
+    }
+    final long minJobCost = clampJobCost(Math.max(1, (long) ((double) nonExecutionTime / (double) jobs / getMaximumJobOverhead())));
+    if (isSignificantChange(getFactory().getMinimumJobCost(), minJobCost)) {
+      s_logger.info("Changing minimum job cost to {}", minJobCost);
+      getFactory().setMinimumJobCost(minJobCost);
+    }
+    if (getGraphExecutionStatistics() == null) {
+      return;
+    }
+    final double graphTime = getAverageGraphExecutionTime();
+    if (graphTime <= 0) {
+      return;
+    }
+    if (nodeCount <= 0) {
+      nodeCount = activeNodes;
+    }
+    final double meanItemTime = (double) executionTime / (double) jobItems;
+    final double slowdown = Math.max(1, slowestItemTime / meanItemTime);
+    final long maxJobCost = clampJobCost(Math.max(getFactory().getMinimumJobCost() * 2, (long) (graphTime / ((double) nodeCount * (double) getJobsPerNode()) / slowdown)));
+    if (isSignificantChange(getFactory().getMaximumJobCost(), maxJobCost)) {
+      s_logger.info("Changing maximum job cost to {} ({} nodes, slowest node {}x mean)", new Object[] {maxJobCost, nodeCount, slowdown });
+      getFactory().setMaximumJobCost(maxJobCost);
+    }
+  }
+
   /**
    * Makes one tuning adjustment.
    */
   @Override
   public void run() {
+    int nodeCount = 0;
     if (getJobDispatcher() != null) {
       s_logger.debug("Processing capabilities");
       final Map<String, Collection<Capability>> allCapabilities = getJobDispatcher().getAllCapabilities();
@@ -124,6 +288,7 @@ public class MultipleNodeExecutorTuner implements Runnable {
       }
       if (nodesPerInvokerCount > 0) {
         s_logger.debug("Found {} nodes at {} invokers", nodesPerInvoker, nodesPerInvokerCount);
+        nodeCount = (int) nodesPerInvoker;
         int maxConcurrency = getFactory().getMaximumConcurrency();
         int newMaxConcurrency = (int) Math.ceil(nodesPerInvoker / (double) nodesPerInvokerCount);
         if (newMaxConcurrency != maxConcurrency) {
@@ -132,6 +297,10 @@ public class MultipleNodeExecutorTuner implements Runnable {
         }
       }
     }
+    if (isTuneJobCosts() && (getJobDispatchStatistics() != null)) {
+      s_logger.debug("Tuning job costs");
+      tuneJobCosts(nodeCount);
+    }
     if (getGraphExecutionStatistics() != null) {
       s_logger.debug("Processing graph execution statistics");
       for (TotallingGraphStatisticsGathererProvider.Statistics gatherer : getGraphExecutionStatistics().getViewStatistics()) {
@@ -5,7 +5,10 @@
  */
 package com.opengamma.engine.view.calc;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
@@ -14,6 +17,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.view.calc.stats.CriticalPath;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
 import com.opengamma.engine.view.calcnode.CalculationJobResult;
 
@@ -32,6 +36,7 @@ import com.opengamma.engine.view.calcnode.CalculationJobResult;
   public RootGraphFragment(final GraphFragmentContext context, final GraphExecutorStatisticsGatherer statistics, final Collection<DependencyNode> nodes) {
     super(context, nodes);
     _statistics = statistics;
+    _jobStarted = System.nanoTime();
   }
 
   @Override
@@ -39,12 +44,50 @@ import com.opengamma.engine.view.calcnode.CalculationJobResult;
     if (!isCancelled()) {
       _done = true;
       notifyAll();
-      _statistics.graphExecuted(getContext().getGraph().getCalculationConfigurationName(), getContext().getGraph().getSize(), getContext().getExecutionTime(), System.nanoTime() - _jobStarted);
+      final long duration = System.nanoTime() - _jobStarted;
+      _statistics.graphExecuted(getContext().getGraph().getCalculationConfigurationName(), getContext().getGraph().getSize(), getContext().getExecutionTime(), duration);
+      if (getContext().getExecutor().getProfiler() != null) {
+        getContext().getExecutor().graphProfiled(getContext().getGraph(), duration, createCriticalPath());
+      }
       getContext().freeSharedCacheValues();
       getContext().getExecutor().getCache().cacheExecutionPlan(getContext().getGraph(), this);
     }
   }
 
+  /**
+   * Walks back from the last job to complete through the last of the jobs each depended on.
+   */
+  private List<CriticalPath.Step> createCriticalPath() {
+    final LinkedList<GraphFragment> path = new LinkedList<GraphFragment>();
+    GraphFragment fragment = getNodes().isEmpty() ? getLastCompleted(getInputFragments()) : this;
+    while (fragment != null) {
+      path.addFirst(fragment);
+      fragment = getLastCompleted(fragment.getInputFragments());
+    }
+    final List<CriticalPath.Step> steps = new ArrayList<CriticalPath.Step>(path.size());
+    long previousCompleted = _jobStarted;
+    for (GraphFragment step : path) {
+      final long ready = Math.max(previousCompleted, step.getDispatchedNanos());
+      final List<String> functionIds = new ArrayList<String>(step.getNodes().size());
+      for (DependencyNode node : step.getNodes()) {
+        functionIds.add(node.getFunction().getFunction().getFunctionDefinition().getUniqueId());
+      }
+      steps.add(new CriticalPath.Step(step.getJobId(), step.getComputeNodeId(), functionIds, ready - _jobStarted, step.getCompletedNanos() - ready, step.getExecutionNanos()));
+      previousCompleted = step.getCompletedNanos();
+    }
+    return steps;
+  }
+
+  private static GraphFragment getLastCompleted(final Collection<GraphFragment> fragments) {
+    GraphFragment last = null;
+    for (GraphFragment fragment : fragments) {
+      if ((fragment.getCompletedNanos() != 0) && ((last == null) || (fragment.getCompletedNanos() > last.getCompletedNanos()))) {
+        last = fragment;
+      }
+    }
+    return last;
+  }
+
   /**
    * Only gets called if this was the only node created because the dep graph was
    * too small.
@@ -8,6 +8,7 @@ package com.opengamma.engine.view.calc;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -17,6 +18,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -47,10 +49,12 @@ import com.opengamma.engine.value.ValuePropertyNames;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueRequirementNames;
 import com.opengamma.engine.value.ValueSpecification;
-import com.opengamma.engine.view.InMemoryViewComputationResultModel;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.DeltaDefinition;
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.ViewProcessContext;
 import com.opengamma.engine.view.cache.CacheSelectHint;
+import com.opengamma.engine.view.cache.DefaultViewComputationCache;
 import com.opengamma.engine.view.cache.MissingLiveDataSentinel;
 import com.opengamma.engine.view.cache.ViewComputationCache;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
@@ -100,7 +104,8 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   private final Map<String, ViewComputationCache> _cachesByCalculationConfiguration = new HashMap<String, ViewComputationCache>();
 
   // Output
-  private final InMemoryViewComputationResultModel _resultModel;
+  private final ColumnarViewComputationResultModel _resultModel;
+  private FragmentResultCollector _fragmentResults;
 
   public SingleComputationCycle(UniqueIdentifier cycleId, UniqueIdentifier viewProcessId,
       ViewProcessContext viewProcessContext, CompiledViewDefinitionWithGraphsImpl compiledViewDefinition,
@@ -116,7 +121,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     _executionOptions = executionOptions;
     _jobExecutingOptions = jobExecutingOptions;
 
-    _resultModel = new InMemoryViewComputationResultModel();
+    _resultModel = new ColumnarViewComputationResultModel();
     _resultModel.setCalculationConfigurationNames(getCompiledViewDefinition().getViewDefinition().getAllCalculationConfigurationNames());
     if (getCompiledViewDefinition().getPortfolio() != null) {
       _resultModel.setPortfolio(getCompiledViewDefinition().getPortfolio());
@@ -218,10 +223,26 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   }
   
   @Override
-  public InMemoryViewComputationResultModel getResultModel() {
+  public ColumnarViewComputationResultModel getResultModel() {
     return _resultModel;
   }
   
+  /**
+   * Publishes the results of this cycle in fragments as they are calculated, ahead of the complete result model. This
+   * must be called before the cycle is executed.
+   * 
+   * @param receiver  the receiver of the fragments, not null
+   * @param executor  the executor on which fragments are read from the caches and delivered to the receiver, not null
+   * @param batchSize  the number of values after which a fragment is published
+   * @param batchPeriodMillis  the time after which calculated values are published even if fewer than the batch size
+   */
+  public void setFragmentResultReceiver(FragmentResultReceiver receiver, Executor executor, int batchSize, long batchPeriodMillis) {
+    if (_state != ViewCycleState.AWAITING_EXECUTION) {
+      throw new IllegalStateException("State must be " + ViewCycleState.AWAITING_EXECUTION);
+    }
+    _fragmentResults = new FragmentResultCollector(this, receiver, executor, batchSize, batchPeriodMillis);
+  }
+  
   @Override
   public ComputationCacheResponse queryComputationCaches(ComputationCacheQuery query) {
     ArgumentChecker.notNull(query, "query");
@@ -267,6 +288,13 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       computeDelta(previousCycle);
     }
 
+    // Waiting wakes up at least this often to publish any fragment results due
+    long waitMillis = 5000;
+    if (_fragmentResults != null) {
+      _fragmentResults.start();
+      waitMillis = Math.min(waitMillis, _fragmentResults.getBatchPeriodMillis());
+    }
+
     LinkedList<Future<?>> futures = new LinkedList<Future<?>>();
 
     for (String calcConfigurationName : getAllCalculationConfigurationNames()) {
@@ -282,12 +310,20 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     while (!futures.isEmpty()) {
       Future<?> future = futures.poll();
       try {
-        future.get(5, TimeUnit.SECONDS);
+        future.get(waitMillis, TimeUnit.MILLISECONDS);
       } catch (TimeoutException e) {
-        s_logger.info("Waiting for " + future);
+        if (_fragmentResults != null) {
+          _fragmentResults.publishIfDue();
+          s_logger.debug("Waiting for {}", future);
+        } else {
+          s_logger.info("Waiting for " + future);
+        }
         futures.add(future);
       } catch (InterruptedException e) {
         Thread.interrupted();
+        if (_fragmentResults != null) {
+          _fragmentResults.close();
+        }
         // Cancel all outstanding jobs to free up resources
         future.cancel(true);
         for (Future<?> incompleteFuture : futures) {
@@ -297,6 +333,9 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
         s_logger.info("Execution interrupted before completion.");
         throw e;
       } catch (ExecutionException e) {
+        if (_fragmentResults != null) {
+          _fragmentResults.close();
+        }
         s_logger.error("Unable to execute dependency graph", e);
         // Should we be swallowing this or not?
         throw new OpenGammaRuntimeException("Unable to execute dependency graph", e);
@@ -460,11 +499,14 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       ViewComputationCache cache = getComputationCache(calcConfigurationName);
       ViewComputationCache previousCache = previousCycle.getComputationCache(calcConfigurationName);
 
-      LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(depGraph, cache, previousCache);
+      DeltaDefinition deltaDefinition = getViewDefinition().getCalculationConfiguration(calcConfigurationName).getDeltaDefinition();
+      LiveDataDeltaCalculator deltaCalculator = (deltaDefinition != null)
+          ? new LiveDataDeltaCalculator(depGraph, cache, previousCache, deltaDefinition)
+          : new LiveDataDeltaCalculator(depGraph, cache, previousCache);
       deltaCalculator.computeDelta();
 
       s_logger.info("Computed delta for calculation configuration '{}'. {} nodes out of {} require recomputation.",
-          new Object[] {calcConfigurationName, deltaCalculator.getChangedNodes().size(), depGraph.getSize()});
+          new Object[] {calcConfigurationName, deltaCalculator.getChangedNodeCount(), depGraph.getSize()});
 
       Collection<ValueSpecification> specsToCopy = new HashSet<ValueSpecification>();
       
@@ -473,7 +515,12 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
         specsToCopy.addAll(unchangedNode.getOutputValues());
       }
       
-      copyValues(cache, previousCache, specsToCopy);
+      if ((cache instanceof DefaultViewComputationCache) && (previousCache instanceof DefaultViewComputationCache)
+          && ((DefaultViewComputationCache) cache).inheritValues((DefaultViewComputationCache) previousCache, specsToCopy)) {
+        s_logger.debug("Inherited {} values from previous cycle", specsToCopy.size());
+      } else {
+        copyValues(cache, previousCache, specsToCopy);
+      }
     }
   }
 
@@ -491,6 +538,10 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   }
   
   private void populateResultModel() {
+    if (_fragmentResults != null) {
+      // Anything not yet published will be read below instead
+      _fragmentResults.close();
+    }
     getResultModel().setResultTimestamp(Instant.now());
     for (String calcConfigurationName : getAllCalculationConfigurationNames()) {
       DependencyGraph depGraph = getCompiledViewDefinition().getDependencyGraph(calcConfigurationName);
@@ -500,7 +551,11 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
 
   private void populateResultModel(String calcConfigurationName, DependencyGraph depGraph) {
     ViewComputationCache computationCache = getComputationCache(calcConfigurationName);
-    for (Pair<ValueSpecification, Object> value : computationCache.getValues(depGraph.getOutputSpecifications(), CacheSelectHint.allShared())) {
+    Collection<ValueSpecification> specifications = depGraph.getOutputSpecifications();
+    if (_fragmentResults != null) {
+      specifications = _fragmentResults.getUnpublished(calcConfigurationName, specifications);
+    }
+    for (Pair<ValueSpecification, Object> value : computationCache.getValues(specifications, CacheSelectHint.allShared())) {
       if (value.getValue() == null) {
         continue;
       }
@@ -609,6 +664,9 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     } finally {
       _nodeExecutionLock.writeLock().unlock();
     }
+    if (_fragmentResults != null) {
+      _fragmentResults.nodeExecuted(node);
+    }
   }
 
   public boolean isFailed(DependencyNode node) {
@@ -11,6 +11,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import javax.time.Instant;
@@ -20,10 +22,13 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Sets;
 import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.core.position.NotifyingPositionSource;
+import com.opengamma.core.position.PositionChangeListener;
 import com.opengamma.engine.livedata.LiveDataSnapshotListener;
 import com.opengamma.engine.livedata.LiveDataSnapshotProvider;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewProcessContext;
 import com.opengamma.engine.view.ViewProcessImpl;
 import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
@@ -32,6 +37,7 @@ import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
 import com.opengamma.id.UniqueIdentifier;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.TerminatableJob;
 import com.opengamma.util.monitor.OperationTimer;
 
@@ -64,9 +70,11 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
   private final Set<ValueRequirement> _liveDataSubscriptions = new HashSet<ValueRequirement>();
   private final Set<ValueRequirement> _pendingSubscriptions = Collections.newSetFromMap(new ConcurrentHashMap<ValueRequirement, Boolean>());
   private CountDownLatch _pendingSubscriptionLatch;
+  private final Set<ValueRequirement> _awaitingAvailability = Collections.newSetFromMap(new ConcurrentHashMap<ValueRequirement, Boolean>());
   
   private volatile boolean _wakeOnLiveDataChanged;
   private volatile boolean _liveDataChanged;
+  private volatile boolean _recompilationRequired;
   
   private enum ViewCycleType { FULL, DELTA, NONE }
   
@@ -76,6 +84,14 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
   private double _totalTimeNanos;
 
   private LiveDataSnapshotProvider _liveDataSnapshotProvider;
+  /**
+   * Reads and delivers fragment results of the cycles, in order. Created when a client first wants fragment results.
+   */
+  private ExecutorService _fragmentResultExecutor;
+  /**
+   * Requests recompilation when the portfolio changes, null if the position source does not send events.
+   */
+  private final PositionChangeListener _positionChangeListener;
   
   public ViewComputationJob(ViewProcessImpl viewProcess, ViewExecutionOptions executionOptions,
       ViewProcessContext processContext, EngineResourceManagerInternal<SingleComputationCycle> cycleManager) {
@@ -93,6 +109,31 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
     _liveDataSnapshotProvider = _processContext.getLiveDataSnapshotProvider(executionOptions);
     
     _liveDataSnapshotProvider.addListener(this);
+
+    if (getProcessContext().getPositionSource() instanceof NotifyingPositionSource) {
+      _positionChangeListener = new PositionChangeListener() {
+        @Override
+        public void portfolioChanged(UniqueIdentifier beforeId, UniqueIdentifier afterId) {
+          if (isViewPortfolio(beforeId) || isViewPortfolio(afterId)) {
+            s_logger.debug("Portfolio {} changed", afterId);
+            recompile();
+          }
+        }
+
+        @Override
+        public void positionChanged(UniqueIdentifier beforeId, UniqueIdentifier afterId) {
+          // The identifiers of the underlying store can't be matched to the positions of the portfolio, so any change
+          // may affect a view with a portfolio; only the positions that actually changed are resolved again
+          if (getViewProcess().getDefinition().getPortfolioId() != null) {
+            s_logger.debug("Position {} changed", afterId);
+            recompile();
+          }
+        }
+      };
+      ((NotifyingPositionSource) getProcessContext().getPositionSource()).addChangeListener(_positionChangeListener);
+    } else {
+      _positionChangeListener = null;
+    }
   }
 
   //-------------------------------------------------------------------------
@@ -352,8 +393,14 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
       _previousCycleReference.release();
     }
     _liveDataSnapshotProvider.removeListener(this);
+    if (_positionChangeListener != null) {
+      ((NotifyingPositionSource) getProcessContext().getPositionSource()).removeChangeListener(_positionChangeListener);
+    }
     removeLiveDataSubscriptions();
     _latestCompiledViewDefinition = null;
+    if (_fragmentResultExecutor != null) {
+      _fragmentResultExecutor.shutdown();
+    }
   }
   
   private void processCompleted() {
@@ -385,6 +432,20 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
     UniqueIdentifier cycleId = getViewProcess().generateCycleId();
     CompiledViewDefinitionWithGraphsImpl compiledViewDefinition = getCompiledViewDefinition(executionOptions.getValuationTime());
     SingleComputationCycle cycle = new SingleComputationCycle(cycleId, getViewProcess().getUniqueId(), getProcessContext(), compiledViewDefinition, executionOptions, _executionOptions);
+    if (getViewProcess().isFragmentResultsRequired()) {
+      if (_fragmentResultExecutor == null) {
+        _fragmentResultExecutor = Executors.newSingleThreadExecutor(new NamedThreadPoolFactory("FragmentResults-" + getViewProcess().getUniqueId()));
+      }
+      cycle.setFragmentResultReceiver(new FragmentResultReceiver() {
+        @Override
+        public void fragmentResultReceived(ViewComputationResultModel fragmentResult) {
+          if (!isTerminated()) {
+            getViewProcess().cycleFragmentCompleted(fragmentResult);
+          }
+        }
+      }, _fragmentResultExecutor, getProcessContext().getFragmentResultBatchSize(),
+          getProcessContext().getFragmentResultBatchPeriodMillis());
+    }
     return getCycleManager().manage(cycle);
   }
   
@@ -392,17 +453,30 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
     long functionInitId = getProcessContext().getFunctionCompilationService().getFunctionCompilationContext().getFunctionInitId();
     CompiledViewDefinitionWithGraphsImpl compiledView = getLatestCompiledViewDefinition();
     if (compiledView != null && compiledView.isValidFor(valuationTime) && functionInitId == compiledView.getFunctionInitId()) {
-      // Existing cached model is valid (an optimisation for the common case of similar, increasing evaluation times)
-      return compiledView;
+      if (!_recompilationRequired) {
+        // Existing cached model is valid (an optimisation for the common case of similar, increasing evaluation times)
+        return compiledView;
+      }
+    } else {
+      // Nothing from the previous compilation can be used, but another process may have compiled the view
+      compiledView = null;
+      if (getProcessContext().getCompilationCache() != null) {
+        compiledView = getProcessContext().getCompilationCache().get(getViewProcess().getDefinition().getName());
+      }
     }
-    
+
+    // Clear the flag before compiling so that a change notified during compilation is not lost
+    _recompilationRequired = false;
     try {
-      compiledView = ViewDefinitionCompiler.compile(getViewProcess().getDefinition(), getProcessContext().asCompilationServices(), valuationTime);
+      compiledView = ViewDefinitionCompiler.compile(getViewProcess().getDefinition(), getProcessContext().asCompilationServices(), valuationTime, compiledView);
     } catch (Exception e) {
       getViewProcess().viewDefinitionCompilationFailed(valuationTime, e);
       throw new OpenGammaRuntimeException("Error compiling view definition", e);
     }
     setLatestCompiledViewDefinition(compiledView);
+    if (getProcessContext().getCompilationCache() != null) {
+      getProcessContext().getCompilationCache().put(compiledView);
+    }
     
     // Notify the view that a (re)compilation has taken place before going on to do any time-consuming work.
     // This might contain enough for clients to e.g. render an empty grid in which results will later appear. 
@@ -411,9 +485,24 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
     // Update the live data subscriptions to whatever is now required, ensuring the computation cycle can find the
     // required input data when it is executed.
     setLiveDataSubscriptions(compiledView.getLiveDataRequirements().keySet());
+    // Only wait for live data that is still missing
+    _awaitingAvailability.retainAll(compiledView.getMissingLiveDataRequirements());
     return compiledView;
   }
   
+  /**
+   * Requests that the view definition is recompiled before the next computation cycle, for example because positions
+   * have been added to or removed from the portfolio or the availability of live data has changed. Only the parts
+   * of the dependency graphs affected by the changes are rebuilt.
+   * <p>
+   * This is called automatically when the view's portfolio or any position changes, if the position source sends
+   * events, when a live data subscription used by the view fails or stops, and when live data that the view found
+   * missing at its last compilation first ticks.
+   */
+  public void recompile() {
+    _recompilationRequired = true;
+  }
+
   /**
    * Gets the cached compiled view definition which may be re-used in subsequent computation cycles.
    * <p>
@@ -516,6 +605,11 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
     // Can't tell in general whether this subscription message was relating to a subscription that we made or one that
     // a concurrent user of the LiveDataSnapshotProvider made.
     s_logger.debug("Subscription succeeded: {}", requirement);
+    if (isMissingLiveDataRequirement(requirement)) {
+      // Data that the view found missing may allow targets that previously failed to resolve; wait for its first
+      // value before recompiling so that it is reported as available
+      _awaitingAvailability.add(requirement);
+    }
     removePendingSubscription(requirement);
   }
 
@@ -523,26 +617,56 @@ public class ViewComputationJob extends TerminatableJob implements LiveDataSnaps
   public void subscriptionFailed(ValueRequirement requirement, String msg) {
     s_logger.warn("Live data subscription to {} failed. This live data may be missing from computation cycles.", requirement);
     removePendingSubscription(requirement);
+    _awaitingAvailability.remove(requirement);
+    if (isLiveDataRequirement(requirement)) {
+      recompile();
+    }
   }
 
   @Override
-  public void subscriptionStopped(ValueRequirement requirement) {   
+  public void subscriptionStopped(ValueRequirement requirement) {
+    _awaitingAvailability.remove(requirement);
+    if (isLiveDataRequirement(requirement)) {
+      recompile();
+    }
   }
 
   @Override
   public void valueChanged(ValueRequirement value) {
+    if (_awaitingAvailability.remove(value)) {
+      s_logger.debug("Live data {} now available", value);
+      recompile();
+    }
+    
     if (!getExecutionOptions().isLiveDataTriggerEnabled()) {
       return;
     }
     
+    if (isLiveDataRequirement(value)) {
+      liveDataChanged();
+    }
+  }
+
+  private boolean isMissingLiveDataRequirement(ValueRequirement requirement) {
     CompiledViewDefinitionWithGraphsImpl compiledView = getLatestCompiledViewDefinition();
     if (compiledView == null) {
-      return;
+      return false;
     }
-    Map<ValueRequirement, ValueSpecification> liveDataRequirements = compiledView.getLiveDataRequirements();
-    if (liveDataRequirements.containsKey(value)) {
-      liveDataChanged();
+    return compiledView.getMissingLiveDataRequirements().contains(requirement);
+  }
+
+  private boolean isViewPortfolio(UniqueIdentifier portfolioId) {
+    UniqueIdentifier viewPortfolioId = getViewProcess().getDefinition().getPortfolioId();
+    return (portfolioId != null) && (viewPortfolioId != null) && portfolioId.equalObjectIdentifier(viewPortfolioId);
+  }
+
+  private boolean isLiveDataRequirement(ValueRequirement requirement) {
+    CompiledViewDefinitionWithGraphsImpl compiledView = getLatestCompiledViewDefinition();
+    if (compiledView == null) {
+      return false;
     }
+    Map<ValueRequirement, ValueSpecification> liveDataRequirements = compiledView.getLiveDataRequirements();
+    return liveDataRequirements.containsKey(requirement);
   }
 
 }
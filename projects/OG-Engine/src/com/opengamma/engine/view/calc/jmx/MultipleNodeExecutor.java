@@ -94,4 +94,24 @@ public final class MultipleNodeExecutor implements MultipleNodeExecutorMBean {
     getUnderlying().setMinimumJobItems(minimumJobItems);
   }
 
+  @Override
+  public double getSpeculationThreshold() {
+    return getUnderlying().getSpeculationThreshold();
+  }
+
+  @Override
+  public void setSpeculationThreshold(double speculationThreshold) {
+    getUnderlying().setSpeculationThreshold(speculationThreshold);
+  }
+
+  @Override
+  public long getMinimumSpeculationDelay() {
+    return getUnderlying().getMinimumSpeculationDelay();
+  }
+
+  @Override
+  public void setMinimumSpeculationDelay(long minimumSpeculationDelay) {
+    getUnderlying().setMinimumSpeculationDelay(minimumSpeculationDelay);
+  }
+
 }
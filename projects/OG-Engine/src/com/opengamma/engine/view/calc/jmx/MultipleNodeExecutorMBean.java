@@ -21,5 +21,9 @@ public interface MultipleNodeExecutorMBean {
   long getMaximumJobCost();
   void setMaximumConcurrency(int maximumConcurrency);
   int getMaximumConcurrency();
+  void setSpeculationThreshold(double speculationThreshold);
+  double getSpeculationThreshold();
+  void setMinimumSpeculationDelay(long minimumSpeculationDelay);
+  long getMinimumSpeculationDelay();
 
 }
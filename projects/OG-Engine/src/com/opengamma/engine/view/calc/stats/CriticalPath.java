@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc.stats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * The chain of jobs that determined how long a dependency graph took to execute. Each job on the path is the
+ * last to complete of the jobs the next one depended on, so shortening any other job would not have completed
+ * the graph sooner.
+ */
+public final class CriticalPath {
+
+  /**
+   * A job on the critical path.
+   */
+  public static final class Step {
+
+    private final long _jobId;
+    private final String _computeNodeId;
+    private final List<String> _functionIds;
+    private final long _readyNanos;
+    private final long _elapsedNanos;
+    private final long _executionNanos;
+
+    /**
+     * Creates a step.
+     *
+     * @param jobId  the job identifier
+     * @param computeNodeId  the identifier of the node that executed the job, null if not known
+     * @param functionIds  the identifiers of the functions invoked by the job, not null
+     * @param readyNanos  the time, from the start of the graph, at which the job could start; when it was dispatched or
+     *  the job before it on the path completed, whichever was later
+     * @param elapsedNanos  the time from the job being ready to its result being received
+     * @param executionNanos  the execution time reported by the node
+     */
+    public Step(final long jobId, final String computeNodeId, final Collection<String> functionIds, final long readyNanos, final long elapsedNanos, final long executionNanos) {
+      ArgumentChecker.notNull(functionIds, "functionIds");
+      _jobId = jobId;
+      _computeNodeId = computeNodeId;
+      _functionIds = Collections.unmodifiableList(new ArrayList<String>(functionIds));
+      _readyNanos = readyNanos;
+      _elapsedNanos = elapsedNanos;
+      _executionNanos = executionNanos;
+    }
+
+    public long getJobId() {
+      return _jobId;
+    }
+
+    public String getComputeNodeId() {
+      return _computeNodeId;
+    }
+
+    public List<String> getFunctionIds() {
+      return _functionIds;
+    }
+
+    public long getReadyNanos() {
+      return _readyNanos;
+    }
+
+    public long getElapsedNanos() {
+      return _elapsedNanos;
+    }
+
+    public long getExecutionNanos() {
+      return _executionNanos;
+    }
+
+    /**
+     * Returns the part of the elapsed time not spent executing the job; dispatch, queuing and result delivery.
+     *
+     * @return the overhead, in nanoseconds
+     */
+    public long getOverheadNanos() {
+      return Math.max(0, _elapsedNanos - _executionNanos);
+    }
+
+    @Override
+    public String toString() {
+      return "Step[job=" + _jobId + ", node=" + _computeNodeId + ", ready=" + _readyNanos + ", elapsed=" + _elapsedNanos + ", execution=" + _executionNanos + ", functions=" + _functionIds + "]";
+    }
+
+  }
+
+  private final UniqueIdentifier _cycleId;
+  private final String _calcConfigName;
+  private final long _durationNanos;
+  private final List<Step> _steps;
+
+  /**
+   * Creates a critical path.
+   *
+   * @param cycleId  the identifier of the cycle the graph was executed for, null if not known
+   * @param calcConfigName  the calculation configuration name, not null
+   * @param durationNanos  the time from starting to execute the graph to its completion
+   * @param steps  the jobs on the path, in execution order, not null
+   */
+  public CriticalPath(final UniqueIdentifier cycleId, final String calcConfigName, final long durationNanos, final List<Step> steps) {
+    ArgumentChecker.notNull(calcConfigName, "calcConfigName");
+    ArgumentChecker.notNull(steps, "steps");
+    _cycleId = cycleId;
+    _calcConfigName = calcConfigName;
+    _durationNanos = durationNanos;
+    _steps = Collections.unmodifiableList(new ArrayList<Step>(steps));
+  }
+
+  public UniqueIdentifier getCycleId() {
+    return _cycleId;
+  }
+
+  public String getCalcConfigName() {
+    return _calcConfigName;
+  }
+
+  public long getDurationNanos() {
+    return _durationNanos;
+  }
+
+  public List<Step> getSteps() {
+    return _steps;
+  }
+
+  /**
+   * Returns the total execution time, reported by the nodes, of the jobs on the path. The remainder of the
+   * duration was spent dispatching jobs and waiting for results.
+   *
+   * @return the execution time, in nanoseconds
+   */
+  public long getExecutionNanos() {
+    long total = 0;
+    for (Step step : _steps) {
+      total += step.getExecutionNanos();
+    }
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    return "CriticalPath[cycle=" + _cycleId + ", calcConfig=" + _calcConfigName + ", duration=" + _durationNanos + ", steps=" + _steps + "]";
+  }
+
+}
@@ -0,0 +1,294 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc.stats;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatisticsGatherer;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.LatencyHistogram;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Profiles view execution. Latency histograms are kept for the invocations of each function and the jobs executed
+ * by each calculation node, and the critical path of the most recent execution of each dependency graph is kept
+ * along with a histogram, for each function, of the time spent by jobs invoking it on critical paths.
+ * <p>
+ * Only invocations reported one at a time, as by a local calculation node, are recorded as invocation latencies.
+ * Remote calculation nodes report the total time of many invocations; the mean of each such report is recorded
+ * once in a separate histogram of mean latencies, as its spread says nothing about that of single invocations.
+ * <p>
+ * Function invocations are received as a {@link FunctionInvocationStatisticsGatherer} and passed on to an
+ * underlying gatherer, such as {@link com.opengamma.engine.view.calcnode.stats.FunctionCosts}, so the profiler
+ * can be placed between the calculation nodes and the existing statistics. Jobs and critical paths are reported
+ * by {@link com.opengamma.engine.view.calc.MultipleNodeExecutor}.
+ * <p>
+ * The {@link #dump} format is sorted, tab separated text with times in microseconds so that the profiles of two
+ * runs, for example before and after a release, can be compared with a text diff.
+ */
+public class ExecutionProfiler implements FunctionInvocationStatisticsGatherer {
+
+  private final FunctionInvocationStatisticsGatherer _underlying;
+  private final ConcurrentMap<String, LatencyHistogram> _functionLatency = new ConcurrentHashMap<String, LatencyHistogram>();
+  private final ConcurrentMap<String, LatencyHistogram> _functionMeanLatency = new ConcurrentHashMap<String, LatencyHistogram>();
+  private final ConcurrentMap<String, LatencyHistogram> _computeNodeLatency = new ConcurrentHashMap<String, LatencyHistogram>();
+  private final ConcurrentMap<String, LatencyHistogram> _criticalFunctionLatency = new ConcurrentHashMap<String, LatencyHistogram>();
+  private final ConcurrentMap<Pair<UniqueIdentifier, String>, CriticalPath> _criticalPaths = new ConcurrentHashMap<Pair<UniqueIdentifier, String>, CriticalPath>();
+
+  /**
+   * Creates a profiler that does not pass function invocations on.
+   */
+  public ExecutionProfiler() {
+    this(null);
+  }
+
+  /**
+   * Creates a profiler.
+   *
+   * @param underlying  the gatherer to pass function invocations on to, null for none
+   */
+  public ExecutionProfiler(final FunctionInvocationStatisticsGatherer underlying) {
+    _underlying = underlying;
+  }
+
+  public FunctionInvocationStatisticsGatherer getUnderlying() {
+    return _underlying;
+  }
+
+  private static LatencyHistogram getOrCreate(final ConcurrentMap<String, LatencyHistogram> histograms, final String key) {
+    LatencyHistogram histogram = histograms.get(key);
+    if (histogram == null) {
+      histogram = new LatencyHistogram();
+      final LatencyHistogram existing = histograms.putIfAbsent(key, histogram);
+      if (existing != null) {
+        histogram = existing;
+      }
+    }
+    return histogram;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void functionInvoked(final String configurationName, final String functionId, final int invocationCount, final double executionNanos, final double dataInputBytes,
+      final double dataOutputBytes) {
+    if (invocationCount == 1) {
+      getOrCreate(_functionLatency, functionId).record((long) executionNanos);
+    } else if (invocationCount > 1) {
+      getOrCreate(_functionMeanLatency, functionId).record((long) (executionNanos / invocationCount));
+    }
+    if (_underlying != null) {
+      _underlying.functionInvoked(configurationName, functionId, invocationCount, executionNanos, dataInputBytes, dataOutputBytes);
+    }
+  }
+
+  /**
+   * Records a job executed by a calculation node.
+   *
+   * @param computeNodeId  the identifier of the node, not null
+   * @param executionNanos  the execution time reported by the node
+   */
+  public void jobExecuted(final String computeNodeId, final long executionNanos) {
+    ArgumentChecker.notNull(computeNodeId, "computeNodeId");
+    getOrCreate(_computeNodeLatency, computeNodeId).record(Math.max(0, executionNanos));
+  }
+
+  /**
+   * Records the critical path of an executed dependency graph, replacing any previous path for the same view
+   * process and calculation configuration.
+   *
+   * @param viewProcessId  the view process identifier, not null
+   * @param criticalPath  the critical path, not null
+   */
+  public void graphExecuted(final UniqueIdentifier viewProcessId, final CriticalPath criticalPath) {
+    ArgumentChecker.notNull(viewProcessId, "viewProcessId");
+    ArgumentChecker.notNull(criticalPath, "criticalPath");
+    _criticalPaths.put(Pair.of(viewProcessId, criticalPath.getCalcConfigName()), criticalPath);
+    for (CriticalPath.Step step : criticalPath.getSteps()) {
+      // A job invoking a function more than once only counts once towards it
+      for (String functionId : new HashSet<String>(step.getFunctionIds())) {
+        getOrCreate(_criticalFunctionLatency, functionId).record(step.getElapsedNanos());
+      }
+    }
+  }
+
+  /**
+   * Discards the critical paths kept for a view process.
+   *
+   * @param viewProcessId  the view process identifier, not null
+   */
+  public void removeViewProcess(final UniqueIdentifier viewProcessId) {
+    ArgumentChecker.notNull(viewProcessId, "viewProcessId");
+    final Iterator<Pair<UniqueIdentifier, String>> iterator = _criticalPaths.keySet().iterator();
+    while (iterator.hasNext()) {
+      if (viewProcessId.equals(iterator.next().getFirst())) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Discards all histograms and critical paths.
+   */
+  public void reset() {
+    _functionLatency.clear();
+    _functionMeanLatency.clear();
+    _computeNodeLatency.clear();
+    _criticalFunctionLatency.clear();
+    _criticalPaths.clear();
+  }
+
+  //-------------------------------------------------------------------------
+  public SortedSet<String> getFunctionIds() {
+    final SortedSet<String> functionIds = new TreeSet<String>(_functionLatency.keySet());
+    functionIds.addAll(_functionMeanLatency.keySet());
+    return functionIds;
+  }
+
+  public SortedSet<String> getComputeNodeIds() {
+    return new TreeSet<String>(_computeNodeLatency.keySet());
+  }
+
+  /**
+   * Returns the latencies of the invocations of a function that were reported one at a time.
+   *
+   * @param functionId  the function identifier, not null
+   * @return a snapshot of the histogram, null if no single invocation of the function has been reported
+   */
+  public LatencyHistogram getFunctionLatency(final String functionId) {
+    return snapshot(_functionLatency.get(functionId));
+  }
+
+  /**
+   * Returns the mean invocation latencies of the reports of a function that covered more than one invocation. The
+   * count is the number of reports, not of invocations.
+   *
+   * @param functionId  the function identifier, not null
+   * @return a snapshot of the histogram, null if no such report has been received for the function
+   */
+  public LatencyHistogram getFunctionMeanLatency(final String functionId) {
+    return snapshot(_functionMeanLatency.get(functionId));
+  }
+
+  /**
+   * Returns the execution latencies of jobs on a calculation node.
+   *
+   * @param computeNodeId  the node identifier, not null
+   * @return a snapshot of the histogram, null if the node has not executed any jobs
+   */
+  public LatencyHistogram getComputeNodeLatency(final String computeNodeId) {
+    return snapshot(_computeNodeLatency.get(computeNodeId));
+  }
+
+  /**
+   * Returns the elapsed times of the jobs invoking a function that were on critical paths. The count is the number
+   * of graph executions the function was on the critical path of.
+   *
+   * @param functionId  the function identifier, not null
+   * @return a snapshot of the histogram, null if the function has not been on a critical path
+   */
+  public LatencyHistogram getCriticalFunctionLatency(final String functionId) {
+    return snapshot(_criticalFunctionLatency.get(functionId));
+  }
+
+  /**
+   * Returns the critical path of the most recent execution of a dependency graph.
+   *
+   * @param viewProcessId  the view process identifier, not null
+   * @param calcConfigName  the calculation configuration name, not null
+   * @return the critical path, null if none has been recorded
+   */
+  public CriticalPath getCriticalPath(final UniqueIdentifier viewProcessId, final String calcConfigName) {
+    return _criticalPaths.get(Pair.of(viewProcessId, calcConfigName));
+  }
+
+  private static LatencyHistogram snapshot(final LatencyHistogram histogram) {
+    return (histogram != null) ? histogram.snapshot() : null;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes the profile as text.
+   *
+   * @param out  the destination, not null
+   * @throws IOException if the destination cannot be written to
+   */
+  public void dump(final Appendable out) throws IOException {
+    ArgumentChecker.notNull(out, "out");
+    out.append("# times in microseconds\n");
+    dumpHistograms(out, "functions", _functionLatency);
+    dumpHistograms(out, "function-means", _functionMeanLatency);
+    dumpHistograms(out, "nodes", _computeNodeLatency);
+    dumpHistograms(out, "critical-functions", _criticalFunctionLatency);
+    out.append("[critical-paths]\n");
+    final SortedMap<String, CriticalPath> paths = new TreeMap<String, CriticalPath>();
+    for (Map.Entry<Pair<UniqueIdentifier, String>, CriticalPath> path : _criticalPaths.entrySet()) {
+      paths.put(path.getKey().getFirst() + "\t" + path.getKey().getSecond(), path.getValue());
+    }
+    for (Map.Entry<String, CriticalPath> path : paths.entrySet()) {
+      out.append(path.getKey()).append("\tduration=").append(micros(path.getValue().getDurationNanos())).append("\texecution=")
+          .append(micros(path.getValue().getExecutionNanos())).append('\n');
+      int index = 0;
+      for (CriticalPath.Step step : path.getValue().getSteps()) {
+        out.append('\t').append(Integer.toString(index++)).append("\tnode=").append(step.getComputeNodeId()).append("\tready=").append(micros(step.getReadyNanos()))
+            .append("\telapsed=").append(micros(step.getElapsedNanos())).append("\texecution=").append(micros(step.getExecutionNanos())).append("\tfunctions=");
+        final Set<String> functionIds = new TreeSet<String>(step.getFunctionIds());
+        boolean first = true;
+        for (String functionId : functionIds) {
+          if (!first) {
+            out.append(',');
+          }
+          out.append(functionId);
+          first = false;
+        }
+        out.append('\n');
+      }
+    }
+  }
+
+  /**
+   * Returns the profile as text.
+   *
+   * @return the profile, not null
+   */
+  public String dump() {
+    final StringBuilder sb = new StringBuilder();
+    try {
+      dump(sb);
+    } catch (IOException e) {
+      // Doesn't happen with a StringBuilder
+      throw new OpenGammaRuntimeException("Couldn't write profile", e);
+    }
+    return sb.toString();
+  }
+
+  private static void dumpHistograms(final Appendable out, final String section, final Map<String, LatencyHistogram> histograms) throws IOException {
+    out.append('[').append(section).append("]\n");
+    out.append("#id\tcount\tmean\tp50\tp90\tp99\tmax\n");
+    for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<String, LatencyHistogram>(histograms).entrySet()) {
+      final LatencyHistogram histogram = entry.getValue().snapshot();
+      out.append(entry.getKey()).append('\t').append(Long.toString(histogram.getCount())).append('\t').append(micros((long) histogram.getMean())).append('\t')
+          .append(micros(histogram.getValueAtPercentile(50))).append('\t').append(micros(histogram.getValueAtPercentile(90))).append('\t')
+          .append(micros(histogram.getValueAtPercentile(99))).append('\t').append(micros(histogram.getMax())).append('\n');
+    }
+  }
+
+  private static String micros(final long nanos) {
+    return Long.toString(nanos / 1000);
+  }
+
+}
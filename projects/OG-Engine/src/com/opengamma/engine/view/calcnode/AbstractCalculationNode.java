@@ -53,6 +53,7 @@ public abstract class AbstractCalculationNode implements CalculationNode {
   private final FunctionInvocationStatisticsGatherer _functionInvocationStatistics;
   private String _nodeId;
   private final ExecutorService _writeBehindExecutorService;
+  private CalculationJobSpecification _contextSpecification;
 
   protected AbstractCalculationNode(ViewComputationCacheSource cacheSource, CompiledFunctionService functionCompilationService,
       FunctionExecutionContext functionExecutionContext, ComputationTargetResolver targetResolver, ViewProcessorQuerySender calcNodeQuerySender, String nodeId,
@@ -115,12 +116,17 @@ public abstract class AbstractCalculationNode implements CalculationNode {
     _nodeId = nodeId;
   }
 
-  public CalculationJobResult executeJob(final CalculationJob job) {
-    s_logger.info("Executing {} on {}", job, _nodeId);
-    final CalculationJobSpecification spec = job.getSpecification();
+  private void prepareContext(final CalculationJobSpecification spec) {
     getFunctionExecutionContext().setViewProcessorQuery(new ViewProcessorQuery(getViewProcessorQuerySender(), spec));
     getFunctionExecutionContext().setSnapshotEpochTime(spec.getIterationTimestamp());
     getFunctionExecutionContext().setSnapshotClock(DateUtil.epochFixedClockUTC(spec.getIterationTimestamp()));
+    _contextSpecification = spec;
+  }
+
+  public CalculationJobResult executeJob(final CalculationJob job) {
+    s_logger.info("Executing {} on {}", job, _nodeId);
+    final CalculationJobSpecification spec = job.getSpecification();
+    prepareContext(spec);
     final CompiledFunctionRepository functions = getFunctionCompilationService().compileFunctionRepository(spec.getIterationTimestamp());
     final WriteBehindViewComputationCache cache = new WriteBehindViewComputationCache(getCache(spec), job.getCacheSelectHint(), getWriteBehindExecutorService());
     long executionTime = System.nanoTime();
@@ -130,20 +136,7 @@ public abstract class AbstractCalculationNode implements CalculationNode {
       if (job.isCancelled()) {
         return null;
       }
-      CalculationJobResultItem resultItem;
-      try {
-        invoke(functions, jobItem, cache, new DeferredInvocationStatistics(getFunctionInvocationStatistics(), calculationConfiguration));
-        resultItem = new CalculationJobResultItem(jobItem);
-      } catch (MissingInputException e) {
-        // NOTE kirk 2009-10-20 -- We intentionally only do the message here so that we don't
-        // litter the logs with stack traces.
-        s_logger.info("Unable to invoke {} due to missing inputs: {}", jobItem, e.getMessage());
-        resultItem = new CalculationJobResultItem(jobItem, e);
-      } catch (Throwable t) {
-        s_logger.warn("Invoking " + jobItem.getFunctionUniqueIdentifier() + " threw exception.", t);
-        resultItem = new CalculationJobResultItem(jobItem, t);
-      }
-      resultItems.add(resultItem);
+      resultItems.add(executeItem(functions, jobItem, cache, calculationConfiguration));
     }
     cache.waitForPendingWrites();
     executionTime = System.nanoTime() - executionTime;
@@ -152,6 +145,70 @@ public abstract class AbstractCalculationNode implements CalculationNode {
     return jobResult;
   }
 
+  /**
+   * Starts execution of a job whose items may be shared with other nodes. This node should then execute items from
+   * the tail of the execution with {@link #executeItem} until all have completed and then call
+   * {@link #createJobResult}.
+   * 
+   * @param job the job to execute
+   * @return the execution state
+   */
+  /* package */JobItemExecution createItemExecution(final CalculationJob job) {
+    s_logger.info("Executing {} on {} with shared items", job, _nodeId);
+    final CalculationJobSpecification spec = job.getSpecification();
+    prepareContext(spec);
+    final CompiledFunctionRepository functions = getFunctionCompilationService().compileFunctionRepository(spec.getIterationTimestamp());
+    final WriteBehindViewComputationCache cache = new WriteBehindViewComputationCache(getCache(spec), job.getCacheSelectHint(), getWriteBehindExecutorService());
+    return new JobItemExecution(job, functions, cache);
+  }
+
+  /**
+   * Executes a single item from a shared job execution. This node may or may not be the one that created the
+   * execution.
+   * 
+   * @param execution the job execution
+   * @param item the index of the item to execute
+   * @return the number of items made ready by this one completing
+   */
+  /* package */int executeItem(final JobItemExecution execution, final int item) {
+    final CalculationJobSpecification spec = execution.getJob().getSpecification();
+    if (_contextSpecification != spec) {
+      prepareContext(spec);
+    }
+    final CalculationJobResultItem resultItem = executeItem(execution.getFunctions(), execution.getItem(item), execution.getCache(), spec.getCalcConfigName());
+    return execution.itemCompleted(item, resultItem);
+  }
+
+  /**
+   * Completes a shared job execution once all of its items have been executed.
+   * 
+   * @param execution the job execution
+   * @return the job result
+   */
+  /* package */CalculationJobResult createJobResult(final JobItemExecution execution) {
+    execution.getCache().waitForPendingWrites();
+    final CalculationJobResult jobResult = new CalculationJobResult(execution.getJob().getSpecification(), System.nanoTime() - execution.getStartTime(), execution.getResults(),
+        getNodeId());
+    s_logger.info("Executed {}", execution.getJob());
+    return jobResult;
+  }
+
+  private CalculationJobResultItem executeItem(final CompiledFunctionRepository functions, final CalculationJobItem jobItem, final WriteBehindViewComputationCache cache,
+      final String calculationConfiguration) {
+    try {
+      invoke(functions, jobItem, cache, new DeferredInvocationStatistics(getFunctionInvocationStatistics(), calculationConfiguration));
+      return new CalculationJobResultItem(jobItem);
+    } catch (MissingInputException e) {
+      // NOTE kirk 2009-10-20 -- We intentionally only do the message here so that we don't
+      // litter the logs with stack traces.
+      s_logger.info("Unable to invoke {} due to missing inputs: {}", jobItem, e.getMessage());
+      return new CalculationJobResultItem(jobItem, e);
+    } catch (Throwable t) {
+      s_logger.warn("Invoking " + jobItem.getFunctionUniqueIdentifier() + " threw exception.", t);
+      return new CalculationJobResultItem(jobItem, t);
+    }
+  }
+
   @Override
   public ViewComputationCache getCache(CalculationJobSpecification spec) {
     ViewComputationCache cache = getCacheSource().getCache(spec.getViewProcessId(), spec.getCalcConfigName(), spec.getIterationTimestamp());
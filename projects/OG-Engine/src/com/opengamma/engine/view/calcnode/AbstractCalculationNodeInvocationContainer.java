@@ -204,6 +204,12 @@ public abstract class AbstractCalculationNodeInvocationContainer {
   private final Queue<JobEntry> _runnableJobs = new ConcurrentLinkedQueue<JobEntry>();
   private final ExecutorService _executorService = Executors.newCachedThreadPool();
 
+  /**
+   * Jobs currently executing in work-stealing mode that idle nodes can take items from.
+   */
+  private final Queue<JobItemExecution> _itemExecutions = new ConcurrentLinkedQueue<JobItemExecution>();
+  private volatile boolean _workStealing;
+
   protected Queue<AbstractCalculationNode> getNodes() {
     return _nodes;
   }
@@ -234,6 +240,20 @@ public abstract class AbstractCalculationNodeInvocationContainer {
     onNodeChange();
   }
 
+  /**
+   * Sets whether the items within a job can be executed by other nodes that would otherwise be idle. Items are
+   * only executed once the items in the same job that produce their inputs have completed.
+   * 
+   * @param workStealing true to share job items between nodes, false to execute each job on a single node
+   */
+  public void setWorkStealing(final boolean workStealing) {
+    _workStealing = workStealing;
+  }
+
+  public boolean isWorkStealing() {
+    return _workStealing;
+  }
+
   protected abstract void onNodeChange();
 
   protected void onJobStart(final CalculationJob job) {
@@ -419,6 +439,101 @@ public abstract class AbstractCalculationNodeInvocationContainer {
     } while (++spin < 1000);
   }
 
+  private CalculationJobResult executeJob(final AbstractCalculationNode node, final CalculationJob job) {
+    if (!isWorkStealing() || (job.getJobItems().size() < 2)) {
+      return node.executeJob(job);
+    }
+    final JobItemExecution execution = node.createItemExecution(job);
+    _itemExecutions.add(execution);
+    try {
+      recruitNodes(execution.getReadyCount() - 1);
+      while (!execution.isFinished()) {
+        if (job.isCancelled()) {
+          return null;
+        }
+        final int item = execution.pollOwnItem();
+        if (item >= 0) {
+          recruitNodes(node.executeItem(execution, item) - 1);
+        } else {
+          try {
+            execution.waitForItems();
+          } catch (InterruptedException e) {
+            s_logger.debug("Interrupted waiting for items of job {}", job.getSpecification().getJobId());
+            return null;
+          }
+        }
+      }
+    } finally {
+      _itemExecutions.remove(execution);
+    }
+    return node.createJobResult(execution);
+  }
+
+  /**
+   * Starts worker threads with idle nodes to take items from the jobs executing in work-stealing mode.
+   * 
+   * @param count the maximum number of nodes to start
+   */
+  private void recruitNodes(int count) {
+    while (count-- > 0) {
+      final AbstractCalculationNode node = getNodes().poll();
+      if (node == null) {
+        return;
+      }
+      s_logger.debug("Recruiting {} to execute job items", node.getNodeId());
+      getExecutorService().execute(new Runnable() {
+        @Override
+        public void run() {
+          stealItems(node);
+        }
+      });
+    }
+  }
+
+  /**
+   * Executes items from jobs running on other nodes until there are none ready. A runnable job takes priority
+   * over any items.
+   * 
+   * @param node Node to run on, not {@code null}
+   */
+  private void stealItems(final AbstractCalculationNode node) {
+    JobEntry jobexec;
+    do {
+      jobexec = _runnableJobs.poll();
+      if (jobexec != null) {
+        executeJobs(node, jobexec);
+        return;
+      }
+      JobItemExecution execution = null;
+      int item = -1;
+      for (JobItemExecution candidate : _itemExecutions) {
+        if (!candidate.getJob().isCancelled()) {
+          item = candidate.stealItem();
+          if (item >= 0) {
+            execution = candidate;
+            break;
+          }
+        }
+      }
+      if (execution == null) {
+        break;
+      }
+      s_logger.debug("Node {} executing item {} of job {}", new Object[] {node.getNodeId(), item, execution.getJob().getSpecification().getJobId()});
+      recruitNodes(node.executeItem(execution, item) - 1);
+    } while (true);
+    synchronized (this) {
+      jobexec = _runnableJobs.poll();
+      if (jobexec == null) {
+        getNodes().add(node);
+      }
+    }
+    if (jobexec != null) {
+      executeJobs(node, jobexec);
+    } else {
+      onJobExecutionComplete();
+    }
+  }
+
   /**
    * Executes jobs from the runnable queue until it is empty.
    * 
@@ -432,7 +547,7 @@ public abstract class AbstractCalculationNodeInvocationContainer {
       CalculationJobResult result = null;
       if (jobexec.getExecution().threadBusy(jobexec.getJob())) {
         try {
-          result = node.executeJob(jobexec.getJob());
+          result = executeJob(node, jobexec.getJob());
           threadFree(jobexec.getExecution());
         } catch (Exception e) {
           // Any tail jobs will be abandoned
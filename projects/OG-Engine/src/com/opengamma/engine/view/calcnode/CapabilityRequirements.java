@@ -14,6 +14,9 @@ import com.opengamma.util.ArgumentChecker;
 /**
  * Specifies the capability requirements of a job. It will only be passed to invokers that can
  * satisfy these requirements.
+ * <p>
+ * Requirements are compared by value so that the dispatcher can cache which invokers satisfy them. An
+ * instance must not be modified once it has been used to dispatch a job.
  */
 public class CapabilityRequirements {
 
@@ -44,6 +47,22 @@ public class CapabilityRequirements {
     return new CapabilityRequirements(this);
   }
 
+  @Override
+  public boolean equals(final Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof CapabilityRequirements)) {
+      return false;
+    }
+    return _requiredCapabilities.equals(((CapabilityRequirements) o)._requiredCapabilities);
+  }
+
+  @Override
+  public int hashCode() {
+    return _requiredCapabilities.hashCode();
+  }
+
   public boolean satisfiedBy(final Collection<Capability> capabilities) {
     // TODO [ENG-42] Match up our requirements with the exported capabilities of the invoker
     return true;
@@ -29,10 +29,15 @@ public class ConfigurationResource {
    * The end point for the remote node job dispatcher.
    */
   public static final String JOB_SERVER_KEY = "jobServer";
+  /**
+   * The end point for exchanging computation cache values as raw binary, optional.
+   */
+  public static final String BINARY_DATA_STORE_SERVER_KEY = "binaryDataStoreServer";
 
   private EndPointDescriptionProvider _cacheServer;
   private EndPointDescriptionProvider _queryServer;
   private EndPointDescriptionProvider _jobServer;
+  private EndPointDescriptionProvider _binaryDataStoreServer;
 
   public void setCacheServer(final EndPointDescriptionProvider cacheServer) {
     _cacheServer = cacheServer;
@@ -58,6 +63,14 @@ public class ConfigurationResource {
     return _jobServer;
   }
 
+  public void setBinaryDataStoreServer(final EndPointDescriptionProvider binaryDataStoreServer) {
+    _binaryDataStoreServer = binaryDataStoreServer;
+  }
+
+  public EndPointDescriptionProvider getBinaryDataStoreServer() {
+    return _binaryDataStoreServer;
+  }
+
   public FudgeMsg toFudgeMsg(final FudgeContext fudgeContext) {
     final MutableFudgeMsg message = fudgeContext.newMessage();
     if (getCacheServer() != null) {
@@ -69,6 +82,9 @@ public class ConfigurationResource {
     if (getJobServer() != null) {
       message.add(JOB_SERVER_KEY, getJobServer().getEndPointDescription(fudgeContext));
     }
+    if (getBinaryDataStoreServer() != null) {
+      message.add(BINARY_DATA_STORE_SERVER_KEY, getBinaryDataStoreServer().getEndPointDescription(fudgeContext));
+    }
     return message;
   }
 
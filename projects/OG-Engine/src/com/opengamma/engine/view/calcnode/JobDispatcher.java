@@ -19,9 +19,12 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -306,13 +309,8 @@ public class JobDispatcher implements JobInvokerRegister {
       return _jobCreationTime;
     }
 
-    private boolean canRunOn(final JobInvoker jobInvoker) {
-      if (_excludeJobInvoker != null) {
-        if (_excludeJobInvoker.contains(jobInvoker)) {
-          return false;
-        }
-      }
-      return getRequirements().satisfiedBy(jobInvoker.getCapabilities());
+    private boolean isExcluded(final JobInvoker jobInvoker) {
+      return (_excludeJobInvoker != null) && _excludeJobInvoker.contains(jobInvoker);
     }
 
     @Override
@@ -342,9 +340,50 @@ public class JobDispatcher implements JobInvokerRegister {
 
   }
 
-  private final Queue<DispatchJob> _pending = new LinkedList<DispatchJob>();
-  private final Queue<JobInvoker> _invokers = new ConcurrentLinkedQueue<JobInvoker>();
+  /**
+   * Invokers that export the same capabilities. Jobs are dispatched to the ready invokers in round-robin order.
+   */
+  private static final class CapabilityClass {
+
+    private final Collection<Capability> _capabilities;
+    private final Queue<JobInvoker> _ready = new ConcurrentLinkedQueue<JobInvoker>();
+
+    private CapabilityClass(final Collection<Capability> capabilities) {
+      _capabilities = capabilities;
+    }
+
+    public Collection<Capability> getCapabilities() {
+      return _capabilities;
+    }
+
+    public Queue<JobInvoker> getReady() {
+      return _ready;
+    }
+
+  }
+
+  /**
+   * The capability classes that satisfy a set of requirements, as of a version of the capability class set.
+   */
+  private static final class SatisfyingClasses {
+
+    private final int _version;
+    private final CapabilityClass[] _classes;
+
+    private SatisfyingClasses(final int version, final CapabilityClass[] classes) {
+      _version = version;
+      _classes = classes;
+    }
+
+  }
+
+  private final Queue<DispatchJob> _pending = new ConcurrentLinkedQueue<DispatchJob>();
+  private final ConcurrentMap<Collection<Capability>, CapabilityClass> _capabilityClasses = new ConcurrentHashMap<Collection<Capability>, CapabilityClass>();
+  private final AtomicInteger _capabilityClassVersion = new AtomicInteger();
+  private final ConcurrentMap<CapabilityRequirements, SatisfyingClasses> _satisfyingClasses = new ConcurrentHashMap<CapabilityRequirements, SatisfyingClasses>();
   private final Map<JobInvoker, Collection<Capability>> _capabilityCache = new ConcurrentHashMap<JobInvoker, Collection<Capability>>();
+  private final AtomicInteger _pendingRetries = new AtomicInteger();
+  private final AtomicLong _failPendingJobsBefore = new AtomicLong();
 
   private int _maxJobAttempts = DEFAULT_MAX_JOB_ATTEMPTS;
   private String _jobFailureNodeId = DEFAULT_JOB_FAILURE_NODE_ID;
@@ -357,6 +396,11 @@ public class JobDispatcher implements JobInvokerRegister {
    * How often to query an invoker that has outstanding jobs.
    */
   private long _maxJobExecutionTimeQuery = DEFAULT_MAX_JOB_EXECUTION_QUERY_TIMEOUT;
+  /**
+   * Maximum number of milliseconds a job can wait for an invoker before it is abandoned.
+   */
+  private long _maxJobPendingTime;
+  private ScheduledFuture<?> _pendingTimeout;
   private ScheduledThreadPoolExecutor _jobTimeoutExecutor;
   private CalculationNodeStatisticsGatherer _statisticsGatherer = new DiscardingNodeStatisticsGatherer();
 
@@ -407,10 +451,45 @@ public class JobDispatcher implements JobInvokerRegister {
   public synchronized void setMaxJobExecutionTime(final long maxJobExecutionTime) {
     _maxJobExecutionTime = maxJobExecutionTime;
     if (maxJobExecutionTime > 0) {
-      if (_jobTimeoutExecutor == null) {
-        _jobTimeoutExecutor = new ScheduledThreadPoolExecutor(1);
-        _jobTimeoutExecutor.setMaximumPoolSize(1);
-      }
+      createJobTimeoutExecutor();
+    }
+  }
+
+  // caller must already own monitor
+  private void createJobTimeoutExecutor() {
+    if (_jobTimeoutExecutor == null) {
+      _jobTimeoutExecutor = new ScheduledThreadPoolExecutor(1);
+      _jobTimeoutExecutor.setMaximumPoolSize(1);
+    }
+  }
+
+  public long getMaxJobPendingTime() {
+    return _maxJobPendingTime;
+  }
+
+  /**
+   * Sets the maximum time for a job to wait for an invoker in milliseconds. Pending jobs are checked
+   * periodically and any that have waited longer are aborted. To let jobs wait indefinitely, pass 0 or
+   * negative.
+   * 
+   * @param maxJobPendingTime time in milliseconds
+   */
+  public synchronized void setMaxJobPendingTime(final long maxJobPendingTime) {
+    _maxJobPendingTime = maxJobPendingTime;
+    if (_pendingTimeout != null) {
+      _pendingTimeout.cancel(false);
+      _pendingTimeout = null;
+    }
+    if (maxJobPendingTime > 0) {
+      createJobTimeoutExecutor();
+      _pendingTimeout = _jobTimeoutExecutor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          if (!getPending().isEmpty()) {
+            retryPending(System.nanoTime() - maxJobPendingTime * 1000000L);
+          }
+        }
+      }, maxJobPendingTime, maxJobPendingTime, TimeUnit.MILLISECONDS);
     }
   }
 
@@ -446,74 +525,136 @@ public class JobDispatcher implements JobInvokerRegister {
     return _pending;
   }
 
-  protected Queue<JobInvoker> getInvokers() {
-    return _invokers;
-  }
-
   protected Map<JobInvoker, Collection<Capability>> getCapabilityCache() {
     return _capabilityCache;
   }
 
+  private CapabilityClass getCapabilityClass(final JobInvoker invoker) {
+    final Collection<Capability> capabilities = getCapabilityCache().get(invoker);
+    CapabilityClass capabilityClass = _capabilityClasses.get(capabilities);
+    if (capabilityClass == null) {
+      capabilityClass = new CapabilityClass(capabilities);
+      final CapabilityClass existing = _capabilityClasses.putIfAbsent(capabilities, capabilityClass);
+      if (existing != null) {
+        capabilityClass = existing;
+      } else {
+        s_logger.info("New capability class {}", capabilities);
+        // Invalidate the requirements cache
+        _capabilityClassVersion.incrementAndGet();
+      }
+    }
+    return capabilityClass;
+  }
+
+  /**
+   * Returns the capability classes that can execute jobs with the given requirements. The result is cached for
+   * the requirements until a new capability class is registered.
+   */
+  private CapabilityClass[] getCapabilityClasses(final CapabilityRequirements requirements) {
+    final int version = _capabilityClassVersion.get();
+    final SatisfyingClasses cached = _satisfyingClasses.get(requirements);
+    if ((cached != null) && (cached._version == version)) {
+      return cached._classes;
+    }
+    final List<CapabilityClass> classes = new ArrayList<CapabilityClass>();
+    for (CapabilityClass capabilityClass : _capabilityClasses.values()) {
+      if (requirements.satisfiedBy(capabilityClass.getCapabilities())) {
+        classes.add(capabilityClass);
+      }
+    }
+    final CapabilityClass[] result = classes.toArray(new CapabilityClass[classes.size()]);
+    _satisfyingClasses.put(requirements, new SatisfyingClasses(version, result));
+    return result;
+  }
+
+  private boolean hasReadyInvokers() {
+    for (CapabilityClass capabilityClass : _capabilityClasses.values()) {
+      if (!capabilityClass.getReady().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
-  public synchronized void registerJobInvoker(final JobInvoker invoker) {
+  public void registerJobInvoker(final JobInvoker invoker) {
     ArgumentChecker.notNull(invoker, "invoker");
     s_logger.debug("Registering job invoker {}", invoker);
-    getInvokers().add(invoker);
     getCapabilityCache().put(invoker, invoker.getCapabilities());
+    getCapabilityClass(invoker).getReady().add(invoker);
     if (!getPending().isEmpty()) {
       retryPending(0L);
     }
   }
 
-  // caller must already own monitor
+  /**
+   * Attempts to invoke pending jobs, aborting any that can't be invoked and were created before {@code failJobsBefore}.
+   * Only one thread at a time processes the pending queue; a call made while another thread (or an invoker called
+   * re-entrantly) is doing so returns immediately and the owning thread makes another pass.
+   */
   private void retryPending(final long failJobsBefore) {
-    s_logger.debug("Retrying pending operations");
-    final Iterator<DispatchJob> iterator = getPending().iterator();
-    while (iterator.hasNext()) {
-      final DispatchJob job = iterator.next();
-      if (invoke(job)) {
-        iterator.remove();
-      } else {
-        if (failJobsBefore <= 0) {
-          if (getInvokers().isEmpty()) {
-            s_logger.debug("No invokers available - not retrying operations");
-            break;
-          }
-        } else if (job.getJobCreationTime() < failJobsBefore) {
+    if (failJobsBefore > 0) {
+      _failPendingJobsBefore.set(failJobsBefore);
+    }
+    if (_pendingRetries.getAndIncrement() != 0) {
+      return;
+    }
+    int retries;
+    do {
+      retries = _pendingRetries.get();
+      final long failBefore = _failPendingJobsBefore.getAndSet(0L);
+      s_logger.debug("Retrying pending operations");
+      final Iterator<DispatchJob> iterator = getPending().iterator();
+      while (iterator.hasNext()) {
+        final DispatchJob job = iterator.next();
+        if (invoke(job)) {
           iterator.remove();
-          job.jobAbort(null, "no invokers available after timeout");
+        } else {
+          if (failBefore <= 0) {
+            if (!hasReadyInvokers()) {
+              s_logger.debug("No invokers available - not retrying operations");
+              break;
+            }
+          } else if (job.getJobCreationTime() < failBefore) {
+            iterator.remove();
+            job.jobAbort(null, "no invokers available after timeout");
+          }
         }
       }
-    }
+    } while (_pendingRetries.addAndGet(-retries) != 0);
   }
 
-  // TODO [ENG-42] schedule retryPending to be called periodically with failJobsBefore set to `System.nanoTime() - a timeout` to cancel jobs which can't be executed at all
-  // TODO [ENG-42] the invoker selection logic is inefficient; it's likely that capability requirements objects won't vary much so comparison against the capabilities of invokers should be cached
-  // TODO [ENG-42] job dispatch should not be O(n) on number of invokers; the caching of capabilities should allow a nearer O(1) selection
-
-  // caller must already own monitor
   private boolean invoke(final DispatchJob job) {
     if (job._completed.get()) {
       s_logger.info("Job {} cancelled", job.getJob().getSpecification().getJobId());
       return true;
     }
+    final CapabilityClass[] capabilityClasses = getCapabilityClasses(job.getRequirements());
     Collection<JobInvoker> retry = null;
     do {
-      final Iterator<JobInvoker> iterator = getInvokers().iterator();
-      while (iterator.hasNext()) {
-        final JobInvoker jobInvoker = iterator.next();
-        if (job.canRunOn(jobInvoker)) {
-          if (jobInvoker.invoke(job.getJob(), job)) {
+      for (CapabilityClass capabilityClass : capabilityClasses) {
+        final Queue<JobInvoker> ready = capabilityClass.getReady();
+        Collection<JobInvoker> excluded = null;
+        JobInvoker jobInvoker = ready.poll();
+        while (jobInvoker != null) {
+          if (job.isExcluded(jobInvoker)) {
+            if (excluded == null) {
+              excluded = new LinkedList<JobInvoker>();
+            }
+            excluded.add(jobInvoker);
+          } else if (jobInvoker.invoke(job.getJob(), job)) {
             s_logger.debug("Invoker {} accepted job {}", jobInvoker, job.getJob().getSpecification().getJobId());
             // request a job timeout
             job.setTimeout(jobInvoker);
-            // put invoker to the end of the list
-            iterator.remove();
-            getInvokers().add(jobInvoker);
+            // put invoker to the end of the queue
+            ready.add(jobInvoker);
+            if (excluded != null) {
+              ready.addAll(excluded);
+            }
             return true;
           } else {
+            // invoker is not returned to the queue until it registers again
             s_logger.debug("Invoker {} refused to execute job {}", jobInvoker, job.getJob().getSpecification().getJobId());
-            iterator.remove();
             if (jobInvoker.notifyWhenAvailable(this)) {
               s_logger.info("Invoker {} requested immediate retry", jobInvoker);
               if (retry == null) {
@@ -522,10 +663,16 @@ public class JobDispatcher implements JobInvokerRegister {
               retry.add(jobInvoker);
             }
           }
+          jobInvoker = ready.poll();
+        }
+        if (excluded != null) {
+          ready.addAll(excluded);
         }
       }
       if (retry != null) {
-        getInvokers().addAll(retry);
+        for (JobInvoker jobInvoker : retry) {
+          getCapabilityClass(jobInvoker).getReady().add(jobInvoker);
+        }
         retry = null;
       } else {
         break;
@@ -535,13 +682,14 @@ public class JobDispatcher implements JobInvokerRegister {
     return false;
   }
 
-  private synchronized void dispatchJobImpl(final DispatchJob job) {
+  private void dispatchJobImpl(final DispatchJob job) {
     if (!invoke(job)) {
       s_logger.debug("Adding job to pending set");
       getPending().add(job);
-      if (_invokers != null) {
-        retryPending(0L);
-      }
+    }
+    // An invoker may have become ready while this job was being considered
+    if (!getPending().isEmpty()) {
+      retryPending(0L);
     }
   }
 
@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.function.CompiledFunctionRepository;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.cache.WriteBehindViewComputationCache;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Execution state of a job whose items may be shared between several calculation nodes. An item is made ready once
+ * the items earlier in the job that produce its inputs have been executed. The node that owns the job takes ready
+ * items from the tail of the deque, so it tends to follow a chain of dependent items; idle nodes steal the oldest
+ * ready items from the head.
+ * <p>
+ * Producers are matched on value name and target only. This can introduce unnecessary dependencies but never misses
+ * one, and as only earlier items are considered the items are always released in an order the sequential execution
+ * would allow.
+ */
+/* package */class JobItemExecution {
+
+  private static final int[] NO_DEPENDENTS = new int[0];
+
+  private final CalculationJob _job;
+  private final CompiledFunctionRepository _functions;
+  private final WriteBehindViewComputationCache _cache;
+  private final long _startTime = System.nanoTime();
+  private final CalculationJobItem[] _items;
+  private final int[][] _dependents;
+  private final AtomicIntegerArray _blockCount;
+  private final CalculationJobResultItem[] _results;
+  private final BlockingDeque<Integer> _ready = new LinkedBlockingDeque<Integer>();
+  private final AtomicInteger _remaining;
+
+  public JobItemExecution(final CalculationJob job, final CompiledFunctionRepository functions, final WriteBehindViewComputationCache cache) {
+    _job = job;
+    _functions = functions;
+    _cache = cache;
+    final List<CalculationJobItem> items = job.getJobItems();
+    final int count = items.size();
+    _items = items.toArray(new CalculationJobItem[count]);
+    _results = new CalculationJobResultItem[count];
+    _blockCount = new AtomicIntegerArray(count);
+    _remaining = new AtomicInteger(count);
+    final Map<Pair<String, ComputationTargetSpecification>, List<Integer>> producers = new HashMap<Pair<String, ComputationTargetSpecification>, List<Integer>>();
+    final List<List<Integer>> dependents = new ArrayList<List<Integer>>(count);
+    final Set<Integer> required = new HashSet<Integer>();
+    for (int i = 0; i < count; i++) {
+      dependents.add(null);
+      required.clear();
+      for (ValueSpecification input : _items[i].getInputs()) {
+        final List<Integer> producer = producers.get(Pair.of(input.getValueName(), input.getTargetSpecification()));
+        if (producer != null) {
+          required.addAll(producer);
+        }
+      }
+      for (Integer requiredItem : required) {
+        List<Integer> requiredBy = dependents.get(requiredItem);
+        if (requiredBy == null) {
+          requiredBy = new LinkedList<Integer>();
+          dependents.set(requiredItem, requiredBy);
+        }
+        requiredBy.add(i);
+      }
+      _blockCount.set(i, required.size());
+      for (ValueRequirement output : _items[i].getDesiredValues()) {
+        final Pair<String, ComputationTargetSpecification> key = Pair.of(output.getValueName(), output.getTargetSpecification());
+        List<Integer> producer = producers.get(key);
+        if (producer == null) {
+          producer = new ArrayList<Integer>(1);
+          producers.put(key, producer);
+        }
+        producer.add(i);
+      }
+    }
+    _dependents = new int[count][];
+    for (int i = 0; i < count; i++) {
+      final List<Integer> requiredBy = dependents.get(i);
+      if (requiredBy == null) {
+        _dependents[i] = NO_DEPENDENTS;
+      } else {
+        final int[] indices = new int[requiredBy.size()];
+        int j = 0;
+        for (Integer dependent : requiredBy) {
+          indices[j++] = dependent;
+        }
+        _dependents[i] = indices;
+      }
+      if (_blockCount.get(i) == 0) {
+        _ready.add(i);
+      }
+    }
+  }
+
+  public CalculationJob getJob() {
+    return _job;
+  }
+
+  public CompiledFunctionRepository getFunctions() {
+    return _functions;
+  }
+
+  public WriteBehindViewComputationCache getCache() {
+    return _cache;
+  }
+
+  public long getStartTime() {
+    return _startTime;
+  }
+
+  public boolean isFinished() {
+    return _remaining.get() == 0;
+  }
+
+  public int getReadyCount() {
+    return _ready.size();
+  }
+
+  /**
+   * Returns the index of a ready item for the owning node, or -1 if there are none.
+   *
+   * @return the item index or -1
+   */
+  public int pollOwnItem() {
+    final Integer item = _ready.pollLast();
+    return (item != null) ? item : -1;
+  }
+
+  /**
+   * Returns the index of a ready item for another node, or -1 if there are none.
+   *
+   * @return the item index or -1
+   */
+  public int stealItem() {
+    final Integer item = _ready.pollFirst();
+    return (item != null) ? item : -1;
+  }
+
+  public CalculationJobItem getItem(final int item) {
+    return _items[item];
+  }
+
+  /**
+   * Records the result of an item, releasing any items that were waiting for it.
+   *
+   * @param item the item index
+   * @param result the result
+   * @return the number of items made ready
+   */
+  public int itemCompleted(final int item, final CalculationJobResultItem result) {
+    _results[item] = result;
+    int released = 0;
+    for (int dependent : _dependents[item]) {
+      if (_blockCount.decrementAndGet(dependent) == 0) {
+        _ready.add(dependent);
+        released++;
+      }
+    }
+    final boolean finished = _remaining.decrementAndGet() == 0;
+    if ((released > 0) || finished) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+    return released;
+  }
+
+  /**
+   * Blocks the owning node until an item is ready or all have completed.
+   *
+   * @throws InterruptedException if the thread is interrupted, e.g. the job is being cancelled
+   */
+  public synchronized void waitForItems() throws InterruptedException {
+    while (_ready.isEmpty() && (_remaining.get() > 0)) {
+      wait();
+    }
+  }
+
+  /**
+   * Returns the item results in job order. Only valid once all items have completed.
+   *
+   * @return the results
+   */
+  public List<CalculationJobResultItem> getResults() {
+    return Arrays.asList(_results);
+  }
+
+}
@@ -173,6 +173,23 @@ public interface ViewClient extends UniqueIdentifiable {
    */
   void setResultMode(ViewResultMode viewResultMode);
 
+  /**
+   * Gets whether the listener receives fragments of the results of each computation cycle as they are calculated,
+   * ahead of the complete result. Defaults to {@code false}.
+   * 
+   * @return true if fragment results are passed to the listener
+   */
+  boolean isFragmentResultsEnabled();
+
+  /**
+   * Sets whether the listener receives fragments of the results of each computation cycle as they are calculated.
+   * Fragments are only delivered while results are flowing freely; when paused or throttled, just the merged result
+   * of the cycle is delivered.
+   * 
+   * @param fragmentResultsEnabled  true to pass fragment results to the listener
+   */
+  void setFragmentResultsEnabled(boolean fragmentResultsEnabled);
+
   //-------------------------------------------------------------------------
   /**
    * Pauses the flow of results exposed through this client. They continue to be received internally, and these are
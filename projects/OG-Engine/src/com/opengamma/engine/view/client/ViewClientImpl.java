@@ -50,6 +50,7 @@ public class ViewClientImpl implements ViewClient {
   private final AtomicReference<ViewResultMode> _resultMode = new AtomicReference<ViewResultMode>(ViewResultMode.FULL_ONLY);
   private final AtomicBoolean _isViewCycleAccessSupported = new AtomicBoolean(false);
   private final AtomicBoolean _isAttached = new AtomicBoolean(false);
+  private final AtomicBoolean _isFragmentResultsEnabled = new AtomicBoolean(false);
   private ViewClientState _state = ViewClientState.STARTED;
   
   // Per-process state
@@ -103,6 +104,17 @@ public class ViewClientImpl implements ViewClient {
         }
       }
 
+      @Override
+      public void cycleFragmentCompleted(ViewComputationResultModel fragmentResult) {
+        if (!isFragmentResultsEnabled()) {
+          return;
+        }
+        ViewResultListener listener = _userResultListener.get();
+        if (listener != null) {
+          listener.cycleFragmentCompleted(fragmentResult);
+        }
+      }
+
       @Override
       public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
         boolean isFirstResult = updateLatestResult(fullResult);
@@ -228,6 +240,9 @@ public class ViewClientImpl implements ViewClient {
     boolean isPaused = getState() == ViewClientState.PAUSED;
     _mergingViewProcessListener.setPaused(isPaused);
     _completionLatch = new CountDownLatch(1);
+    if (isFragmentResultsEnabled()) {
+      getViewProcessor().setClientFragmentResultsEnabled(getUniqueId(), true);
+    }
   }
 
   @Override
@@ -273,6 +288,25 @@ public class ViewClientImpl implements ViewClient {
   public void setResultMode(ViewResultMode viewResultMode) {
     _resultMode.set(viewResultMode);
   }
+
+  @Override
+  public boolean isFragmentResultsEnabled() {
+    return _isFragmentResultsEnabled.get();
+  }
+
+  @Override
+  public void setFragmentResultsEnabled(boolean fragmentResultsEnabled) {
+    _clientLock.lock();
+    try {
+      _isFragmentResultsEnabled.set(fragmentResultsEnabled);
+      if (isAttached()) {
+        // The process only publishes fragments while at least one of its clients wants them
+        getViewProcessor().setClientFragmentResultsEnabled(getUniqueId(), fragmentResultsEnabled);
+      }
+    } finally {
+      _clientLock.unlock();
+    }
+  }
   
   //-------------------------------------------------------------------------
   @Override
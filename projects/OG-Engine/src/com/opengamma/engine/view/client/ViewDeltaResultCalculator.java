@@ -9,6 +9,7 @@ import java.util.Map;
 
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
 import com.opengamma.engine.view.DeltaDefinition;
 import com.opengamma.engine.view.InMemoryViewDeltaResultModel;
 import com.opengamma.engine.view.ViewCalculationResultModel;
@@ -41,11 +42,55 @@ public class ViewDeltaResultCalculator {
       deltaModel.setPreviousResultTimestamp(previousResult.getResultTimestamp());
     }
     deltaModel.setCalculationConfigurationNames(result.getCalculationConfigurationNames());
+    if ((previousResult == null || previousResult instanceof ColumnarViewComputationResultModel) && (result instanceof ColumnarViewComputationResultModel)) {
+      computeDeltaModel(viewDefinition, deltaModel, (ColumnarViewComputationResultModel) previousResult, (ColumnarViewComputationResultModel) result);
+      return deltaModel;
+    }
     for (ComputationTargetSpecification targetSpec : result.getAllTargets()) {
       computeDeltaModel(viewDefinition, deltaModel, targetSpec, previousResult, result);
     }
     return deltaModel;
   }
+
+  /**
+   * Compares the rows of two columnar results directly, creating {@link ComputedValue} instances only for the
+   * values that go into the delta. Where a result has several rows for a value name on a target, only the last is
+   * compared, as it is the one in the maps of the {@code ViewResultModel} interface.
+   */
+  private static void computeDeltaModel(ViewDefinition viewDefinition, InMemoryViewDeltaResultModel deltaModel,
+      ColumnarViewComputationResultModel previousResult, ColumnarViewComputationResultModel result) {
+    final int configurations = result.getCalculationConfigurationNames().size();
+    final DeltaDefinition[] deltaDefinitions = new DeltaDefinition[configurations];
+    final int[] previousConfiguration = new int[configurations];
+    for (int i = 0; i < configurations; i++) {
+      final String calcConfigName = result.getCalculationConfigurationName(i);
+      deltaDefinitions[i] = viewDefinition.getCalculationConfiguration(calcConfigName).getDeltaDefinition();
+      previousConfiguration[i] = (previousResult != null) ? previousResult.indexOfCalculationConfiguration(calcConfigName) : -1;
+    }
+    final int[] previousTarget = new int[result.getAllTargets().size()];
+    int i = 0;
+    for (ComputationTargetSpecification target : result.getAllTargets()) {
+      previousTarget[i++] = (previousResult != null) ? previousResult.indexOfTarget(target) : -1;
+    }
+    final int[] previousValueName = new int[result.getValueNameCount()];
+    for (i = 0; i < previousValueName.length; i++) {
+      previousValueName[i] = (previousResult != null) ? previousResult.indexOfValueName(result.getValueName(i)) : -1;
+    }
+    for (int row = 0; row < result.getRowCount(); row++) {
+      final int configuration = result.getConfigurationIndex(row);
+      if (result.findRow(configuration, result.getTargetIndex(row), result.getValueNameIndex(row)) != row) {
+        // Replaced by a later row
+        continue;
+      }
+      final int previousRow = (previousConfiguration[configuration] < 0) ? -1
+          : previousResult.findRow(previousConfiguration[configuration], previousTarget[result.getTargetIndex(row)], previousValueName[result.getValueNameIndex(row)]);
+      if ((previousRow < 0)
+          || !result.getValueProperties(result.getValuePropertiesIndex(row)).equals(previousResult.getValueProperties(previousResult.getValuePropertiesIndex(previousRow)))
+          || deltaDefinitions[configuration].isValueDelta(previousResult.getValue(previousRow), result.getValue(row))) {
+        deltaModel.addValue(result.getCalculationConfigurationName(configuration), result.getComputedValue(row));
+      }
+    }
+  }
   
   private static void computeDeltaModel(ViewDefinition viewDefinition, InMemoryViewDeltaResultModel deltaModel, ComputationTargetSpecification targetSpec,
       ViewResultModel previousResult, ViewResultModel result) {
@@ -31,7 +31,8 @@ import com.opengamma.util.ArgumentChecker;
 /**
  * Collects and merges view process updates, releasing them only when {@code drain()} is called.
  * Also ensures that different update types are passed to the underlying listener
- * in the correct order when drained.
+ * in the correct order when drained. Fragments of a cycle's results are only passed on while updates pass straight
+ * through; otherwise they are discarded in favour of the merged result.
  */
 public class MergingViewProcessListener implements ViewResultListener {
   
@@ -157,6 +158,20 @@ public class MergingViewProcessListener implements ViewResultListener {
     }
   }
 
+  @Override
+  public void cycleFragmentCompleted(ViewComputationResultModel fragmentResult) {
+    _mergerLock.lock();
+    try {
+      // Fragments are only of use as they arrive. Once merging, the collapsed result of the cycle will contain the
+      // same values so there is nothing to queue.
+      if (isPassThrough()) {
+        getUnderlying().cycleFragmentCompleted(fragmentResult);
+      }
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
     _mergerLock.lock();
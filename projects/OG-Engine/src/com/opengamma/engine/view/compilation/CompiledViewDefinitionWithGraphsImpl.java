@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 import javax.time.Instant;
 
@@ -18,6 +19,7 @@ import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.depgraph.DependencyGraphExplorer;
 import com.opengamma.engine.depgraph.DependencyGraphExplorerImpl;
 import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.tuple.Pair;
@@ -29,6 +31,7 @@ public class CompiledViewDefinitionWithGraphsImpl extends CompiledViewDefinition
 
   private final Map<String, DependencyGraph> _graphsByConfiguration;
   private final long _functionInitId;
+  private final Set<ValueRequirement> _missingLiveDataRequirements;
 
   /**
    * Constructs an instance.
@@ -40,16 +43,34 @@ public class CompiledViewDefinitionWithGraphsImpl extends CompiledViewDefinition
    */
   public CompiledViewDefinitionWithGraphsImpl(ViewDefinition viewDefinition,
       Map<String, DependencyGraph> graphsByConfiguration, Portfolio portfolio, long functionInitId) {
+    this(viewDefinition, graphsByConfiguration, portfolio, functionInitId, Collections.<ValueRequirement>emptySet());
+  }
+
+  /**
+   * Constructs an instance.
+   * 
+   * @param viewDefinition  the view definition, not null
+   * @param graphsByConfiguration  the dependency graphs by calculation configuration name, not null
+   * @param portfolio  the portfolio, possibly null
+   * @param functionInitId  the function init ID that was used when creating the dependency graphs
+   * @param missingLiveDataRequirements  the requirements met by neither live data nor any function when creating the
+   *                                     dependency graphs, not null
+   */
+  public CompiledViewDefinitionWithGraphsImpl(ViewDefinition viewDefinition,
+      Map<String, DependencyGraph> graphsByConfiguration, Portfolio portfolio, long functionInitId, Set<ValueRequirement> missingLiveDataRequirements) {
     this(viewDefinition, portfolio, processCompiledCalculationConfigurations(graphsByConfiguration),
-        processValidityRange(graphsByConfiguration), graphsByConfiguration, functionInitId);
+        processValidityRange(graphsByConfiguration), graphsByConfiguration, functionInitId, missingLiveDataRequirements);
   }
   
   private CompiledViewDefinitionWithGraphsImpl(ViewDefinition viewDefinition, Portfolio portfolio,
       Collection<CompiledViewCalculationConfiguration> compiledCalculationConfigurations,
-      Pair<Instant, Instant> validityRange, Map<String, DependencyGraph> graphsByConfiguration, long functionInitId) {
+      Pair<Instant, Instant> validityRange, Map<String, DependencyGraph> graphsByConfiguration, long functionInitId,
+      Set<ValueRequirement> missingLiveDataRequirements) {
     super(viewDefinition, portfolio, compiledCalculationConfigurations, validityRange.getFirst(), validityRange.getSecond());
+    ArgumentChecker.notNull(missingLiveDataRequirements, "missingLiveDataRequirements");
     _functionInitId = functionInitId;
     _graphsByConfiguration = Collections.unmodifiableMap(graphsByConfiguration);
+    _missingLiveDataRequirements = Collections.unmodifiableSet(missingLiveDataRequirements);
   }
   
   //--------------------------------------------------------------------------
@@ -93,6 +114,16 @@ public class CompiledViewDefinitionWithGraphsImpl extends CompiledViewDefinition
     return _functionInitId;
   }
 
+  /**
+   * Gets the requirements met by neither live data nor any function when creating the dependency graphs. Targets
+   * that failed because of these may be satisfied by recompiling once the live data is available.
+   * 
+   * @return the requirements, not null
+   */
+  public Set<ValueRequirement> getMissingLiveDataRequirements() {
+    return _missingLiveDataRequirements;
+  }
+
   //-------------------------------------------------------------------------
   
   @Override
@@ -25,7 +25,6 @@ import com.opengamma.core.position.impl.PositionImpl;
 import com.opengamma.core.position.impl.TradeImpl;
 import com.opengamma.core.security.Security;
 import com.opengamma.engine.CachingComputationTargetResolver;
-import com.opengamma.engine.depgraph.DependencyGraphBuilder;
 import com.opengamma.engine.view.ResultModelDefinition;
 import com.opengamma.engine.view.ResultOutputMode;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
@@ -46,7 +45,7 @@ import com.opengamma.util.monitor.OperationTimer;
 
   // --------------------------------------------------------------------------
   /**
-   * Adds portfolio targets to the dependency graphs as required, and fully resolves the portfolio structure.
+   * Gathers the portfolio targets for the dependency graphs as required, and fully resolves the portfolio structure.
    * 
    * @param compilationContext  the context of the view definition compilation
    * @return the fully-resolved portfolio structure if any portfolio targets were required, {@code null}
@@ -77,10 +76,8 @@ import com.opengamma.util.monitor.OperationTimer;
         portfolio = getPortfolio(compilationContext);
       }
       
-      DependencyGraphBuilder builder = compilationContext.getBuilders().get(calcConfig.getName());
-
-      // Add portfolio requirements to the dependency graph
-      PortfolioCompilerTraversalCallback traversalCallback = new PortfolioCompilerTraversalCallback(builder, calcConfig);
+      // Gather the portfolio requirements for the dependency graph
+      PortfolioCompilerTraversalCallback traversalCallback = new PortfolioCompilerTraversalCallback(compilationContext.getTargetRequirements(calcConfig.getName()), calcConfig);
       PortfolioNodeTraverser.depthFirst(traversalCallback).traverse(portfolio.getRootNode());
     }
     
@@ -6,6 +6,7 @@
 package com.opengamma.engine.view.compilation;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -19,7 +20,6 @@ import com.opengamma.core.position.Trade;
 import com.opengamma.core.position.impl.AbstractPortfolioNodeTraversalCallback;
 import com.opengamma.core.position.impl.PortfolioNodeTraverser;
 import com.opengamma.core.position.impl.PositionAccumulator;
-import com.opengamma.engine.depgraph.DependencyGraphBuilder;
 import com.opengamma.engine.value.ValueProperties;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.view.ResultModelDefinition;
@@ -28,16 +28,16 @@ import com.opengamma.engine.view.ViewCalculationConfiguration;
 import com.opengamma.util.tuple.Pair;
 
 /**
- * Compiles dependency graphs for each stage in a portfolio tree.
+ * Gathers the requirements for each stage in a portfolio tree, to be compiled into a dependency graph.
  */
 /* package */class PortfolioCompilerTraversalCallback extends AbstractPortfolioNodeTraversalCallback {
   private static final Logger s_logger = LoggerFactory.getLogger(PortfolioCompilerTraversalCallback.class);
-  private final DependencyGraphBuilder _dependencyGraphBuilder;
+  private final List<Set<ValueRequirement>> _targetRequirements;
   private final ViewCalculationConfiguration _calculationConfiguration;
   private final ResultModelDefinition _resultModelDefinition;
 
-  public PortfolioCompilerTraversalCallback(DependencyGraphBuilder dependencyGraphBuilder, ViewCalculationConfiguration calculationConfiguration) {
-    _dependencyGraphBuilder = dependencyGraphBuilder;
+  public PortfolioCompilerTraversalCallback(List<Set<ValueRequirement>> targetRequirements, ViewCalculationConfiguration calculationConfiguration) {
+    _targetRequirements = targetRequirements;
     _calculationConfiguration = calculationConfiguration;
     _resultModelDefinition = calculationConfiguration.getViewDefinition().getResultModelDefinition();
   }
@@ -95,11 +95,10 @@ import com.opengamma.util.tuple.Pair;
       if ((requiredOutputs == null) || requiredOutputs.isEmpty()) {
         continue;
       }
-      Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
       // add requirements for trades as well
       if (_resultModelDefinition.getTradeOutputMode() != ResultOutputMode.NONE) {
         for (Position position : portfolioNode.getPositions()) {
-          requirements.clear();
+          final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
           for (Pair<String, ValueProperties> requiredOutput : requiredOutputs) {
             requirements.add(new ValueRequirement(requiredOutput.getFirst(), position, requiredOutput.getSecond()));
           }
@@ -109,7 +108,7 @@ import com.opengamma.util.tuple.Pair;
               requirements.add(new ValueRequirement(requiredOutput.getFirst(), trade, requiredOutput.getSecond()));
             }
           }
-          _dependencyGraphBuilder.addTarget(requirements);
+          _targetRequirements.add(requirements);
         }
       }
     }
@@ -123,21 +122,21 @@ import com.opengamma.util.tuple.Pair;
       if ((requiredOutputs == null) || requiredOutputs.isEmpty()) {
         continue;
       }
-      Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
       // If the outputs are not even required in the results then there's no point adding them as terminal outputs
       if (_resultModelDefinition.getAggregatePositionOutputMode() != ResultOutputMode.NONE) {
+        final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
         for (Pair<String, ValueProperties> requiredOutput : requiredOutputs) {
           requirements.add(new ValueRequirement(requiredOutput.getFirst(), portfolioNode, requiredOutput.getSecond()));
         }
-        _dependencyGraphBuilder.addTarget(requirements);
+        _targetRequirements.add(requirements);
       }
       if (_resultModelDefinition.getPositionOutputMode() != ResultOutputMode.NONE) {
         for (Position position : portfolioNode.getPositions()) {
-          requirements.clear();
+          final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
           for (Pair<String, ValueProperties> requiredOutput : requiredOutputs) {
             requirements.add(new ValueRequirement(requiredOutput.getFirst(), position, requiredOutput.getSecond()));
           }
-          _dependencyGraphBuilder.addTarget(requirements);
+          _targetRequirements.add(requirements);
         }
       }
     }
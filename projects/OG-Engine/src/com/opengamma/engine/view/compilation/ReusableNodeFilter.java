@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.Trade;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.depgraph.DependencyNodeFilter;
+import com.opengamma.engine.livedata.LiveDataAvailabilityProvider;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Accepts the nodes from a previously compiled dependency graph that are still valid for a new compilation of the
+ * same view definition.
+ * <p>
+ * A node is rejected if its target is a position or trade that is no longer in the portfolio, or a portfolio node
+ * whose contents have changed, or if it sources live data that is no longer available. Positions and trades are
+ * compared by unique identifier so an amended position is expected to carry a new version. A node is also rejected
+ * if its target is, or holds, a security which the security source now resolves to a different version; the
+ * previous graph may have been compiled against an earlier version of the static data. Primitive targets carry no
+ * version, so any state behind them is the function's and is covered by the function initialization identifier.
+ * Nodes which consume the outputs of a rejected node must also be discarded, as done by
+ * {@link com.opengamma.engine.depgraph.DependencyGraph#copy}.
+ */
+/* package */class ReusableNodeFilter implements DependencyNodeFilter {
+
+  private final Set<UniqueIdentifier> _unchangedTargets = new HashSet<UniqueIdentifier>();
+  private final LiveDataAvailabilityProvider _liveDataAvailabilityProvider;
+  private final SecuritySource _securitySource;
+  private final Map<UniqueIdentifier, Boolean> _currentSecurities = new HashMap<UniqueIdentifier, Boolean>();
+
+  /**
+   * @param previousPortfolio the portfolio the previous graphs were compiled for, possibly null
+   * @param portfolio the portfolio being compiled, possibly null
+   * @param liveDataAvailabilityProvider the live data availability provider for the new compilation
+   * @param securitySource the security source for the new compilation, null to not check security versions
+   */
+  public ReusableNodeFilter(final Portfolio previousPortfolio, final Portfolio portfolio, final LiveDataAvailabilityProvider liveDataAvailabilityProvider,
+      final SecuritySource securitySource) {
+    _liveDataAvailabilityProvider = liveDataAvailabilityProvider;
+    _securitySource = securitySource;
+    if ((previousPortfolio != null) && (portfolio != null)) {
+      final Map<UniqueIdentifier, Set<UniqueIdentifier>> previousContents = new HashMap<UniqueIdentifier, Set<UniqueIdentifier>>();
+      final Set<UniqueIdentifier> previousTargets = getContents(previousPortfolio.getRootNode(), previousContents);
+      final Map<UniqueIdentifier, Set<UniqueIdentifier>> contents = new HashMap<UniqueIdentifier, Set<UniqueIdentifier>>();
+      final Set<UniqueIdentifier> targets = getContents(portfolio.getRootNode(), contents);
+      // Positions and trades present in both
+      for (UniqueIdentifier target : previousTargets) {
+        if (targets.contains(target)) {
+          _unchangedTargets.add(target);
+        }
+      }
+      // Portfolio nodes that have exactly the same contents
+      for (Map.Entry<UniqueIdentifier, Set<UniqueIdentifier>> previousNode : previousContents.entrySet()) {
+        if (previousNode.getValue().equals(contents.get(previousNode.getKey()))) {
+          _unchangedTargets.add(previousNode.getKey());
+        } else {
+          _unchangedTargets.remove(previousNode.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * Gathers the identifiers of the nodes, positions and trades under a portfolio node.
+   *
+   * @param node the portfolio node
+   * @param nodeContents updated with the contents of each portfolio node visited
+   * @return the identifiers of all nodes, positions and trades under the node
+   */
+  private static Set<UniqueIdentifier> getContents(final PortfolioNode node, final Map<UniqueIdentifier, Set<UniqueIdentifier>> nodeContents) {
+    final Set<UniqueIdentifier> contents = new HashSet<UniqueIdentifier>();
+    for (Position position : node.getPositions()) {
+      contents.add(position.getUniqueId());
+      for (Trade trade : position.getTrades()) {
+        contents.add(trade.getUniqueId());
+      }
+    }
+    for (PortfolioNode childNode : node.getChildNodes()) {
+      contents.add(childNode.getUniqueId());
+      contents.addAll(getContents(childNode, nodeContents));
+    }
+    nodeContents.put(node.getUniqueId(), contents);
+    return contents;
+  }
+
+  /**
+   * Tests whether a security is still the version the security source resolves it to.
+   * 
+   * @param security the security the previous graph was compiled against, possibly null
+   * @return true if the security is current or can't be checked, false if it has changed
+   */
+  private boolean isCurrent(final Security security) {
+    if ((security == null) || (_securitySource == null)) {
+      return true;
+    }
+    final UniqueIdentifier uid = security.getUniqueId();
+    Boolean current = _currentSecurities.get(uid);
+    if (current == null) {
+      final Security latest = _securitySource.getSecurity(uid.toLatest());
+      current = (latest != null) && uid.equals(latest.getUniqueId());
+      _currentSecurities.put(uid, current);
+    }
+    return current;
+  }
+
+  @Override
+  public boolean accept(final DependencyNode node) {
+    final ComputationTarget target = node.getComputationTarget();
+    switch (target.getType()) {
+      case PORTFOLIO_NODE:
+        if (!_unchangedTargets.contains(target.getUniqueId())) {
+          return false;
+        }
+        break;
+      case POSITION:
+        if (!_unchangedTargets.contains(target.getUniqueId()) || !isCurrent(target.getPosition().getSecurity())) {
+          return false;
+        }
+        break;
+      case TRADE:
+        if (!_unchangedTargets.contains(target.getUniqueId()) || !isCurrent(target.getTrade().getSecurity())) {
+          return false;
+        }
+        break;
+      case SECURITY:
+        if (!isCurrent(target.getSecurity())) {
+          return false;
+        }
+        break;
+      default:
+        break;
+    }
+    final Pair<ValueRequirement, ValueSpecification> liveData = node.getRequiredLiveData();
+    if ((liveData != null) && !_liveDataAvailabilityProvider.isAvailable(liveData.getFirst())) {
+      return false;
+    }
+    return true;
+  }
+
+}
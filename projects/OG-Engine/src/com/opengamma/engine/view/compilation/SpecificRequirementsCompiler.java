@@ -5,8 +5,11 @@
  */
 package com.opengamma.engine.view.compilation;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
 import com.opengamma.engine.ComputationTargetSpecification;
-import com.opengamma.engine.depgraph.DependencyGraphBuilder;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.view.ResultModelDefinition;
 import com.opengamma.engine.view.ResultOutputMode;
@@ -21,14 +24,14 @@ public final class SpecificRequirementsCompiler {
   }
   
   /**
-   * Adds any specific requirements mentioned in the view calculation configurations to the dependency graphs.
+   * Gathers any specific requirements mentioned in the view calculation configurations for the dependency graphs.
    * 
    * @param compilationContext  the context of the view definition compilation
    */
   public static void execute(ViewCompilationContext compilationContext) {
     ResultModelDefinition resultModelDefinition = compilationContext.getViewDefinition().getResultModelDefinition();
     for (ViewCalculationConfiguration calcConfig : compilationContext.getViewDefinition().getAllCalculationConfigurations()) {
-      DependencyGraphBuilder builder = compilationContext.getBuilders().get(calcConfig.getName());
+      List<Set<ValueRequirement>> targetRequirements = compilationContext.getTargetRequirements(calcConfig.getName());
       for (ValueRequirement requirement : calcConfig.getSpecificRequirements()) {
         ComputationTargetSpecification targetSpecification = requirement.getTargetSpecification();
         if (resultModelDefinition.getOutputMode(targetSpecification.getType()) == ResultOutputMode.NONE) {
@@ -36,7 +39,7 @@ public final class SpecificRequirementsCompiler {
           // automatically if it is needed for some other terminal output.
           continue;
         }
-        builder.addTarget(requirement);
+        targetRequirements.add(Collections.singleton(requirement));
       }
     }
   }
@@ -0,0 +1,59 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Holds the latest compilation of each view definition so that a view process can compile incrementally from the
+ * work of another process, rather than from scratch. This allows, for example, the runs of a batch over many
+ * valuation dates to resolve the dependency graphs once and then only the targets that change from day to day.
+ * <p>
+ * A cached compilation is never used as-is; it is passed as the previous compilation to
+ * {@link ViewDefinitionCompiler#compile(com.opengamma.engine.view.ViewDefinition, ViewCompilationServices, javax.time.InstantProvider, CompiledViewDefinitionWithGraphsImpl)},
+ * which checks that it is reusable for the new valuation time, function initialization and portfolio.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ViewCompilationCache {
+
+  /**
+   * The latest compilations, keyed by view definition name.
+   */
+  private final ConcurrentMap<String, CompiledViewDefinitionWithGraphsImpl> _compilations = new ConcurrentHashMap<String, CompiledViewDefinitionWithGraphsImpl>();
+
+  /**
+   * Gets the latest compilation of a view definition.
+   *
+   * @param viewDefinitionName  the name of the view definition, not null
+   * @return the latest compilation, null if none
+   */
+  public CompiledViewDefinitionWithGraphsImpl get(final String viewDefinitionName) {
+    ArgumentChecker.notNull(viewDefinitionName, "viewDefinitionName");
+    return _compilations.get(viewDefinitionName);
+  }
+
+  /**
+   * Stores a compilation, replacing any earlier compilation of the same view definition.
+   *
+   * @param compiledViewDefinition  the compilation, not null
+   */
+  public void put(final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition) {
+    ArgumentChecker.notNull(compiledViewDefinition, "compiledViewDefinition");
+    _compilations.put(compiledViewDefinition.getViewDefinition().getName(), compiledViewDefinition);
+  }
+
+  /**
+   * Removes all compilations.
+   */
+  public void clear() {
+    _compilations.clear();
+  }
+
+}
@@ -5,10 +5,13 @@
  */
 package com.opengamma.engine.view.compilation;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.time.Instant;
 
@@ -17,6 +20,7 @@ import com.opengamma.engine.function.FunctionCompilationContext;
 import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
 import com.opengamma.engine.function.resolver.DefaultCompiledFunctionResolver;
 import com.opengamma.engine.function.resolver.ResolutionRule;
+import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
 import com.opengamma.engine.view.ViewDefinition;
 
@@ -29,6 +33,7 @@ public class ViewCompilationContext {
   private final ViewDefinition _viewDefinition;
   private final ViewCompilationServices _services;
   private final Map<String, DependencyGraphBuilder> _builders;
+  private final Map<String, List<Set<ValueRequirement>>> _targetRequirements = new HashMap<String, List<Set<ValueRequirement>>>();
 
   /* package */ViewCompilationContext(ViewDefinition viewDefinition, ViewCompilationServices compilationServices, Instant atInstant) {
     _viewDefinition = viewDefinition;
@@ -49,6 +54,22 @@ public class ViewCompilationContext {
     return Collections.unmodifiableMap(_builders);
   }
 
+  /**
+   * Returns the requirements gathered so far for a calculation configuration. Each element is a set of requirements
+   * to be passed to {@link DependencyGraphBuilder#addTarget(Set)} once all have been gathered.
+   * 
+   * @param calcConfigName the calculation configuration name
+   * @return the modifiable list of target requirements
+   */
+  /* package */List<Set<ValueRequirement>> getTargetRequirements(final String calcConfigName) {
+    List<Set<ValueRequirement>> requirements = _targetRequirements.get(calcConfigName);
+    if (requirements == null) {
+      requirements = new ArrayList<Set<ValueRequirement>>();
+      _targetRequirements.put(calcConfigName, requirements);
+    }
+    return requirements;
+  }
+
   // --------------------------------------------------------------------------
   private Map<String, DependencyGraphBuilder> generateBuilders(ViewDefinition viewDefinition, ViewCompilationServices compilationServices, Instant atInstant) {
     Map<String, DependencyGraphBuilder> result = new HashMap<String, DependencyGraphBuilder>();
@@ -29,6 +29,7 @@ public class ViewCompilationServices {
   private final ExecutorService _executorService;
   private final FunctionCompilationContext _compilationContext;
   private final CachingComputationTargetResolver _computationTargetResolver;
+  private int _graphBuildingParallelism = 1;
   
   /**
    * Constructs an instance, without a position source or security source.
@@ -159,4 +160,24 @@ public class ViewCompilationServices {
     return _computationTargetResolver;
   }
 
+  /**
+   * Gets the maximum number of partitions each dependency graph will be built in concurrently.
+   * @return the parallelism, at least one
+   */
+  public int getGraphBuildingParallelism() {
+    return _graphBuildingParallelism;
+  }
+
+  /**
+   * Sets the maximum number of partitions each dependency graph will be built in concurrently. This defaults to one,
+   * building each graph on a single thread in requirement order. A partitioned build may choose different, but equally
+   * valid, functions (see [ENG-259]) and these can depend on the parallelism, so only enable it where compilation
+   * time matters more than reproducing the same graph on every machine.
+   * @param graphBuildingParallelism  the parallelism, at least one
+   */
+  public void setGraphBuildingParallelism(final int graphBuildingParallelism) {
+    ArgumentChecker.notNegativeOrZero(graphBuildingParallelism, "graphBuildingParallelism");
+    _graphBuildingParallelism = graphBuildingParallelism;
+  }
+
 }
@@ -5,9 +5,15 @@
  */
 package com.opengamma.engine.view.compilation;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 
 import javax.time.Instant;
 import javax.time.InstantProvider;
@@ -15,6 +21,7 @@ import javax.time.InstantProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.position.Portfolio;
 import com.opengamma.core.security.SecuritySource;
 import com.opengamma.engine.depgraph.DependencyGraph;
@@ -43,11 +50,34 @@ public final class ViewDefinitionCompiler {
   private static final boolean OUTPUT_DEPENDENCY_GRAPHS = false;
   private static final boolean OUTPUT_LIVE_DATA_REQUIREMENTS = false;
 
+  /**
+   * The smallest number of targets worth building as a separate partition of a dependency graph.
+   */
+  private static final int MIN_PARTITION_SIZE = 250;
+
   private ViewDefinitionCompiler() {
   }
 
   // --------------------------------------------------------------------------
   public static CompiledViewDefinitionWithGraphsImpl compile(ViewDefinition viewDefinition, ViewCompilationServices compilationServices, InstantProvider atInstant) {
+    return compile(viewDefinition, compilationServices, atInstant, null);
+  }
+
+  /**
+   * Compiles a view definition, reusing the parts of a previous compilation that are unaffected by changes to the
+   * portfolio, to the versions of its securities or to the availability of live data. Only requirements on new or
+   * changed targets, and those that depended on live data that is no longer available, are resolved again. If the
+   * previous compilation was for a different view definition, set of functions or valuation time range then the
+   * whole view is compiled.
+   * 
+   * @param viewDefinition the view definition to compile, not null
+   * @param compilationServices the compilation services, not null
+   * @param atInstant the valuation time to compile for, not null
+   * @param previous the previous compilation of the view definition, null to compile the whole view
+   * @return the compiled view definition, not null
+   */
+  public static CompiledViewDefinitionWithGraphsImpl compile(ViewDefinition viewDefinition, ViewCompilationServices compilationServices, InstantProvider atInstant,
+      CompiledViewDefinitionWithGraphsImpl previous) {
     ArgumentChecker.notNull(viewDefinition, "viewDefinition");
     ArgumentChecker.notNull(compilationServices, "compilationServices");
 
@@ -59,11 +89,25 @@ public final class ViewDefinitionCompiler {
     long t = -System.nanoTime();
     Portfolio portfolio = PortfolioCompiler.execute(viewCompilationContext);
     t += System.nanoTime();
-    s_logger.debug("Added portfolio requirements after {}ms", (double) t / 1e6);
+    s_logger.debug("Gathered portfolio requirements after {}ms", (double) t / 1e6);
     t -= System.nanoTime();
     SpecificRequirementsCompiler.execute(viewCompilationContext);
     t += System.nanoTime();
-    s_logger.debug("Added specific requirements after {}ms", (double) t / 1e6);
+    s_logger.debug("Gathered specific requirements after {}ms", (double) t / 1e6);
+    if (previous != null) {
+      if (isReusable(previous, viewCompilationContext, portfolio, atInstant)) {
+        t -= System.nanoTime();
+        reuseDependencyGraphs(viewCompilationContext, previous, portfolio);
+        t += System.nanoTime();
+        s_logger.debug("Reused previous dependency graphs after {}ms", (double) t / 1e6);
+      } else {
+        s_logger.info("Can't reuse previous compilation of {}", viewDefinition.getName());
+      }
+    }
+    t -= System.nanoTime();
+    buildDependencyGraphs(viewCompilationContext);
+    t += System.nanoTime();
+    s_logger.debug("Built dependency graphs after {}ms", (double) t / 1e6);
     t -= System.nanoTime();
     Map<String, DependencyGraph> graphsByConfiguration = processDependencyGraphs(viewCompilationContext);
     t += System.nanoTime();
@@ -77,15 +121,186 @@ public final class ViewDefinitionCompiler {
       outputLiveDataRequirements(graphsByConfiguration, compilationServices.getSecuritySource());
     }
 
-    return new CompiledViewDefinitionWithGraphsImpl(viewDefinition, graphsByConfiguration, portfolio, compilationServices.getFunctionCompilationContext().getFunctionInitId());
+    final Set<ValueRequirement> missingLiveData = new HashSet<ValueRequirement>();
+    for (DependencyGraphBuilder builder : viewCompilationContext.getBuilders().values()) {
+      missingLiveData.addAll(builder.getMissingLiveDataRequirements());
+    }
+    return new CompiledViewDefinitionWithGraphsImpl(viewDefinition, graphsByConfiguration, portfolio, compilationServices.getFunctionCompilationContext().getFunctionInitId(),
+        missingLiveData);
   }
 
   // --------------------------------------------------------------------------
+  private static boolean isReusable(final CompiledViewDefinitionWithGraphsImpl previous, final ViewCompilationContext context, final Portfolio portfolio, final InstantProvider atInstant) {
+    return previous.getViewDefinition().equals(context.getViewDefinition())
+        && (previous.getFunctionInitId() == context.getServices().getFunctionCompilationContext().getFunctionInitId())
+        && previous.isValidFor(atInstant)
+        && ((previous.getPortfolio() == null) == (portfolio == null));
+  }
+
+  /**
+   * Starts each dependency graph builder from a copy of the reusable part of the previous graph, and removes the
+   * requirements already satisfied by it from those to be added.
+   * 
+   * @param context the compilation context
+   * @param previous the previous compilation
+   * @param portfolio the portfolio being compiled, possibly null
+   */
+  private static void reuseDependencyGraphs(final ViewCompilationContext context, final CompiledViewDefinitionWithGraphsImpl previous, final Portfolio portfolio) {
+    final ReusableNodeFilter filter = new ReusableNodeFilter(previous.getPortfolio(), portfolio, context.getServices().getLiveDataAvailabilityProvider(),
+        context.getServices().getSecuritySource());
+    for (DependencyGraphBuilder builder : context.getBuilders().values()) {
+      final DependencyGraph previousGraph = previous.getDependencyGraph(builder.getCalculationConfigurationName());
+      if (previousGraph == null) {
+        continue;
+      }
+      final DependencyGraph graph = previousGraph.copy(filter);
+      builder.setDependencyGraph(graph);
+      final List<Set<ValueRequirement>> targets = context.getTargetRequirements(builder.getCalculationConfigurationName());
+      final List<Set<ValueRequirement>> unsatisfiedTargets = new ArrayList<Set<ValueRequirement>>();
+      for (Set<ValueRequirement> target : targets) {
+        Set<ValueRequirement> unsatisfied = null;
+        for (ValueRequirement requirement : target) {
+          if (!isTerminalOutput(graph, requirement)) {
+            if (unsatisfied == null) {
+              unsatisfied = new HashSet<ValueRequirement>();
+            }
+            unsatisfied.add(requirement);
+          }
+        }
+        if (unsatisfied != null) {
+          unsatisfiedTargets.add(unsatisfied);
+        }
+      }
+      s_logger.info("Reusing {} of {} nodes in {}; {} of {} targets to resolve", new Object[] {graph.getSize(), previousGraph.getSize(), builder.getCalculationConfigurationName(),
+          unsatisfiedTargets.size(), targets.size() });
+      targets.clear();
+      targets.addAll(unsatisfiedTargets);
+    }
+  }
+
+  private static boolean isTerminalOutput(final DependencyGraph graph, final ValueRequirement requirement) {
+    final Collection<Pair<DependencyNode, ValueSpecification>> nodes = graph.getNodesSatisfying(requirement);
+    if (nodes != null) {
+      for (Pair<DependencyNode, ValueSpecification> node : nodes) {
+        if (node.getFirst().getTerminalOutputValues().contains(node.getSecond())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the gathered requirements to the dependency graph builders. Large requirement lists are split into
+   * partitions which are built into separate graphs concurrently, along with those for any other calculation
+   * configurations, and then merged. Note that the order requirements are considered can affect the function
+   * choices (see [ENG-259]) so a partitioned build may pick different, but equally valid, functions than a
+   * single threaded one.
+   * 
+   * @param context the compilation context
+   */
+  private static void buildDependencyGraphs(final ViewCompilationContext context) {
+    final int parallelism = context.getServices().getGraphBuildingParallelism();
+    final List<Runnable> buildJobs = new ArrayList<Runnable>();
+    final List<Runnable> mergeJobs = new ArrayList<Runnable>();
+    for (final DependencyGraphBuilder builder : context.getBuilders().values()) {
+      final List<Set<ValueRequirement>> targets = context.getTargetRequirements(builder.getCalculationConfigurationName());
+      if (targets.isEmpty()) {
+        continue;
+      }
+      final int partitionCount = Math.max(1, Math.min(parallelism, targets.size() / MIN_PARTITION_SIZE));
+      final int partitionSize = (targets.size() + partitionCount - 1) / partitionCount;
+      // The first partition is built directly by the configuration's builder
+      buildJobs.add(new GraphBuildingJob(builder, targets.subList(0, partitionSize)));
+      if (partitionCount > 1) {
+        final List<DependencyGraphBuilder> partitions = new ArrayList<DependencyGraphBuilder>(partitionCount - 1);
+        for (int start = partitionSize; start < targets.size(); start += partitionSize) {
+          final DependencyGraphBuilder partition = builder.createPartition();
+          partitions.add(partition);
+          buildJobs.add(new GraphBuildingJob(partition, targets.subList(start, Math.min(start + partitionSize, targets.size()))));
+        }
+        mergeJobs.add(new Runnable() {
+          @Override
+          public void run() {
+            for (DependencyGraphBuilder partition : partitions) {
+              builder.addPartition(partition);
+            }
+          }
+        });
+      }
+    }
+    s_logger.debug("Building dependency graphs with {} job(s)", buildJobs.size());
+    runJobs(context, buildJobs, parallelism);
+    runJobs(context, mergeJobs, parallelism);
+  }
+
+  /**
+   * Runs a set of jobs, using the compilation executor if there is more than one. The first job is run by the
+   * calling thread.
+   */
+  private static void runJobs(final ViewCompilationContext context, final List<Runnable> jobs, final int parallelism) {
+    if ((jobs.size() <= 1) || (parallelism <= 1)) {
+      for (Runnable job : jobs) {
+        job.run();
+      }
+      return;
+    }
+    final ExecutorCompletionService<Object> completionService = new ExecutorCompletionService<Object>(context.getServices().getExecutorService());
+    for (Runnable job : jobs.subList(1, jobs.size())) {
+      completionService.submit(job, null);
+    }
+    Throwable failure = null;
+    try {
+      jobs.get(0).run();
+    } catch (Throwable t) {
+      failure = t;
+    }
+    for (int i = 1; i < jobs.size(); i++) {
+      try {
+        completionService.take().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OpenGammaRuntimeException("Interrupted while building dependency graphs", e);
+      } catch (ExecutionException e) {
+        s_logger.warn("Error building dependency graph", e.getCause());
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      }
+    }
+    if (failure != null) {
+      throw new OpenGammaRuntimeException("Unable to build dependency graphs", failure);
+    }
+  }
+
+  /**
+   * Adds a list of targets to a dependency graph builder.
+   */
+  private static final class GraphBuildingJob implements Runnable {
+
+    private final DependencyGraphBuilder _builder;
+    private final List<Set<ValueRequirement>> _targets;
+
+    private GraphBuildingJob(final DependencyGraphBuilder builder, final List<Set<ValueRequirement>> targets) {
+      _builder = builder;
+      _targets = targets;
+    }
+
+    @Override
+    public void run() {
+      for (Set<ValueRequirement> target : _targets) {
+        _builder.addTarget(target);
+      }
+    }
+
+  }
+
   private static Map<String, DependencyGraph> processDependencyGraphs(ViewCompilationContext context) {
     Map<String, DependencyGraph> result = new HashMap<String, DependencyGraph>();
     for (DependencyGraphBuilder builder : context.getBuilders().values()) {
       DependencyGraph dependencyGraph = builder.getDependencyGraph();
       dependencyGraph.removeUnnecessaryValues();
+      dependencyGraph.internValueSpecifications();
       result.put(builder.getCalculationConfigurationName(), dependencyGraph);
     }
     return result;
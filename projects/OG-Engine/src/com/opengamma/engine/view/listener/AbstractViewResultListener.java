@@ -25,6 +25,10 @@ public abstract class AbstractViewResultListener implements ViewResultListener {
   public void viewDefinitionCompilationFailed(Instant valuationTime, Exception exception) {
   }
 
+  @Override
+  public void cycleFragmentCompleted(ViewComputationResultModel fragmentResult) {
+  }
+
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
   }
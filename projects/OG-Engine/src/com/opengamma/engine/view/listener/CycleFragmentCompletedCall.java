@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.listener;
+
+import com.google.common.base.Function;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Represents a call to {@link ViewResultListener#cycleFragmentCompleted(ViewComputationResultModel)}.
+ */
+public class CycleFragmentCompletedCall implements Function<ViewResultListener, Object> {
+
+  private final ViewComputationResultModel _fragmentResult;
+
+  public CycleFragmentCompletedCall(ViewComputationResultModel fragmentResult) {
+    ArgumentChecker.notNull(fragmentResult, "fragmentResult");
+    _fragmentResult = fragmentResult;
+  }
+
+  public ViewComputationResultModel getFragmentResult() {
+    return _fragmentResult;
+  }
+
+  @Override
+  public Object apply(ViewResultListener listener) {
+    listener.cycleFragmentCompleted(getFragmentResult());
+    return null;
+  }
+
+}
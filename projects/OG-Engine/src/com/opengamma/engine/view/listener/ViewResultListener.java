@@ -40,6 +40,16 @@ public interface ViewResultListener {
   void viewDefinitionCompilationFailed(Instant valuationTime, Exception exception);
   
   //-------------------------------------------------------------------------
+  /**
+   * Called with part of the results of a computation cycle while it is still executing. This may be called any number
+   * of times during a cycle, each call carrying only the values calculated since the previous one. It is always
+   * followed by {@link #cycleCompleted(ViewComputationResultModel, ViewDeltaResultModel)} with the entire result,
+   * unless execution of the cycle fails.
+   * 
+   * @param fragmentResult  the values calculated since the last fragment of the same cycle, not null
+   */
+  void cycleFragmentCompleted(ViewComputationResultModel fragmentResult);
+
   /**
    * Called following the successful completion of a computation cycle.
    * 
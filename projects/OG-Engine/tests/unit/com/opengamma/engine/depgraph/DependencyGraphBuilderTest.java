@@ -8,6 +8,7 @@ package com.opengamma.engine.depgraph;
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.Arrays;
@@ -168,6 +169,24 @@ public class DependencyGraphBuilderTest {
     }
   }
 
+  public void missingLiveData() {
+    DepGraphTestHelper helper = new DepGraphTestHelper();
+    helper.addFunctionRequiring2Producing1();
+
+    DependencyGraphBuilder builder = helper.getBuilder(null);
+    builder.addTarget(helper.getRequirement1());
+    // Only the requirement nothing could produce is reported, not the target that failed because of it
+    assertEquals(Collections.singleton(helper.getRequirement2()), builder.getMissingLiveDataRequirements());
+
+    helper = new DepGraphTestHelper();
+    helper.addFunctionRequiring2Producing1();
+    helper.make2AvailableFromLiveData();
+    builder = helper.getBuilder(null);
+    builder.addTarget(helper.getRequirement1());
+    assertEquals(2, builder.getDependencyGraph().getDependencyNodes().size());
+    assertTrue(builder.getMissingLiveDataRequirements().isEmpty());
+  }
+
   public void doubleLevelLiveData() {
     DepGraphTestHelper helper = new DepGraphTestHelper();
     MockFunction fn1 = helper.addFunctionRequiring2Producing1();
@@ -847,4 +866,57 @@ public class DependencyGraphBuilderTest {
     //graph.dumpStructureASCII(System.out);
   }
 
+  public void mergedPartitions() {
+    DepGraphTestHelper helper = new DepGraphTestHelper();
+    MockFunction fn1 = helper.addFunctionRequiring2Producing1();
+    MockFunction fn2 = helper.addFunctionProducing2();
+
+    DependencyGraphBuilder builder = helper.getBuilder(null);
+    DependencyGraphBuilder partition = builder.createPartition();
+    builder.addTarget(helper.getRequirement2());
+    partition.addTarget(helper.getRequirement1());
+    assertEquals(2, partition.getDependencyGraph().getSize());
+    builder.addPartition(partition);
+
+    DependencyGraph graph = builder.getDependencyGraph();
+    graph.removeUnnecessaryValues();
+    assertEquals(2, graph.getSize());
+    assertEquals(Sets.newHashSet(helper.getSpec1(), helper.getSpec2()), graph.getTerminalOutputSpecifications());
+    DependencyNode node1 = graph.getNodeProducing(helper.getSpec1());
+    DependencyNode node2 = graph.getNodeProducing(helper.getSpec2());
+    assertEquals(fn1, node1.getFunction().getFunction());
+    assertEquals(fn2, node2.getFunction().getFunction());
+    assertEquals(Collections.singleton(node2), node1.getInputNodes());
+    assertEquals(Collections.singleton(node1), node2.getDependentNodes());
+    assertEquals(Collections.singleton(node1), graph.getRootNodes());
+  }
+
+  @Test
+  public void mergedPartitionsOverlappingNode() {
+    DepGraphTestHelper helper = new DepGraphTestHelper();
+    MockFunction fn1 = helper.addFunctionProducing1and2();
+
+    DependencyGraph graph = new DependencyGraph("Default");
+    DependencyNode node1 = new DependencyNode(helper.getTarget());
+    node1.setFunction(fn1);
+    node1.addOutputValue(helper.getSpec1());
+    graph.addDependencyNode(node1);
+    graph.addTerminalOutputValue(helper.getSpec1());
+
+    DependencyGraph partition = new DependencyGraph("Default");
+    DependencyNode node2 = new DependencyNode(helper.getTarget());
+    node2.setFunction(fn1);
+    node2.addOutputValue(helper.getSpec1());
+    node2.addOutputValue(helper.getSpec2());
+    partition.addDependencyNode(node2);
+    partition.addTerminalOutputValue(helper.getSpec2());
+
+    graph.mergeDependencyGraph(partition);
+    assertEquals(1, graph.getSize());
+    assertSame(node1, graph.getNodeProducing(helper.getSpec1()));
+    assertSame(node1, graph.getNodeProducing(helper.getSpec2()));
+    assertEquals(Sets.newHashSet(helper.getSpec1(), helper.getSpec2()), node1.getOutputValues());
+    assertEquals(Sets.newHashSet(helper.getSpec1(), helper.getSpec2()), graph.getTerminalOutputSpecifications());
+  }
+
 }
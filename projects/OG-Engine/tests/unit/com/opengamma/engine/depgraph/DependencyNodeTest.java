@@ -8,7 +8,11 @@ package com.opengamma.engine.depgraph;
 import org.testng.annotations.Test;
 import org.testng.AssertJUnit;
 import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.IdentificationScheme;
 import com.opengamma.id.Identifier;
 
@@ -48,4 +52,21 @@ public class DependencyNodeTest {
     AssertJUnit.assertTrue(node3.getDependentNodes().contains(node2));
     AssertJUnit.assertTrue(node3.getDependentNodes().contains(node4));
   }
+
+  public void testInternValueSpecifications() {
+    IdentificationScheme domain = IdentificationScheme.of("test");
+    
+    DependencyNode producer = new DependencyNode(new ComputationTarget(ComputationTargetType.PRIMITIVE, Identifier.of(domain, "0")));
+    DependencyNode consumer = new DependencyNode(new ComputationTarget(ComputationTargetType.PRIMITIVE, Identifier.of(domain, "1")));
+    ValueSpecification output = new ValueSpecification("Foo", new ComputationTargetSpecification(Identifier.of(domain, "0")), ValueProperties.with(ValuePropertyNames.FUNCTION, "Fn").get());
+    ValueSpecification input = new ValueSpecification("Foo", new ComputationTargetSpecification(Identifier.of(domain, "0")), ValueProperties.with(ValuePropertyNames.FUNCTION, "Fn").get());
+    producer.addOutputValue(output);
+    consumer.addInputValue(input);
+    consumer.addInputNode(producer);
+    
+    producer.internValueSpecifications();
+    consumer.internValueSpecifications();
+    AssertJUnit.assertEquals(output, producer.getOutputValues().iterator().next());
+    AssertJUnit.assertSame(producer.getOutputValues().iterator().next(), consumer.getInputValues().iterator().next());
+  }
 }
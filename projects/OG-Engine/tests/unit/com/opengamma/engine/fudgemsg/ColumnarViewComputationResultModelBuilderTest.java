@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.listener.CycleCompletedCall;
+import com.opengamma.engine.view.listener.CycleFragmentCompletedCall;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.transport.jaxrs.FudgeObjectBinaryConsumer;
+import com.opengamma.transport.jaxrs.FudgeObjectBinaryProducer;
+import com.opengamma.transport.jaxrs.FudgeRest;
+
+/**
+ * Tests the {@link ColumnarViewComputationResultModelBuilder} class.
+ */
+@Test
+public class ColumnarViewComputationResultModelBuilderTest extends AbstractBuilderTestCase {
+
+  private static ComputedValue value(final String valueName, final String target, final Object value) {
+    return new ComputedValue(new ValueSpecification(valueName, new ComputationTargetSpecification(target), ValueProperties.with(ValuePropertyNames.FUNCTION, "Fn").get()), value);
+  }
+
+  private static ColumnarViewComputationResultModel model() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.setViewProcessId(UniqueIdentifier.of("Test", "Process"));
+    model.setViewCycleId(UniqueIdentifier.of("Test", "Cycle"));
+    model.setValuationTime(Instant.ofEpochMillis(400));
+    model.setResultTimestamp(Instant.ofEpochMillis(500));
+    model.setCalculationConfigurationNames(java.util.Arrays.asList("Default", "Empty"));
+    model.addPortfolioTarget(model.addTarget(new ComputationTargetSpecification("Node")));
+    model.addValue("Default", value("PV", "A", 1.5d));
+    model.addValue("Default", value("Label", "A", "Foo"));
+    model.addValue("Default", value("PV", "B", 2.5d));
+    model.addLiveData(value("Market", "B", 3.5d));
+    return model;
+  }
+
+  public void testEncoding() {
+    final ColumnarViewComputationResultModel model = model();
+    final ViewComputationResultModel cycled = cycleObject(ViewComputationResultModel.class, model);
+    assertTrue(cycled instanceof ColumnarViewComputationResultModel);
+    final ColumnarViewComputationResultModel columnar = (ColumnarViewComputationResultModel) cycled;
+    assertEquals(model.getViewProcessId(), columnar.getViewProcessId());
+    assertEquals(model.getViewCycleId(), columnar.getViewCycleId());
+    assertEquals(model.getValuationTime(), columnar.getValuationTime());
+    assertEquals(model.getResultTimestamp(), columnar.getResultTimestamp());
+    assertEquals(model.getCalculationConfigurationNames(), columnar.getCalculationConfigurationNames());
+    assertEquals(model.getAllTargets(), columnar.getAllTargets());
+    assertTrue(columnar.isPortfolioTarget(0));
+    assertEquals(model.getAllResults(), columnar.getAllResults());
+    assertEquals(model.getAllLiveData(), columnar.getAllLiveData());
+    assertTrue(columnar.isScalar(2));
+    assertEquals(2.5d, columnar.getDoubleValue(2));
+  }
+
+  @SuppressWarnings("unchecked")
+  public void testRestEncoding() throws Exception {
+    final ColumnarViewComputationResultModel model = model();
+    final FudgeObjectBinaryProducer producer = new FudgeObjectBinaryProducer();
+    producer.setFudgeContext(getFudgeContext());
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    producer.writeTo(model, model.getClass(), null, null, FudgeRest.MEDIA_TYPE, null, out);
+    final FudgeObjectBinaryConsumer consumer = new FudgeObjectBinaryConsumer();
+    consumer.setFudgeContext(getFudgeContext());
+    final Object cycled = consumer.readFrom((Class<Object>) (Class<?>) ViewComputationResultModel.class, null, null, FudgeRest.MEDIA_TYPE, null,
+        new ByteArrayInputStream(out.toByteArray()));
+    assertTrue(cycled instanceof ColumnarViewComputationResultModel);
+    final ColumnarViewComputationResultModel columnar = (ColumnarViewComputationResultModel) cycled;
+    assertEquals(model.getViewCycleId(), columnar.getViewCycleId());
+    assertEquals(model.getAllResults(), columnar.getAllResults());
+    assertEquals(model.getAllLiveData(), columnar.getAllLiveData());
+  }
+
+  public void testCycleCompletedCall() {
+    final ColumnarViewComputationResultModel model = model();
+    final CycleCompletedCall cycled = cycleObject(CycleCompletedCall.class, new CycleCompletedCall(model, null));
+    assertTrue(cycled.getFullResult() instanceof ColumnarViewComputationResultModel);
+    assertEquals(model.getAllResults(), cycled.getFullResult().getAllResults());
+    assertEquals(model.getAllLiveData(), cycled.getFullResult().getAllLiveData());
+    assertNull(cycled.getDeltaResult());
+  }
+
+  public void testCycleFragmentCompletedCall() {
+    final ColumnarViewComputationResultModel model = model();
+    final CycleFragmentCompletedCall cycled = cycleObject(CycleFragmentCompletedCall.class, new CycleFragmentCompletedCall(model));
+    assertTrue(cycled.getFragmentResult() instanceof ColumnarViewComputationResultModel);
+    assertEquals(model.getAllResults(), cycled.getFragmentResult().getAllResults());
+  }
+
+}
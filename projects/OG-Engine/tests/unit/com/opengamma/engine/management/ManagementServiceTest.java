@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import com.opengamma.engine.test.ViewProcessorTestEnvironment;
 import com.opengamma.engine.view.ViewDefinition;
 import com.opengamma.engine.view.ViewProcessorImpl;
+import com.opengamma.engine.view.calc.stats.ExecutionProfiler;
 import com.opengamma.engine.view.calc.stats.TotallingGraphStatisticsGathererProvider;
 import com.opengamma.engine.view.client.ViewClient;
 import com.opengamma.engine.view.execution.ExecutionOptions;
@@ -74,6 +75,13 @@ public class ManagementServiceTest {
     assertMBeanCount(MBEANS_IN_TEST_VIEWPROCESSOR);
   }
   
+  public void testRegistrationServiceWithProfiler() throws Exception {
+    ViewProcessorImpl vp = _env.getViewProcessor();
+    vp.start();
+    ManagementService.registerMBeans(vp, _statisticsProvider, new ExecutionProfiler(), _mBeanServer);
+    assertMBeanCount(MBEANS_IN_TEST_VIEWPROCESSOR + 1);
+  }
+  
   public void testRegistrationServiceListensForViewProcessAdded() throws Exception {
     ViewProcessorImpl viewProcessor = _env.getViewProcessor();
     viewProcessor.start();
@@ -12,11 +12,14 @@ import static org.testng.AssertJUnit.assertNull;
 import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 
 import org.testng.annotations.Test;
 
+import com.google.common.collect.Sets;
+
 /**
  * Tests for the {@link ValueProperties} class.
  */
@@ -281,6 +284,30 @@ public class ValuePropertiesTest {
     ValueProperties.parse("ValueName=[");
   }
   
+  public void testIntern() {
+    final ValueProperties a = ValueProperties.with("A", "1").with("B", "2", "3").withOptional("C").get();
+    final ValueProperties b = ValueProperties.withOptional("C").with("B", "3", "2").with("A", "1").get();
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    final ValueProperties canonical = a.intern();
+    assertSame(canonical, b.intern());
+    assertSame(canonical, ValueProperties.parse(b.toString()).intern());
+    assertSame(ValueProperties.none(), ValueProperties.none().intern());
+    assertSame(ValueProperties.all(), ValueProperties.all().intern());
+    assertSame(ValueProperties.all().withoutAny("A").intern(), ValueProperties.all().withoutAny("A").intern());
+  }
+
+  public void testSortedStorage() {
+    final ValueProperties props = ValueProperties.with("C", "3").with("A", "2", "1").withAny("B").get();
+    assertEquals(Arrays.asList("A", "B", "C"), new ArrayList<String>(props.getProperties()));
+    assertEquals(Arrays.asList("1", "2"), new ArrayList<String>(props.getValues("A")));
+    assertTrue(props.getValues("B").isEmpty());
+    assertNull(props.getValues("D"));
+    assertEquals("{A=[1,2],B=[],C=[3]}", props.toString());
+    assertEquals(props, props.copy().get());
+    assertEquals(props.getValues("A"), Sets.newHashSet("1", "2"));
+  }
+
   private static void parseCycle(ValueProperties original) {
     String vpString = original.toString();
     ValueProperties parsed = ValueProperties.parse(vpString);
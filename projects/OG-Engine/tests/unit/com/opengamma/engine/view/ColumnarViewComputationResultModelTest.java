@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import static com.opengamma.engine.view.ViewCalculationResultModelImplTest.COMPUTED_VALUE;
+import static com.opengamma.engine.view.ViewCalculationResultModelImplTest.PORTFOLIO;
+import static com.opengamma.engine.view.ViewCalculationResultModelImplTest.PORTFOLIO_ROOT_NODE;
+import static com.opengamma.engine.view.ViewCalculationResultModelImplTest.SPEC;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.client.ViewDeltaResultCalculator;
+
+/**
+ * Tests the {@link ColumnarViewComputationResultModel} class.
+ */
+@Test
+public class ColumnarViewComputationResultModelTest {
+
+  private static final ComputedValue SCALAR_VALUE = new ComputedValue(new ValueSpecification(new ValueRequirement("PV", SPEC), "mockFunctionId"), 42.5d);
+  private static final ComputationTargetSpecification PRIMITIVE = new ComputationTargetSpecification("Foo");
+  private static final ComputedValue PRIMITIVE_VALUE = new ComputedValue(new ValueSpecification(new ValueRequirement("PV", PRIMITIVE), "mockFunctionId"), 1.5d);
+
+  public void testInterface() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.setValuationTime(Instant.ofEpochMillis(400));
+    assertEquals(Instant.ofEpochMillis(400), model.getValuationTime());
+    model.setResultTimestamp(Instant.ofEpochMillis(500));
+    assertEquals(Instant.ofEpochMillis(500), model.getResultTimestamp());
+    final Set<String> calcConfigNames = Sets.newHashSet("configName1", "configName2");
+    model.setCalculationConfigurationNames(calcConfigNames);
+    assertEquals(calcConfigNames, model.getCalculationConfigurationNames());
+    model.setPortfolio(PORTFOLIO);
+    model.addValue("configName1", COMPUTED_VALUE);
+    model.addValue("configName1", SCALAR_VALUE);
+    model.addValue("configName2", PRIMITIVE_VALUE);
+    final ComputationTargetSpecification node = new ComputationTargetSpecification(PORTFOLIO_ROOT_NODE);
+    assertEquals(Sets.newHashSet(SPEC, node, PRIMITIVE), Sets.newHashSet(model.getAllTargets()));
+    final ViewCalculationResultModel calcResult1 = model.getCalculationResult("configName1");
+    assertNotNull(calcResult1);
+    final HashMap<String, ComputedValue> expectedMap = new HashMap<String, ComputedValue>();
+    expectedMap.put("DATA", COMPUTED_VALUE);
+    expectedMap.put("PV", SCALAR_VALUE);
+    assertEquals(expectedMap, calcResult1.getValues(SPEC));
+    assertEquals(Sets.newHashSet(COMPUTED_VALUE, SCALAR_VALUE), calcResult1.getAllValues(SPEC));
+    // Portfolio targets are reported by every configuration, others only where they have values
+    assertEquals(Sets.newHashSet(SPEC, node), calcResult1.getAllTargets());
+    assertTrue(calcResult1.getValues(node).isEmpty());
+    assertNull(calcResult1.getValues(PRIMITIVE));
+    final ViewCalculationResultModel calcResult2 = model.getCalculationResult("configName2");
+    assertEquals(Sets.newHashSet(SPEC, node, PRIMITIVE), calcResult2.getAllTargets());
+    assertEquals(Sets.newHashSet(PRIMITIVE_VALUE), calcResult2.getAllValues(PRIMITIVE));
+    assertNull(model.getCalculationResult("configName3"));
+    final ViewTargetResultModel targetResult = model.getTargetResult(PRIMITIVE);
+    assertEquals(Sets.newHashSet("configName2"), targetResult.getCalculationConfigurationNames());
+    assertEquals(Sets.newHashSet(PRIMITIVE_VALUE), targetResult.getAllValues("configName2"));
+    assertTrue(targetResult.getAllValues("configName1").isEmpty());
+    assertNull(targetResult.getAllValues("configName3"));
+    assertNull(model.getTargetResult(new ComputationTargetSpecification("nonexistent")));
+    assertEquals(3, model.getAllResults().size());
+    assertEquals(new ViewResultEntry("configName2", PRIMITIVE_VALUE), model.getAllResults().get(2));
+    assertEquals(Sets.newHashSet("DATA", "PV"), model.getAllOutputValueNames());
+  }
+
+  public void testColumns() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    for (int i = 0; i < 100; i++) {
+      model.addValue("Default", new ComputedValue(SCALAR_VALUE.getSpecification(), (double) i));
+    }
+    model.addValue("Default", COMPUTED_VALUE);
+    assertEquals(101, model.getRowCount());
+    assertEquals(1, model.getValuePropertiesCount());
+    assertEquals(2, model.getValueNameCount());
+    assertTrue(model.isScalar(99));
+    assertEquals(99d, model.getDoubleValue(99));
+    assertEquals(99d, model.getValue(99));
+    assertFalse(model.isScalar(100));
+    assertEquals("12345", model.getValue(100));
+    assertEquals(COMPUTED_VALUE, model.getComputedValue(100));
+    assertEquals(model.getTargetIndex(0), model.getTargetIndex(100));
+    // Rows for a value name added later replace earlier ones in the map view
+    assertEquals(99d, model.getCalculationResult("Default").getValues(SPEC).get("PV").getValue());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDoubleValueOfObject() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.addValue("Default", COMPUTED_VALUE);
+    model.getDoubleValue(0);
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testRowOutOfRange() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    model.addValue("Default", SCALAR_VALUE);
+    model.getValue(1);
+  }
+
+  public void testDelta() {
+    final ViewDefinition viewDefinition = new ViewDefinition("Test", "user");
+    viewDefinition.addViewCalculationConfiguration(new ViewCalculationConfiguration(viewDefinition, "Default"));
+    final ColumnarViewComputationResultModel previous = new ColumnarViewComputationResultModel();
+    previous.addValue("Default", SCALAR_VALUE);
+    previous.addValue("Default", PRIMITIVE_VALUE);
+    final ColumnarViewComputationResultModel result = new ColumnarViewComputationResultModel();
+    final ComputedValue changed = new ComputedValue(PRIMITIVE_VALUE.getSpecification(), 2.5d);
+    result.addValue("Default", COMPUTED_VALUE);
+    result.addValue("Default", changed);
+    result.addValue("Default", SCALAR_VALUE);
+    final Set<ComputedValue> delta = new HashSet<ComputedValue>();
+    for (ViewResultEntry entry : ViewDeltaResultCalculator.computeDeltaModel(viewDefinition, previous, result).getAllResults()) {
+      assertEquals("Default", entry.getCalculationConfiguration());
+      delta.add(entry.getComputedValue());
+    }
+    assertEquals(Sets.newHashSet(COMPUTED_VALUE, changed), delta);
+    assertEquals(3, ViewDeltaResultCalculator.computeDeltaModel(viewDefinition, null, result).getAllResults().size());
+  }
+
+  public void testDeltaDuplicateRows() {
+    final ViewDefinition viewDefinition = new ViewDefinition("Test", "user");
+    viewDefinition.addViewCalculationConfiguration(new ViewCalculationConfiguration(viewDefinition, "Default"));
+    final ColumnarViewComputationResultModel previous = new ColumnarViewComputationResultModel();
+    previous.addValue("Default", PRIMITIVE_VALUE);
+    final ColumnarViewComputationResultModel result = new ColumnarViewComputationResultModel();
+    final ComputedValue changed = new ComputedValue(PRIMITIVE_VALUE.getSpecification(), 2.5d);
+    result.addValue("Default", PRIMITIVE_VALUE);
+    result.addValue("Default", changed);
+    result.addValue("Default", SCALAR_VALUE);
+    result.addValue("Default", SCALAR_VALUE);
+    assertEquals(4, result.getRowCount());
+    // Only the last row for a value is compared, as in the maps
+    ViewDeltaResultModel delta = ViewDeltaResultCalculator.computeDeltaModel(viewDefinition, previous, result);
+    assertEquals(2, delta.getAllResults().size());
+    assertEquals(changed, delta.getCalculationResult("Default").getValues(PRIMITIVE).get("PV"));
+    delta = ViewDeltaResultCalculator.computeDeltaModel(viewDefinition, null, result);
+    assertEquals(2, delta.getAllResults().size());
+    previous.addValue("Default", changed);
+    previous.addValue("Default", SCALAR_VALUE);
+    assertTrue(ViewDeltaResultCalculator.computeDeltaModel(viewDefinition, previous, result).getAllResults().isEmpty());
+  }
+
+}
@@ -171,4 +171,29 @@ public class LiveDataDeltaCalculatorTest {
     assertEquals(_graph.getDependencyNodes(), _deltaCalculator.getChangedNodes());
   }
 
+  public void changeWithinTolerance() {
+    DeltaDefinition deltaDefinition = new DeltaDefinition();
+    deltaDefinition.setNumberComparer(new NumberDeltaComparer(2));
+    LiveDataDeltaCalculator deltaCalculator = new LiveDataDeltaCalculator(_graph, _cache, _previousCache, deltaDefinition);
+    put(_cache, _node1, 6.0);
+    put(_previousCache, _node1, 6.0001);
+    put(_cache, _node2, 6.0);
+    put(_previousCache, _node2, 6.1);
+        
+    deltaCalculator.computeDelta();
+    
+    assertEquals(Sets.newHashSet(_node1, _node3), deltaCalculator.getUnchangedNodes());
+    assertEquals(Sets.newHashSet(_node0, _node2), deltaCalculator.getChangedNodes());
+    assertEquals(2, deltaCalculator.getChangedNodeCount());
+  }
+
+  public void missingValue() {
+    put(_previousCache, _node3, 6.0);
+        
+    _deltaCalculator.computeDelta();
+    
+    assertEquals(Collections.emptySet(), _deltaCalculator.getUnchangedNodes());
+    assertEquals(_graph.getDependencyNodes(), _deltaCalculator.getChangedNodes());
+  }
+
 }
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+
+/**
+ * Tests the {@link BinaryDataStoreServer} and {@link BinaryDataStoreClient} classes over a socket.
+ */
+@Test
+public class BinaryDataStoreServerTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(BinaryDataStoreServerTest.class);
+  private static final FudgeContext s_fudgeContext = OpenGammaFudgeContext.getInstance();
+  private static final ViewComputationCacheKey CACHE_KEY = new ViewComputationCacheKey(UniqueIdentifier.of("Test", "ViewProcess"), "Default", 1L);
+
+  private DefaultViewComputationCacheSource _cacheSource;
+  private BinaryDataStoreServer _server;
+  private BinaryDataStoreClient _client;
+
+  @BeforeMethod
+  public void startServer() throws Exception {
+    _cacheSource = new DefaultViewComputationCacheSource(new LockFreeIdentifierMap(), s_fudgeContext, new DefaultFudgeMessageStoreFactory(new InMemoryBinaryDataStoreFactory(),
+        s_fudgeContext), new DefaultFudgeMessageStoreFactory(new OffHeapBinaryDataStoreFactory(4096, null), s_fudgeContext));
+    _server = new BinaryDataStoreServer(new FudgeMessageStoreServer(_cacheSource));
+    _server.setEventLoops(2);
+    _server.start();
+    _client = new BinaryDataStoreClient(new InetSocketAddress(InetAddress.getLocalHost(), _server.getPortNumber()));
+  }
+
+  @AfterMethod
+  public void stopServer() {
+    if (_client != null) {
+      _client.close();
+      _client = null;
+    }
+    if (_server != null) {
+      _server.stop();
+      _server = null;
+    }
+  }
+
+  private static FudgeMsg createValue(final int value, final int size) {
+    final MutableFudgeMsg message = s_fudgeContext.newMessage();
+    message.add("value", value);
+    message.add("padding", new byte[size]);
+    return message;
+  }
+
+  private static void assertValue(final int value, final FudgeMsg message) {
+    assertNotNull(message);
+    assertEquals(value, message.getInt("value").intValue());
+  }
+
+  public void testGetPutDelete() {
+    final FudgeMessageStore store = new RemoteBinaryFudgeMessageStoreFactory(_client, s_fudgeContext).createMessageStore(CACHE_KEY);
+    assertNull(store.get(1L));
+    store.put(1L, createValue(1, 10));
+    assertValue(1, store.get(1L));
+    assertValue(1, _cacheSource.getCache(CACHE_KEY).getSharedDataStore().get(1L));
+    final Map<Long, FudgeMsg> values = new HashMap<Long, FudgeMsg>();
+    final List<Long> identifiers = new ArrayList<Long>();
+    for (int i = 2; i < 1000; i++) {
+      // Some values larger than the server's slabs and read buffer
+      values.put((long) i, createValue(i, (i % 100 == 0) ? 100000 : i));
+      identifiers.add((long) i);
+    }
+    store.put(values);
+    identifiers.add(1000L);
+    final Map<Long, FudgeMsg> result = store.get(identifiers);
+    assertEquals(values.size(), result.size());
+    for (Map.Entry<Long, FudgeMsg> value : result.entrySet()) {
+      assertValue(value.getKey().intValue(), value.getValue());
+    }
+    assertFalse(result.containsKey(1000L));
+    store.delete();
+    assertNull(store.get(1L));
+  }
+
+  public void testPipelinedRequests() throws Exception {
+    final FudgeMessageStore store = new RemoteBinaryFudgeMessageStoreFactory(_client, s_fudgeContext).createMessageStore(CACHE_KEY);
+    final AtomicBoolean failed = new AtomicBoolean();
+    final List<Thread> threads = new ArrayList<Thread>();
+    final long start = System.nanoTime();
+    for (int t = 0; t < 8; t++) {
+      final int base = t * 1000;
+      final Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < 250; i++) {
+              store.put(base + i, createValue(base + i, 100));
+              assertValue(base + i, store.get(base + i));
+            }
+          } catch (Throwable e) {
+            s_logger.error("Failed", e);
+            failed.set(true);
+          }
+        }
+      };
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    s_logger.info("2000 put/get pairs from 8 threads in {}ms", (System.nanoTime() - start) / 1000000);
+    assertFalse(failed.get());
+  }
+
+  public void testSecondClient() throws Exception {
+    final BinaryDataStoreClient other = new BinaryDataStoreClient(new InetSocketAddress(InetAddress.getLocalHost(), _server.getPortNumber()));
+    try {
+      new RemoteBinaryFudgeMessageStore(_client, s_fudgeContext, CACHE_KEY).put(42L, createValue(42, 0));
+      assertValue(42, new RemoteBinaryFudgeMessageStore(other, s_fudgeContext, CACHE_KEY).get(42L));
+    } finally {
+      other.close();
+    }
+  }
+
+  public void testBrokenConnection() {
+    _server.stop();
+    _server = null;
+    try {
+      new RemoteBinaryFudgeMessageStore(_client, s_fudgeContext, CACHE_KEY).get(1L);
+      assertTrue("Expected failure", false);
+    } catch (RuntimeException e) {
+      // Expected
+    }
+  }
+
+}
@@ -93,4 +93,42 @@ public class CachingValueSpecificationIdentifierSourceTest {
     
   }
 
+  @Test
+  public void arrayLookup() {
+    final AtomicBoolean shouldFail = new AtomicBoolean(false);
+    final ValueSpecification[] valueSpec = new ValueSpecification[4];
+    for (int i = 0; i < valueSpec.length; i++) {
+      valueSpec[i] = new ValueSpecification(new ValueRequirement("value" + i, new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueIdentifier.of("scheme", "fibble"))), "mockFunctionId");
+    }
+    IdentifierMap underlying = new AbstractIdentifierMap() {
+
+      @Override
+      public long getIdentifier(ValueSpecification spec) {
+        if (shouldFail.get()) {
+          AssertJUnit.fail("Should not have called underlying.");
+        }
+        return Arrays.asList(valueSpec).indexOf(spec) + 10L;
+      }
+
+      @Override
+      public ValueSpecification getValueSpecification(long identifier) {
+        return valueSpec[(int) identifier - 10];
+      }
+
+    };
+    CachingIdentifierMap cachingSource = new CachingIdentifierMap(underlying);
+    assertEquals(11L, cachingSource.getIdentifier(valueSpec[1]));
+    long[] identifiers = new long[4];
+    cachingSource.getIdentifiers(Arrays.asList(valueSpec), identifiers);
+    for (int i = 0; i < valueSpec.length; i++) {
+      assertEquals(i + 10L, identifiers[i]);
+    }
+    shouldFail.set(true);
+    identifiers = new long[3];
+    cachingSource.getIdentifiers(Arrays.asList(valueSpec[3], valueSpec[0], valueSpec[2]), identifiers);
+    assertEquals(13L, identifiers[0]);
+    assertEquals(10L, identifiers[1]);
+    assertEquals(12L, identifiers[2]);
+  }
+
 }
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.fudgemsg.FudgeContext;
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Tests the {@link DeserializedValueCache} class and its use from {@link DefaultViewComputationCache}.
+ */
+@Test
+public class DeserializedValueCacheTest {
+
+  public void testEviction() {
+    final DeserializedValueCache.Statistics statistics = new DeserializedValueCache.Statistics();
+    final DeserializedValueCache cache = new DeserializedValueCache(100, statistics);
+    cache.put(1L, "1", 40);
+    cache.put(2L, "2", 40);
+    assertEquals("1", cache.get(1L));
+    // 2 is now the least recently used
+    cache.put(3L, "3", 40);
+    assertNull(cache.get(2L));
+    assertEquals("1", cache.get(1L));
+    assertEquals("3", cache.get(3L));
+    assertEquals(80, cache.getSize());
+    // Too big to hold
+    cache.put(4L, "4", 200);
+    assertNull(cache.get(4L));
+    cache.remove(1L);
+    assertEquals(40, cache.getSize());
+    assertEquals(3, statistics.getHits());
+    assertEquals(2, statistics.getMisses());
+    assertEquals(1, statistics.getEvictions());
+    statistics.reset();
+    assertEquals(0, statistics.getHits());
+  }
+
+  private DefaultViewComputationCache createViewComputationCache(final DeserializedValueCache valueCache) {
+    final FudgeMessageStore privateDataStore = new DefaultFudgeMessageStore(new InMemoryBinaryDataStore(), FudgeContext.GLOBAL_DEFAULT);
+    final FudgeMessageStore sharedDataStore = new DefaultFudgeMessageStore(new InMemoryBinaryDataStore(), FudgeContext.GLOBAL_DEFAULT);
+    final DefaultViewComputationCache cache = new DefaultViewComputationCache(new InMemoryIdentifierMap(), privateDataStore, sharedDataStore, FudgeContext.GLOBAL_DEFAULT);
+    cache.setDeserializedValueCache(valueCache);
+    return cache;
+  }
+
+  public void testSharedValuesReused() {
+    final DeserializedValueCache.Statistics statistics = new DeserializedValueCache.Statistics();
+    final DefaultViewComputationCache cache = createViewComputationCache(new DeserializedValueCache(1024, statistics));
+    final ValueSpecification sharedSpec = new ValueSpecification(new ValueRequirement("shared", new ComputationTargetSpecification(null)), "mockFunctionId");
+    final ValueSpecification privateSpec = new ValueSpecification(new ValueRequirement("private", new ComputationTargetSpecification(null)), "mockFunctionId");
+    cache.putSharedValue(new ComputedValue(sharedSpec, "Shared"));
+    cache.putPrivateValue(new ComputedValue(privateSpec, "Private"));
+    final Object shared = cache.getValue(sharedSpec);
+    assertEquals("Shared", shared);
+    assertSame(shared, cache.getValue(sharedSpec));
+    assertSame(shared, cache.getValue(sharedSpec, CacheSelectHint.allShared()));
+    final Collection<Pair<ValueSpecification, Object>> values = cache.getValues(Arrays.asList(sharedSpec, privateSpec));
+    assertEquals(2, values.size());
+    for (Pair<ValueSpecification, Object> value : values) {
+      if (value.getFirst().equals(sharedSpec)) {
+        assertSame(shared, value.getSecond());
+      } else {
+        assertEquals("Private", value.getSecond());
+      }
+    }
+    // Private values are not held
+    assertEquals("Private", cache.getValue(privateSpec));
+    // Writing a new value discards the old one
+    cache.putSharedValue(new ComputedValue(sharedSpec, "Replaced"));
+    assertEquals("Replaced", cache.getValue(sharedSpec));
+    assertEquals(3, statistics.getHits());
+    cache.delete();
+    assertEquals(0, cache.getDeserializedValueCache().getSize());
+  }
+
+  public void testCacheSourceConfiguration() {
+    final InMemoryViewComputationCacheSource source = new InMemoryViewComputationCacheSource(FudgeContext.GLOBAL_DEFAULT);
+    assertNull(source.getCache(new ViewComputationCacheKey(UniqueIdentifier.of("Test", "ViewProcess"), "Default", 1L)).getDeserializedValueCache());
+    source.setDeserializedValueCacheSize(1024);
+    final DeserializedValueCache valueCache = source.getCache(new ViewComputationCacheKey(UniqueIdentifier.of("Test", "ViewProcess"), "Default", 2L)).getDeserializedValueCache();
+    assertEquals(1024, valueCache.getMaximumSize());
+    assertSame(source.getDeserializedValueCacheStatistics(), valueCache.getStatistics());
+  }
+
+}
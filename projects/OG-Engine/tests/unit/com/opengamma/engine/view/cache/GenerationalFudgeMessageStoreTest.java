@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeMsg;
+import org.fudgemsg.MutableFudgeMsg;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link GenerationalFudgeMessageStore} class.
+ */
+@Test
+public class GenerationalFudgeMessageStoreTest {
+
+  private static class DeleteTrackingStore extends DefaultFudgeMessageStore {
+
+    private boolean _deleted;
+
+    public DeleteTrackingStore() {
+      super(new InMemoryBinaryDataStore(), FudgeContext.GLOBAL_DEFAULT);
+    }
+
+    @Override
+    public void delete() {
+      assertFalse(_deleted);
+      _deleted = true;
+      super.delete();
+    }
+
+  }
+
+  private static FudgeMsg message(final int value) {
+    final MutableFudgeMsg message = FudgeContext.GLOBAL_DEFAULT.newMessage();
+    message.add("value", value);
+    return message;
+  }
+
+  private static int value(final FudgeMsg message) {
+    return message.getInt("value");
+  }
+
+  public void testInheritAndCopyOnWrite() {
+    final DeleteTrackingStore store1 = new DeleteTrackingStore();
+    final GenerationalFudgeMessageStore generation1 = new GenerationalFudgeMessageStore(store1, 4);
+    generation1.put(1L, message(1));
+    generation1.put(2L, message(2));
+    final DeleteTrackingStore store2 = new DeleteTrackingStore();
+    final GenerationalFudgeMessageStore generation2 = new GenerationalFudgeMessageStore(store2, 4);
+    generation2.put(3L, message(30));
+    generation2.inherit(generation1, Arrays.asList(1L, 2L));
+    assertEquals(2, generation2.getInheritedCount());
+    assertSame(store1, generation2.getStore(1L));
+    assertEquals(1, value(generation2.get(1L)));
+    final Map<Long, FudgeMsg> values = generation2.get(Arrays.asList(1L, 2L, 3L));
+    assertEquals(3, values.size());
+    assertEquals(2, value(values.get(2L)));
+    assertEquals(30, value(values.get(3L)));
+    // Writing an inherited value leaves the previous generation alone
+    generation2.put(2L, message(20));
+    assertEquals(1, generation2.getInheritedCount());
+    assertEquals(20, value(generation2.get(2L)));
+    assertEquals(2, value(generation1.get(2L)));
+    assertNull(store2.get(1L));
+  }
+
+  public void testLifetime() {
+    final DeleteTrackingStore store1 = new DeleteTrackingStore();
+    final GenerationalFudgeMessageStore generation1 = new GenerationalFudgeMessageStore(store1, 4);
+    generation1.put(1L, message(1));
+    final DeleteTrackingStore store2 = new DeleteTrackingStore();
+    final GenerationalFudgeMessageStore generation2 = new GenerationalFudgeMessageStore(store2, 4);
+    generation2.inherit(generation1, Arrays.asList(1L));
+    final DeleteTrackingStore store3 = new DeleteTrackingStore();
+    final GenerationalFudgeMessageStore generation3 = new GenerationalFudgeMessageStore(store3, 4);
+    generation3.inherit(generation2, Arrays.asList(1L));
+    // Inheriting an inherited value refers to the generation holding it, not the intermediate one
+    assertSame(store1, generation3.getStore(1L));
+    generation1.delete();
+    assertFalse(store1._deleted);
+    generation2.delete();
+    assertTrue(store2._deleted);
+    assertFalse(store1._deleted);
+    assertEquals(1, value(generation3.get(1L)));
+    generation3.delete();
+    assertTrue(store1._deleted);
+    assertTrue(store3._deleted);
+  }
+
+  public void testMaximumGenerations() {
+    GenerationalFudgeMessageStore previous = new GenerationalFudgeMessageStore(new DeleteTrackingStore(), 2);
+    previous.put(1L, message(1));
+    final DeleteTrackingStore store1 = (DeleteTrackingStore) previous.getUnderlying();
+    for (int i = 0; i < 3; i++) {
+      final GenerationalFudgeMessageStore next = new GenerationalFudgeMessageStore(new DeleteTrackingStore(), 2);
+      next.inherit(previous, Arrays.asList(1L));
+      previous.delete();
+      previous = next;
+    }
+    // The third generation on copies the value rather than keeping the first store alive
+    assertEquals(0, previous.getInheritedCount());
+    assertEquals(1, value(previous.getUnderlying().get(1L)));
+    assertTrue(store1._deleted);
+    previous.delete();
+  }
+
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueIdentifier;
+
+/**
+ * Tests the {@link LockFreeIdentifierMap} class.
+ */
+@Test
+public class LockFreeIdentifierMapTest {
+
+  private static ValueSpecification createSpecification(final int i) {
+    return new ValueSpecification(new ValueRequirement("value" + i, new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueIdentifier.of("scheme", "fibble"))),
+        "mockFunctionId");
+  }
+
+  public void testSingleLookups() {
+    final LockFreeIdentifierMap map = new LockFreeIdentifierMap(1);
+    final Set<Long> identifiers = new HashSet<Long>();
+    for (int i = 0; i < 10000; i++) {
+      final long identifier = map.getIdentifier(createSpecification(i));
+      assertTrue(identifiers.add(identifier));
+    }
+    for (int i = 0; i < 10000; i++) {
+      final ValueSpecification specification = createSpecification(i);
+      final long identifier = map.getIdentifier(specification);
+      assertEquals(specification, map.getValueSpecification(identifier));
+    }
+    assertEquals(10000, identifiers.size());
+    assertNull(map.getValueSpecification(0L));
+    assertNull(map.getValueSpecification(Long.MAX_VALUE));
+  }
+
+  public void testBulkLookups() {
+    final LockFreeIdentifierMap map = new LockFreeIdentifierMap();
+    final List<ValueSpecification> specifications = new ArrayList<ValueSpecification>();
+    for (int i = 0; i < 5000; i++) {
+      specifications.add(createSpecification(i));
+    }
+    // Allocate half individually so the bulk call has a mix of hits and misses
+    for (int i = 0; i < 5000; i += 2) {
+      map.getIdentifier(specifications.get(i));
+    }
+    final long[] identifiers = new long[specifications.size()];
+    map.getIdentifiers(specifications, identifiers);
+    for (int i = 0; i < identifiers.length; i++) {
+      assertEquals(map.getIdentifier(specifications.get(i)), identifiers[i]);
+    }
+    final Map<ValueSpecification, Long> identifierMap = map.getIdentifiers(specifications);
+    assertEquals(specifications.size(), identifierMap.size());
+    for (int i = 0; i < identifiers.length; i++) {
+      assertEquals((Long) identifiers[i], identifierMap.get(specifications.get(i)));
+    }
+  }
+
+  public void testConcurrentAllocation() throws InterruptedException {
+    final LockFreeIdentifierMap map = new LockFreeIdentifierMap();
+    final int numThreads = 4;
+    final int numSpecifications = 20000;
+    final long[][] results = new long[numThreads][numSpecifications];
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    final Thread[] threads = new Thread[numThreads];
+    for (int t = 0; t < numThreads; t++) {
+      final long[] result = results[t];
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            for (int i = 0; i < numSpecifications; i++) {
+              result[i] = map.getIdentifier(createSpecification(i));
+            }
+          } catch (Throwable e) {
+            failure.set(e);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertNull(failure.get());
+    for (int i = 0; i < numSpecifications; i++) {
+      for (int t = 1; t < numThreads; t++) {
+        assertEquals(results[0][i], results[t][i]);
+      }
+      assertEquals(createSpecification(i), map.getValueSpecification(results[0][i]));
+    }
+  }
+
+}
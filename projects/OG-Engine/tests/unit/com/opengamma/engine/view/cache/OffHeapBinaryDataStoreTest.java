@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.monitor.OperationTimer;
+import com.sleepycat.je.Environment;
+
+/**
+ * Tests the {@link OffHeapBinaryDataStore} class.
+ */
+@Test
+public class OffHeapBinaryDataStoreTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(OffHeapBinaryDataStoreTest.class);
+
+  private File _tempDir;
+
+  @BeforeClass
+  public void createTempDir() {
+    _tempDir = new File(new File(System.getProperty("java.io.tmpdir")), "OffHeapBinaryDataStore-" + System.currentTimeMillis());
+    _tempDir.mkdirs();
+  }
+
+  @AfterClass
+  public void deleteTempDir() {
+    try {
+      FileUtils.deleteDirectory(_tempDir);
+    } catch (IOException e) {
+      s_logger.warn("Unable to recursively delete directory {}", _tempDir);
+    }
+  }
+
+  private void assertStoreBehaviour(final BinaryDataStore store) {
+    final Random random = new Random(1L);
+    final Map<Long, byte[]> expected = new HashMap<Long, byte[]>();
+    for (long i = 0; i < 1000; i++) {
+      // Some values are deliberately larger than the slab size
+      final byte[] data = new byte[random.nextInt(3000)];
+      random.nextBytes(data);
+      expected.put(i, data);
+      if (i % 2 == 0) {
+        store.put(i, data);
+      }
+    }
+    final Map<Long, byte[]> bulk = new HashMap<Long, byte[]>();
+    for (long i = 1; i < 1000; i += 2) {
+      bulk.put(i, expected.get(i));
+    }
+    store.put(bulk);
+    for (long i = 0; i < 1000; i++) {
+      assertTrue(Arrays.equals(expected.get(i), store.get(i)));
+    }
+    assertNull(store.get(1000L));
+    final List<Long> identifiers = new ArrayList<Long>(expected.keySet());
+    identifiers.add(1000L);
+    final Map<Long, byte[]> result = store.get(identifiers);
+    assertEquals(expected.size(), result.size());
+    for (Map.Entry<Long, byte[]> entry : expected.entrySet()) {
+      assertTrue(Arrays.equals(entry.getValue(), result.get(entry.getKey())));
+    }
+    // Overwrite
+    final byte[] replacement = new byte[] {1, 2, 3 };
+    store.put(42L, replacement);
+    assertTrue(Arrays.equals(replacement, store.get(42L)));
+    store.delete();
+    assertNull(store.get(0L));
+  }
+
+  public void testDirectBuffers() {
+    assertStoreBehaviour(new OffHeapBinaryDataStore(2048, null));
+  }
+
+  public void testMappedFiles() {
+    assertStoreBehaviour(new OffHeapBinaryDataStore(2048, _tempDir));
+  }
+
+  public void testBufferViews() {
+    final OffHeapBinaryDataStore store = new OffHeapBinaryDataStore(2048, null);
+    final byte[] data = new byte[] {1, 2, 3, 4 };
+    store.put(1L, data);
+    store.put(2L, new byte[] {5, 6 });
+    assertNull(store.getBuffer(3L));
+    final ByteBuffer buffer = store.getBuffer(1L);
+    assertTrue(buffer.isReadOnly());
+    assertEquals(data.length, buffer.remaining());
+    final byte[] copy = new byte[buffer.remaining()];
+    buffer.get(copy);
+    assertTrue(Arrays.equals(data, copy));
+    // The view survives the store being cleared
+    final ByteBuffer other = store.getBuffer(2L);
+    store.delete();
+    assertEquals(6, other.get(1));
+  }
+
+  public void testFactory() {
+    final OffHeapBinaryDataStoreFactory factory = new OffHeapBinaryDataStoreFactory(4096, _tempDir);
+    final BinaryDataStore store = factory.createDataStore(null);
+    assertTrue(store instanceof OffHeapBinaryDataStore);
+    assertEquals(4096, ((OffHeapBinaryDataStore) store).getSlabSize());
+    assertEquals(_tempDir, ((OffHeapBinaryDataStore) store).getMappedFileDirectory());
+  }
+
+  private void timeStore(final String name, final BinaryDataStore store, final Map<Long, byte[]> data) {
+    OperationTimer timer = new OperationTimer(s_logger, "{} - writing {} entries", name, data.size());
+    store.put(data);
+    timer.finished();
+    timer = new OperationTimer(s_logger, "{} - reading {} entries", name, data.size());
+    final Map<Long, byte[]> result = store.get(data.keySet());
+    timer.finished();
+    assertEquals(data.size(), result.size());
+    store.delete();
+  }
+
+  /**
+   * Compares bulk put/get throughput against the other store implementations. The entry count is
+   * kept small for the unit test run; raise it for a representative comparison.
+   */
+  public void comparativePerformanceTest() {
+    final int numEntries = 10000;
+    final Random random = new Random();
+    final Map<Long, byte[]> data = new HashMap<Long, byte[]>();
+    for (long i = 0; i < numEntries; i++) {
+      final byte[] bytes = new byte[50 + random.nextInt(200)];
+      random.nextBytes(bytes);
+      data.put(i, bytes);
+    }
+    timeStore("InMemory", new InMemoryBinaryDataStore(), data);
+    timeStore("OffHeap direct", new OffHeapBinaryDataStore(), data);
+    timeStore("OffHeap mapped", new OffHeapBinaryDataStore(OffHeapBinaryDataStore.DEFAULT_SLAB_SIZE, _tempDir), data);
+    final File dbDir = new File(_tempDir, "BerkeleyDB");
+    dbDir.mkdirs();
+    final Environment dbEnvironment = BerkeleyDBViewComputationCacheSource.constructDatabaseEnvironment(dbDir, false);
+    final BerkeleyDBBinaryDataStore berkeleyStore = new BerkeleyDBBinaryDataStore(dbEnvironment, "comparativePerformanceTest");
+    berkeleyStore.start();
+    timeStore("BerkeleyDB", berkeleyStore, data);
+    dbEnvironment.close();
+  }
+
+}
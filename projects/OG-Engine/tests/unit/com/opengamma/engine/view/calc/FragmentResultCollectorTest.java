@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.ResultModelDefinition;
+import com.opengamma.engine.view.ResultOutputMode;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.cache.InMemoryViewComputationCacheSource;
+import com.opengamma.engine.view.cache.ViewComputationCache;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Tests FragmentResultCollector
+ */
+@Test
+public class FragmentResultCollectorTest {
+
+  private static final long TIMEOUT = Timeout.standardTimeoutMillis();
+  private static final String CALC_CONFIG = "Default";
+  private static final long NEVER_MILLIS = 3600000;
+
+  private static final Executor SAME_THREAD = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private final List<DependencyNode> _nodes = new ArrayList<DependencyNode>();
+  private ColumnarViewComputationResultModel _resultModel;
+  private ViewComputationCache _cache;
+
+  private SingleComputationCycle createCycle(int nodeCount) {
+    _nodes.clear();
+    final DependencyGraph graph = new DependencyGraph(CALC_CONFIG);
+    final InMemoryViewComputationCacheSource cacheSource = new InMemoryViewComputationCacheSource(OpenGammaFudgeContext.getInstance());
+    final UniqueIdentifier viewProcessId = UniqueIdentifier.of("Test", "ViewProcess");
+    _cache = cacheSource.getCache(viewProcessId, CALC_CONFIG, 0);
+    for (int i = 0; i < nodeCount; i++) {
+      final ComputationTarget target = new ComputationTarget(ComputationTargetType.PRIMITIVE, UniqueIdentifier.of("Test", Integer.toString(i)));
+      final DependencyNode node = new DependencyNode(target);
+      final ValueSpecification specification = new ValueSpecification("Value", new ComputationTargetSpecification(target),
+          ValueProperties.with(ValuePropertyNames.FUNCTION, "Fn").get());
+      node.addOutputValue(specification);
+      graph.addDependencyNode(node);
+      _cache.putSharedValue(new ComputedValue(specification, (double) i));
+      _nodes.add(node);
+    }
+    final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition = mock(CompiledViewDefinitionWithGraphsImpl.class);
+    when(compiledViewDefinition.getDependencyGraph(CALC_CONFIG)).thenReturn(graph);
+    _resultModel = new ColumnarViewComputationResultModel();
+    final SingleComputationCycle cycle = mock(SingleComputationCycle.class);
+    when(cycle.getViewDefinition()).thenReturn(new ViewDefinition("Test", UserPrincipal.getTestUser(), new ResultModelDefinition(ResultOutputMode.ALL)));
+    when(cycle.getAllCalculationConfigurationNames()).thenReturn(Collections.singleton(CALC_CONFIG));
+    when(cycle.getCompiledViewDefinition()).thenReturn(compiledViewDefinition);
+    when(cycle.getCachesByCalculationConfiguration()).thenReturn(Collections.singletonMap(CALC_CONFIG, _cache));
+    when(cycle.getResultModel()).thenReturn(_resultModel);
+    when(cycle.getUniqueId()).thenReturn(UniqueIdentifier.of("Test", "Cycle"));
+    when(cycle.getViewProcessId()).thenReturn(viewProcessId);
+    when(cycle.getValuationTime()).thenReturn(Instant.now());
+    return cycle;
+  }
+
+  private ValueSpecification getOutput(int node) {
+    return _nodes.get(node).getOutputValues().iterator().next();
+  }
+
+  //-------------------------------------------------------------------------
+  public void publishOnBatchSize() {
+    final SingleComputationCycle cycle = createCycle(5);
+    final QueueingReceiver receiver = new QueueingReceiver();
+    final FragmentResultCollector collector = new FragmentResultCollector(cycle, receiver, SAME_THREAD, 2, NEVER_MILLIS);
+    collector.start();
+    collector.nodeExecuted(_nodes.get(0));
+    assertTrue(receiver.getFragments().isEmpty());
+    collector.nodeExecuted(_nodes.get(1));
+    assertEquals(1, receiver.getFragments().size());
+    assertEquals(2, receiver.getFragments().poll().getAllResults().size());
+    collector.nodeExecuted(_nodes.get(2));
+    assertTrue(receiver.getFragments().isEmpty());
+    assertEquals(2, collector.getPublished(CALC_CONFIG).size());
+    assertTrue(collector.getPublished(CALC_CONFIG).contains(getOutput(0)));
+    assertTrue(collector.getPublished(CALC_CONFIG).contains(getOutput(1)));
+    assertEquals(2, _resultModel.getRowCount());
+    collector.close();
+  }
+
+  public void publishOnBatchPeriod() throws InterruptedException {
+    final SingleComputationCycle cycle = createCycle(2);
+    final QueueingReceiver receiver = new QueueingReceiver();
+    FragmentResultCollector collector = new FragmentResultCollector(cycle, receiver, SAME_THREAD, 100, NEVER_MILLIS);
+    collector.start();
+    collector.nodeExecuted(_nodes.get(0));
+    collector.publishIfDue();
+    assertTrue(receiver.getFragments().isEmpty());
+    collector.close();
+
+    collector = new FragmentResultCollector(cycle, receiver, SAME_THREAD, 100, 10);
+    collector.start();
+    collector.nodeExecuted(_nodes.get(0));
+    Thread.sleep(50);
+    collector.publishIfDue();
+    assertEquals(1, receiver.getFragments().size());
+    final ViewComputationResultModel fragment = receiver.getFragments().poll();
+    assertEquals(1, fragment.getAllResults().size());
+    assertEquals(getOutput(0), fragment.getAllResults().get(0).getComputedValue().getSpecification());
+    collector.publishIfDue();
+    assertTrue(receiver.getFragments().isEmpty());
+    collector.close();
+  }
+
+  public void closeWaitsForDelivery() throws InterruptedException {
+    final SingleComputationCycle cycle = createCycle(1);
+    final CountDownLatch delivering = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final FragmentResultReceiver receiver = new FragmentResultReceiver() {
+      @Override
+      public void fragmentResultReceived(ViewComputationResultModel fragmentResult) {
+        delivering.countDown();
+        try {
+          release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final FragmentResultCollector collector = new FragmentResultCollector(cycle, receiver, executor, 1, NEVER_MILLIS);
+      collector.start();
+      collector.nodeExecuted(_nodes.get(0));
+      assertTrue(delivering.await(TIMEOUT, TimeUnit.MILLISECONDS));
+      final AtomicBoolean closed = new AtomicBoolean();
+      final Thread closer = new Thread() {
+        @Override
+        public void run() {
+          collector.close();
+          closed.set(true);
+        }
+      };
+      closer.start();
+      closer.join(100);
+      assertFalse(closed.get());
+      release.countDown();
+      closer.join(TIMEOUT);
+      assertTrue(closed.get());
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+
+  public void unpublishedExcludesPublished() {
+    final SingleComputationCycle cycle = createCycle(3);
+    final QueueingReceiver receiver = new QueueingReceiver();
+    final FragmentResultCollector collector = new FragmentResultCollector(cycle, receiver, SAME_THREAD, 1, NEVER_MILLIS);
+    final List<ValueSpecification> outputs = new ArrayList<ValueSpecification>();
+    for (int i = 0; i < _nodes.size(); i++) {
+      outputs.add(getOutput(i));
+    }
+    assertEquals(outputs, collector.getUnpublished(CALC_CONFIG, outputs));
+    collector.start();
+    collector.nodeExecuted(_nodes.get(1));
+    collector.close();
+    assertEquals(1, _resultModel.getRowCount());
+    final Collection<ValueSpecification> unpublished = collector.getUnpublished(CALC_CONFIG, outputs);
+    assertEquals(2, unpublished.size());
+    assertTrue(unpublished.contains(getOutput(0)));
+    assertFalse(unpublished.contains(getOutput(1)));
+    assertTrue(unpublished.contains(getOutput(2)));
+    assertEquals(getOutput(1), receiver.getFragments().poll().getAllResults().get(0).getComputedValue().getSpecification());
+    // Values executed after closing are left for the cycle to read
+    collector.nodeExecuted(_nodes.get(2));
+    assertNull(receiver.getFragments().poll());
+    assertEquals(2, collector.getUnpublished(CALC_CONFIG, outputs).size());
+  }
+
+  //-------------------------------------------------------------------------
+  private static class QueueingReceiver implements FragmentResultReceiver {
+
+    private final BlockingQueue<ViewComputationResultModel> _fragments = new LinkedBlockingQueue<ViewComputationResultModel>();
+
+    @Override
+    public void fragmentResultReceived(ViewComputationResultModel fragmentResult) {
+      _fragments.add(fragmentResult);
+    }
+
+    public BlockingQueue<ViewComputationResultModel> getFragments() {
+      return _fragments;
+    }
+
+  }
+
+}
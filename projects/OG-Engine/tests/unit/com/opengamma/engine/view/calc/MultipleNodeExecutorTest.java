@@ -7,13 +7,27 @@ package com.opengamma.engine.view.calc;
 
 import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
@@ -30,12 +44,16 @@ import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.cache.CacheSelectHint;
 import com.opengamma.engine.view.calc.stats.DiscardingGraphStatisticsGathererProvider;
 import com.opengamma.engine.view.calcnode.CalculationJob;
+import com.opengamma.engine.view.calcnode.CalculationJobItem;
+import com.opengamma.engine.view.calcnode.CalculationJobResult;
+import com.opengamma.engine.view.calcnode.CalculationJobResultItem;
 import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
 import com.opengamma.engine.view.calcnode.JobResultReceiver;
 import com.opengamma.engine.view.calcnode.stats.FunctionCosts;
 import com.opengamma.id.UniqueIdentifier;
 import com.opengamma.util.Cancellable;
 import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.test.Timeout;
 
 /**
  * Tests the graph partitioning logic in MultipleNodeExecutor.
@@ -522,4 +540,157 @@ public class MultipleNodeExecutorTest {
     assertEquals(7, mask);
   }
 
+  private Set<Set<Object>> extractColourTargets(final GraphFragment fragment) {
+    final Map<Integer, Collection<DependencyNode>> colours = new HashMap<Integer, Collection<DependencyNode>>();
+    extractColours(fragment, colours);
+    final Set<Set<Object>> targets = new HashSet<Set<Object>>();
+    for (Collection<DependencyNode> nodes : colours.values()) {
+      final Set<Object> colour = new HashSet<Object>();
+      for (DependencyNode node : nodes) {
+        colour.add(node.getComputationTarget().getValue());
+      }
+      targets.add(colour);
+    }
+    return targets;
+  }
+
+  private Set<List<Object>> extractFragmentTargets(final GraphFragment fragment, final Set<List<Object>> targets) {
+    final List<Object> nodes = new ArrayList<Object>();
+    for (DependencyNode node : fragment.getNodes()) {
+      nodes.add(node.getComputationTarget().getValue());
+    }
+    targets.add(nodes);
+    for (GraphFragment input : fragment.getInputFragments()) {
+      extractFragmentTargets(input, targets);
+    }
+    return targets;
+  }
+
+  private CachedExecutionPlan serializeAndDeserialize(final CachedExecutionPlan plan) throws Exception {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(plan);
+    out.close();
+    final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    return (CachedExecutionPlan) in.readObject();
+  }
+
+  /**
+   * Plan restored against a structurally identical graph, e.g. one compiled after a restart.
+   */
+  public void testRestoreCachedPlan() throws Exception {
+    final MultipleNodeExecutor executor = createExecutor(2, 2, 1);
+    final RootGraphFragment root = executor.createExecutionPlan(_testGraph, DiscardingGraphStatisticsGathererProvider.GATHERER_INSTANCE);
+    final CachedExecutionPlan cached = serializeAndDeserialize(CachedExecutionPlan.of(root, new GraphFingerprint(_testGraph)));
+    assertTrue(cached.getPlan() == null);
+    assertTrue(cached.isCompatible(executor));
+    assertFalse(cached.isCompatible(createExecutor(2, 2, 2)));
+    final DependencyGraph original = _testGraph;
+    createGraph();
+    final GraphFingerprint fingerprint = new GraphFingerprint(_testGraph);
+    assertEquals(new GraphFingerprint(original).getKey(), fingerprint.getKey());
+    final RootGraphFragment restored = cached.restore(new GraphFragmentContext(executor, _testGraph), fingerprint, DiscardingGraphStatisticsGathererProvider.GATHERER_INSTANCE);
+    assertNotNull(restored);
+    assertTrue(cached.getPlan() == restored);
+    assertEquals(extractFragmentTargets(root, new HashSet<List<Object>>()), extractFragmentTargets(restored, new HashSet<List<Object>>()));
+    assertEquals(extractColourTargets(root), extractColourTargets(restored));
+    for (GraphFragment fragment : restored.getInputFragments()) {
+      for (DependencyNode node : fragment.getNodes()) {
+        assertTrue(_testGraph.containsNode(node));
+      }
+    }
+    // A different graph does not match
+    _testGraph.addTerminalOutputValue(_testValue34);
+    assertFalse(fingerprint.getKey().equals(new GraphFingerprint(_testGraph).getKey()));
+  }
+
+  public void testCostDrift() {
+    final MultipleNodeExecutor executor = createExecutor(2, 2, 1);
+    final RootGraphFragment root = executor.createExecutionPlan(_testGraph, DiscardingGraphStatisticsGathererProvider.GATHERER_INSTANCE);
+    final CachedExecutionPlan cached = CachedExecutionPlan.of(root, new GraphFingerprint(_testGraph));
+    final FunctionCosts functionCosts = executor.getFunctionCosts();
+    assertEquals(0.0, cached.getCostDrift(functionCosts.getStatistics("Default")), 1e-9);
+    final double cost = functionCosts.getStatistics("Default", MockFunction.UNIQUE_ID).getInvocationCost();
+    functionCosts.functionInvoked("Default", MockFunction.UNIQUE_ID, 100, 100 * cost * 1.1, Double.NaN, Double.NaN);
+    assertEquals(0.1, cached.getCostDrift(functionCosts.getStatistics("Default")), 1e-9);
+    functionCosts.functionInvoked("Default", MockFunction.UNIQUE_ID, 100, 100 * cost * 3, Double.NaN, Double.NaN);
+    assertTrue(cached.getCostDrift(functionCosts.getStatistics("Default")) > ExecutionPlanCache.DEFAULT_MAXIMUM_COST_DRIFT);
+  }
+
+  public void testSpeculativeDispatch() throws Exception {
+    final BlockingQueue<CalculationJob> dispatched = new LinkedBlockingQueue<CalculationJob>();
+    final AtomicInteger cancelled = new AtomicInteger();
+    final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    try {
+      final MultipleNodeExecutor executor = new MultipleNodeExecutor(null, 5, Integer.MAX_VALUE, 0, Integer.MAX_VALUE, Integer.MAX_VALUE, new FunctionCosts(), new ExecutionPlanCache(
+          EHCacheUtils.createCacheManager(), 0), 2.0, 50, timer) {
+
+        @Override
+        protected long getFunctionInitId() {
+          return 0;
+        }
+
+        @Override
+        protected CalculationJobSpecification createJobSpecification(final DependencyGraph graph) {
+          return new CalculationJobSpecification(UniqueIdentifier.of("Test", "ViewProcess"), graph.getCalculationConfigurationName(), 1L, JobIdSource.getId());
+        }
+
+        @Override
+        protected void addJobToViewProcessorQuery(final CalculationJobSpecification jobSpec, final DependencyGraph graph) {
+          // Nothing
+        }
+
+        @Override
+        protected Cancellable dispatchJob(final CalculationJob job, final JobResultReceiver jobResultReceiver) {
+          dispatched.add(job);
+          return new Cancellable() {
+            @Override
+            public boolean cancel(final boolean mayInterrupt) {
+              cancelled.incrementAndGet();
+              return true;
+            }
+          };
+        }
+
+        @Override
+        protected void markExecuted(final DependencyNode node) {
+          // Nothing
+        }
+
+        @Override
+        protected void markFailed(final DependencyNode node) {
+          // Nothing
+        }
+
+      };
+      assertTrue(executor.isSpeculative());
+      final RootGraphFragment root = executor.createExecutionPlan(_testGraph, DiscardingGraphStatisticsGathererProvider.GATHERER_INSTANCE);
+      final CalculationJob original = dispatched.poll(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+      assertNotNull(original);
+      // Original doesn't complete, so a copy is dispatched
+      final CalculationJob copy = dispatched.poll(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+      assertNotNull(copy);
+      assertFalse(original.getSpecification().equals(copy.getSpecification()));
+      assertEquals(original.getJobItems(), copy.getJobItems());
+      assertFalse(root.isDone());
+      // Copy completes first; the original is cancelled and its late result ignored
+      root.getContext().resultReceived(createJobResult(copy));
+      assertTrue(root.isDone());
+      assertEquals(1, cancelled.get());
+      root.getContext().resultReceived(createJobResult(original));
+      final Set<GraphFragment> visited = new HashSet<GraphFragment>();
+      assertTrue(root.reset(executor, visited));
+    } finally {
+      timer.shutdownNow();
+    }
+  }
+
+  private static CalculationJobResult createJobResult(final CalculationJob job) {
+    final List<CalculationJobResultItem> items = new ArrayList<CalculationJobResultItem>();
+    for (CalculationJobItem item : job.getJobItems()) {
+      items.add(new CalculationJobResultItem(item));
+    }
+    return new CalculationJobResult(job.getSpecification(), 0L, items, "Test");
+  }
+
 }
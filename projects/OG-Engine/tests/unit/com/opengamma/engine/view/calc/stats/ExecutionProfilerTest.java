@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc.stats;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatisticsGatherer;
+import com.opengamma.id.UniqueIdentifier;
+
+/**
+ * Tests the {@link ExecutionProfiler} class.
+ */
+@Test
+public class ExecutionProfilerTest {
+
+  private static final UniqueIdentifier VIEW_PROCESS = UniqueIdentifier.of("Test", "ViewProcess");
+
+  private static CriticalPath criticalPath() {
+    return new CriticalPath(UniqueIdentifier.of("Test", "Cycle"), "Default", 5000000L, Arrays.asList(
+        new CriticalPath.Step(1, "node1", Arrays.asList("F1", "F2", "F1"), 0, 2000000L, 1500000L),
+        new CriticalPath.Step(2, "node2", Arrays.asList("F3"), 2000000L, 3000000L, 2900000L)));
+  }
+
+  public void testFunctionInvocations() {
+    final AtomicInteger underlyingCalls = new AtomicInteger();
+    final ExecutionProfiler profiler = new ExecutionProfiler(new FunctionInvocationStatisticsGatherer() {
+      @Override
+      public void functionInvoked(String configurationName, String functionId, int invocationCount, double executionNanos, double dataInputBytes, double dataOutputBytes) {
+        underlyingCalls.incrementAndGet();
+      }
+    });
+    profiler.functionInvoked("Default", "F1", 1, 2000000d, Double.NaN, Double.NaN);
+    profiler.functionInvoked("Other", "F1", 1, 9000000d, Double.NaN, Double.NaN);
+    assertEquals(2, profiler.getFunctionLatency("F1").getCount());
+    assertEquals(9000000L, profiler.getFunctionLatency("F1").getMax());
+    assertEquals(2000000L, profiler.getFunctionLatency("F1").getMin());
+    assertNull(profiler.getFunctionMeanLatency("F1"));
+    // Reports of several invocations only give their mean
+    profiler.functionInvoked("Default", "F1", 4, 4000000d, Double.NaN, Double.NaN);
+    profiler.functionInvoked("Default", "F2", 4, 8000000d, Double.NaN, Double.NaN);
+    assertEquals(2, profiler.getFunctionLatency("F1").getCount());
+    assertEquals(1, profiler.getFunctionMeanLatency("F1").getCount());
+    assertEquals(1000000L, profiler.getFunctionMeanLatency("F1").getMax());
+    assertNull(profiler.getFunctionLatency("F2"));
+    assertEquals(2000000L, profiler.getFunctionMeanLatency("F2").getMax());
+    assertEquals(2, profiler.getFunctionIds().size());
+    assertNull(profiler.getFunctionLatency("F3"));
+    // Passed on to the underlying statistics
+    assertEquals(4, underlyingCalls.get());
+  }
+
+  public void testCriticalPaths() {
+    final ExecutionProfiler profiler = new ExecutionProfiler();
+    profiler.graphExecuted(VIEW_PROCESS, criticalPath());
+    profiler.graphExecuted(VIEW_PROCESS, criticalPath());
+    assertEquals(2, profiler.getCriticalFunctionLatency("F1").getCount());
+    assertEquals(2, profiler.getCriticalFunctionLatency("F3").getCount());
+    final CriticalPath path = profiler.getCriticalPath(VIEW_PROCESS, "Default");
+    assertEquals(2, path.getSteps().size());
+    assertEquals(4400000L, path.getExecutionNanos());
+    assertEquals(500000L, path.getSteps().get(0).getOverheadNanos());
+    assertNull(profiler.getCriticalPath(VIEW_PROCESS, "Other"));
+    profiler.removeViewProcess(VIEW_PROCESS);
+    assertNull(profiler.getCriticalPath(VIEW_PROCESS, "Default"));
+    // The histograms outlive the view process
+    assertEquals(2, profiler.getCriticalFunctionLatency("F1").getCount());
+  }
+
+  public void testDump() {
+    final ExecutionProfiler profiler = new ExecutionProfiler();
+    profiler.functionInvoked("Default", "F2", 1, 3000d, Double.NaN, Double.NaN);
+    profiler.functionInvoked("Default", "F1", 1, 2000d, Double.NaN, Double.NaN);
+    profiler.functionInvoked("Default", "F3", 2, 8000d, Double.NaN, Double.NaN);
+    profiler.jobExecuted("node1", 10000L);
+    profiler.graphExecuted(VIEW_PROCESS, criticalPath());
+    final String dump = profiler.dump();
+    // Sorted so that profiles can be compared
+    assertTrue(dump.indexOf("F1\t1\t2\t2\t2\t2\t2\n") < dump.indexOf("F2\t1\t3\t3\t3\t3\t3\n"));
+    assertTrue(dump.contains("[function-means]\n#id\tcount\tmean\tp50\tp90\tp99\tmax\nF3\t1\t4\t4\t4\t4\t4\n"));
+    assertTrue(dump.contains("[nodes]\n#id\tcount\tmean\tp50\tp90\tp99\tmax\nnode1\t1\t10\t10\t10\t10\t10\n"));
+    assertTrue(dump.contains(VIEW_PROCESS + "\tDefault\tduration=5000\texecution=4400\n"));
+    assertTrue(dump.contains("\t0\tnode=node1\tready=0\telapsed=2000\texecution=1500\tfunctions=F1,F2\n"));
+    assertEquals(dump, profiler.dump());
+    profiler.reset();
+    assertTrue(profiler.getFunctionIds().isEmpty());
+    assertTrue(profiler.getComputeNodeIds().isEmpty());
+  }
+
+}
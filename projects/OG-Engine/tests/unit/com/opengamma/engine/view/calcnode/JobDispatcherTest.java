@@ -412,6 +412,20 @@ public class JobDispatcherTest {
     assertEquals(jobDispatcher.getJobFailureNodeId(), jobResult.getComputeNodeId());
   }
   
+  @Test
+  public void testPendingJobExpiry() {
+    s_logger.info("testPendingJobExpiry");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setMaxJobPendingTime(TIMEOUT / 2);
+    final TestJobResultReceiver result = new TestJobResultReceiver();
+    jobDispatcher.dispatchJob(createTestJob(), result);
+    assertNull(result.getResult());
+    final CalculationJobResult jobResult = result.waitForResult(2 * TIMEOUT);
+    assertNotNull(jobResult);
+    assertEquals(jobDispatcher.getJobFailureNodeId(), jobResult.getComputeNodeId());
+    assertTrue(jobDispatcher.getPending().isEmpty());
+  }
+
   @Test
   public void testJobCancel() {
     s_logger.info("testJobCancel");
@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Measures the rate at which the {@link JobDispatcher} can hand jobs to invokers as the number of invokers grows.
+ */
+@Test
+public class JobDispatcherThroughputTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(JobDispatcherThroughputTest.class);
+
+  private static final int DISPATCH_THREADS = 4;
+  private static final int JOBS_PER_THREAD = 5000;
+  private static final int CAPABILITY_CLASSES = 4;
+
+  private final ExecutorService _executorService = Executors.newFixedThreadPool(DISPATCH_THREADS);
+
+  @AfterClass
+  public void shutdown() {
+    _executorService.shutdown();
+  }
+
+  /**
+   * Accepts a single job at a time, completing it immediately. Refuses jobs while it is busy, so the dispatcher
+   * will see refusals when several threads are dispatching concurrently.
+   */
+  private static final class ImmediateJobInvoker extends AbstractJobInvoker {
+
+    private final Collection<Capability> _capabilities;
+    private final AtomicInteger _busy = new AtomicInteger();
+    private final AtomicInteger _invoked = new AtomicInteger();
+
+    private ImmediateJobInvoker(final String invokerId, final Collection<Capability> capabilities) {
+      super(invokerId);
+      _capabilities = capabilities;
+    }
+
+    @Override
+    public Collection<Capability> getCapabilities() {
+      return _capabilities;
+    }
+
+    @Override
+    public boolean invoke(final CalculationJob job, final JobInvocationReceiver receiver) {
+      if (!_busy.compareAndSet(0, 1)) {
+        return false;
+      }
+      _invoked.incrementAndGet();
+      receiver.jobCompleted(JobDispatcherTest.createTestJobResult(job.getSpecification(), 0L, getInvokerId()));
+      _busy.set(0);
+      return true;
+    }
+
+    @Override
+    public boolean notifyWhenAvailable(final JobInvokerRegister callback) {
+      // Never busy for long, so ask for an immediate retry
+      return true;
+    }
+
+  }
+
+  private static final class CountingResultReceiver implements JobResultReceiver {
+
+    private final CountDownLatch _latch;
+
+    private CountingResultReceiver(final int jobs) {
+      _latch = new CountDownLatch(jobs);
+    }
+
+    @Override
+    public void resultReceived(final CalculationJobResult result) {
+      _latch.countDown();
+    }
+
+    public boolean await(final long timeoutMillis) throws InterruptedException {
+      return _latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+  }
+
+  private void dispatchThroughput(final int invokerCount) throws Exception {
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    final ImmediateJobInvoker[] invokers = new ImmediateJobInvoker[invokerCount];
+    for (int i = 0; i < invokerCount; i++) {
+      final Collection<Capability> capabilities = Collections.singleton(Capability.instanceOf("Class" + (i % CAPABILITY_CLASSES)));
+      invokers[i] = new ImmediateJobInvoker(Integer.toString(i), capabilities);
+      jobDispatcher.registerJobInvoker(invokers[i]);
+    }
+    final CountingResultReceiver receiver = new CountingResultReceiver(DISPATCH_THREADS * JOBS_PER_THREAD);
+    final CountDownLatch start = new CountDownLatch(1);
+    for (int i = 0; i < DISPATCH_THREADS; i++) {
+      _executorService.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          for (int j = 0; j < JOBS_PER_THREAD; j++) {
+            jobDispatcher.dispatchJob(JobDispatcherTest.createTestJob(), receiver);
+          }
+        }
+      });
+    }
+    final OperationTimer timer = new OperationTimer(s_logger, "Dispatching {} jobs to {} invokers", DISPATCH_THREADS * JOBS_PER_THREAD, invokerCount);
+    start.countDown();
+    assertTrue(receiver.await(Timeout.standardTimeoutMillis() * 20));
+    final long time = timer.finished();
+    s_logger.info("{} invokers - {} jobs/s", invokerCount, (time > 0) ? (DISPATCH_THREADS * JOBS_PER_THREAD * 1000L) / time : "-");
+    int invoked = 0;
+    for (ImmediateJobInvoker invoker : invokers) {
+      invoked += invoker._invoked.get();
+    }
+    assertEquals(DISPATCH_THREADS * JOBS_PER_THREAD, invoked);
+  }
+
+  public void dispatchTo1Invoker() throws Exception {
+    dispatchThroughput(1);
+  }
+
+  public void dispatchTo10Invokers() throws Exception {
+    dispatchThroughput(10);
+  }
+
+  public void dispatchTo100Invokers() throws Exception {
+    dispatchThroughput(100);
+  }
+
+  public void dispatchTo500Invokers() throws Exception {
+    dispatchThroughput(500);
+  }
+
+}
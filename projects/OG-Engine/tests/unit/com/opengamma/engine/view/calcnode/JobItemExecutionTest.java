@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.function.EmptyFunctionParameters;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.cache.CacheSelectHint;
+import com.opengamma.id.UniqueIdentifier;
+
+/**
+ * Tests the {@link JobItemExecution} class.
+ */
+@Test
+public class JobItemExecutionTest {
+
+  private static final ComputationTargetSpecification TARGET = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueIdentifier.of("Test", "Target"));
+
+  private static ValueSpecification output(final String valueName) {
+    return new ValueSpecification(new ValueRequirement(valueName, TARGET), "Function" + valueName);
+  }
+
+  private static CalculationJobItem item(final String valueName, final String... inputs) {
+    final List<ValueSpecification> inputSpecifications = new ArrayList<ValueSpecification>();
+    for (String input : inputs) {
+      inputSpecifications.add(output(input));
+    }
+    return new CalculationJobItem("Function" + valueName, new EmptyFunctionParameters(), TARGET, inputSpecifications, Collections.singleton(new ValueRequirement(valueName, TARGET)));
+  }
+
+  private static JobItemExecution execution(final CalculationJobItem... items) {
+    final CalculationJob job = new CalculationJob(JobDispatcherTest.createTestJobSpec(), 0L, null, Arrays.asList(items), CacheSelectHint.allPrivate());
+    return new JobItemExecution(job, null, null);
+  }
+
+  public void testIndependentItems() {
+    final JobItemExecution execution = execution(item("A"), item("B"), item("C"));
+    assertEquals(3, execution.getReadyCount());
+    // Owner works from the tail, other nodes steal from the head
+    assertEquals(2, execution.pollOwnItem());
+    assertEquals(0, execution.stealItem());
+    assertEquals(1, execution.stealItem());
+    assertEquals(-1, execution.pollOwnItem());
+    for (int i = 0; i < 3; i++) {
+      assertFalse(execution.isFinished());
+      assertEquals(0, execution.itemCompleted(i, new CalculationJobResultItem(execution.getItem(i))));
+    }
+    assertTrue(execution.isFinished());
+  }
+
+  public void testDependentItems() {
+    final JobItemExecution execution = execution(item("A"), item("B"), item("C", "A", "B"), item("D", "C"), item("E", "A"));
+    assertEquals(2, execution.getReadyCount());
+    assertEquals(0, execution.stealItem());
+    assertEquals(1, execution.stealItem());
+    assertEquals(-1, execution.stealItem());
+    // C needs both A and B; E only needs A
+    assertEquals(1, execution.itemCompleted(0, new CalculationJobResultItem(execution.getItem(0))));
+    assertEquals(4, execution.pollOwnItem());
+    assertEquals(1, execution.itemCompleted(1, new CalculationJobResultItem(execution.getItem(1))));
+    assertEquals(2, execution.pollOwnItem());
+    assertEquals(0, execution.itemCompleted(4, new CalculationJobResultItem(execution.getItem(4))));
+    assertEquals(1, execution.itemCompleted(2, new CalculationJobResultItem(execution.getItem(2))));
+    assertEquals(3, execution.stealItem());
+    assertFalse(execution.isFinished());
+    assertEquals(0, execution.itemCompleted(3, new CalculationJobResultItem(execution.getItem(3))));
+    assertTrue(execution.isFinished());
+    final List<CalculationJobResultItem> results = execution.getResults();
+    assertEquals(5, results.size());
+    for (int i = 0; i < 5; i++) {
+      assertSame(execution.getItem(i), results.get(i).getItem());
+    }
+  }
+
+}
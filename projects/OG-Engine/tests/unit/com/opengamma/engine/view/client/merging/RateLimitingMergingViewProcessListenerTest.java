@@ -72,6 +72,27 @@ public class RateLimitingMergingViewProcessListenerTest {
     mergingListener.processTerminated(false);
   }
 
+  @Test
+  public void testFragmentsOnlyPassedThrough() throws InterruptedException {
+    TestViewResultListener testListener = new TestViewResultListener();
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), new Timer("Custom timer"));
+
+    ViewComputationResultModel fragment = mock(ViewComputationResultModel.class);
+    mergingListener.cycleFragmentCompleted(fragment);
+    assertEquals(fragment, testListener.getCycleFragmentCompleted(Timeout.standardTimeoutMillis()).getFragmentResult());
+    testListener.assertNoCalls();
+
+    // Fragments are superseded by the merged result so are not held while paused
+    mergingListener.setPaused(true);
+    mergingListener.cycleFragmentCompleted(mock(ViewComputationResultModel.class));
+    addResults(mergingListener, 1);
+    mergingListener.setPaused(false);
+    testListener.assertCycleCompleted();
+    testListener.assertNoCalls();
+
+    mergingListener.terminate();
+  }
+
   @Test
   public void testMergingWhenRateLimiting() throws InterruptedException {
     TestViewResultListener testListener = new TestViewResultListener();
@@ -0,0 +1,313 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.time.Instant;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.PositionSource;
+import com.opengamma.core.position.Trade;
+import com.opengamma.core.position.impl.PortfolioImpl;
+import com.opengamma.core.position.impl.PortfolioNodeImpl;
+import com.opengamma.core.position.impl.PositionImpl;
+import com.opengamma.core.security.Security;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.DefaultCachingComputationTargetResolver;
+import com.opengamma.engine.DefaultComputationTargetResolver;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.function.AbstractFunction;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.livedata.InMemoryLKVSnapshotProvider;
+import com.opengamma.engine.test.MockSecurity;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ResultOutputMode;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.id.Identifier;
+import com.opengamma.id.IdentifierBundle;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.ehcache.EHCacheUtils;
+
+/**
+ * Tests recompiling a view definition against a previous compilation after portfolio, security and live data changes.
+ */
+@Test
+public class IncrementalCompilationTest {
+
+  private static final String SECURITY_TYPE = "Equity";
+  private static final UniqueIdentifier PORTFOLIO_ID = UniqueIdentifier.of("Test", "Portfolio");
+  private static final ValueRequirement RATE = new ValueRequirement("Rate", new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueIdentifier.of("Rate", "USD")));
+
+  /**
+   * Values a position from the shared rate, counting the number of times it is resolved.
+   */
+  private static class PositionValueFunction extends AbstractFunction.NonCompiledInvoker {
+
+    private final AtomicInteger _resolutions = new AtomicInteger();
+
+    @Override
+    public String getShortName() {
+      return "PositionValue";
+    }
+
+    @Override
+    public boolean canApplyTo(FunctionCompilationContext context, ComputationTarget target) {
+      return target.getType() == ComputationTargetType.POSITION;
+    }
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.POSITION;
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(FunctionCompilationContext context, ComputationTarget target, ValueRequirement desiredValue) {
+      _resolutions.incrementAndGet();
+      return Collections.singleton(RATE);
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(FunctionCompilationContext context, ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification("PV", target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ComputedValue> execute(FunctionExecutionContext executionContext, FunctionInputs inputs, ComputationTarget target, Set<ValueRequirement> desiredValues) {
+      return null;
+    }
+
+  }
+
+  /**
+   * Position source that serves whichever portfolio is current, keeping the identifiers it is given.
+   */
+  private static class TestPositionSource implements PositionSource {
+
+    private volatile Portfolio _portfolio;
+
+    @Override
+    public Portfolio getPortfolio(UniqueIdentifier uid) {
+      return _portfolio;
+    }
+
+    @Override
+    public PortfolioNode getPortfolioNode(UniqueIdentifier uid) {
+      return _portfolio.getRootNode().getUniqueId().equals(uid) ? _portfolio.getRootNode() : null;
+    }
+
+    @Override
+    public Position getPosition(UniqueIdentifier uid) {
+      for (Position position : _portfolio.getRootNode().getPositions()) {
+        if (position.getUniqueId().equals(uid)) {
+          return position;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public Trade getTrade(UniqueIdentifier uid) {
+      return null;
+    }
+
+  }
+
+  /**
+   * Security source that serves the current version of each security, or the exact version asked for.
+   */
+  private static class TestSecuritySource implements SecuritySource {
+
+    private final Map<String, Security> _securities = new ConcurrentHashMap<String, Security>();
+
+    public void setSecurity(final int security, final int version) {
+      final String value = Integer.toString(security);
+      _securities.put(value, new MockSecurity(UniqueIdentifier.of("Sec", value, Integer.toString(version)), "Security " + value, SECURITY_TYPE,
+          IdentifierBundle.of(Identifier.of("SEC", value))));
+    }
+
+    @Override
+    public Security getSecurity(UniqueIdentifier uid) {
+      final Security security = _securities.get(uid.getValue());
+      if ((security == null) || (uid.isVersioned() && !uid.equals(security.getUniqueId()))) {
+        return null;
+      }
+      return security;
+    }
+
+    @Override
+    public Collection<Security> getSecurities(IdentifierBundle bundle) {
+      final Security security = getSecurity(bundle);
+      return (security != null) ? Collections.singleton(security) : Collections.<Security>emptySet();
+    }
+
+    @Override
+    public Security getSecurity(IdentifierBundle bundle) {
+      for (Identifier identifier : bundle.getIdentifiers()) {
+        if ("SEC".equals(identifier.getScheme().getName())) {
+          return _securities.get(identifier.getValue());
+        }
+      }
+      return null;
+    }
+
+  }
+
+  private final TestSecuritySource _securitySource = new TestSecuritySource();
+  private final TestPositionSource _positionSource = new TestPositionSource();
+  private InMemoryLKVSnapshotProvider _snapshotProvider;
+  private PositionValueFunction _function;
+  private ExecutorService _executorService;
+  private ViewCompilationServices _compilationServices;
+  private ViewDefinition _viewDefinition;
+
+  @BeforeMethod
+  public void setUp() {
+    for (int i = 0; i < 4; i++) {
+      _securitySource.setSecurity(i, 1);
+    }
+    _snapshotProvider = new InMemoryLKVSnapshotProvider();
+    _snapshotProvider.addValue(RATE, 0.05);
+    _function = new PositionValueFunction();
+    final InMemoryFunctionRepository functionRepo = new InMemoryFunctionRepository();
+    functionRepo.addFunction(_function);
+    final FunctionCompilationContext functionCompilationContext = new FunctionCompilationContext();
+    functionCompilationContext.setSecuritySource(_securitySource);
+    final DefaultFunctionResolver functionResolver = new DefaultFunctionResolver(new CompiledFunctionService(functionRepo, new CachingFunctionRepositoryCompiler(), functionCompilationContext));
+    final DefaultCachingComputationTargetResolver computationTargetResolver = new DefaultCachingComputationTargetResolver(
+        new DefaultComputationTargetResolver(_securitySource, _positionSource), EHCacheUtils.createCacheManager());
+    _executorService = Executors.newSingleThreadExecutor();
+    _compilationServices = new ViewCompilationServices(_snapshotProvider, functionResolver, functionCompilationContext, computationTargetResolver, _executorService, _securitySource,
+        _positionSource);
+    _viewDefinition = new ViewDefinition("Test View", PORTFOLIO_ID, "test");
+    _viewDefinition.getResultModelDefinition().setAggregatePositionOutputMode(ResultOutputMode.NONE);
+    _viewDefinition.getResultModelDefinition().setTradeOutputMode(ResultOutputMode.NONE);
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(_viewDefinition, "Default");
+    calcConfig.addPortfolioRequirementName(SECURITY_TYPE, "PV");
+    _viewDefinition.addViewCalculationConfiguration(calcConfig);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    _executorService.shutdown();
+  }
+
+  private void setPositions(final int... positions) {
+    final PortfolioNodeImpl root = new PortfolioNodeImpl(UniqueIdentifier.of("Test", "Root"), "root");
+    for (int position : positions) {
+      root.addPosition(new PositionImpl(UniqueIdentifier.of("Test", "Position" + position), BigDecimal.ONE, Identifier.of("SEC", Integer.toString(position))));
+    }
+    final PortfolioImpl portfolio = new PortfolioImpl(PORTFOLIO_ID, "portfolio");
+    portfolio.setRootNode(root);
+    _positionSource._portfolio = portfolio;
+  }
+
+  private Set<UniqueIdentifier> getTerminalTargets(final DependencyGraph graph) {
+    final Set<UniqueIdentifier> targets = new HashSet<UniqueIdentifier>();
+    for (ValueSpecification terminalOutput : graph.getTerminalOutputSpecifications()) {
+      targets.add(terminalOutput.getTargetSpecification().getUniqueId());
+    }
+    return targets;
+  }
+
+  private DependencyNode getLiveDataNode(final DependencyGraph graph) {
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      if (node.getRequiredLiveData() != null) {
+        return node;
+      }
+    }
+    return null;
+  }
+
+  public void testPositionsChanged() {
+    setPositions(0, 1, 2);
+    final CompiledViewDefinitionWithGraphsImpl first = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now());
+    assertEquals(3, _function._resolutions.get());
+    assertEquals(4, first.getDependencyGraph("Default").getSize());
+    setPositions(0, 1, 3);
+    final CompiledViewDefinitionWithGraphsImpl second = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now(), first);
+    // Only the new position is resolved
+    assertEquals(4, _function._resolutions.get());
+    final DependencyGraph graph = second.getDependencyGraph("Default");
+    assertEquals(4, graph.getSize());
+    assertEquals(new HashSet<UniqueIdentifier>(Arrays.asList(UniqueIdentifier.of("Test", "Position0"), UniqueIdentifier.of("Test", "Position1"),
+        UniqueIdentifier.of("Test", "Position3"))), getTerminalTargets(graph));
+    // The previous graph is not modified
+    assertEquals(4, first.getDependencyGraph("Default").getSize());
+    assertNotSame(getLiveDataNode(first.getDependencyGraph("Default")), getLiveDataNode(graph));
+    // Reused and newly resolved positions share the copied live data node
+    final DependencyNode liveData = getLiveDataNode(graph);
+    for (ValueSpecification terminalOutput : graph.getTerminalOutputSpecifications()) {
+      assertEquals(Collections.singleton(liveData), graph.getNodeProducing(terminalOutput).getInputNodes());
+    }
+  }
+
+  public void testLiveDataAvailabilityChanged() {
+    setPositions(0, 1);
+    final CompiledViewDefinitionWithGraphsImpl first = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now());
+    assertEquals(3, first.getDependencyGraph("Default").getSize());
+    _snapshotProvider.removeValue(RATE);
+    final CompiledViewDefinitionWithGraphsImpl second = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now(), first);
+    assertEquals(0, second.getDependencyGraph("Default").getSize());
+    assertNull(getLiveDataNode(second.getDependencyGraph("Default")));
+    // Previously unsatisfied requirements are retried
+    _snapshotProvider.addValue(RATE, 0.05);
+    final CompiledViewDefinitionWithGraphsImpl third = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now(), second);
+    assertEquals(3, third.getDependencyGraph("Default").getSize());
+    assertEquals(2, getTerminalTargets(third.getDependencyGraph("Default")).size());
+  }
+
+  public void testSecurityChanged() {
+    setPositions(0, 1, 2);
+    final CompiledViewDefinitionWithGraphsImpl first = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now());
+    assertEquals(3, _function._resolutions.get());
+    _securitySource.setSecurity(1, 2);
+    setPositions(0, 1, 2);
+    final CompiledViewDefinitionWithGraphsImpl second = ViewDefinitionCompiler.compile(_viewDefinition, _compilationServices, Instant.now(), first);
+    // Only the position holding the amended security is resolved
+    assertEquals(4, _function._resolutions.get());
+    final DependencyGraph graph = second.getDependencyGraph("Default");
+    assertEquals(4, graph.getSize());
+    for (ValueSpecification terminalOutput : graph.getTerminalOutputSpecifications()) {
+      final Position position = graph.getNodeProducing(terminalOutput).getComputationTarget().getPosition();
+      assertEquals(_securitySource.getSecurity(position.getSecurityKey()).getUniqueId(), position.getSecurity().getUniqueId());
+    }
+  }
+
+}
@@ -0,0 +1,217 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.core.position.impl.MockPositionSource;
+import com.opengamma.core.position.impl.PortfolioImpl;
+import com.opengamma.core.position.impl.PortfolioNodeImpl;
+import com.opengamma.core.position.impl.PositionImpl;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.DefaultCachingComputationTargetResolver;
+import com.opengamma.engine.DefaultComputationTargetResolver;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.function.AbstractFunction;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.livedata.InMemoryLKVSnapshotProvider;
+import com.opengamma.engine.test.MockSecurity;
+import com.opengamma.engine.test.MockSecuritySource;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ResultOutputMode;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.id.Identifier;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ * Tests building dependency graphs in partitions, comparing the result and time taken against a single threaded build.
+ */
+@Test
+public class PartitionedGraphBuildingTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(PartitionedGraphBuildingTest.class);
+
+  private static final String SECURITY_TYPE = "Equity";
+  private static final ValueRequirement RATE = new ValueRequirement("Rate", new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueIdentifier.of("Rate", "USD")));
+
+  private abstract static class TestFunction extends AbstractFunction.NonCompiledInvoker {
+
+    private final ComputationTargetType _targetType;
+
+    protected TestFunction(final ComputationTargetType targetType) {
+      _targetType = targetType;
+    }
+
+    @Override
+    public boolean canApplyTo(FunctionCompilationContext context, ComputationTarget target) {
+      return target.getType() == _targetType;
+    }
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return _targetType;
+    }
+
+    @Override
+    public Set<ComputedValue> execute(FunctionExecutionContext executionContext, FunctionInputs inputs, ComputationTarget target, Set<ValueRequirement> desiredValues) {
+      return null;
+    }
+
+  }
+
+  /**
+   * Values a security from the shared rate.
+   */
+  private static class SecurityValueFunction extends TestFunction {
+
+    public SecurityValueFunction() {
+      super(ComputationTargetType.SECURITY);
+    }
+
+    @Override
+    public String getShortName() {
+      return "SecurityValue";
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(FunctionCompilationContext context, ComputationTarget target, ValueRequirement desiredValue) {
+      return Collections.singleton(RATE);
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(FunctionCompilationContext context, ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification("Value", target.toSpecification(), createValueProperties().get()));
+    }
+
+  }
+
+  /**
+   * Values a position from its security.
+   */
+  private static class PositionValueFunction extends TestFunction {
+
+    public PositionValueFunction() {
+      super(ComputationTargetType.POSITION);
+    }
+
+    @Override
+    public String getShortName() {
+      return "PositionValue";
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(FunctionCompilationContext context, ComputationTarget target, ValueRequirement desiredValue) {
+      return Collections.singleton(new ValueRequirement("Value", new ComputationTargetSpecification(ComputationTargetType.SECURITY, target.getPosition().getSecurity().getUniqueId())));
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(FunctionCompilationContext context, ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification("PV", target.toSpecification(), createValueProperties().get()));
+    }
+
+  }
+
+  private ViewCompilationServices createCompilationServices(final int numPositions, final ExecutorService executorService) {
+    final MockSecuritySource securitySource = new MockSecuritySource();
+    final PortfolioNodeImpl root = new PortfolioNodeImpl("root");
+    PortfolioNodeImpl node = null;
+    for (int i = 0; i < numPositions; i++) {
+      if (i % 1000 == 0) {
+        node = new PortfolioNodeImpl("node" + i);
+        root.addChildNode(node);
+      }
+      final Identifier securityIdentifier = Identifier.of("SEC", Integer.toString(i));
+      final MockSecurity security = new MockSecurity(SECURITY_TYPE);
+      security.addIdentifier(securityIdentifier);
+      securitySource.addSecurity(security);
+      node.addPosition(new PositionImpl(BigDecimal.ONE, securityIdentifier));
+    }
+    final PortfolioImpl portfolio = new PortfolioImpl(UniqueIdentifier.of("Test", "Portfolio"), "portfolio");
+    portfolio.setRootNode(root);
+    final MockPositionSource positionSource = new MockPositionSource();
+    positionSource.addPortfolio(portfolio);
+    final InMemoryLKVSnapshotProvider snapshotProvider = new InMemoryLKVSnapshotProvider();
+    snapshotProvider.addValue(RATE, 0.05);
+    final InMemoryFunctionRepository functionRepo = new InMemoryFunctionRepository();
+    functionRepo.addFunction(new SecurityValueFunction());
+    functionRepo.addFunction(new PositionValueFunction());
+    final FunctionCompilationContext functionCompilationContext = new FunctionCompilationContext();
+    functionCompilationContext.setSecuritySource(securitySource);
+    final DefaultFunctionResolver functionResolver = new DefaultFunctionResolver(new CompiledFunctionService(functionRepo, new CachingFunctionRepositoryCompiler(), functionCompilationContext));
+    final DefaultCachingComputationTargetResolver computationTargetResolver = new DefaultCachingComputationTargetResolver(new DefaultComputationTargetResolver(securitySource, positionSource),
+        EHCacheUtils.createCacheManager());
+    return new ViewCompilationServices(snapshotProvider, functionResolver, functionCompilationContext, computationTargetResolver, executorService, securitySource, positionSource);
+  }
+
+  private ViewDefinition createViewDefinition() {
+    final ViewDefinition viewDefinition = new ViewDefinition("Test View", UniqueIdentifier.of("Test", "Portfolio"), "test");
+    viewDefinition.getResultModelDefinition().setAggregatePositionOutputMode(ResultOutputMode.NONE);
+    viewDefinition.getResultModelDefinition().setTradeOutputMode(ResultOutputMode.NONE);
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, "Default");
+    calcConfig.addPortfolioRequirementName(SECURITY_TYPE, "PV");
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    return viewDefinition;
+  }
+
+  private DependencyGraph compile(final ViewCompilationServices compilationServices, final ViewDefinition viewDefinition, final int parallelism) {
+    compilationServices.setGraphBuildingParallelism(parallelism);
+    final OperationTimer timer = new OperationTimer(s_logger, "Compiling {} with parallelism {}", viewDefinition.getName(), parallelism);
+    final CompiledViewDefinitionWithGraphsImpl compiled = ViewDefinitionCompiler.compile(viewDefinition, compilationServices, Instant.now());
+    timer.finished();
+    return compiled.getDependencyGraph("Default");
+  }
+
+  /**
+   * Compiles a synthetic portfolio on one thread and in partitions. The position count is kept small for the unit
+   * test run; raise it (e.g. to 50,000) for a representative comparison.
+   */
+  public void testPartitionedBuild() {
+    final int numPositions = 2000;
+    final int parallelism = 4;
+    final ExecutorService executorService = Executors.newFixedThreadPool(parallelism);
+    try {
+      final ViewCompilationServices compilationServices = createCompilationServices(numPositions, executorService);
+      final ViewDefinition viewDefinition = createViewDefinition();
+      final DependencyGraph single = compile(compilationServices, viewDefinition, 1);
+      final DependencyGraph partitioned = compile(compilationServices, viewDefinition, parallelism);
+      // One node per position, one per security and the live data for the shared rate
+      assertEquals(numPositions * 2 + 1, single.getSize());
+      assertEquals(single.getSize(), partitioned.getSize());
+      assertEquals(numPositions, partitioned.getTerminalOutputSpecifications().size());
+      assertEquals(single.getTerminalOutputSpecifications(), partitioned.getTerminalOutputSpecifications());
+      assertEquals(single.getOutputSpecifications(), partitioned.getOutputSpecifications());
+      assertEquals(1, partitioned.getAllRequiredLiveData().size());
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+}
@@ -48,8 +48,7 @@ import com.opengamma.financial.instrument.FixedIncomeInstrumentConverter;
 import com.opengamma.financial.interestrate.InterestRateDerivative;
 import com.opengamma.financial.interestrate.LastDateCalculator;
 import com.opengamma.financial.interestrate.MultipleYieldCurveFinderDataBundle;
-import com.opengamma.financial.interestrate.MultipleYieldCurveFinderFunction;
-import com.opengamma.financial.interestrate.MultipleYieldCurveFinderJacobian;
+import com.opengamma.financial.interestrate.MultipleYieldCurveFinderEngine;
 import com.opengamma.financial.interestrate.ParRateCalculator;
 import com.opengamma.financial.interestrate.ParRateCurveSensitivityCalculator;
 import com.opengamma.financial.interestrate.PresentValueCalculator;
@@ -356,14 +355,15 @@ public class MarketInstrumentImpliedYieldCurveFunction extends AbstractFunction
       final MultipleYieldCurveFinderDataBundle data = new MultipleYieldCurveFinderDataBundle(derivatives, parRates,
           null, curveNodes, interpolators, sensitivityCalculators);
       // TODO have the calculator and sensitivity calculators as an input [FIN-144], [FIN-145]
-      final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = new MultipleYieldCurveFinderFunction(data,
-          PresentValueCalculator.getInstance());
-      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = new MultipleYieldCurveFinderJacobian(data,
+      final MultipleYieldCurveFinderEngine engine = new MultipleYieldCurveFinderEngine(data, PresentValueCalculator.getInstance(),
           PresentValueSensitivityCalculator.getInstance());
+      final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = engine.getFunction();
+      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = engine.getJacobian();
       NewtonVectorRootFinder rootFinder;
       double[] yields = null;
       try {
         // TODO have the decomposition as an optional input [FIN-146]
+        // Broyden's rank-one updates fill in the Jacobian, so a sparse decomposition gains nothing here
         rootFinder = new BroydenVectorRootFinder(1e-7, 1e-7, 100,
             DecompositionFactory.getDecomposition(DecompositionFactory.LU_COMMONS_NAME));
         yields = rootFinder.getRoot(curveCalculator, jacobianCalculator, new DoubleMatrix1D(initialRatesGuess))
@@ -506,14 +506,15 @@ public class MarketInstrumentImpliedYieldCurveFunction extends AbstractFunction
 
       final MultipleYieldCurveFinderDataBundle data = new MultipleYieldCurveFinderDataBundle(derivatives, parRates,
           null, curveNodes, interpolators, sensitivityCalculators);
-      final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = new MultipleYieldCurveFinderFunction(data,
-          ParRateCalculator.getInstance());
-      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = new MultipleYieldCurveFinderJacobian(
-          data, ParRateCurveSensitivityCalculator.getInstance());
+      final MultipleYieldCurveFinderEngine engine = new MultipleYieldCurveFinderEngine(data, ParRateCalculator.getInstance(),
+          ParRateCurveSensitivityCalculator.getInstance());
+      final Function1D<DoubleMatrix1D, DoubleMatrix1D> curveCalculator = engine.getFunction();
+      final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianCalculator = engine.getJacobian();
       NewtonVectorRootFinder rootFinder;
       double[] yields = null;
       try {
         // TODO have the decomposition as an optional input [FIN-146]
+        // Broyden's rank-one updates fill in the Jacobian, so a sparse decomposition gains nothing here
         rootFinder = new BroydenVectorRootFinder(1e-7, 1e-7, 100,
             DecompositionFactory.getDecomposition(DecompositionFactory.LU_COMMONS_NAME));
         yields = rootFinder.getRoot(curveCalculator, jacobianCalculator, new DoubleMatrix1D(initialRatesGuess))
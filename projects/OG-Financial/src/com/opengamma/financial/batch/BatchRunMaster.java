@@ -38,6 +38,17 @@ public interface BatchRunMaster extends BatchMaster {
    */
   void endBatch(BatchJobRun batch);
 
+  /**
+   * Abandons the storage of a batch job run that has failed.
+   * <p>
+   * This releases anything held for the batch, such as threads writing its risk.
+   * The batch is not marked as complete. It may be called whether or not
+   * {@link #startBatch} succeeded, and after a failed {@link #endBatch}.
+   * 
+   * @param batch  the batch job which has failed, not null
+   */
+  void failBatch(BatchJobRun batch);
+
   //-------------------------------------------------------------------------
   /**
    * Creates a LiveData snapshot in the database. 
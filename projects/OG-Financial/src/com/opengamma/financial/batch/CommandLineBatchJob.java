@@ -9,8 +9,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import javax.time.calendar.DayOfWeek;
 import javax.time.calendar.LocalDate;
@@ -31,6 +36,7 @@ import com.opengamma.engine.function.CompiledFunctionService;
 import com.opengamma.engine.function.FunctionExecutionContext;
 import com.opengamma.engine.livedata.HistoricalLiveDataSnapshotProvider;
 import com.opengamma.engine.view.client.ViewClient;
+import com.opengamma.engine.view.compilation.ViewCompilationCache;
 import com.opengamma.engine.view.execution.ArbitraryViewCycleExecutionSequence;
 import com.opengamma.engine.view.execution.ExecutionOptions;
 import com.opengamma.livedata.UserPrincipal;
@@ -39,6 +45,7 @@ import com.opengamma.master.portfolio.PortfolioMaster;
 import com.opengamma.master.position.PositionMaster;
 import com.opengamma.master.security.SecurityMaster;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.VersionUtils;
 import com.opengamma.util.money.Currency;
 import com.opengamma.util.time.DateUtil;
@@ -64,6 +71,23 @@ public class CommandLineBatchJob {
    */
   private final UserPrincipal _user;
 
+  /**
+   * The function initialization id shared by all runs, so that a run can
+   * compile its view incrementally from the compilation of an earlier run.
+   */
+  private final long _functionInitId;
+
+  /**
+   * The latest compilation of the view, shared by all runs.
+   */
+  private final ViewCompilationCache _compilationCache = new ViewCompilationCache();
+
+  /**
+   * Serializes the creation of runs in the batch database, as concurrent runs
+   * would otherwise race to create the same reference data.
+   */
+  private final Object _startBatchLock = new Object();
+
   // --------------------------------------------------------------------------
   // Variables YOU should set - whether by using Spring property-based injection,
   // or manually by calling setters in tests
@@ -145,6 +169,13 @@ public class CommandLineBatchJob {
    */
   private String _systemVersionPropertyFile = "og-financial";
   
+  /**
+   * The maximum number of runs to compute at the same time. Historical reruns
+   * over many dates are limited by the compute and database capacity rather than
+   * by running one date after another. Default - 1.
+   */
+  private int _parallelRuns = 1;
+  
   // --------------------------------------------------------------------------
   // Variables initialized from command line input
   // --------------------------------------------------------------------------
@@ -169,6 +200,7 @@ public class CommandLineBatchJob {
   public CommandLineBatchJob() {
     _user = UserPrincipal.getLocalUser();
     _creationTime = ZonedDateTime.now();  // used later to obtain local date/time and zone
+    _functionInitId = System.currentTimeMillis();
   }
 
   // --------------------------------------------------------------------------
@@ -185,6 +217,23 @@ public class CommandLineBatchJob {
     _systemVersionPropertyFile = systemVersionPropertyFile;
   }
 
+  public int getParallelRuns() {
+    return _parallelRuns;
+  }
+
+  public void setParallelRuns(int parallelRuns) {
+    ArgumentChecker.isTrue(parallelRuns > 0, "parallelRuns must be positive");
+    _parallelRuns = parallelRuns;
+  }
+
+  public long getFunctionInitId() {
+    return _functionInitId;
+  }
+
+  public ViewCompilationCache getCompilationCache() {
+    return _compilationCache;
+  }
+
   public BatchJobParameters getParameters() {
     return _parameters;
   }
@@ -360,6 +409,9 @@ public class CommandLineBatchJob {
         + "If there is no snapshot, that date is simply ignored. This can be useful if you want to run the batch for " 
         + "a specific set of historical dates.");
     
+    options.addOption("parallelRuns", true, "Maximum number of valuation dates to compute at the same time. " +
+        "While these compute, the market data and view compilation of the next date are prepared. Default - 1.");
+    
     options.addOption("timeZone", true, "Time zone in which times on the command line are given. Default - system time zone.");
     
     options.addOption("springXml", true, "Name (relative to current working directory) of Spring XML which contains definition of bean batchJob. " +
@@ -450,6 +502,15 @@ public class CommandLineBatchJob {
       }
     } 
 
+    if (line.hasOption("parallelRuns")) {
+      String parallelRuns = line.getOptionValue("parallelRuns");
+      try {
+        setParallelRuns(Integer.parseInt(parallelRuns));
+      } catch (NumberFormatException e) {
+        throw new OpenGammaRuntimeException("parallelRuns should be a positive integer. Was " + parallelRuns);
+      }
+    }
+
     String dateRangeStart = line.getOptionValue("dateRangeStart");
     String dateRangeEnd = line.getOptionValue("dateRangeEnd");
 
@@ -500,28 +561,129 @@ public class CommandLineBatchJob {
     }
   }
 
+  /**
+   * Executes the runs.
+   * <p>
+   * The runs are prepared in date order - loading the market data snapshot and
+   * compiling the view incrementally from the compilation of the previous date -
+   * while up to {@link #getParallelRuns()} earlier runs compute. Each run writes
+   * its risk to the batch database on a background thread as it is computed.
+   */
   public void execute() {
-    for (CommandLineBatchJobRun run : _runs) {
-      try {
-        s_logger.info("Running {}", run);
-  
-        run.createViewDefinition();
-        run.createViewProcessor();
-        
+    if (getParallelRuns() == 1 || _runs.size() <= 1) {
+      for (CommandLineBatchJobRun run : _runs) {
+        if (prepareRun(run)) {
+          executeRun(run);
+        }
+      }
+      return;
+    }
+    
+    Iterator<CommandLineBatchJobRun> runs = _runs.iterator();
+    
+    // the first run creates the reference data, such as value names and
+    // function ids, that concurrent runs would otherwise race to create
+    CommandLineBatchJobRun firstRun = runs.next();
+    if (prepareRun(firstRun)) {
+      executeRun(firstRun);
+    }
+    
+    // one more run than is computing may be prepared, ready to start as soon as one finishes 
+    final Semaphore unfinishedRuns = new Semaphore(getParallelRuns() + 1);
+    ExecutorService executor = Executors.newFixedThreadPool(getParallelRuns(), new NamedThreadPoolFactory("CommandLineBatchJob", true));
+    try {
+      while (runs.hasNext()) {
+        final CommandLineBatchJobRun run = runs.next();
+        try {
+          unfinishedRuns.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          run.setFailed(true);
+          s_logger.error("Interrupted before running {}", run);
+          continue;
+        }
+        if (!prepareRun(run)) {
+          unfinishedRuns.release();
+          continue;
+        }
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              executeRun(run);
+            } finally {
+              unfinishedRuns.release();
+            }
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+    }
+    
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        s_logger.info("Waiting for batch runs to complete");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted waiting for batch runs to complete", e);
+    }
+  }
+
+  /**
+   * Loads the view definition and market data of a run, and compiles the view.
+   * 
+   * @param run  the run, not null
+   * @return true if the run is ready to execute, false if it failed
+   */
+  private boolean prepareRun(CommandLineBatchJobRun run) {
+    try {
+      s_logger.info("Preparing {}", run);
+      
+      run.createViewDefinition();
+      run.createViewProcessor();
+      return true;
+      
+    } catch (Exception e) {
+      run.setFailed(true);
+      s_logger.error("Failed to run " + run, e);
+      return false;
+    }
+  }
+
+  /**
+   * Computes a prepared run and writes its results into the batch database.
+   * 
+   * @param run  the run, not null
+   */
+  private void executeRun(CommandLineBatchJobRun run) {
+    try {
+      s_logger.info("Running {}", run);
+      
+      synchronized (_startBatchLock) {
         _batchMaster.startBatch(run);
-        
-        ViewClient client = run.getViewProcessor().createViewClient(UserPrincipal.getLocalUser());
-        client.attachToViewProcess(run.getViewDefinition().getName(), ExecutionOptions.batch(ArbitraryViewCycleExecutionSequence.of(run.getValuationTime())), true);
-        client.waitForCompletion();
+      }
+      
+      ViewClient client = run.getViewProcessor().createViewClient(UserPrincipal.getLocalUser());
+      client.attachToViewProcess(run.getViewDefinition().getName(), ExecutionOptions.batch(ArbitraryViewCycleExecutionSequence.of(run.getValuationTime())), true);
+      client.waitForCompletion();
 
-        _batchMaster.endBatch(run);
-        
-        s_logger.info("Completed {}", run);
+      _batchMaster.endBatch(run);
       
-      } catch (Exception e) {
-        run.setFailed(true);
-        s_logger.error("Failed to run " + run, e);                        
+      s_logger.info("Completed {}", run);
+    
+    } catch (Exception e) {
+      run.setFailed(true);
+      s_logger.error("Failed to run " + run, e);
+      try {
+        _batchMaster.failBatch(run);
+      } catch (Exception ex) {
+        s_logger.error("Failed to release batch DB resources of " + run, ex);
       }
+    } finally {
+      // a backfill can have thousands of runs, so don't hold on to their engines
+      run.setViewProcessor(null);
     }
   }
 
@@ -53,6 +53,8 @@ import com.opengamma.engine.view.calcnode.ViewProcessorQuerySender;
 import com.opengamma.engine.view.calcnode.stats.DiscardingInvocationStatisticsGatherer;
 import com.opengamma.engine.view.compilation.CompiledViewCalculationConfiguration;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.engine.view.compilation.ViewCompilationCache;
 import com.opengamma.engine.view.compilation.ViewCompilationServices;
 import com.opengamma.engine.view.compilation.ViewDefinitionCompiler;
 import com.opengamma.engine.view.permission.PermissiveViewPermissionProviderFactory;
@@ -342,7 +344,10 @@ public class CommandLineBatchJobRun extends BatchJobRun {
     CompiledFunctionService functionCompilationService = getJob().getFunctionCompilationService().clone();
     functionCompilationService.getFunctionCompilationContext().setSecuritySource(securitySource);
     
-    functionCompilationService.initialize();
+    // All runs share an initialization id so that each can compile incrementally from the runs before it. The functions
+    // are initialized from the same repository and configuration for every run; what differs between runs is the static
+    // data, and the incremental compile discards any node whose position, trade or security has a different version.
+    functionCompilationService.initialize(getJob().getFunctionInitId());
 
     DefaultComputationTargetResolver targetResolver = new DefaultComputationTargetResolver(securitySource, positionSource);
     InMemoryViewComputationCacheSource computationCache = new InMemoryViewComputationCacheSource(OpenGammaFudgeContext.getInstance());
@@ -378,7 +383,7 @@ public class CommandLineBatchJobRun extends BatchJobRun {
       }
     };
     
-    ViewProcessor viewProcessor = new ViewProcessorImpl(
+    ViewProcessorImpl viewProcessor = new ViewProcessorImpl(
         UniqueIdentifier.of("Vp", "Batch"),
         viewDefinitionRepository,
         securitySource,
@@ -396,6 +401,7 @@ public class CommandLineBatchJobRun extends BatchJobRun {
         new DiscardingGraphStatisticsGathererProvider(),
         new PermissiveViewPermissionProviderFactory(),
         marketDataSnapshotSource);
+    viewProcessor.setCompilationCache(getJob().getCompilationCache());
         
     setViewProcessor(viewProcessor);
 
@@ -407,7 +413,12 @@ public class CommandLineBatchJobRun extends BatchJobRun {
     
     ViewCompilationServices compilationServices = new ViewCompilationServices(snapshotProvider, functionResolver,
         functionCompilationService.getFunctionCompilationContext(), computationTargetResolver, functionCompilationService.getExecutorService(), securitySource, positionSource);
-    CompiledViewDefinition compiledViewDefinition = ViewDefinitionCompiler.compile(getViewDefinition(), compilationServices, getValuationTime());
+    // Starting from the latest compilation of the view, normally that of the previous date, only the targets that
+    // have changed are resolved again. The view process then compiles incrementally from this compilation.
+    ViewCompilationCache compilationCache = getJob().getCompilationCache();
+    CompiledViewDefinitionWithGraphsImpl compiledViewDefinition = ViewDefinitionCompiler.compile(getViewDefinition(), compilationServices, getValuationTime(),
+        compilationCache.get(getViewDefinition().getName()));
+    compilationCache.put(compiledViewDefinition);
     setCompiledViewDefinition(compiledViewDefinition);
   }
 
@@ -36,7 +36,7 @@ public class AdHocBatchResultBuilder implements FudgeBuilder<AdHocBatchResult> {
   public MutableFudgeMsg buildMessage(FudgeSerializationContext context, AdHocBatchResult object) {
     MutableFudgeMsg msg = context.newMessage();
     context.addToMessage(msg, BATCHID_KEY, null, object.getBatchId());
-    context.addToMessage(msg, RESULT_KEY, null, object.getResult());
+    context.addToMessageWithClassHeaders(msg, RESULT_KEY, null, object.getResult(), ViewComputationResultModel.class);
     return msg;
   }
 
@@ -50,6 +50,7 @@ public class DataViewClientResource {
   public static final String PATH_DETACH = "detach";
   public static final String PATH_LIVE_DATA_OVERRIDE_INJECTOR = "overrides";
   public static final String PATH_RESULT_MODE = "resultMode";
+  public static final String PATH_FRAGMENT_RESULTS_ENABLED = "fragmentResultsEnabled";
   public static final String PATH_RESUME = "resume";
   public static final String PATH_PAUSE = "pause";
   public static final String PATH_COMPLETED = "completed";
@@ -73,6 +74,7 @@ public class DataViewClientResource {
   public static final String UPDATE_PERIOD_FIELD = "updatePeriod";
   public static final String DESTINATION_FIELD = "destination";
   public static final String VIEW_CYCLE_ACCESS_SUPPORTED_FIELD = "isViewCycleAccessSupported";
+  public static final String FRAGMENT_RESULTS_ENABLED_FIELD = "isFragmentResultsEnabled";
   //CSON: just constants
   
   private final ViewClient _viewClient;
@@ -224,6 +226,22 @@ public class DataViewClientResource {
     return Response.ok().build();
   }
   
+  @GET
+  @Path(PATH_FRAGMENT_RESULTS_ENABLED)
+  public Response isFragmentResultsEnabled() {
+    updateLastAccessed();
+    return Response.ok(getViewClient().isFragmentResultsEnabled()).build();
+  }
+  
+  @POST
+  @Path(PATH_FRAGMENT_RESULTS_ENABLED)
+  public Response setFragmentResultsEnabled(FudgeMsg msg) {
+    updateLastAccessed();
+    boolean isFragmentResultsEnabled = msg.getBoolean(FRAGMENT_RESULTS_ENABLED_FIELD);
+    getViewClient().setFragmentResultsEnabled(isFragmentResultsEnabled);
+    return Response.ok().build();
+  }
+  
   //-------------------------------------------------------------------------
   @POST
   @Path(PATH_PAUSE)
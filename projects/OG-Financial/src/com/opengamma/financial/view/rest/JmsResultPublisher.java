@@ -32,6 +32,7 @@ import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.listener.CycleCompletedCall;
 import com.opengamma.engine.view.listener.CycleExecutionFailedCall;
+import com.opengamma.engine.view.listener.CycleFragmentCompletedCall;
 import com.opengamma.engine.view.listener.ProcessCompletedCall;
 import com.opengamma.engine.view.listener.ProcessTerminatedCall;
 import com.opengamma.engine.view.listener.ViewDefinitionCompilationFailedCall;
@@ -172,6 +173,11 @@ public class JmsResultPublisher implements ViewResultListener {
     send(new ViewDefinitionCompilationFailedCall(valuationTime, exception));
   }
 
+  @Override
+  public void cycleFragmentCompleted(ViewComputationResultModel fragmentResult) {
+    send(new CycleFragmentCompletedCall(fragmentResult));
+  }
+
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
     send(new CycleCompletedCall(fullResult, deltaResult));
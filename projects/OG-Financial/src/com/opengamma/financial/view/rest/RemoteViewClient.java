@@ -358,6 +358,20 @@ public class RemoteViewClient implements ViewClient {
     _client.access(uri).put(viewResultMode);
   }
 
+  @Override
+  public boolean isFragmentResultsEnabled() {
+    URI uri = getUri(_baseUri, DataViewClientResource.PATH_FRAGMENT_RESULTS_ENABLED);
+    return _client.access(uri).get(Boolean.class);
+  }
+
+  @Override
+  public void setFragmentResultsEnabled(boolean isFragmentResultsEnabled) {
+    MutableFudgeMsg msg = FudgeContext.GLOBAL_DEFAULT.newMessage();
+    msg.add(DataViewClientResource.FRAGMENT_RESULTS_ENABLED_FIELD, isFragmentResultsEnabled);
+    URI uri = getUri(_baseUri, DataViewClientResource.PATH_FRAGMENT_RESULTS_ENABLED);
+    _client.access(uri).post(msg);
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public void pause() {
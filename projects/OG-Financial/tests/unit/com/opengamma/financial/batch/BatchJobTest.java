@@ -6,9 +6,16 @@
 package com.opengamma.financial.batch;
 
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
 import static org.testng.AssertJUnit.assertTrue;
 
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 import javax.time.calendar.LocalDate;
 import javax.time.calendar.ZonedDateTime;
@@ -18,6 +25,7 @@ import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.PosixParser;
 import org.testng.annotations.Test;
 
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.holiday.Holiday;
 import com.opengamma.core.holiday.HolidaySource;
 import com.opengamma.core.holiday.HolidayType;
@@ -30,6 +38,7 @@ import com.opengamma.engine.function.FunctionCompilationContext;
 import com.opengamma.engine.function.FunctionExecutionContext;
 import com.opengamma.engine.function.InMemoryFunctionRepository;
 import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
 import com.opengamma.financial.security.MockFinancialSecuritySource;
 import com.opengamma.id.Identifier;
 import com.opengamma.id.IdentifierBundle;
@@ -279,4 +288,126 @@ public class BatchJobTest {
     job.getRuns().get(0).createViewProcessor();
   }
 
+  @Test
+  public void parallelRunsCommandLine() throws Exception {
+    CommandLineBatchJob job = new CommandLineBatchJob();
+    assertEquals(1, job.getParallelRuns());
+    CommandLineParser parser = new PosixParser();
+    CommandLine line = parser.parse(CommandLineBatchJob.getOptions(), "-view TestPortfolio -springXml batch.xml -parallelRuns 4".split(" "));
+    job.initialize(line, null);
+    assertEquals(4, job.getParallelRuns());
+  }
+
+  @Test(expectedExceptions=OpenGammaRuntimeException.class)
+  public void parallelRunsNotANumber() throws Exception {
+    CommandLineBatchJob job = new CommandLineBatchJob();
+    CommandLineParser parser = new PosixParser();
+    CommandLine line = parser.parse(CommandLineBatchJob.getOptions(), "-view TestPortfolio -springXml batch.xml -parallelRuns many".split(" "));
+    job.initialize(line, null);
+  }
+
+  private CommandLineBatchJob createMultipleDateJob(final DummyBatchMaster batchMaster, final int days) throws Exception {
+    UniqueIdentifier portfolioId = UniqueIdentifier.of("foo", "bar");
+    
+    final ConfigDocument<ViewDefinition> cfgDocument = new ConfigDocument<ViewDefinition>(ViewDefinition.class);
+    cfgDocument.setUniqueId(UniqueIdentifier.of("BatchJobTest", "1"));
+    cfgDocument.setName("MyView");
+    cfgDocument.setValue(new ViewDefinition("mock_view", portfolioId, "ViewTestUser"));
+    MockConfigSource cfgSource = new MockConfigSource();
+    cfgSource.add(cfgDocument);
+    
+    LiveDataValue value = new LiveDataValue(new ComputationTargetSpecification(
+        Identifier.of("BUID", "EQ12345")), "BID", 11.22);
+    for (int day = 1; day <= days; day++) {
+      batchMaster.addLiveData(new SnapshotId(LocalDate.of(9999, 9, day), "LDN_CLOSE"), value);
+    }
+
+    CommandLineBatchJob job = new CommandLineBatchJob();
+    job.setBatchMaster(batchMaster);
+    MockPositionSource positionSource = new MockPositionSource();
+    positionSource.addPortfolio(new PortfolioImpl(portfolioId, "test_portfolio"));
+    job.setPositionSource(positionSource);
+    job.setSecuritySource(new MockFinancialSecuritySource());
+    job.setFunctionCompilationService(new CompiledFunctionService(new InMemoryFunctionRepository(), new CachingFunctionRepositoryCompiler(), new FunctionCompilationContext()));
+    job.setFunctionExecutionContext(new FunctionExecutionContext());
+    job.setConfigSource(cfgSource);
+    
+    CommandLineParser parser = new PosixParser();
+    CommandLine line = parser.parse(CommandLineBatchJob.getOptions(), 
+        ("-view MyView -springXml batch.xml -dateRangeStart 99990901 -dateRangeEnd 9999090" + days + " -snapshotDateRange -observationTime LDN_CLOSE").split(" "));
+    job.initialize(line, null);
+    assertEquals(days, job.getRuns().size());
+    return job;
+  }
+
+  @Test
+  public void runsShareCompilation() throws Exception {
+    CommandLineBatchJob job = createMultipleDateJob(new DummyBatchMaster(), 2);
+    
+    CompiledViewDefinitionWithGraphsImpl previous = null;
+    for (CommandLineBatchJobRun run : job.getRuns()) {
+      run.createViewDefinition();
+      run.createViewProcessor();
+      CompiledViewDefinitionWithGraphsImpl compiled = (CompiledViewDefinitionWithGraphsImpl) run.getCompiledViewDefinition();
+      assertEquals(job.getFunctionInitId(), compiled.getFunctionInitId());
+      assertSame(compiled, job.getCompilationCache().get("mock_view"));
+      assertNotSame(previous, compiled);
+      previous = compiled;
+    }
+  }
+
+  @Test
+  public void parallelRunsExecute() throws Exception {
+    final Set<BatchJobRun> started = Collections.synchronizedSet(new HashSet<BatchJobRun>());
+    final Set<BatchJobRun> ended = Collections.synchronizedSet(new HashSet<BatchJobRun>());
+    DummyBatchMaster batchMaster = new DummyBatchMaster() {
+      @Override
+      public void startBatch(BatchJobRun batch) {
+        assertTrue(started.add(batch));
+      }
+      
+      @Override
+      public void endBatch(BatchJobRun batch) {
+        assertTrue(started.contains(batch));
+        assertTrue(ended.add(batch));
+      }
+    };
+    CommandLineBatchJob job = createMultipleDateJob(batchMaster, 4);
+    job.setParallelRuns(2);
+    job.execute();
+    
+    assertEquals(4, ended.size());
+    for (CommandLineBatchJobRun run : job.getRuns()) {
+      assertFalse(run.isFailed());
+      assertTrue(ended.contains(run));
+      // the engine is released once the run completes
+      assertNull(run.getViewProcessor());
+    }
+    assertNotNull(job.getCompilationCache().get("mock_view"));
+  }
+
+  @Test
+  public void failedRunReleasesBatch() throws Exception {
+    final Set<BatchJobRun> failed = Collections.synchronizedSet(new HashSet<BatchJobRun>());
+    DummyBatchMaster batchMaster = new DummyBatchMaster() {
+      @Override
+      public void endBatch(BatchJobRun batch) {
+        throw new OpenGammaRuntimeException("Test failure");
+      }
+      
+      @Override
+      public void failBatch(BatchJobRun batch) {
+        assertTrue(failed.add(batch));
+      }
+    };
+    CommandLineBatchJob job = createMultipleDateJob(batchMaster, 3);
+    job.setParallelRuns(2);
+    job.execute();
+    
+    for (CommandLineBatchJobRun run : job.getRuns()) {
+      assertTrue(run.isFailed());
+      assertTrue(failed.contains(run));
+    }
+  }
+
 }
@@ -31,6 +31,10 @@ public class DummyBatchMaster implements BatchMaster, BatchRunMaster {
   public void endBatch(BatchJobRun batch) {
   }
 
+  @Override
+  public void failBatch(BatchJobRun batch) {
+  }
+
   @Override
   public void createLiveDataSnapshot(SnapshotId snapshotId) {
   }
@@ -5,12 +5,17 @@
  */
 package com.opengamma.master.position.impl;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.apache.commons.lang.StringUtils;
 
 import com.opengamma.DataNotFoundException;
+import com.opengamma.core.position.NotifyingPositionSource;
 import com.opengamma.core.position.Portfolio;
 import com.opengamma.core.position.PortfolioNode;
 import com.opengamma.core.position.Position;
+import com.opengamma.core.position.PositionChangeListener;
 import com.opengamma.core.position.PositionSource;
 import com.opengamma.core.position.Trade;
 import com.opengamma.core.position.impl.CounterpartyImpl;
@@ -21,6 +26,9 @@ import com.opengamma.core.position.impl.TradeImpl;
 import com.opengamma.id.UniqueIdentifier;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.master.VersionedSource;
+import com.opengamma.master.listener.MasterChangeListener;
+import com.opengamma.master.listener.MasterChanged;
+import com.opengamma.master.listener.NotifyingMaster;
 import com.opengamma.master.portfolio.ManageablePortfolio;
 import com.opengamma.master.portfolio.ManageablePortfolioNode;
 import com.opengamma.master.portfolio.PortfolioMaster;
@@ -34,6 +42,7 @@ import com.opengamma.master.position.PositionSearchRequest;
 import com.opengamma.master.position.PositionSearchResult;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.PublicSPI;
+import com.opengamma.util.tuple.Pair;
 
 /**
  * A {@code PositionSource} implemented using an underlying {@code PositionMaster}.
@@ -42,7 +51,7 @@ import com.opengamma.util.PublicSPI;
  * This class provides the source on top of a standard {@link PortfolioMaster}.
  */
 @PublicSPI
-public class MasterPositionSource implements PositionSource, VersionedSource {
+public class MasterPositionSource implements NotifyingPositionSource, VersionedSource {
   // TODO: This still needs work re versioning, as it crosses the boundary between two masters
 
   /**
@@ -57,6 +66,11 @@ public class MasterPositionSource implements PositionSource, VersionedSource {
    * The version-correction locator to search at, null to not override versions.
    */
   private volatile VersionCorrection _versionCorrection;
+  /**
+   * The listeners registered with the masters, keyed by the listener they notify.
+   */
+  private final ConcurrentMap<PositionChangeListener, Pair<MasterChangeListener, MasterChangeListener>> _registeredListeners =
+    new ConcurrentHashMap<PositionChangeListener, Pair<MasterChangeListener, MasterChangeListener>>();
 
   /**
    * Creates an instance with underlying masters which does not override versions.
@@ -327,6 +341,49 @@ public class MasterPositionSource implements PositionSource, VersionedSource {
         StringUtils.defaultString(nodeId.getVersion()) + '-' + StringUtils.defaultString(positionOrTradeId.getVersion()));
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * Adds a listener for changes to the portfolios and positions. Changes to portfolios are only notified if the
+   * portfolio master can send events.
+   * 
+   * @param listener  the listener to add, not null
+   */
+  @Override
+  public void addChangeListener(final PositionChangeListener listener) {
+    ArgumentChecker.notNull(listener, "listener");
+    final MasterChangeListener portfolioListener = new MasterChangeListener() {
+      @Override
+      public void masterChanged(MasterChanged event) {
+        listener.portfolioChanged(event.getBeforeId(), event.getAfterId());
+      }
+    };
+    final MasterChangeListener positionListener = new MasterChangeListener() {
+      @Override
+      public void masterChanged(MasterChanged event) {
+        listener.positionChanged(event.getBeforeId(), event.getAfterId());
+      }
+    };
+    if (_registeredListeners.putIfAbsent(listener, Pair.of(portfolioListener, positionListener)) != null) {
+      return;
+    }
+    if (getPortfolioMaster() instanceof NotifyingMaster) {
+      ((NotifyingMaster) getPortfolioMaster()).changeManager().addChangeListener(portfolioListener);
+    }
+    getPositionMaster().changeManager().addChangeListener(positionListener);
+  }
+
+  @Override
+  public void removeChangeListener(final PositionChangeListener listener) {
+    final Pair<MasterChangeListener, MasterChangeListener> masterListeners = _registeredListeners.remove(listener);
+    if (masterListeners == null) {
+      return;
+    }
+    if (getPortfolioMaster() instanceof NotifyingMaster) {
+      ((NotifyingMaster) getPortfolioMaster()).changeManager().removeChangeListener(masterListeners.getFirst());
+    }
+    getPositionMaster().changeManager().removeChangeListener(masterListeners.getSecond());
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public String toString() {
@@ -0,0 +1,363 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.master.timeseries.impl;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.calendar.LocalDate;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.id.IdentifierBundle;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.master.listener.MasterChangeListener;
+import com.opengamma.master.listener.MasterChangeManager;
+import com.opengamma.master.listener.MasterChanged;
+import com.opengamma.master.listener.NotifyingMaster;
+import com.opengamma.master.timeseries.TimeSeriesMaster;
+import com.opengamma.master.timeseries.TimeSeriesMetaDataResolver;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+import com.opengamma.util.tuple.ObjectsPair;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * A cache to optimize the results of {@code MasterHistoricalDataSource}.
+ * <p>
+ * The cache holds the whole of each time-series once, by unique identifier, and serves any range
+ * of dates by slicing it. The lookup from identifier bundle and meta-data to unique identifier is
+ * cached separately, so requests for different ranges or current dates share the cached points.
+ * <p>
+ * When given a change manager, normally that of the master, the cache is kept up to date instead
+ * of being reloaded. Points added after the end of a cached time-series are loaded on their own and
+ * appended to it, while corrections to existing points evict the time-series. Adding or removing
+ * a time-series clears the cached lookups, but not the cached points.
+ */
+public class EHCachingMasterHistoricalDataSource extends MasterHistoricalDataSource {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(EHCachingMasterHistoricalDataSource.class);
+  /**
+   * Cache key for time-series.
+   */
+  private static final String SERIES_CACHE = "historicalDataSeries";
+  /**
+   * Cache key for unique identifiers.
+   */
+  private static final String UNIQUE_ID_CACHE = "historicalDataUniqueId";
+
+  /**
+   * The cache manager.
+   */
+  private final CacheManager _cacheManager;
+  /**
+   * The time-series cache, keyed by unique identifier.
+   */
+  private final Cache _seriesCache;
+  /**
+   * The unique identifier cache, keyed by identifier bundle and meta-data.
+   */
+  private final Cache _uniqueIdCache;
+  /**
+   * The lock held while changing the caches.
+   */
+  private final Object _lock = new Object();
+  /**
+   * The number of changes received, guarded by the lock.
+   * Results loaded while a change is received are not cached, as they may be out of date.
+   */
+  private long _changeCount;
+
+  /**
+   * Creates the cache around an underlying time-series master.
+   * <p>
+   * The cache is kept up to date if the master is a {@link NotifyingMaster}.
+   *
+   * @param timeSeriesMaster  the time-series master, not null
+   * @param timeSeriesResolver  the time-series resolver, not null
+   * @param cacheManager  the cache manager, not null
+   */
+  public EHCachingMasterHistoricalDataSource(
+      final TimeSeriesMaster<LocalDate> timeSeriesMaster, final TimeSeriesMetaDataResolver timeSeriesResolver, final CacheManager cacheManager) {
+    this(timeSeriesMaster, timeSeriesResolver, cacheManager,
+        timeSeriesMaster instanceof NotifyingMaster ? ((NotifyingMaster) timeSeriesMaster).changeManager() : null);
+  }
+
+  /**
+   * Creates the cache around an underlying time-series master.
+   *
+   * @param timeSeriesMaster  the time-series master, not null
+   * @param timeSeriesResolver  the time-series resolver, not null
+   * @param cacheManager  the cache manager, not null
+   * @param changeManager  the change manager announcing changes to the master, null if changes are not announced
+   */
+  public EHCachingMasterHistoricalDataSource(
+      final TimeSeriesMaster<LocalDate> timeSeriesMaster, final TimeSeriesMetaDataResolver timeSeriesResolver, final CacheManager cacheManager,
+      final MasterChangeManager changeManager) {
+    super(timeSeriesMaster, timeSeriesResolver);
+    ArgumentChecker.notNull(cacheManager, "cacheManager");
+    _cacheManager = cacheManager;
+    EHCacheUtils.addCache(cacheManager, SERIES_CACHE);
+    EHCacheUtils.addCache(cacheManager, UNIQUE_ID_CACHE);
+    _seriesCache = EHCacheUtils.getCacheFromManager(cacheManager, SERIES_CACHE);
+    _uniqueIdCache = EHCacheUtils.getCacheFromManager(cacheManager, UNIQUE_ID_CACHE);
+    if (changeManager != null) {
+      changeManager.addChangeListener(new MasterChangeListener() {
+        @Override
+        public void masterChanged(final MasterChanged event) {
+          handleChange(event);
+        }
+      });
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the cache manager.
+   *
+   * @return the cache manager, not null
+   */
+  public CacheManager getCacheManager() {
+    return _cacheManager;
+  }
+
+  /**
+   * Call this at the end of a unit test run to clear the state of EHCache.
+   * It should not be part of a generic lifecycle method.
+   */
+  protected void shutdown() {
+    _cacheManager.removeCache(SERIES_CACHE);
+    _cacheManager.removeCache(UNIQUE_ID_CACHE);
+    _cacheManager.shutdown();
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  protected Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> getHistoricalData(IdentifierBundle securityBundle, LocalDate currentDate,
+      String dataSource, String dataProvider, String dataField, LocalDate start, LocalDate end) {
+    MetaDataKey key = new MetaDataKey(securityBundle, currentDate, dataSource, dataProvider, dataField);
+    Element element = _uniqueIdCache.get(key);
+    if (element != null) {
+      UniqueIdentifier uniqueId = (UniqueIdentifier) element.getObjectValue();
+      LocalDateDoubleTimeSeries timeSeries = (uniqueId != null ? getHistoricalData(uniqueId, start, end) : new ArrayLocalDateDoubleTimeSeries());
+      return new ObjectsPair<UniqueIdentifier, LocalDateDoubleTimeSeries>(uniqueId, timeSeries);
+    }
+    long changeCount = getChangeCount();
+    Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> result = super.getHistoricalData(
+        securityBundle, currentDate, dataSource, dataProvider, dataField, (LocalDate) null, (LocalDate) null);
+    cache(key, result, changeCount);
+    return new ObjectsPair<UniqueIdentifier, LocalDateDoubleTimeSeries>(result.getFirst(), slice(result.getSecond(), start, true, end, false));
+  }
+
+  @Override
+  protected LocalDateDoubleTimeSeries getHistoricalData(UniqueIdentifier uniqueId, LocalDate start, LocalDate end) {
+    return slice(getWholeTimeSeries(uniqueId), start, true, end, false);
+  }
+
+  @Override
+  public Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> getHistoricalData(
+      Set<IdentifierBundle> identifierSet, String dataSource, String dataProvider, String dataField, LocalDate start,
+      boolean inclusiveStart, LocalDate end, boolean exclusiveEnd) {
+    ArgumentChecker.notNull(identifierSet, "identifierSet");
+    Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> result = new HashMap<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>>();
+    Set<IdentifierBundle> misses = new HashSet<IdentifierBundle>();
+    for (IdentifierBundle identifiers : identifierSet) {
+      Element element = _uniqueIdCache.get(new MetaDataKey(identifiers, null, dataSource, dataProvider, dataField));
+      if (element != null) {
+        UniqueIdentifier uniqueId = (UniqueIdentifier) element.getObjectValue();
+        LocalDateDoubleTimeSeries timeSeries = (uniqueId != null ? getWholeTimeSeries(uniqueId) : new ArrayLocalDateDoubleTimeSeries());
+        result.put(identifiers, new ObjectsPair<UniqueIdentifier, LocalDateDoubleTimeSeries>(
+            uniqueId, slice(timeSeries, start, inclusiveStart, end, exclusiveEnd)));
+      } else {
+        misses.add(identifiers);
+      }
+    }
+    if (!misses.isEmpty()) {
+      long changeCount = getChangeCount();
+      Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> loaded = super.getHistoricalData(
+          misses, dataSource, dataProvider, dataField, null, true, null, false);
+      for (IdentifierBundle identifiers : misses) {
+        Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> pair = loaded.get(identifiers);
+        cache(new MetaDataKey(identifiers, null, dataSource, dataProvider, dataField), pair, changeCount);
+        result.put(identifiers, new ObjectsPair<UniqueIdentifier, LocalDateDoubleTimeSeries>(
+            pair.getFirst(), slice(pair.getSecond(), start, inclusiveStart, end, exclusiveEnd)));
+      }
+    }
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the whole of a time-series, loading and caching it if necessary.
+   *
+   * @param uniqueId  the unique identifier, not null
+   * @return the time-series, empty if not found, not null
+   */
+  private LocalDateDoubleTimeSeries getWholeTimeSeries(UniqueIdentifier uniqueId) {
+    Element element = _seriesCache.get(uniqueId);
+    if (element != null) {
+      return (LocalDateDoubleTimeSeries) element.getObjectValue();
+    }
+    long changeCount = getChangeCount();
+    LocalDateDoubleTimeSeries timeSeries = super.getHistoricalData(uniqueId, (LocalDate) null, (LocalDate) null);
+    synchronized (_lock) {
+      if (changeCount == _changeCount) {
+        _seriesCache.put(new Element(uniqueId, timeSeries));
+      }
+    }
+    return timeSeries;
+  }
+
+  private long getChangeCount() {
+    synchronized (_lock) {
+      return _changeCount;
+    }
+  }
+
+  /**
+   * Caches the result of a lookup, unless a change was received since it was loaded.
+   */
+  private void cache(MetaDataKey key, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> result, long changeCount) {
+    synchronized (_lock) {
+      if (changeCount == _changeCount) {
+        _uniqueIdCache.put(new Element(key, result.getFirst()));
+        if (result.getFirst() != null) {
+          _seriesCache.put(new Element(result.getFirst(), result.getSecond()));
+        }
+      }
+    }
+  }
+
+  private static LocalDateDoubleTimeSeries slice(LocalDateDoubleTimeSeries timeSeries, LocalDate start, boolean inclusiveStart, LocalDate end, boolean exclusiveEnd) {
+    if ((start == null && end == null) || timeSeries.isEmpty()) {
+      return timeSeries;
+    }
+    return (LocalDateDoubleTimeSeries) timeSeries.subSeries(start, inclusiveStart, end, exclusiveEnd);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Updates the caches when the master changes.
+   *
+   * @param event  the change event, not null
+   */
+  private void handleChange(final MasterChanged event) {
+    synchronized (_lock) {
+      _changeCount++;
+      switch (event.getType()) {
+        case UPDATED:
+          appendPoints(event.getAfterId());
+          break;
+        case ADDED:
+        case REMOVED:
+          _uniqueIdCache.removeAll();
+          evict(event.getBeforeId());
+          evict(event.getAfterId());
+          break;
+        default:
+          evict(event.getBeforeId());
+          evict(event.getAfterId());
+          break;
+      }
+    }
+  }
+
+  private void evict(UniqueIdentifier uniqueId) {
+    if (uniqueId != null) {
+      _seriesCache.remove(uniqueId);
+    }
+  }
+
+  /**
+   * Appends the points added after the end of a cached time-series.
+   *
+   * @param uniqueId  the unique identifier of the time-series, null ignored
+   */
+  private void appendPoints(UniqueIdentifier uniqueId) {
+    Element element = (uniqueId != null ? _seriesCache.get(uniqueId) : null);
+    if (element == null) {
+      return;
+    }
+    LocalDateDoubleTimeSeries cached = (LocalDateDoubleTimeSeries) element.getObjectValue();
+    LocalDate start = (cached.isEmpty() ? null : cached.getLatestTime().plusDays(1));
+    LocalDateDoubleTimeSeries added = super.getHistoricalData(uniqueId, start, (LocalDate) null);
+    if (added.isEmpty()) {
+      return;
+    }
+    s_logger.debug("Appending {} points to cached time-series {}", added.size(), uniqueId);
+    FastIntDoubleTimeSeries first = cached.toFastIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS);
+    FastIntDoubleTimeSeries second = added.toFastIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS);
+    int firstSize = first.size();
+    int secondSize = second.size();
+    int[] days = new int[firstSize + secondSize];
+    double[] values = new double[firstSize + secondSize];
+    System.arraycopy(first.timesArrayFast(), 0, days, 0, firstSize);
+    System.arraycopy(first.valuesArrayFast(), 0, values, 0, firstSize);
+    System.arraycopy(second.timesArrayFast(), 0, days, firstSize, secondSize);
+    System.arraycopy(second.valuesArrayFast(), 0, values, firstSize, secondSize);
+    _seriesCache.put(new Element(uniqueId, new ArrayLocalDateDoubleTimeSeries(
+        new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, days, values))));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Key for the lookup of a time-series by identifier bundle and meta-data.
+   */
+  private static final class MetaDataKey implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final IdentifierBundle _identifiers;
+    private final LocalDate _currentDate;
+    private final String _dataSource;
+    private final String _dataProvider;
+    private final String _dataField;
+
+    private MetaDataKey(IdentifierBundle identifiers, LocalDate currentDate, String dataSource, String dataProvider, String dataField) {
+      _identifiers = identifiers;
+      _currentDate = currentDate;
+      _dataSource = dataSource;
+      _dataProvider = dataProvider;
+      _dataField = dataField;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (obj == this) {
+        return true;
+      }
+      if (obj instanceof MetaDataKey) {
+        MetaDataKey other = (MetaDataKey) obj;
+        return ObjectUtils.equals(_identifiers, other._identifiers) &&
+            ObjectUtils.equals(_currentDate, other._currentDate) &&
+            ObjectUtils.equals(_dataSource, other._dataSource) &&
+            ObjectUtils.equals(_dataProvider, other._dataProvider) &&
+            ObjectUtils.equals(_dataField, other._dataField);
+      }
+      return false;
+    }
+
+    @Override
+    public int hashCode() {
+      return ObjectUtils.hashCode(_identifiers) ^ ObjectUtils.hashCode(_currentDate) ^ ObjectUtils.hashCode(_dataSource) ^
+          ObjectUtils.hashCode(_dataProvider) ^ ObjectUtils.hashCode(_dataField);
+    }
+  }
+
+}
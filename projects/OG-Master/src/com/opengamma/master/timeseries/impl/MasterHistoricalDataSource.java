@@ -5,13 +5,13 @@
  */
 package com.opengamma.master.timeseries.impl;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import javax.time.calendar.LocalDate;
 
-import org.apache.commons.lang.NotImplementedException;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -81,7 +81,21 @@ public class MasterHistoricalDataSource implements HistoricalDataSource {
     return getHistoricalData(securityBundle, (LocalDate) null, dataSource, dataProvider, dataField, (LocalDate) null, (LocalDate) null);
   }
 
-  private Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> getHistoricalData(IdentifierBundle securityBundle, LocalDate currentDate, 
+  /**
+   * Finds a time-series by identifier bundle and meta-data, with the data points between two dates.
+   * <p>
+   * All the lookups by identifier bundle are routed through this method.
+   * 
+   * @param securityBundle  the identifier bundle, not null
+   * @param currentDate  the date used to check the validity of the identifiers, null to ignore validity
+   * @param dataSource  the data source, not null
+   * @param dataProvider  the data provider, null to match any
+   * @param dataField  the data field, not null
+   * @param start  the first date to load, inclusive, null for the earliest point
+   * @param end  the last date to load, inclusive, null for the latest point
+   * @return the unique identifier, null if not found, and the time-series, empty if not found, not null
+   */
+  protected Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> getHistoricalData(IdentifierBundle securityBundle, LocalDate currentDate, 
       String dataSource, String dataProvider, String dataField, LocalDate start, LocalDate end) {
     ArgumentChecker.notNull(securityBundle, "identifiers");
     ArgumentChecker.notNull(dataSource, "dataSource");
@@ -118,7 +132,17 @@ public class MasterHistoricalDataSource implements HistoricalDataSource {
     return getHistoricalData(uniqueId, null, null);
   }
 
-  private LocalDateDoubleTimeSeries getHistoricalData(UniqueIdentifier uniqueId, LocalDate start, LocalDate end) {
+  /**
+   * Finds a time-series by unique identifier, with the data points between two dates.
+   * <p>
+   * All the lookups by unique identifier are routed through this method.
+   * 
+   * @param uniqueId  the unique identifier, not null
+   * @param start  the first date to load, inclusive, null for the earliest point
+   * @param end  the last date to load, inclusive, null for the latest point
+   * @return the time-series, empty if not found, not null
+   */
+  protected LocalDateDoubleTimeSeries getHistoricalData(UniqueIdentifier uniqueId, LocalDate start, LocalDate end) {
     ArgumentChecker.notNull(uniqueId, "uniqueId");
     TimeSeriesSearchRequest<LocalDate> request = new TimeSeriesSearchRequest<LocalDate>();
     request.setLoadTimeSeries(true);
@@ -240,8 +264,52 @@ public class MasterHistoricalDataSource implements HistoricalDataSource {
   public Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> getHistoricalData(
       Set<IdentifierBundle> identifierSet, String dataSource, String dataProvider, String dataField, LocalDate start,
       boolean inclusiveStart, LocalDate end, boolean exclusiveEnd) {
-    // TODO [PLAT-1046]
-    throw new NotImplementedException();
+    ArgumentChecker.notNull(identifierSet, "identifierSet");
+    ArgumentChecker.notNull(dataSource, "dataSource");
+    ArgumentChecker.notNull(dataField, "field");
+    if (start != null && !inclusiveStart) {
+      start = start.plusDays(1);
+    }
+    if (end != null && exclusiveEnd) {
+      end = end.minusDays(1);
+    }
+    
+    // one search for all the bundles, matched back to each bundle afterwards
+    Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> result = new HashMap<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>>();
+    if (identifierSet.isEmpty()) {
+      return result;
+    }
+    TimeSeriesSearchRequest<LocalDate> request = new TimeSeriesSearchRequest<LocalDate>();
+    for (IdentifierBundle identifiers : identifierSet) {
+      request.getIdentifiers().addAll(identifiers.getIdentifiers());
+    }
+    request.setDataSource(dataSource);
+    request.setDataProvider(dataProvider);
+    request.setDataField(dataField);
+    request.setStart(start);
+    request.setEnd(end);
+    request.setLoadTimeSeries(true);
+    
+    List<TimeSeriesDocument<LocalDate>> documents = getTimeSeriesMaster().searchTimeSeries(request).getDocuments();
+    for (IdentifierBundle identifiers : identifierSet) {
+      TimeSeriesDocument<LocalDate> match = null;
+      for (TimeSeriesDocument<LocalDate> document : documents) {
+        if (document.getIdentifiers().asIdentifierBundle().containsAny(identifiers)) {
+          if (match != null) {
+            Object[] param = new Object[]{identifiers, dataSource, dataProvider, dataField, start, end};
+            s_logger.warn("multiple timeseries return for identifiers={}, dataSource={}, dataProvider={}, dataField={}, start={} end={}", param);
+            break;
+          }
+          match = document;
+        }
+      }
+      if (match != null) {
+        result.put(identifiers, new ObjectsPair<UniqueIdentifier, LocalDateDoubleTimeSeries>(match.getUniqueId(), match.getTimeSeries().toLocalDateDoubleTimeSeries()));
+      } else {
+        result.put(identifiers, new ObjectsPair<UniqueIdentifier, LocalDateDoubleTimeSeries>(null, new ArrayLocalDateDoubleTimeSeries()));
+      }
+    }
+    return result;
   }
 
   //-------------------------------------------------------------------------
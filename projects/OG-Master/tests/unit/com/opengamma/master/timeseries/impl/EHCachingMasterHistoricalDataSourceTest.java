@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.master.timeseries.impl;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.Identifier;
+import com.opengamma.id.IdentifierBundle;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.master.listener.BasicMasterChangeManager;
+import com.opengamma.master.listener.MasterChangedType;
+import com.opengamma.master.timeseries.TimeSeriesDocument;
+import com.opengamma.master.timeseries.TimeSeriesMaster;
+import com.opengamma.master.timeseries.TimeSeriesMetaDataResolver;
+import com.opengamma.master.timeseries.TimeSeriesSearchRequest;
+import com.opengamma.master.timeseries.TimeSeriesSearchResult;
+import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Test EHCachingMasterHistoricalDataSource.
+ */
+@Test
+public class EHCachingMasterHistoricalDataSourceTest {
+
+  private static final UniqueIdentifier UID = UniqueIdentifier.of("A", "1");
+  private static final IdentifierBundle IDENTIFIERS = IdentifierBundle.of(Identifier.of("A", "B"));
+  private static final String DATA_SOURCE = "BLOOMBERG";
+  private static final String DATA_PROVIDER = "CMPL";
+  private static final String DATA_FIELD = "CLOSE";
+  private static final LocalDate DATE = LocalDate.of(2011, 1, 3);
+
+  private TimeSeriesMaster<LocalDate> _mockMaster;
+  private BasicMasterChangeManager _changeManager;
+  private EHCachingMasterHistoricalDataSource _cachingSource;
+
+  @BeforeMethod
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    _mockMaster = mock(TimeSeriesMaster.class);
+    _changeManager = new BasicMasterChangeManager();
+    _cachingSource = new EHCachingMasterHistoricalDataSource(
+        _mockMaster, mock(TimeSeriesMetaDataResolver.class), EHCacheUtils.createCacheManager(), _changeManager);
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    if (_cachingSource != null) {
+      _cachingSource.shutdown();
+    }
+    _cachingSource = null;
+    _changeManager = null;
+    _mockMaster = null;
+  }
+
+  //-------------------------------------------------------------------------
+  public void rangesServedFromOneLoad() {
+    TimeSeriesSearchRequest<LocalDate> request = bundleRequest();
+    when(_mockMaster.searchTimeSeries(request)).thenReturn(result(timeSeries(DATE, 10)));
+
+    Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> whole = _cachingSource.getHistoricalData(IDENTIFIERS, DATA_SOURCE, DATA_PROVIDER, DATA_FIELD);
+    Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> range = _cachingSource.getHistoricalData(
+        IDENTIFIERS, DATA_SOURCE, DATA_PROVIDER, DATA_FIELD, DATE.plusDays(2), true, DATE.plusDays(5), true);
+    LocalDateDoubleTimeSeries byUid = _cachingSource.getHistoricalData(UID, DATE.plusDays(8), false, DATE.plusDays(9), false);
+    verify(_mockMaster, times(1)).searchTimeSeries(request);
+
+    assertEquals(UID, whole.getFirst());
+    assertEquals(10, whole.getSecond().size());
+    assertEquals(UID, range.getFirst());
+    assertEquals(3, range.getSecond().size());
+    assertEquals(DATE.plusDays(2), range.getSecond().getEarliestTime());
+    assertEquals(1, byUid.size());
+    assertEquals(DATE.plusDays(9), byUid.getEarliestTime());
+  }
+
+  public void appendOnUpdate() {
+    TimeSeriesSearchRequest<LocalDate> request = bundleRequest();
+    when(_mockMaster.searchTimeSeries(request)).thenReturn(result(timeSeries(DATE, 10)));
+    TimeSeriesSearchRequest<LocalDate> appendRequest = uidRequest(DATE.plusDays(10));
+    when(_mockMaster.searchTimeSeries(appendRequest)).thenReturn(result(timeSeries(DATE.plusDays(10), 2)));
+
+    _cachingSource.getHistoricalData(IDENTIFIERS, DATA_SOURCE, DATA_PROVIDER, DATA_FIELD);
+    _changeManager.masterChanged(MasterChangedType.UPDATED, UID, UID, Instant.now());
+    Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> appended = _cachingSource.getHistoricalData(IDENTIFIERS, DATA_SOURCE, DATA_PROVIDER, DATA_FIELD);
+    verify(_mockMaster, times(1)).searchTimeSeries(request);
+    verify(_mockMaster, times(1)).searchTimeSeries(appendRequest);
+
+    assertEquals(12, appended.getSecond().size());
+    assertEquals(DATE, appended.getSecond().getEarliestTime());
+    assertEquals(DATE.plusDays(11), appended.getSecond().getLatestTime());
+  }
+
+  public void evictOnCorrection() {
+    TimeSeriesSearchRequest<LocalDate> request = bundleRequest();
+    when(_mockMaster.searchTimeSeries(request)).thenReturn(result(timeSeries(DATE, 10)));
+    TimeSeriesSearchRequest<LocalDate> reloadRequest = uidRequest(null);
+    when(_mockMaster.searchTimeSeries(reloadRequest)).thenReturn(result(timeSeries(DATE, 5)));
+
+    _cachingSource.getHistoricalData(IDENTIFIERS, DATA_SOURCE, DATA_PROVIDER, DATA_FIELD);
+    _changeManager.masterChanged(MasterChangedType.CORRECTED, UID, UID, Instant.now());
+    Pair<UniqueIdentifier, LocalDateDoubleTimeSeries> corrected = _cachingSource.getHistoricalData(IDENTIFIERS, DATA_SOURCE, DATA_PROVIDER, DATA_FIELD);
+    verify(_mockMaster, times(1)).searchTimeSeries(request);
+    verify(_mockMaster, times(1)).searchTimeSeries(reloadRequest);
+
+    assertEquals(UID, corrected.getFirst());
+    assertEquals(5, corrected.getSecond().size());
+  }
+
+  //-------------------------------------------------------------------------
+  private static TimeSeriesSearchRequest<LocalDate> bundleRequest() {
+    TimeSeriesSearchRequest<LocalDate> request = new TimeSeriesSearchRequest<LocalDate>();
+    request.getIdentifiers().addAll(IDENTIFIERS.getIdentifiers());
+    request.setDataSource(DATA_SOURCE);
+    request.setDataProvider(DATA_PROVIDER);
+    request.setDataField(DATA_FIELD);
+    request.setLoadTimeSeries(true);
+    return request;
+  }
+
+  private static TimeSeriesSearchRequest<LocalDate> uidRequest(LocalDate start) {
+    TimeSeriesSearchRequest<LocalDate> request = new TimeSeriesSearchRequest<LocalDate>();
+    request.setTimeSeriesId(UID);
+    request.setStart(start);
+    request.setLoadTimeSeries(true);
+    return request;
+  }
+
+  private static TimeSeriesSearchResult<LocalDate> result(LocalDateDoubleTimeSeries timeSeries) {
+    TimeSeriesDocument<LocalDate> document = new TimeSeriesDocument<LocalDate>();
+    document.setUniqueId(UID);
+    document.setTimeSeries(timeSeries);
+    TimeSeriesSearchResult<LocalDate> result = new TimeSeriesSearchResult<LocalDate>();
+    result.getDocuments().add(document);
+    return result;
+  }
+
+  private static LocalDateDoubleTimeSeries timeSeries(LocalDate start, int size) {
+    LocalDate[] dates = new LocalDate[size];
+    double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      dates[i] = start.plusDays(i);
+      values[i] = i;
+    }
+    return new ArrayLocalDateDoubleTimeSeries(dates, values);
+  }
+
+}
@@ -15,10 +15,15 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 import javax.time.calendar.LocalDate;
 
 import com.opengamma.id.Identifier;
 import com.opengamma.id.IdentifierBundle;
+import com.opengamma.id.IdentifierBundleWithDates;
 import com.opengamma.id.UniqueIdentifier;
 import com.opengamma.master.timeseries.TimeSeriesDocument;
 import com.opengamma.master.timeseries.TimeSeriesMaster;
@@ -200,6 +205,54 @@ public class MasterHistoricalDataSourceTest {
     return dts;
   }
 
+  public void getHistoricalDataForMultipleBundles() throws Exception {
+    IdentifierBundle otherIdentifiers = IdentifierBundle.of(Identifier.of("A", "C"));
+    IdentifierBundle missingIdentifiers = IdentifierBundle.of(Identifier.of("A", "D"));
+    Set<IdentifierBundle> identifierSet = new LinkedHashSet<IdentifierBundle>();
+    identifierSet.add(IDENTIFIERS);
+    identifierSet.add(otherIdentifiers);
+    identifierSet.add(missingIdentifiers);
+    LocalDate start = DateUtil.previousWeekDay().minusDays(7);
+    LocalDate end = DateUtil.previousWeekDay();
+    
+    TimeSeriesSearchRequest<LocalDate> request = new TimeSeriesSearchRequest<LocalDate>();
+    request.getIdentifiers().addAll(IDENTIFIERS.getIdentifiers());
+    request.getIdentifiers().addAll(otherIdentifiers.getIdentifiers());
+    request.getIdentifiers().addAll(missingIdentifiers.getIdentifiers());
+    request.setDataSource(BBG_DATA_SOURCE);
+    request.setDataProvider(CMPL_DATA_PROVIDER);
+    request.setDataField(CLOSE_DATA_FIELD);
+    request.setStart(start);
+    request.setEnd(end.minusDays(1));
+    request.setLoadTimeSeries(true);
+    
+    TimeSeriesSearchResult<LocalDate> searchResult = new TimeSeriesSearchResult<LocalDate>();
+    TimeSeriesDocument<LocalDate> tsDoc = new TimeSeriesDocument<LocalDate>();
+    tsDoc.setIdentifiers(IdentifierBundleWithDates.of(IDENTIFIERS));
+    tsDoc.setTimeSeries(randomTimeSeries());
+    tsDoc.setUniqueId(UID);
+    searchResult.getDocuments().add(tsDoc);
+    TimeSeriesDocument<LocalDate> otherDoc = new TimeSeriesDocument<LocalDate>();
+    otherDoc.setIdentifiers(IdentifierBundleWithDates.of(otherIdentifiers));
+    otherDoc.setTimeSeries(randomTimeSeries());
+    otherDoc.setUniqueId(UniqueIdentifier.of("A", "2"));
+    searchResult.getDocuments().add(otherDoc);
+    
+    when(_mockMaster.searchTimeSeries(request)).thenReturn(searchResult);
+    
+    Map<IdentifierBundle, Pair<UniqueIdentifier, LocalDateDoubleTimeSeries>> result = _tsSource.getHistoricalData(
+        identifierSet, BBG_DATA_SOURCE, CMPL_DATA_PROVIDER, CLOSE_DATA_FIELD, start, true, end, true);
+    verify(_mockMaster, times(1)).searchTimeSeries(request);
+    
+    assertEquals(3, result.size());
+    assertEquals(UID, result.get(IDENTIFIERS).getFirst());
+    assertEquals(tsDoc.getTimeSeries().values(), result.get(IDENTIFIERS).getSecond().values());
+    assertEquals(otherDoc.getUniqueId(), result.get(otherIdentifiers).getFirst());
+    assertEquals(otherDoc.getTimeSeries().values(), result.get(otherIdentifiers).getSecond().values());
+    assertEquals(null, result.get(missingIdentifiers).getFirst());
+    assertEquals(true, result.get(missingIdentifiers).getSecond().isEmpty());
+  }
+
   public void getHistoricalDataByUID() throws Exception {
     TimeSeriesSearchRequest<LocalDate> request = new TimeSeriesSearchRequest<LocalDate>();
     request.setTimeSeriesId(UID);
@@ -0,0 +1,13 @@
+
+CREATE TABLE tss_data_point_chunk (
+	meta_data_id BIGINT NOT NULL
+	  constraint fk_dp_chunk_meta_data  REFERENCES tss_meta_data (id),
+	first_date date NOT NULL,
+	last_date date NOT NULL,
+	point_count INT NOT NULL,
+	ver_from_instant TIMESTAMP NOT NULL,
+	ver_to_instant TIMESTAMP NOT NULL,
+	data blob NOT NULL,
+	constraint tss_chk_dp_chunk_ver_order check (ver_from_instant <= ver_to_instant)
+);
+CREATE INDEX idx_dp_chunk_meta_data ON tss_data_point_chunk (meta_data_id, ver_to_instant, first_date);
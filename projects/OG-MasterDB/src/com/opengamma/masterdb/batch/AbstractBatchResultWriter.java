@@ -6,34 +6,50 @@
 package com.opengamma.masterdb.batch;
 
 import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.sql.DataSource;
+
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
 import org.hibernate.engine.SessionFactoryImplementor;
 import org.hibernate.engine.SessionImplementor;
 import org.hibernate.id.IdentifierGenerator;
 import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
 import com.opengamma.financial.conversion.ResultConverterCache;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.db.DbSource;
+import com.opengamma.util.db.PostgreSQLDbHelper;
 import com.opengamma.util.tuple.Pair;
 
 /**
@@ -45,6 +61,16 @@ public abstract class AbstractBatchResultWriter {
   
   private static final Logger s_logger = LoggerFactory.getLogger(AbstractBatchResultWriter.class);
   
+  /**
+   * Number of rows in each multi-row insert of risk values
+   */
+  private static final int INSERT_ROWS_PER_STATEMENT = 100;
+  
+  /**
+   * Number of risk values sent to PostgreSQL COPY at a time
+   */
+  private static final int COPY_ROWS_PER_WRITE = 1000;
+  
   /**
    * DB configuration
    */
@@ -97,6 +123,12 @@ public abstract class AbstractBatchResultWriter {
   private final Map<ComputeFailureKey, ComputeFailure> _key2ComputeFailure = 
     Collections.synchronizedMap(new HashMap<ComputeFailureKey, ComputeFailure>());
   
+  /**
+   * Whether risk values can be streamed into the database with PostgreSQL COPY,
+   * null until the first attempt
+   */
+  private volatile Boolean _copySupported;
+  
   /**
    * Used to write non-Double results into database
    */
@@ -215,6 +247,10 @@ public abstract class AbstractBatchResultWriter {
   public SimpleJdbcTemplate getJdbcTemplate() {
     return _dbSource.getJdbcTemplate();
   }
+  
+  public TransactionTemplate getTransactionTemplate() {
+    return _dbSource.getTransactionTemplate();
+  }
 
   // --------------------------------------------------------------------------
 
@@ -332,6 +368,41 @@ public abstract class AbstractBatchResultWriter {
     return dbId;
   }
 
+  /**
+   * Looks up, in bulk, the database IDs of any of the given value names
+   * that have not been looked up before, so that later calls to 
+   * {@link #getValueNameId(String)} do not go to the database one name at a time.
+   * 
+   * @param names  the risk value names, not null
+   */
+  public void resolveValueNameIds(Collection<String> names) {
+    ArgumentChecker.notNull(names, "Risk value names");
+    
+    Set<String> missing = new HashSet<String>(names);
+    missing.removeAll(_riskValueName2Id.keySet());
+    if (missing.isEmpty()) {
+      return;
+    }
+    _riskValueName2Id.putAll(new DbBatchMaster(_dbSource).getRiskValueNameIds(missing));
+  }
+  
+  /**
+   * Looks up, in bulk, the database IDs of any of the given function unique IDs
+   * that have not been looked up before.
+   * 
+   * @param uniqueIds  the function unique IDs, not null
+   */
+  public void resolveFunctionUniqueIds(Collection<String> uniqueIds) {
+    ArgumentChecker.notNull(uniqueIds, "Function unique IDs");
+    
+    Set<String> missing = new HashSet<String>(uniqueIds);
+    missing.removeAll(_functionUniqueId2Id.keySet());
+    if (missing.isEmpty()) {
+      return;
+    }
+    _functionUniqueId2Id.putAll(new DbBatchMaster(_dbSource).getFunctionUniqueIdIds(missing));
+  }
+
   public Integer getRiskRunId() {
     return _riskRunId;
   }
@@ -426,6 +497,146 @@ public abstract class AbstractBatchResultWriter {
     s_logger.info("Inserted {} {} rows into DB", rows.size(), rowType);
   }
 
+  /**
+   * Inserts risk values. On PostgreSQL the rows are streamed with COPY, 
+   * otherwise they are sent as multi-row inserts.
+   * 
+   * @param values  the values to insert, not null
+   */
+  public void insertRiskValues(RiskValueBatch values) {
+    if (values.isEmpty()) {
+      s_logger.info("No risk rows to insert");
+      return;
+    }
+    
+    s_logger.info("Inserting {} risk rows into DB", values.size());
+    
+    if (!(_dbSource.getDialect() instanceof PostgreSQLDbHelper) || Boolean.FALSE.equals(_copySupported) || !copyRiskValues(values)) {
+      insertRiskValuesMultiRow(values);
+    }
+    
+    s_logger.info("Inserted {} risk rows into DB", values.size());
+  }
+  
+  /**
+   * Streams risk values into the database using PostgreSQL COPY.
+   * 
+   * @param values  the values to insert, not null
+   * @return false if the pooled connection does not expose the PostgreSQL driver connection
+   */
+  private boolean copyRiskValues(RiskValueBatch values) {
+    DataSource dataSource = _dbSource.getDataSource();
+    Connection connection = DataSourceUtils.getConnection(dataSource);
+    try {
+      PGConnection pgConnection = unwrapPostgreSQLConnection(connection);
+      if (pgConnection == null) {
+        s_logger.warn("Connection {} does not expose the PostgreSQL driver, using inserts rather than COPY", connection.getClass());
+        _copySupported = false;
+        return false;
+      }
+      _copySupported = true;
+      
+      CopyIn copyIn = pgConnection.getCopyAPI().copyIn(RiskValue.sqlCopyRisk());
+      boolean copied = false;
+      try {
+        StringBuilder buf = new StringBuilder(COPY_ROWS_PER_WRITE * 100);
+        for (int from = 0; from < values.size(); from += COPY_ROWS_PER_WRITE) {
+          values.appendCopyRows(buf, from, Math.min(from + COPY_ROWS_PER_WRITE, values.size()));
+          writeToCopy(copyIn, buf);
+        }
+        long count = copyIn.endCopy();
+        copied = true;
+        if (count != values.size()) {
+          throw new OpenGammaRuntimeException("risk copy count is wrong: expected = " + values.size() + " actual = " + count);
+        }
+      } finally {
+        if (!copied) {
+          copyIn.cancelCopy();
+        }
+      }
+      return true;
+      
+    } catch (SQLException ex) {
+      throw new OpenGammaRuntimeException("Failed to copy risk into DB", ex);
+    } finally {
+      DataSourceUtils.releaseConnection(connection, dataSource);
+    }
+  }
+  
+  private static void writeToCopy(CopyIn copyIn, StringBuilder buf) throws SQLException {
+    byte[] bytes;
+    try {
+      bytes = buf.toString().getBytes("US-ASCII");
+    } catch (UnsupportedEncodingException ex) {
+      throw new OpenGammaRuntimeException("US-ASCII not supported", ex);
+    }
+    copyIn.writeToCopy(bytes, 0, bytes.length);
+    buf.setLength(0);
+  }
+  
+  private static PGConnection unwrapPostgreSQLConnection(Connection connection) throws SQLException {
+    if (connection instanceof PGConnection) {
+      return (PGConnection) connection;
+    }
+    try {
+      if (connection.isWrapperFor(PGConnection.class)) {
+        return connection.unwrap(PGConnection.class);
+      }
+    } catch (AbstractMethodError ex) {
+      // connection pool predates JDBC 4 unwrapping
+      s_logger.debug("Cannot unwrap " + connection.getClass(), ex);
+    }
+    return null;
+  }
+  
+  /**
+   * Inserts risk values with multi-row inserts, for databases without COPY.
+   * 
+   * @param values  the values to insert, not null
+   */
+  private void insertRiskValuesMultiRow(final RiskValueBatch values) {
+    final int fullStatements = values.size() / INSERT_ROWS_PER_STATEMENT;
+    int[] counts = getJdbcTemplate().getJdbcOperations().batchUpdate(
+        RiskValue.sqlInsertRisk(INSERT_ROWS_PER_STATEMENT), 
+        new BatchPreparedStatementSetter() {
+          @Override
+          public void setValues(PreparedStatement ps, int i) throws SQLException {
+            values.setParameters(ps, i * INSERT_ROWS_PER_STATEMENT, (i + 1) * INSERT_ROWS_PER_STATEMENT);
+          }
+          @Override
+          public int getBatchSize() {
+            return fullStatements;
+          }
+        });
+    int totalCount = sumCounts(counts, INSERT_ROWS_PER_STATEMENT);
+    
+    final int from = fullStatements * INSERT_ROWS_PER_STATEMENT;
+    if (from < values.size()) {
+      totalCount += getJdbcTemplate().getJdbcOperations().update(
+          RiskValue.sqlInsertRisk(values.size() - from),
+          new PreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps) throws SQLException {
+              values.setParameters(ps, from, values.size());
+            }
+          });
+    }
+    
+    if (totalCount != values.size()) {
+      throw new RuntimeException("risk insert count is wrong: expected = " + 
+          values.size() + " actual = " + totalCount);      
+    }
+  }
+  
+  private static int sumCounts(int[] counts, int rowsPerStatement) {
+    int totalCount = 0;
+    for (int count : counts) {
+      // some drivers only report that a statement succeeded
+      totalCount += (count == Statement.SUCCESS_NO_INFO ? rowsPerStatement : count);
+    }
+    return totalCount;
+  }
+  
   private int checkCount(String rowType, SqlParameterSource[] batchArgsArray, int[] counts) {
     int totalCount = 0;
     for (int count : counts) {
@@ -444,6 +655,22 @@ public abstract class AbstractBatchResultWriter {
       CalculationJobSpecification job,
       StatusEntry.Status status, 
       Set<ComputationTargetSpecification> targets) {
+    writeStatusEntries(status, prepareStatusEntries(job, status, targets));
+  }
+  
+  /**
+   * Works out the status entries to insert and update, without touching the database, 
+   * so that they can be written later by {@link #writeStatusEntries}.
+   * 
+   * @param job  the job the targets were computed in, not null
+   * @param status  the new status, not null
+   * @param targets  the targets, not null
+   * @return the parameters of the inserts and of the updates, not null
+   */
+  public Pair<List<SqlParameterSource>, List<SqlParameterSource>> prepareStatusEntries(
+      CalculationJobSpecification job,
+      StatusEntry.Status status, 
+      Set<ComputationTargetSpecification> targets) {
     
     Integer calcConfId = getCalculationConfigurationId(job.getCalcConfigName());
     
@@ -480,6 +707,18 @@ public abstract class AbstractBatchResultWriter {
         inserts.add(params);
       }
     }
+    return Pair.of(inserts, updates);
+  }
+  
+  /**
+   * Writes status entries worked out by {@link #prepareStatusEntries}.
+   * 
+   * @param status  the new status, not null
+   * @param upserts  the parameters of the inserts and of the updates, not null
+   */
+  public void writeStatusEntries(StatusEntry.Status status, Pair<List<SqlParameterSource>, List<SqlParameterSource>> upserts) {
+    List<SqlParameterSource> inserts = upserts.getFirst();
+    List<SqlParameterSource> updates = upserts.getSecond();
     
     s_logger.info("Inserting {} and updating {} {} status entries", 
         new Object[] {inserts.size(), updates.size(), status});
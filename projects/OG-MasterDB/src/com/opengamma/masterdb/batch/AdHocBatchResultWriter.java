@@ -7,13 +7,13 @@ package com.opengamma.masterdb.batch;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.ViewResultEntry;
@@ -59,16 +59,15 @@ public class AdHocBatchResultWriter extends AbstractBatchResultWriter {
   
   @SuppressWarnings("unchecked")
   public void writeImpl(ViewResultModel resultModel) {
-    List<SqlParameterSource> successes = new ArrayList<SqlParameterSource>();
-    
-    int riskRunId = getRiskRunId();
+    List<ViewResultEntry> results = new ArrayList<ViewResultEntry>();
+    List<Map<String, Double>> resultValues = new ArrayList<Map<String, Double>>();
+    Set<String> valueNames = new HashSet<String>();
+    Set<String> functionUniqueIds = new HashSet<String>();
     
     for (ViewResultEntry result : resultModel.getAllResults()) {
       ValueSpecification output = result.getComputedValue().getSpecification();
       Object outputValue = result.getComputedValue().getValue();
       
-      int calcConfId = getCalculationConfigurationId(result.getCalculationConfiguration());
-      
       ResultConverter<Object> resultConverter;
       try {
         resultConverter = (ResultConverter<Object>) getResultConverterCache().getConverter(outputValue);
@@ -79,23 +78,39 @@ public class AdHocBatchResultWriter extends AbstractBatchResultWriter {
       
       Map<String, Double> valuesAsDoubles = resultConverter.convert(output.getValueName(), outputValue);
       
+      results.add(result);
+      resultValues.add(valuesAsDoubles);
+      valueNames.addAll(valuesAsDoubles.keySet());
+      functionUniqueIds.add(output.getFunctionUniqueId());
+    }
+    
+    resolveValueNameIds(valueNames);
+    resolveFunctionUniqueIds(functionUniqueIds);
+    
+    RiskValueBatch successes = new RiskValueBatch();
+    int riskRunId = getRiskRunId();
+    Date evalInstant = new Date(resultModel.getResultTimestamp().toEpochMillisLong());
+    
+    for (int i = 0; i < results.size(); i++) {
+      ViewResultEntry result = results.get(i);
+      ValueSpecification output = result.getComputedValue().getSpecification();
+      
+      int calcConfId = getCalculationConfigurationId(result.getCalculationConfiguration());
       int computationTargetId = getComputationTargetId(output.getTargetSpecification());
+      int functionUniqueId = getFunctionUniqueId(output.getFunctionUniqueId());
       
-      for (Map.Entry<String, Double> riskValueEntry : valuesAsDoubles.entrySet()) {
+      for (Map.Entry<String, Double> riskValueEntry : resultValues.get(i).entrySet()) {
         int valueNameId = getValueNameId(riskValueEntry.getKey());
-        int functionUniqueId = getFunctionUniqueId(output.getFunctionUniqueId());
-      
-        RiskValue riskValue = new RiskValue();
-        riskValue.setId(generateUniqueId());
-        riskValue.setCalculationConfigurationId(calcConfId);
-        riskValue.setValueNameId(valueNameId);
-        riskValue.setFunctionUniqueId(functionUniqueId);
-        riskValue.setComputationTargetId(computationTargetId);
-        riskValue.setRunId(riskRunId);
-        riskValue.setValue(riskValueEntry.getValue());
-        riskValue.setEvalInstant(new Date(resultModel.getResultTimestamp().toEpochMillisLong()));
-        riskValue.setComputeNodeId(_computeNodeId);
-        successes.add(riskValue.toSqlParameterSource());
+        successes.add(
+            generateUniqueId(),
+            calcConfId,
+            valueNameId,
+            functionUniqueId,
+            computationTargetId,
+            riskRunId,
+            riskValueEntry.getValue(),
+            evalInstant,
+            _computeNodeId);
       }
     }
     
@@ -109,7 +124,7 @@ public class AdHocBatchResultWriter extends AbstractBatchResultWriter {
     getSessionFactory().getCurrentSession().getTransaction().commit();
     getSessionFactory().getCurrentSession().beginTransaction();
     
-    insertRows("risk", RiskValue.sqlInsertRisk(), successes);
+    insertRiskValues(successes);
   }
 
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
+
+/**
+ * Writes risk into the batch database on a background thread.
+ * <p>
+ * Batch result writers prepare rows while the computation cache is still available
+ * and then hand the database work to this class, so that a computation cycle does not
+ * wait for its results to reach the database. Writes run in submission order on a
+ * single thread. A limit on the number of pending rows stops a fast computation from
+ * buffering an unbounded amount of risk when the database is slower.
+ * <p>
+ * A failed write is reported by the next call to {@link #submit} or {@link #flush},
+ * which a batch run must call before it is marked complete.
+ * <p>
+ * This class is thread-safe.
+ */
+public class BackgroundBatchDbWriter {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(BackgroundBatchDbWriter.class);
+
+  /**
+   * The default maximum number of rows waiting to be written.
+   */
+  public static final int DEFAULT_MAX_PENDING_ROWS = 2000000;
+
+  /**
+   * The single writer thread.
+   */
+  private final ExecutorService _executor;
+  /**
+   * The maximum number of rows waiting to be written.
+   */
+  private final int _maxPendingRows;
+  /**
+   * Permits for rows waiting to be written.
+   */
+  private final Semaphore _pendingRows;
+  /**
+   * The first write failure.
+   */
+  private final AtomicReference<RuntimeException> _failure = new AtomicReference<RuntimeException>();
+
+  /**
+   * Creates an instance with the default limit on pending rows.
+   */
+  public BackgroundBatchDbWriter() {
+    this(DEFAULT_MAX_PENDING_ROWS);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxPendingRows  the maximum number of rows waiting to be written, one or more
+   */
+  public BackgroundBatchDbWriter(int maxPendingRows) {
+    ArgumentChecker.isTrue(maxPendingRows > 0, "maxPendingRows must be positive");
+    _executor = Executors.newSingleThreadExecutor(new NamedThreadPoolFactory("BackgroundBatchDbWriter", true));
+    _maxPendingRows = maxPendingRows;
+    _pendingRows = new Semaphore(maxPendingRows);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Submits a write, waiting if too many rows are already pending.
+   *
+   * @param rows  the number of rows written, used to limit memory use
+   * @param write  the write, which must manage its own transaction, not null
+   * @throws OpenGammaRuntimeException if an earlier write failed
+   */
+  public void submit(int rows, final Runnable write) {
+    ArgumentChecker.notNull(write, "write");
+    checkFailure();
+    final int permits = Math.max(1, Math.min(rows, _maxPendingRows));
+    try {
+      _pendingRows.acquire(permits);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted waiting to write risk", ex);
+    }
+    try {
+      _executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            if (_failure.get() == null) {
+              write.run();
+            }
+          } catch (RuntimeException ex) {
+            s_logger.error("Failed to write risk into batch DB", ex);
+            _failure.compareAndSet(null, ex);
+          } finally {
+            _pendingRows.release(permits);
+          }
+        }
+      });
+    } catch (RuntimeException ex) {
+      _pendingRows.release(permits);
+      throw ex;
+    }
+  }
+
+  /**
+   * Waits for all submitted writes to complete.
+   *
+   * @throws OpenGammaRuntimeException if a write failed
+   */
+  public void flush() {
+    Future<?> marker = _executor.submit(new Runnable() {
+      @Override
+      public void run() {
+      }
+    });
+    try {
+      marker.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new OpenGammaRuntimeException("Interrupted waiting for risk to be written", ex);
+    } catch (ExecutionException ex) {
+      throw new OpenGammaRuntimeException("Unexpected failure waiting for risk to be written", ex.getCause());
+    }
+    checkFailure();
+  }
+
+  /**
+   * Waits for all submitted writes to complete and stops the writer thread.
+   *
+   * @throws OpenGammaRuntimeException if a write failed
+   */
+  public void shutdown() {
+    try {
+      flush();
+    } finally {
+      _executor.shutdown();
+    }
+  }
+
+  /**
+   * Discards any writes not yet started and stops the writer thread, without waiting.
+   * <p>
+   * This is used when the batch run has failed, so its risk need not all be written.
+   * Later calls to {@link #submit} or {@link #flush} will fail.
+   */
+  public void abort() {
+    _failure.compareAndSet(null, new OpenGammaRuntimeException("Batch DB writer aborted"));
+    _executor.shutdown();
+  }
+
+  private void checkFailure() {
+    RuntimeException failure = _failure.get();
+    if (failure != null) {
+      throw new OpenGammaRuntimeException("Failed to write risk into batch DB", failure);
+    }
+  }
+
+}
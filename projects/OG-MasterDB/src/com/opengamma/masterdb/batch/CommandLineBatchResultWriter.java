@@ -17,6 +17,8 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
 
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.depgraph.DependencyGraph;
@@ -36,6 +38,7 @@ import com.opengamma.financial.conversion.ResultConverter;
 import com.opengamma.financial.conversion.ResultConverterCache;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.db.DbSource;
+import com.opengamma.util.tuple.Pair;
 
 /**
  * This writer is used to write risk that originates from a command line batch job. 
@@ -57,6 +60,11 @@ import com.opengamma.util.db.DbSource;
  * <p>
  * {@link DbBatchMaster#createDependencyGraphExecutorFactory(com.opengamma.financial.batch.BatchJobRun)} 
  * shows how to guarantee this in practice by using {@link com.opengamma.engine.view.calc.BatchExecutor}.
+ * <p>
+ * Risk values are collected into a {@link RiskValueBatch} and loaded in bulk. If the writer
+ * is given a {@link BackgroundBatchDbWriter}, the values, failures and status entries
+ * of each call are written on that writer's thread, so that the computation cycle
+ * does not wait for the database. Otherwise they are written before {@code write()} returns.
  *  
  */
 public class CommandLineBatchResultWriter extends AbstractBatchResultWriter implements BatchResultWriter {
@@ -94,6 +102,12 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
    */
   private final boolean _writeErrors = true;
   
+  /**
+   * Writes rows into the database in the background,
+   * null to write them before {@code write()} returns
+   */
+  private final BackgroundBatchDbWriter _backgroundWriter;
+  
   public CommandLineBatchResultWriter(DbSource dbSource,
       ResultModelDefinition resultModelDefinition,
       Map<String, ViewComputationCache> cachesByCalculationConfiguration,
@@ -106,7 +120,24 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
         computationTargets,
         riskRun,
         valueNames,
-        new ResultConverterCache());
+        (BackgroundBatchDbWriter) null);
+  }
+  
+  public CommandLineBatchResultWriter(DbSource dbSource,
+      ResultModelDefinition resultModelDefinition,
+      Map<String, ViewComputationCache> cachesByCalculationConfiguration,
+      Set<ComputationTarget> computationTargets,
+      RiskRun riskRun,
+      Set<RiskValueName> valueNames,
+      BackgroundBatchDbWriter backgroundWriter) {
+    this(dbSource,
+        resultModelDefinition,
+        cachesByCalculationConfiguration,
+        computationTargets,
+        riskRun,
+        valueNames,
+        new ResultConverterCache(),
+        backgroundWriter);
   }
   
   public CommandLineBatchResultWriter(
@@ -117,6 +148,25 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
       RiskRun riskRun,
       Set<RiskValueName> valueNames,
       ResultConverterCache resultConverterCache) {
+    this(dbSource,
+        resultModelDefinition,
+        cachesByCalculationConfiguration,
+        computationTargets,
+        riskRun,
+        valueNames,
+        resultConverterCache,
+        null);
+  }
+  
+  public CommandLineBatchResultWriter(
+      DbSource dbSource,
+      ResultModelDefinition resultModelDefinition,
+      Map<String, ViewComputationCache> cachesByCalculationConfiguration,
+      Set<ComputationTarget> computationTargets,
+      RiskRun riskRun,
+      Set<RiskValueName> valueNames,
+      ResultConverterCache resultConverterCache,
+      BackgroundBatchDbWriter backgroundWriter) {
 
     super(dbSource, riskRun, resultConverterCache, computationTargets, valueNames);
 
@@ -125,6 +175,7 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
     
     _resultModelDefinition = resultModelDefinition;
     _cachesByCalculationConfiguration = cachesByCalculationConfiguration;
+    _backgroundWriter = backgroundWriter;
     
     setRestart(riskRun.isRestart());
   }
@@ -133,6 +184,10 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
     return _writeErrors;
   }
 
+  public BackgroundBatchDbWriter getBackgroundWriter() {
+    return _backgroundWriter;
+  }
+
   public boolean isRestart() {
     return _isRestart;
   }
@@ -211,21 +266,32 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
     
     ViewComputationCache cache = getCache(result);
     
+    PendingRows rows;
     try {
       getSessionFactory().getCurrentSession().beginTransaction();
       
       joinSession();
       
-      writeImpl(cache, result, depGraph);
+      rows = writeImpl(cache, result, depGraph);
     
+      // commit the compute failures, value names and function IDs that the rows reference
       getSessionFactory().getCurrentSession().getTransaction().commit();
     } catch (RuntimeException e) {
       getSessionFactory().getCurrentSession().getTransaction().rollback();
       throw e;
     }
+    
+    if (rows == null) {
+      return;
+    }
+    if (_backgroundWriter != null) {
+      _backgroundWriter.submit(rows.size(), rows);
+    } else {
+      rows.run();
+    }
   }
   
-  private void writeImpl(ViewComputationCache cache, CalculationJobResult result, DependencyGraph depGraph) {
+  private PendingRows writeImpl(ViewComputationCache cache, CalculationJobResult result, DependencyGraph depGraph) {
     
     // STAGE 1. Populate error information in the shared computation cache.
     // This is done for all items and will populate table rsk_compute_failure. 
@@ -287,18 +353,13 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
     
     }
     
-    List<SqlParameterSource> successes = new ArrayList<SqlParameterSource>();
-    List<SqlParameterSource> failures = new ArrayList<SqlParameterSource>();
-    List<SqlParameterSource> failureReasons = new ArrayList<SqlParameterSource>();
-    
-    int riskRunId = getRiskRunId();
-    int calcConfId = getCalculationConfigurationId(result.getSpecification().getCalcConfigName());
-    int computeNodeId = getComputeNodeId(result.getComputeNodeId());
-    
-    Date evalInstant = new Date();
+    // STAGE 3. Convert the successful outputs to doubles, and look up 
+    // the database IDs of all value names and functions in bulk
     
-    // STAGE 3. Based on the results of stage 2, work out 
-    // SQL statements to write risk into rsk_value and rsk_failure (& rsk_failure_reason)
+    List<ValueSpecification> successOutputs = new ArrayList<ValueSpecification>();
+    List<Map<String, Double>> successValues = new ArrayList<Map<String, Double>>();
+    Set<String> valueNames = new HashSet<String>();
+    Set<String> functionUniqueIds = new HashSet<String>();
     
     for (CalculationJobResultItem item : result.getResultItems()) {
       ResultOutputMode targetOutputMode = _resultModelDefinition.getOutputMode(item.getComputationTargetSpecification().getType());
@@ -323,26 +384,63 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
           ResultConverter<Object> resultConverter = (ResultConverter<Object>) getResultConverterCache().getConverter(outputValue);
           Map<String, Double> valuesAsDoubles = resultConverter.convert(output.getValueName(), outputValue);
           
-          int computationTargetId = getComputationTargetId(output.getTargetSpecification());
-          
-          for (Map.Entry<String, Double> riskValueEntry : valuesAsDoubles.entrySet()) {
-            int valueNameId = getValueNameId(riskValueEntry.getKey());
-            int functionUniqueId = getFunctionUniqueId(output.getFunctionUniqueId());
-
-            RiskValue riskValue = new RiskValue();
-            riskValue.setId(generateUniqueId());
-            riskValue.setCalculationConfigurationId(calcConfId);
-            riskValue.setValueNameId(valueNameId);
-            riskValue.setFunctionUniqueId(functionUniqueId);
-            riskValue.setComputationTargetId(computationTargetId);
-            riskValue.setRunId(riskRunId);
-            riskValue.setValue(riskValueEntry.getValue());
-            riskValue.setEvalInstant(evalInstant);
-            riskValue.setComputeNodeId(computeNodeId);
-            successes.add(riskValue.toSqlParameterSource());
-          }
+          successOutputs.add(output);
+          successValues.add(valuesAsDoubles);
+          valueNames.addAll(valuesAsDoubles.keySet());
+          functionUniqueIds.add(output.getFunctionUniqueId());
         }
         
+      } else if (failedTargets.contains(item.getComputationTargetSpecification()) && isWriteErrors()) {
+        
+        for (ValueSpecification outputValue : item.getOutputs()) {
+          valueNames.add(outputValue.getValueName());
+          functionUniqueIds.add(outputValue.getFunctionUniqueId());
+        }
+      }
+    }
+    
+    resolveValueNameIds(valueNames);
+    resolveFunctionUniqueIds(functionUniqueIds);
+    
+    RiskValueBatch successes = new RiskValueBatch();
+    List<SqlParameterSource> failures = new ArrayList<SqlParameterSource>();
+    List<SqlParameterSource> failureReasons = new ArrayList<SqlParameterSource>();
+    
+    int riskRunId = getRiskRunId();
+    int calcConfId = getCalculationConfigurationId(result.getSpecification().getCalcConfigName());
+    int computeNodeId = getComputeNodeId(result.getComputeNodeId());
+    
+    Date evalInstant = new Date();
+    
+    // STAGE 4. Based on the results of stages 2 and 3, work out 
+    // the rows to write into rsk_value and rsk_failure (& rsk_failure_reason)
+    
+    for (int i = 0; i < successOutputs.size(); i++) {
+      ValueSpecification output = successOutputs.get(i);
+      int computationTargetId = getComputationTargetId(output.getTargetSpecification());
+      int functionUniqueId = getFunctionUniqueId(output.getFunctionUniqueId());
+      
+      for (Map.Entry<String, Double> riskValueEntry : successValues.get(i).entrySet()) {
+        int valueNameId = getValueNameId(riskValueEntry.getKey());
+        successes.add(
+            generateUniqueId(),
+            calcConfId,
+            valueNameId,
+            functionUniqueId,
+            computationTargetId,
+            riskRunId,
+            riskValueEntry.getValue(),
+            evalInstant,
+            computeNodeId);
+      }
+    }
+    
+    for (CalculationJobResultItem item : result.getResultItems()) {
+      
+      if (successfulTargets.contains(item.getComputationTargetSpecification())) {
+        
+        s_logger.debug("Risk values for target {} worked out above", item.getComputationTargetSpecification());
+        
       // the check below ensures that
       // if there is a partial failure (some successes, some failures) for a target, 
       // only the failures will be written out in the database
@@ -404,7 +502,8 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
       }
     }
     
-    // STAGE 4. Actually execute the statements worked out in stage 3.
+    // STAGE 5. Prepare the statements worked out in stage 4. 
+    // They are executed by write(), in the background if possible.
     
     if (successes.isEmpty() 
         && failures.isEmpty() 
@@ -412,20 +511,59 @@ public class CommandLineBatchResultWriter extends AbstractBatchResultWriter impl
         && successfulTargets.isEmpty() 
         && failedTargets.isEmpty()) {
       s_logger.debug("Nothing to write to DB for {}", result);
-      return;
+      return null;
+    }
+    
+    return new PendingRows(
+        successes,
+        failures,
+        failureReasons,
+        prepareStatusEntries(result.getSpecification(), StatusEntry.Status.SUCCESS, successfulTargets),
+        prepareStatusEntries(result.getSpecification(), StatusEntry.Status.FAILURE, failedTargets));
+  }
+  
+  /**
+   * The rows from one call to {@code write()}, written in a single transaction
+   * so that status entries are never committed without their risk.
+   */
+  private final class PendingRows implements Runnable {
+    private final RiskValueBatch _successes;
+    private final List<SqlParameterSource> _failures;
+    private final List<SqlParameterSource> _failureReasons;
+    private final Pair<List<SqlParameterSource>, List<SqlParameterSource>> _successStatusEntries;
+    private final Pair<List<SqlParameterSource>, List<SqlParameterSource>> _failureStatusEntries;
+    
+    private PendingRows(
+        RiskValueBatch successes,
+        List<SqlParameterSource> failures,
+        List<SqlParameterSource> failureReasons,
+        Pair<List<SqlParameterSource>, List<SqlParameterSource>> successStatusEntries,
+        Pair<List<SqlParameterSource>, List<SqlParameterSource>> failureStatusEntries) {
+      _successes = successes;
+      _failures = failures;
+      _failureReasons = failureReasons;
+      _successStatusEntries = successStatusEntries;
+      _failureStatusEntries = failureStatusEntries;
     }
     
-    // need to figure out why these 2 lines are needed for the insertRows() code not to block...
-    // this is bad - loss of transactionality...
-    getSessionFactory().getCurrentSession().getTransaction().commit();
-    getSessionFactory().getCurrentSession().beginTransaction();
+    private int size() {
+      return _successes.size() + _failures.size() + _failureReasons.size();
+    }
     
-    insertRows("risk", RiskValue.sqlInsertRisk(), successes);
-    insertRows("risk failure", RiskFailure.sqlInsertRiskFailure(), failures);
-    insertRows("risk failure reason", FailureReason.sqlInsertRiskFailureReason(), failureReasons);
-      
-    upsertStatusEntries(result.getSpecification(), StatusEntry.Status.SUCCESS, successfulTargets);
-    upsertStatusEntries(result.getSpecification(), StatusEntry.Status.FAILURE, failedTargets);
+    @Override
+    public void run() {
+      getTransactionTemplate().execute(new TransactionCallbackWithoutResult() {
+        @Override
+        protected void doInTransactionWithoutResult(TransactionStatus status) {
+          insertRiskValues(_successes);
+          insertRows("risk failure", RiskFailure.sqlInsertRiskFailure(), _failures);
+          insertRows("risk failure reason", FailureReason.sqlInsertRiskFailureReason(), _failureReasons);
+          
+          writeStatusEntries(StatusEntry.Status.SUCCESS, _successStatusEntries);
+          writeStatusEntries(StatusEntry.Status.FAILURE, _failureStatusEntries);
+        }
+      });
+    }
   }
   
   // --------------------------------------------------------------------------
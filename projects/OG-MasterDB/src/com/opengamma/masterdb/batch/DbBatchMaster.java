@@ -32,6 +32,7 @@ import org.hibernate.criterion.Projections;
 import org.hibernate.criterion.Restrictions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.orm.hibernate3.HibernateCallback;
 import org.springframework.orm.hibernate3.HibernateTemplate;
@@ -80,7 +81,7 @@ import com.opengamma.util.db.PagingRequest;
  * <p>
  * This is a full implementation of the batch master using an SQL database.
  * This implementation uses Hibernate to write all static data, including LiveData snapshots.
- * Risk itself is written using direct JDBC.
+ * Risk itself is written using direct JDBC, on a background thread for each batch run.
  * <p>
  * Full details of the API are in {@link BatchMaster}.
  * <p>
@@ -95,6 +96,14 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
    * The scheme used for UniqueIdentifier objects.
    */
   public static final String IDENTIFIER_SCHEME_DEFAULT = "DbBat";
+  /**
+   * The maximum number of names looked up in one query.
+   */
+  /*package*/ static final int BULK_LOOKUP_BATCH_SIZE = 500;
+  /**
+   * The number of times a bulk lookup is retried after a concurrent insert of the same values.
+   */
+  private static final int BULK_LOOKUP_MAX_RETRIES = 1;
   /**
    * The database schema.
    */
@@ -394,6 +403,126 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
     return functionUniqueId;
   }
 
+  /**
+   * Gets the database IDs of several risk value names, inserting any that are missing.
+   * <p>
+   * This looks up the names with one query per {@link #BULK_LOOKUP_BATCH_SIZE} names
+   * rather than one query per name. If another writer inserts one of the missing names
+   * at the same time, the names are looked up again.
+   *
+   * @param names  the names, not null
+   * @return the database IDs keyed by name, not null
+   */
+  /*package*/ Map<String, Integer> getRiskValueNameIds(final Collection<String> names) {
+    Map<String, Integer> result = new HashMap<String, Integer>();
+    for (final List<String> batch : partition(names)) {
+      // retry to handle another writer inserting the same names
+      for (int retry = 0; true; retry++) {
+        try {
+          result.putAll(getRiskValueNameIdsBatch(batch));
+          break;
+        } catch (DataIntegrityViolationException ex) {
+          if (retry == BULK_LOOKUP_MAX_RETRIES) {
+            throw ex;
+          }
+          s_logger.debug("Concurrent insert of risk value names, looking them up again", ex);
+        }
+      }
+    }
+    return result;
+  }
+
+  private Map<String, Integer> getRiskValueNameIdsBatch(final List<String> batch) {
+    Map<String, Integer> result = new HashMap<String, Integer>();
+    List<RiskValueName> found = getHibernateTemplate().execute(new HibernateCallback<List<RiskValueName>>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public List<RiskValueName> doInHibernate(Session session) throws HibernateException, SQLException {
+        Query query = session.getNamedQuery("RiskValueName.many.byNames");
+        query.setParameterList("names", batch);
+        return query.list();
+      }
+    });
+    for (RiskValueName riskValueName : found) {
+      result.put(riskValueName.getName(), riskValueName.getId());
+    }
+    for (String name : batch) {
+      if (!result.containsKey(name)) {
+        RiskValueName riskValueName = new RiskValueName();
+        riskValueName.setName(name);
+        getHibernateTemplate().save(riskValueName);
+        result.put(name, riskValueName.getId());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the database IDs of several function unique IDs, inserting any that are missing.
+   * <p>
+   * If another writer inserts one of the missing unique IDs at the same time, the unique
+   * IDs are looked up again.
+   *
+   * @param uniqueIds  the function unique IDs, not null
+   * @return the database IDs keyed by function unique ID, not null
+   */
+  /*package*/ Map<String, Integer> getFunctionUniqueIdIds(final Collection<String> uniqueIds) {
+    Map<String, Integer> result = new HashMap<String, Integer>();
+    for (final List<String> batch : partition(uniqueIds)) {
+      // retry to handle another writer inserting the same unique IDs
+      for (int retry = 0; true; retry++) {
+        try {
+          result.putAll(getFunctionUniqueIdIdsBatch(batch));
+          break;
+        } catch (DataIntegrityViolationException ex) {
+          if (retry == BULK_LOOKUP_MAX_RETRIES) {
+            throw ex;
+          }
+          s_logger.debug("Concurrent insert of function unique IDs, looking them up again", ex);
+        }
+      }
+    }
+    return result;
+  }
+
+  private Map<String, Integer> getFunctionUniqueIdIdsBatch(final List<String> batch) {
+    Map<String, Integer> result = new HashMap<String, Integer>();
+    List<FunctionUniqueId> found = getHibernateTemplate().execute(new HibernateCallback<List<FunctionUniqueId>>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public List<FunctionUniqueId> doInHibernate(Session session) throws HibernateException, SQLException {
+        Query query = session.getNamedQuery("FunctionUniqueId.many.byUniqueIds");
+        query.setParameterList("uniqueIds", batch);
+        return query.list();
+      }
+    });
+    for (FunctionUniqueId functionUniqueId : found) {
+      result.put(functionUniqueId.getUniqueId(), functionUniqueId.getId());
+    }
+    for (String uniqueId : batch) {
+      if (!result.containsKey(uniqueId)) {
+        FunctionUniqueId functionUniqueId = new FunctionUniqueId();
+        functionUniqueId.setUniqueId(uniqueId);
+        getHibernateTemplate().save(functionUniqueId);
+        result.put(uniqueId, functionUniqueId.getId());
+      }
+    }
+    return result;
+  }
+
+  private static List<List<String>> partition(Collection<String> values) {
+    List<List<String>> batches = new ArrayList<List<String>>();
+    List<String> batch = null;
+    for (String value : new HashSet<String>(values)) {
+      if (batch == null || batch.size() == BULK_LOOKUP_BATCH_SIZE) {
+        batch = new ArrayList<String>(BULK_LOOKUP_BATCH_SIZE);
+        batches.add(batch);
+      }
+      batch.add(value);
+    }
+    return batches;
+  }
+
   //-------------------------------------------------------------------------
   /*package*/ RiskRun getRiskRunFromDb(final UniqueIdentifier uniqueId) {
     LocalDate date = LocalDate.parse(uniqueId.getValue().substring(0, 10));
@@ -626,6 +755,9 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
 
   @Override
   public void endBatch(BatchJobRun batch) {
+    // all risk must be in the database before the run is marked complete
+    getDbHandle(batch)._backgroundWriter.shutdown();
+    
     try {
       getSessionFactory().getCurrentSession().beginTransaction();
 
@@ -638,6 +770,15 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
     }
   }
 
+  @Override
+  public void failBatch(BatchJobRun batch) {
+    // the handle is only there if the batch got far enough to create its writer
+    if (batch.getDbHandle() instanceof DbHandle) {
+      s_logger.info("Abandoning batch {}", batch);
+      getDbHandle(batch)._backgroundWriter.abort();
+    }
+  }
+
   private void endBatchImpl(BatchJobRun batch) {
     s_logger.info("Ending batch {}", batch);
     
@@ -775,6 +916,7 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
     dbHandle._riskRun = run;
     dbHandle._riskValueNames = riskValueNames;
     dbHandle._computationTargets = computationTargets;
+    dbHandle._backgroundWriter = new BackgroundBatchDbWriter();
     
     batch.setDbHandle(dbHandle);
   }
@@ -783,6 +925,7 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
     private RiskRun _riskRun;
     private Set<RiskValueName> _riskValueNames;
     private Set<ComputationTarget> _computationTargets;
+    private BackgroundBatchDbWriter _backgroundWriter;
   }
   
   @Override
@@ -815,16 +958,19 @@ public class DbBatchMaster extends AbstractDbMaster implements BatchMaster, Batc
           cachesByCalculationConfiguration,
           getDbHandle(_batch)._computationTargets,
           getRiskRunFromHandle(_batch),
-          getDbHandle(_batch)._riskValueNames);
+          getDbHandle(_batch)._riskValueNames,
+          getDbHandle(_batch)._backgroundWriter);
       
       // Ultimate executor of the tasks
       DependencyGraphExecutor<CalculationJobResult> level3Executor =
         new SingleNodeExecutor(cycle);
       
-      // 'Wrapper' executor that will write
+      // 'Wrapper' executor that will prepare
       // results from the underlying executor 
-      // to batch DB as soon as they are received
-      // and pass the result back to level 1 executor
+      // for batch DB as soon as they are received
+      // and pass the result back to level 1 executor.
+      // The rows reach the DB on the background writer
+      // thread of the run, drained in endBatch()
       BatchResultWriterExecutor level2Executor =
         new BatchResultWriterExecutor(
             writer,
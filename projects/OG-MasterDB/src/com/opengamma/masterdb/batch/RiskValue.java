@@ -122,7 +122,43 @@ public class RiskValue {
               "(:id, :calculation_configuration_id, :value_name_id, :function_unique_id, :computation_target_id, :run_id, :value," +
               ":eval_instant, :compute_node_id)";
   }
-  
+
+  /**
+   * Gets SQL to insert several rows at once, for use with {@link RiskValueBatch}.
+   *
+   * @param rows  the number of rows, one or more
+   * @return the SQL with positional parameters, not null
+   */
+  public static String sqlInsertRisk(int rows) {
+    if (rows < 1) {
+      throw new IllegalArgumentException("Must insert at least one row");
+    }
+    StringBuilder sql = new StringBuilder(
+        "INSERT INTO " + DbBatchMaster.getDatabaseSchema() + "rsk_value " +
+          "(id, calculation_configuration_id, value_name_id, function_unique_id, computation_target_id, run_id, value, " +
+          "eval_instant, compute_node_id) " +
+        "VALUES ");
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append("(?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Gets the PostgreSQL {@code COPY} statement used to stream a {@link RiskValueBatch}.
+   *
+   * @return the SQL, not null
+   */
+  public static String sqlCopyRisk() {
+    return "COPY " + DbBatchMaster.getDatabaseSchema() + "rsk_value " +
+              "(id, calculation_configuration_id, value_name_id, function_unique_id, computation_target_id, run_id, value, " +
+              "eval_instant, compute_node_id) " +
+            "FROM STDIN";
+  }
+
   public static String sqlDeleteRiskValues() {
     return "DELETE FROM " + DbBatchMaster.getDatabaseSchema() + "rsk_value WHERE run_id = :run_id";
   }
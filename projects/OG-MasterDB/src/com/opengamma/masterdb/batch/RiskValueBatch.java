@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * A batch of rows for the {@code rsk_value} table held in primitive columns.
+ * <p>
+ * A nightly batch can produce millions of risk values. Holding them as one
+ * {@link RiskValue} or parameter map per row costs several objects per value,
+ * whereas this batch holds one array per column and grows by doubling.
+ * <p>
+ * This class is mutable and not thread-safe.
+ */
+public final class RiskValueBatch {
+
+  /**
+   * The default initial capacity.
+   */
+  private static final int DEFAULT_CAPACITY = 256;
+
+  private long[] _ids;
+  private int[] _calculationConfigurationIds;
+  private int[] _valueNameIds;
+  private int[] _functionUniqueIds;
+  private int[] _computationTargetIds;
+  private int[] _runIds;
+  private double[] _values;
+  private long[] _evalInstants;
+  private int[] _computeNodeIds;
+  private int _size;
+
+  /**
+   * Creates an empty batch.
+   */
+  public RiskValueBatch() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Creates an empty batch with room for a number of rows.
+   *
+   * @param capacity  the initial number of rows
+   */
+  public RiskValueBatch(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    _ids = new long[capacity];
+    _calculationConfigurationIds = new int[capacity];
+    _valueNameIds = new int[capacity];
+    _functionUniqueIds = new int[capacity];
+    _computationTargetIds = new int[capacity];
+    _runIds = new int[capacity];
+    _values = new double[capacity];
+    _evalInstants = new long[capacity];
+    _computeNodeIds = new int[capacity];
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Adds a row.
+   *
+   * @param id  the row ID
+   * @param calculationConfigurationId  references rsk_calculation_configuration(id)
+   * @param valueNameId  references rsk_value_name(id)
+   * @param functionUniqueId  references rsk_function_unique_id(id)
+   * @param computationTargetId  references rsk_computation_target(id)
+   * @param runId  references rsk_run(id)
+   * @param value  the value
+   * @param evalInstant  the evaluation instant, not null
+   * @param computeNodeId  references rsk_compute_node(id)
+   */
+  public void add(long id, int calculationConfigurationId, int valueNameId, int functionUniqueId,
+      int computationTargetId, int runId, double value, Date evalInstant, int computeNodeId) {
+    if (_size == _ids.length) {
+      grow();
+    }
+    _ids[_size] = id;
+    _calculationConfigurationIds[_size] = calculationConfigurationId;
+    _valueNameIds[_size] = valueNameId;
+    _functionUniqueIds[_size] = functionUniqueId;
+    _computationTargetIds[_size] = computationTargetId;
+    _runIds[_size] = runId;
+    _values[_size] = value;
+    _evalInstants[_size] = evalInstant.getTime();
+    _computeNodeIds[_size] = computeNodeId;
+    _size++;
+  }
+
+  private void grow() {
+    int capacity = _ids.length * 2;
+    long[] ids = new long[capacity];
+    System.arraycopy(_ids, 0, ids, 0, _size);
+    _ids = ids;
+    _calculationConfigurationIds = grow(_calculationConfigurationIds, capacity);
+    _valueNameIds = grow(_valueNameIds, capacity);
+    _functionUniqueIds = grow(_functionUniqueIds, capacity);
+    _computationTargetIds = grow(_computationTargetIds, capacity);
+    _runIds = grow(_runIds, capacity);
+    double[] values = new double[capacity];
+    System.arraycopy(_values, 0, values, 0, _size);
+    _values = values;
+    long[] evalInstants = new long[capacity];
+    System.arraycopy(_evalInstants, 0, evalInstants, 0, _size);
+    _evalInstants = evalInstants;
+    _computeNodeIds = grow(_computeNodeIds, capacity);
+  }
+
+  private int[] grow(int[] column, int capacity) {
+    int[] grown = new int[capacity];
+    System.arraycopy(column, 0, grown, 0, _size);
+    return grown;
+  }
+
+  /**
+   * Gets the number of rows.
+   *
+   * @return the number of rows
+   */
+  public int size() {
+    return _size;
+  }
+
+  /**
+   * Checks if there are no rows.
+   *
+   * @return true if empty
+   */
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /**
+   * Gets the value of a row.
+   *
+   * @param index  the row index
+   * @return the value
+   */
+  public double getValue(int index) {
+    checkIndex(index);
+    return _values[index];
+  }
+
+  /**
+   * Gets the ID of a row.
+   *
+   * @param index  the row index
+   * @return the ID
+   */
+  public long getId(int index) {
+    checkIndex(index);
+    return _ids[index];
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= _size) {
+      throw new IndexOutOfBoundsException("Row " + index + " of " + _size);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Sets the parameters of a multi-row insert from {@link RiskValue#sqlInsertRisk(int)}.
+   *
+   * @param statement  the statement, not null
+   * @param fromIndex  the first row to set, inclusive
+   * @param toIndex  the last row to set, exclusive
+   * @throws SQLException if a parameter cannot be set
+   */
+  public void setParameters(PreparedStatement statement, int fromIndex, int toIndex) throws SQLException {
+    int parameter = 1;
+    for (int i = fromIndex; i < toIndex; i++) {
+      statement.setLong(parameter++, _ids[i]);
+      statement.setInt(parameter++, _calculationConfigurationIds[i]);
+      statement.setInt(parameter++, _valueNameIds[i]);
+      statement.setInt(parameter++, _functionUniqueIds[i]);
+      statement.setInt(parameter++, _computationTargetIds[i]);
+      statement.setInt(parameter++, _runIds[i]);
+      statement.setDouble(parameter++, _values[i]);
+      statement.setTimestamp(parameter++, new Timestamp(_evalInstants[i]));
+      statement.setInt(parameter++, _computeNodeIds[i]);
+    }
+  }
+
+  /**
+   * Appends rows in the PostgreSQL {@code COPY} text format, in the column order
+   * of {@link RiskValue#sqlCopyRisk()}.
+   * <p>
+   * Instants are written in the default time-zone, as JDBC does for a {@code timestamp} column.
+   *
+   * @param buf  the buffer to append to, not null
+   * @param fromIndex  the first row to append, inclusive
+   * @param toIndex  the last row to append, exclusive
+   */
+  public void appendCopyRows(StringBuilder buf, int fromIndex, int toIndex) {
+    DateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    long lastInstant = Long.MIN_VALUE;
+    String lastInstantText = null;
+    for (int i = fromIndex; i < toIndex; i++) {
+      if (_evalInstants[i] != lastInstant) {
+        lastInstant = _evalInstants[i];
+        lastInstantText = format.format(new Date(lastInstant));
+      }
+      buf.append(_ids[i]).append('\t')
+        .append(_calculationConfigurationIds[i]).append('\t')
+        .append(_valueNameIds[i]).append('\t')
+        .append(_functionUniqueIds[i]).append('\t')
+        .append(_computationTargetIds[i]).append('\t')
+        .append(_runIds[i]).append('\t')
+        .append(_values[i]).append('\t')
+        .append(lastInstantText).append('\t')
+        .append(_computeNodeIds[i]).append('\n');
+    }
+  }
+
+}
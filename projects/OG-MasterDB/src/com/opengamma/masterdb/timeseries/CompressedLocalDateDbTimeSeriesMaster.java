@@ -0,0 +1,537 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.timeseries;
+
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.CLOSE_DATA_POINT_CHUNKS;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.GET_ACTIVE_META_DATA_WITH_CHUNK_DATES;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.GET_ACTIVE_META_DATA_WITH_CHUNK_DATES_BY_IDENTIFIERS;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.GET_ACTIVE_META_DATA_WITH_DATES;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.GET_ACTIVE_META_DATA_WITH_DATES_BY_IDENTIFIERS;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.GET_CHUNK_DATE_RANGE_BY_OID;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.INSERT_DATA_POINT_CHUNK;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.LOAD_DATA_POINT_CHUNKS;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.LOAD_DATA_POINT_CHUNKS_AS_OF;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.LOAD_DATA_POINT_CHUNKS_BULK;
+import static com.opengamma.masterdb.timeseries.DbTimeSeriesMasterConstants.LOCK_META_DATA;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
+
+import org.apache.commons.lang.StringUtils;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.core.support.SqlLobValue;
+import org.springframework.jdbc.support.lob.LobHandler;
+
+import com.google.common.collect.Sets;
+import com.opengamma.DataNotFoundException;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.db.DbDateUtils;
+import com.opengamma.util.db.DbSource;
+import com.opengamma.util.timeseries.DoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.DateTimeNumericEncoding;
+import com.opengamma.util.timeseries.fast.integer.FastArrayIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.fast.integer.FastIntDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+
+/**
+ * A time-series master implementation that stores daily points in compressed chunks.
+ * <p>
+ * The meta-data is stored as for {@link LocalDateDbTimeSeriesMaster}, but the points of each time-series
+ * are stored as runs of consecutive points, each encoded by {@link TimeSeriesChunkCodec} into a single
+ * row of the {@code tss_data_point_chunk} table. Loading a time-series reads a handful of rows and
+ * decodes them straight into the primitive arrays of an {@link ArrayLocalDateDoubleTimeSeries}.
+ * <p>
+ * Chunks are never updated in place. A change closes the affected chunks by setting their
+ * version-to instant and writes their replacements, so historic searches read the chunks that were
+ * current at the requested instant, and no delta table or trigger is needed. Appending to the end
+ * of a time-series rewrites only its last chunk, while inserting points before the end rewrites
+ * every chunk from the insertion point on.
+ * <p>
+ * Every change reads the current chunks before replacing them, so it first locks the meta-data row
+ * of the time-series. Concurrent changes to the same time-series are applied one after the other
+ * instead of both closing the same chunks and writing overlapping replacements.
+ */
+public class CompressedLocalDateDbTimeSeriesMaster extends LocalDateDbTimeSeriesMaster {
+
+  /**
+   * The default maximum number of points in a chunk.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 1024;
+  /**
+   * List of extra keys expected in the Map containing SQL queries.
+   */
+  private static final Set<String> CHUNK_SQL_MAP_KEYS = Collections.unmodifiableSet(Sets.newHashSet(
+      CLOSE_DATA_POINT_CHUNKS,
+      GET_CHUNK_DATE_RANGE_BY_OID,
+      INSERT_DATA_POINT_CHUNK,
+      LOAD_DATA_POINT_CHUNKS,
+      LOAD_DATA_POINT_CHUNKS_AS_OF,
+      LOAD_DATA_POINT_CHUNKS_BULK,
+      LOCK_META_DATA));
+
+  /**
+   * The maximum number of points in a chunk.
+   */
+  private int _chunkSize = DEFAULT_CHUNK_SIZE;
+
+  /**
+   * Creates an instance.
+   *
+   * @param dbSource  the database information, not null
+   * @param namedSQLMap  the named SQL map, not null
+   */
+  public CompressedLocalDateDbTimeSeriesMaster(DbSource dbSource, Map<String, String> namedSQLMap) {
+    super(dbSource, withChunkDates(namedSQLMap), false);
+  }
+
+  /**
+   * Replaces the queries that read the date range of each time-series with ones that read the chunks.
+   *
+   * @param namedSQLMap  the named SQL map, not null
+   * @return the corrected map, not null
+   */
+  private static Map<String, String> withChunkDates(Map<String, String> namedSQLMap) {
+    ArgumentChecker.notNull(namedSQLMap, "namedSQLMap");
+    Map<String, String> result = new HashMap<String, String>(namedSQLMap);
+    result.put(GET_ACTIVE_META_DATA_WITH_DATES, namedSQLMap.get(GET_ACTIVE_META_DATA_WITH_CHUNK_DATES));
+    result.put(GET_ACTIVE_META_DATA_WITH_DATES_BY_IDENTIFIERS, namedSQLMap.get(GET_ACTIVE_META_DATA_WITH_CHUNK_DATES_BY_IDENTIFIERS));
+    return result;
+  }
+
+  @Override
+  protected void checkNamedSQLMap(Map<String, String> namedSQLMap) {
+    super.checkNamedSQLMap(namedSQLMap);
+    for (String key : CHUNK_SQL_MAP_KEYS) {
+      if (StringUtils.isBlank(namedSQLMap.get(key))) {
+        throw new IllegalArgumentException(key + " query is missing from injected SQLMap when creating " + getClass());
+      }
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the maximum number of points in a chunk.
+   *
+   * @return the chunk size
+   */
+  public int getChunkSize() {
+    return _chunkSize;
+  }
+
+  /**
+   * Sets the maximum number of points in a chunk, used for chunks written from now on.
+   *
+   * @param chunkSize  the chunk size, greater than zero
+   */
+  public void setChunkSize(int chunkSize) {
+    ArgumentChecker.isTrue(chunkSize > 0, "chunkSize must be greater than zero");
+    _chunkSize = chunkSize;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  protected void insertDataPoints(DoubleTimeSeries<LocalDate> timeSeries, long tsKey) {
+    FastIntDoubleTimeSeries fastSeries = timeSeries.toFastIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS);
+    if (fastSeries.isEmpty()) {
+      return;
+    }
+    int[] days = fastSeries.timesArrayFast();
+    double[] values = fastSeries.valuesArrayFast();
+    lockTimeSeries(tsKey);
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    LocalDate latest = getTimeSeriesDateRange(tsKey).get("latest");
+    if (latest == null) {
+      insertChunks(tsKey, days, values, 0, days.length, now);
+      return;
+    }
+    int latestDay = (int) latest.toEpochDays();
+    List<Chunk> chunks = loadChunks(tsKey, Math.min(days[0], latestDay), null);
+    if (chunks.size() == 1 && days[0] > latestDay && chunks.get(0)._pointCount >= _chunkSize) {
+      // appending after a full chunk
+      insertChunks(tsKey, days, values, 0, days.length, now);
+      return;
+    }
+    Points existing = decode(chunks);
+    Points merged = new Points(existing._size + days.length);
+    int i = 0;
+    int j = 0;
+    while (i < existing._size || j < days.length) {
+      if (j == days.length || (i < existing._size && existing._days[i] < days[j])) {
+        merged.add(existing._days[i], existing._values[i]);
+        i++;
+      } else if (i == existing._size || days[j] < existing._days[i]) {
+        merged.add(days[j], values[j]);
+        j++;
+      } else {
+        throw new IllegalArgumentException("Data point already exists at " + LocalDate.ofEpochDays(days[j]) + " in time-series " + tsKey);
+      }
+    }
+    if (!chunks.isEmpty()) {
+      closeChunks(tsKey, chunks.get(0)._firstDay, null, now);
+    }
+    insertChunks(tsKey, merged._days, merged._values, 0, merged._size, now);
+  }
+
+  @Override
+  protected void insertDataPoint(long tsId, LocalDate date, Double value) {
+    insertDataPoints(new ArrayLocalDateDoubleTimeSeries(new LocalDate[] {date}, new double[] {value}), tsId);
+  }
+
+  @Override
+  protected void deleteDataPoints(long tsId) {
+    lockTimeSeries(tsId);
+    closeChunks(tsId, null, null, new Timestamp(System.currentTimeMillis()));
+  }
+
+  @Override
+  protected DoubleTimeSeries<LocalDate> loadTimeSeries(long timeSeriesKey, LocalDate start, LocalDate end) {
+    Integer startDay = (start != null ? (int) start.toEpochDays() : null);
+    Integer endDay = (end != null ? (int) end.toEpochDays() : null);
+    Points points = decode(loadChunks(timeSeriesKey, startDay, endDay));
+    int from = (startDay != null ? points.indexOf(startDay) : 0);
+    int to = (endDay != null ? points.indexOf(endDay + 1) : points._size);
+    return toTimeSeries(points, from, to);
+  }
+
+  @Override
+  protected Map<Long, DoubleTimeSeries<LocalDate>> loadTimeSeries(Collection<Long> timeSeriesKeys, LocalDate start, LocalDate end) {
+    ArgumentChecker.notNull(timeSeriesKeys, "timeSeriesKeys");
+    Integer startDay = (start != null ? (int) start.toEpochDays() : null);
+    Integer endDay = (end != null ? (int) end.toEpochDays() : null);
+    final Map<Long, List<Chunk>> chunkMap = new HashMap<Long, List<Chunk>>();
+    List<Long> keys = new ArrayList<Long>(new HashSet<Long>(timeSeriesKeys));
+    for (int i = 0; i < keys.size(); i += BULK_LOAD_BATCH_SIZE) {
+      String sql = getNamedSQLMap().get(LOAD_DATA_POINT_CHUNKS_BULK);
+      MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("tsIDs", keys.subList(i, Math.min(i + BULK_LOAD_BATCH_SIZE, keys.size())))
+        .addValue("maxInstant", DbDateUtils.MAX_SQL_TIMESTAMP, Types.TIMESTAMP);
+      sql = appendChunkDateRange(sql, parameters, startDay, endDay);
+      sql += " ORDER BY meta_data_id, first_date";
+      final LobHandler lobHandler = getDbSource().getDialect().getLobHandler();
+      getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, parameters, new RowCallbackHandler() {
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+          Long tsId = rs.getLong("meta_data_id");
+          List<Chunk> chunks = chunkMap.get(tsId);
+          if (chunks == null) {
+            chunks = new ArrayList<Chunk>();
+            chunkMap.put(tsId, chunks);
+          }
+          chunks.add(readChunk(rs, lobHandler));
+        }
+      });
+    }
+    Map<Long, DoubleTimeSeries<LocalDate>> result = new HashMap<Long, DoubleTimeSeries<LocalDate>>();
+    for (Long key : keys) {
+      List<Chunk> chunks = chunkMap.get(key);
+      Points points = decode(chunks != null ? chunks : Collections.<Chunk>emptyList());
+      int from = (startDay != null ? points.indexOf(startDay) : 0);
+      int to = (endDay != null ? points.indexOf(endDay + 1) : points._size);
+      result.put(key, toTimeSeries(points, from, to));
+    }
+    return result;
+  }
+
+  @Override
+  protected Double loadDataPoint(long tsId, LocalDate date) {
+    int day = (int) date.toEpochDays();
+    Points points = decode(loadChunks(tsId, day, day));
+    int index = points.indexOf(day);
+    if (index < points._size && points._days[index] == day) {
+      return points._values[index];
+    }
+    return null;
+  }
+
+  @Override
+  protected void updateDataPoint(LocalDate date, Double value, long tsID) {
+    ArgumentChecker.notNull(value, "value");
+    lockTimeSeries(tsID);
+    Chunk chunk = loadChunkContaining(tsID, date);
+    Points points = decode(Collections.singletonList(chunk));
+    points._values[points.indexOf(chunk, date)] = value;
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    closeChunks(tsID, chunk._firstDay, chunk._firstDay, now);
+    insertChunks(tsID, points._days, points._values, 0, points._size, now);
+  }
+
+  @Override
+  protected void removeDataPoint(long tsID, LocalDate date) {
+    lockTimeSeries(tsID);
+    Chunk chunk = loadChunkContaining(tsID, date);
+    Points points = decode(Collections.singletonList(chunk));
+    int index = points.indexOf(chunk, date);
+    System.arraycopy(points._days, index + 1, points._days, index, points._size - index - 1);
+    System.arraycopy(points._values, index + 1, points._values, index, points._size - index - 1);
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    closeChunks(tsID, chunk._firstDay, chunk._firstDay, now);
+    insertChunks(tsID, points._days, points._values, 0, points._size - 1, now);
+  }
+
+  @Override
+  protected void removeDataPointsBefore(long tsId, LocalDate firstDateToRetain) {
+    int firstDayToRetain = (int) firstDateToRetain.toEpochDays();
+    lockTimeSeries(tsId);
+    List<Chunk> chunks = loadChunks(tsId, null, firstDayToRetain - 1);
+    if (chunks.isEmpty()) {
+      return;
+    }
+    Chunk last = chunks.get(chunks.size() - 1);
+    Points points = decode(Collections.singletonList(last));
+    Timestamp now = new Timestamp(System.currentTimeMillis());
+    closeChunks(tsId, null, last._firstDay, now);
+    insertChunks(tsId, points._days, points._values, points.indexOf(firstDayToRetain), points._size, now);
+  }
+
+  @Override
+  protected DoubleTimeSeries<LocalDate> getTimeSeriesSnapshot(Instant timeStamp, long tsID) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+      .addValue("tsID", tsID, Types.BIGINT)
+      .addValue("time", DbDateUtils.toSqlTimestamp(timeStamp), Types.TIMESTAMP);
+    Points points = decode(queryChunks(getNamedSQLMap().get(LOAD_DATA_POINT_CHUNKS_AS_OF), parameters));
+    return toTimeSeries(points, 0, points._size);
+  }
+
+  @Override
+  protected Map<String, LocalDate> getTimeSeriesDateRange(long tsId) {
+    final Map<String, LocalDate> result = new HashMap<String, LocalDate>();
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+      .addValue("oid", tsId, Types.BIGINT)
+      .addValue("maxInstant", DbDateUtils.MAX_SQL_TIMESTAMP, Types.TIMESTAMP);
+    getJdbcTemplate().getNamedParameterJdbcOperations().query(getNamedSQLMap().get(GET_CHUNK_DATE_RANGE_BY_OID), parameters, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        if (rs.getDate("earliest") != null) {
+          result.put("earliest", getDate(rs, "earliest"));
+          result.put("latest", getDate(rs, "latest"));
+        }
+      }
+    });
+    return result;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Locks the meta-data row of a time-series until the end of the transaction.
+   */
+  private void lockTimeSeries(long tsId) {
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+      .addValue("tsID", tsId, Types.BIGINT);
+    getJdbcTemplate().getNamedParameterJdbcOperations().queryForList(getNamedSQLMap().get(LOCK_META_DATA), parameters);
+  }
+
+  /**
+   * Loads the current chunks that may hold points in a range of days, in date order.
+   */
+  private List<Chunk> loadChunks(long tsId, Integer startDay, Integer endDay) {
+    String sql = getNamedSQLMap().get(LOAD_DATA_POINT_CHUNKS);
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+      .addValue("tsID", tsId, Types.BIGINT)
+      .addValue("maxInstant", DbDateUtils.MAX_SQL_TIMESTAMP, Types.TIMESTAMP);
+    sql = appendChunkDateRange(sql, parameters, startDay, endDay);
+    sql += " ORDER BY first_date";
+    return queryChunks(sql, parameters);
+  }
+
+  /**
+   * Restricts a chunk query to the chunks that may hold points in a range of days.
+   */
+  private static String appendChunkDateRange(String sql, MapSqlParameterSource parameters, Integer startDay, Integer endDay) {
+    if (startDay != null) {
+      sql += " AND last_date >= :startDate";
+      parameters.addValue("startDate", toSqlDate(startDay), Types.DATE);
+    }
+    if (endDay != null) {
+      sql += " AND first_date <= :endDate";
+      parameters.addValue("endDate", toSqlDate(endDay), Types.DATE);
+    }
+    return sql;
+  }
+
+  private Chunk loadChunkContaining(long tsId, LocalDate date) {
+    int day = (int) date.toEpochDays();
+    List<Chunk> chunks = loadChunks(tsId, day, day);
+    if (chunks.isEmpty()) {
+      throw new DataNotFoundException("Data point not found at " + date + " in time-series " + tsId);
+    }
+    return chunks.get(0);
+  }
+
+  private List<Chunk> queryChunks(String sql, SqlParameterSource parameters) {
+    final LobHandler lobHandler = getDbSource().getDialect().getLobHandler();
+    final List<Chunk> result = new ArrayList<Chunk>();
+    getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, parameters, new RowCallbackHandler() {
+      @Override
+      public void processRow(ResultSet rs) throws SQLException {
+        result.add(readChunk(rs, lobHandler));
+      }
+    });
+    return result;
+  }
+
+  private Chunk readChunk(ResultSet rs, LobHandler lobHandler) throws SQLException {
+    Chunk chunk = new Chunk();
+    chunk._firstDay = (int) getDate(rs, "first_date").toEpochDays();
+    chunk._pointCount = rs.getInt("point_count");
+    chunk._data = lobHandler.getBlobAsBytes(rs, "data");
+    return chunk;
+  }
+
+  /**
+   * Closes the current chunks whose first day is in a range, inclusive.
+   */
+  private void closeChunks(long tsId, Integer fromFirstDay, Integer toFirstDay, Timestamp now) {
+    String sql = getNamedSQLMap().get(CLOSE_DATA_POINT_CHUNKS);
+    MapSqlParameterSource parameters = new MapSqlParameterSource()
+      .addValue("tsID", tsId, Types.BIGINT)
+      .addValue("now", now, Types.TIMESTAMP)
+      .addValue("maxInstant", DbDateUtils.MAX_SQL_TIMESTAMP, Types.TIMESTAMP);
+    if (fromFirstDay != null) {
+      sql += " AND first_date >= :startDate";
+      parameters.addValue("startDate", toSqlDate(fromFirstDay), Types.DATE);
+    }
+    if (toFirstDay != null) {
+      sql += " AND first_date <= :endDate";
+      parameters.addValue("endDate", toSqlDate(toFirstDay), Types.DATE);
+    }
+    getJdbcTemplate().update(sql, parameters);
+  }
+
+  /**
+   * Writes a range of points as current chunks of at most the chunk size.
+   */
+  private void insertChunks(long tsId, int[] days, double[] values, int fromIndex, int toIndex, Timestamp now) {
+    if (fromIndex >= toIndex) {
+      return;
+    }
+    LobHandler lobHandler = getDbSource().getDialect().getLobHandler();
+    int chunkCount = (toIndex - fromIndex + _chunkSize - 1) / _chunkSize;
+    SqlParameterSource[] batchArgs = new SqlParameterSource[chunkCount];
+    long[] times = new long[toIndex];
+    for (int i = fromIndex; i < toIndex; i++) {
+      times[i] = days[i];
+    }
+    for (int c = 0; c < chunkCount; c++) {
+      int from = fromIndex + c * _chunkSize;
+      int to = Math.min(from + _chunkSize, toIndex);
+      byte[] data = TimeSeriesChunkCodec.encode(times, values, from, to);
+      batchArgs[c] = new MapSqlParameterSource()
+        .addValue("tsID", tsId, Types.BIGINT)
+        .addValue("firstDate", toSqlDate(days[from]), Types.DATE)
+        .addValue("lastDate", toSqlDate(days[to - 1]), Types.DATE)
+        .addValue("pointCount", to - from, Types.INTEGER)
+        .addValue("verFromInstant", now, Types.TIMESTAMP)
+        .addValue("verToInstant", DbDateUtils.MAX_SQL_TIMESTAMP, Types.TIMESTAMP)
+        .addValue("data", new SqlLobValue(data, lobHandler), Types.BLOB);
+    }
+    getJdbcTemplate().batchUpdate(getNamedSQLMap().get(INSERT_DATA_POINT_CHUNK), batchArgs);
+  }
+
+  private static java.sql.Date toSqlDate(int epochDay) {
+    return DbDateUtils.toSqlDate(LocalDate.ofEpochDays(epochDay));
+  }
+
+  private static Points decode(List<Chunk> chunks) {
+    int size = 0;
+    for (Chunk chunk : chunks) {
+      size += TimeSeriesChunkCodec.getPointCount(chunk._data);
+    }
+    long[] times = new long[size];
+    double[] values = new double[size];
+    int offset = 0;
+    for (Chunk chunk : chunks) {
+      offset += TimeSeriesChunkCodec.decode(chunk._data, times, values, offset);
+    }
+    int[] days = new int[size];
+    for (int i = 0; i < size; i++) {
+      days[i] = (int) times[i];
+    }
+    return new Points(days, values);
+  }
+
+  private static DoubleTimeSeries<LocalDate> toTimeSeries(Points points, int from, int to) {
+    int[] days = points._days;
+    double[] values = points._values;
+    if (from != 0 || to != points._size || days.length != points._size) {
+      days = Arrays.copyOfRange(days, from, to);
+      values = Arrays.copyOfRange(values, from, to);
+    }
+    return new ArrayLocalDateDoubleTimeSeries(new FastArrayIntDoubleTimeSeries(DateTimeNumericEncoding.DATE_EPOCH_DAYS, days, values));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * A stored chunk.
+   */
+  private static final class Chunk {
+    private int _firstDay;
+    private int _pointCount;
+    private byte[] _data;
+  }
+
+  /**
+   * A growable run of points, in date order.
+   */
+  private static final class Points {
+    private int[] _days;
+    private double[] _values;
+    private int _size;
+
+    private Points(int capacity) {
+      _days = new int[capacity];
+      _values = new double[capacity];
+    }
+
+    private Points(int[] days, double[] values) {
+      _days = days;
+      _values = values;
+      _size = days.length;
+    }
+
+    private void add(int day, double value) {
+      _days[_size] = day;
+      _values[_size] = value;
+      _size++;
+    }
+
+    /**
+     * Gets the index of the first point on or after a day.
+     */
+    private int indexOf(int day) {
+      int index = Arrays.binarySearch(_days, 0, _size, day);
+      return (index >= 0 ? index : -index - 1);
+    }
+
+    /**
+     * Gets the index of the point at a date, which must exist.
+     */
+    private int indexOf(Chunk chunk, LocalDate date) {
+      int day = (int) date.toEpochDays();
+      int index = indexOf(day);
+      if (index == _size || _days[index] != day) {
+        throw new DataNotFoundException("Data point not found at " + date + " in chunk starting " + LocalDate.ofEpochDays(chunk._firstDay));
+      }
+      return index;
+    }
+  }
+
+}
@@ -73,6 +73,11 @@ public class DateTimeDbTimeSeriesMaster extends DbTimeSeriesMaster<Date> impleme
     return new ArrayDateTimeDoubleTimeSeries(dates, values);
   }
 
+  @Override
+  protected DoubleTimeSeries<Date> getTimeSeries(List<Date> dates, double[] values) {
+    return new ArrayDateTimeDoubleTimeSeries(dates.toArray(new Date[dates.size()]), values);
+  }
+
   @Override
   protected MutableDoubleTimeSeries<Date> getMutableTimeSeries(DoubleTimeSeries<Date> timeSeries) {
     return new MapDateTimeDoubleTimeSeries(timeSeries);
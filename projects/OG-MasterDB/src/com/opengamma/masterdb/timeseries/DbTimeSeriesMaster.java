@@ -60,6 +60,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -87,6 +88,8 @@ import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.core.simple.SimpleJdbcTemplate;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.google.common.collect.Sets;
 import com.opengamma.DataNotFoundException;
@@ -96,6 +99,10 @@ import com.opengamma.id.IdentifierBundle;
 import com.opengamma.id.IdentifierBundleWithDates;
 import com.opengamma.id.IdentifierWithDates;
 import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.master.listener.BasicMasterChangeManager;
+import com.opengamma.master.listener.MasterChangeManager;
+import com.opengamma.master.listener.MasterChangedType;
+import com.opengamma.master.listener.NotifyingMaster;
 import com.opengamma.master.timeseries.DataFieldBean;
 import com.opengamma.master.timeseries.DataPointDocument;
 import com.opengamma.master.timeseries.DataProviderBean;
@@ -126,11 +133,20 @@ import com.opengamma.util.tuple.Pair;
  * implementations for a typical RDMS database
  * <p>
  * Expects the subclass to provide a map for specific database SQL queries
+ * <p>
+ * Data points are stored one row per point. The protected data point methods, such as
+ * {@link #insertDataPoints} and {@link #loadTimeSeries}, may be overridden together
+ * to store them differently.
+ * <p>
+ * Changes are announced through the {@link MasterChangeManager} once committed. Adding
+ * points after the latest point of a time-series is announced as {@link MasterChangedType#UPDATED},
+ * so that caches may append the new points, while any other change to existing points is
+ * announced as {@link MasterChangedType#CORRECTED}.
  * 
  * @param <T> LocalDate/java.util.Date
  */
 @Transactional(readOnly = true)
-public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
+public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T>, NotifyingMaster {
   
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(DbTimeSeriesMaster.class);
@@ -167,6 +183,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
       LOAD_ALL_SCHEME,
       LOAD_TIME_SERIES_DELTA,
       LOAD_TIME_SERIES_WITH_DATES,
+      LOAD_TIME_SERIES_BULK,
       SELECT_DATA_FIELD_ID,
       SELECT_DATA_PROVIDER_ID,
       SELECT_DATA_SOURCE_ID,
@@ -183,6 +200,11 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
    * The scheme used for UniqueIdentifier objects.
    */
   public static final String IDENTIFIER_SCHEME_DEFAULT = "Tss";
+  /**
+   * The maximum number of time-series loaded by a single bulk query.
+   * This keeps the size of the SQL IN clause within the limits of all supported databases.
+   */
+  protected static final int BULK_LOAD_BATCH_SIZE = 1000;
 
   /**
    * The identifier scheme to use.
@@ -200,6 +222,10 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
    * Whether trigger is supported.
    */
   private final boolean _isTriggerSupported;
+  /**
+   * The change manager.
+   */
+  private MasterChangeManager _changeManager = new BasicMasterChangeManager();
 
   /**
    * Creates an instance.
@@ -247,6 +273,16 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
 
   protected abstract DoubleTimeSeries<T> getTimeSeries(List<T> dates, List<Double> values);
 
+  /**
+   * Creates a time-series from dates and primitive values.
+   * The list of dates may be reused by the caller, so must be copied rather than kept.
+   * 
+   * @param dates  the dates, not null
+   * @param values  the values, of the same size as the dates, not null
+   * @return the time-series, not null
+   */
+  protected abstract DoubleTimeSeries<T> getTimeSeries(List<T> dates, double[] values);
+
   protected abstract MutableDoubleTimeSeries<T> getMutableTimeSeries(DoubleTimeSeries<T> timeSeries);
 
   //-------------------------------------------------------------------------
@@ -268,6 +304,15 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return _dbSource.getJdbcTemplate();
   }
 
+  /**
+   * Gets the map of named SQL, with the data point table names filled in.
+   * 
+   * @return the named SQL map, not null
+   */
+  protected Map<String, String> getNamedSQLMap() {
+    return _namedSQLMap;
+  }
+
   /**
    * Gets whether trigger is supported.
    * 
@@ -277,6 +322,30 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return _isTriggerSupported;
   }
 
+  /**
+   * Gets the change manager.
+   * 
+   * @return the change manager, not null
+   */
+  public MasterChangeManager getChangeManager() {
+    return _changeManager;
+  }
+
+  /**
+   * Sets the change manager.
+   * 
+   * @param changeManager  the change manager, not null
+   */
+  public void setChangeManager(final MasterChangeManager changeManager) {
+    ArgumentChecker.notNull(changeManager, "changeManager");
+    _changeManager = changeManager;
+  }
+
+  @Override
+  public MasterChangeManager changeManager() {
+    return getChangeManager();
+  }
+
   //-------------------------------------------------------------------------
   @Override
   public List<IdentifierBundleWithDates> getAllIdentifiers() {
@@ -313,7 +382,13 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return identifier.getScheme().getName() + "-" + identifier.getValue() + "-" + GUIDGenerator.generate().toString();
   }
 
-  private void insertDataPoints(DoubleTimeSeries<T> sqlDateDoubleTimeSeries, long tsKey) {
+  /**
+   * Inserts data points into a time-series.
+   * 
+   * @param sqlDateDoubleTimeSeries  the points to insert, not null
+   * @param tsKey  the time-series id
+   */
+  protected void insertDataPoints(DoubleTimeSeries<T> sqlDateDoubleTimeSeries, long tsKey) {
     String insertSQL = _namedSQLMap.get(INSERT_TIME_SERIES);
     String insertDelta = _namedSQLMap.get(INSERT_TIME_SERIES_DELTA_I);
     
@@ -563,7 +638,12 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return result;
   }
   
-  private void deleteDataPoints(long tsId) {
+  /**
+   * Deletes all the data points of a time-series.
+   * 
+   * @param tsId  the time-series id
+   */
+  protected void deleteDataPoints(long tsId) {
     
     s_logger.debug("deleting timeseries with id = {}", tsId);
     
@@ -603,7 +683,15 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     
   }
     
-  private DoubleTimeSeries<T> loadTimeSeries(long timeSeriesKey, T start, T end) {
+  /**
+   * Loads the data points of a time-series.
+   * 
+   * @param timeSeriesKey  the time-series id
+   * @param start  the first date to load, inclusive, null for the earliest point
+   * @param end  the last date to load, inclusive, null for the latest point
+   * @return the time-series, not null
+   */
+  protected DoubleTimeSeries<T> loadTimeSeries(long timeSeriesKey, T start, T end) {
     String sql = _namedSQLMap.get(LOAD_TIME_SERIES_WITH_DATES);
     MapSqlParameterSource parameters = new MapSqlParameterSource().addValue("timeSeriesKey", timeSeriesKey, Types.INTEGER);
     
@@ -635,7 +723,55 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return getTimeSeries(dates, values);
   }
 
-  private void updateDataPoint(T date, Double value, long tsID) {
+  /**
+   * Loads the data points of several time-series.
+   * <p>
+   * The points are read in one query per {@link #BULK_LOAD_BATCH_SIZE} time-series,
+   * rather than one query per time-series.
+   * 
+   * @param timeSeriesKeys  the time-series ids, not null
+   * @param start  the first date to load, inclusive, null for the earliest point
+   * @param end  the last date to load, inclusive, null for the latest point
+   * @return the time-series keyed by id, with an empty series for each id without points, not null
+   */
+  protected Map<Long, DoubleTimeSeries<T>> loadTimeSeries(Collection<Long> timeSeriesKeys, T start, T end) {
+    ArgumentChecker.notNull(timeSeriesKeys, "timeSeriesKeys");
+    final Map<Long, DoubleTimeSeries<T>> result = new HashMap<Long, DoubleTimeSeries<T>>();
+    final List<Long> keys = new ArrayList<Long>(new HashSet<Long>(timeSeriesKeys));
+    for (int i = 0; i < keys.size(); i += BULK_LOAD_BATCH_SIZE) {
+      String sql = _namedSQLMap.get(LOAD_TIME_SERIES_BULK);
+      MapSqlParameterSource parameters = new MapSqlParameterSource()
+        .addValue("timeSeriesKeys", keys.subList(i, Math.min(i + BULK_LOAD_BATCH_SIZE, keys.size())));
+      if (start != null) {
+        sql += " AND ts_date >= :startDate";
+        parameters.addValue("startDate", getSqlDate(start), getSqlDateType());
+      }
+      if (end != null) {
+        sql += " AND ts_date <= :endDate";
+        parameters.addValue("endDate", getSqlDate(end), getSqlDateType());
+      }
+      sql += " ORDER BY meta_data_id, ts_date";
+      
+      BulkTimeSeriesHandler handler = new BulkTimeSeriesHandler(result);
+      getJdbcTemplate().getNamedParameterJdbcOperations().query(sql, parameters, handler);
+      handler.flush();
+    }
+    for (Long key : keys) {
+      if (!result.containsKey(key)) {
+        result.put(key, getTimeSeries(Collections.<T>emptyList(), new double[0]));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Updates the value of an existing data point.
+   * 
+   * @param date  the date of the point, not null
+   * @param value  the new value, not null
+   * @param tsID  the time-series id
+   */
+  protected void updateDataPoint(T date, Double value, long tsID) {
     String selectSQL = _namedSQLMap.get(FIND_DATA_POINT_BY_DATE_AND_ID);
     
     MapSqlParameterSource parameters = new MapSqlParameterSource()
@@ -659,7 +795,13 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     getJdbcTemplate().update(updateSql, parameters);
   }
   
-  private void removeDataPoint(long tsID, T date) {
+  /**
+   * Removes an existing data point.
+   * 
+   * @param tsID  the time-series id
+   * @param date  the date of the point, not null
+   */
+  protected void removeDataPoint(long tsID, T date) {
     String selectTSSQL = _namedSQLMap.get(FIND_DATA_POINT_BY_DATE_AND_ID);
     MapSqlParameterSource parameters = new MapSqlParameterSource().addValue("tsID", tsID, Types.INTEGER);
     parameters.addValue("date", getSqlDate(date), getSqlDateType());
@@ -683,7 +825,14 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     getJdbcTemplate().update(deleteSql, parameters);
   }
     
-  private DoubleTimeSeries<T> getTimeSeriesSnapshot(Instant timeStamp, long tsID) {
+  /**
+   * Loads the data points of a time-series as they were at an instant.
+   * 
+   * @param timeStamp  the instant, not null
+   * @param tsID  the time-series id
+   * @return the time-series, not null
+   */
+  protected DoubleTimeSeries<T> getTimeSeriesSnapshot(Instant timeStamp, long tsID) {
     String selectDeltaSql = _namedSQLMap.get(LOAD_TIME_SERIES_DELTA);
     
     MapSqlParameterSource parameterSource = new MapSqlParameterSource();
@@ -768,6 +917,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
           document.getObservationTime(),
           document.getTimeSeries());
       document.setUniqueId(uniqueId);
+      fireChange(MasterChangedType.ADDED, null, uniqueId);
       return document;
     } else {
       throw new IllegalArgumentException("cannot add duplicate TimeSeries for identifiers " + document.getIdentifiers());
@@ -827,7 +977,27 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
   @Transactional(readOnly = false, propagation = Propagation.REQUIRES_NEW)
   public void appendTimeSeries(TimeSeriesDocument<T> document) {
     Long tsId = validateAndGetTimeSeriesId(document.getUniqueId());
+    MasterChangedType changeType = getChangeType(tsId, document.getTimeSeries());
     insertDataPoints(document.getTimeSeries(), tsId);
+    fireChange(changeType, document.getUniqueId(), document.getUniqueId());
+  }
+
+  /**
+   * Gets the type of change made by adding points to a time-series.
+   * 
+   * @param tsId  the time-series id
+   * @param timeSeries  the points to be added, not null
+   * @return {@code UPDATED} if all the points are after the latest existing point, {@code CORRECTED} otherwise
+   */
+  private MasterChangedType getChangeType(long tsId, DoubleTimeSeries<T> timeSeries) {
+    if (timeSeries.isEmpty()) {
+      return MasterChangedType.UPDATED;
+    }
+    T latest = getTimeSeriesDateRange(tsId).get("latest");
+    if (latest == null || timeSeries.subSeries(timeSeries.getEarliestTime(), true, latest, false).isEmpty()) {
+      return MasterChangedType.UPDATED;
+    }
+    return MasterChangedType.CORRECTED;
   }
 
   private void validateTimeSeriesDocument(TimeSeriesDocument<T> document) {
@@ -1084,6 +1254,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
       .addValue("tsKey", tsId, Types.BIGINT);
     getJdbcTemplate().update(_namedSQLMap.get(DEACTIVATE_META_DATA), parameters);
     deleteDataPoints(tsId);
+    fireChange(MasterChangedType.REMOVED, uniqueId, null);
   }
 
   @Override
@@ -1117,6 +1288,14 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     String sqlApplyPaging = getDbSource().getDialect().sqlApplyPaging(metaDataSql, StringUtils.EMPTY, request.getPagingRequest());
     
     List<MetaData<T>> tsMetaDataList = getJdbcTemplate().query(sqlApplyPaging, rowMapper, parameters);
+    Map<Long, DoubleTimeSeries<T>> timeSeriesMap = null;
+    if (request.isLoadTimeSeries()) {
+      List<Long> timeSeriesKeys = new ArrayList<Long>(tsMetaDataList.size());
+      for (MetaData<T> tsMetaData : tsMetaDataList) {
+        timeSeriesKeys.add(tsMetaData.getTimeSeriesId());
+      }
+      timeSeriesMap = loadTimeSeries(timeSeriesKeys, request.getStart(), request.getEnd());
+    }
     for (MetaData<T> tsMetaData : tsMetaDataList) {
       TimeSeriesDocument<T> document = new TimeSeriesDocument<T>();
       Long bundleId = tsMetaData.getIdentifierBundleId();
@@ -1135,8 +1314,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
         document.setLatest(tsMetaData.getLatestDate());
       }
       if (request.isLoadTimeSeries()) {
-        DoubleTimeSeries<T> loadTimeSeries = loadTimeSeries(timeSeriesKey, request.getStart(), request.getEnd());
-        document.setTimeSeries(loadTimeSeries);
+        document.setTimeSeries(timeSeriesMap.get(timeSeriesKey));
       }
       result.getDocuments().add(document);
     }
@@ -1190,6 +1368,9 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     if (hasIdentifier(request)) {
       parameters.addValue("BUNDLEIDS", ids);
     }
+    if (request.isLoadDates()) {
+      parameters.addValue("MAXINSTANT", DbDateUtils.MAX_SQL_TIMESTAMP, Types.TIMESTAMP);
+    }
     return sql.toString();
   }
   
@@ -1242,7 +1423,13 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return buf.toString();
   }
 
-  private Map<String, T> getTimeSeriesDateRange(long tsId) {
+  /**
+   * Gets the dates of the earliest and latest data points of a time-series.
+   * 
+   * @param tsId  the time-series id
+   * @return the dates keyed by "earliest" and "latest", not null
+   */
+  protected Map<String, T> getTimeSeriesDateRange(long tsId) {
     final Map<String, T> result = new HashMap<String, T>();
     NamedParameterJdbcOperations jdbcOperations = getJdbcTemplate().getNamedParameterJdbcOperations();
     MapSqlParameterSource parameters = new MapSqlParameterSource();
@@ -1311,6 +1498,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     
     deleteDataPoints(tsId);
     insertDataPoints(document.getTimeSeries(), tsId);
+    fireChange(MasterChangedType.CORRECTED, document.getUniqueId(), document.getUniqueId());
     return document;
   }
   
@@ -1322,6 +1510,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     ArgumentChecker.notNull(document.getValue(), "data point value");
     Long tsId = validateAndGetTimeSeriesId(document.getTimeSeriesId());
     updateDataPoint(document.getDate(), document.getValue(), tsId);
+    fireCorrected(tsId);
     return document;
   }
   
@@ -1332,7 +1521,23 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     ArgumentChecker.notNull(document.getDate(), "data point date");
     ArgumentChecker.notNull(document.getValue(), "data point value");
     Long tsId = validateAndGetTimeSeriesId(document.getTimeSeriesId());
-    
+    List<T> dates = Collections.singletonList(document.getDate());
+    MasterChangedType changeType = getChangeType(tsId, getTimeSeries(dates, new double[] {document.getValue()}));
+    insertDataPoint(tsId, document.getDate(), document.getValue());
+    fireChange(changeType, document.getTimeSeriesId(), document.getTimeSeriesId());
+    String uniqueId = new StringBuilder(String.valueOf(tsId)).append("/").append(printDate(document.getDate())).toString();
+    document.setDataPointId(UniqueIdentifier.of(_identifierScheme, uniqueId));
+    return document;
+  }
+  
+  /**
+   * Inserts a single data point into a time-series.
+   * 
+   * @param tsId  the time-series id
+   * @param date  the date of the point, not null
+   * @param value  the value, not null
+   */
+  protected void insertDataPoint(long tsId, T date, Double value) {
     String insertSQL = _namedSQLMap.get(INSERT_TIME_SERIES);
     String insertDelta = _namedSQLMap.get(INSERT_TIME_SERIES_DELTA_I);
     
@@ -1340,17 +1545,14 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     
     MapSqlParameterSource parameterSource = new MapSqlParameterSource();
     parameterSource.addValue("timeSeriesID", tsId, Types.BIGINT);
-    parameterSource.addValue("date", getSqlDate(document.getDate()), getSqlDateType());
-    parameterSource.addValue("value", document.getValue(), Types.DOUBLE);
+    parameterSource.addValue("date", getSqlDate(date), getSqlDateType());
+    parameterSource.addValue("value", value, Types.DOUBLE);
     parameterSource.addValue("timeStamp", now, Types.TIMESTAMP);
     
     if (!isTriggerSupported()) {
       getJdbcTemplate().update(insertDelta, parameterSource);
     } 
     getJdbcTemplate().update(insertSQL, parameterSource);
-    String uniqueId = new StringBuilder(String.valueOf(tsId)).append("/").append(printDate(document.getDate())).toString();
-    document.setDataPointId(UniqueIdentifier.of(_identifierScheme, uniqueId));
-    return document;
   }
   
   @Override
@@ -1360,6 +1562,7 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     Long tsId = tsIdDatePair.getFirst();
     T date = tsIdDatePair.getSecond();
     removeDataPoint(tsId, date);
+    fireCorrected(tsId);
   }
 
   @Override
@@ -1369,23 +1572,35 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     Long tsId = tsIdDatePair.getFirst();
     T date = tsIdDatePair.getSecond();
     
+    final DataPointDocument<T> result = new DataPointDocument<T>();
+    result.setDate(tsIdDatePair.getSecond());
+    result.setTimeSeriesId(UniqueIdentifier.of(_identifierScheme, String.valueOf(tsId)));
+    result.setDataPointId(uniqueId);
+    result.setValue(loadDataPoint(tsId, date));
+    return result;
+  }
+
+  /**
+   * Loads the value of a single data point.
+   * 
+   * @param tsId  the time-series id
+   * @param date  the date of the point, not null
+   * @return the value, null if there is no point at the date
+   */
+  protected Double loadDataPoint(long tsId, T date) {
     NamedParameterJdbcOperations jdbcOperations = getJdbcTemplate().getNamedParameterJdbcOperations();
     MapSqlParameterSource paramSource = new MapSqlParameterSource();
     paramSource.addValue("tsID", tsId, Types.BIGINT);
     paramSource.addValue("date", getSqlDate(date), getSqlDateType());
     
-    final DataPointDocument<T> result = new DataPointDocument<T>();
-    result.setDate(tsIdDatePair.getSecond());
-    result.setTimeSeriesId(UniqueIdentifier.of(_identifierScheme, String.valueOf(tsId)));
-    result.setDataPointId(uniqueId);
+    final Double[] result = new Double[1];
     jdbcOperations.query(_namedSQLMap.get(FIND_DATA_POINT_BY_DATE_AND_ID), paramSource, new RowCallbackHandler() {
       @Override
       public void processRow(ResultSet rs) throws SQLException {
-        result.setValue(rs.getDouble("value"));
+        result[0] = rs.getDouble("value");
       }
     });
-       
-    return result;
+    return result[0];
   }
 
   @Override
@@ -1526,6 +1741,42 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
     return result;
   }
     
+  /**
+   * Streams the rows of a bulk load, ordered by time-series and date, into one time-series per id.
+   */
+  private final class BulkTimeSeriesHandler implements RowCallbackHandler {
+    private final Map<Long, DoubleTimeSeries<T>> _result;
+    private final List<T> _dates = new ArrayList<T>();
+    private double[] _values = new double[64];
+    private long _timeSeriesKey = INVALID_KEY;
+
+    private BulkTimeSeriesHandler(final Map<Long, DoubleTimeSeries<T>> result) {
+      _result = result;
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+      long timeSeriesKey = rs.getLong("meta_data_id");
+      if (timeSeriesKey != _timeSeriesKey) {
+        flush();
+        _timeSeriesKey = timeSeriesKey;
+      }
+      int size = _dates.size();
+      if (size == _values.length) {
+        _values = Arrays.copyOf(_values, size * 2);
+      }
+      _values[size] = rs.getDouble("value");
+      _dates.add(getDate(rs, "ts_date"));
+    }
+
+    private void flush() {
+      if (_timeSeriesKey != INVALID_KEY) {
+        _result.put(_timeSeriesKey, getTimeSeries(_dates, Arrays.copyOf(_values, _dates.size())));
+        _dates.clear();
+      }
+    }
+  }
+
   private static class IdentifierBundleHandler implements RowCallbackHandler {
     
     private Map<Long, List<IdentifierWithDates>> _identifierBundleMap = new HashMap<Long, List<IdentifierWithDates>>();
@@ -1555,7 +1806,49 @@ public abstract class DbTimeSeriesMaster<T> implements TimeSeriesMaster<T> {
   @Override
   public void removeDataPoints(UniqueIdentifier timeSeriesUid, T firstDateToRetain) {
     Long tsId = validateAndGetTimeSeriesId(timeSeriesUid);
-    
+    removeDataPointsBefore(tsId, firstDateToRetain);
+    fireCorrected(tsId);
+  }
+
+  /**
+   * Announces a change to the existing points of a time-series.
+   * 
+   * @param tsId  the time-series id
+   */
+  private void fireCorrected(long tsId) {
+    UniqueIdentifier uniqueId = UniqueIdentifier.of(_identifierScheme, String.valueOf(tsId));
+    fireChange(MasterChangedType.CORRECTED, uniqueId, uniqueId);
+  }
+
+  /**
+   * Announces a change once the current transaction has committed, so that listeners
+   * reloading from the master see the change and a rolled back change is not announced.
+   * Without an active transaction the change is announced immediately.
+   * 
+   * @param type  the type of change, not null
+   * @param beforeId  the unique identifier before the change, null if added
+   * @param afterId  the unique identifier after the change, null if removed
+   */
+  private void fireChange(final MasterChangedType type, final UniqueIdentifier beforeId, final UniqueIdentifier afterId) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+          changeManager().masterChanged(type, beforeId, afterId, Instant.now());
+        }
+      });
+    } else {
+      changeManager().masterChanged(type, beforeId, afterId, Instant.now());
+    }
+  }
+
+  /**
+   * Removes the data points before a date.
+   * 
+   * @param tsId  the time-series id
+   * @param firstDateToRetain  the date of the first point to keep, not null
+   */
+  protected void removeDataPointsBefore(long tsId, T firstDateToRetain) {
     if (!isTriggerSupported()) {
       
       // this may be rather slow if there are lots of points to be removed
@@ -141,6 +141,10 @@ public final class DbTimeSeriesMasterConstants {
    * key name  for loadTimeSeriesWithDates SQL
    */
   public static final String LOAD_TIME_SERIES_WITH_DATES = "loadTimeSeriesWithDates";
+  /**
+   * key name  for loadTimeSeriesBulk SQL
+   */
+  public static final String LOAD_TIME_SERIES_BULK = "loadTimeSeriesBulk";
   /**
    * key name  for selectDataFieldID SQL
    */
@@ -189,6 +193,42 @@ public final class DbTimeSeriesMasterConstants {
    * key name  for getActiveMetaDataByIdentifiers SQL
    */
   public static final String GET_ACTIVE_META_DATA_BY_IDENTIFIERS = "getActiveMetaDataByIdentifiers";
+  /**
+   * key name  for insertDataPointChunk SQL
+   */
+  public static final String INSERT_DATA_POINT_CHUNK = "insertDataPointChunk";
+  /**
+   * key name  for loadDataPointChunks SQL
+   */
+  public static final String LOAD_DATA_POINT_CHUNKS = "loadDataPointChunks";
+  /**
+   * key name  for loadDataPointChunksBulk SQL
+   */
+  public static final String LOAD_DATA_POINT_CHUNKS_BULK = "loadDataPointChunksBulk";
+  /**
+   * key name  for loadDataPointChunksAsOf SQL
+   */
+  public static final String LOAD_DATA_POINT_CHUNKS_AS_OF = "loadDataPointChunksAsOf";
+  /**
+   * key name  for closeDataPointChunks SQL
+   */
+  public static final String CLOSE_DATA_POINT_CHUNKS = "closeDataPointChunks";
+  /**
+   * key name  for lockMetaData SQL
+   */
+  public static final String LOCK_META_DATA = "lockMetaData";
+  /**
+   * key name  for getChunkDateRangeByOid SQL
+   */
+  public static final String GET_CHUNK_DATE_RANGE_BY_OID = "getChunkDateRangeByOid";
+  /**
+   * key name  for getActiveMetaDataWithChunkDates SQL
+   */
+  public static final String GET_ACTIVE_META_DATA_WITH_CHUNK_DATES = "getActiveMetaDataWithChunkDates";
+  /**
+   * key name  for getActiveMetaDataWithChunkDatesByIdentifiers SQL
+   */
+  public static final String GET_ACTIVE_META_DATA_WITH_CHUNK_DATES_BY_IDENTIFIERS = "getActiveMetaDataWithChunkDatesByIdentifiers";
 
   
   //column names
@@ -70,6 +70,11 @@ public class LocalDateDbTimeSeriesMaster extends DbTimeSeriesMaster<LocalDate> i
     return new ArrayLocalDateDoubleTimeSeries(dates, values);
   }
 
+  @Override
+  protected DoubleTimeSeries<LocalDate> getTimeSeries(List<LocalDate> dates, double[] values) {
+    return new ArrayLocalDateDoubleTimeSeries(dates.toArray(new LocalDate[dates.size()]), values);
+  }
+
   @Override
   protected MutableDoubleTimeSeries<LocalDate> getMutableTimeSeries(DoubleTimeSeries<LocalDate> timeSeries) {
     return new MapLocalDateDoubleTimeSeries(timeSeries);
@@ -0,0 +1,266 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.timeseries;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Encodes a run of time-series points as a compressed chunk of bytes.
+ * <p>
+ * The format follows the Gorilla time-series compression scheme. The point count is written first,
+ * then the first time and value in full. Each later time is written as the difference between
+ * its gap and the previous gap, which is zero or small for regularly spaced series. Each later
+ * value is written as the exclusive-or of its bits with those of the previous value, storing only
+ * the significant bits, so repeated or slowly changing values take very little space.
+ * <p>
+ * Times are plain longs, such as epoch days or epoch millis, and must be in increasing order.
+ * This class is a thread-safe static utility.
+ */
+public final class TimeSeriesChunkCodec {
+
+  /**
+   * The number of bytes used for the point count.
+   */
+  private static final int HEADER_BYTES = 4;
+
+  /**
+   * Restricted constructor.
+   */
+  private TimeSeriesChunkCodec() {
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Encodes a range of points.
+   *
+   * @param times  the times, in increasing order, not null
+   * @param values  the values, not null
+   * @param fromIndex  the index of the first point, inclusive
+   * @param toIndex  the index of the last point, exclusive
+   * @return the encoded chunk, not null
+   */
+  public static byte[] encode(final long[] times, final double[] values, final int fromIndex, final int toIndex) {
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(values, "values");
+    ArgumentChecker.isTrue(fromIndex >= 0 && fromIndex <= toIndex && toIndex <= times.length && toIndex <= values.length, "Invalid point range");
+    final int count = toIndex - fromIndex;
+    final BitWriter writer = new BitWriter(HEADER_BYTES + 16 + 2 * count);
+    writer.writeBits(count, 32);
+    if (count == 0) {
+      return writer.toByteArray();
+    }
+    long prevTime = times[fromIndex];
+    long prevBits = Double.doubleToRawLongBits(values[fromIndex]);
+    writer.writeBits(prevTime, 64);
+    writer.writeBits(prevBits, 64);
+    long prevDelta = 0;
+    int prevLeading = -1;
+    int prevTrailing = 0;
+    for (int i = fromIndex + 1; i < toIndex; i++) {
+      final long time = times[i];
+      final long delta = time - prevTime;
+      if (delta <= 0) {
+        throw new IllegalArgumentException("Times must be in increasing order");
+      }
+      final long deltaOfDelta = delta - prevDelta;
+      if (deltaOfDelta == 0) {
+        writer.writeBits(0, 1);
+      } else if (fits(deltaOfDelta, 7)) {
+        writer.writeBits(0x2, 2);
+        writer.writeBits(deltaOfDelta, 7);
+      } else if (fits(deltaOfDelta, 9)) {
+        writer.writeBits(0x6, 3);
+        writer.writeBits(deltaOfDelta, 9);
+      } else if (fits(deltaOfDelta, 12)) {
+        writer.writeBits(0xE, 4);
+        writer.writeBits(deltaOfDelta, 12);
+      } else {
+        writer.writeBits(0xF, 4);
+        writer.writeBits(deltaOfDelta, 64);
+      }
+      prevDelta = delta;
+      prevTime = time;
+
+      final long bits = Double.doubleToRawLongBits(values[i]);
+      final long xor = bits ^ prevBits;
+      if (xor == 0) {
+        writer.writeBits(0, 1);
+      } else {
+        final int leading = Long.numberOfLeadingZeros(xor);
+        final int trailing = Long.numberOfTrailingZeros(xor);
+        if (prevLeading >= 0 && leading >= prevLeading && trailing >= prevTrailing) {
+          // fits in the window of significant bits of the previous value
+          writer.writeBits(0x2, 2);
+          writer.writeBits(xor >>> prevTrailing, 64 - prevLeading - prevTrailing);
+        } else {
+          final int significant = 64 - leading - trailing;
+          writer.writeBits(0x3, 2);
+          writer.writeBits(leading, 6);
+          writer.writeBits(significant - 1, 6);
+          writer.writeBits(xor >>> trailing, significant);
+          prevLeading = leading;
+          prevTrailing = trailing;
+        }
+      }
+      prevBits = bits;
+    }
+    return writer.toByteArray();
+  }
+
+  /**
+   * Gets the number of points in a chunk.
+   *
+   * @param chunk  the encoded chunk, not null
+   * @return the number of points
+   */
+  public static int getPointCount(final byte[] chunk) {
+    ArgumentChecker.notNull(chunk, "chunk");
+    if (chunk.length < HEADER_BYTES) {
+      throw new OpenGammaRuntimeException("Invalid time-series chunk of " + chunk.length + " bytes");
+    }
+    return ((chunk[0] & 0xFF) << 24) | ((chunk[1] & 0xFF) << 16) | ((chunk[2] & 0xFF) << 8) | (chunk[3] & 0xFF);
+  }
+
+  /**
+   * Decodes a chunk into arrays, which must have room for {@link #getPointCount} points from the offset.
+   *
+   * @param chunk  the encoded chunk, not null
+   * @param times  the array to write the times to, not null
+   * @param values  the array to write the values to, not null
+   * @param offset  the index to write the first point to
+   * @return the number of points decoded
+   */
+  public static int decode(final byte[] chunk, final long[] times, final double[] values, final int offset) {
+    ArgumentChecker.notNull(times, "times");
+    ArgumentChecker.notNull(values, "values");
+    final int count = getPointCount(chunk);
+    if (count == 0) {
+      return 0;
+    }
+    ArgumentChecker.isTrue(offset >= 0 && offset + count <= times.length && offset + count <= values.length, "Arrays too small for chunk");
+    final BitReader reader = new BitReader(chunk, HEADER_BYTES * 8);
+    long time = reader.readBits(64);
+    long bits = reader.readBits(64);
+    times[offset] = time;
+    values[offset] = Double.longBitsToDouble(bits);
+    long delta = 0;
+    int leading = 0;
+    int trailing = 0;
+    for (int i = offset + 1; i < offset + count; i++) {
+      if (reader.readBit()) {
+        final long deltaOfDelta;
+        if (!reader.readBit()) {
+          deltaOfDelta = reader.readSignedBits(7);
+        } else if (!reader.readBit()) {
+          deltaOfDelta = reader.readSignedBits(9);
+        } else if (!reader.readBit()) {
+          deltaOfDelta = reader.readSignedBits(12);
+        } else {
+          deltaOfDelta = reader.readBits(64);
+        }
+        delta += deltaOfDelta;
+      }
+      time += delta;
+      times[i] = time;
+
+      if (reader.readBit()) {
+        if (reader.readBit()) {
+          leading = (int) reader.readBits(6);
+          trailing = 64 - leading - ((int) reader.readBits(6) + 1);
+        }
+        bits ^= reader.readBits(64 - leading - trailing) << trailing;
+      }
+      values[i] = Double.longBitsToDouble(bits);
+    }
+    return count;
+  }
+
+  private static boolean fits(final long value, final int bits) {
+    return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes bits, most significant first, to a growing byte array.
+   */
+  private static final class BitWriter {
+    private byte[] _buffer;
+    private int _bitCount;
+
+    BitWriter(final int initialBytes) {
+      _buffer = new byte[initialBytes];
+    }
+
+    void writeBits(final long value, int count) {
+      while (count > 0) {
+        final int index = _bitCount >>> 3;
+        if (index == _buffer.length) {
+          final byte[] buffer = new byte[_buffer.length * 2];
+          System.arraycopy(_buffer, 0, buffer, 0, _buffer.length);
+          _buffer = buffer;
+        }
+        final int free = 8 - (_bitCount & 7);
+        final int n = Math.min(free, count);
+        final int bits = (int) (value >>> (count - n)) & ((1 << n) - 1);
+        _buffer[index] |= bits << (free - n);
+        _bitCount += n;
+        count -= n;
+      }
+    }
+
+    byte[] toByteArray() {
+      final byte[] result = new byte[(_bitCount + 7) >>> 3];
+      System.arraycopy(_buffer, 0, result, 0, result.length);
+      return result;
+    }
+  }
+
+  /**
+   * Reads bits, most significant first, from a byte array.
+   */
+  private static final class BitReader {
+    private final byte[] _buffer;
+    private int _position;
+
+    BitReader(final byte[] buffer, final int position) {
+      _buffer = buffer;
+      _position = position;
+    }
+
+    boolean readBit() {
+      final int index = _position >>> 3;
+      if (index >= _buffer.length) {
+        throw new OpenGammaRuntimeException("Truncated time-series chunk");
+      }
+      final int bit = (_buffer[index] >>> (7 - (_position & 7))) & 1;
+      _position++;
+      return bit != 0;
+    }
+
+    long readBits(int count) {
+      long result = 0;
+      while (count > 0) {
+        final int index = _position >>> 3;
+        if (index >= _buffer.length) {
+          throw new OpenGammaRuntimeException("Truncated time-series chunk");
+        }
+        final int available = 8 - (_position & 7);
+        final int n = Math.min(available, count);
+        final int bits = ((_buffer[index] & 0xFF) >>> (available - n)) & ((1 << n) - 1);
+        result = (result << n) | bits;
+        _position += n;
+        count -= n;
+      }
+      return result;
+    }
+
+    long readSignedBits(final int count) {
+      return (readBits(count) << (64 - count)) >> (64 - count);
+    }
+  }
+
+}
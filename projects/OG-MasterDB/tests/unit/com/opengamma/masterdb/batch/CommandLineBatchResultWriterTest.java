@@ -181,6 +181,10 @@ public class CommandLineBatchResultWriterTest extends HibernateTest {
   }
   
   private CommandLineBatchResultWriter getResultWriter(CalculationJobResult result) {
+    return getResultWriter((BackgroundBatchDbWriter) null);
+  }
+  
+  private CommandLineBatchResultWriter getResultWriter(BackgroundBatchDbWriter backgroundWriter) {
     
     Map<String, ViewComputationCache> cachesByCalculationConfiguration = new HashMap<String, ViewComputationCache>();
     cachesByCalculationConfiguration.put(CalculationNodeUtils.CALC_CONF_NAME, getCache());
@@ -196,7 +200,8 @@ public class CommandLineBatchResultWriterTest extends HibernateTest {
         cachesByCalculationConfiguration,
         _dbComputationTargets,
         _riskRun,
-        _valueNames);
+        _valueNames,
+        backgroundWriter);
     resultWriter.initialize();
     
     return resultWriter;
@@ -483,6 +488,34 @@ public class CommandLineBatchResultWriterTest extends HibernateTest {
     assertEquals(0, resultWriter.getNumRiskComputeFailureRows());
   }
   
+  @Test
+  public void functionWasSuccessfulWrittenInBackground() {
+    CalculationJobResultItem item = new CalculationJobResultItem(_calcJob.getJobItems().get(0));
+    putOutputToCache();
+    
+    CalculationJobResult result = new CalculationJobResult(
+        _calcJob.getSpecification(),
+        200,
+        Collections.singletonList(item),
+        "localhost");
+    
+    BackgroundBatchDbWriter backgroundWriter = new BackgroundBatchDbWriter();
+    CommandLineBatchResultWriter resultWriter = getResultWriter(backgroundWriter);
+    resultWriter.write(result, null);
+    backgroundWriter.shutdown();
+    
+    assertEquals(1, resultWriter.getNumRiskRows());
+    RiskValue value = getValueFromDb(resultWriter);
+    assertEquals(_mockFunction.getResult().getValue(), value.getValue());
+    assertEquals(StatusEntry.Status.SUCCESS, resultWriter.getStatus(
+        CalculationNodeUtils.CALC_CONF_NAME, 
+        _mockFunction.getTarget().toSpecification()));
+    
+    assertEquals(0, resultWriter.getNumRiskFailureRows());
+    assertEquals(0, resultWriter.getNumRiskFailureReasonRows());
+    assertEquals(0, resultWriter.getNumRiskComputeFailureRows());
+  }
+  
   @Test
   public void nonScalarFunctionWasSuccessful() {
     CalculationJobResultItem item = new CalculationJobResultItem(_calcJob.getJobItems().get(0));
@@ -348,6 +348,20 @@ public class DbBatchMasterTest extends TransactionalHibernateTest {
     assertEquals(run1, run2);
   }
 
+  @Test
+  public void startAndFailBatch() {
+    // nothing to release before the batch has started
+    _batchMaster.failBatch(_batchJobRun);
+    
+    _batchMaster.createLiveDataSnapshot(_batchJobRun.getSnapshotId());
+    _batchMaster.startBatch(_batchJobRun);
+    _batchMaster.failBatch(_batchJobRun);
+    
+    RiskRun run = _batchMaster.getRiskRunFromDb(_batchJobRun);
+    assertNotNull(run);
+    assertNull(run.getEndInstant());
+  }
+
   @Test
   public void startBatchTwice() {
     assertNull(_batchJobRun.getOriginalCreationTime());
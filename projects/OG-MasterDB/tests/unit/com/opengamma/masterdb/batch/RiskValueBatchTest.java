@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Date;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test RiskValueBatch.
+ */
+@Test
+public class RiskValueBatchTest {
+
+  public void grows() {
+    RiskValueBatch batch = new RiskValueBatch(1);
+    assertTrue(batch.isEmpty());
+    Date evalInstant = new Date(0);
+    for (int i = 0; i < 100; i++) {
+      batch.add(1000 + i, 1, 2, 3, 4, 5, i * 1.5, evalInstant, 6);
+    }
+    assertEquals(100, batch.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(1000L + i, batch.getId(i));
+      assertEquals(i * 1.5, batch.getValue(i), 0);
+    }
+  }
+
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void indexOutOfRange() {
+    RiskValueBatch batch = new RiskValueBatch();
+    batch.add(1, 1, 2, 3, 4, 5, 6.0, new Date(), 6);
+    batch.getValue(1);
+  }
+
+  public void copyRows() {
+    RiskValueBatch batch = new RiskValueBatch();
+    Date evalInstant = new Date();
+    batch.add(1, 2, 3, 4, 5, 6, 7.5, evalInstant, 8);
+    batch.add(9, 2, 3, 4, 5, 6, Double.NaN, evalInstant, 8);
+    StringBuilder buf = new StringBuilder();
+    batch.appendCopyRows(buf, 0, 2);
+    String[] rows = buf.toString().split("\n");
+    assertEquals(2, rows.length);
+    String[] columns = rows[0].split("\t");
+    assertEquals(9, columns.length);
+    assertEquals("1", columns[0]);
+    assertEquals("7.5", columns[6]);
+    assertEquals("8", columns[8]);
+    assertEquals("NaN", rows[1].split("\t")[6]);
+  }
+
+  public void multiRowInsert() {
+    String sql = RiskValue.sqlInsertRisk(3);
+    int parameters = 0;
+    for (char c : sql.toCharArray()) {
+      if (c == '?') {
+        parameters++;
+      }
+    }
+    assertEquals(27, parameters);
+  }
+
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.timeseries;
+
+import java.util.Map;
+
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import com.opengamma.master.timeseries.TimeSeriesMaster;
+import com.opengamma.util.test.DBTest;
+
+/**
+ * Test CompressedLocalDateDbTimeSeriesMaster.
+ * <p>
+ * Runs the tests of the row store with a small chunk size, so that time-series span several chunks.
+ */
+@Test
+public class CompressedLocalDateDbTimeSeriesMasterTest extends LocalDateDbTimeSeriesMasterTest {
+
+  @Factory(dataProvider = "databasesMoreVersions", dataProviderClass = DBTest.class)
+  public CompressedLocalDateDbTimeSeriesMasterTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+  }
+
+  @Override
+  protected TimeSeriesMaster<LocalDate> getTimeSeriesMaster(Map<String, String> namedSQLMap) {
+    CompressedLocalDateDbTimeSeriesMaster master = new CompressedLocalDateDbTimeSeriesMaster(getDbSource(), namedSQLMap);
+    master.setChunkSize(3);
+    return master;
+  }
+
+}
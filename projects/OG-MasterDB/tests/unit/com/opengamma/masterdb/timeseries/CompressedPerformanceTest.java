@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.timeseries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.time.calendar.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.FileSystemXmlApplicationContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import com.opengamma.id.Identifier;
+import com.opengamma.id.IdentifierBundle;
+import com.opengamma.id.IdentifierBundleWithDates;
+import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.master.timeseries.TimeSeriesDocument;
+import com.opengamma.master.timeseries.TimeSeriesMaster;
+import com.opengamma.master.timeseries.impl.RandomTimeSeriesGenerator;
+import com.opengamma.util.test.DBTest;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * A performance test comparing the loading of time-series stored a row per point
+ * with those stored in compressed chunks.
+ */
+@Test(enabled = false)
+public class CompressedPerformanceTest extends DBTest {
+
+  /** Logger. */
+  private static final Logger s_logger = LoggerFactory.getLogger(CompressedPerformanceTest.class);
+
+  private static final int NUM_SERIES = 20;
+  private static final int NUM_POINTS = 2500;
+  private static final int NUM_LOADS = 5;
+
+  /**
+   * The master storing a row per point.
+   */
+  private TimeSeriesMaster<LocalDate> _rowMaster;
+  /**
+   * The master storing compressed chunks.
+   */
+  private TimeSeriesMaster<LocalDate> _compressedMaster;
+
+  @Factory(dataProvider = "databasesMoreVersions", dataProviderClass = DBTest.class)
+  public CompressedPerformanceTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    super.setUp();
+    
+    ApplicationContext context = new FileSystemXmlApplicationContext("src/com/opengamma/masterdb/timeseries/tssQueries.xml");
+    
+    @SuppressWarnings("unchecked")
+    Map<String, String> namedSQLMap = (Map<String, String>) context.getBean("tssNamedSQLMap");
+    
+    _rowMaster = new LocalDateDbTimeSeriesMaster(getDbSource(), namedSQLMap, false);
+    _compressedMaster = new CompressedLocalDateDbTimeSeriesMaster(getDbSource(), namedSQLMap);
+  }
+
+  //-------------------------------------------------------------------------
+  public void loadRowsAndChunks() {
+    List<LocalDateDoubleTimeSeries> timeSeries = new ArrayList<LocalDateDoubleTimeSeries>();
+    for (int i = 0; i < NUM_SERIES; i++) {
+      timeSeries.add(RandomTimeSeriesGenerator.makeRandomTimeSeries(NUM_POINTS));
+    }
+    List<UniqueIdentifier> rowIds = add(_rowMaster, "row", timeSeries);
+    List<UniqueIdentifier> compressedIds = add(_compressedMaster, "compressed", timeSeries);
+    
+    for (int i = 0; i < NUM_LOADS; i++) {
+      load(_rowMaster, "row", rowIds);
+      load(_compressedMaster, "compressed", compressedIds);
+    }
+  }
+
+  private List<UniqueIdentifier> add(TimeSeriesMaster<LocalDate> master, String name, List<LocalDateDoubleTimeSeries> timeSeries) {
+    List<UniqueIdentifier> result = new ArrayList<UniqueIdentifier>();
+    long start = System.nanoTime();
+    for (int i = 0; i < timeSeries.size(); i++) {
+      TimeSeriesDocument<LocalDate> tsDocument = new TimeSeriesDocument<LocalDate>();
+      tsDocument.setDataField("CLOSE");
+      tsDocument.setDataProvider("CMPL");
+      tsDocument.setDataSource("BLOOMBERG");
+      tsDocument.setObservationTime("LDN_CLOSE");
+      tsDocument.setIdentifiers(IdentifierBundleWithDates.of(IdentifierBundle.of(Identifier.of("s" + name, "id" + i))));
+      tsDocument.setTimeSeries(timeSeries.get(i));
+      result.add(master.addTimeSeries(tsDocument).getUniqueId());
+    }
+    long end = System.nanoTime();
+    s_logger.info("Adding {} {} series with {} points each took {} ms",
+        new Object[] {timeSeries.size(), name, NUM_POINTS, (end - start) / 1E6 });
+    return result;
+  }
+
+  private void load(TimeSeriesMaster<LocalDate> master, String name, List<UniqueIdentifier> ids) {
+    long start = System.nanoTime();
+    int points = 0;
+    for (UniqueIdentifier id : ids) {
+      points += master.getTimeSeries(id).getTimeSeries().size();
+    }
+    long end = System.nanoTime();
+    s_logger.info("Loading {} {} series took {} ms, {} points per second",
+        new Object[] {ids.size(), name, (end - start) / 1E6, points * 1E9 / (end - start) });
+  }
+
+}
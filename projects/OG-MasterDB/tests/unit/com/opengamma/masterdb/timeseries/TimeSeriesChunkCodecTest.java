@@ -0,0 +1,107 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.timeseries;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test TimeSeriesChunkCodec.
+ */
+@Test
+public class TimeSeriesChunkCodecTest {
+
+  public void empty() {
+    final byte[] chunk = TimeSeriesChunkCodec.encode(new long[0], new double[0], 0, 0);
+    assertEquals(0, TimeSeriesChunkCodec.getPointCount(chunk));
+    assertEquals(0, TimeSeriesChunkCodec.decode(chunk, new long[0], new double[0], 0));
+  }
+
+  public void singlePoint() {
+    assertRoundTrip(new long[] {14000}, new double[] {Double.NaN});
+  }
+
+  public void weekdays() {
+    final int n = 1000;
+    final long[] times = new long[n];
+    final double[] values = new double[n];
+    final Random random = new Random(0);
+    long day = 14000;
+    double price = 100;
+    for (int i = 0; i < n; i++) {
+      times[i] = day;
+      values[i] = price;
+      day += (i % 5 == 4) ? 3 : 1;
+      price = Math.round((price + random.nextGaussian()) * 100) / 100d;
+    }
+    final byte[] chunk = assertRoundTrip(times, values);
+    // Far smaller than the 16 bytes of a raw point
+    assertTrue(chunk.length < 10 * n);
+  }
+
+  public void irregular() {
+    final int n = 500;
+    final long[] times = new long[n];
+    final double[] values = new double[n];
+    final Random random = new Random(1);
+    long time = -1000000L;
+    for (int i = 0; i < n; i++) {
+      time += 1 + (i % 7 == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(3000));
+      times[i] = time;
+      values[i] = i % 3 == 0 ? values[Math.max(0, i - 1)] : random.nextDouble() * Math.pow(10, random.nextInt(20) - 10);
+    }
+    values[10] = Double.POSITIVE_INFINITY;
+    values[11] = -0.0;
+    values[12] = Double.MIN_VALUE;
+    assertRoundTrip(times, values);
+  }
+
+  public void extremeTimes() {
+    assertRoundTrip(new long[] {Long.MIN_VALUE / 2, 0, Long.MAX_VALUE / 2}, new double[] {1, 2, 3});
+  }
+
+  public void range() {
+    final long[] times = new long[] {1, 2, 3, 4, 5};
+    final double[] values = new double[] {1.5, 2.5, 3.5, 4.5, 5.5};
+    final byte[] chunk = TimeSeriesChunkCodec.encode(times, values, 1, 4);
+    final long[] decodedTimes = new long[5];
+    final double[] decodedValues = new double[5];
+    assertEquals(3, TimeSeriesChunkCodec.decode(chunk, decodedTimes, decodedValues, 2));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(times[i + 1], decodedTimes[i + 2]);
+      assertEquals(values[i + 1], decodedValues[i + 2]);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unorderedTimes() {
+    TimeSeriesChunkCodec.encode(new long[] {2, 1}, new double[] {1, 2}, 0, 2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void decodeIntoSmallArrays() {
+    final byte[] chunk = TimeSeriesChunkCodec.encode(new long[] {1, 2}, new double[] {1, 2}, 0, 2);
+    TimeSeriesChunkCodec.decode(chunk, new long[1], new double[1], 0);
+  }
+
+  private static byte[] assertRoundTrip(final long[] times, final double[] values) {
+    final byte[] chunk = TimeSeriesChunkCodec.encode(times, values, 0, times.length);
+    assertEquals(times.length, TimeSeriesChunkCodec.getPointCount(chunk));
+    final long[] decodedTimes = new long[times.length];
+    final double[] decodedValues = new double[times.length];
+    assertEquals(times.length, TimeSeriesChunkCodec.decode(chunk, decodedTimes, decodedValues, 0));
+    for (int i = 0; i < times.length; i++) {
+      assertEquals(times[i], decodedTimes[i]);
+      assertEquals(Double.doubleToRawLongBits(values[i]), Double.doubleToRawLongBits(decodedValues[i]));
+    }
+    return chunk;
+  }
+
+}
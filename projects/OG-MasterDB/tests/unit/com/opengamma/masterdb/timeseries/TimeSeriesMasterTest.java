@@ -42,6 +42,10 @@ import com.opengamma.id.IdentifierBundle;
 import com.opengamma.id.IdentifierBundleWithDates;
 import com.opengamma.id.IdentifierWithDates;
 import com.opengamma.id.UniqueIdentifier;
+import com.opengamma.master.listener.MasterChangeListener;
+import com.opengamma.master.listener.MasterChanged;
+import com.opengamma.master.listener.MasterChangedType;
+import com.opengamma.master.listener.NotifyingMaster;
 import com.opengamma.master.timeseries.DataFieldBean;
 import com.opengamma.master.timeseries.DataPointDocument;
 import com.opengamma.master.timeseries.DataProviderBean;
@@ -745,6 +749,46 @@ public abstract class TimeSeriesMasterTest<T> extends DBTest {
     
   }
   
+  @Test
+  public void changeTypes() throws Exception {
+    List<TimeSeriesDocument<T>> tsList = addAndTestTimeSeries();
+    TimeSeriesDocument<T> tsDoc = getRandonTimeSeriesDocument(tsList);
+    final List<MasterChanged> changes = new ArrayList<MasterChanged>();
+    ((NotifyingMaster) _tsMaster).changeManager().addChangeListener(new MasterChangeListener() {
+      @Override
+      public void masterChanged(MasterChanged event) {
+        changes.add(event);
+      }
+    });
+    DoubleTimeSeries<T> timeSeries = tsDoc.getTimeSeries();
+    
+    // points after the latest are an update
+    tsDoc.setTimeSeries(makeRandomTimeSeries(convert(timeSeries.getLatestTime()).plusDays(1), 7));
+    _tsMaster.appendTimeSeries(tsDoc);
+    assertEquals(1, changes.size());
+    assertEquals(MasterChangedType.UPDATED, changes.get(0).getType());
+    assertEquals(tsDoc.getUniqueId(), changes.get(0).getAfterId());
+    
+    // points before the latest are a correction
+    tsDoc.setTimeSeries(makeRandomTimeSeries(convert(timeSeries.getEarliestTime()).minusDays(14), 7));
+    _tsMaster.appendTimeSeries(tsDoc);
+    assertEquals(2, changes.size());
+    assertEquals(MasterChangedType.CORRECTED, changes.get(1).getType());
+    
+    TimeSeriesDocument<T> latestDoc = _tsMaster.getTimeSeries(tsDoc.getUniqueId());
+    DataPointDocument<T> dataPointDocument = new DataPointDocument<T>();
+    dataPointDocument.setTimeSeriesId(tsDoc.getUniqueId());
+    dataPointDocument.setDate(convert(convert(latestDoc.getTimeSeries().getLatestTime()).plusDays(1)));
+    dataPointDocument.setValue(Math.random());
+    _tsMaster.addDataPoint(dataPointDocument);
+    assertEquals(3, changes.size());
+    assertEquals(MasterChangedType.UPDATED, changes.get(2).getType());
+    
+    _tsMaster.removeDataPoint(dataPointDocument.getDataPointId());
+    assertEquals(4, changes.size());
+    assertEquals(MasterChangedType.CORRECTED, changes.get(3).getType());
+  }
+  
   @Test
   public void searchNotAvailableTimeSeries() throws Exception {
     addAndTestTimeSeries();
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * A histogram of latencies, or any other non-negative long values, with a bounded relative error.
+ * <p>
+ * Values are counted in log-linear buckets: each power of two is divided into the same number of linear
+ * sub-buckets, so the width of a bucket is proportional to the values it holds. With the default precision of
+ * 6 bits a value is reported to within 1/32 (about 3%) of its recorded value, over the full range of a long,
+ * in a fixed array of under two thousand counters. Recording is lock-free and allocation-free.
+ * <p>
+ * The implementation is thread-safe. Reads made while values are being recorded may see a partial update.
+ */
+public class LatencyHistogram {
+
+  /**
+   * The default number of bits of precision.
+   */
+  public static final int DEFAULT_PRECISION = 6;
+
+  private final int _precision;
+  private final int _halfSubBuckets;
+  private final AtomicLongArray _counts;
+  private final AtomicLong _count = new AtomicLong();
+  private final AtomicLong _total = new AtomicLong();
+  private final AtomicLong _min = new AtomicLong(Long.MAX_VALUE);
+  private final AtomicLong _max = new AtomicLong(Long.MIN_VALUE);
+
+  /**
+   * Creates a histogram with the default precision.
+   */
+  public LatencyHistogram() {
+    this(DEFAULT_PRECISION);
+  }
+
+  /**
+   * Creates a histogram.
+   *
+   * @param precision  the number of bits of precision kept, from 2 to 16; values are reported to within
+   *  1 / 2<sup>precision - 1</sup> of their recorded value
+   */
+  public LatencyHistogram(final int precision) {
+    ArgumentChecker.isTrue((precision >= 2) && (precision <= 16), "precision must be from 2 to 16");
+    _precision = precision;
+    _halfSubBuckets = 1 << (precision - 1);
+    _counts = new AtomicLongArray(bucketIndex(Long.MAX_VALUE) + 1);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of bits of precision kept.
+   *
+   * @return the precision
+   */
+  public int getPrecision() {
+    return _precision;
+  }
+
+  private int bucketIndex(final long value) {
+    final int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - _precision);
+    return shift * _halfSubBuckets + (int) (value >>> shift);
+  }
+
+  private long bucketUpperBound(final int index) {
+    if (index < 2 * _halfSubBuckets) {
+      return index;
+    }
+    final int shift = index / _halfSubBuckets - 1;
+    final long subBucket = index - shift * _halfSubBuckets;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Records a value.
+   *
+   * @param value  the value, not negative
+   */
+  public void record(final long value) {
+    record(value, 1);
+  }
+
+  /**
+   * Records a number of occurrences of a value. This is useful when only the mean of a batch is known.
+   *
+   * @param value  the value, not negative
+   * @param count  the number of occurrences, not negative
+   */
+  public void record(final long value, final long count) {
+    ArgumentChecker.notNegative(value, "value");
+    ArgumentChecker.notNegative(count, "count");
+    if (count == 0) {
+      return;
+    }
+    _counts.addAndGet(bucketIndex(value), count);
+    _count.addAndGet(count);
+    _total.addAndGet(value * count);
+    long min = _min.get();
+    while ((value < min) && !_min.compareAndSet(min, value)) {
+      min = _min.get();
+    }
+    long max = _max.get();
+    while ((value > max) && !_max.compareAndSet(max, value)) {
+      max = _max.get();
+    }
+  }
+
+  /**
+   * Adds the values recorded by another histogram of the same precision to this one.
+   *
+   * @param other  the histogram to add, not null
+   */
+  public void add(final LatencyHistogram other) {
+    ArgumentChecker.notNull(other, "other");
+    ArgumentChecker.isTrue(other.getPrecision() == getPrecision(), "Histograms must have the same precision");
+    for (int i = 0; i < _counts.length(); i++) {
+      final long count = other._counts.get(i);
+      if (count != 0) {
+        _counts.addAndGet(i, count);
+      }
+    }
+    _count.addAndGet(other.getCount());
+    _total.addAndGet(other.getTotal());
+    if (other.getCount() > 0) {
+      long min = _min.get();
+      while ((other.getMin() < min) && !_min.compareAndSet(min, other.getMin())) {
+        min = _min.get();
+      }
+      long max = _max.get();
+      while ((other.getMax() > max) && !_max.compareAndSet(max, other.getMax())) {
+        max = _max.get();
+      }
+    }
+  }
+
+  /**
+   * Discards all recorded values.
+   */
+  public void reset() {
+    for (int i = 0; i < _counts.length(); i++) {
+      _counts.set(i, 0);
+    }
+    _count.set(0);
+    _total.set(0);
+    _min.set(Long.MAX_VALUE);
+    _max.set(Long.MIN_VALUE);
+  }
+
+  /**
+   * Creates a copy of this histogram.
+   *
+   * @return the copy, not null
+   */
+  public LatencyHistogram snapshot() {
+    final LatencyHistogram copy = new LatencyHistogram(getPrecision());
+    copy.add(this);
+    return copy;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of values recorded.
+   *
+   * @return the count
+   */
+  public long getCount() {
+    return _count.get();
+  }
+
+  /**
+   * Gets the sum of the values recorded.
+   *
+   * @return the total
+   */
+  public long getTotal() {
+    return _total.get();
+  }
+
+  /**
+   * Gets the smallest value recorded.
+   *
+   * @return the minimum, or zero if nothing has been recorded
+   */
+  public long getMin() {
+    return (getCount() > 0) ? _min.get() : 0;
+  }
+
+  /**
+   * Gets the largest value recorded.
+   *
+   * @return the maximum, or zero if nothing has been recorded
+   */
+  public long getMax() {
+    return (getCount() > 0) ? _max.get() : 0;
+  }
+
+  /**
+   * Gets the mean of the values recorded.
+   *
+   * @return the mean, or zero if nothing has been recorded
+   */
+  public double getMean() {
+    final long count = getCount();
+    return (count > 0) ? (double) getTotal() / (double) count : 0;
+  }
+
+  /**
+   * Gets the value at a percentile. This is the largest value equivalent, at the precision of the histogram, to
+   * the value below which the given percentage of the recorded values fall.
+   *
+   * @param percentile  the percentile, from 0 to 100
+   * @return the value, or zero if nothing has been recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    ArgumentChecker.isTrue((percentile >= 0) && (percentile <= 100), "percentile must be from 0 to 100");
+    final long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < _counts.length(); i++) {
+      seen += _counts.get(i);
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public String toString() {
+    return "LatencyHistogram[count=" + getCount() + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax() + "]";
+  }
+
+}
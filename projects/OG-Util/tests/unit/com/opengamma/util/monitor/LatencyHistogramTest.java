@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test LatencyHistogram.
+ */
+@Test
+public class LatencyHistogramTest {
+
+  public void testEmpty() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMin());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0d, histogram.getMean());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  public void testSmallValuesExact() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 50; i++) {
+      histogram.record(i);
+    }
+    assertEquals(50, histogram.getCount());
+    assertEquals(1275, histogram.getTotal());
+    assertEquals(1, histogram.getMin());
+    assertEquals(50, histogram.getMax());
+    assertEquals(25.5d, histogram.getMean());
+    assertEquals(25, histogram.getValueAtPercentile(50));
+    assertEquals(50, histogram.getValueAtPercentile(100));
+    assertEquals(1, histogram.getValueAtPercentile(0));
+  }
+
+  public void testRelativeError() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value < Long.MAX_VALUE / 3; value = value * 3 + 7) {
+      histogram.reset();
+      histogram.record(value);
+      histogram.record(Long.MAX_VALUE);
+      final long reported = histogram.getValueAtPercentile(50);
+      assertTrue(reported >= value);
+      assertTrue((double) (reported - value) <= (double) value / 32);
+    }
+  }
+
+  public void testPercentiles() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+    assertWithin(500000, histogram.getValueAtPercentile(50));
+    assertWithin(900000, histogram.getValueAtPercentile(90));
+    assertWithin(990000, histogram.getValueAtPercentile(99));
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+  }
+
+  public void testRecordCount() {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100, 9);
+    histogram.record(10000, 1);
+    assertEquals(10, histogram.getCount());
+    assertEquals(10900, histogram.getTotal());
+    assertWithin(100, histogram.getValueAtPercentile(90));
+    assertWithin(10000, histogram.getValueAtPercentile(91));
+  }
+
+  public void testAddAndSnapshot() {
+    final LatencyHistogram a = new LatencyHistogram();
+    final LatencyHistogram b = new LatencyHistogram();
+    a.record(10);
+    a.record(20);
+    b.record(5);
+    b.record(3000);
+    final LatencyHistogram snapshot = a.snapshot();
+    a.add(b);
+    assertEquals(4, a.getCount());
+    assertEquals(5, a.getMin());
+    assertEquals(3000, a.getMax());
+    assertEquals(2, snapshot.getCount());
+    assertEquals(20, snapshot.getMax());
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegative() {
+    new LatencyHistogram().record(-1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testMismatchedPrecision() {
+    new LatencyHistogram(4).add(new LatencyHistogram(5));
+  }
+
+  private static void assertWithin(final long expected, final long actual) {
+    assertTrue(actual + " not within precision of " + expected, (actual >= expected) && ((double) (actual - expected) <= (double) expected / 32));
+  }
+
+}